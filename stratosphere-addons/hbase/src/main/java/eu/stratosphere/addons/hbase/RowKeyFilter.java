@@ -0,0 +1,58 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.addons.hbase;
+
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import eu.stratosphere.addons.hbase.common.HBaseKey;
+import eu.stratosphere.api.common.io.FieldPredicate.Comparison;
+import eu.stratosphere.api.java.record.functions.FieldComparisonFilter;
+import eu.stratosphere.types.Value;
+
+/**
+ * A filter on the row keys of the records read by a {@link TableInputFormat}. The row keys are compared as strings.
+ * If the filter directly follows the data source, the optimizer pushes the comparison into the scan of the table,
+ * which then starts or stops at the given key or filters the rows on the region servers.
+ * <p>
+ * The basic syntax for using a RowKeyFilter is as follows:
+ * <pre><blockquote>
+ * MapOperator filter = MapOperator.builder(new RowKeyFilter(Comparison.GREATER_OR_EQUAL, "row-100"))
+ *     .input(tableSource)
+ *     .build();
+ * </blockquote></pre>
+ */
+public class RowKeyFilter extends FieldComparisonFilter {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Creates a new filter that compares the row keys (field 0) with the given string.
+	 * 
+	 * @param comparison The comparison.
+	 * @param key The key to compare the row keys with.
+	 */
+	public RowKeyFilter(Comparison comparison, String key) {
+		super(0, HBaseKey.class, comparison, key);
+	}
+
+	@Override
+	protected Object toComparable(Value value) {
+		if (value instanceof HBaseKey) {
+			final ImmutableBytesWritable key = ((HBaseKey) value).getWritable();
+			return Bytes.toString(key.get(), key.getOffset(), key.getLength());
+		}
+		return super.toComparable(value);
+	}
+}
@@ -24,6 +24,13 @@ import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.BinaryComparator;
+import org.apache.hadoop.hbase.filter.CompareFilter.CompareOp;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.FirstKeyOnlyFilter;
+import org.apache.hadoop.hbase.filter.KeyOnlyFilter;
+import org.apache.hadoop.hbase.filter.RowFilter;
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 import org.apache.hadoop.hbase.mapreduce.TableRecordReader;
 import org.apache.hadoop.hbase.util.Bytes;
@@ -33,7 +40,9 @@ import org.apache.hadoop.util.StringUtils;
 import eu.stratosphere.addons.hbase.common.HBaseKey;
 import eu.stratosphere.addons.hbase.common.HBaseResult;
 import eu.stratosphere.addons.hbase.common.HBaseUtil;
+import eu.stratosphere.api.common.io.FieldPredicate;
 import eu.stratosphere.api.common.io.InputFormat;
+import eu.stratosphere.api.common.io.PushDownInputFormat;
 import eu.stratosphere.api.common.io.statistics.BaseStatistics;
 import eu.stratosphere.configuration.Configuration;
 import eu.stratosphere.types.Record;
@@ -41,8 +50,12 @@ import eu.stratosphere.util.OperatingSystem;
 
 /**
  * {@link InputFormat} subclass that wraps the access for HTables.
+ * <p>
+ * Projections and predicates that are pushed into the format are translated into the scan: if the
+ * HBase Result is projected away, only the row keys are fetched, and comparisons of the row key (field 0)
+ * with a string restrict the scanned key range or become row filters that are evaluated by the region servers.
  */
-public class TableInputFormat implements InputFormat<Record, TableInputSplit> {
+public class TableInputFormat implements InputFormat<Record, TableInputSplit>, PushDownInputFormat {
 
 	private static final long serialVersionUID = 1L;
 
@@ -103,14 +116,127 @@ public class TableInputFormat implements InputFormat<Record, TableInputSplit> {
 
 	private org.apache.hadoop.conf.Configuration hConf;
 
+	/** The fields (0 for the key, 1 for the result) that are set in the records, null for both in their order */
+	private int[] outputFields;
+
+	/** The pushed-down predicates on the row key */
+	private final ArrayList<FieldPredicate> rowKeyPredicates = new ArrayList<FieldPredicate>();
+
 	@Override
 	public void configure(Configuration parameters) {
 		HTable table = createTable(parameters);
 		setTable(table);
 		Scan scan = createScanner(parameters);
+		if (scan != null) {
+			applyPushDown(scan);
+		}
 		setScan(scan);
 	}
 
+	@Override
+	public boolean pushDownProjection(int[] fields) {
+		// subclasses may map the results differently to the records
+		if (getClass() != TableInputFormat.class) {
+			return false;
+		}
+		final int[] projected = new int[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			final int numFields = this.outputFields == null ? 2 : this.outputFields.length;
+			if (fields[i] < 0 || fields[i] >= numFields) {
+				return false;
+			}
+			projected[i] = this.outputFields == null ? fields[i] : this.outputFields[fields[i]];
+		}
+		this.outputFields = projected;
+		return true;
+	}
+
+	@Override
+	public boolean pushDownFilter(FieldPredicate predicate) {
+		if (getClass() != TableInputFormat.class) {
+			return false;
+		}
+		final int field = predicate.getField();
+		if (this.outputFields != null && field >= this.outputFields.length) {
+			return false;
+		}
+		// only comparisons of the row key with strings can be evaluated by the scan
+		if ((this.outputFields == null ? field : this.outputFields[field]) != 0 || !(predicate.getValue() instanceof String)) {
+			return false;
+		}
+		this.rowKeyPredicates.add(predicate.forField(0));
+		return true;
+	}
+
+	@Override
+	public boolean hasPushedDownOperations() {
+		return this.outputFields != null || !this.rowKeyPredicates.isEmpty();
+	}
+
+	/**
+	 * Restricts the given scan to the pushed-down projection and row key predicates.
+	 * 
+	 * @param scan The scan to restrict.
+	 */
+	protected void applyPushDown(Scan scan) {
+		final List<Filter> filters = new ArrayList<Filter>();
+		if (scan.getFilter() != null) {
+			filters.add(scan.getFilter());
+		}
+
+		boolean resultNeeded = this.outputFields == null;
+		for (int i = 0; !resultNeeded && i < this.outputFields.length; i++) {
+			resultNeeded = this.outputFields[i] == 1;
+		}
+		if (!resultNeeded) {
+			filters.add(new FirstKeyOnlyFilter());
+			filters.add(new KeyOnlyFilter());
+		}
+
+		for (FieldPredicate predicate : this.rowKeyPredicates) {
+			final byte[] key = Bytes.toBytes((String) predicate.getValue());
+			switch (predicate.getComparison()) {
+			case GREATER_OR_EQUAL:
+				if (scan.getStartRow().length == 0 || Bytes.compareTo(key, scan.getStartRow()) > 0) {
+					scan.setStartRow(key);
+				}
+				break;
+			case LESS:
+				if (scan.getStopRow().length == 0 || Bytes.compareTo(key, scan.getStopRow()) < 0) {
+					scan.setStopRow(key);
+				}
+				break;
+			default:
+				filters.add(new RowFilter(toCompareOp(predicate.getComparison()), new BinaryComparator(key)));
+			}
+		}
+
+		if (filters.size() == 1) {
+			scan.setFilter(filters.get(0));
+		} else if (filters.size() > 1) {
+			scan.setFilter(new FilterList(FilterList.Operator.MUST_PASS_ALL, filters));
+		}
+	}
+
+	private static CompareOp toCompareOp(FieldPredicate.Comparison comparison) {
+		switch (comparison) {
+		case EQUAL:
+			return CompareOp.EQUAL;
+		case NOT_EQUAL:
+			return CompareOp.NOT_EQUAL;
+		case LESS:
+			return CompareOp.LESS;
+		case LESS_OR_EQUAL:
+			return CompareOp.LESS_OR_EQUAL;
+		case GREATER:
+			return CompareOp.GREATER;
+		case GREATER_OR_EQUAL:
+			return CompareOp.GREATER_OR_EQUAL;
+		default:
+			throw new IllegalArgumentException();
+		}
+	}
+
 	/**
 	 * Read the configuration and creates a {@link Scan} object.
 	 * 
@@ -239,7 +365,14 @@ public class TableInputFormat implements InputFormat<Record, TableInputSplit> {
 	@Override
 	public Record nextRecord(Record record) throws IOException {
 		if (nextResult()) {
-			mapResultToRecord(record, hbaseKey, hbaseResult);
+			if (this.outputFields == null) {
+				mapResultToRecord(record, hbaseKey, hbaseResult);
+			} else {
+				record.setNumFields(this.outputFields.length);
+				for (int i = 0; i < this.outputFields.length; i++) {
+					record.setField(i, this.outputFields[i] == 0 ? hbaseKey : hbaseResult);
+				}
+			}
 			return record;
 		} else {
 			return null;
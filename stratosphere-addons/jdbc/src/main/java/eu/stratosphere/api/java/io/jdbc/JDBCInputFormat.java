@@ -15,17 +15,25 @@
 package eu.stratosphere.api.java.io.jdbc;
 
 import java.io.IOException;
+import java.math.BigInteger;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import eu.stratosphere.api.common.io.FieldPredicate;
 import eu.stratosphere.api.common.io.InputFormat;
+import eu.stratosphere.api.common.io.PushDownInputFormat;
 import eu.stratosphere.api.common.io.statistics.BaseStatistics;
 import eu.stratosphere.api.java.tuple.Tuple;
 import eu.stratosphere.configuration.Configuration;
@@ -36,15 +44,28 @@ import eu.stratosphere.types.NullValue;
 /**
  * InputFormat to read data from a database and generate tuples.
  * The InputFormat has to be configured using the supplied InputFormatBuilder.
+ * <p>
+ * Projections and field comparisons that the optimizer pushes into the format are translated into SQL: the
+ * query is wrapped into a query that selects only the projected columns and carries the comparisons in its
+ * WHERE clause, such that the database evaluates them. Comparisons on columns whose values are converted
+ * on the way into the tuples (e.g., dates) are evaluated on the rows after reading.
+ * <p>
+ * If a numeric split column is set, the format reads in parallel: the range of the column's values, either given
+ * explicitly or determined by querying the minimum and maximum, is divided into one {@link JDBCInputSplit} per
+ * requested split, and each split reads only the rows whose values fall into its range. Otherwise, the query is
+ * read by a single split.
  * 
  * @param <OUT>
  * @see Tuple
  * @see DriverManager
  */
-public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, InputSplit> {
+public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, InputSplit>, PushDownInputFormat {
 	private static final long serialVersionUID = 1L;
 
-	@SuppressWarnings("unused")
+	private static final String SUBQUERY_ALIAS = "pushdown";
+
+	private static final String RANGE_ALIAS = "splitrange";
+
 	private static final Log LOG = LogFactory.getLog(JDBCInputFormat.class);
 
 	private String username;
@@ -53,12 +74,33 @@ public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, Inpu
 	private String dbURL;
 	private String query;
 
+	// the numeric column whose values are divided into ranges for the splits, or null to read with a single split
+	private String splitColumn;
+	// the explicitly given bounds of the split column's values, or null to query them
+	private Long lowerBound;
+	private Long upperBound;
+	// the number of rows fetched from the database at once, or 0 for the driver's default
+	private int fetchSize;
+
 	private transient Connection dbConn;
 	private transient Statement statement;
 	private transient ResultSet resultSet;
 
 	private int[] columnTypes = null;
 
+	// whether the result set is positioned on a row that satisfies the predicates and was not returned yet
+	private transient boolean hasNext;
+
+	// the columns of the query's result that are set as the tuple fields, or null for all columns
+	private int[] projection;
+	// the predicates that the rows must satisfy, referring to the columns of the query's result
+	private final List<FieldPredicate> predicates = new ArrayList<FieldPredicate>();
+
+	// the columns of the result set that are set as the tuple fields
+	private transient int[] outputColumns;
+	// the predicates that are evaluated on the rows, referring to the columns of the result set
+	private transient FieldPredicate[] residualPredicates;
+
 	public JDBCInputFormat() {
 	}
 
@@ -67,17 +109,37 @@ public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, Inpu
 	}
 
 	/**
-	 * Connects to the source database and executes the query.
+	 * Connects to the source database and executes the query. If the split covers a range of the split column's
+	 * values, only the rows in that range are read.
 	 *
-	 * @param ignored
+	 * @param split The split to read, or null to read all rows.
 	 * @throws IOException
 	 */
 	@Override
-	public void open(InputSplit ignored) throws IOException {
+	public void open(InputSplit split) throws IOException {
 		try {
 			establishConnection();
-			statement = dbConn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
-			resultSet = statement.executeQuery(query);
+			columnTypes = null;
+
+			// restrict the query to the range of the split
+			String source = query;
+			final List<Object> parameters = new ArrayList<Object>(2);
+			if (split instanceof JDBCInputSplit && splitColumn != null) {
+				final JDBCInputSplit rangeSplit = (JDBCInputSplit) split;
+				if (!rangeSplit.isFirst() || !rangeSplit.isLast()) {
+					source = "SELECT * FROM (" + query + ") " + RANGE_ALIAS + " WHERE " + getRangeCondition(rangeSplit, parameters);
+				}
+			}
+
+			if (projection == null && predicates.isEmpty()) {
+				statement = prepareStatement(source, parameters);
+				resultSet = executeQuery(source, parameters);
+				outputColumns = null;
+				residualPredicates = new FieldPredicate[0];
+			} else {
+				executePushDownQuery(source, parameters);
+			}
+			hasNext = advance();
 		} catch (SQLException se) {
 			close();
 			throw new IllegalArgumentException("open() failed." + se.getMessage(), se);
@@ -95,6 +157,217 @@ public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, Inpu
 		}
 	}
 
+	/**
+	 * Creates the condition that selects the rows of the given split and adds its parameters to the given list.
+	 */
+	private String getRangeCondition(JDBCInputSplit split, List<Object> parameters) {
+		if (split.isFirst()) {
+			parameters.add(split.getUpperBound());
+			return "(" + splitColumn + " < ? OR " + splitColumn + " IS NULL)";
+		} else if (split.isLast()) {
+			parameters.add(split.getLowerBound());
+			return splitColumn + " >= ?";
+		} else {
+			parameters.add(split.getLowerBound());
+			parameters.add(split.getUpperBound());
+			return splitColumn + " >= ? AND " + splitColumn + " < ?";
+		}
+	}
+
+	/**
+	 * Creates the statement for the given query, which is a prepared statement if the query has parameters. The
+	 * statement's results are forward-only, because drivers like those of PostgreSQL and MySQL ignore the fetch size
+	 * and load the whole result into memory for scrollable results.
+	 */
+	private Statement prepareStatement(String sql, List<Object> parameters) throws SQLException {
+		final Statement stmt;
+		if (parameters.isEmpty()) {
+			stmt = dbConn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		} else {
+			final PreparedStatement preparedStatement = dbConn.prepareStatement(sql,
+				ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			for (int i = 0; i < parameters.size(); i++) {
+				preparedStatement.setObject(i + 1, parameters.get(i));
+			}
+			stmt = preparedStatement;
+		}
+		if (fetchSize > 0) {
+			stmt.setFetchSize(fetchSize);
+		}
+		return stmt;
+	}
+
+	/**
+	 * Executes the given query with the current statement, created by {@link #prepareStatement(String, List)}.
+	 */
+	private ResultSet executeQuery(String sql, List<Object> parameters) throws SQLException {
+		return parameters.isEmpty() ? statement.executeQuery(sql) : ((PreparedStatement) statement).executeQuery();
+	}
+
+	/**
+	 * Executes the query with the pushed-down projection and predicates. The query is wrapped into a query that
+	 * selects the projected columns by their labels and compares the columns with the predicates' values, which are
+	 * passed as parameters. If the labels of the query's columns are not unique, the query is executed as it is,
+	 * and the projection and predicates are applied to the rows after reading.
+	 *
+	 * @param source The query to read from, which may be restricted to the range of a split.
+	 * @param sourceParameters The parameters of the source query.
+	 */
+	private void executePushDownQuery(String source, List<Object> sourceParameters) throws SQLException {
+		// determine the labels and types of the query's columns
+		final String[] labels;
+		final int[] types;
+		final Statement probe = dbConn.createStatement();
+		try {
+			final ResultSetMetaData metaData = probe.executeQuery(
+				"SELECT * FROM (" + query + ") " + SUBQUERY_ALIAS + " WHERE 1 = 0").getMetaData();
+			labels = new String[metaData.getColumnCount()];
+			types = new int[labels.length];
+			for (int i = 0; i < labels.length; i++) {
+				labels[i] = metaData.getColumnLabel(i + 1);
+				types[i] = metaData.getColumnType(i + 1);
+			}
+		} finally {
+			probe.close();
+		}
+
+		final int[] projected;
+		if (projection == null) {
+			projected = new int[labels.length];
+			for (int i = 0; i < projected.length; i++) {
+				projected[i] = i;
+			}
+		} else {
+			projected = projection;
+		}
+		for (int column : projected) {
+			if (column >= labels.length) {
+				throw new SQLException("The query has only " + labels.length + " columns, but column " + column + " is projected.");
+			}
+		}
+		for (FieldPredicate predicate : predicates) {
+			if (predicate.getField() >= labels.length) {
+				throw new SQLException("The query has only " + labels.length + " columns, but the predicate '" + predicate +
+					"' refers to column " + predicate.getField() + ".");
+			}
+		}
+
+		final Set<String> uniqueLabels = new HashSet<String>();
+		for (String label : labels) {
+			if (!uniqueLabels.add(label.toUpperCase())) {
+				LOG.info("The columns of the query are not uniquely labeled, the projection and predicates are applied after reading.");
+				statement = prepareStatement(source, sourceParameters);
+				resultSet = executeQuery(source, sourceParameters);
+				outputColumns = projected;
+				residualPredicates = predicates.toArray(new FieldPredicate[predicates.size()]);
+				return;
+			}
+		}
+
+		String quote = dbConn.getMetaData().getIdentifierQuoteString();
+		if (quote == null || quote.trim().isEmpty()) {
+			quote = "";
+		}
+
+		// select the projected columns, followed by the columns of the predicates that are evaluated after reading
+		final StringBuilder select = new StringBuilder("SELECT ");
+		final StringBuilder where = new StringBuilder();
+		final List<Object> parameters = new ArrayList<Object>(sourceParameters);
+		final List<FieldPredicate> residual = new ArrayList<FieldPredicate>();
+		int numSelected = 0;
+
+		outputColumns = new int[projected.length];
+		for (int i = 0; i < projected.length; i++) {
+			select.append(numSelected == 0 ? "" : ", ").append(quote).append(labels[projected[i]]).append(quote);
+			outputColumns[i] = numSelected++;
+		}
+		for (FieldPredicate predicate : predicates) {
+			final int column = predicate.getField();
+			if (isComparableInDatabase(types[column], predicate.getValue())) {
+				where.append(where.length() == 0 ? " WHERE " : " AND ");
+				where.append(quote).append(labels[column]).append(quote).append(' ');
+				where.append(toSqlOperator(predicate.getComparison())).append(" ?");
+				parameters.add(predicate.getValue());
+			} else {
+				select.append(", ").append(quote).append(labels[column]).append(quote);
+				residual.add(predicate.forField(numSelected++));
+			}
+		}
+		residualPredicates = residual.toArray(new FieldPredicate[residual.size()]);
+
+		final String pushDownQuery = select + " FROM (" + source + ") " + SUBQUERY_ALIAS + where;
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Executing query with pushed-down projection and predicates: " + pushDownQuery);
+		}
+
+		statement = prepareStatement(pushDownQuery, parameters);
+		resultSet = executeQuery(pushDownQuery, parameters);
+	}
+
+	/**
+	 * Checks whether the database compares values of the given SQL type with the given value the same way as the
+	 * predicate compares the values that are read into the tuples. Only numeric and boolean comparisons are pushed
+	 * into the query. Strings are compared after reading, because the collation of the database (for example a
+	 * case-insensitive one, or the padding of CHAR columns) may differ from {@link String#compareTo(String)}.
+	 */
+	private static boolean isComparableInDatabase(int sqlType, Object value) {
+		switch (sqlType) {
+			case java.sql.Types.BOOLEAN:
+			case java.sql.Types.BIT:
+				return value instanceof Boolean;
+			case java.sql.Types.TINYINT:
+			case java.sql.Types.SMALLINT:
+			case java.sql.Types.INTEGER:
+			case java.sql.Types.BIGINT:
+			case java.sql.Types.FLOAT:
+			case java.sql.Types.REAL:
+			case java.sql.Types.DOUBLE:
+			case java.sql.Types.DECIMAL:
+			case java.sql.Types.NUMERIC:
+				return value instanceof Number;
+			default:
+				return false;
+		}
+	}
+
+	private static String toSqlOperator(FieldPredicate.Comparison comparison) {
+		switch (comparison) {
+			case EQUAL:
+				return "=";
+			case NOT_EQUAL:
+				return "<>";
+			default:
+				return comparison.toString();
+		}
+	}
+
+	@Override
+	public boolean pushDownProjection(int[] fields) {
+		final int[] columns = new int[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			if (projection != null && fields[i] >= projection.length) {
+				return false;
+			}
+			columns[i] = projection == null ? fields[i] : projection[fields[i]];
+		}
+		projection = columns;
+		return true;
+	}
+
+	@Override
+	public boolean pushDownFilter(FieldPredicate predicate) {
+		if (projection != null && predicate.getField() >= projection.length) {
+			return false;
+		}
+		predicates.add(predicate.forField(projection == null ? predicate.getField() : projection[predicate.getField()]));
+		return true;
+	}
+
+	@Override
+	public boolean hasPushedDownOperations() {
+		return projection != null || !predicates.isEmpty();
+	}
+
 	/**
 	 * Closes all resources used.
 	 *
@@ -123,39 +396,40 @@ public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, Inpu
 	}
 
 	/**
-	 * Checks whether all data has been read.
+	 * Checks whether all data has been read. The format reads one row ahead, so the end is known without moving
+	 * the cursor.
 	 *
 	 * @return boolean value indication whether all data has been read.
 	 * @throws IOException
 	 */
 	@Override
 	public boolean reachedEnd() throws IOException {
-		try {
-			if (resultSet.isLast()) {
-				close();
-				return true;
-			}
-			return false;
-		} catch (SQLException se) {
-			throw new IOException("Couldn't evaluate reachedEnd() - " + se.getMessage(), se);
+		if (!hasNext) {
+			close();
+			return true;
 		}
+		return false;
 	}
 
 	/**
-	 * Stores the next resultSet row in a tuple
+	 * Stores the next resultSet row that satisfies the predicates in a tuple
 	 *
 	 * @param tuple
-	 * @return tuple containing next row
+	 * @return tuple containing next row, or null, if all rows have been read
 	 * @throws java.io.IOException
 	 */
 	@Override
 	public OUT nextRecord(OUT tuple) throws IOException {
+		if (!hasNext) {
+			return null;
+		}
 		try {
-			resultSet.next();
-			if (columnTypes == null) {
-				extractTypes(tuple);
+			if (tuple.getArity() != outputColumns.length) {
+				close();
+				throw new IOException("Tuple size does not match columncount");
 			}
 			addValue(tuple);
+			hasNext = advance();
 			return tuple;
 		} catch (SQLException se) {
 			close();
@@ -166,109 +440,124 @@ public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, Inpu
 		}
 	}
 
-	private void extractTypes(OUT tuple) throws SQLException, IOException {
+	/**
+	 * Moves the cursor to the next row that satisfies the predicates.
+	 *
+	 * @return True, if the cursor is on such a row, false, if all rows have been read.
+	 */
+	private boolean advance() throws SQLException {
+		while (resultSet.next()) {
+			if (columnTypes == null) {
+				extractTypes();
+			}
+			if (satisfiesPredicates()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void extractTypes() throws SQLException {
 		ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
 		columnTypes = new int[resultSetMetaData.getColumnCount()];
-		if (tuple.getArity() != columnTypes.length) {
-			close();
-			throw new IOException("Tuple size does not match columncount");
+		if (outputColumns == null) {
+			outputColumns = new int[columnTypes.length];
+			for (int pos = 0; pos < outputColumns.length; pos++) {
+				outputColumns[pos] = pos;
+			}
 		}
 		for (int pos = 0; pos < columnTypes.length; pos++) {
 			columnTypes[pos] = resultSetMetaData.getColumnType(pos + 1);
 		}
 	}
 
+	private boolean satisfiesPredicates() throws SQLException {
+		for (FieldPredicate predicate : residualPredicates) {
+			if (!predicate.accepts(readValue(predicate.getField()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Enters data value from the current resultSet into a Record.
 	 *
-	 * @param pos Tuple position to be set.
-	 * @param type SQL type of the resultSet value.
 	 * @param reuse Target Record.
 	 */
 	private void addValue(OUT reuse) throws SQLException {
-		for (int pos = 0; pos < columnTypes.length; pos++) {
-			switch (columnTypes[pos]) {
-				case java.sql.Types.NULL:
-					reuse.setField(NullValue.getInstance(), pos);
-					break;
-				case java.sql.Types.BOOLEAN:
-					reuse.setField(resultSet.getBoolean(pos + 1), pos);
-					break;
-				case java.sql.Types.BIT:
-					reuse.setField(resultSet.getBoolean(pos + 1), pos);
-					break;
-				case java.sql.Types.CHAR:
-					reuse.setField(resultSet.getString(pos + 1), pos);
-					break;
-				case java.sql.Types.NCHAR:
-					reuse.setField(resultSet.getString(pos + 1), pos);
-					break;
-				case java.sql.Types.VARCHAR:
-					reuse.setField(resultSet.getString(pos + 1), pos);
-					break;
-				case java.sql.Types.LONGVARCHAR:
-					reuse.setField(resultSet.getString(pos + 1), pos);
-					break;
-				case java.sql.Types.LONGNVARCHAR:
-					reuse.setField(resultSet.getString(pos + 1), pos);
-					break;
-				case java.sql.Types.TINYINT:
-					reuse.setField(resultSet.getShort(pos + 1), pos);
-					break;
-				case java.sql.Types.SMALLINT:
-					reuse.setField(resultSet.getShort(pos + 1), pos);
-					break;
-				case java.sql.Types.BIGINT:
-					reuse.setField(resultSet.getLong(pos + 1), pos);
-					break;
-				case java.sql.Types.INTEGER:
-					reuse.setField(resultSet.getInt(pos + 1), pos);
-					break;
-				case java.sql.Types.FLOAT:
-					reuse.setField(resultSet.getDouble(pos + 1), pos);
-					break;
-				case java.sql.Types.REAL:
-					reuse.setField(resultSet.getFloat(pos + 1), pos);
-					break;
-				case java.sql.Types.DOUBLE:
-					reuse.setField(resultSet.getDouble(pos + 1), pos);
-					break;
-				case java.sql.Types.DECIMAL:
-					reuse.setField(resultSet.getBigDecimal(pos + 1).doubleValue(), pos);
-					break;
-				case java.sql.Types.NUMERIC:
-					reuse.setField(resultSet.getBigDecimal(pos + 1).doubleValue(), pos);
-					break;
-				case java.sql.Types.DATE:
-					reuse.setField(resultSet.getDate(pos + 1).toString(), pos);
-					break;
-				case java.sql.Types.TIME:
-					reuse.setField(resultSet.getTime(pos + 1).getTime(), pos);
-					break;
-				case java.sql.Types.TIMESTAMP:
-					reuse.setField(resultSet.getTimestamp(pos + 1).toString(), pos);
-					break;
-				case java.sql.Types.SQLXML:
-					reuse.setField(resultSet.getSQLXML(pos + 1).toString(), pos);
-					break;
-				default:
-					throw new SQLException("Unsupported sql-type [" + columnTypes[pos] + "] on column [" + pos + "]");
-
-				// case java.sql.Types.BINARY:
-				// case java.sql.Types.VARBINARY:
-				// case java.sql.Types.LONGVARBINARY:
-				// case java.sql.Types.ARRAY:
-				// case java.sql.Types.JAVA_OBJECT:
-				// case java.sql.Types.BLOB:
-				// case java.sql.Types.CLOB:
-				// case java.sql.Types.NCLOB:
-				// case java.sql.Types.DATALINK:
-				// case java.sql.Types.DISTINCT:
-				// case java.sql.Types.OTHER:
-				// case java.sql.Types.REF:
-				// case java.sql.Types.ROWID:
-				// case java.sql.Types.STRUCT:
-			}
+		for (int pos = 0; pos < outputColumns.length; pos++) {
+			reuse.setField(readValue(outputColumns[pos]), pos);
+		}
+	}
+
+	/**
+	 * Reads a data value from the current resultSet.
+	 *
+	 * @param column Position of the column in the resultSet.
+	 * @return The value of the column.
+	 */
+	private Object readValue(int column) throws SQLException {
+		switch (columnTypes[column]) {
+			case java.sql.Types.NULL:
+				return NullValue.getInstance();
+			case java.sql.Types.BOOLEAN:
+				return resultSet.getBoolean(column + 1);
+			case java.sql.Types.BIT:
+				return resultSet.getBoolean(column + 1);
+			case java.sql.Types.CHAR:
+				return resultSet.getString(column + 1);
+			case java.sql.Types.NCHAR:
+				return resultSet.getString(column + 1);
+			case java.sql.Types.VARCHAR:
+				return resultSet.getString(column + 1);
+			case java.sql.Types.LONGVARCHAR:
+				return resultSet.getString(column + 1);
+			case java.sql.Types.LONGNVARCHAR:
+				return resultSet.getString(column + 1);
+			case java.sql.Types.TINYINT:
+				return resultSet.getShort(column + 1);
+			case java.sql.Types.SMALLINT:
+				return resultSet.getShort(column + 1);
+			case java.sql.Types.BIGINT:
+				return resultSet.getLong(column + 1);
+			case java.sql.Types.INTEGER:
+				return resultSet.getInt(column + 1);
+			case java.sql.Types.FLOAT:
+				return resultSet.getDouble(column + 1);
+			case java.sql.Types.REAL:
+				return resultSet.getFloat(column + 1);
+			case java.sql.Types.DOUBLE:
+				return resultSet.getDouble(column + 1);
+			case java.sql.Types.DECIMAL:
+				return resultSet.getBigDecimal(column + 1).doubleValue();
+			case java.sql.Types.NUMERIC:
+				return resultSet.getBigDecimal(column + 1).doubleValue();
+			case java.sql.Types.DATE:
+				return resultSet.getDate(column + 1).toString();
+			case java.sql.Types.TIME:
+				return resultSet.getTime(column + 1).getTime();
+			case java.sql.Types.TIMESTAMP:
+				return resultSet.getTimestamp(column + 1).toString();
+			case java.sql.Types.SQLXML:
+				return resultSet.getSQLXML(column + 1).toString();
+			default:
+				throw new SQLException("Unsupported sql-type [" + columnTypes[column] + "] on column [" + column + "]");
+
+			// case java.sql.Types.BINARY:
+			// case java.sql.Types.VARBINARY:
+			// case java.sql.Types.LONGVARBINARY:
+			// case java.sql.Types.ARRAY:
+			// case java.sql.Types.JAVA_OBJECT:
+			// case java.sql.Types.BLOB:
+			// case java.sql.Types.CLOB:
+			// case java.sql.Types.NCLOB:
+			// case java.sql.Types.DATALINK:
+			// case java.sql.Types.DISTINCT:
+			// case java.sql.Types.OTHER:
+			// case java.sql.Types.REF:
+			// case java.sql.Types.ROWID:
+			// case java.sql.Types.STRUCT:
 		}
 	}
 
@@ -277,12 +566,98 @@ public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, Inpu
 		return cachedStatistics;
 	}
 
+	/**
+	 * Creates a single split that reads the whole query, or, if a split column is set, divides the range of the
+	 * column's values into the given number of splits. Ranges smaller than one are not created.
+	 *
+	 * @param minNumSplits The number of splits to create.
+	 * @return The splits of the query.
+	 * @throws IOException Thrown, if the bounds of the split column could not be queried.
+	 */
 	@Override
 	public InputSplit[] createInputSplits(int minNumSplits) throws IOException {
-		GenericInputSplit[] split = {
-			new GenericInputSplit(0, 1)
-		};
-		return split;
+		if (splitColumn == null) {
+			GenericInputSplit[] split = {
+				new GenericInputSplit(0, 1)
+			};
+			return split;
+		}
+
+		long lower;
+		long upper;
+		if (lowerBound != null && upperBound != null) {
+			lower = lowerBound;
+			upper = upperBound;
+		} else {
+			final long[] bounds = queryBounds();
+			if (bounds == null) {
+				// no rows with a value in the split column
+				return new InputSplit[] { new JDBCInputSplit(0, 1, 0, 0) };
+			}
+			lower = lowerBound != null ? lowerBound : bounds[0];
+			upper = upperBound != null ? upperBound : bounds[1];
+		}
+		if (upper < lower) {
+			upper = lower;
+		}
+
+		// divide the range [lower, upper] into splits of (nearly) equal sizes
+		final BigInteger start = BigInteger.valueOf(lower);
+		final BigInteger range = BigInteger.valueOf(upper).subtract(start).add(BigInteger.ONE);
+		final int numSplits = (int) Math.min(Math.max(minNumSplits, 1), range.min(BigInteger.valueOf(Integer.MAX_VALUE)).longValue());
+		final BigInteger divisor = BigInteger.valueOf(numSplits);
+
+		final InputSplit[] splits = new InputSplit[numSplits];
+		long splitStart = lower;
+		for (int i = 0; i < numSplits; i++) {
+			final long splitEnd = start.add(range.multiply(BigInteger.valueOf(i + 1)).divide(divisor)).longValue();
+			splits[i] = new JDBCInputSplit(i, numSplits, splitStart, splitEnd);
+			splitStart = splitEnd;
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Divided the values " + lower + " to " + upper + " of column " + splitColumn + " into " + numSplits + " splits.");
+		}
+		return splits;
+	}
+
+	/**
+	 * Queries the minimum and maximum value of the split column.
+	 *
+	 * @return The minimum and maximum value, or null, if the column contains no values.
+	 */
+	private long[] queryBounds() throws IOException {
+		final String boundsQuery = "SELECT MIN(" + splitColumn + "), MAX(" + splitColumn + ") FROM (" + query + ") " + RANGE_ALIAS;
+		try {
+			establishConnection();
+			final Statement stmt = dbConn.createStatement();
+			try {
+				final ResultSet bounds = stmt.executeQuery(boundsQuery);
+				if (!bounds.next()) {
+					return null;
+				}
+				final long min = bounds.getLong(1);
+				if (bounds.wasNull()) {
+					return null;
+				}
+				return new long[] { min, bounds.getLong(2) };
+			} finally {
+				stmt.close();
+			}
+		} catch (SQLException se) {
+			throw new IOException("Couldn't query the bounds of the split column - " + se.getMessage(), se);
+		} catch (ClassNotFoundException cnfe) {
+			throw new IllegalArgumentException("JDBC-Class not found. - " + cnfe.getMessage(), cnfe);
+		} finally {
+			try {
+				if (dbConn != null) {
+					dbConn.close();
+				}
+			} catch (SQLException se) {
+				LOG.info("Connection couldn't be closed - " + se.getMessage());
+			}
+			dbConn = null;
+		}
 	}
 
 	@Override
@@ -330,6 +705,32 @@ public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, Inpu
 			return this;
 		}
 
+		/**
+		 * Sets the numeric column whose values are divided into ranges to read the query with several splits.
+		 */
+		public JDBCInputFormatBuilder setSplitColumn(String splitColumn) {
+			format.splitColumn = splitColumn;
+			return this;
+		}
+
+		/**
+		 * Sets the bounds of the split column's values that are divided into ranges. If no bounds are set,
+		 * the minimum and maximum value of the column are queried.
+		 */
+		public JDBCInputFormatBuilder setSplitBounds(long lowerBound, long upperBound) {
+			format.lowerBound = lowerBound;
+			format.upperBound = upperBound;
+			return this;
+		}
+
+		/**
+		 * Sets the number of rows that are fetched from the database at once.
+		 */
+		public JDBCInputFormatBuilder setFetchSize(int fetchSize) {
+			format.fetchSize = fetchSize;
+			return this;
+		}
+
 		public JDBCInputFormat finish() {
 			if (format.username == null) {
 				LOG.info("Username was not supplied separately.");
@@ -346,6 +747,12 @@ public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, Inpu
 			if (format.drivername == null) {
 				throw new IllegalArgumentException("No driver supplied");
 			}
+			if (format.lowerBound != null && format.lowerBound > format.upperBound) {
+				throw new IllegalArgumentException("The lower split bound is larger than the upper split bound.");
+			}
+			if (format.fetchSize < 0) {
+				throw new IllegalArgumentException("The fetch size must not be negative.");
+			}
 			return format;
 		}
 	}
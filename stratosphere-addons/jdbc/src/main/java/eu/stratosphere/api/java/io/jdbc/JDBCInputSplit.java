@@ -0,0 +1,90 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.api.java.io.jdbc;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import eu.stratosphere.core.io.GenericInputSplit;
+
+/**
+ * An input split of the {@link JDBCInputFormat} that covers a range of the values of a numeric key column.
+ * The split covers the values from its lower bound (inclusive) to its upper bound (exclusive). The first split
+ * additionally covers all smaller values and the null values, the last split all larger values, such that the
+ * splits together cover all rows, even if the bounds do not match the actual values.
+ */
+public class JDBCInputSplit extends GenericInputSplit {
+
+	private long lowerBound;
+
+	private long upperBound;
+
+	/**
+	 * Default constructor for instantiation during de-serialization.
+	 */
+	public JDBCInputSplit() {
+	}
+
+	/**
+	 * Creates a split that covers the given range of key values.
+	 *
+	 * @param partitionNumber The number of the split.
+	 * @param totalNumberOfPartitions The total number of splits.
+	 * @param lowerBound The smallest key value of the split.
+	 * @param upperBound The smallest key value of the next split.
+	 */
+	public JDBCInputSplit(int partitionNumber, int totalNumberOfPartitions, long lowerBound, long upperBound) {
+		super(partitionNumber, totalNumberOfPartitions);
+		this.lowerBound = lowerBound;
+		this.upperBound = upperBound;
+	}
+
+	public long getLowerBound() {
+		return this.lowerBound;
+	}
+
+	public long getUpperBound() {
+		return this.upperBound;
+	}
+
+	public boolean isFirst() {
+		return this.partitionNumber == 0;
+	}
+
+	public boolean isLast() {
+		return this.partitionNumber == this.totalNumberOfPartitions - 1;
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		super.write(out);
+		out.writeLong(this.lowerBound);
+		out.writeLong(this.upperBound);
+	}
+
+	@Override
+	public void read(DataInput in) throws IOException {
+		super.read(in);
+		this.lowerBound = in.readLong();
+		this.upperBound = in.readLong();
+	}
+
+	@Override
+	public String toString() {
+		return "JDBCInputSplit (" + this.partitionNumber + "/" + this.totalNumberOfPartitions + ", [" +
+			this.lowerBound + ", " + this.upperBound + "))";
+	}
+}
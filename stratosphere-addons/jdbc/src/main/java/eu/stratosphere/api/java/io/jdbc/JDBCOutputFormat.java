@@ -30,6 +30,9 @@ import eu.stratosphere.configuration.Configuration;
 /**
  * OutputFormat to write tuples into a database.
  * The OutputFormat has to be configured using the supplied OutputFormatBuilder.
+ * <p>
+ * The tuples are added to a batch of the prepared statement, which is executed and committed as one transaction
+ * whenever it holds the configured number of tuples (the batch interval), and when the format is closed.
  * 
  * @param <OUT>
  * @see Tuple
@@ -38,7 +41,6 @@ import eu.stratosphere.configuration.Configuration;
 public class JDBCOutputFormat<OUT extends Tuple> implements OutputFormat<OUT> {
 	private static final long serialVersionUID = 1L;
 
-	@SuppressWarnings("unused")
 	private static final Log LOG = LogFactory.getLog(JDBCOutputFormat.class);
 
 	private String username;
@@ -55,6 +57,9 @@ public class JDBCOutputFormat<OUT extends Tuple> implements OutputFormat<OUT> {
 
 	private int batchCount = 0;
 
+	// the number of parameters of the query
+	private int numParameters;
+
 	public JDBCOutputFormat() {
 	}
 
@@ -73,7 +78,10 @@ public class JDBCOutputFormat<OUT extends Tuple> implements OutputFormat<OUT> {
 	public void open(int taskNumber, int numTasks) throws IOException {
 		try {
 			establishConnection();
+			// commit once per batch, not once per statement of the batch
+			dbConn.setAutoCommit(false);
 			upload = dbConn.prepareStatement(query);
+			numParameters = query.split("\\?,").length;
 		} catch (SQLException sqe) {
 			close();
 			throw new IllegalArgumentException("open() failed:\t!", sqe);
@@ -114,7 +122,7 @@ public class JDBCOutputFormat<OUT extends Tuple> implements OutputFormat<OUT> {
 	@Override
 	public void writeRecord(OUT tuple) throws IOException {
 		try {
-			if (query.split("\\?,").length != tuple.getArity()) {
+			if (numParameters != tuple.getArity()) {
 				close();
 				throw new IOException("Tuple size does not match columncount");
 			}
@@ -125,8 +133,7 @@ public class JDBCOutputFormat<OUT extends Tuple> implements OutputFormat<OUT> {
 			upload.addBatch();
 			batchCount++;
 			if (batchCount >= batchInterval) {
-				upload.executeBatch();
-				batchCount = 0;
+				flush();
 			}
 		} catch (SQLException sqe) {
 			close();
@@ -137,6 +144,12 @@ public class JDBCOutputFormat<OUT extends Tuple> implements OutputFormat<OUT> {
 		}
 	}
 
+	private void flush() throws SQLException {
+		upload.executeBatch();
+		dbConn.commit();
+		batchCount = 0;
+	}
+
 	private void extractTypes(OUT tuple) {
 		types = new SupportedTypes[tuple.getArity()];
 		for (int x = 0; x < tuple.getArity(); x++) {
@@ -183,8 +196,7 @@ public class JDBCOutputFormat<OUT extends Tuple> implements OutputFormat<OUT> {
 	@Override
 	public void close() throws IOException {
 		try {
-			upload.executeBatch();
-			batchCount = 0;
+			flush();
 		} catch (SQLException se) {
 			throw new IllegalArgumentException("close() failed", se);
 		} catch (NullPointerException se) {
@@ -239,6 +251,9 @@ public class JDBCOutputFormat<OUT extends Tuple> implements OutputFormat<OUT> {
 			return this;
 		}
 
+		/**
+		 * Sets the number of tuples that are written and committed at once.
+		 */
 		public JDBCOutputFormatBuilder setBatchInterval(int batchInterval) {
 			format.batchInterval = batchInterval;
 			return this;
@@ -264,6 +279,9 @@ public class JDBCOutputFormat<OUT extends Tuple> implements OutputFormat<OUT> {
 			if (format.drivername == null) {
 				throw new IllegalArgumentException("No driver supplied");
 			}
+			if (format.batchInterval < 1) {
+				throw new IllegalArgumentException("The batch interval must be positive.");
+			}
 			return format;
 		}
 	}
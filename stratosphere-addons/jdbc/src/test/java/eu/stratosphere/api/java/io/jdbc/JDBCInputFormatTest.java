@@ -19,6 +19,9 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 import junit.framework.Assert;
 
@@ -27,8 +30,11 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import eu.stratosphere.api.common.io.FieldPredicate;
+import eu.stratosphere.api.common.io.FieldPredicate.Comparison;
 import eu.stratosphere.api.java.tuple.Tuple2;
 import eu.stratosphere.api.java.tuple.Tuple5;
+import eu.stratosphere.core.io.InputSplit;
 
 public class JDBCInputFormatTest {
 	JDBCInputFormat jdbcInputFormat;
@@ -189,4 +195,134 @@ public class JDBCInputFormatTest {
 		Assert.assertEquals(5, recordCount);
 	}
 
+	@Test
+	public void testPushDown() throws IOException {
+		jdbcInputFormat = JDBCInputFormat.buildJDBCInputFormat()
+				.setDrivername("org.apache.derby.jdbc.EmbeddedDriver")
+				.setDBUrl("jdbc:derby:memory:ebookshop")
+				.setQuery("select * from books")
+				.finish();
+		Assert.assertTrue(jdbcInputFormat.pushDownProjection(new int[] {3, 1}));
+		Assert.assertTrue(jdbcInputFormat.pushDownFilter(new FieldPredicate(0, Comparison.GREATER, 30.0)));
+		Assert.assertTrue(jdbcInputFormat.pushDownFilter(new FieldPredicate(1, Comparison.NOT_EQUAL, "A Cup of Java")));
+		Assert.assertFalse(jdbcInputFormat.pushDownFilter(new FieldPredicate(2, Comparison.EQUAL, 0)));
+		jdbcInputFormat.open(null);
+
+		Tuple2 tuple = new Tuple2();
+		int recordCount = 0;
+		while (!jdbcInputFormat.reachedEnd()) {
+			if (jdbcInputFormat.nextRecord(tuple) == null) {
+				continue;
+			}
+			int row = recordCount == 0 ? 2 : 4;
+			Assert.assertEquals(dbData[row][3], tuple.getField(0));
+			Assert.assertEquals(dbData[row][1], tuple.getField(1));
+			recordCount++;
+		}
+		Assert.assertEquals(2, recordCount);
+	}
+
+	@Test
+	public void testStringPredicatesAreEvaluatedAfterReading() throws IOException {
+		// the database ignores the padding of CHAR values in comparisons, the predicate on the read values does not
+		jdbcInputFormat = JDBCInputFormat.buildJDBCInputFormat()
+				.setDrivername("org.apache.derby.jdbc.EmbeddedDriver")
+				.setDBUrl("jdbc:derby:memory:ebookshop")
+				.setQuery("select id, CAST(author AS CHAR(20)) AS author from books")
+				.finish();
+		Assert.assertTrue(jdbcInputFormat.pushDownFilter(new FieldPredicate(1, Comparison.EQUAL, "Kumar")));
+		jdbcInputFormat.open(null);
+		Assert.assertTrue(jdbcInputFormat.reachedEnd());
+	}
+
+	@Test
+	public void testReachedEndAfterLastMatchingRow() throws IOException {
+		// the rows after the last matching row are skipped before nextRecord() returns it
+		jdbcInputFormat = JDBCInputFormat.buildJDBCInputFormat()
+				.setDrivername("org.apache.derby.jdbc.EmbeddedDriver")
+				.setDBUrl("jdbc:derby:memory:ebookshop")
+				.setQuery("select * from books")
+				.setFetchSize(1)
+				.finish();
+		Assert.assertTrue(jdbcInputFormat.pushDownFilter(new FieldPredicate(2, Comparison.EQUAL, "Tan Ah Teck")));
+		jdbcInputFormat.open(null);
+
+		Tuple5 tuple = new Tuple5();
+		int recordCount = 0;
+		while (!jdbcInputFormat.reachedEnd()) {
+			Assert.assertNotNull(jdbcInputFormat.nextRecord(tuple));
+			Assert.assertEquals(dbData[recordCount][0], tuple.getField(0));
+			recordCount++;
+		}
+		Assert.assertEquals(2, recordCount);
+	}
+
+	@Test
+	public void testPushDownWithEmptyResult() throws IOException {
+		jdbcInputFormat = JDBCInputFormat.buildJDBCInputFormat()
+				.setDrivername("org.apache.derby.jdbc.EmbeddedDriver")
+				.setDBUrl("jdbc:derby:memory:ebookshop")
+				.setQuery("select * from books")
+				.finish();
+		Assert.assertTrue(jdbcInputFormat.pushDownFilter(new FieldPredicate(4, Comparison.GREATER, 1000)));
+		jdbcInputFormat.open(null);
+		Assert.assertTrue(jdbcInputFormat.reachedEnd());
+	}
+
+	@Test
+	public void testKeyRangeSplits() throws IOException {
+		jdbcInputFormat = JDBCInputFormat.buildJDBCInputFormat()
+				.setDrivername("org.apache.derby.jdbc.EmbeddedDriver")
+				.setDBUrl("jdbc:derby:memory:ebookshop")
+				.setQuery("select * from books")
+				.setSplitColumn("id")
+				.setFetchSize(2)
+				.finish();
+		InputSplit[] splits = jdbcInputFormat.createInputSplits(3);
+		Assert.assertEquals(3, splits.length);
+
+		Set<Integer> ids = new HashSet<Integer>();
+		for (InputSplit split : splits) {
+			jdbcInputFormat.open(split);
+			Tuple5 tuple = new Tuple5();
+			int recordCount = 0;
+			while (!jdbcInputFormat.reachedEnd()) {
+				if (jdbcInputFormat.nextRecord(tuple) != null) {
+					Assert.assertTrue("Row was read twice", ids.add((Integer) tuple.getField(0)));
+					recordCount++;
+				}
+			}
+			Assert.assertTrue("Split is empty", recordCount > 0);
+		}
+		Assert.assertEquals(5, ids.size());
+	}
+
+	@Test
+	public void testKeyRangeSplitsWithBoundsAndPushDown() throws IOException {
+		jdbcInputFormat = JDBCInputFormat.buildJDBCInputFormat()
+				.setDrivername("org.apache.derby.jdbc.EmbeddedDriver")
+				.setDBUrl("jdbc:derby:memory:ebookshop")
+				.setQuery("select * from books")
+				.setSplitColumn("id")
+				.setSplitBounds(1002, 1003)
+				.finish();
+		Assert.assertTrue(jdbcInputFormat.pushDownProjection(new int[] {0, 4}));
+		Assert.assertTrue(jdbcInputFormat.pushDownFilter(new FieldPredicate(1, Comparison.NOT_EQUAL, 33)));
+
+		// the bounds allow only two splits, the outer ones also read the rows outside of the bounds
+		InputSplit[] splits = jdbcInputFormat.createInputSplits(4);
+		Assert.assertEquals(2, splits.length);
+
+		Set<Integer> ids = new HashSet<Integer>();
+		for (InputSplit split : splits) {
+			jdbcInputFormat.open(split);
+			Tuple2 tuple = new Tuple2();
+			while (!jdbcInputFormat.reachedEnd()) {
+				if (jdbcInputFormat.nextRecord(tuple) != null) {
+					Assert.assertTrue("Row was read twice", ids.add((Integer) tuple.getField(0)));
+				}
+			}
+		}
+		Assert.assertEquals(new HashSet<Integer>(Arrays.asList(1001, 1002, 1004, 1005)), ids);
+	}
 }
@@ -17,6 +17,7 @@ package eu.stratosphere.api.java.io.jdbc;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -60,6 +61,7 @@ public class JDBCOutputFormatTest {
 		conn = DriverManager.getConnection(dbURL);
 		createTable("books");
 		createTable("newbooks");
+		createTable("batchedbooks");
 		insertDataToSQLTables();
 		conn.close();
 	}
@@ -107,6 +109,7 @@ public class JDBCOutputFormatTest {
 			Statement stat = conn.createStatement();
 			stat.executeUpdate("DROP TABLE books");
 			stat.executeUpdate("DROP TABLE newbooks");
+			stat.executeUpdate("DROP TABLE batchedbooks");
 			stat.close();
 			conn.close();
 		} catch (Exception e) {
@@ -252,4 +255,44 @@ public class JDBCOutputFormatTest {
 
 		jdbcInputFormat.close();
 	}
+
+	@Test
+	public void testBatchesAreCommitted() throws IOException, SQLException {
+		String dbUrl = "jdbc:derby:memory:ebookshop";
+
+		jdbcOutputFormat = JDBCOutputFormat.buildJDBCOutputFormat()
+				.setDBUrl(dbUrl)
+				.setDrivername("org.apache.derby.jdbc.EmbeddedDriver")
+				.setQuery("insert into batchedbooks (id, title, author, price, qty) values (?,?,?,?,?)")
+				.setBatchInterval(2)
+				.finish();
+		jdbcOutputFormat.open(0, 1);
+
+		Tuple5 tuple = new Tuple5();
+		for (int row = 0; row < dbData.length; row++) {
+			for (int x = 0; x < 5; x++) {
+				tuple.setField(dbData[row][x], x);
+			}
+			jdbcOutputFormat.writeRecord(tuple);
+		}
+
+		// the two complete batches are visible to other connections, the incomplete one is written on close
+		Assert.assertEquals(4, countRows(dbUrl, "batchedbooks"));
+		jdbcOutputFormat.close();
+		Assert.assertEquals(5, countRows(dbUrl, "batchedbooks"));
+	}
+
+	private static int countRows(String dbUrl, String table) throws SQLException {
+		Connection connection = DriverManager.getConnection(dbUrl);
+		try {
+			Statement stat = connection.createStatement();
+			ResultSet rs = stat.executeQuery("SELECT COUNT(*) FROM " + table);
+			rs.next();
+			int count = rs.getInt(1);
+			stat.close();
+			return count;
+		} finally {
+			connection.close();
+		}
+	}
 }
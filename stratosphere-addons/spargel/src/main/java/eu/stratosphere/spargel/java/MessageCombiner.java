@@ -0,0 +1,46 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.spargel.java;
+
+import java.io.Serializable;
+
+/**
+ * The base class for functions that combine two messages sent to the same vertex into one message, as a part of a
+ * {@link VertexCentricIteration}. A combiner allows the system to merge messages before they are shipped to the
+ * target vertex's partition, and again before they are handed to the {@link VertexUpdateFunction}, which reduces
+ * the number of messages that have to be transferred and buffered.
+ * <p>
+ * Combining is only valid if the vertex update function computes the same result for the combined message as it
+ * does for the original messages. The combine function must be associative and commutative, because the system
+ * gives no guarantee about the order in which, or how often, it is applied. Typical examples are taking the
+ * minimum of candidate values (connected components, shortest paths) or summing up rank contributions (page rank).
+ * 
+ * @param <VertexKey> The type of the vertex key (the vertex identifier).
+ * @param <Message> The type of the message sent between vertices along the edges.
+ */
+public abstract class MessageCombiner<VertexKey extends Comparable<VertexKey>, Message> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Combines two messages that are sent to the same vertex into a single message.
+	 * 
+	 * @param vertexKey The key of the vertex that the messages are sent to.
+	 * @param message1 The first message.
+	 * @param message2 The second message.
+	 * @return The combined message.
+	 * 
+	 * @throws Exception The computation may throw exceptions, which causes the superstep to fail.
+	 */
+	public abstract Message combine(VertexKey vertexKey, Message message1, Message message2) throws Exception;
+}
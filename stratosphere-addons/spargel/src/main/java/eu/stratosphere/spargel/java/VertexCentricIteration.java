@@ -24,6 +24,7 @@ import eu.stratosphere.api.common.aggregators.Aggregator;
 import eu.stratosphere.api.java.DataSet;
 import eu.stratosphere.api.java.DeltaIteration;
 import eu.stratosphere.api.java.functions.CoGroupFunction;
+import eu.stratosphere.api.java.functions.ReduceFunction;
 import eu.stratosphere.api.java.operators.CoGroupOperator;
 import eu.stratosphere.api.java.operators.CustomUnaryOperation;
 import eu.stratosphere.api.java.tuple.Tuple2;
@@ -68,6 +69,18 @@ import eu.stratosphere.util.Collector;
 public class VertexCentricIteration<VertexKey extends Comparable<VertexKey>, VertexValue, Message, EdgeValue> 
 	implements CustomUnaryOperation<Tuple2<VertexKey, VertexValue>, Tuple2<VertexKey, VertexValue>>
 {
+	/**
+	 * The compiler's local strategy hint ({@code PactCompiler.HINT_LOCAL_STRATEGY}), which is repeated here such
+	 * that the API does not depend on the optimizer.
+	 */
+	private static final String HINT_LOCAL_STRATEGY = "LOCAL_STRATEGY";
+	
+	/**
+	 * The value of the local strategy hint for the index based CoGroup
+	 * ({@code PactCompiler.HINT_LOCAL_STRATEGY_INDEX_FIRST}).
+	 */
+	private static final String HINT_LOCAL_STRATEGY_INDEX_FIRST = "LOCAL_STRATEGY_INDEX_FIRST";
+	
 	private final VertexUpdateFunction<VertexKey, VertexValue, Message> updateFunction;
 	
 	private final MessagingFunction<VertexKey, VertexValue, Message, EdgeValue> messagingFunction;
@@ -86,6 +99,10 @@ public class VertexCentricIteration<VertexKey extends Comparable<VertexKey>, Ver
 	
 	private final TypeInformation<Message> messageType;
 	
+	private MessageCombiner<VertexKey, Message> messageCombiner;
+	
+	private boolean indexEdges;
+	
 	private DataSet<Tuple2<VertexKey, VertexValue>> initialVertices;
 	
 	private String name;
@@ -191,6 +208,51 @@ public class VertexCentricIteration<VertexKey extends Comparable<VertexKey>, Ver
 		this.bcVarsUpdate.add(new Tuple2<String, DataSet<?>>(name, data));
 	}
 	
+	/**
+	 * Sets a combiner for the messages. If a combiner is set, all messages that are sent to the same vertex
+	 * are combined before they are shipped across the network and again before they are passed to the
+	 * {@link VertexUpdateFunction}, so that the update function typically sees only a single message per
+	 * vertex and partition. The combiner must be associative and commutative, see {@link MessageCombiner}.
+	 * 
+	 * @param combiner The message combiner, or null, to not combine messages.
+	 */
+	public void setMessageCombiner(MessageCombiner<VertexKey, Message> combiner) {
+		this.messageCombiner = combiner;
+	}
+	
+	/**
+	 * Gets the combiner for the messages.
+	 * 
+	 * @return The message combiner, or null, if none is set.
+	 */
+	public MessageCombiner<VertexKey, Message> getMessageCombiner() {
+		return messageCombiner;
+	}
+	
+	/**
+	 * Sets whether the edges are kept in an in-memory index. If set, the edges are indexed by their source vertex
+	 * in the first superstep, and in each superstep, only the outgoing edges of the vertices that changed in the
+	 * previous superstep are looked up in the index. Otherwise, all edges are merged with the changed vertices in
+	 * every superstep. The index makes the cost of a superstep proportional to the number of changed vertices, but
+	 * requires the edges to fit into the memory of the messaging operator.
+	 * 
+	 * @param indexEdges True, if the edges should be indexed, false otherwise.
+	 */
+	public void setIndexEdges(boolean indexEdges) {
+		this.indexEdges = indexEdges;
+	}
+	
+	/**
+	 * Checks whether the edges are kept in an in-memory index.
+	 * 
+	 * @return True, if the edges are indexed, false otherwise.
+	 * 
+	 * @see #setIndexEdges(boolean)
+	 */
+	public boolean isIndexEdges() {
+		return indexEdges;
+	}
+	
 	/**
 	 * Sets the name for the vertex-centric iteration. The name is displayed in logs and messages.
 	 * 
@@ -303,15 +365,31 @@ public class VertexCentricIteration<VertexKey extends Comparable<VertexKey>, Ver
 		
 		// configure coGroup message function with name and broadcast variables
 		messages = messages.name("Messaging");
+		if (this.indexEdges) {
+			// the messaging function produces nothing for vertices that did not change, so it suffices
+			// to look up the edges of the changed vertices
+			Configuration parameters = new Configuration();
+			parameters.setString(HINT_LOCAL_STRATEGY, HINT_LOCAL_STRATEGY_INDEX_FIRST);
+			messages = messages.withParameters(parameters);
+		}
 		for (Tuple2<String, DataSet<?>> e : this.bcVarsMessaging) {
 			messages = messages.withBroadcastSet(e.f1, e.f0);
 		}
 		
+		// combine the messages per target vertex, if a combiner is given. the reduce is combinable, so the
+		// messages get combined before the hash partitioning and again after it. the key field is preserved, so
+		// the partitioning can be reused by the update function
+		DataSet<Tuple2<VertexKey, Message>> combinedMessages = messages;
+		if (this.messageCombiner != null) {
+			MessageCombinerUdf<VertexKey, Message> combiner = new MessageCombinerUdf<VertexKey, Message>(this.messageCombiner);
+			combinedMessages = messages.groupBy(0).reduce(combiner).name("Message Combiner").withConstantSet("0");
+		}
+		
 		VertexUpdateUdf<VertexKey, VertexValue, Message> updateUdf = new VertexUpdateUdf<VertexKey, VertexValue, Message>(updateFunction, vertexTypes);
 		
 		// build the update function (co group)
 		CoGroupOperator<?, ?, Tuple2<VertexKey, VertexValue>> updates =
-				messages.coGroup(iteration.getSolutionSet()).where(0).equalTo(0).with(updateUdf);
+				combinedMessages.coGroup(iteration.getSolutionSet()).where(0).equalTo(0).with(updateUdf);
 		
 		// configure coGroup update function with name and broadcast variables
 		updates = updates.name("Vertex State Updates");
@@ -453,6 +531,27 @@ public class VertexCentricIteration<VertexKey extends Comparable<VertexKey>, Ver
 		}
 	}
 	
+	/*
+	 * UDF that encapsulates the message combiner.
+	 */
+	private static final class MessageCombinerUdf<VertexKey extends Comparable<VertexKey>, Message> 
+		extends ReduceFunction<Tuple2<VertexKey, Message>>
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final MessageCombiner<VertexKey, Message> messageCombiner;
+		
+		private MessageCombinerUdf(MessageCombiner<VertexKey, Message> messageCombiner) {
+			this.messageCombiner = messageCombiner;
+		}
+
+		@Override
+		public Tuple2<VertexKey, Message> reduce(Tuple2<VertexKey, Message> value1, Tuple2<VertexKey, Message> value2) throws Exception {
+			value1.f1 = this.messageCombiner.combine(value1.f0, value1.f1, value2.f1);
+			return value1;
+		}
+	}
+	
 	/*
 	 * UDF that encapsulates the message sending function for graphs where the edges have no associated values.
 	 */
@@ -16,6 +16,7 @@ import eu.stratosphere.api.java.DataSet;
 import eu.stratosphere.api.java.ExecutionEnvironment;
 import eu.stratosphere.api.java.functions.MapFunction;
 import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.spargel.java.MessageCombiner;
 import eu.stratosphere.spargel.java.MessageIterator;
 import eu.stratosphere.spargel.java.MessagingFunction;
 import eu.stratosphere.spargel.java.VertexCentricIteration;
@@ -34,7 +35,10 @@ public class SpargelConnectedComponents {
 		
 		DataSet<Tuple2<Long, Long>> initialVertices = vertexIds.map(new IdAssigner());
 		
-		DataSet<Tuple2<Long, Long>> result = initialVertices.runOperation(VertexCentricIteration.withPlainEdges(edges, new CCUpdater(), new CCMessager(), 100));
+		VertexCentricIteration<Long, Long, Long, ?> iteration = VertexCentricIteration.withPlainEdges(edges, new CCUpdater(), new CCMessager(), 100);
+		iteration.setMessageCombiner(new CCCombiner());
+		
+		DataSet<Tuple2<Long, Long>> result = initialVertices.runOperation(iteration);
 		
 		result.print();
 		env.execute("Spargel Connected Components");
@@ -60,6 +64,15 @@ public class SpargelConnectedComponents {
 		}
 	}
 	
+	public static final class CCCombiner extends MessageCombiner<Long, Long> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Long combine(Long vertexId, Long componentId1, Long componentId2) {
+			return Math.min(componentId1, componentId2);
+		}
+	}
+	
 	/**
 	 * A map function that takes a Long value and creates a 2-tuple out of it:
 	 * <pre>(Long value) -> (value, value)</pre>
@@ -29,10 +29,14 @@ import eu.stratosphere.api.java.tuple.Tuple2;
 import eu.stratosphere.compiler.plan.DualInputPlanNode;
 import eu.stratosphere.compiler.plan.OptimizedPlan;
 import eu.stratosphere.compiler.plan.PlanNode;
+import eu.stratosphere.compiler.plan.SingleInputPlanNode;
 import eu.stratosphere.compiler.plan.SinkPlanNode;
 import eu.stratosphere.compiler.plan.WorksetIterationPlanNode;
+import eu.stratosphere.compiler.plantranslate.NepheleJobGraphGenerator;
 import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
 import eu.stratosphere.pact.runtime.task.util.LocalStrategy;
+import eu.stratosphere.spargel.java.examples.SpargelConnectedComponents.CCCombiner;
 import eu.stratosphere.spargel.java.examples.SpargelConnectedComponents.CCMessager;
 import eu.stratosphere.spargel.java.examples.SpargelConnectedComponents.CCUpdater;
 import eu.stratosphere.spargel.java.examples.SpargelConnectedComponents.IdAssigner;
@@ -176,4 +180,103 @@ public class SpargelCompilerTest extends CompilerTestBase {
 			fail(e.getMessage());
 		}
 	}
+	
+	@Test
+	public void testSpargelCompilerWithMessageCombiner() {
+		try {
+			ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+			env.setDegreeOfParallelism(DEFAULT_PARALLELISM);
+			// compose test program
+			{
+				DataSet<Long> vertexIds = env.generateSequence(1, 2);
+				
+				@SuppressWarnings("unchecked")
+				DataSet<Tuple2<Long, Long>> edges = env.fromElements(new Tuple2<Long, Long>(1L, 2L));
+				
+				DataSet<Tuple2<Long, Long>> initialVertices = vertexIds.map(new IdAssigner());
+				
+				VertexCentricIteration<Long, Long, Long, ?> vcIter = VertexCentricIteration.withPlainEdges(edges, new CCUpdater(), new CCMessager(), 100);
+				vcIter.setMessageCombiner(new CCCombiner());
+				
+				DataSet<Tuple2<Long, Long>> result = initialVertices.runOperation(vcIter);
+				
+				result.print();
+			}
+			
+			Plan p = env.createProgramPlan("Spargel Connected Components");
+			OptimizedPlan op = compileNoStats(p);
+			
+			// check the iteration
+			SinkPlanNode sink = op.getDataSinks().iterator().next();
+			WorksetIterationPlanNode iteration = (WorksetIterationPlanNode) sink.getInput().getSource();
+			
+			// the solution set join consumes the combined messages without another shuffle
+			DualInputPlanNode ssJoin = (DualInputPlanNode) iteration.getSolutionSetDeltaPlanNode();
+			assertEquals(ShipStrategyType.FORWARD, ssJoin.getInput1().getShipStrategy());
+			
+			// the messages are combined after the shuffle ...
+			SingleInputPlanNode reducer = (SingleInputPlanNode) ssJoin.getInput1().getSource();
+			assertEquals(DriverStrategy.SORTED_REDUCE, reducer.getDriverStrategy());
+			assertEquals(ShipStrategyType.PARTITION_HASH, reducer.getInput().getShipStrategy());
+			assertEquals(new FieldList(0), reducer.getInput().getShipStrategyKeys());
+			
+			// ... and before it, directly behind the messaging function
+			SingleInputPlanNode combiner = (SingleInputPlanNode) reducer.getInput().getSource();
+			assertEquals(DriverStrategy.SORTED_PARTIAL_REDUCE, combiner.getDriverStrategy());
+			assertEquals(ShipStrategyType.FORWARD, combiner.getInput().getShipStrategy());
+			assertTrue(combiner.getInput().getSource() instanceof DualInputPlanNode);
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testSpargelCompilerWithEdgeIndex() {
+		try {
+			ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+			env.setDegreeOfParallelism(DEFAULT_PARALLELISM);
+			// compose test program
+			{
+				DataSet<Long> vertexIds = env.generateSequence(1, 2);
+				
+				@SuppressWarnings("unchecked")
+				DataSet<Tuple2<Long, Long>> edges = env.fromElements(new Tuple2<Long, Long>(1L, 2L));
+				
+				DataSet<Tuple2<Long, Long>> initialVertices = vertexIds.map(new IdAssigner());
+				
+				VertexCentricIteration<Long, Long, Long, ?> vcIter = VertexCentricIteration.withPlainEdges(edges, new CCUpdater(), new CCMessager(), 100);
+				vcIter.setIndexEdges(true);
+				
+				DataSet<Tuple2<Long, Long>> result = initialVertices.runOperation(vcIter);
+				
+				result.print();
+			}
+			
+			Plan p = env.createProgramPlan("Spargel Connected Components");
+			OptimizedPlan op = compileNoStats(p);
+			
+			SinkPlanNode sink = op.getDataSinks().iterator().next();
+			WorksetIterationPlanNode iteration = (WorksetIterationPlanNode) sink.getInput().getSource();
+			DualInputPlanNode ssJoin = (DualInputPlanNode) iteration.getSolutionSetDeltaPlanNode();
+			
+			// the edges are indexed, only the workset is sorted in every superstep
+			DualInputPlanNode edgeJoin = (DualInputPlanNode) ssJoin.getInput1().getSource();
+			assertEquals(DriverStrategy.CO_GROUP_INDEXED_FIRST, edgeJoin.getDriverStrategy());
+			assertEquals(ShipStrategyType.PARTITION_HASH, edgeJoin.getInput1().getShipStrategy());
+			assertEquals(LocalStrategy.NONE, edgeJoin.getInput1().getLocalStrategy());
+			assertEquals(ShipStrategyType.FORWARD, edgeJoin.getInput2().getShipStrategy());
+			assertTrue(edgeJoin.getMemoryPerSubTask() > 0);
+			
+			// the translation to the job graph must succeed as well
+			new NepheleJobGraphGenerator().compileJobGraph(op);
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
 }
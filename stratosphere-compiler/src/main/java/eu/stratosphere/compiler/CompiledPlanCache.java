@@ -0,0 +1,192 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.compiler;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import eu.stratosphere.compiler.dag.IterationNode;
+import eu.stratosphere.compiler.dag.OptimizerNode;
+import eu.stratosphere.compiler.plan.IterationPlanNode;
+import eu.stratosphere.compiler.plan.PlanNode;
+import eu.stratosphere.util.Visitor;
+
+/**
+ * A cache for the optimizer's decisions, keyed by the {@link PlanFingerprint} of the program they were made for.
+ * Programs that are submitted repeatedly with different parameters or paths have the same fingerprint, and the
+ * optimizer would come to the same plan for them. For such a program, the cache returns the strategies that were
+ * chosen for each optimizer node (identified by its id) when the program was compiled before. The optimizer creates
+ * the nodes for the new program as usual, and its enumeration keeps only the candidates with the cached strategies,
+ * instead of combining all alternatives. No nodes are shared between the plans of different submissions.
+ * <p>
+ * The cache evicts the strategies of the least recently used program once it holds the maximum number of programs.
+ */
+public class CompiledPlanCache {
+	
+	private final Map<PlanFingerprint, Map<Integer, String>> plans;
+	
+	private final int capacity;
+	
+	private long hits;
+	
+	private long misses;
+	
+	/**
+	 * Creates a new cache holding the decisions for at most the given number of programs.
+	 * 
+	 * @param capacity The maximum number of programs in the cache.
+	 */
+	public CompiledPlanCache(final int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity of the plan cache must be at least one.");
+		}
+		this.capacity = capacity;
+		this.plans = new LinkedHashMap<PlanFingerprint, Map<Integer, String>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<PlanFingerprint, Map<Integer, String>> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Gets the strategies that were chosen for a program with the given fingerprint, if the cache contains them.
+	 * 
+	 * @param fingerprint The fingerprint of the program.
+	 * @return The strategies, as described by {@link PlanNode#describeStrategies()}, by the ids of the optimizer
+	 *         nodes, or null, if the cache contains no strategies for the program.
+	 */
+	public synchronized Map<Integer, String> get(PlanFingerprint fingerprint) {
+		final Map<Integer, String> strategies = this.plans.get(fingerprint);
+		if (strategies == null) {
+			this.misses++;
+		} else {
+			this.hits++;
+		}
+		return strategies;
+	}
+	
+	/**
+	 * Records the strategies of the given best plan for the program with the given fingerprint.
+	 * 
+	 * @param fingerprint The fingerprint of the program.
+	 * @param bestPlan The root of the best plan that the enumeration found for the program.
+	 */
+	public void put(PlanFingerprint fingerprint, PlanNode bestPlan) {
+		final Map<Integer, String> strategies = new HashMap<Integer, String>();
+		bestPlan.accept(new StrategyCollector(strategies));
+		
+		synchronized (this) {
+			this.plans.put(fingerprint, Collections.unmodifiableMap(strategies));
+		}
+	}
+	
+	/**
+	 * Removes all plans from the cache.
+	 */
+	public synchronized void clear() {
+		this.plans.clear();
+	}
+	
+	/**
+	 * Sets the cached strategies as the preferred strategies of the nodes of the given optimizer plan.
+	 * 
+	 * @param root The root of the optimizer plan, with the node ids initialized.
+	 * @param strategies The strategies, as returned by {@link #get(PlanFingerprint)}.
+	 */
+	public static void setPreferredStrategies(OptimizerNode root, final Map<Integer, String> strategies) {
+		root.accept(new Visitor<OptimizerNode>() {
+			
+			private final Set<OptimizerNode> visited =
+					Collections.newSetFromMap(new IdentityHashMap<OptimizerNode, Boolean>());
+			
+			@Override
+			public boolean preVisit(OptimizerNode visitable) {
+				return this.visited.add(visitable);
+			}
+			
+			@Override
+			public void postVisit(OptimizerNode visitable) {
+				visitable.setPreferredStrategies(strategies.get(visitable.getId()));
+				if (visitable instanceof IterationNode) {
+					((IterationNode) visitable).acceptForStepFunction(this);
+				}
+			}
+		});
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	public synchronized int size() {
+		return this.plans.size();
+	}
+	
+	public int getCapacity() {
+		return this.capacity;
+	}
+	
+	public synchronized long getNumHits() {
+		return this.hits;
+	}
+	
+	public synchronized long getNumMisses() {
+		return this.misses;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Collects the strategies of the candidates in a plan by the ids of their optimizer nodes. Utility nodes, such
+	 * as combiners, share the id of the node that they were created for, or have no id. They are visited after that
+	 * node and are hence not recorded.
+	 */
+	private static final class StrategyCollector implements Visitor<PlanNode> {
+		
+		private final Set<PlanNode> visited = Collections.newSetFromMap(new IdentityHashMap<PlanNode, Boolean>());
+		
+		private final Map<Integer, String> strategies;
+		
+		private StrategyCollector(Map<Integer, String> strategies) {
+			this.strategies = strategies;
+		}
+		
+		@Override
+		public boolean preVisit(PlanNode visitable) {
+			if (!this.visited.add(visitable)) {
+				return false;
+			}
+			
+			final int id = visitable.getOptimizerNode().getId();
+			if (id > 0 && !this.strategies.containsKey(id)) {
+				this.strategies.put(id, visitable.describeStrategies());
+			}
+			return true;
+		}
+		
+		@Override
+		public void postVisit(PlanNode visitable) {
+			if (visitable instanceof IterationPlanNode) {
+				((IterationPlanNode) visitable).acceptForStepFunction(this);
+			}
+		}
+	}
+}
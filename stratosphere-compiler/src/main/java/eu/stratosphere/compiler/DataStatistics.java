@@ -13,20 +13,27 @@
 
 package eu.stratosphere.compiler;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+import eu.stratosphere.api.common.io.FileInputFormat;
+import eu.stratosphere.api.common.io.InputFormat;
 import eu.stratosphere.api.common.io.statistics.BaseStatistics;
+import eu.stratosphere.api.common.io.statistics.DataSetStatistics;
+import eu.stratosphere.api.common.io.statistics.StatisticsCatalog;
 
 /**
  * The collection of access methods that can be used to retrieve statistical information about the
- * data processed in a job. Currently this method acts as an entry point only for obtaining cached
- * statistics.
+ * data processed in a job. This class acts as an entry point for obtaining cached statistics and the
+ * statistics that previous programs recorded in the persistent {@link StatisticsCatalog}.
  */
 public class DataStatistics {
 	
 	private final Map<String, BaseStatistics> baseStatisticsCache;
 	
+	private volatile StatisticsCatalog catalog;
+	
 	// --------------------------------------------------------------------------------------------
 	
 	/**
@@ -61,4 +68,59 @@ public class DataStatistics {
 			this.baseStatisticsCache.put(identifyer, statistics);
 		}
 	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Gets the persistent statistics catalog.
+	 * 
+	 * @return The statistics catalog, or null, if no catalog is used.
+	 */
+	public StatisticsCatalog getCatalog() {
+		return this.catalog;
+	}
+	
+	/**
+	 * Sets the persistent statistics catalog that holds the observed statistics of data sets.
+	 * 
+	 * @param catalog The statistics catalog, or null, to use no catalog.
+	 */
+	public void setCatalog(StatisticsCatalog catalog) {
+		this.catalog = catalog;
+	}
+	
+	/**
+	 * Gets the statistics that were observed for the data read by the given input format, if the format reads
+	 * files and the catalog contains statistics for them. Statistics that are older than the last modification
+	 * of the files (as reported by the given statistics of the format) are not returned.
+	 * 
+	 * @param format The configured input format.
+	 * @param formatStatistics The statistics that the format determined itself, or null, if not available.
+	 * @return The observed statistics, or null, if none are available.
+	 */
+	public DataSetStatistics getObservedStatistics(InputFormat<?, ?> format, BaseStatistics formatStatistics) {
+		final StatisticsCatalog catalog = this.catalog;
+		if (catalog == null || !(format instanceof FileInputFormat) || ((FileInputFormat<?>) format).getFilePath() == null) {
+			return null;
+		}
+		
+		final DataSetStatistics stats;
+		try {
+			stats = catalog.read(StatisticsCatalog.getDataSetId(((FileInputFormat<?>) format).getFilePath()));
+		}
+		catch (IOException ioex) {
+			if (PactCompiler.LOG.isWarnEnabled()) {
+				PactCompiler.LOG.warn("Could not read statistics from the catalog: " + ioex.getMessage(), ioex);
+			}
+			return null;
+		}
+		
+		if (stats != null && formatStatistics instanceof FileInputFormat.FileBaseStatistics &&
+				((FileInputFormat.FileBaseStatistics) formatStatistics).getLastModificationTime() > stats.getTimestamp())
+		{
+			// the files were changed after the statistics were recorded
+			return null;
+		}
+		return stats;
+	}
 }
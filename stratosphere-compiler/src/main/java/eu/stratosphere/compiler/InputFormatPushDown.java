@@ -0,0 +1,331 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.compiler;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.common.io.FieldPredicate;
+import eu.stratosphere.api.common.io.InputFormat;
+import eu.stratosphere.api.common.io.PushDownInputFormat;
+import eu.stratosphere.api.common.operators.AbstractUdfOperator;
+import eu.stratosphere.api.common.operators.CompilerHints;
+import eu.stratosphere.api.common.operators.DualInputOperator;
+import eu.stratosphere.api.common.operators.Operator;
+import eu.stratosphere.api.common.operators.OperatorInformation;
+import eu.stratosphere.api.common.operators.SingleInputOperator;
+import eu.stratosphere.api.common.operators.base.BulkIterationBase;
+import eu.stratosphere.api.common.operators.base.CollectorMapOperatorBase;
+import eu.stratosphere.api.common.operators.base.DeltaIterationBase;
+import eu.stratosphere.api.common.operators.base.FilterOperatorBase;
+import eu.stratosphere.api.common.operators.base.GenericDataSinkBase;
+import eu.stratosphere.api.common.operators.base.GenericDataSourceBase;
+import eu.stratosphere.api.common.operators.base.MapOperatorBase;
+import eu.stratosphere.api.common.operators.util.FieldSet;
+import eu.stratosphere.api.common.operators.util.UserCodeObjectWrapper;
+import eu.stratosphere.api.java.functions.FieldComparisonFilter;
+import eu.stratosphere.api.java.operators.translation.PlanFilterOperator;
+import eu.stratosphere.api.java.operators.translation.PlanProjectOperator;
+import eu.stratosphere.api.java.record.functions.FieldProjection;
+import eu.stratosphere.util.InstantiationUtil;
+
+/**
+ * Determines which projections and field comparison filters that directly follow a data source can be evaluated
+ * by the source's input format, if the format implements {@link PushDownInputFormat}. Projections and filters of
+ * both the Java API and the Record API ({@link FieldProjection} and the Record API's field comparison filter) are
+ * recognized. For each such operator, a
+ * data source with a restricted copy of the format is created, which replaces the operator when the program is
+ * translated. The program and its input formats themselves are left unchanged.
+ * <p>
+ * An operator is only pushed into a data source if the operator is the source's only consumer, and if the
+ * operator itself is consumed only through regular inputs (not as a broadcast variable or as the result of an
+ * iteration's step function).
+ */
+final class InputFormatPushDown {
+	
+	private static final Log LOG = LogFactory.getLog(InputFormatPushDown.class);
+	
+	private static final int INPUT = 0;
+	
+	private static final int SECOND_INPUT = 1;
+	
+	private static final int OTHER = 2;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Determines all projections and field comparison filters that can be evaluated by the input formats of
+	 * their data sources, and creates the data sources that replace them.
+	 * 
+	 * @param program The program to rewrite.
+	 * @return The operators that were pushed into input formats, mapped to the data sources that replace them.
+	 */
+	static Map<Operator<?>, GenericDataSourceBase<?, ?>> rewrite(Plan program) {
+		final Map<Operator<?>, GenericDataSourceBase<?, ?>> substitutes =
+			new IdentityHashMap<Operator<?>, GenericDataSourceBase<?, ?>>();
+		
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			
+			final Map<Operator<?>, List<Reference>> references = new IdentityHashMap<Operator<?>, List<Reference>>();
+			for (GenericDataSinkBase<?> sink : program.getDataSinks()) {
+				collectReferences(sink, references, substitutes);
+			}
+			
+			for (Operator<?> operator : new ArrayList<Operator<?>>(references.keySet())) {
+				if (operator instanceof GenericDataSourceBase &&
+						pushDown((GenericDataSourceBase<?, ?>) operator, references, substitutes))
+				{
+					changed = true;
+					break;
+				}
+			}
+		}
+		return substitutes;
+	}
+	
+	private static boolean pushDown(GenericDataSourceBase<?, ?> source, Map<Operator<?>, List<Reference>> references,
+			Map<Operator<?>, GenericDataSourceBase<?, ?>> substitutes)
+	{
+		if (!(source.getFormatWrapper() instanceof UserCodeObjectWrapper)) {
+			return false;
+		}
+		final InputFormat<?, ?> format = source.getFormatWrapper().getUserCodeObject();
+		if (!(format instanceof PushDownInputFormat)) {
+			return false;
+		}
+		
+		final List<Reference> sourceReferences = references.get(source);
+		if (sourceReferences.size() != 1 || sourceReferences.get(0).slot != INPUT) {
+			return false;
+		}
+		final Operator<?> consumer = sourceReferences.get(0).consumer;
+		if (!(consumer instanceof SingleInputOperator) || !isConsumedThroughInputs(consumer, references) ||
+				!((SingleInputOperator<?, ?, ?>) consumer).getBroadcastInputs().isEmpty())
+		{
+			return false;
+		}
+		// only inspect functions given as objects, functions given as classes are not instantiated here
+		if (!(consumer.getUserCodeWrapper() instanceof UserCodeObjectWrapper)) {
+			return false;
+		}
+		final Object udf = consumer.getUserCodeWrapper().getUserCodeObject();
+		
+		final InputFormat<?, ?> restricted;
+		final OperatorInformation<?> outputInfo;
+		final int[] projection;
+		
+		if ((consumer instanceof MapOperatorBase && udf instanceof PlanProjectOperator.MapProjector) ||
+				(consumer instanceof CollectorMapOperatorBase && udf instanceof FieldProjection))
+		{
+			projection = udf instanceof FieldProjection ? ((FieldProjection) udf).getFields() :
+				((PlanProjectOperator.MapProjector<?, ?>) udf).getFields();
+			restricted = copy(format);
+			if (restricted == null || !((PushDownInputFormat) restricted).pushDownProjection(projection)) {
+				return false;
+			}
+			// the projected source produces the type of the projection
+			outputInfo = consumer.getOperatorInfo();
+		}
+		else if ((consumer instanceof FilterOperatorBase && udf instanceof PlanFilterOperator.FlatMapFilter &&
+				((PlanFilterOperator.FlatMapFilter<?>) udf).getWrappedFunction() instanceof FieldComparisonFilter) ||
+				(consumer instanceof CollectorMapOperatorBase &&
+				udf instanceof eu.stratosphere.api.java.record.functions.FieldComparisonFilter))
+		{
+			final FieldPredicate predicate = udf instanceof PlanFilterOperator.FlatMapFilter ?
+				((FieldComparisonFilter<?>) ((PlanFilterOperator.FlatMapFilter<?>) udf).getWrappedFunction()).getPredicate() :
+				((eu.stratosphere.api.java.record.functions.FieldComparisonFilter) udf).getPredicate();
+			projection = null;
+			restricted = copy(format);
+			if (restricted == null || !((PushDownInputFormat) restricted).pushDownFilter(predicate)) {
+				return false;
+			}
+			outputInfo = source.getOperatorInfo();
+		}
+		else {
+			return false;
+		}
+		
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		final GenericDataSourceBase<?, ?> substitute = new GenericDataSourceBase(restricted,
+			new OperatorInformation(outputInfo.getOutputType()), source.getName());
+		substitute.setDegreeOfParallelism(source.getDegreeOfParallelism());
+		substitute.getParameters().addAll(source.getParameters());
+		substitute.setStatisticsKey(source.getStatisticsKey());
+		copyHints(source.getCompilerHints(), substitute.getCompilerHints(), projection);
+		
+		substitutes.put(consumer, substitute);
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Pushed " + (projection == null ? "filter" : "projection") + " '" + consumer.getName() +
+				"' into data source '" + source.getName() + "'.");
+		}
+		return true;
+	}
+	
+	/**
+	 * Creates a copy of the given input format through serialization, such that the user's format is not modified.
+	 * 
+	 * @return The copy, or null, if the format could not be copied.
+	 */
+	private static InputFormat<?, ?> copy(InputFormat<?, ?> format) {
+		try {
+			return (InputFormat<?, ?>) InstantiationUtil.deserializeObject(InstantiationUtil.serializeObject(format),
+				format.getClass().getClassLoader());
+		}
+		catch (Exception e) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("The input format " + format.getClass().getName() + " could not be copied: " + e.getMessage());
+			}
+			return null;
+		}
+	}
+	
+	/**
+	 * Carries the compiler hints of a data source over to the data source that replaces a pushed-down operator.
+	 * A projection changes neither the number of records nor their uniqueness, but the size of the records and the
+	 * positions of the fields, so only the cardinality and the unique fields retained by the projection are kept.
+	 */
+	private static void copyHints(CompilerHints from, CompilerHints to, int[] projection) {
+		if (from.getOutputCardinality() >= 0) {
+			to.setOutputCardinality(from.getOutputCardinality());
+		}
+		if (from.getFilterFactor() >= 0) {
+			to.setFilterFactor(from.getFilterFactor());
+		}
+		
+		if (projection == null) {
+			if (from.getOutputSize() >= 0) {
+				to.setOutputSize(from.getOutputSize());
+			}
+			if (from.getAvgOutputRecordSize() > 0) {
+				to.setAvgOutputRecordSize(from.getAvgOutputRecordSize());
+			}
+			if (from.getUniqueFields() != null) {
+				to.addUniqueFields(from.getUniqueFields());
+			}
+		}
+		else if (from.getUniqueFields() != null) {
+			for (FieldSet unique : from.getUniqueFields()) {
+				FieldSet projected = new FieldSet();
+				for (Integer field : unique) {
+					final int position = indexOf(projection, field);
+					if (position < 0) {
+						projected = null;
+						break;
+					}
+					projected.add(position);
+				}
+				if (projected != null) {
+					to.addUniqueField(projected);
+				}
+			}
+		}
+	}
+	
+	private static int indexOf(int[] array, int value) {
+		for (int i = 0; i < array.length; i++) {
+			if (array[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	private static boolean isConsumedThroughInputs(Operator<?> operator, Map<Operator<?>, List<Reference>> references) {
+		for (Reference reference : references.get(operator)) {
+			if (reference.slot == OTHER) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Records for the given operator and all its (transitive) inputs by which operators they are consumed.
+	 * The traversal includes the step functions of iterations.
+	 */
+	private static void collectReferences(Operator<?> operator, Map<Operator<?>, List<Reference>> references,
+			Map<Operator<?>, GenericDataSourceBase<?, ?>> substitutes)
+	{
+		if (operator == null || references.containsKey(operator)) {
+			return;
+		}
+		references.put(operator, new ArrayList<Reference>());
+		
+		if (operator instanceof GenericDataSinkBase) {
+			addReference(((GenericDataSinkBase<?>) operator).getInput(), operator, INPUT, references, substitutes);
+		}
+		else if (operator instanceof SingleInputOperator) {
+			addReference(((SingleInputOperator<?, ?, ?>) operator).getInput(), operator, INPUT, references, substitutes);
+		}
+		else if (operator instanceof DualInputOperator) {
+			addReference(((DualInputOperator<?, ?, ?, ?>) operator).getFirstInput(), operator, INPUT, references, substitutes);
+			addReference(((DualInputOperator<?, ?, ?, ?>) operator).getSecondInput(), operator, SECOND_INPUT, references, substitutes);
+		}
+		
+		if (operator instanceof AbstractUdfOperator) {
+			for (Operator<?> broadcastInput : ((AbstractUdfOperator<?, ?>) operator).getBroadcastInputs().values()) {
+				addReference(broadcastInput, operator, OTHER, references, substitutes);
+			}
+		}
+		if (operator instanceof BulkIterationBase) {
+			final BulkIterationBase<?> iteration = (BulkIterationBase<?>) operator;
+			addReference(iteration.getNextPartialSolution(), operator, OTHER, references, substitutes);
+			addReference(iteration.getTerminationCriterion(), operator, OTHER, references, substitutes);
+		}
+		else if (operator instanceof DeltaIterationBase) {
+			final DeltaIterationBase<?, ?> iteration = (DeltaIterationBase<?, ?>) operator;
+			addReference(iteration.getSolutionSetDelta(), operator, OTHER, references, substitutes);
+			addReference(iteration.getNextWorkset(), operator, OTHER, references, substitutes);
+		}
+	}
+	
+	private static void addReference(Operator<?> input, Operator<?> consumer, int slot,
+			Map<Operator<?>, List<Reference>> references, Map<Operator<?>, GenericDataSourceBase<?, ?>> substitutes)
+	{
+		if (input != null) {
+			// operators that were pushed down are replaced by their data sources
+			final GenericDataSourceBase<?, ?> substitute = substitutes.get(input);
+			if (substitute != null) {
+				input = substitute;
+			}
+			collectReferences(input, references, substitutes);
+			references.get(input).add(new Reference(consumer, slot));
+		}
+	}
+	
+	/**
+	 * A reference of an operator by a consumer.
+	 */
+	private static final class Reference {
+		
+		private final Operator<?> consumer;
+		
+		private final int slot;
+		
+		private Reference(Operator<?> consumer, int slot) {
+			this.consumer = consumer;
+			this.slot = slot;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.compiler;
+
+import eu.stratosphere.compiler.plan.Channel;
+import eu.stratosphere.compiler.plan.PlanNode;
+
+/**
+ * A consumer of managed memory in the final plan, being either the driver of a node, or the local strategy
+ * or temp table of one of its inputs.
+ */
+final class MemoryConsumer {
+	
+	final PlanNode node;
+	
+	final Channel channel; // null, if the consumer is the node's driver
+	
+	final boolean temp; // true, if the consumer is the temp table of the channel
+	
+	final int weight;
+	
+	final long demand; // the estimated demand per instance, -1, if unknown
+	
+	long minimum; // the lower bound per instance
+	
+	long memory; // the assigned memory per instance
+	
+	MemoryConsumer(PlanNode node, Channel channel, boolean temp, int weight, long demand) {
+		this.node = node;
+		this.channel = channel;
+		this.temp = temp;
+		this.weight = weight;
+		this.demand = demand;
+	}
+	
+	void assign() {
+		final long mem = this.memory / this.node.getSubtasksPerInstance();
+		
+		if (this.channel == null) {
+			this.node.setMemoryPerSubTask(mem);
+		} else if (this.temp) {
+			this.channel.setTempMemory(mem);
+		} else {
+			this.channel.setMemoryLocalStrategy(mem);
+		}
+		
+		if (PactCompiler.LOG.isDebugEnabled()) {
+			final long mib = mem >> 20;
+			PactCompiler.LOG.debug("Assigned " + mib + " MiBytes memory to each subtask of " +
+				(this.channel == null ? this.node.getPactContract().getName() : 
+					(this.temp ? "the temp table for " : "the local strategy of ") + this.channel) +
+				" (" + mib * this.node.getDegreeOfParallelism() + " MiBytes total, estimated demand per instance: " +
+				(this.demand < 0 ? "unknown" : (this.demand >> 20) + " MiBytes") + ")");
+		}
+	}
+}
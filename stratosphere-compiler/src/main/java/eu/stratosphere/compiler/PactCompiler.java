@@ -17,9 +17,11 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +31,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.common.io.statistics.BaseStatistics;
+import eu.stratosphere.api.common.io.statistics.StatisticsCatalog;
 import eu.stratosphere.api.common.operators.Operator;
 import eu.stratosphere.api.common.operators.Union;
 import eu.stratosphere.api.common.operators.base.BulkIterationBase;
@@ -96,6 +100,7 @@ import eu.stratosphere.nephele.ipc.RPC;
 import eu.stratosphere.nephele.net.NetUtils;
 import eu.stratosphere.nephele.protocols.ExtendedManagementProtocol;
 import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
+import eu.stratosphere.pact.runtime.task.DamBehavior;
 import eu.stratosphere.pact.runtime.task.util.LocalStrategy;
 import eu.stratosphere.util.InstantiationUtil;
 import eu.stratosphere.util.Visitor;
@@ -275,6 +280,32 @@ public class PactCompiler {
 	 */
 	public static final String HINT_LOCAL_STRATEGY_HASH_BUILD_SECOND = "LOCAL_STRATEGY_HASH_BUILD_SECOND";
 
+	/**
+	 * Value for the local strategy compiler hint that enforces an <b>adaptive hash based</b> local strategy.
+	 * A <i>Match</i> operator will materialize the first input before deciding which input is used to build
+	 * the hash table. The first input builds the hash table if it turns out to be small enough, otherwise the
+	 * second input is used. This is useful if the size estimates are unreliable.
+	 * <p>
+	 * The strategy is only used when this hint is given. The optimizer never chooses it on its own, because its
+	 * costs are always estimated above those of a hash join building the first input, and it is not reachable
+	 * through the join hints of the Java API.
+	 * 
+	 * @see #HINT_LOCAL_STRATEGY
+	 */
+	public static final String HINT_LOCAL_STRATEGY_HASH_ADAPTIVE = "LOCAL_STRATEGY_HASH_ADAPTIVE";
+
+	/**
+	 * Value for the local strategy compiler hint that enforces an <b>index based</b> local strategy.
+	 * A <i>CoGroup</i> operator inside an iteration, whose first input is on the static path, will build an
+	 * in-memory index over its first input once and look up the groups of its second input in that index in every
+	 * superstep. The CoGroup function is only called for keys that occur in the second input, so the hint must
+	 * only be given for functions that produce no result for groups without elements from the second input.
+	 * Outside of iterations, or if the first input is not static, the hint is ignored.
+	 * 
+	 * @see #HINT_LOCAL_STRATEGY
+	 */
+	public static final String HINT_LOCAL_STRATEGY_INDEX_FIRST = "LOCAL_STRATEGY_INDEX_FIRST";
+
 	/**
 	 * Value for the local strategy compiler hint that chooses the outer side of the <b>nested-loop</b> local strategy.
 	 * A <i>Cross</i> operator will process the data of the <b>first</b> input in the outer-loop of the nested loops.
@@ -358,6 +389,22 @@ public class PactCompiler {
 	 * The maximum number of subtasks that should share an instance.
 	 */
 	private int maxIntraNodeParallelism;
+	
+	/**
+	 * The number of threads that enumerate the alternatives of independent parts of a plan.
+	 */
+	private int numEnumerationThreads;
+	
+	/**
+	 * The enumerator whose threads enumerate the independent parts of all plans, or null, if the plans are
+	 * enumerated sequentially.
+	 */
+	private ParallelPlanEnumerator parallelEnumerator;
+	
+	/**
+	 * The cache for the plans of repeatedly submitted programs, or null, if plans are not cached.
+	 */
+	private CompiledPlanCache planCache;
 
 	// ------------------------------------------------------------------------
 	// Constructor & Setup
@@ -440,6 +487,15 @@ public class PactCompiler {
 	 *        The address of the job manager that is queried for system characteristics.
 	 */
 	public PactCompiler(DataStatistics stats, CostEstimator estimator, InetSocketAddress jobManagerConnection) {
+		// the statistics catalog, if configured, feeds the observed statistics of previous programs
+		final StatisticsCatalog catalog = StatisticsCatalog.getConfiguredCatalog();
+		if (catalog != null) {
+			if (stats == null) {
+				stats = new DataStatistics();
+			}
+			stats.setCatalog(catalog);
+		}
+		
 		this.statistics = stats;
 		this.costEstimator = estimator;
 
@@ -461,6 +517,24 @@ public class PactCompiler {
 			maxInNodePar = ConfigConstants.DEFAULT_MAX_INTRA_NODE_PARALLELIZATION_DEGREE;
 		}
 		this.maxIntraNodeParallelism = maxInNodePar;
+		
+		// determine the number of threads for the plan enumeration
+		int enumThreads = config.getInteger(ConfigConstants.COMPILER_ENUMERATION_THREADS_KEY,
+			ConfigConstants.DEFAULT_COMPILER_ENUMERATION_THREADS);
+		if (enumThreads == 0 || enumThreads < -1) {
+			LOG.error("Invalid number of plan enumeration threads: " + enumThreads + ". Ignoring parameter.");
+			enumThreads = ConfigConstants.DEFAULT_COMPILER_ENUMERATION_THREADS;
+		}
+		setNumEnumerationThreads(enumThreads == -1 ? Runtime.getRuntime().availableProcessors() : enumThreads);
+		
+		// set up the plan cache
+		int planCacheSize = config.getInteger(ConfigConstants.COMPILER_PLAN_CACHE_SIZE_KEY,
+			ConfigConstants.DEFAULT_COMPILER_PLAN_CACHE_SIZE);
+		if (planCacheSize < 0) {
+			LOG.error("Invalid plan cache size: " + planCacheSize + ". Ignoring parameter.");
+			planCacheSize = ConfigConstants.DEFAULT_COMPILER_PLAN_CACHE_SIZE;
+		}
+		this.planCache = planCacheSize > 0 ? new CompiledPlanCache(planCacheSize) : null;
 
 		// assign the connection to the job-manager
 		if (jobManagerConnection != null) {
@@ -523,6 +597,45 @@ public class PactCompiler {
 		}
 	}
 	
+	public int getNumEnumerationThreads() {
+		return numEnumerationThreads;
+	}
+	
+	public void setNumEnumerationThreads(int numEnumerationThreads) {
+		if (numEnumerationThreads > 0) {
+			this.numEnumerationThreads = numEnumerationThreads;
+			this.parallelEnumerator = numEnumerationThreads > 1 ?
+				new ParallelPlanEnumerator(this.costEstimator, numEnumerationThreads) : null;
+		} else {
+			throw new IllegalArgumentException();
+		}
+	}
+	
+	/**
+	 * Gets the cache for the plans of repeatedly submitted programs.
+	 * 
+	 * @return The plan cache, or null, if plans are not cached.
+	 */
+	public CompiledPlanCache getPlanCache() {
+		return this.planCache;
+	}
+	
+	/**
+	 * Sets the number of plans that are cached for later submissions of the same program. Any previously
+	 * cached plans are dropped.
+	 * 
+	 * @param planCacheSize The number of cached plans. A value of zero disables the plan cache.
+	 */
+	public void setPlanCacheSize(int planCacheSize) {
+		if (planCacheSize > 0) {
+			this.planCache = new CompiledPlanCache(planCacheSize);
+		} else if (planCacheSize == 0) {
+			this.planCache = null;
+		} else {
+			throw new IllegalArgumentException();
+		}
+	}
+	
 	// ------------------------------------------------------------------------
 	//                               Compilation
 	// ------------------------------------------------------------------------
@@ -666,7 +779,27 @@ public class PactCompiler {
 		// 4) It makes estimates about the data volume of the data sources and
 		// propagates those estimates through the plan
 
-		GraphCreatingVisitor graphCreator = new GraphCreatingVisitor(maxMachinesJob, defaultParallelism);
+		// projections and simple filters directly after data sources are evaluated by the input formats, if they can
+		final Map<Operator<?>, GenericDataSourceBase<?, ?>> pushedDown = InputFormatPushDown.rewrite(program);
+		if (!pushedDown.isEmpty() && LOG.isDebugEnabled()) {
+			LOG.debug("Pushed " + pushedDown.size() + " operators into the input formats of their data sources.");
+		}
+
+		// programs that were compiled before (possibly with different parameters) follow their previous decisions.
+		// the statistics of the sources that are gathered for the fingerprint are reused for the estimates
+		final CompiledPlanCache planCache = this.planCache;
+		final Map<GenericDataSourceBase<?, ?>, BaseStatistics> sourceStatistics =
+			new IdentityHashMap<GenericDataSourceBase<?, ?>, BaseStatistics>();
+		PlanFingerprint fingerprint = null;
+		Map<Integer, String> cachedStrategies = null;
+		if (planCache != null) {
+			fingerprint = PlanFingerprint.create(program, this.statistics, instanceName + '|' + memoryPerInstance +
+				'|' + numInstances + '|' + maxMachinesJob + '|' + defaultParallelism + '|' +
+				this.maxIntraNodeParallelism + '|' + postPasser.getClass().getName(), sourceStatistics);
+			cachedStrategies = planCache.get(fingerprint);
+		}
+
+		GraphCreatingVisitor graphCreator = new GraphCreatingVisitor(maxMachinesJob, defaultParallelism, pushedDown);
 		program.accept(graphCreator);
 
 		// if we have a plan with multiple data sinks, add logical optimizer nodes that have two data-sinks as children
@@ -689,7 +822,7 @@ public class PactCompiler {
 		// now that we have all nodes created and recorded which ones consume memory, tell the nodes their minimal
 		// guaranteed memory, for further cost estimations. we assume an equal distribution of memory among consumer tasks
 		
-		rootNode.accept(new IdAndMemoryAndEstimatesVisitor(this.statistics,
+		rootNode.accept(new IdAndMemoryAndEstimatesVisitor(this.statistics, sourceStatistics,
 			graphCreator.getMemoryConsumerCount() == 0 ? 0 : memoryPerInstance / graphCreator.getMemoryConsumerCount()));
 		
 		// Now that the previous step is done, the next step is to traverse the graph again for the two
@@ -711,12 +844,27 @@ public class PactCompiler {
 					"track the re-joining of branches correctly.");
 		}
 
-		// the final step is now to generate the actual plan alternatives
+		if (cachedStrategies != null) {
+			CompiledPlanCache.setPreferredStrategies(rootNode, cachedStrategies);
+		}
+
+		// the final step is now to generate the actual plan alternatives. independent parts of the plan
+		// are enumerated in parallel first, the rest is picked up by the enumeration from the root
+		if (this.parallelEnumerator != null) {
+			int numParallel = this.parallelEnumerator.enumerate(rootNode);
+			if (LOG.isDebugEnabled() && numParallel > 0) {
+				LOG.debug("Enumerated the alternatives of " + numParallel + " nodes with " +
+					this.numEnumerationThreads + " threads.");
+			}
+		}
 		List<PlanNode> bestPlan = rootNode.getAlternativePlans(this.costEstimator);
 
 		if (bestPlan.size() != 1) {
 			throw new CompilerException("Error in compiler: more than one best plan was created!");
 		}
+		if (planCache != null) {
+			planCache.put(fingerprint, bestPlan.get(0));
+		}
 
 		// check if the best plan's root is a data sink (single sink plan)
 		// if so, directly take it. if it is a sink joiner node, get its contained sinks
@@ -742,7 +890,6 @@ public class PactCompiler {
 		
 		// post pass the plan. this is the phase where the serialization and comparator code is set
 		postPasser.postPass(plan);
-		
 		return plan;
 	}
 
@@ -755,7 +902,8 @@ public class PactCompiler {
 	 *         from the plan can be traversed.
 	 */
 	public static List<DataSinkNode> createPreOptimizedPlan(Plan program) {
-		GraphCreatingVisitor graphCreator = new GraphCreatingVisitor(-1, 1);
+		GraphCreatingVisitor graphCreator = new GraphCreatingVisitor(-1, 1,
+			Collections.<Operator<?>, GenericDataSourceBase<?, ?>>emptyMap());
 		program.accept(graphCreator);
 		return graphCreator.sinks;
 	}
@@ -779,6 +927,9 @@ public class PactCompiler {
 		private final Map<Operator<?>, OptimizerNode> con2node; // map from the operator objects to their
 																// corresponding optimizer nodes
 
+		private final Map<Operator<?>, GenericDataSourceBase<?, ?>> substitutes; // the data sources that replace the
+																				// operators pushed into input formats
+
 		private final List<DataSourceNode> sources; // all data source nodes in the optimizer plan
 
 		private final List<DataSinkNode> sinks; // all data sink nodes in the optimizer plan
@@ -794,12 +945,14 @@ public class PactCompiler {
 		private final boolean forceDOP;
 
 		
-		private GraphCreatingVisitor(int maxMachines, int defaultParallelism) {
-			this(null, false, maxMachines, defaultParallelism, null);
+		private GraphCreatingVisitor(int maxMachines, int defaultParallelism,
+				Map<Operator<?>, GenericDataSourceBase<?, ?>> substitutes) {
+			this(null, false, maxMachines, defaultParallelism, null, substitutes);
 		}
 
 		private GraphCreatingVisitor(GraphCreatingVisitor parent, boolean forceDOP, int maxMachines,
-									int defaultParallelism, HashMap<Operator<?>, OptimizerNode> closure) {
+									int defaultParallelism, HashMap<Operator<?>, OptimizerNode> closure,
+									Map<Operator<?>, GenericDataSourceBase<?, ?>> substitutes) {
 			if (closure == null){
 				con2node = new HashMap<Operator<?>, OptimizerNode>();
 			} else {
@@ -811,6 +964,7 @@ public class PactCompiler {
 			this.defaultParallelism = defaultParallelism;
 			this.parent = parent;
 			this.forceDOP = forceDOP;
+			this.substitutes = substitutes;
 		}
 
 		@Override
@@ -819,6 +973,15 @@ public class PactCompiler {
 			if (this.con2node.containsKey(c)) {
 				return false;
 			}
+			
+			// operators that were pushed into an input format are represented by the data source that replaces them.
+			// the program itself is left unchanged, so we do not descend into the replaced operator's inputs
+			final GenericDataSourceBase<?, ?> substitute = this.substitutes.get(c);
+			if (substitute != null) {
+				preVisit(substitute);
+				this.con2node.put(c, this.con2node.get(substitute));
+				return false;
+			}
 
 			final OptimizerNode n;
 
@@ -966,7 +1129,7 @@ public class PactCompiler {
 
 				// first, recursively build the data flow for the step function
 				final GraphCreatingVisitor recursiveCreator = new GraphCreatingVisitor(this, true,
-					this.maxMachines, iterNode.getDegreeOfParallelism(), closure);
+					this.maxMachines, iterNode.getDegreeOfParallelism(), closure, this.substitutes);
 				
 				BulkPartialSolutionNode partialSolution = null;
 				
@@ -1013,7 +1176,7 @@ public class PactCompiler {
 
 				// first, recursively build the data flow for the step function
 				final GraphCreatingVisitor recursiveCreator = new GraphCreatingVisitor(this, true,
-					this.maxMachines, iterNode.getDegreeOfParallelism(), closure);
+					this.maxMachines, iterNode.getDegreeOfParallelism(), closure, this.substitutes);
 				// descend from the solution set delta. check that it depends on both the workset
 				// and the solution set. If it does depend on both, this descend should create both nodes
 				iter.getSolutionSetDelta().accept(recursiveCreator);
@@ -1111,12 +1274,17 @@ public class PactCompiler {
 		
 		private final DataStatistics statistics;
 		
+		private final Map<GenericDataSourceBase<?, ?>, BaseStatistics> sourceStatistics;
+		
 		private final long memoryPerTaskPerInstance;
 		
 		private int id = 1;
 		
-		private IdAndMemoryAndEstimatesVisitor(DataStatistics statistics, long memoryPerTaskPerInstance) {
+		private IdAndMemoryAndEstimatesVisitor(DataStatistics statistics,
+				Map<GenericDataSourceBase<?, ?>, BaseStatistics> sourceStatistics, long memoryPerTaskPerInstance)
+		{
 			this.statistics = statistics;
+			this.sourceStatistics = sourceStatistics;
 			this.memoryPerTaskPerInstance = memoryPerTaskPerInstance;
 		}
 
@@ -1150,7 +1318,13 @@ public class PactCompiler {
 				conn.initMaxDepth();
 			}
 			
-			// the estimates
+			// the estimates. sources whose statistics were already gathered during this compilation reuse them
+			if (visitable instanceof DataSourceNode) {
+				final GenericDataSourceBase<?, ?> source = ((DataSourceNode) visitable).getPactContract();
+				if (this.sourceStatistics.containsKey(source)) {
+					((DataSourceNode) visitable).setGatheredStatistics(this.sourceStatistics.get(source));
+				}
+			}
 			visitable.computeOutputEstimates(this.statistics);
 			
 			// if required, recurse into the step function
@@ -1225,7 +1399,11 @@ public class PactCompiler {
 	 * Besides collecting all nodes, this traversal assigns the memory to the nodes.
 	 */
 	private static final class PlanFinalizer implements Visitor<PlanNode> {
-		
+
+		private static final long MIN_MEMORY_PER_SUBTASK = 33 * 32 * 1024; // enough pages for a hash table
+
+		private static final double MEMORY_DEMAND_SAFETY_FACTOR = 2.0; // margin for index structures and estimates
+
 		private final Set<PlanNode> allNodes; // a set of all nodes in the optimizer plan
 
 		private final List<SourcePlanNode> sources; // all data source nodes in the optimizer plan
@@ -1263,51 +1441,156 @@ public class PactCompiler {
 
 			// assign the memory to each node
 			if (this.memoryConsumerWeights > 0) {
-				final long memoryPerInstanceAndWeight = this.memoryPerInstance / this.memoryConsumerWeights;
+				distributeMemory();
+			}
+			return new OptimizedPlan(this.sources, this.sinks, this.allNodes, jobName, originalPlan);
+		}
+
+		/**
+		 * Distributes the memory per instance among the memory consumers of the plan. Consumers whose estimated
+		 * demand is below their fair share receive only what they are estimated to need, the remaining memory is
+		 * shared among the other consumers according to their consumer weights. Consumers without estimates are
+		 * treated as having an unbounded demand. If the demands of all consumers can be met, the surplus is
+		 * distributed according to the consumer weights.
+		 */
+		private void distributeMemory() {
+			final List<MemoryConsumer> consumers = new ArrayList<MemoryConsumer>();
+			
+			for (PlanNode node : this.allNodes) {
+				final int consumerWeight = node.getMemoryConsumerWeight();
+				if (consumerWeight > 0) {
+					consumers.add(new MemoryConsumer(node, null, false, consumerWeight, estimateDriverDemand(node)));
+				}
 				
-				if (LOG.isDebugEnabled()) {
-					LOG.debug("Memory per consumer weight: " + memoryPerInstanceAndWeight);
+				for (Iterator<Channel> channels = node.getInputs(); channels.hasNext();) {
+					final Channel c = channels.next();
+					if (c.getLocalStrategy().dams()) {
+						consumers.add(new MemoryConsumer(node, c, false, 1, estimateChannelDemand(node, c)));
+					}
+					if (c.getTempMode() != TempMode.NONE) {
+						consumers.add(new MemoryConsumer(node, c, true, 1, estimateChannelDemand(node, c)));
+					}
+				}
+			}
+			
+			// broadcast inputs are accounted for in the weights, but do not get memory assigned
+			int unassignedWeight = this.memoryConsumerWeights;
+			for (MemoryConsumer consumer : consumers) {
+				unassignedWeight -= consumer.weight;
+			}
+			
+			final long memoryPerWeight = this.memoryPerInstance / this.memoryConsumerWeights;
+			long remaining = this.memoryPerInstance - unassignedWeight * memoryPerWeight;
+			
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Memory per consumer weight for equal distribution: " + memoryPerWeight);
+			}
+			
+			// the lower bound for each consumer: the minimal memory per sub-task, unless the equal share is smaller
+			for (MemoryConsumer consumer : consumers) {
+				consumer.minimum = Math.min(memoryPerWeight * consumer.weight,
+					MIN_MEMORY_PER_SUBTASK * consumer.node.getSubtasksPerInstance());
+			}
+			
+			// iteratively satisfy the consumers whose demand is below their share of the remaining memory
+			List<MemoryConsumer> unsatisfied = consumers;
+			while (!unsatisfied.isEmpty()) {
+				int weights = 0;
+				for (MemoryConsumer consumer : unsatisfied) {
+					weights += consumer.weight;
 				}
 				
-				for (PlanNode node : this.allNodes) {
-					// assign memory to the driver strategy of the node
-					final int consumerWeight = node.getMemoryConsumerWeight();
-					if (consumerWeight > 0) {
-						final long mem = memoryPerInstanceAndWeight * consumerWeight / node.getSubtasksPerInstance();
-						node.setMemoryPerSubTask(mem);
-						if (LOG.isDebugEnabled()) {
-							final long mib = mem >> 20;
-							LOG.debug("Assigned " + mib + " MiBytes memory to each subtask of " + 
-								node.getPactContract().getName() + " (" + mib * node.getDegreeOfParallelism() +
-								" MiBytes total.)"); 
-						}
+				final List<MemoryConsumer> stillUnsatisfied = new ArrayList<MemoryConsumer>(unsatisfied.size());
+				long assigned = 0;
+				for (MemoryConsumer consumer : unsatisfied) {
+					final long share = remaining / weights * consumer.weight;
+					final long need = Math.max(consumer.minimum, consumer.demand);
+					if (consumer.demand >= 0 && need <= share) {
+						consumer.memory = need;
+						assigned += need;
+					} else {
+						stillUnsatisfied.add(consumer);
 					}
-					
-					// assign memory to the local and global strategies of the channels
-					for (Iterator<Channel> channels = node.getInputs(); channels.hasNext();) {
-						final Channel c = channels.next();
-						if (c.getLocalStrategy().dams()) {
-							final long mem = memoryPerInstanceAndWeight / node.getSubtasksPerInstance();
-							c.setMemoryLocalStrategy(mem);
-							if (LOG.isDebugEnabled()) {
-								final long mib = mem >> 20;
-								LOG.debug("Assigned " + mib + " MiBytes memory to each local strategy instance of " + 
-									c + " (" + mib * node.getDegreeOfParallelism() + " MiBytes total.)"); 
-							}
-						}
-						if (c.getTempMode() != TempMode.NONE) {
-							final long mem = memoryPerInstanceAndWeight / node.getSubtasksPerInstance();
-							c.setTempMemory(mem);
-							if (LOG.isDebugEnabled()) {
-								final long mib = mem >> 20;
-								LOG.debug("Assigned " + mib + " MiBytes memory to each instance of the temp table for " + 
-									c + " (" + mib * node.getDegreeOfParallelism() + " MiBytes total.)"); 
-							}
-						}
+				}
+				
+				if (stillUnsatisfied.size() == unsatisfied.size()) {
+					// nobody can be satisfied, so the remaining consumers share the remaining memory
+					for (MemoryConsumer consumer : unsatisfied) {
+						consumer.memory = remaining / weights * consumer.weight;
 					}
+					remaining = 0;
+					break;
 				}
+				
+				remaining -= assigned;
+				unsatisfied = stillUnsatisfied;
 			}
-			return new OptimizedPlan(this.sources, this.sinks, this.allNodes, jobName, originalPlan);
+			
+			// all demands could be met, hand out the surplus
+			if (remaining > 0) {
+				int weights = 0;
+				for (MemoryConsumer consumer : consumers) {
+					weights += consumer.weight;
+				}
+				for (MemoryConsumer consumer : consumers) {
+					consumer.memory += remaining / weights * consumer.weight;
+				}
+			}
+			
+			for (MemoryConsumer consumer : consumers) {
+				consumer.assign();
+			}
+		}
+		
+		/**
+		 * Estimates the memory per instance that the driver strategy of the given node needs to run without
+		 * spilling. That is the size of the inputs that the driver fully dams up, such as the build side of a
+		 * hybrid hash join.
+		 * 
+		 * @param node The node to estimate the memory demand of the driver for.
+		 * @return The estimated memory demand per instance, or -1, if unknown.
+		 */
+		private static long estimateDriverDemand(PlanNode node) {
+			if (node instanceof IterationPlanNode || node.getDriverStrategy() == null) {
+				return -1;
+			}
+			
+			long size = 0;
+			boolean foundDam = false;
+			int inputNum = 0;
+			for (Iterator<Channel> channels = node.getInputs(); channels.hasNext(); inputNum++) {
+				final Channel c = channels.next();
+				if (inputNum < node.getDriverStrategy().getNumInputs() &&
+						node.getDriverStrategy().damOnInput(inputNum) == DamBehavior.FULL_DAM)
+				{
+					final long inputDemand = estimateChannelDemand(node, c);
+					if (inputDemand < 0) {
+						return -1;
+					}
+					size += inputDemand;
+					foundDam = true;
+				}
+			}
+			return foundDam ? size : -1;
+		}
+		
+		/**
+		 * Estimates the memory per instance that is needed to hold the data of the given input channel of the given
+		 * node, including a safety margin for index structures and estimation errors.
+		 * 
+		 * @param node The node that consumes the channel.
+		 * @param c The channel.
+		 * @return The estimated memory demand per instance, or -1, if unknown.
+		 */
+		private static long estimateChannelDemand(PlanNode node, Channel c) {
+			final long size = c.getEstimatedOutputSize();
+			final int dop = node.getDegreeOfParallelism();
+			if (size < 0 || dop < 1) {
+				return -1;
+			}
+			
+			final double demand = ((double) size) / dop * node.getSubtasksPerInstance() * MEMORY_DEMAND_SAFETY_FACTOR;
+			return demand >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) demand;
 		}
 
 		@Override
@@ -0,0 +1,251 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.compiler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import eu.stratosphere.compiler.costs.CostEstimator;
+import eu.stratosphere.compiler.dag.IterationNode;
+import eu.stratosphere.compiler.dag.OptimizerNode;
+import eu.stratosphere.compiler.dag.PactConnection;
+
+/**
+ * Enumerates the plan alternatives of independent parts of the optimizer DAG in parallel. The alternatives
+ * of a node depend only on the (cached) alternatives of its inputs, so every node whose inputs are enumerated
+ * can be enumerated concurrently with all other such nodes. Large plans with many branches therefore contain
+ * a lot of independent work.
+ * <p>
+ * This is a pre-pass to the regular enumeration, which starts at the root of the plan and finds the
+ * alternatives of all nodes that were handled here in their caches. Iterations and all nodes that consume
+ * the result of an iteration are left to the regular enumeration, because enumerating an iteration
+ * re-enumerates its step function (and clears the caches on its dynamic path) for every candidate of
+ * the iteration's inputs.
+ * <p>
+ * A node is enumerated by exactly one task, which is only submitted after the tasks of all its inputs have
+ * finished, so the cached alternatives of the inputs are complete and visible to it. The interesting properties,
+ * open branches and estimates that the enumeration reads are computed before the pre-pass and are not modified
+ * by it. Consumers of the same input only read the input's candidates; the one place where a candidate shares
+ * state with its predecessor, the branch plan map, is copied before it is modified (see
+ * {@link eu.stratosphere.compiler.plan.PlanNode#setBroadcastInputs(java.util.List)}).
+ * <p>
+ * The enumerator keeps one pool of threads for all plans that it enumerates. The threads terminate when they
+ * have been idle for a while.
+ */
+final class ParallelPlanEnumerator {
+	
+	/**
+	 * Plans with fewer nodes that can be enumerated in parallel are enumerated sequentially.
+	 */
+	static final int MIN_NODES_FOR_PARALLEL_ENUMERATION = 16;
+	
+	/**
+	 * The time in seconds after which idle enumeration threads terminate.
+	 */
+	private static final long THREAD_KEEP_ALIVE_SECONDS = 60;
+	
+	private final CostEstimator estimator;
+	
+	private final int numThreads;
+	
+	private final ThreadPoolExecutor executor;
+	
+	
+	ParallelPlanEnumerator(CostEstimator estimator, int numThreads) {
+		if (estimator == null) {
+			throw new NullPointerException();
+		}
+		if (numThreads < 1) {
+			throw new IllegalArgumentException("The number of threads must be at least one.");
+		}
+		
+		this.estimator = estimator;
+		this.numThreads = numThreads;
+		
+		this.executor = new ThreadPoolExecutor(numThreads, numThreads, THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			
+				private final AtomicInteger count = new AtomicInteger();
+				
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "Plan Enumerator " + this.count.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+	
+	/**
+	 * Enumerates the alternatives of all nodes below the given root that do not depend on an iteration.
+	 * 
+	 * @param root The root of the optimizer DAG.
+	 * @return The number of nodes that were enumerated, zero if the plan is too small to be worth it.
+	 */
+	int enumerate(OptimizerNode root) {
+		final Map<OptimizerNode, Task> tasks = new HashMap<OptimizerNode, Task>();
+		collect(root, tasks);
+		
+		final List<Task> eligible = new ArrayList<Task>();
+		for (Task t : tasks.values()) {
+			if (t.eligible) {
+				eligible.add(t);
+			}
+		}
+		if (this.numThreads == 1 || eligible.size() < MIN_NODES_FOR_PARALLEL_ENUMERATION) {
+			return 0;
+		}
+		
+		// determine the tasks without inputs before starting any of them, because the running
+		// tasks count down the pending inputs of their consumers
+		final List<Task> initial = new ArrayList<Task>();
+		for (Task t : eligible) {
+			if (t.pendingInputs.get() == 0) {
+				initial.add(t);
+			}
+		}
+		
+		final Run run = new Run(eligible.size());
+		for (Task t : initial) {
+			run.submit(t);
+		}
+		run.await();
+		return eligible.size();
+	}
+	
+	/**
+	 * Creates the tasks for the given node and all its inputs and determines which ones are eligible.
+	 */
+	private Task collect(OptimizerNode node, Map<OptimizerNode, Task> tasks) {
+		Task task = tasks.get(node);
+		if (task != null) {
+			return task;
+		}
+		task = new Task(node);
+		tasks.put(node, task);
+		
+		final List<OptimizerNode> inputs = new ArrayList<OptimizerNode>();
+		for (PactConnection conn : node.getIncomingConnections()) {
+			if (!inputs.contains(conn.getSource())) {
+				inputs.add(conn.getSource());
+			}
+		}
+		for (PactConnection conn : node.getBroadcastConnections()) {
+			if (!inputs.contains(conn.getSource())) {
+				inputs.add(conn.getSource());
+			}
+		}
+		
+		boolean eligible = !(node instanceof IterationNode) && !node.isOnDynamicPath();
+		for (OptimizerNode input : inputs) {
+			final Task inputTask = collect(input, tasks);
+			eligible &= inputTask.eligible;
+			inputTask.consumers.add(task);
+		}
+		
+		task.eligible = eligible;
+		task.pendingInputs.set(inputs.size());
+		return task;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static final class Task {
+		
+		private final OptimizerNode node;
+		
+		private final List<Task> consumers = new ArrayList<Task>(2);
+		
+		private final AtomicInteger pendingInputs = new AtomicInteger();
+		
+		private boolean eligible;
+		
+		private Task(OptimizerNode node) {
+			this.node = node;
+		}
+	}
+	
+	/**
+	 * The state of one parallel enumeration.
+	 */
+	private final class Run {
+		
+		private final AtomicInteger remaining;
+		
+		private final CountDownLatch done = new CountDownLatch(1);
+		
+		private final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		
+		private Run(int numTasks) {
+			this.remaining = new AtomicInteger(numTasks);
+		}
+		
+		private void submit(final Task task) {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					// the enumeration was aborted because another task failed
+					if (error.get() != null) {
+						return;
+					}
+					try {
+						task.node.getAlternativePlans(estimator);
+					}
+					catch (Throwable t) {
+						error.compareAndSet(null, t);
+						done.countDown();
+						return;
+					}
+					
+					for (Task consumer : task.consumers) {
+						if (consumer.eligible && consumer.pendingInputs.decrementAndGet() == 0) {
+							submit(consumer);
+						}
+					}
+					if (remaining.decrementAndGet() == 0) {
+						done.countDown();
+					}
+				}
+			});
+		}
+		
+		private void await() {
+			try {
+				this.done.await();
+			}
+			catch (InterruptedException e) {
+				throw new CompilerException("Interrupted while enumerating the plan alternatives.");
+			}
+			
+			final Throwable t = this.error.get();
+			if (t instanceof RuntimeException) {
+				throw (RuntimeException) t;
+			} else if (t instanceof Error) {
+				throw (Error) t;
+			} else if (t != null) {
+				throw new CompilerException("Error while enumerating the plan alternatives: " + t.getMessage(), t);
+			}
+		}
+	}
+}
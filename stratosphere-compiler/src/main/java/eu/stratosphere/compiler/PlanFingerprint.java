@@ -0,0 +1,357 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.common.io.InputFormat;
+import eu.stratosphere.api.common.io.statistics.BaseStatistics;
+import eu.stratosphere.api.common.operators.AbstractUdfOperator;
+import eu.stratosphere.api.common.operators.CompilerHints;
+import eu.stratosphere.api.common.operators.DualInputOperator;
+import eu.stratosphere.api.common.operators.DualInputSemanticProperties;
+import eu.stratosphere.api.common.operators.Operator;
+import eu.stratosphere.api.common.operators.SingleInputOperator;
+import eu.stratosphere.api.common.operators.SingleInputSemanticProperties;
+import eu.stratosphere.api.common.operators.base.BulkIterationBase;
+import eu.stratosphere.api.common.operators.base.CoGroupOperatorBase;
+import eu.stratosphere.api.common.operators.base.DeltaIterationBase;
+import eu.stratosphere.api.common.operators.base.GenericDataSinkBase;
+import eu.stratosphere.api.common.operators.base.GenericDataSourceBase;
+import eu.stratosphere.api.common.operators.base.GroupReduceOperatorBase;
+import eu.stratosphere.api.common.operators.util.UserCodeWrapper;
+import eu.stratosphere.configuration.Configuration;
+
+/**
+ * A structural fingerprint of a program. Two programs have equal fingerprints, if the optimizer makes the same
+ * decisions for both of them: they consist of the same operators with the same functions, keys, degrees of
+ * parallelism, compiler hints and connections, and their inputs have statistics of the same magnitude. The
+ * parameters of the operators (except for the optimizer hints among them) and the paths of the inputs and outputs
+ * are not part of the fingerprint, such that repeated submissions of the same parameterized program share one
+ * fingerprint.
+ * <p>
+ * The statistics of the inputs are gathered while the fingerprint is computed, such that a program whose inputs
+ * changed in magnitude since its last submission gets a different fingerprint.
+ */
+public final class PlanFingerprint {
+	
+	/**
+	 * The optimizer hints in the operator parameters that influence the optimizer's decisions.
+	 */
+	private static final String[] HINT_KEYS = {
+		PactCompiler.HINT_SHIP_STRATEGY,
+		PactCompiler.HINT_SHIP_STRATEGY_FIRST_INPUT,
+		PactCompiler.HINT_SHIP_STRATEGY_SECOND_INPUT,
+		PactCompiler.HINT_LOCAL_STRATEGY
+	};
+	
+	/**
+	 * The number of fields for which the forwarded fields of the semantic properties are described.
+	 */
+	private static final int MAX_DESCRIBED_FIELD = 64;
+	
+	private final String description;
+	
+	private final int hashCode;
+	
+	
+	private PlanFingerprint(String description) {
+		this.description = description;
+		this.hashCode = description.hashCode();
+	}
+	
+	/**
+	 * Computes the fingerprint of the given program.
+	 * 
+	 * @param program The program to compute the fingerprint for.
+	 * @param statistics The statistics used to gather and cache the statistics of the program's inputs, or null,
+	 *                   if no statistics are available.
+	 * @param environment A description of the environment that the program is compiled for, such as the
+	 *                    compiler settings and the available instances.
+	 * @param sourceStatistics The map into which the gathered statistics of every data source are put, such that
+	 *                         the optimizer does not gather them again for the same compilation.
+	 * @return The fingerprint of the program.
+	 */
+	public static PlanFingerprint create(Plan program, DataStatistics statistics, String environment,
+			Map<GenericDataSourceBase<?, ?>, BaseStatistics> sourceStatistics)
+	{
+		final Describer describer = new Describer(statistics, sourceStatistics);
+		describer.bld.append(environment).append('\n');
+		describer.bld.append(program.getDefaultParallelism()).append('|').append(program.getMaxNumberMachines()).append('\n');
+		
+		for (GenericDataSinkBase<?> sink : program.getDataSinks()) {
+			describer.describe(sink);
+		}
+		return new PlanFingerprint(describer.bld.toString());
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	public int hashCode() {
+		return this.hashCode;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (obj instanceof PlanFingerprint) {
+			final PlanFingerprint other = (PlanFingerprint) obj;
+			return this.hashCode == other.hashCode && this.description.equals(other.description);
+		}
+		return false;
+	}
+	
+	@Override
+	public String toString() {
+		return this.description;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Walks the program depth first from the sinks and describes every operator once.
+	 */
+	private static final class Describer {
+		
+		private final StringBuilder bld = new StringBuilder(1024);
+		
+		private final Map<Operator<?>, Integer> ids = new IdentityHashMap<Operator<?>, Integer>();
+		
+		private final DataStatistics statistics;
+		
+		private final Map<GenericDataSourceBase<?, ?>, BaseStatistics> sourceStatistics;
+		
+		private Describer(DataStatistics statistics, Map<GenericDataSourceBase<?, ?>, BaseStatistics> sourceStatistics) {
+			this.statistics = statistics;
+			this.sourceStatistics = sourceStatistics;
+		}
+		
+		private int describe(Operator<?> op) {
+			if (op == null) {
+				return -1;
+			}
+			final Integer known = this.ids.get(op);
+			if (known != null) {
+				return known.intValue();
+			}
+			final int id = this.ids.size();
+			this.ids.put(op, id);
+			
+			// first the inputs, then the step functions of iterations, then the broadcast variables
+			final List<Integer> inputs = new ArrayList<Integer>(2);
+			if (op instanceof SingleInputOperator) {
+				inputs.add(describe(((SingleInputOperator<?, ?, ?>) op).getInput()));
+			} else if (op instanceof DualInputOperator) {
+				inputs.add(describe(((DualInputOperator<?, ?, ?, ?>) op).getFirstInput()));
+				inputs.add(describe(((DualInputOperator<?, ?, ?, ?>) op).getSecondInput()));
+			} else if (op instanceof GenericDataSinkBase) {
+				inputs.add(describe(((GenericDataSinkBase<?>) op).getInput()));
+			}
+			
+			if (op instanceof BulkIterationBase) {
+				final BulkIterationBase<?> iteration = (BulkIterationBase<?>) op;
+				inputs.add(describe(iteration.getPartialSolution()));
+				inputs.add(describe(iteration.getNextPartialSolution()));
+				inputs.add(describe(iteration.getTerminationCriterion()));
+			} else if (op instanceof DeltaIterationBase) {
+				final DeltaIterationBase<?, ?> iteration = (DeltaIterationBase<?, ?>) op;
+				inputs.add(describe(iteration.getSolutionSet()));
+				inputs.add(describe(iteration.getWorkset()));
+				inputs.add(describe(iteration.getSolutionSetDelta()));
+				inputs.add(describe(iteration.getNextWorkset()));
+			}
+			
+			final List<String> broadcastVariables = new ArrayList<String>();
+			if (op instanceof AbstractUdfOperator) {
+				for (Map.Entry<String, Operator<?>> bc :
+						new TreeMap<String, Operator<?>>(((AbstractUdfOperator<?, ?>) op).getBroadcastInputs()).entrySet())
+				{
+					broadcastVariables.add(bc.getKey() + '=' + describe(bc.getValue()));
+				}
+			}
+			
+			// the operator itself
+			final StringBuilder bld = this.bld;
+			bld.append(id).append(": ").append(op.getClass().getName());
+			bld.append(" '").append(op.getName()).append('\'');
+			bld.append(" dop=").append(op.getDegreeOfParallelism());
+			
+			final UserCodeWrapper<?> udf = op.getUserCodeWrapper();
+			if (udf != null) {
+				bld.append(" udf=").append(udf.getUserCodeClass().getName());
+			}
+			if (op.getOperatorInfo() != null) {
+				bld.append(" type=").append(op.getOperatorInfo().getOutputType());
+			}
+			bld.append(" in=").append(inputs).append(" bc=").append(broadcastVariables);
+			
+			if (op instanceof AbstractUdfOperator) {
+				final AbstractUdfOperator<?, ?> udfOp = (AbstractUdfOperator<?, ?>) op;
+				for (int i = 0; i < udfOp.getNumberOfInputs(); i++) {
+					bld.append(" keys").append(i).append('=').append(Arrays.toString(udfOp.getKeyColumns(i)));
+				}
+			}
+			
+			describeHints(op);
+			describeSemanticProperties(op);
+			describeSpecifics(op);
+			
+			bld.append('\n');
+			return id;
+		}
+		
+		private void describeHints(Operator<?> op) {
+			final CompilerHints hints = op.getCompilerHints();
+			if (hints != null) {
+				this.bld.append(" hints=").append(hints.getOutputSize()).append('/').append(hints.getOutputCardinality())
+					.append('/').append(hints.getAvgOutputRecordSize()).append('/').append(hints.getFilterFactor())
+					.append('/').append(hints.getUniqueFields());
+			}
+			
+			final Configuration parameters = op.getParameters();
+			for (String key : HINT_KEYS) {
+				final String value = parameters.getString(key, null);
+				if (value != null) {
+					this.bld.append(' ').append(key).append('=').append(value);
+				}
+			}
+		}
+		
+		private void describeSemanticProperties(Operator<?> op) {
+			if (op instanceof SingleInputOperator) {
+				final SingleInputSemanticProperties props = ((SingleInputOperator<?, ?, ?>) op).getSemanticProperties();
+				if (props != null) {
+					this.bld.append(" sp=").append(props.getReadFields()).append('/').append(props.getWrittenFields());
+					for (int i = 0; i < MAX_DESCRIBED_FIELD; i++) {
+						if (props.getForwardedField(i) != null) {
+							this.bld.append('/').append(i).append("->").append(props.getForwardedField(i));
+						}
+					}
+				}
+			} else if (op instanceof DualInputOperator) {
+				final DualInputSemanticProperties props = ((DualInputOperator<?, ?, ?, ?>) op).getSemanticProperties();
+				if (props != null) {
+					this.bld.append(" sp=").append(props.getReadFields1()).append('/').append(props.getReadFields2())
+						.append('/').append(props.getWrittenFields());
+					for (int i = 0; i < MAX_DESCRIBED_FIELD; i++) {
+						if (props.getForwardedField1(i) != null) {
+							this.bld.append("/1:").append(i).append("->").append(props.getForwardedField1(i));
+						}
+						if (props.getForwardedField2(i) != null) {
+							this.bld.append("/2:").append(i).append("->").append(props.getForwardedField2(i));
+						}
+					}
+				}
+			}
+		}
+		
+		private void describeSpecifics(Operator<?> op) {
+			final StringBuilder bld = this.bld;
+			
+			if (op instanceof GenericDataSourceBase) {
+				final GenericDataSourceBase<?, ?> source = (GenericDataSourceBase<?, ?>) op;
+				if (source.getStatisticsKey() != null) {
+					bld.append(" stats=").append(source.getStatisticsKey());
+				}
+				if (this.statistics != null) {
+					describeStatistics(source);
+				}
+			}
+			else if (op instanceof GenericDataSinkBase) {
+				final GenericDataSinkBase<?> sink = (GenericDataSinkBase<?>) op;
+				bld.append(" order=").append(sink.getPartitionOrdering()).append('/').append(sink.getLocalOrder());
+				if (sink.getDataDistribution() != null) {
+					bld.append(" distribution=").append(sink.getDataDistribution().getClass().getName());
+				}
+			}
+			else if (op instanceof GroupReduceOperatorBase) {
+				final GroupReduceOperatorBase<?, ?, ?> reducer = (GroupReduceOperatorBase<?, ?, ?>) op;
+				bld.append(" combinable=").append(reducer.isCombinable()).append(" order=").append(reducer.getGroupOrder());
+			}
+			else if (op instanceof CoGroupOperatorBase) {
+				final CoGroupOperatorBase<?, ?, ?, ?> coGroup = (CoGroupOperatorBase<?, ?, ?, ?>) op;
+				bld.append(" order=").append(coGroup.getGroupOrderForInputOne()).append('/')
+					.append(coGroup.getGroupOrderForInputTwo());
+			}
+			else if (op instanceof DeltaIterationBase) {
+				final DeltaIterationBase<?, ?> iteration = (DeltaIterationBase<?, ?>) op;
+				bld.append(" solutionSetKeys=").append(Arrays.toString(iteration.getSolutionSetKeyFields()))
+					.append(" dedup=").append(Arrays.toString(iteration.getWorksetDeduplicationKeys()))
+					.append('/').append(iteration.getWorksetMinimumField())
+					.append(" async=").append(iteration.isAsynchronous());
+			}
+		}
+		
+		/**
+		 * Gathers the statistics of the source's input, as the optimizer does, and describes them. Cached statistics
+		 * are revalidated by the input format, which is cheap for file inputs. The gathered statistics are handed to
+		 * the optimizer's estimation, such that the input format is asked only once per compilation.
+		 */
+		private void describeStatistics(GenericDataSourceBase<?, ?> source) {
+			final InputFormat<?, ?> format;
+			try {
+				format = source.getFormatWrapper().getUserCodeObject();
+				final Configuration config = source.getParameters();
+				config.setClassLoader(format.getClass().getClassLoader());
+				format.configure(config);
+			}
+			catch (Throwable t) {
+				// the optimizer reports the problems with the format
+				return;
+			}
+			
+			final String key = source.getStatisticsKey();
+			BaseStatistics stats = key == null ? null : this.statistics.getBaseStatistics(key);
+			try {
+				stats = format.getStatistics(stats);
+			}
+			catch (Throwable t) {
+				stats = null;
+			}
+			if (key != null && stats != null) {
+				this.statistics.cacheBaseStatistics(stats, key);
+			}
+			this.sourceStatistics.put(source, stats);
+			
+			this.bld.append(" input=");
+			describeStatistics(stats);
+			if (this.statistics.getCatalog() != null) {
+				this.bld.append(" observed=");
+				describeStatistics(this.statistics.getObservedStatistics(format, stats));
+			}
+		}
+		
+		private void describeStatistics(BaseStatistics stats) {
+			if (stats != null) {
+				// only the magnitude, such that slowly growing inputs keep their plan
+				this.bld.append('/').append(magnitude(stats.getTotalInputSize()))
+					.append('/').append(magnitude(stats.getNumberOfRecords()))
+					.append('/').append(magnitude((long) stats.getAverageRecordWidth()));
+			}
+		}
+		
+		private static int magnitude(long value) {
+			return value < 0 ? -1 : 64 - Long.numberOfLeadingZeros(value);
+		}
+	}
+}
@@ -168,6 +168,9 @@ public abstract class CostEstimator {
 		case SORTED_REDUCE:
 			// grouping or co-grouping over sorted streams for free
 			
+		case CO_GROUP_INDEXED_FIRST:
+			// the index over the first input is built in memory once, the groups are looked up in it
+			
 		case SORTED_GROUP_COMBINE:
 			// partial grouping is always local and main memory resident. we should add a relative cpu cost at some point
 		
@@ -184,6 +187,11 @@ public abstract class CostEstimator {
 		case HYBRIDHASH_BUILD_SECOND:
 			addHybridHashCosts(secondInput, firstInput, availableMemory, driverCosts);
 			break;
+		case HYBRIDHASH_ADAPTIVE:
+			// the first input is materialized with at most half of the memory, before the hash table is built
+			addArtificialDamCost(firstInput, availableMemory / 2, driverCosts);
+			addHybridHashCosts(firstInput, secondInput, availableMemory, driverCosts);
+			break;
 		case NESTEDLOOP_BLOCKED_OUTER_FIRST:
 			addBlockNestedLoopsCosts(firstInput, secondInput, availableMemory, driverCosts);
 			break;
@@ -19,7 +19,9 @@ import java.util.List;
 import eu.stratosphere.api.common.operators.Ordering;
 import eu.stratosphere.api.common.operators.base.CoGroupOperatorBase;
 import eu.stratosphere.compiler.DataStatistics;
+import eu.stratosphere.compiler.PactCompiler;
 import eu.stratosphere.compiler.operators.CoGroupDescriptor;
+import eu.stratosphere.compiler.operators.CoGroupWithIndexedFirstDescriptor;
 import eu.stratosphere.compiler.operators.CoGroupWithSolutionSetFirstDescriptor;
 import eu.stratosphere.compiler.operators.CoGroupWithSolutionSetSecondDescriptor;
 import eu.stratosphere.compiler.operators.OperatorDescriptorDual;
@@ -84,8 +86,31 @@ public class CoGroupNode extends TwoInputNode {
 		this.possibleProperties.add(op);
 	}
 
+	@Override
+	public void identifyDynamicPath(int costWeight) {
+		super.identifyDynamicPath(costWeight);
+		
+		// the index strategy pays off only if the first input is static and the index can be reused across supersteps.
+		// it does not support secondary orders on the groups
+		final CoGroupOperatorBase<?, ?, ?, ?> cgc = getPactContract();
+		final String localStrategy = cgc.getParameters().getString(PactCompiler.HINT_LOCAL_STRATEGY, null);
+		
+		if (PactCompiler.HINT_LOCAL_STRATEGY_INDEX_FIRST.equals(localStrategy) &&
+				!getFirstPredecessorNode().isOnDynamicPath() && getSecondPredecessorNode().isOnDynamicPath() &&
+				isEmpty(cgc.getGroupOrderForInputOne()) && isEmpty(cgc.getGroupOrderForInputTwo()) &&
+				this.possibleProperties.size() == 1 && this.possibleProperties.get(0).getClass() == CoGroupDescriptor.class)
+		{
+			this.possibleProperties.clear();
+			this.possibleProperties.add(new CoGroupWithIndexedFirstDescriptor(this.keys1, this.keys2));
+		}
+	}
+
 	@Override
 	protected void computeOperatorSpecificDefaultEstimates(DataStatistics statistics) {
 		// for CoGroup, we currently make no reasonable default estimates
 	}
+	
+	private static boolean isEmpty(Ordering ordering) {
+		return ordering == null || ordering.getNumberOfFields() == 0;
+	}
 }
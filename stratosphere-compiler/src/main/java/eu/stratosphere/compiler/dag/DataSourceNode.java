@@ -22,8 +22,10 @@ import eu.stratosphere.api.common.io.FileInputFormat;
 import eu.stratosphere.api.common.io.InputFormat;
 import eu.stratosphere.api.common.io.NonParallelInput;
 import eu.stratosphere.api.common.io.statistics.BaseStatistics;
+import eu.stratosphere.api.common.io.statistics.DataSetStatistics;
 import eu.stratosphere.api.common.operators.base.GenericDataSourceBase;
 import eu.stratosphere.api.common.operators.Operator;
+import eu.stratosphere.api.common.operators.util.FieldSet;
 import eu.stratosphere.compiler.DataStatistics;
 import eu.stratosphere.compiler.PactCompiler;
 import eu.stratosphere.compiler.costs.CostEstimator;
@@ -39,6 +41,12 @@ import eu.stratosphere.util.Visitor;
 public class DataSourceNode extends OptimizerNode {
 	
 	private final boolean sequentialInput;
+	
+	private DataSetStatistics observedStatistics;
+	
+	private BaseStatistics gatheredStatistics;
+	
+	private boolean statisticsGathered;
 
 	/**
 	 * Creates a new DataSourceNode for the given contract.
@@ -107,6 +115,17 @@ public class DataSourceNode extends OptimizerNode {
 
 	@Override
 	public void setInput(Map<Operator<?>, OptimizerNode> contractToNode) {}
+	
+	/**
+	 * Sets the statistics of the input that were already gathered during this compilation, such that the input
+	 * format is not asked for them again when the estimates are computed.
+	 * 
+	 * @param statistics The gathered statistics, or null, if the input format provided none.
+	 */
+	public void setGatheredStatistics(BaseStatistics statistics) {
+		this.gatheredStatistics = statistics;
+		this.statisticsGathered = true;
+	}
 
 	@Override
 	protected void computeOperatorSpecificDefaultEstimates(DataStatistics statistics) {
@@ -134,18 +153,33 @@ public class DataSourceNode extends OptimizerNode {
 			}
 			catch (Throwable t) {}
 			
-			// first of all, get the statistics from the cache
-			final String statisticsKey = getPactContract().getStatisticsKey();
-			final BaseStatistics cachedStatistics = statistics.getBaseStatistics(statisticsKey);
-			
 			BaseStatistics bs = null;
-			try {
-				bs = format.getStatistics(cachedStatistics);
+			if (this.statisticsGathered) {
+				bs = this.gatheredStatistics;
+			} else {
+				// first of all, get the statistics from the cache
+				final String statisticsKey = getPactContract().getStatisticsKey();
+				final BaseStatistics cachedStatistics = statistics.getBaseStatistics(statisticsKey);
+				
+				try {
+					bs = format.getStatistics(cachedStatistics);
+				}
+				catch (Throwable t) {
+					if (PactCompiler.LOG.isWarnEnabled()) {
+						PactCompiler.LOG.warn("Error obtaining statistics from input format: " + t.getMessage(), t);
+					}
+				}
 			}
-			catch (Throwable t) {
-				if (PactCompiler.LOG.isWarnEnabled()) {
-					PactCompiler.LOG.warn("Error obtaining statistics from input format: " + t.getMessage(), t);
+			
+			// statistics that were observed when the data was last written or read are better than the format's
+			// estimates, which are mostly based on samples
+			this.observedStatistics = statistics.getObservedStatistics(format, bs);
+			if (this.observedStatistics != null) {
+				if (PactCompiler.LOG.isDebugEnabled()) {
+					PactCompiler.LOG.debug("Using observed statistics for input '" + inFormatDescription + "': " +
+						this.observedStatistics);
 				}
+				bs = this.observedStatistics;
 			}
 			
 			if (bs != null) {
@@ -167,6 +201,29 @@ public class DataSourceNode extends OptimizerNode {
 		}
 	}
 
+	@Override
+	public long getEstimatedNumDistinctValues(FieldSet fields) {
+		final DataSetStatistics stats = this.observedStatistics;
+		if (stats == null || fields == null || fields.size() == 0) {
+			return -1;
+		}
+		
+		// without correlation information, the combinations of the fields' values are bounded by the
+		// product of the individual fields' distinct values and by the number of distinct records
+		double distinct = 1.0;
+		for (Integer field : fields) {
+			final long fieldDistinct = stats.getNumDistinctValues(field);
+			if (fieldDistinct < 0) {
+				return -1;
+			}
+			distinct *= fieldDistinct;
+		}
+		if (stats.getNumDistinctRecords() >= 0) {
+			distinct = Math.min(distinct, stats.getNumDistinctRecords());
+		}
+		return (long) Math.min(distinct, stats.getNumberOfRecords());
+	}
+
 	@Override
 	public void computeInterestingPropertiesForInputs(CostEstimator estimator) {
 		// no children, so nothing to compute
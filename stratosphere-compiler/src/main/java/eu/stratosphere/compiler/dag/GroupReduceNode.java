@@ -126,7 +126,8 @@ public class GroupReduceNode extends SingleInputNode {
 	
 	@Override
 	protected void computeOperatorSpecificDefaultEstimates(DataStatistics statistics) {
-		// no real estimates possible for a reducer.
+		// we can only estimate the common case of one result record per group
+		computeEstimatesForOneRecordPerKey();
 	}
 	
 	public GroupReduceNode getCombinerUtilityNode() {
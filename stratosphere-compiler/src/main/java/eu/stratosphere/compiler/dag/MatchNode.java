@@ -20,6 +20,7 @@ import eu.stratosphere.api.common.operators.base.JoinOperatorBase;
 import eu.stratosphere.compiler.CompilerException;
 import eu.stratosphere.compiler.DataStatistics;
 import eu.stratosphere.compiler.PactCompiler;
+import eu.stratosphere.compiler.operators.HashJoinAdaptiveProperties;
 import eu.stratosphere.compiler.operators.HashJoinBuildFirstProperties;
 import eu.stratosphere.compiler.operators.HashJoinBuildSecondProperties;
 import eu.stratosphere.compiler.operators.OperatorDescriptorDual;
@@ -75,6 +76,8 @@ public class MatchNode extends TwoInputNode {
 				fixedDriverStrat = new HashJoinBuildFirstProperties(this.keys1, this.keys2);
 			} else if (PactCompiler.HINT_LOCAL_STRATEGY_HASH_BUILD_SECOND.equals(localStrategy)) {
 				fixedDriverStrat = new HashJoinBuildSecondProperties(this.keys1, this.keys2);
+			} else if (PactCompiler.HINT_LOCAL_STRATEGY_HASH_ADAPTIVE.equals(localStrategy)) {
+				fixedDriverStrat = new HashJoinAdaptiveProperties(this.keys1, this.keys2);
 			} else {
 				throw new CompilerException("Invalid local strategy hint for match contract: " + localStrategy);
 			}
@@ -115,6 +118,16 @@ public class MatchNode extends TwoInputNode {
 		long card2 = getSecondPredecessorNode().getEstimatedNumRecords();
 		this.estimatedNumRecords = (card1 < 0 || card2 < 0) ? -1 : Math.max(card1, card2);
 		
+		// with statistics about the keys, assume that the keys of the side with fewer distinct keys are
+		// contained in the other side, and that the records are evenly distributed across the keys
+		if (this.estimatedNumRecords >= 0) {
+			long keys1 = getFirstPredecessorNode().getEstimatedNumDistinctValues(this.keys1);
+			long keys2 = getSecondPredecessorNode().getEstimatedNumDistinctValues(this.keys2);
+			if (keys1 > 0 && keys2 > 0) {
+				this.estimatedNumRecords = (long) (((double) card1) * card2 / Math.max(keys1, keys2));
+			}
+		}
+		
 		if (this.estimatedNumRecords >= 0) {
 			float width1 = getFirstPredecessorNode().getEstimatedAvgWidthPerOutputRecord();
 			float width2 = getSecondPredecessorNode().getEstimatedAvgWidthPerOutputRecord();
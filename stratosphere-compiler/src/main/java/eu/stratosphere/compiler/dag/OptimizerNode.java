@@ -28,6 +28,7 @@ import eu.stratosphere.api.common.operators.Operator;
 import eu.stratosphere.api.common.operators.util.FieldSet;
 import eu.stratosphere.compiler.CompilerException;
 import eu.stratosphere.compiler.DataStatistics;
+import eu.stratosphere.compiler.PactCompiler;
 import eu.stratosphere.compiler.costs.CostEstimator;
 import eu.stratosphere.compiler.dataproperties.InterestingProperties;
 import eu.stratosphere.compiler.dataproperties.RequestedGlobalProperties;
@@ -94,6 +95,8 @@ public abstract class OptimizerNode implements Visitable<OptimizerNode>, Estimat
 	
 	protected List<PlanNode> cachedPlans;	// cache candidates, because the may be accessed repeatedly
 	
+	private String preferredStrategies; // the strategies chosen for this node when the same program was compiled before
+	
 	protected int[][] remappedKeys;
 
 	// ------------------------------------------------------------------------
@@ -386,7 +389,7 @@ public abstract class OptimizerNode implements Visitable<OptimizerNode>, Estimat
 	public Operator<?> getPactContract() {
 		return this.pactContract;
 	}
-
+	
 	/**
 	 * Gets the degree of parallelism for the contract represented by this optimizer node.
 	 * The degree of parallelism denotes how many parallel instances of the user function will be
@@ -547,6 +550,18 @@ public abstract class OptimizerNode implements Visitable<OptimizerNode>, Estimat
 			return -1.0f;
 		}
 	}
+	
+	/**
+	 * Gets the estimated number of distinct combinations of values of the given fields in the output of this node,
+	 * i.e. the number of distinct keys, if the fields are used as a key. Only nodes that know statistics about their
+	 * output, or that forward the fields unchanged from such a node, can estimate this number.
+	 * 
+	 * @param fields The fields to get the number of distinct values for.
+	 * @return The estimated number of distinct values, or -1, if unknown.
+	 */
+	public long getEstimatedNumDistinctValues(FieldSet fields) {
+		return -1;
+	}
 
 	/**
 	 * Checks whether this node has branching output. A node's output is branched, if it has more
@@ -754,6 +769,9 @@ public abstract class OptimizerNode implements Visitable<OptimizerNode>, Estimat
 		if (plans.isEmpty()) {
 			throw new CompilerException("No plan meeting the requirements could be created @ " + this + ". Most likely reason: Too restrictive plan hints.");
 		}
+		if (this.preferredStrategies != null) {
+			retainPreferredStrategies(plans);
+		}
 		// shortcut for the simple case
 		if (plans.size() == 1) {
 			return;
@@ -854,6 +872,34 @@ public abstract class OptimizerNode implements Visitable<OptimizerNode>, Estimat
 		}
 	}
 	
+	/**
+	 * Sets the strategies that were chosen for this node when an equal program was compiled before, as described
+	 * by {@link PlanNode#describeStrategies()}. The pruning keeps only the candidates that made the same choices,
+	 * such that the enumeration follows the previous plan instead of combining all alternatives of the inputs.
+	 * 
+	 * @param strategies The description of the previously chosen strategies, or null, to keep all candidates.
+	 */
+	public void setPreferredStrategies(String strategies) {
+		this.preferredStrategies = strategies;
+	}
+	
+	private void retainPreferredStrategies(List<PlanNode> plans) {
+		final List<PlanNode> preferred = new ArrayList<PlanNode>(1);
+		for (PlanNode candidate : plans) {
+			if (this.preferredStrategies.equals(candidate.describeStrategies())) {
+				preferred.add(candidate);
+			}
+		}
+		
+		// candidates that differ only in their choices below a branching point are left to the regular pruning
+		if (!preferred.isEmpty()) {
+			plans.clear();
+			plans.addAll(preferred);
+		} else if (PactCompiler.LOG.isDebugEnabled()) {
+			PactCompiler.LOG.debug("No candidate of " + this + " matches the previously chosen strategies.");
+		}
+	}
+	
 	protected void prunePlanAlternativesWithCommonBranching(List<PlanNode> plans) {
 		// for each interesting property, which plans are cheapest
 		final RequestedGlobalProperties[] gps = (RequestedGlobalProperties[]) this.intProps.getGlobalProperties().toArray(new RequestedGlobalProperties[this.intProps.getGlobalProperties().size()]);
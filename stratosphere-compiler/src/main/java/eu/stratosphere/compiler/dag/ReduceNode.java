@@ -71,7 +71,8 @@ public class ReduceNode extends SingleInputNode {
 	
 	@Override
 	protected void computeOperatorSpecificDefaultEstimates(DataStatistics statistics) {
-		// no real estimates possible for a reducer.
+		// a reducer produces one record per key
+		computeEstimatesForOneRecordPerKey();
 	}
 	
 	public ReduceNode getCombinerUtilityNode() {
@@ -153,6 +153,38 @@ public abstract class SingleInputNode extends OptimizerNode {
 	}
 	
 
+	@Override
+	public long getEstimatedNumDistinctValues(FieldSet fields) {
+		if (fields == null || fields.size() == 0 || this.inConn == null) {
+			return -1;
+		}
+		for (Integer field : fields) {
+			if (!isFieldConstant(0, field)) {
+				return -1;
+			}
+		}
+		
+		final long distinct = getPredecessorNode().getEstimatedNumDistinctValues(fields);
+		return (distinct < 0 || this.estimatedNumRecords < 0) ? distinct : Math.min(distinct, this.estimatedNumRecords);
+	}
+	
+	/**
+	 * Estimates the output of a node that produces one record per distinct key of its input, using the
+	 * statistics about the key's values in the input, if available.
+	 */
+	protected void computeEstimatesForOneRecordPerKey() {
+		final OptimizerNode pred = getPredecessorNode();
+		final long numKeys = this.keys == null ? -1 : pred.getEstimatedNumDistinctValues(this.keys);
+		if (numKeys >= 0) {
+			this.estimatedNumRecords = numKeys;
+			
+			final float width = pred.getEstimatedAvgWidthPerOutputRecord();
+			if (width > 0) {
+				this.estimatedOutputSize = (long) (width * numKeys);
+			}
+		}
+	}
+
 	@Override
 	public void setInput(Map<Operator<?>, OptimizerNode> contractToNode) throws CompilerException {
 		// see if an internal hint dictates the strategy to use
@@ -0,0 +1,68 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.compiler.operators;
+
+import java.util.Collections;
+import java.util.List;
+
+import eu.stratosphere.api.common.operators.util.FieldList;
+import eu.stratosphere.compiler.dag.TwoInputNode;
+import eu.stratosphere.compiler.dataproperties.LocalProperties;
+import eu.stratosphere.compiler.dataproperties.RequestedLocalProperties;
+import eu.stratosphere.compiler.plan.Channel;
+import eu.stratosphere.compiler.plan.DualInputPlanNode;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+
+/**
+ * Descriptor for a hybrid hash join whose build side is chosen at runtime. The choice is local to each parallel
+ * instance, so the join permits the same partitionings and replications as the other hash join strategies.
+ * <p>
+ * The descriptor is only created for the {@link eu.stratosphere.compiler.PactCompiler#HINT_LOCAL_STRATEGY_HASH_ADAPTIVE}
+ * hint and is never among the strategies that the optimizer enumerates for an unhinted join.
+ */
+public class HashJoinAdaptiveProperties extends AbstractJoinDescriptor {
+	
+	public HashJoinAdaptiveProperties(FieldList keys1, FieldList keys2) {
+		super(keys1, keys2);
+	}
+
+	@Override
+	public DriverStrategy getStrategy() {
+		return DriverStrategy.HYBRIDHASH_ADAPTIVE;
+	}
+	
+	@Override
+	protected List<LocalPropertiesPair> createPossibleLocalProperties() {
+		// all properties are possible
+		return Collections.singletonList(new LocalPropertiesPair(
+			new RequestedLocalProperties(), new RequestedLocalProperties()));
+	}
+	
+	@Override
+	public boolean areCoFulfilled(RequestedLocalProperties requested1, RequestedLocalProperties requested2,
+			LocalProperties produced1, LocalProperties produced2)
+	{
+		return true;
+	}
+
+	@Override
+	public DualInputPlanNode instantiate(Channel in1, Channel in2, TwoInputNode node) {
+		return new DualInputPlanNode(node, "Join("+node.getPactContract().getName()+")", in1, in2, DriverStrategy.HYBRIDHASH_ADAPTIVE, this.keys1, this.keys2);
+	}
+	
+	@Override
+	public LocalProperties computeLocalProperties(LocalProperties in1, LocalProperties in2) {
+		return new LocalProperties();
+	}
+}
@@ -14,6 +14,7 @@
 package eu.stratosphere.compiler.plan;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -337,6 +338,11 @@ public abstract class PlanNode implements Visitable<PlanNode>, DumpableNode<Plan
 		if (broadcastInputs != null) {
 			this.broadcastInputs = broadcastInputs;
 			
+			// the branch map may be shared with the predecessor, so we must not modify it in place
+			if (this.branchPlan != null && !broadcastInputs.isEmpty()) {
+				this.branchPlan = new HashMap<OptimizerNode, PlanNode>(this.branchPlan);
+			}
+			
 			// update the branch map
 			for (NamedChannel nc : broadcastInputs) {
 				PlanNode source = nc.getSource();
@@ -438,6 +444,35 @@ public abstract class PlanNode implements Visitable<PlanNode>, DumpableNode<Plan
 	
 	// --------------------------------------------------------------------------------------------
 	
+	/**
+	 * Describes the strategies that this candidate chose: its driver strategy, degree of parallelism, and for each
+	 * input the ship and local strategies, together with the chosen candidate of the input. Two candidates of nodes
+	 * with the same id and the same description made the same choices, even if they belong to different
+	 * compilations of the same program.
+	 * 
+	 * @return A description of the strategies of this candidate.
+	 */
+	public String describeStrategies() {
+		final StringBuilder bld = new StringBuilder(64);
+		bld.append(this.driverStrategy).append('/').append(this.degreeOfParallelism).append('/')
+			.append(this.subtasksPerInstance);
+		for (Iterator<Channel> inputs = getInputs(); inputs.hasNext();) {
+			describeChannel(bld.append(" in="), inputs.next());
+		}
+		for (NamedChannel c : getBroadcastInputs()) {
+			describeChannel(bld.append(" bc=").append(c.getName()).append(':'), c);
+		}
+		return bld.toString();
+	}
+	
+	private static void describeChannel(StringBuilder bld, Channel channel) {
+		final PlanNode source = channel.getSource();
+		bld.append(source.template.getId()).append(':').append(source.driverStrategy)
+			.append('/').append(channel.getShipStrategy()).append(channel.getShipStrategyKeys())
+			.append(Arrays.toString(channel.getShipStrategySortOrder()))
+			.append('/').append(channel.getLocalStrategy()).append(channel.getLocalStrategyKeys())
+			.append(Arrays.toString(channel.getLocalStrategySortOrder()));
+	}
 
 	@Override
 	public String toString() {
@@ -48,6 +48,10 @@ public class WorksetIterationPlanNode extends DualInputPlanNode implements Itera
 	
 	private TypeComparatorFactory<?> solutionSetComparator;
 	
+	private TypeComparatorFactory<?> worksetDeduplicationComparator;
+	
+	private TypeComparatorFactory<?> worksetDeduplicationOrderComparator;
+	
 	private boolean immediateSolutionSetUpdate;
 	
 	public Object postPassHelper;
@@ -141,6 +145,26 @@ public class WorksetIterationPlanNode extends DualInputPlanNode implements Itera
 	public void setSolutionSetComparator(TypeComparatorFactory<?> solutionSetComparator) {
 		this.solutionSetComparator = solutionSetComparator;
 	}
+	
+	public TypeComparatorFactory<?> getWorksetDeduplicationComparator() {
+		return worksetDeduplicationComparator;
+	}
+	
+	public void setWorksetDeduplicationComparator(TypeComparatorFactory<?> worksetDeduplicationComparator) {
+		this.worksetDeduplicationComparator = worksetDeduplicationComparator;
+	}
+	
+	public TypeComparatorFactory<?> getWorksetDeduplicationOrderComparator() {
+		return worksetDeduplicationOrderComparator;
+	}
+	
+	public void setWorksetDeduplicationOrderComparator(TypeComparatorFactory<?> worksetDeduplicationOrderComparator) {
+		this.worksetDeduplicationOrderComparator = worksetDeduplicationOrderComparator;
+	}
+	
+	public boolean isWorksetDeduplicated() {
+		return getIterationNode().getIterationContract().getWorksetDeduplicationKeys() != null;
+	}
 
 	// --------------------------------------------------------------------------------------------
 	
@@ -153,8 +177,8 @@ public class WorksetIterationPlanNode extends DualInputPlanNode implements Itera
 	}
 	
 	public int getMemoryConsumerWeight() {
-		// solution set index and workset back channel
-		return 2;
+		// solution set index and workset back channel, plus the sort buffer for the workset deduplication
+		return isWorksetDeduplicated() ? 3 : 2;
 	}
 	
 	@Override
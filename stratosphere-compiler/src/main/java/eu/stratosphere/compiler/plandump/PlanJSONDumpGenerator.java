@@ -439,6 +439,9 @@ public class PlanJSONDumpGenerator {
 			case HYBRIDHASH_BUILD_SECOND:
 				locString = "Hybrid Hash (build: " + child2name + ")";
 				break;
+			case HYBRIDHASH_ADAPTIVE:
+				locString = "Adaptive Hybrid Hash (build: chosen at runtime)";
+				break;
 
 			case NESTEDLOOP_BLOCKED_OUTER_FIRST:
 				locString = "Nested Loops (Blocked Outer: " + child1name + ")";
@@ -460,6 +463,9 @@ public class PlanJSONDumpGenerator {
 			case CO_GROUP:
 				locString = "Co-Group";
 				break;
+			case CO_GROUP_INDEXED_FIRST:
+				locString = "Co-Group (index: " + child1name + ")";
+				break;
 
 			default:
 				throw new CompilerException("Unknown local strategy '" + p.getDriverStrategy().name()
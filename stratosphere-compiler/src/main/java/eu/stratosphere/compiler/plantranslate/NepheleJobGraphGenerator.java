@@ -13,14 +13,18 @@
 
 package eu.stratosphere.compiler.plantranslate;
 
+import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -31,6 +35,9 @@ import eu.stratosphere.api.common.aggregators.ConvergenceCriterion;
 import eu.stratosphere.api.common.aggregators.LongSumAggregator;
 import eu.stratosphere.api.common.cache.DistributedCache;
 import eu.stratosphere.api.common.distributions.DataDistribution;
+import eu.stratosphere.api.common.operators.base.BulkIterationBase;
+import eu.stratosphere.api.common.operators.base.DeltaIterationBase;
+import eu.stratosphere.api.common.operators.util.UserCodeWrapper;
 import eu.stratosphere.api.common.typeutils.TypeSerializerFactory;
 import eu.stratosphere.compiler.CompilerException;
 import eu.stratosphere.compiler.dag.TempMode;
@@ -209,6 +216,9 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 		for (Entry<String, String> e: program.getOriginalPactPlan().getCachedFiles()) {
 			DistributedCache.addCachedFile(e.getKey(), e.getValue(), this.jobGraph.getJobConfiguration());
 		}
+
+		// record the managed memory of all tasks, so the scheduler can check it against the per-job quota
+		this.jobGraph.getJobConfiguration().setLong(JobGraph.MANAGED_MEMORY_KEY, getManagedMemory(program));
 		JobGraph graph = this.jobGraph;
 
 		// release all references again
@@ -383,7 +393,13 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 				
 				// store the id of the iterations the step functions participate in
 				IterationDescriptor descr = this.iterations.get(this.currentIteration);
-				new TaskConfig(vertex.getConfiguration()).setIterationId(descr.getId());
+				final TaskConfig stepFunctionConfig = new TaskConfig(vertex.getConfiguration());
+				stepFunctionConfig.setIterationId(descr.getId());
+				
+				// the step functions of a resumed iteration count their supersteps on from the restored snapshot
+				if (isResumingIteration(this.currentIteration)) {
+					stepFunctionConfig.setIsResumingIteration();
+				}
 			}
 	
 			// store in the map
@@ -994,6 +1010,26 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 		return toReturn;
 	}
 	
+	/**
+	 * Computes the managed memory that all subtasks of the given plan use for their drivers, local strategies and
+	 * materialized inputs.
+	 * 
+	 * @param program The optimized plan.
+	 * @return The managed memory of all subtasks in bytes.
+	 */
+	private static long getManagedMemory(OptimizedPlan program) {
+		long total = 0;
+		for (PlanNode node : program.getAllNodes()) {
+			long perSubTask = Math.max(0, node.getMemoryPerSubTask());
+			for (Iterator<Channel> inputs = node.getInputs(); inputs.hasNext();) {
+				final Channel c = inputs.next();
+				perSubTask += Math.max(0, c.getMemoryLocalStrategy()) + Math.max(0, c.getTempMemory());
+			}
+			total += perSubTask * Math.max(1, node.getDegreeOfParallelism());
+		}
+		return total;
+	}
+	
 	private void assignDriverResources(PlanNode node, TaskConfig config) {
 		final long mem = node.getMemoryPerSubTask();
 		if (mem > 0) {
@@ -1177,6 +1213,20 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 		}
 		syncConfig.setNumberOfIterations(maxNumIterations);
 		
+		// let the head and the sync task take snapshots of the partial solution
+		final BulkIterationBase<?> bulkContract = bulkNode.getIterationNode().getIterationContract();
+		if (bulkContract.getCheckpointInterval() > 0) {
+			final String planId = getStepFunctionId(bulkNode);
+			headConfig.setIterationCheckpointing(bulkContract.getCheckpointPath(), planId,
+				bulkContract.getCheckpointInterval());
+			syncConfig.setIterationCheckpointing(bulkContract.getCheckpointPath(), planId,
+				bulkContract.getCheckpointInterval());
+			if (bulkContract.isResumingFromCheckpoint()) {
+				headConfig.setIsResumingIteration();
+				syncConfig.setIsResumingIteration();
+			}
+		}
+		
 		// connect the sync task
 		try {
 			headVertex.connectTo(sync, ChannelType.NETWORK, DistributionPattern.POINTWISE);
@@ -1316,9 +1366,11 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 				throw new CompilerException("Bug: No memory has been assigned to the workset iteration.");
 			}
 			
+			// with a deduplicated workset, the tail gets a third of the memory for its sort buffer
+			final long memPerConsumer = mem / iterNode.getMemoryConsumerWeight();
 			headConfig.setIsWorksetIteration();
-			headConfig.setBackChannelMemory(mem / 2);
-			headConfig.setSolutionSetMemory(mem / 2);
+			headConfig.setBackChannelMemory(memPerConsumer);
+			headConfig.setSolutionSetMemory(memPerConsumer);
 			
 			// set the solution set serializer and comparator
 			headConfig.setSolutionSetSerializer(iterNode.getSolutionSetSerializer());
@@ -1344,6 +1396,26 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 			}
 			syncConfig.setNumberOfIterations(maxNumIterations);
 			
+			// let the head and the sync task take snapshots of the solution set and workset
+			final DeltaIterationBase<?, ?> deltaContract = iterNode.getIterationNode().getIterationContract();
+			if (deltaContract.getCheckpointInterval() > 0) {
+				final String planId = getStepFunctionId(iterNode);
+				headConfig.setIterationCheckpointing(deltaContract.getCheckpointPath(), planId,
+					deltaContract.getCheckpointInterval());
+				syncConfig.setIterationCheckpointing(deltaContract.getCheckpointPath(), planId,
+					deltaContract.getCheckpointInterval());
+				if (deltaContract.isResumingFromCheckpoint()) {
+					headConfig.setIsResumingIteration();
+					syncConfig.setIsResumingIteration();
+				}
+			}
+			
+			// in asynchronous mode, the heads must stop at the last superstep by themselves
+			if (deltaContract.isAsynchronous()) {
+				headConfig.setIsAsynchronousIteration();
+				headConfig.setNumberOfIterations(maxNumIterations);
+			}
+			
 			// connect the sync task
 			try {
 				headVertex.connectTo(sync, ChannelType.NETWORK, DistributionPattern.POINTWISE);
@@ -1387,6 +1459,14 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 				worksetTailConfig.setIsWorksetIteration();
 				worksetTailConfig.setIsWorksetUpdate();
 				
+				if (iterNode.isWorksetDeduplicated()) {
+					worksetTailConfig.setWorksetDeduplicationComparator(iterNode.getWorksetDeduplicationComparator());
+					if (iterNode.getWorksetDeduplicationOrderComparator() != null) {
+						worksetTailConfig.setWorksetDeduplicationOrderComparator(iterNode.getWorksetDeduplicationOrderComparator());
+					}
+					worksetTailConfig.setWorksetDeduplicationMemory(iterNode.getMemoryPerSubTask() / iterNode.getMemoryConsumerWeight());
+				}
+				
 				if (hasWorksetTail) {
 					nextWorksetVertex.setTaskClass(IterationTailPactTask.class);
 					
@@ -1484,6 +1564,63 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 		syncConfig.addIterationAggregator(WorksetEmptyConvergenceCriterion.AGGREGATOR_NAME, LongSumAggregator.class);
 		syncConfig.setConvergenceCriterion(WorksetEmptyConvergenceCriterion.AGGREGATOR_NAME, WorksetEmptyConvergenceCriterion.class);
 	}
+	
+	/**
+	 * Checks whether the iteration takes superstep snapshots and resumes from the latest complete one.
+	 */
+	private static boolean isResumingIteration(IterationPlanNode iterationNode) {
+		if (iterationNode instanceof BulkIterationPlanNode) {
+			final BulkIterationBase<?> contract =
+				((BulkIterationPlanNode) iterationNode).getIterationNode().getIterationContract();
+			return contract.getCheckpointInterval() > 0 && contract.isResumingFromCheckpoint();
+		} else if (iterationNode instanceof WorksetIterationPlanNode) {
+			final DeltaIterationBase<?, ?> contract =
+				((WorksetIterationPlanNode) iterationNode).getIterationNode().getIterationContract();
+			return contract.getCheckpointInterval() > 0 && contract.isResumingFromCheckpoint();
+		} else {
+			throw new CompilerException("Unrecognized iteration type: " + iterationNode.getClass().getName());
+		}
+	}
+	
+	/**
+	 * Computes the identifier that the snapshots of the iteration are tagged with. It is derived from the
+	 * operators, strategies, and degrees of parallelism of the step function, such that the same program compiles
+	 * to the same identifier, but snapshots that another program left in the same directory are not resumed from.
+	 * The identifier does not cover the inputs of the iteration, which is why resuming must be enabled explicitly.
+	 */
+	private static String getStepFunctionId(IterationPlanNode iterationNode) {
+		final PlanNode iteration = (PlanNode) iterationNode;
+		final StringBuilder id = new StringBuilder();
+		id.append(iteration.getNodeName()).append('|').append(iteration.getDegreeOfParallelism());
+		
+		iterationNode.acceptForStepFunction(new Visitor<PlanNode>() {
+			
+			private final Set<PlanNode> visited = new HashSet<PlanNode>();
+			
+			@Override
+			public boolean preVisit(PlanNode node) {
+				if (!this.visited.add(node)) {
+					return false;
+				}
+				id.append('|').append(node.getNodeName()).append(',').append(node.getDriverStrategy())
+					.append(',').append(node.getDegreeOfParallelism());
+				final UserCodeWrapper<?> udf = node.getPactContract().getUserCodeWrapper();
+				if (udf != null) {
+					id.append(',').append(udf.getUserCodeClass().getName());
+				}
+				return true;
+			}
+			
+			@Override
+			public void postVisit(PlanNode node) {}
+		});
+		
+		try {
+			return UUID.nameUUIDFromBytes(id.toString().getBytes("UTF-8")).toString();
+		} catch (UnsupportedEncodingException e) {
+			throw new CompilerException("Bug: UTF-8 is not supported.");
+		}
+	}
 
 	// -------------------------------------------------------------------------------------
 	// Descriptors for tasks / configurations that are chained or merged with other tasks
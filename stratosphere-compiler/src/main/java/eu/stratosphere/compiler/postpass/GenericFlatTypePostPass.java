@@ -13,6 +13,7 @@
 
 package eu.stratosphere.compiler.postpass;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -252,6 +253,22 @@ public abstract class GenericFlatTypePostPass<X, T extends AbstractSchema<X>> im
 					throw new CompilerPostPassException("Could not set up the solution set for workset iteration '" + 
 							optNode.getPactContract().getName() + "'. Missing type information for key field " + ex.getFieldNumber() + '.');
 				}
+				
+				final int[] dedupKeys = optNode.getIterationContract().getWorksetDeduplicationKeys();
+				if (dedupKeys != null) {
+					final int minimumField = optNode.getIterationContract().getWorksetMinimumField();
+					try {
+						iterationNode.setWorksetDeduplicationComparator(createComparator(new FieldList(dedupKeys), null, wss));
+						if (minimumField >= 0) {
+							final int[] orderKeys = Arrays.copyOf(dedupKeys, dedupKeys.length + 1);
+							orderKeys[dedupKeys.length] = minimumField;
+							iterationNode.setWorksetDeduplicationOrderComparator(createComparator(new FieldList(orderKeys), null, wss));
+						}
+					} catch (MissingFieldTypeInfoException ex) {
+						throw new CompilerPostPassException("Could not set up the workset deduplication for workset iteration '" + 
+								optNode.getPactContract().getName() + "'. Missing type information for key field " + ex.getFieldNumber() + '.');
+					}
+				}
 			}
 			
 			// done, we can now propagate our info down
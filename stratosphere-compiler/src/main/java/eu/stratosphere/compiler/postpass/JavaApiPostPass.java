@@ -133,6 +133,22 @@ public class JavaApiPostPass implements OptimizerPostPass {
 			iterationNode.setSolutionSetComparator(createComparator(operator.getOperatorInfo().getFirstInputType(),
 					iterationNode.getSolutionSetKeyFields(), getSortOrders(iterationNode.getSolutionSetKeyFields(), null)));
 			
+			// the comparators to deduplicate the workset, where the order comparator adds the field to minimize
+			if (operator.getWorksetDeduplicationKeys() != null) {
+				final int[] keys = operator.getWorksetDeduplicationKeys();
+				final FieldList keyFields = new FieldList(keys);
+				iterationNode.setWorksetDeduplicationComparator(createComparator(operator.getOperatorInfo().getSecondInputType(),
+						keyFields, getSortOrders(keyFields, null)));
+				
+				if (operator.getWorksetMinimumField() >= 0) {
+					final int[] orderKeys = Arrays.copyOf(keys, keys.length + 1);
+					orderKeys[keys.length] = operator.getWorksetMinimumField();
+					final FieldList orderFields = new FieldList(orderKeys);
+					iterationNode.setWorksetDeduplicationOrderComparator(createComparator(operator.getOperatorInfo().getSecondInputType(),
+							orderFields, getSortOrders(orderFields, null)));
+				}
+			}
+			
 			// traverse the inputs
 			traverseChannel(iterationNode.getInput1());
 			traverseChannel(iterationNode.getInput2());
@@ -0,0 +1,90 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.java.record.operators.FileDataSink;
+import eu.stratosphere.api.java.record.operators.FileDataSource;
+import eu.stratosphere.api.java.record.operators.JoinOperator;
+import eu.stratosphere.compiler.PactCompiler;
+import eu.stratosphere.compiler.plan.DualInputPlanNode;
+import eu.stratosphere.compiler.plan.OptimizedPlan;
+import eu.stratosphere.compiler.plantranslate.NepheleJobGraphGenerator;
+import eu.stratosphere.pact.compiler.util.DummyInputFormat;
+import eu.stratosphere.pact.compiler.util.DummyMatchStub;
+import eu.stratosphere.pact.compiler.util.DummyOutputFormat;
+import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.types.IntValue;
+
+/**
+ * Tests that the adaptive hash join strategy is chosen when hinted, and that it permits all shipping strategies of
+ * the other hash joins.
+ */
+@SuppressWarnings("serial")
+public class AdaptiveJoinCompilationTest extends CompilerTestBase {
+
+	@Test
+	public void testAdaptiveHashJoinBroadcastsSmallInput() {
+		// a tiny first input is broadcast, the runtime still decides which side builds the hash table
+		DualInputPlanNode joinNode = compileAdaptiveJoin(1024, 100l * 1024 * 1024 * 1024);
+		
+		assertEquals(DriverStrategy.HYBRIDHASH_ADAPTIVE, joinNode.getDriverStrategy());
+		assertEquals(ShipStrategyType.BROADCAST, joinNode.getInput1().getShipStrategy());
+		assertEquals(ShipStrategyType.FORWARD, joinNode.getInput2().getShipStrategy());
+	}
+	
+	@Test
+	public void testAdaptiveHashJoinRepartitionsLargeInputs() {
+		DualInputPlanNode joinNode = compileAdaptiveJoin(100l * 1024 * 1024 * 1024, 100l * 1024 * 1024 * 1024);
+		
+		assertEquals(DriverStrategy.HYBRIDHASH_ADAPTIVE, joinNode.getDriverStrategy());
+		assertEquals(ShipStrategyType.PARTITION_HASH, joinNode.getInput1().getShipStrategy());
+		assertEquals(ShipStrategyType.PARTITION_HASH, joinNode.getInput2().getShipStrategy());
+	}
+	
+	private DualInputPlanNode compileAdaptiveJoin(long size1, long size2) {
+		try {
+			FileDataSource source1 = new FileDataSource(new DummyInputFormat(), IN_FILE, "Source 1");
+			FileDataSource source2 = new FileDataSource(new DummyInputFormat(), IN_FILE, "Source 2");
+			
+			JoinOperator join = JoinOperator.builder(new DummyMatchStub(), IntValue.class, 0, 0)
+				.input1(source1).input2(source2).name("Join").build();
+			join.setParameter(PactCompiler.HINT_LOCAL_STRATEGY, PactCompiler.HINT_LOCAL_STRATEGY_HASH_ADAPTIVE);
+			
+			FileDataSink sink = new FileDataSink(new DummyOutputFormat(), OUT_FILE, join, "Sink");
+			
+			Plan plan = new Plan(sink, "Adaptive Join Test");
+			plan.setDefaultParallelism(DEFAULT_PARALLELISM);
+			
+			setSourceStatistics(source1, size1, 16f);
+			setSourceStatistics(source2, size2, 16f);
+			
+			OptimizedPlan oPlan = compileWithStats(plan);
+			new NepheleJobGraphGenerator().compileJobGraph(oPlan);
+			
+			return getOptimizerPlanNodeResolver(oPlan).getNode("Join");
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+			return null;
+		}
+	}
+}
@@ -0,0 +1,319 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.compiler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.common.io.FieldPredicate;
+import eu.stratosphere.api.common.io.FieldPredicate.Comparison;
+import eu.stratosphere.api.common.io.GenericInputFormat;
+import eu.stratosphere.api.common.io.PushDownInputFormat;
+import eu.stratosphere.api.common.operators.Operator;
+import eu.stratosphere.api.common.operators.base.GenericDataSourceBase;
+import eu.stratosphere.api.java.DataSet;
+import eu.stratosphere.api.java.ExecutionEnvironment;
+import eu.stratosphere.api.java.functions.FieldComparisonFilter;
+import eu.stratosphere.api.java.functions.FilterFunction;
+import eu.stratosphere.api.java.io.CsvInputFormat;
+import eu.stratosphere.api.java.record.functions.FieldProjection;
+import eu.stratosphere.api.java.record.operators.FileDataSink;
+import eu.stratosphere.api.java.record.operators.GenericDataSource;
+import eu.stratosphere.api.java.record.operators.MapOperator;
+import eu.stratosphere.api.java.tuple.Tuple3;
+import eu.stratosphere.compiler.plan.OptimizedPlan;
+import eu.stratosphere.compiler.plan.SingleInputPlanNode;
+import eu.stratosphere.compiler.plan.SinkPlanNode;
+import eu.stratosphere.compiler.plan.SourcePlanNode;
+import eu.stratosphere.pact.compiler.util.DummyOutputFormat;
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.Record;
+import eu.stratosphere.types.TypeInformation;
+import eu.stratosphere.util.Visitor;
+
+/**
+ * Tests that projections and field comparison filters are pushed into the input formats of their data sources.
+ */
+@SuppressWarnings("serial")
+public class InputFormatPushDownTest extends CompilerTestBase {
+	
+	@Test
+	public void testPushFilterAndProjectionIntoCsvSource() {
+		try {
+			ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+			env.setDegreeOfParallelism(DEFAULT_PARALLELISM);
+			
+			env.readCsvFile(IN_FILE).types(Integer.class, String.class, Double.class).name("source")
+				.filter(new FieldComparisonFilter<Tuple3<Integer, String, Double>>(2, Comparison.GREATER, 0.5)).name("filter")
+				.project(2, 0).types(Double.class, Integer.class).name("projection")
+				.print().name("sink");
+			
+			Plan p = env.createProgramPlan();
+			OptimizedPlan op = compileNoStats(p);
+			OptimizerPlanNodeResolver resolver = getOptimizerPlanNodeResolver(op);
+			
+			SourcePlanNode sourceNode = resolver.getNode("source");
+			SinkPlanNode sinkNode = resolver.getNode("sink");
+			
+			// the filter and the projection are gone
+			assertEquals(sourceNode, sinkNode.getInput().getSource());
+			assertEquals(2, op.getAllNodes().size());
+			
+			// the source produces the type of the projection
+			GenericDataSourceBase<?, ?> source = sourceNode.getDataSourceNode().getPactContract();
+			TypeInformation<?> type = source.getOperatorInfo().getOutputType();
+			assertEquals(2, type.getArity());
+			
+			// the format skips the string field
+			CsvInputFormat<?> format = (CsvInputFormat<?>) source.getFormatWrapper().getUserCodeObject();
+			assertArrayEquals(new Class<?>[] { Integer.class, null, Double.class }, format.getFieldTypes());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testRegularFilterIsNotPushed() {
+		try {
+			ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+			env.setDegreeOfParallelism(DEFAULT_PARALLELISM);
+			
+			env.readCsvFile(IN_FILE).types(Integer.class, String.class, Double.class).name("source")
+				.filter(new FilterFunction<Tuple3<Integer, String, Double>>() {
+					@Override
+					public boolean filter(Tuple3<Integer, String, Double> value) {
+						return value.f0 > 10;
+					}
+				}).name("filter")
+				.print().name("sink");
+			
+			Plan p = env.createProgramPlan();
+			OptimizedPlan op = compileNoStats(p);
+			OptimizerPlanNodeResolver resolver = getOptimizerPlanNodeResolver(op);
+			
+			SourcePlanNode sourceNode = resolver.getNode("source");
+			SingleInputPlanNode filterNode = resolver.getNode("filter");
+			assertEquals(sourceNode, filterNode.getInput().getSource());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testSharedSourceIsNotRestricted() {
+		try {
+			ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+			env.setDegreeOfParallelism(DEFAULT_PARALLELISM);
+			
+			DataSet<Tuple3<Integer, String, Double>> input = 
+				env.readCsvFile(IN_FILE).types(Integer.class, String.class, Double.class).name("source");
+			
+			input.project(0).types(Integer.class).name("projection").print().name("sink1");
+			input.print().name("sink2");
+			
+			Plan p = env.createProgramPlan();
+			OptimizedPlan op = compileNoStats(p);
+			OptimizerPlanNodeResolver resolver = getOptimizerPlanNodeResolver(op);
+			
+			SourcePlanNode sourceNode = resolver.getNode("source");
+			SingleInputPlanNode projectionNode = resolver.getNode("projection");
+			assertEquals(sourceNode, projectionNode.getInput().getSource());
+			
+			CsvInputFormat<?> format = (CsvInputFormat<?>) sourceNode.getDataSourceNode().getPactContract()
+				.getFormatWrapper().getUserCodeObject();
+			assertTrue(format.getFieldTypes().length == 3 && format.getFieldTypes()[1] == String.class);
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testProgramIsNotModified() {
+		try {
+			ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+			env.setDegreeOfParallelism(DEFAULT_PARALLELISM);
+			
+			env.readCsvFile(IN_FILE).types(Integer.class, String.class, Double.class).name("source")
+				.filter(new FieldComparisonFilter<Tuple3<Integer, String, Double>>(2, Comparison.GREATER, 0.5)).name("filter")
+				.project(2, 0).types(Double.class, Integer.class).name("projection")
+				.print().name("sink");
+			
+			Plan p = env.createProgramPlan();
+			GenericDataSourceBase<?, ?> original = getSource(p);
+			original.setStatisticsKey("input");
+			original.getCompilerHints().setOutputCardinality(1000);
+			
+			OptimizedPlan op = compileNoStats(p);
+			OptimizerPlanNodeResolver resolver = getOptimizerPlanNodeResolver(op);
+			GenericDataSourceBase<?, ?> source = resolver.<SourcePlanNode>getNode("source").getDataSourceNode().getPactContract();
+			
+			// the program still contains the original source with the unrestricted format
+			assertTrue(original != source);
+			assertTrue(original == getSource(p));
+			CsvInputFormat<?> format = (CsvInputFormat<?>) original.getFormatWrapper().getUserCodeObject();
+			assertArrayEquals(new Class<?>[] { Integer.class, String.class, Double.class }, format.getFieldTypes());
+			assertEquals(3, original.getOperatorInfo().getOutputType().getArity());
+			
+			// the substitute keeps the statistics key and the hints
+			assertEquals("input", source.getStatisticsKey());
+			assertEquals(1000, source.getCompilerHints().getOutputCardinality());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testPushRecordFilterAndProjectionIntoSource() {
+		try {
+			GenericDataSource<RestrictableRecordFormat> source =
+				new GenericDataSource<RestrictableRecordFormat>(new RestrictableRecordFormat(), "source");
+			MapOperator filter = MapOperator.builder(new eu.stratosphere.api.java.record.functions.FieldComparisonFilter(
+				2, IntValue.class, Comparison.GREATER, 10)).input(source).name("filter").build();
+			MapOperator projection = MapOperator.builder(new FieldProjection(2, 0)).input(filter).name("projection").build();
+			FileDataSink sink = new FileDataSink(new DummyOutputFormat(), OUT_FILE, projection, "sink");
+			
+			Plan p = new Plan(sink);
+			p.setDefaultParallelism(DEFAULT_PARALLELISM);
+			
+			OptimizedPlan op = compileNoStats(p);
+			OptimizerPlanNodeResolver resolver = getOptimizerPlanNodeResolver(op);
+			
+			SourcePlanNode sourceNode = resolver.getNode("source");
+			SinkPlanNode sinkNode = resolver.getNode("sink");
+			
+			// the filter and the projection are gone
+			assertEquals(sourceNode, sinkNode.getInput().getSource());
+			assertEquals(2, op.getAllNodes().size());
+			
+			// the format received the predicate and the projection
+			RestrictableRecordFormat format = (RestrictableRecordFormat) sourceNode.getDataSourceNode().getPactContract()
+				.getFormatWrapper().getUserCodeObject();
+			assertEquals(1, format.predicates.size());
+			assertEquals(2, format.predicates.get(0).getField());
+			assertEquals(Comparison.GREATER, format.predicates.get(0).getComparison());
+			assertArrayEquals(new int[] { 2, 0 }, format.projection);
+			
+			// the program's format is left unchanged
+			assertTrue(source.getFormatWrapper().getUserCodeObject().predicates.isEmpty());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testRecordFunctionGivenAsClassIsNotPushed() {
+		try {
+			GenericDataSource<RestrictableRecordFormat> source =
+				new GenericDataSource<RestrictableRecordFormat>(new RestrictableRecordFormat(), "source");
+			MapOperator projection = MapOperator.builder(FirstFieldProjection.class).input(source).name("projection").build();
+			FileDataSink sink = new FileDataSink(new DummyOutputFormat(), OUT_FILE, projection, "sink");
+			
+			Plan p = new Plan(sink);
+			p.setDefaultParallelism(DEFAULT_PARALLELISM);
+			
+			OptimizedPlan op = compileNoStats(p);
+			OptimizerPlanNodeResolver resolver = getOptimizerPlanNodeResolver(op);
+			
+			SourcePlanNode sourceNode = resolver.getNode("source");
+			SingleInputPlanNode projectionNode = resolver.getNode("projection");
+			assertEquals(sourceNode, projectionNode.getInput().getSource());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	private static GenericDataSourceBase<?, ?> getSource(Plan p) {
+		final GenericDataSourceBase<?, ?>[] source = new GenericDataSourceBase<?, ?>[1];
+		p.accept(new Visitor<Operator<?>>() {
+			@Override
+			public boolean preVisit(Operator<?> visitable) {
+				if (visitable instanceof GenericDataSourceBase) {
+					source[0] = (GenericDataSourceBase<?, ?>) visitable;
+				}
+				return true;
+			}
+			
+			@Override
+			public void postVisit(Operator<?> visitable) {}
+		});
+		return source[0];
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	public static final class FirstFieldProjection extends FieldProjection {
+		
+		public FirstFieldProjection() {
+			super(0);
+		}
+	}
+	
+	/**
+	 * A Record format that accepts every pushed-down projection and predicate.
+	 */
+	public static final class RestrictableRecordFormat extends GenericInputFormat<Record> implements PushDownInputFormat {
+		
+		private final List<FieldPredicate> predicates = new ArrayList<FieldPredicate>();
+		
+		private int[] projection;
+		
+		@Override
+		public boolean pushDownProjection(int[] fields) {
+			this.projection = fields;
+			return true;
+		}
+		
+		@Override
+		public boolean pushDownFilter(FieldPredicate predicate) {
+			this.predicates.add(predicate);
+			return true;
+		}
+		
+		@Override
+		public boolean hasPushedDownOperations() {
+			return this.projection != null || !this.predicates.isEmpty();
+		}
+		
+		@Override
+		public boolean reachedEnd() throws IOException {
+			return true;
+		}
+		
+		@Override
+		public Record nextRecord(Record reuse) throws IOException {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.java.record.operators.FileDataSink;
+import eu.stratosphere.api.java.record.operators.FileDataSource;
+import eu.stratosphere.api.java.record.operators.JoinOperator;
+import eu.stratosphere.api.java.record.operators.ReduceOperator;
+import eu.stratosphere.compiler.PactCompiler;
+import eu.stratosphere.compiler.plan.DualInputPlanNode;
+import eu.stratosphere.compiler.plan.OptimizedPlan;
+import eu.stratosphere.compiler.plan.SingleInputPlanNode;
+import eu.stratosphere.pact.compiler.util.DummyInputFormat;
+import eu.stratosphere.pact.compiler.util.DummyMatchStub;
+import eu.stratosphere.pact.compiler.util.DummyOutputFormat;
+import eu.stratosphere.pact.compiler.util.IdentityReduce;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.pact.runtime.task.util.LocalStrategy;
+import eu.stratosphere.types.IntValue;
+
+/**
+ * Tests that the memory is distributed among the memory consumers according to their estimated demand.
+ */
+@SuppressWarnings("serial")
+public class MemoryAssignmentTest extends CompilerTestBase {
+
+	/**
+	 * Source (small) --\
+	 *                   Join -> Reduce -> Sink
+	 * Source (large) --/
+	 */
+	@Test
+	public void testSmallHashTableGetsLessMemoryThanLargeSort() {
+		try {
+			FileDataSource small = new FileDataSource(new DummyInputFormat(), IN_FILE, "Small Source");
+			FileDataSource large = new FileDataSource(new DummyInputFormat(), IN_FILE, "Large Source");
+			
+			JoinOperator join = JoinOperator.builder(new DummyMatchStub(), IntValue.class, 0, 0)
+				.input1(small).input2(large).name("Join").build();
+			join.setParameter(PactCompiler.HINT_LOCAL_STRATEGY, PactCompiler.HINT_LOCAL_STRATEGY_HASH_BUILD_FIRST);
+			
+			ReduceOperator reduce = ReduceOperator.builder(new IdentityReduce(), IntValue.class, 1)
+				.input(join).name("Reduce").build();
+			
+			FileDataSink sink = new FileDataSink(new DummyOutputFormat(), OUT_FILE, reduce, "Sink");
+			
+			Plan plan = new Plan(sink, "Memory Assignment Test");
+			plan.setDefaultParallelism(DEFAULT_PARALLELISM);
+			
+			setSourceStatistics(small, 1024 * 1024, 16f);
+			setSourceStatistics(large, 100l * 1024 * 1024 * 1024, 16f);
+			
+			OptimizedPlan oPlan = compileWithStats(plan);
+			OptimizerPlanNodeResolver resolver = getOptimizerPlanNodeResolver(oPlan);
+			
+			DualInputPlanNode joinNode = resolver.getNode("Join");
+			SingleInputPlanNode reduceNode = resolver.getNode("Reduce");
+			
+			assertEquals(DriverStrategy.HYBRIDHASH_BUILD_FIRST, joinNode.getDriverStrategy());
+			assertEquals(LocalStrategy.SORT, reduceNode.getInput().getLocalStrategy());
+			
+			final long joinMemory = joinNode.getMemoryPerSubTask();
+			final long sortMemory = reduceNode.getInput().getMemoryLocalStrategy();
+			
+			// the hash table for the small input needs little memory, the sort gets the remaining memory
+			assertTrue(joinMemory > 0);
+			assertTrue(joinMemory < sortMemory);
+			
+			// no memory is lost in the distribution
+			final long total = (joinMemory + sortMemory) * joinNode.getSubtasksPerInstance();
+			final long expected = this.instanceType.getHardwareDescription().getSizeOfFreeMemory() * 96 / 100;
+			assertTrue(total <= expected);
+			assertTrue(total > expected * 99 / 100);
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testEqualDistributionWithoutEstimates() {
+		try {
+			FileDataSource source1 = new FileDataSource(new DummyInputFormat(), IN_FILE, "Source 1");
+			FileDataSource source2 = new FileDataSource(new DummyInputFormat(), IN_FILE, "Source 2");
+			
+			JoinOperator join = JoinOperator.builder(new DummyMatchStub(), IntValue.class, 0, 0)
+				.input1(source1).input2(source2).name("Join").build();
+			
+			ReduceOperator reduce = ReduceOperator.builder(new IdentityReduce(), IntValue.class, 0)
+				.input(join).name("Reduce").build();
+			
+			FileDataSink sink = new FileDataSink(new DummyOutputFormat(), OUT_FILE, reduce, "Sink");
+			
+			Plan plan = new Plan(sink, "Memory Assignment Test");
+			plan.setDefaultParallelism(DEFAULT_PARALLELISM);
+			
+			OptimizedPlan oPlan = compileNoStats(plan);
+			OptimizerPlanNodeResolver resolver = getOptimizerPlanNodeResolver(oPlan);
+			
+			SingleInputPlanNode reduceNode = resolver.getNode("Reduce");
+			DualInputPlanNode joinNode = resolver.getNode("Join");
+			
+			final long sortMemory = reduceNode.getInput().getMemoryLocalStrategy();
+			assertTrue(sortMemory > 0);
+			
+			if (joinNode.getDriverStrategy().isMaterializing()) {
+				assertEquals(sortMemory, joinNode.getMemoryPerSubTask());
+			}
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,167 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.UUID;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.common.io.FileInputFormat.FileBaseStatistics;
+import eu.stratosphere.api.common.io.statistics.StatisticsCatalog;
+import eu.stratosphere.api.common.io.statistics.StatisticsCollector;
+import eu.stratosphere.api.java.record.operators.FileDataSink;
+import eu.stratosphere.api.java.record.operators.FileDataSource;
+import eu.stratosphere.api.java.record.operators.JoinOperator;
+import eu.stratosphere.api.java.record.operators.ReduceOperator;
+import eu.stratosphere.compiler.plan.DualInputPlanNode;
+import eu.stratosphere.compiler.plan.OptimizedPlan;
+import eu.stratosphere.compiler.plan.SingleInputPlanNode;
+import eu.stratosphere.compiler.plan.SourcePlanNode;
+import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.pact.compiler.util.DummyInputFormat;
+import eu.stratosphere.pact.compiler.util.DummyMatchStub;
+import eu.stratosphere.pact.compiler.util.DummyOutputFormat;
+import eu.stratosphere.pact.compiler.util.IdentityReduce;
+import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.Record;
+
+/**
+ * Tests that the optimizer bases its estimates on the statistics that were observed for the inputs and recorded
+ * in the statistics catalog.
+ */
+@SuppressWarnings("serial")
+public class ObservedStatisticsTest extends CompilerTestBase {
+	
+	private static final String BIG_INPUT = "file:/observed/big";
+	
+	private static final String SMALL_INPUT = "file:/observed/small";
+	
+	private transient File catalogDir;
+	
+	private void createCatalog() throws IOException {
+		this.catalogDir = new File(System.getProperty("java.io.tmpdir"), "observed-statistics-" + UUID.randomUUID());
+		final StatisticsCatalog catalog = new StatisticsCatalog(new Path(this.catalogDir.toURI().toString()));
+		
+		// one million records of 100 bytes with 1000 distinct keys
+		catalog.write(StatisticsCatalog.getDataSetId(new Path(BIG_INPUT)), "run", 0, 1,
+			collect(1000000, 1000, 100 * 1000000L));
+		// one thousand records of 100 bytes with 500 distinct keys
+		catalog.write(StatisticsCatalog.getDataSetId(new Path(SMALL_INPUT)), "run", 0, 1,
+			collect(1000, 500, 100 * 1000L));
+		
+		this.dataStats.setCatalog(catalog);
+	}
+	
+	@After
+	public void deleteCatalog() {
+		if (this.catalogDir != null) {
+			for (File dataSetDir : this.catalogDir.listFiles()) {
+				for (File file : dataSetDir.listFiles()) {
+					file.delete();
+				}
+				dataSetDir.delete();
+			}
+			this.catalogDir.delete();
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	
+	@Test
+	public void testEstimatesFromObservedStatistics() {
+		try {
+			createCatalog();
+			
+			FileDataSource big = new FileDataSource(DummyInputFormat.class, BIG_INPUT, "Big");
+			FileDataSource small = new FileDataSource(DummyInputFormat.class, SMALL_INPUT, "Small");
+			
+			ReduceOperator reduce = ReduceOperator.builder(IdentityReduce.class, IntValue.class, 0)
+				.input(big).name("Reduce").build();
+			JoinOperator join = JoinOperator.builder(DummyMatchStub.class, IntValue.class, 0, 0)
+				.input1(big).input2(small).name("Join").build();
+			
+			Plan plan = new Plan(new FileDataSink(DummyOutputFormat.class, OUT_FILE, reduce, "Reduce Sink"));
+			plan.addDataSink(new FileDataSink(DummyOutputFormat.class, OUT_FILE, join, "Join Sink"));
+			plan.setDefaultParallelism(DEFAULT_PARALLELISM);
+			
+			OptimizedPlan oPlan = compileWithStats(plan);
+			OptimizerPlanNodeResolver resolver = getOptimizerPlanNodeResolver(oPlan);
+			
+			SourcePlanNode bigNode = resolver.getNode("Big");
+			Assert.assertEquals(1000000, bigNode.getOptimizerNode().getEstimatedNumRecords());
+			Assert.assertEquals(100 * 1000000L, bigNode.getOptimizerNode().getEstimatedOutputSize());
+			
+			// one record per key
+			SingleInputPlanNode reduceNode = resolver.getNode("Reduce");
+			Assert.assertEquals(1000, reduceNode.getOptimizerNode().getEstimatedNumRecords());
+			
+			// the 500 keys of the small side find 1000 records each on the big side and have two records each
+			DualInputPlanNode joinNode = resolver.getNode("Join");
+			Assert.assertEquals(1000000, joinNode.getOptimizerNode().getEstimatedNumRecords());
+			
+			// the small side is broadcast
+			Assert.assertEquals(ShipStrategyType.FORWARD, joinNode.getInput1().getShipStrategy());
+			Assert.assertEquals(ShipStrategyType.BROADCAST, joinNode.getInput2().getShipStrategy());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testOutdatedStatisticsAreIgnored() {
+		try {
+			createCatalog();
+			
+			FileDataSource big = new FileDataSource(DummyInputFormat.class, BIG_INPUT, "Big");
+			// the input was modified after the statistics were recorded
+			setSourceStatistics(big, new FileBaseStatistics(Long.MAX_VALUE, 1000, 10.0f));
+			
+			Plan plan = new Plan(new FileDataSink(DummyOutputFormat.class, OUT_FILE, big, "Sink"));
+			plan.setDefaultParallelism(DEFAULT_PARALLELISM);
+			
+			SourcePlanNode bigNode = getOptimizerPlanNodeResolver(compileWithStats(plan)).getNode("Big");
+			Assert.assertEquals(100, bigNode.getOptimizerNode().getEstimatedNumRecords());
+			Assert.assertEquals(1000, bigNode.getOptimizerNode().getEstimatedOutputSize());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	
+	private static StatisticsCollector collect(int numRecords, int numKeys, long numBytes) {
+		StatisticsCollector collector = new StatisticsCollector();
+		Record record = new Record(2);
+		IntValue key = new IntValue();
+		IntValue value = new IntValue();
+		for (int i = 0; i < numRecords; i++) {
+			key.setValue(i % numKeys);
+			value.setValue(i);
+			record.setField(0, key);
+			record.setField(1, value);
+			collector.collect(record);
+		}
+		collector.addBytes(numBytes);
+		return collector;
+	}
+}
@@ -0,0 +1,154 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.compiler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.java.record.operators.CoGroupOperator;
+import eu.stratosphere.api.java.record.operators.FileDataSink;
+import eu.stratosphere.api.java.record.operators.FileDataSource;
+import eu.stratosphere.api.java.record.operators.JoinOperator;
+import eu.stratosphere.api.java.record.operators.MapOperator;
+import eu.stratosphere.api.java.record.operators.ReduceOperator;
+import eu.stratosphere.compiler.plan.Channel;
+import eu.stratosphere.compiler.plan.OptimizedPlan;
+import eu.stratosphere.compiler.plan.PlanNode;
+import eu.stratosphere.compiler.plan.SinkPlanNode;
+import eu.stratosphere.compiler.plantranslate.NepheleJobGraphGenerator;
+import eu.stratosphere.pact.compiler.util.DummyCoGroupStub;
+import eu.stratosphere.pact.compiler.util.DummyInputFormat;
+import eu.stratosphere.pact.compiler.util.DummyMatchStub;
+import eu.stratosphere.pact.compiler.util.DummyOutputFormat;
+import eu.stratosphere.pact.compiler.util.IdentityMap;
+import eu.stratosphere.pact.compiler.util.IdentityReduce;
+import eu.stratosphere.types.IntValue;
+
+/**
+ * Checks that enumerating the independent parts of a plan in parallel yields the same plan as the
+ * sequential enumeration.
+ */
+@SuppressWarnings("serial")
+public class ParallelPlanEnumerationTest extends CompilerTestBase {
+	
+	@Test
+	public void testParallelEnumerationEqualsSequentialEnumeration() {
+		try {
+			for (int numThreads : new int[] { 2, 4, 8 }) {
+				this.withStatsCompiler.setNumEnumerationThreads(1);
+				OptimizedPlan sequential = compileWithStats(createBranchingPlan(12));
+				
+				this.withStatsCompiler.setNumEnumerationThreads(numThreads);
+				OptimizedPlan parallel = compileWithStats(createBranchingPlan(12));
+				
+				Assert.assertEquals(describe(sequential), describe(parallel));
+				Assert.assertEquals(totalCosts(sequential), totalCosts(parallel));
+				
+				new NepheleJobGraphGenerator().compileJobGraph(parallel);
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testRepeatedParallelEnumeration() {
+		try {
+			this.withStatsCompiler.setNumEnumerationThreads(1);
+			final Map<String, String> expected = describe(compileWithStats(createBranchingPlan(20)));
+			
+			this.withStatsCompiler.setNumEnumerationThreads(8);
+			for (int i = 0; i < 10; i++) {
+				Assert.assertEquals(expected, describe(compileWithStats(createBranchingPlan(20))));
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testSequentialEnumerationByDefault() {
+		Assert.assertEquals(1, this.noStatsCompiler.getNumEnumerationThreads());
+	}
+	
+	// ------------------------------------------------------------------------
+	
+	/**
+	 * Creates a plan over the given number of sources, where every source is mapped, reduced, joined with the
+	 * reduced neighboring source and co-grouped with its own mapped input again. The mapped and reduced
+	 * data sets branch, and every co-group has its own sink.
+	 */
+	static Plan createBranchingPlan(int numSources) {
+		final List<MapOperator> maps = new ArrayList<MapOperator>();
+		final List<ReduceOperator> reducers = new ArrayList<ReduceOperator>();
+		
+		for (int i = 0; i < numSources; i++) {
+			FileDataSource source = new FileDataSource(DummyInputFormat.class, IN_FILE, "Source " + i);
+			
+			MapOperator map = MapOperator.builder(IdentityMap.class).input(source).name("Map " + i).build();
+			ReduceOperator reduce = ReduceOperator.builder(IdentityReduce.class, IntValue.class, 0)
+				.input(map).name("Reduce " + i).build();
+			
+			maps.add(map);
+			reducers.add(reduce);
+		}
+		
+		final List<FileDataSink> sinks = new ArrayList<FileDataSink>();
+		for (int i = 0; i < numSources; i++) {
+			JoinOperator join = JoinOperator.builder(DummyMatchStub.class, IntValue.class, 0, 0)
+				.input1(reducers.get(i)).input2(reducers.get((i + 1) % numSources)).name("Join " + i).build();
+			CoGroupOperator coGroup = CoGroupOperator.builder(DummyCoGroupStub.class, IntValue.class, 0, 0)
+				.input1(join).input2(maps.get(i)).name("CoGroup " + i).build();
+			
+			sinks.add(new FileDataSink(DummyOutputFormat.class, OUT_FILE, coGroup, "Sink " + i));
+		}
+		
+		Plan plan = new Plan(sinks, "Branching Plan with " + numSources + " Sources");
+		plan.setDefaultParallelism(DEFAULT_PARALLELISM);
+		return plan;
+	}
+	
+	private static Map<String, String> describe(OptimizedPlan plan) {
+		final Map<String, String> description = new HashMap<String, String>();
+		for (PlanNode node : plan.getAllNodes()) {
+			StringBuilder bld = new StringBuilder();
+			bld.append(node.getDriverStrategy());
+			for (Iterator<Channel> inputs = node.getInputs(); inputs.hasNext();) {
+				Channel c = inputs.next();
+				bld.append(' ').append(c.getSource().getNodeName()).append(':').append(c.getShipStrategy())
+					.append('/').append(c.getLocalStrategy());
+			}
+			description.put(node.getNodeName(), bld.toString());
+		}
+		return description;
+	}
+	
+	private static Map<String, String> totalCosts(OptimizedPlan plan) {
+		final Map<String, String> costs = new HashMap<String, String>();
+		for (SinkPlanNode sink : plan.getDataSinks()) {
+			costs.put(sink.getNodeName(), String.valueOf(sink.getCumulativeCosts()));
+		}
+		return costs;
+	}
+}
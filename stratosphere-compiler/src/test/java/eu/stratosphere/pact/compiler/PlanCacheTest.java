@@ -0,0 +1,273 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.compiler;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.common.io.FileInputFormat.FileBaseStatistics;
+import eu.stratosphere.api.common.io.statistics.BaseStatistics;
+import eu.stratosphere.api.common.operators.Operator;
+import eu.stratosphere.api.common.operators.base.GenericDataSourceBase;
+import eu.stratosphere.api.java.record.io.DelimitedInputFormat;
+import eu.stratosphere.api.java.record.operators.BulkIteration;
+import eu.stratosphere.api.java.record.operators.FileDataSink;
+import eu.stratosphere.api.java.record.operators.FileDataSource;
+import eu.stratosphere.api.java.record.operators.JoinOperator;
+import eu.stratosphere.api.java.record.operators.MapOperator;
+import eu.stratosphere.api.java.record.operators.ReduceOperator;
+import eu.stratosphere.compiler.CompiledPlanCache;
+import eu.stratosphere.compiler.PactCompiler;
+import eu.stratosphere.compiler.plan.OptimizedPlan;
+import eu.stratosphere.compiler.plan.PlanNode;
+import eu.stratosphere.compiler.plan.SinkPlanNode;
+import eu.stratosphere.compiler.plantranslate.NepheleJobGraphGenerator;
+import eu.stratosphere.pact.compiler.util.DummyInputFormat;
+import eu.stratosphere.pact.compiler.util.DummyMatchStub;
+import eu.stratosphere.pact.compiler.util.DummyOutputFormat;
+import eu.stratosphere.pact.compiler.util.IdentityMap;
+import eu.stratosphere.pact.compiler.util.IdentityReduce;
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.Record;
+import eu.stratosphere.util.Visitor;
+
+/**
+ * Tests that the compiler reuses the plans of programs that are submitted repeatedly with different parameters,
+ * and that it does not reuse them for programs that differ in ways that influence the optimizer.
+ */
+@SuppressWarnings("serial")
+public class PlanCacheTest extends CompilerTestBase {
+	
+	@Test
+	public void testReusePlanForDifferentParameters() {
+		try {
+			this.withStatsCompiler.setPlanCacheSize(4);
+			final CompiledPlanCache cache = this.withStatsCompiler.getPlanCache();
+			
+			final Plan first = createPlan("file:///first/out", "one", 0, 10);
+			final OptimizedPlan firstOptimized = compileWithStats(first);
+			Assert.assertEquals(0, cache.getNumHits());
+			Assert.assertEquals(1, cache.size());
+			new NepheleJobGraphGenerator().compileJobGraph(firstOptimized);
+			
+			final Plan second = createPlan("file:///second/out", "two", 0, 20);
+			final OptimizedPlan secondOptimized = compileWithStats(second);
+			Assert.assertEquals(1, cache.getNumHits());
+			Assert.assertSame(second, secondOptimized.getOriginalPactPlan());
+			
+			// the plans must make the same choices, but share no nodes and no operators
+			final Set<Operator<?>> firstOperators = Collections.newSetFromMap(new IdentityHashMap<Operator<?>, Boolean>());
+			final Map<String, String> firstStrategies = new HashMap<String, String>();
+			for (PlanNode node : firstOptimized.getAllNodes()) {
+				firstOperators.add(node.getPactContract());
+				firstStrategies.put(node.getNodeName(), node.describeStrategies());
+			}
+			Assert.assertEquals(firstOptimized.getAllNodes().size(), secondOptimized.getAllNodes().size());
+			for (PlanNode node : secondOptimized.getAllNodes()) {
+				Assert.assertFalse("Node " + node.getNodeName() + " refers to an operator of the first program.",
+					firstOperators.contains(node.getPactContract()));
+				Assert.assertFalse(firstOptimized.getAllNodes().contains(node));
+				Assert.assertEquals(firstStrategies.get(node.getNodeName()), node.describeStrategies());
+			}
+			
+			final SinkPlanNode sink = secondOptimized.getDataSinks().iterator().next();
+			Assert.assertEquals("file:///second/out", ((FileDataSink) sink.getPactContract()).getFilePath());
+			
+			new NepheleJobGraphGenerator().compileJobGraph(secondOptimized);
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testNoReuseForDifferentPrograms() {
+		try {
+			this.withStatsCompiler.setPlanCacheSize(4);
+			final CompiledPlanCache cache = this.withStatsCompiler.getPlanCache();
+			
+			compileWithStats(createPlan(OUT_FILE, "one", 0, 10));
+			
+			// a different key
+			compileWithStats(createPlan(OUT_FILE, "one", 1, 10));
+			
+			// a different degree of parallelism
+			Plan plan = createPlan(OUT_FILE, "one", 0, 10);
+			plan.setDefaultParallelism(DEFAULT_PARALLELISM / 2);
+			compileWithStats(plan);
+			
+			// an optimizer hint
+			plan = createPlan(OUT_FILE, "one", 0, 10);
+			((FileDataSink) plan.getDataSinks().iterator().next()).getInput().setParameter(
+				PactCompiler.HINT_LOCAL_STRATEGY, PactCompiler.HINT_LOCAL_STRATEGY_SORT_BOTH_MERGE);
+			compileWithStats(plan);
+			
+			Assert.assertEquals(0, cache.getNumHits());
+			Assert.assertEquals(4, cache.getNumMisses());
+			Assert.assertEquals(4, cache.size());
+			
+			// the first program again
+			compileWithStats(createPlan(OUT_FILE, "one", 0, 10));
+			Assert.assertEquals(1, cache.getNumHits());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testNoReuseForInputsOfDifferentMagnitude() {
+		try {
+			this.withStatsCompiler.setPlanCacheSize(4);
+			final CompiledPlanCache cache = this.withStatsCompiler.getPlanCache();
+			
+			Plan plan = createPlan(OUT_FILE, "one", 0, 10);
+			setSourceStatistics(plan, 1000);
+			compileWithStats(plan);
+			
+			plan = createPlan(OUT_FILE, "one", 0, 10);
+			setSourceStatistics(plan, 1000L * 1000 * 1000);
+			compileWithStats(plan);
+			Assert.assertEquals(0, cache.getNumHits());
+			
+			plan = createPlan(OUT_FILE, "one", 0, 10);
+			setSourceStatistics(plan, 1000);
+			compileWithStats(plan);
+			Assert.assertEquals(1, cache.getNumHits());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testCacheEvictsLeastRecentlyUsedPlan() {
+		this.withStatsCompiler.setPlanCacheSize(1);
+		final CompiledPlanCache cache = this.withStatsCompiler.getPlanCache();
+		
+		compileWithStats(createPlan(OUT_FILE, "one", 0, 10));
+		compileWithStats(createPlan(OUT_FILE, "one", 1, 10));
+		compileWithStats(createPlan(OUT_FILE, "one", 0, 10));
+		
+		Assert.assertEquals(0, cache.getNumHits());
+		Assert.assertEquals(1, cache.size());
+	}
+	
+	@Test
+	public void testStatisticsGatheredOncePerCompilation() {
+		try {
+			this.withStatsCompiler.setPlanCacheSize(4);
+			CountingInputFormat.NUM_STATISTICS_REQUESTS.set(0);
+			
+			FileDataSource source = new FileDataSource(CountingInputFormat.class, IN_FILE, "Source");
+			MapOperator map = MapOperator.builder(IdentityMap.class).input(source).name("Map").build();
+			FileDataSink sink = new FileDataSink(DummyOutputFormat.class, OUT_FILE, map, "Sink");
+			Plan plan = new Plan(sink, "Plan Cache Test");
+			plan.setDefaultParallelism(DEFAULT_PARALLELISM);
+			
+			// the fingerprint gathers the statistics, the estimates reuse them
+			compileWithStats(plan);
+			Assert.assertEquals(1, CountingInputFormat.NUM_STATISTICS_REQUESTS.get());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testReuseDisabledByDefault() {
+		Assert.assertNull(this.withStatsCompiler.getPlanCache());
+		
+		final OptimizedPlan first = compileWithStats(createPlan(OUT_FILE, "one", 0, 10));
+		final OptimizedPlan second = compileWithStats(createPlan(OUT_FILE, "one", 0, 10));
+		Assert.assertNotSame(first.getDataSinks().iterator().next(), second.getDataSinks().iterator().next());
+	}
+	
+	// ------------------------------------------------------------------------
+	
+	/**
+	 * Makes the sources of the plan read an input of the given size, according to the compiler's statistics.
+	 */
+	private void setSourceStatistics(Plan plan, long inputSize) {
+		this.dataStats.cacheBaseStatistics(new FileBaseStatistics(1, inputSize, 10.0f), "input");
+		plan.accept(new Visitor<Operator<?>>() {
+			@Override
+			public boolean preVisit(Operator<?> visitable) {
+				if (visitable instanceof GenericDataSourceBase) {
+					((GenericDataSourceBase<?, ?>) visitable).setStatisticsKey("input");
+				}
+				return true;
+			}
+			
+			@Override
+			public void postVisit(Operator<?> visitable) {}
+		});
+	}
+	
+	/**
+	 * An input format that counts the requests for its statistics.
+	 */
+	public static final class CountingInputFormat extends DelimitedInputFormat {
+		
+		private static final AtomicInteger NUM_STATISTICS_REQUESTS = new AtomicInteger();
+		
+		@Override
+		public Record readRecord(Record target, byte[] bytes, int offset, int numBytes) {
+			return target;
+		}
+		
+		@Override
+		public FileBaseStatistics getStatistics(BaseStatistics cachedStatistics) {
+			NUM_STATISTICS_REQUESTS.incrementAndGet();
+			return new FileBaseStatistics(1, 1024, 10.0f);
+		}
+	}
+	
+	/**
+	 * Creates a plan that joins a source with the result of an iteration over a second source.
+	 */
+	private static Plan createPlan(String outputPath, String parameter, int joinKey, int numIterations) {
+		FileDataSource source1 = new FileDataSource(DummyInputFormat.class, IN_FILE, "Source 1");
+		FileDataSource source2 = new FileDataSource(DummyInputFormat.class, IN_FILE, "Source 2");
+		
+		BulkIteration iteration = new BulkIteration("Loop");
+		iteration.setInput(source2);
+		iteration.setMaximumNumberOfIterations(numIterations);
+		
+		MapOperator inMap = MapOperator.builder(IdentityMap.class).input(iteration.getPartialSolution())
+			.name("In Iteration Map").build();
+		inMap.setParameter("some.parameter", parameter);
+		ReduceOperator inReduce = ReduceOperator.builder(IdentityReduce.class, IntValue.class, 0).input(inMap)
+			.name("In Iteration Reduce").build();
+		iteration.setNextPartialSolution(inReduce);
+		
+		JoinOperator join = JoinOperator.builder(DummyMatchStub.class, IntValue.class, joinKey, 0)
+			.input1(source1).input2(iteration).name("Join").build();
+		
+		FileDataSink sink = new FileDataSink(DummyOutputFormat.class, outputPath, join, "Sink");
+		
+		Plan plan = new Plan(sink, "Plan Cache Test");
+		plan.setDefaultParallelism(DEFAULT_PARALLELISM);
+		return plan;
+	}
+}
@@ -0,0 +1,60 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.compiler;
+
+import org.junit.Test;
+
+import eu.stratosphere.api.common.Plan;
+
+/**
+ * Measures the compile time of large synthetic branching plans with sequential and with parallel plan
+ * enumeration. Not part of the regular test suite.
+ */
+@SuppressWarnings("serial")
+public class PlanEnumerationPerformanceComparison extends CompilerTestBase {
+	
+	private static final int[] NUM_SOURCES = { 10, 25, 50, 100 };
+	
+	private static final int NUM_REPETITIONS = 5;
+	
+	@Test
+	public void testCompileTimes() {
+		final int numCores = Runtime.getRuntime().availableProcessors();
+		
+		// warm up the JIT
+		this.noStatsCompiler.setNumEnumerationThreads(1);
+		compileNoStats(ParallelPlanEnumerationTest.createBranchingPlan(NUM_SOURCES[0]));
+		
+		for (int numSources : NUM_SOURCES) {
+			final long sequential = measure(numSources, 1);
+			final long parallel = measure(numSources, numCores);
+			
+			System.out.println(numSources + " sources: sequential " + sequential + " ms, parallel (" + numCores +
+				" threads) " + parallel + " ms");
+		}
+	}
+	
+	private long measure(int numSources, int numThreads) {
+		this.noStatsCompiler.setNumEnumerationThreads(numThreads);
+		
+		long total = 0;
+		for (int i = 0; i < NUM_REPETITIONS; i++) {
+			final Plan plan = ParallelPlanEnumerationTest.createBranchingPlan(numSources);
+			final long start = System.currentTimeMillis();
+			compileNoStats(plan);
+			total += System.currentTimeMillis() - start;
+		}
+		return total / NUM_REPETITIONS;
+	}
+}
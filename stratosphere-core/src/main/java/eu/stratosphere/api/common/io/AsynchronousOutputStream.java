@@ -0,0 +1,375 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import eu.stratosphere.core.fs.FSDataOutputStream;
+
+/**
+ * An output stream that decouples the writing thread from the latency of the underlying stream. The bytes are
+ * collected in a ring of buffers. Full buffers are handed to a writer thread, which drains them to the underlying
+ * stream, while the writing thread continues with the next free buffer. The writing thread only blocks if all
+ * buffers are waiting to be written, which is accounted as stall time.
+ * <p>
+ * An exception of the writer thread is rethrown by the next call of the writing thread that hands over a buffer,
+ * and by {@link #flush()} and {@link #close()}. After an exception, the writer thread discards all further data.
+ * <p>
+ * The stream is meant to be written by a single thread, the one that created it, and is not thread-safe. If
+ * another thread closes the stream, for example to cancel a task, the buffered data is discarded instead of
+ * written, because the writing thread may still be using the buffers.
+ */
+public class AsynchronousOutputStream extends FSDataOutputStream {
+
+	/**
+	 * The default number of buffers.
+	 */
+	public static final int DEFAULT_NUM_BUFFERS = 4;
+
+	/**
+	 * The default size of a buffer, 1 MiByte.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+	/**
+	 * Marker that tells the writer thread to terminate.
+	 */
+	private static final Buffer END_OF_STREAM = new Buffer(0);
+
+	// --------------------------------------------------------------------------------------------
+
+	private final FSDataOutputStream out;
+
+	private final BlockingQueue<Buffer> freeBuffers;
+
+	private final BlockingQueue<Buffer> fullBuffers;
+
+	private final WriterThread writer;
+
+	private final int numBuffers;
+
+	private final Thread owner;
+
+	private Buffer current;
+
+	private volatile Throwable error;
+
+	private volatile boolean closed;
+
+	private long stallTime;
+
+	private long numHandOvers;
+
+	private long occupancySum;
+
+	private int maxOccupancy;
+
+	/**
+	 * Creates a new asynchronous stream with the default number and size of buffers.
+	 * 
+	 * @param out The stream to write the data to.
+	 */
+	public AsynchronousOutputStream(FSDataOutputStream out) {
+		this(out, DEFAULT_NUM_BUFFERS, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a new asynchronous stream.
+	 * 
+	 * @param out The stream to write the data to.
+	 * @param numBuffers The number of buffers, at least two.
+	 * @param bufferSize The size of each buffer in bytes.
+	 */
+	public AsynchronousOutputStream(FSDataOutputStream out, int numBuffers, int bufferSize) {
+		if (out == null) {
+			throw new NullPointerException();
+		}
+		if (numBuffers < 2) {
+			throw new IllegalArgumentException("The asynchronous stream needs at least two buffers.");
+		}
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException("The buffer size must be positive.");
+		}
+
+		this.out = out;
+		this.numBuffers = numBuffers;
+		this.owner = Thread.currentThread();
+		this.freeBuffers = new ArrayBlockingQueue<Buffer>(numBuffers);
+		// one more slot for the end-of-stream marker
+		this.fullBuffers = new ArrayBlockingQueue<Buffer>(numBuffers + 1);
+
+		this.current = new Buffer(bufferSize);
+		for (int i = 1; i < numBuffers; i++) {
+			this.freeBuffers.add(new Buffer(bufferSize));
+		}
+
+		this.writer = new WriterThread();
+		this.writer.start();
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void write(int b) throws IOException {
+		Buffer buffer = this.current;
+		if (buffer.length == buffer.data.length) {
+			buffer = handOver();
+		}
+		buffer.data[buffer.length++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		Buffer buffer = this.current;
+		while (len > 0) {
+			if (buffer.length == buffer.data.length) {
+				buffer = handOver();
+			}
+			final int toCopy = Math.min(len, buffer.data.length - buffer.length);
+			System.arraycopy(b, off, buffer.data, buffer.length, toCopy);
+			buffer.length += toCopy;
+			off += toCopy;
+			len -= toCopy;
+		}
+	}
+
+	/**
+	 * Hands the buffered data to the writer thread and waits until everything is written. Afterwards, the
+	 * underlying stream is flushed.
+	 */
+	@Override
+	public void flush() throws IOException {
+		checkNotClosed();
+		drain();
+		this.out.flush();
+	}
+
+	/**
+	 * Writes all buffered data, stops the writer thread, and closes the underlying stream. Calling this method
+	 * again has no effect.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		if (Thread.currentThread() != this.owner) {
+			abort();
+			return;
+		}
+
+		try {
+			drain();
+		}
+		finally {
+			this.closed = true;
+			this.fullBuffers.add(END_OF_STREAM);
+			try {
+				this.writer.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			this.out.close();
+		}
+		checkError();
+	}
+
+	/**
+	 * Stops the writer thread after the buffer it currently writes and closes the underlying stream. Buffered
+	 * data that was not written yet is discarded.
+	 */
+	private void abort() throws IOException {
+		this.closed = true;
+		if (this.error == null) {
+			this.error = new IOException("The stream was closed by another thread.");
+		}
+		this.fullBuffers.offer(END_OF_STREAM);
+		this.out.close();
+	}
+
+	// --------------------------------------------------------------------------------------------
+	//                                        Metrics
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Gets the time that the writing thread waited for free buffers, because the writer thread did not keep up.
+	 * 
+	 * @return The stall time in milliseconds.
+	 */
+	public long getStallTime() {
+		return this.stallTime / 1000000;
+	}
+
+	/**
+	 * Gets the average number of buffers that were waiting to be written when a buffer was handed over.
+	 * 
+	 * @return The average number of occupied buffers.
+	 */
+	public double getAverageOccupancy() {
+		return this.numHandOvers == 0 ? 0.0 : this.occupancySum / (double) this.numHandOvers;
+	}
+
+	/**
+	 * Gets the maximal number of buffers that were waiting to be written when a buffer was handed over.
+	 * 
+	 * @return The maximal number of occupied buffers.
+	 */
+	public int getMaxOccupancy() {
+		return this.maxOccupancy;
+	}
+
+	/**
+	 * Gets the number of buffers of this stream.
+	 * 
+	 * @return The number of buffers.
+	 */
+	public int getNumBuffers() {
+		return this.numBuffers;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Hands the current buffer to the writer thread and returns the next free buffer.
+	 */
+	private Buffer handOver() throws IOException {
+		checkNotClosed();
+		checkError();
+
+		final int occupancy = this.fullBuffers.size() + 1;
+		this.occupancySum += occupancy;
+		this.numHandOvers++;
+		if (occupancy > this.maxOccupancy) {
+			this.maxOccupancy = occupancy;
+		}
+
+		this.fullBuffers.add(this.current);
+
+		Buffer next = this.freeBuffers.poll();
+		if (next == null) {
+			final long start = System.nanoTime();
+			try {
+				next = this.freeBuffers.take();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for the asynchronous writer.");
+			}
+			finally {
+				this.stallTime += System.nanoTime() - start;
+			}
+		}
+
+		this.current = next;
+		return next;
+	}
+
+	/**
+	 * Hands over the current buffer, if it contains data, and waits until the writer thread returned all buffers.
+	 */
+	private void drain() throws IOException {
+		if (this.current.length > 0) {
+			handOver();
+		}
+
+		final Buffer[] buffers = new Buffer[this.numBuffers - 1];
+		try {
+			for (int i = 0; i < buffers.length; i++) {
+				buffers[i] = this.freeBuffers.take();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the asynchronous writer.");
+		}
+		finally {
+			for (Buffer b : buffers) {
+				if (b != null) {
+					this.freeBuffers.add(b);
+				}
+			}
+		}
+		checkError();
+	}
+
+	private void checkError() throws IOException {
+		final Throwable t = this.error;
+		if (t != null) {
+			throw new IOException("The asynchronous writer failed: " + t.getMessage(), t);
+		}
+	}
+
+	private void checkNotClosed() throws IOException {
+		if (this.closed) {
+			throw new IOException("The stream is closed.");
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static final class Buffer {
+
+		private final byte[] data;
+
+		private int length;
+
+		private Buffer(int size) {
+			this.data = new byte[size];
+		}
+	}
+
+	/**
+	 * The thread that writes the full buffers to the underlying stream and returns them to the free buffers.
+	 */
+	private final class WriterThread extends Thread {
+
+		private WriterThread() {
+			super("Asynchronous Output Writer");
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				final Buffer buffer;
+				try {
+					buffer = fullBuffers.take();
+				}
+				catch (InterruptedException e) {
+					// only the end-of-stream marker terminates the writer
+					continue;
+				}
+
+				if (buffer == END_OF_STREAM) {
+					return;
+				}
+
+				if (error == null) {
+					try {
+						out.write(buffer.data, 0, buffer.length);
+					}
+					catch (Throwable t) {
+						error = t;
+					}
+				}
+
+				buffer.length = 0;
+				freeBuffers.add(buffer);
+			}
+		}
+	}
+}
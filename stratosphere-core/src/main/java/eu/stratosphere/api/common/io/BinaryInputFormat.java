@@ -17,7 +17,6 @@ import java.io.DataInputStream;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.logging.Log;
@@ -88,18 +87,28 @@ public abstract class BinaryInputFormat<T extends IOReadableWritable> extends Fi
 		final FileSystem fs = this.filePath.getFileSystem();
 		final long blockSize = this.blockSize == NATIVE_BLOCK_SIZE ? fs.getDefaultBlockSize() : this.blockSize;
 
+		// get the block locations of all files at once, in order with respect to their offset
+		final BlockLocation[][] fileBlocks = FileStatusCache.getFileBlockLocations(fs, files);
+
 		final List<FileInputSplit> inputSplits = new ArrayList<FileInputSplit>(minNumSplits);
-		for (FileStatus file : files) {
+		for (int f = 0; f < files.size(); f++) {
+			final FileStatus file = files.get(f);
+			final BlockLocation[] blocks = fileBlocks[f];
+			int blockIndex = 0;
+
 			long splitSize = blockSize;
 			for (long pos = 0, length = file.getLen(); pos < length; pos += splitSize) {
 				long remainingLength = Math.min(pos + splitSize, length) - pos;
 
-				// get the block locations and make sure they are in order with respect to their offset
-				final BlockLocation[] blocks = fs.getFileBlockLocations(file, pos, remainingLength);
-				Arrays.sort(blocks);
+				// the first block that contains data of the split
+				while (blockIndex < blocks.length - 1 &&
+						blocks[blockIndex].getOffset() + blocks[blockIndex].getLength() <= pos)
+				{
+					blockIndex++;
+				}
 
 				inputSplits.add(new FileInputSplit(inputSplits.size(), file.getPath(), pos, remainingLength,
-					blocks[0].getHosts()));
+					blocks[blockIndex].getHosts()));
 			}
 		}
 
@@ -108,7 +117,7 @@ public abstract class BinaryInputFormat<T extends IOReadableWritable> extends Fi
 				"With the given block size %d, the file %s cannot be split into %d blocks. Filling up with empty splits...",
 				blockSize, this.filePath, minNumSplits));
 			FileStatus last = files.get(files.size() - 1);
-			final BlockLocation[] blocks = fs.getFileBlockLocations(last, 0, last.getLen());
+			final BlockLocation[] blocks = fileBlocks[files.size() - 1];
 			for (int index = files.size(); index < minNumSplits; index++) {
 				inputSplits.add(new FileInputSplit(index, last.getPath(), last.getLen(), 0, blocks[0].getHosts()));
 			}
@@ -125,7 +134,7 @@ public abstract class BinaryInputFormat<T extends IOReadableWritable> extends Fi
 		final FileStatus pathFile = fs.getFileStatus(this.filePath);
 
 		if (pathFile.isDir()) {
-			// input is directory. list all contained files
+			// input is directory. list all contained files, not from the cache, as their lengths must be current
 			final FileStatus[] partials = fs.listStatus(this.filePath);
 			for (int i = 0; i < partials.length; i++) {
 				if (!partials[i].isDir()) {
@@ -0,0 +1,199 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import eu.stratosphere.core.fs.FSDataOutputStream;
+
+/**
+ * A stream that writes a block-compressed file. The written bytes are collected into blocks of a fixed
+ * uncompressed size, and each block is deflated independently. When the stream is closed, an index of the blocks
+ * and a footer are appended. The layout of the file is described at the {@link BlockInflaterInputStream}, which
+ * reads such files.
+ * <p>
+ * Since every block can be decompressed on its own, a block-compressed file can be split on block boundaries and
+ * read in parallel, unlike a file that is deflated as a whole.
+ */
+public class BlockDeflaterOutputStream extends FSDataOutputStream {
+
+	/**
+	 * The default uncompressed size of a block.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+	// --------------------------------------------------------------------------------------------
+
+	private final FSDataOutputStream outStream;
+
+	private final Deflater deflater;
+
+	private final byte[] block;
+
+	private byte[] buffer = new byte[64 * 1024];
+
+	private int blockLen;
+
+	private long compressedPos;
+
+	private long uncompressedPos;
+
+	private long[] blockOffsets = new long[64];
+
+	private int numBlocks;
+
+	private boolean closed;
+
+	/**
+	 * Creates a new stream that writes block-compressed data with the default block size.
+	 *
+	 * @param outStream The stream to write the block-compressed file to.
+	 */
+	public BlockDeflaterOutputStream(FSDataOutputStream outStream) {
+		this(outStream, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Creates a new stream that writes block-compressed data.
+	 *
+	 * @param outStream The stream to write the block-compressed file to.
+	 * @param blockSize The uncompressed size of a block.
+	 */
+	public BlockDeflaterOutputStream(FSDataOutputStream outStream, int blockSize) {
+		if (outStream == null) {
+			throw new NullPointerException();
+		}
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("The block size must be positive.");
+		}
+
+		this.outStream = outStream;
+		this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+		this.block = new byte[blockSize];
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void write(int b) throws IOException {
+		if (this.blockLen == this.block.length) {
+			writeBlock();
+		}
+		this.block[this.blockLen++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (this.blockLen == this.block.length) {
+				writeBlock();
+			}
+
+			final int toCopy = Math.min(len, this.block.length - this.blockLen);
+			System.arraycopy(b, off, this.block, this.blockLen, toCopy);
+			this.blockLen += toCopy;
+			off += toCopy;
+			len -= toCopy;
+		}
+	}
+
+	/**
+	 * Writes the last block, the index, and the footer, and closes the underlying stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+
+		try {
+			if (this.blockLen > 0) {
+				writeBlock();
+			}
+
+			// the index
+			final long indexOffset = this.compressedPos;
+			final byte[] entry = new byte[BlockInflaterInputStream.INDEX_ENTRY_SIZE];
+			for (int i = 0; i < this.numBlocks; i++) {
+				putLong(entry, 0, this.blockOffsets[2 * i]);
+				putLong(entry, 8, this.blockOffsets[2 * i + 1]);
+				this.outStream.write(entry);
+			}
+
+			// the footer
+			final byte[] footer = new byte[BlockInflaterInputStream.FOOTER_SIZE];
+			putLong(footer, 0, indexOffset);
+			putLong(footer, 8, this.uncompressedPos);
+			putInt(footer, 16, this.numBlocks);
+			putInt(footer, 20, BlockInflaterInputStream.MAGIC_NUMBER);
+			this.outStream.write(footer);
+		}
+		finally {
+			this.deflater.end();
+			this.outStream.close();
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private void writeBlock() throws IOException {
+		// remember the offsets of the block for the index
+		if (this.blockOffsets.length < 2 * (this.numBlocks + 1)) {
+			this.blockOffsets = Arrays.copyOf(this.blockOffsets, this.blockOffsets.length * 2);
+		}
+		this.blockOffsets[2 * this.numBlocks] = this.compressedPos;
+		this.blockOffsets[2 * this.numBlocks + 1] = this.uncompressedPos;
+		this.numBlocks++;
+
+		this.deflater.reset();
+		this.deflater.setInput(this.block, 0, this.blockLen);
+		this.deflater.finish();
+
+		// the compressed length is only known after deflating, so the compressed block is collected first
+		int compressedLen = 0;
+		byte[] compressed = this.buffer;
+		while (!this.deflater.finished()) {
+			if (compressedLen == compressed.length) {
+				compressed = Arrays.copyOf(compressed, compressed.length * 2);
+			}
+			compressedLen += this.deflater.deflate(compressed, compressedLen, compressed.length - compressedLen);
+		}
+		this.buffer = compressed;
+
+		final byte[] header = new byte[BlockInflaterInputStream.BLOCK_HEADER_SIZE];
+		putInt(header, 0, compressedLen);
+		putInt(header, 4, this.blockLen);
+		this.outStream.write(header);
+		this.outStream.write(compressed, 0, compressedLen);
+
+		this.compressedPos += BlockInflaterInputStream.BLOCK_HEADER_SIZE + compressedLen;
+		this.uncompressedPos += this.blockLen;
+		this.blockLen = 0;
+	}
+
+	private static void putInt(byte[] b, int off, int value) {
+		b[off] = (byte) (value >>> 24);
+		b[off + 1] = (byte) (value >>> 16);
+		b[off + 2] = (byte) (value >>> 8);
+		b[off + 3] = (byte) value;
+	}
+
+	private static void putLong(byte[] b, int off, long value) {
+		putInt(b, off, (int) (value >>> 32));
+		putInt(b, off + 4, (int) value);
+	}
+}
@@ -0,0 +1,308 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import eu.stratosphere.core.fs.FSDataInputStream;
+
+/**
+ * A stream that reads the uncompressed contents of a block-compressed file, as written by the
+ * {@link BlockDeflaterOutputStream}. The file consists of independently deflated blocks, followed by an index
+ * of the blocks and a fixed-size footer:
+ *
+ * <pre>
+ * +--- Block 0 ---------------------------------------------------------------------------------------------+
+ * | compressed length (4 bytes) | uncompressed length (4 bytes) | deflated bytes                             |
+ * +--- Block 1 ... n-1 -------------------------------------------------------------------------------------+
+ * +--- Index ----------------------------------------------------------------------------------------------+
+ * | compressed offset of block 0 (8 bytes) | uncompressed offset of block 0 (8 bytes) | ... block n-1 ... |
+ * +--- Footer ---------------------------------------------------------------------------------------------+
+ * | index offset (8 bytes) | uncompressed length (8 bytes) | number of blocks (4 bytes) | magic (4 bytes) |
+ * +--------------------------------------------------------------------------------------------------------+
+ * </pre>
+ *
+ * Positions of this stream refer to the uncompressed contents, so {@link #seek(long)} moves to an uncompressed
+ * offset. Seeking looks up the block containing the offset in the index with a binary search, decompresses that
+ * block, and skips to the offset within it. Because of that, input splits of block-compressed files can be defined
+ * on the uncompressed contents and read in parallel like splits of uncompressed files.
+ */
+public class BlockInflaterInputStream extends FSDataInputStream {
+
+	/**
+	 * The magic number that marks the end of a block-compressed file.
+	 */
+	public static final int MAGIC_NUMBER = 0x424c4b44;
+
+	static final int BLOCK_HEADER_SIZE = 8;
+
+	static final int INDEX_ENTRY_SIZE = 16;
+
+	static final int FOOTER_SIZE = 24;
+
+	// --------------------------------------------------------------------------------------------
+
+	private final FSDataInputStream inStream;
+
+	private final Inflater inflater = new Inflater();
+
+	private final long indexOffset;
+
+	private final long uncompressedLength;
+
+	private final int numBlocks;
+
+	private final byte[] header = new byte[INDEX_ENTRY_SIZE];
+
+	private final long[] indexEntry = new long[2];
+
+	private byte[] compressed = new byte[0];
+
+	private byte[] block = new byte[0];
+
+	private int blockPos;
+
+	private int blockLen;
+
+	/** The position of the underlying stream in the compressed file. */
+	private long compressedPos;
+
+	/**
+	 * Creates a new stream that reads the uncompressed contents of the given block-compressed file, starting at
+	 * the beginning of the file.
+	 *
+	 * @param inStream The stream to the block-compressed file.
+	 * @param fileLength The length of the block-compressed file.
+	 * @throws IOException Thrown, if the footer could not be read or the file is not block-compressed.
+	 */
+	public BlockInflaterInputStream(FSDataInputStream inStream, long fileLength) throws IOException {
+		if (fileLength < FOOTER_SIZE) {
+			throw new IOException("The file is too short to be a block-compressed file.");
+		}
+
+		this.inStream = inStream;
+
+		inStream.seek(fileLength - FOOTER_SIZE);
+		final byte[] footer = new byte[FOOTER_SIZE];
+		readFully(inStream, footer, FOOTER_SIZE);
+
+		if (getInt(footer, 20) != MAGIC_NUMBER) {
+			throw new IOException("The file is not block-compressed, it does not end with the magic number.");
+		}
+		this.indexOffset = getLong(footer, 0);
+		this.uncompressedLength = getLong(footer, 8);
+		this.numBlocks = getInt(footer, 16);
+
+		inStream.seek(0);
+	}
+
+	/**
+	 * Gets the length of the uncompressed contents.
+	 *
+	 * @return The length of the uncompressed contents.
+	 */
+	public long getUncompressedLength() {
+		return this.uncompressedLength;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void seek(long desired) throws IOException {
+		if (desired < 0) {
+			throw new IllegalArgumentException("The position must not be negative.");
+		}
+		if (desired >= this.uncompressedLength) {
+			// position at the end, all further reads return -1
+			this.compressedPos = this.indexOffset;
+			this.blockPos = this.blockLen = 0;
+			return;
+		}
+
+		// binary search for the last block that starts at or before the desired position
+		int low = 0;
+		int high = this.numBlocks - 1;
+		while (low < high) {
+			final int mid = (low + high + 1) >>> 1;
+			if (readIndexEntry(mid)[1] <= desired) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		final long[] entry = readIndexEntry(low);
+		final long blockOffset = entry[0];
+		final long blockStart = entry[1];
+
+		this.inStream.seek(blockOffset);
+		this.compressedPos = blockOffset;
+		if (!nextBlock()) {
+			throw new IOException("The block-compressed file ended before position " + desired + ".");
+		}
+		this.blockPos = (int) (desired - blockStart);
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (this.blockPos >= this.blockLen && !nextBlock()) {
+			return -1;
+		}
+		return this.block[this.blockPos++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (this.blockPos >= this.blockLen && !nextBlock()) {
+			return -1;
+		}
+
+		final int toCopy = Math.min(len, this.blockLen - this.blockPos);
+		System.arraycopy(this.block, this.blockPos, b, off, toCopy);
+		this.blockPos += toCopy;
+		return toCopy;
+	}
+
+	@Override
+	public int read(byte[] b) throws IOException {
+		return read(b, 0, b.length);
+	}
+
+	@Override
+	public int available() throws IOException {
+		return this.blockLen - this.blockPos;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.inflater.end();
+		this.inStream.close();
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Reads and decompresses the block at the current position of the underlying stream.
+	 *
+	 * @return True, if a block was read, false if the end of the blocks has been reached.
+	 */
+	private boolean nextBlock() throws IOException {
+		if (this.compressedPos >= this.indexOffset) {
+			this.blockPos = this.blockLen = 0;
+			return false;
+		}
+
+		readFully(this.inStream, this.header, BLOCK_HEADER_SIZE);
+		final int compressedLen = getInt(this.header, 0);
+		final int uncompressedLen = getInt(this.header, 4);
+
+		if (this.compressed.length < compressedLen) {
+			this.compressed = new byte[compressedLen];
+		}
+		if (this.block.length < uncompressedLen) {
+			this.block = new byte[uncompressedLen];
+		}
+		readFully(this.inStream, this.compressed, compressedLen);
+		this.compressedPos += BLOCK_HEADER_SIZE + compressedLen;
+
+		this.inflater.reset();
+		this.inflater.setInput(this.compressed, 0, compressedLen);
+		try {
+			int len = 0;
+			while (len < uncompressedLen && !this.inflater.finished()) {
+				final int n = this.inflater.inflate(this.block, len, uncompressedLen - len);
+				if (n == 0 && (this.inflater.needsInput() || this.inflater.needsDictionary())) {
+					break;
+				}
+				len += n;
+			}
+			if (len != uncompressedLen) {
+				throw new IOException("Corrupt block in block-compressed file: expected " + uncompressedLen +
+					" bytes, but inflated " + len + " bytes.");
+			}
+		}
+		catch (DataFormatException e) {
+			throw new IOException("Corrupt block in block-compressed file: " + e.getMessage(), e);
+		}
+
+		this.blockPos = 0;
+		this.blockLen = uncompressedLen;
+		return true;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Reads the index of the given block-compressed file. The index contains the compressed and the uncompressed
+	 * start offset of each block, plus one entry for the end of the blocks.
+	 *
+	 * @param inStream The stream to the block-compressed file. The stream is not closed.
+	 * @param fileLength The length of the block-compressed file.
+	 * @return The offsets, where the first array holds the compressed and the second array the uncompressed offsets.
+	 * @throws IOException Thrown, if the index could not be read or the file is not block-compressed.
+	 */
+	static long[][] readBlockOffsets(FSDataInputStream inStream, long fileLength) throws IOException {
+		final BlockInflaterInputStream blocks = new BlockInflaterInputStream(inStream, fileLength);
+		final int numBlocks = blocks.numBlocks;
+
+		final long[] compressedOffsets = new long[numBlocks + 1];
+		final long[] uncompressedOffsets = new long[numBlocks + 1];
+
+		final byte[] index = new byte[numBlocks * INDEX_ENTRY_SIZE];
+		inStream.seek(blocks.indexOffset);
+		readFully(inStream, index, index.length);
+
+		for (int i = 0; i < numBlocks; i++) {
+			compressedOffsets[i] = getLong(index, i * INDEX_ENTRY_SIZE);
+			uncompressedOffsets[i] = getLong(index, i * INDEX_ENTRY_SIZE + 8);
+		}
+		compressedOffsets[numBlocks] = blocks.indexOffset;
+		uncompressedOffsets[numBlocks] = blocks.uncompressedLength;
+
+		return new long[][] { compressedOffsets, uncompressedOffsets };
+	}
+
+	private long[] readIndexEntry(int block) throws IOException {
+		this.inStream.seek(this.indexOffset + ((long) block) * INDEX_ENTRY_SIZE);
+		readFully(this.inStream, this.header, INDEX_ENTRY_SIZE);
+		this.indexEntry[0] = getLong(this.header, 0);
+		this.indexEntry[1] = getLong(this.header, 8);
+		return this.indexEntry;
+	}
+
+	private static void readFully(FSDataInputStream in, byte[] b, int len) throws IOException {
+		int off = 0;
+		while (off < len) {
+			final int read = in.read(b, off, len - off);
+			if (read < 0) {
+				throw new EOFException("Unexpected end of the block-compressed file.");
+			}
+			off += read;
+		}
+	}
+
+	static int getInt(byte[] b, int off) {
+		return ((b[off] & 0xff) << 24) | ((b[off + 1] & 0xff) << 16) | ((b[off + 2] & 0xff) << 8) | (b[off + 3] & 0xff);
+	}
+
+	static long getLong(byte[] b, int off) {
+		return (((long) getInt(b, off)) << 32) | (getInt(b, off + 4) & 0xffffffffL);
+	}
+}
@@ -0,0 +1,137 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.GlobalConfiguration;
+import eu.stratosphere.core.fs.BlockLocation;
+import eu.stratosphere.core.fs.FileStatus;
+import eu.stratosphere.core.fs.FileSystem;
+
+/**
+ * Fetches the block locations of the files of an input for the file input formats. On distributed file systems,
+ * each request for the block locations of a file is a round trip to the name node, so the block locations of many
+ * files are fetched concurrently by a pool of threads, whose size is configured by
+ * {@link ConfigConstants#FILESYSTEM_LISTING_THREADS_KEY}.
+ */
+public final class BlockLocationFetcher {
+
+	/**
+	 * Fewer files than this are fetched by the calling thread.
+	 */
+	private static final int MIN_FILES_FOR_PARALLEL_FETCH = 8;
+
+	private static ExecutorService executor;
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private BlockLocationFetcher() {
+		throw new RuntimeException();
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Gets the locations of all blocks of each of the given files, sorted by their offsets. If there are many
+	 * files, the locations are fetched concurrently.
+	 * 
+	 * @param fs The file system of the files.
+	 * @param files The files to get the block locations for.
+	 * @return The block locations, in the order of the given files.
+	 * @throws IOException Thrown, if the block locations of a file could not be fetched.
+	 */
+	public static BlockLocation[][] getFileBlockLocations(final FileSystem fs, List<FileStatus> files)
+			throws IOException
+	{
+		final BlockLocation[][] locations = new BlockLocation[files.size()][];
+
+		if (locations.length < MIN_FILES_FOR_PARALLEL_FETCH) {
+			for (int i = 0; i < locations.length; i++) {
+				locations[i] = fetchBlockLocations(fs, files.get(i));
+			}
+			return locations;
+		}
+
+		final ExecutorService executor = getExecutor();
+		final List<Future<BlockLocation[]>> futures = new ArrayList<Future<BlockLocation[]>>(locations.length);
+		for (final FileStatus file : files) {
+			futures.add(executor.submit(new Callable<BlockLocation[]>() {
+				@Override
+				public BlockLocation[] call() throws IOException {
+					return fetchBlockLocations(fs, file);
+				}
+			}));
+		}
+
+		try {
+			for (int i = 0; i < locations.length; i++) {
+				locations[i] = futures.get(i).get();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while fetching the block locations.");
+		}
+		catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException("Fetching the block locations failed: " + cause.getMessage(), cause);
+		}
+		finally {
+			for (Future<BlockLocation[]> f : futures) {
+				f.cancel(true);
+			}
+		}
+
+		return locations;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static BlockLocation[] fetchBlockLocations(FileSystem fs, FileStatus file) throws IOException {
+		final BlockLocation[] blocks = fs.getFileBlockLocations(file, 0, file.getLen());
+		Arrays.sort(blocks);
+		return blocks;
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			final int numThreads = Math.max(1, GlobalConfiguration.getInteger(
+				ConfigConstants.FILESYSTEM_LISTING_THREADS_KEY, ConfigConstants.DEFAULT_FILESYSTEM_LISTING_THREADS));
+			executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					final Thread t = new Thread(r, "Block Location Fetcher");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return executor;
+	}
+}
@@ -33,6 +33,7 @@ import eu.stratosphere.core.fs.FileInputSplit;
 import eu.stratosphere.core.fs.FileStatus;
 import eu.stratosphere.core.fs.FileSystem;
 import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.util.ByteScanner;
 
 /**
  * Base implementation for input formats that split the input at a delimiter into records.
@@ -527,13 +528,23 @@ public abstract class DelimitedInputFormat<OT> extends FileInputFormat<OT> {
 			int startPos = this.readPos;
 			int count = 0;
 
-			while (this.readPos < this.limit && i < this.delimiter.length) {
-				if ((this.readBuffer[this.readPos++]) == this.delimiter[i]) {
-					i++;
+			if (this.delimiter.length == 1) {
+				// single byte delimiters (such as the line break) are searched for a whole word at a time
+				final int delimPos = ByteScanner.indexOf(this.readBuffer, this.readPos, this.limit, this.delimiter[0]);
+				if (delimPos >= 0) {
+					this.readPos = delimPos + 1;
+					i = 1;
 				} else {
-					i = 0;
+					this.readPos = this.limit;
+				}
+			} else {
+				while (this.readPos < this.limit && i < this.delimiter.length) {
+					if ((this.readBuffer[this.readPos++]) == this.delimiter[i]) {
+						i++;
+					} else {
+						i = 0;
+					}
 				}
-
 			}
 
 			// check why we dropped out
@@ -0,0 +1,175 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io;
+
+import java.io.Serializable;
+
+/**
+ * A simple comparison of a field with a constant, such as {@code field 3 >= 100}. Field predicates are
+ * declarative, which allows the optimizer to hand them to input formats implementing {@link PushDownInputFormat},
+ * which evaluate them while reading, or translate them into the query language of the underlying system.
+ * <p>
+ * Values of the same class are compared by their natural order. Numbers of different classes are compared by
+ * their numeric value.
+ */
+public class FieldPredicate implements Serializable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * The comparisons that can be evaluated.
+	 */
+	public static enum Comparison {
+		EQUAL("=="),
+		NOT_EQUAL("!="),
+		LESS("<"),
+		LESS_OR_EQUAL("<="),
+		GREATER(">"),
+		GREATER_OR_EQUAL(">=");
+		
+		private final String symbol;
+		
+		private Comparison(String symbol) {
+			this.symbol = symbol;
+		}
+		
+		@Override
+		public String toString() {
+			return this.symbol;
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private final int field;
+	
+	private final Comparison comparison;
+	
+	private final Object value;
+	
+	/**
+	 * Creates a new predicate that compares the given field with the given value.
+	 * 
+	 * @param field The position of the field.
+	 * @param comparison The comparison.
+	 * @param value The value to compare the field's values with.
+	 */
+	public FieldPredicate(int field, Comparison comparison, Object value) {
+		if (field < 0) {
+			throw new IllegalArgumentException("The field position must not be negative.");
+		}
+		if (comparison == null || value == null) {
+			throw new NullPointerException();
+		}
+		if (!(value instanceof Comparable)) {
+			throw new IllegalArgumentException("The value must be comparable.");
+		}
+		
+		this.field = field;
+		this.comparison = comparison;
+		this.value = value;
+	}
+	
+	public int getField() {
+		return this.field;
+	}
+	
+	public Comparison getComparison() {
+		return this.comparison;
+	}
+	
+	public Object getValue() {
+		return this.value;
+	}
+	
+	/**
+	 * Creates a predicate with the same comparison and value for another field position. Input formats use this
+	 * method to translate the position of a pushed-down predicate into their own field numbering.
+	 * 
+	 * @param field The new position of the field.
+	 * @return The predicate for the given field.
+	 */
+	public FieldPredicate forField(int field) {
+		return field == this.field ? this : new FieldPredicate(field, this.comparison, this.value);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Checks whether the given value of the field satisfies this predicate.
+	 * 
+	 * @param fieldValue The value of the field.
+	 * @return True, if the value satisfies the predicate, false otherwise.
+	 * @throws IllegalArgumentException Thrown, if the value cannot be compared to the predicate's value.
+	 */
+	public boolean accepts(Object fieldValue) {
+		final int cmp = compare(fieldValue);
+		switch (this.comparison) {
+		case EQUAL:
+			return cmp == 0;
+		case NOT_EQUAL:
+			return cmp != 0;
+		case LESS:
+			return cmp < 0;
+		case LESS_OR_EQUAL:
+			return cmp <= 0;
+		case GREATER:
+			return cmp > 0;
+		case GREATER_OR_EQUAL:
+			return cmp >= 0;
+		default:
+			throw new IllegalStateException();
+		}
+	}
+	
+	/**
+	 * Compares the given value of the field with the predicate's value.
+	 * 
+	 * @param fieldValue The value of the field.
+	 * @return A negative number, zero, or a positive number, if the field's value is smaller than, equal to,
+	 *         or larger than the predicate's value.
+	 * @throws IllegalArgumentException Thrown, if the value cannot be compared to the predicate's value.
+	 */
+	@SuppressWarnings("unchecked")
+	protected int compare(Object fieldValue) {
+		if (fieldValue == null) {
+			throw new IllegalArgumentException("Null values cannot be compared.");
+		}
+		if (fieldValue.getClass() == this.value.getClass()) {
+			return ((Comparable<Object>) fieldValue).compareTo(this.value);
+		}
+		if (fieldValue instanceof Number && this.value instanceof Number) {
+			final Number a = (Number) fieldValue;
+			final Number b = (Number) this.value;
+			if (isIntegral(a) && isIntegral(b)) {
+				final long la = a.longValue();
+				final long lb = b.longValue();
+				return la < lb ? -1 : la == lb ? 0 : 1;
+			} else {
+				return Double.compare(a.doubleValue(), b.doubleValue());
+			}
+		}
+		throw new IllegalArgumentException("Cannot compare a value of type " + fieldValue.getClass().getName() +
+			" with a value of type " + this.value.getClass().getName() + '.');
+	}
+	
+	private static boolean isIntegral(Number n) {
+		return n instanceof Long || n instanceof Integer || n instanceof Short || n instanceof Byte;
+	}
+	
+	@Override
+	public String toString() {
+		return "field " + this.field + ' ' + this.comparison + ' ' + this.value;
+	}
+}
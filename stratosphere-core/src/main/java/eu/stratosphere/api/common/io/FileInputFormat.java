@@ -92,6 +92,13 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 	 */
 	protected static final String DEFLATE_SUFFIX = ".deflate";
 	
+	/**
+	 * Files with that suffix are block-compressed and splittable on the boundaries of their compression blocks.
+	 * 
+	 * @see BlockDeflaterOutputStream
+	 */
+	protected static final String BLOCK_DEFLATE_SUFFIX = ".bdeflate";
+	
 	/**
 	 * The splitLength is set to -1L for reading the whole split.
 	 */
@@ -341,7 +348,7 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 
 		// enumerate all files and check their modification time stamp.
 		if (file.isDir()) {
-			FileStatus[] fss = fs.listStatus(filePath);
+			FileStatus[] fss = FileStatusCache.listStatus(fs, file);
 			files.ensureCapacity(fss.length);
 			
 			for (FileStatus s : fss) {
@@ -413,7 +420,8 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 			throw new IOException("The given file does not pass the file-filter");
 		}
 		if (pathFile.isDir()) {
-			// input is directory. list all contained files
+			// input is directory. list all contained files. the listing is not taken from the cache, because files
+			// that were rewritten in place have new lengths without changing the directory's modification time
 			final FileStatus[] dir = fs.listStatus(path);
 			for (int i = 0; i < dir.length; i++) {
 				if (!dir[i].isDir() && acceptFile(dir[i])) {
@@ -429,17 +437,21 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 			files.add(pathFile);
 			totalLength += pathFile.getLen();
 		}
+		// fetch the block locations of all files at once, sorted by their offsets
+		final BlockLocation[][] fileBlocks = FileStatusCache.getFileBlockLocations(fs, files);
+
 		// returns if unsplittable
 		if(unsplittable) {
 			int splitNum = 0;
-			for (final FileStatus file : files) {
-				final BlockLocation[] blocks = fs.getFileBlockLocations(file, 0, file.getLen());
+			for (int f = 0; f < files.size(); f++) {
+				final FileStatus file = files.get(f);
+				final BlockLocation[] blocks = fileBlocks[f];
 				Set<String> hosts = new HashSet<String>();
 				for(BlockLocation block : blocks) {
 					hosts.addAll(Arrays.asList(block.getHosts()));
 				}
 				long len = file.getLen();
-				if(testForUnsplittable(file)) {
+				if(testForUnsplittable(file) || isBlockCompressed(file)) {
 					len = READ_WHOLE_SPLIT_FLAG;
 				}
 				FileInputSplit fis = new FileInputSplit(splitNum++, file.getPath(), 0, len,
@@ -455,7 +467,9 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 
 		// now that we have the files, generate the splits
 		int splitNum = 0;
-		for (final FileStatus file : files) {
+		for (int f = 0; f < files.size(); f++) {
+			final FileStatus file = files.get(f);
+			final BlockLocation[] blocks = fileBlocks[f];
 
 			final long len = file.getLen();
 			final long blockSize = file.getBlockSize();
@@ -477,11 +491,11 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 
 			final long maxBytesForLastSplit = (long) (splitSize * MAX_SPLIT_SIZE_DISCREPANCY);
 
-			if (len > 0) {
-
-				// get the block locations and make sure they are in order with respect to their offset
-				final BlockLocation[] blocks = fs.getFileBlockLocations(file, 0, len);
-				Arrays.sort(blocks);
+			if (isBlockCompressed(file)) {
+				splitNum = createBlockCompressedSplits(fs, file, blocks, splitSize, maxBytesForLastSplit, splitNum,
+					inputSplits);
+			}
+			else if (len > 0) {
 
 				long bytesUnassigned = len;
 				long position = 0;
@@ -510,7 +524,6 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 				}
 			} else {
 				// special case with a file of zero bytes size
-				final BlockLocation[] blocks = fs.getFileBlockLocations(file, 0, 0);
 				String[] hosts;
 				if (blocks.length > 0) {
 					hosts = blocks[0].getHosts();
@@ -525,6 +538,62 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 		return inputSplits.toArray(new FileInputSplit[inputSplits.size()]);
 	}
 
+	/**
+	 * Creates the splits of a block-compressed file. The splits are cut on the boundaries of the compression blocks
+	 * and have roughly the given size in compressed bytes. Their start and length are given in uncompressed bytes,
+	 * because the stream opened for the split is the decompressed one.
+	 * 
+	 * @return The number of the next split.
+	 */
+	private int createBlockCompressedSplits(FileSystem fs, FileStatus file, BlockLocation[] blocks, long splitSize,
+			long maxBytesForLastSplit, int splitNum, List<FileInputSplit> inputSplits) throws IOException
+	{
+		final long len = file.getLen();
+		
+		final long[][] offsets;
+		final FSDataInputStream in = fs.open(file.getPath());
+		try {
+			offsets = BlockInflaterInputStream.readBlockOffsets(in, len);
+		} finally {
+			in.close();
+		}
+		final long[] compressed = offsets[0];
+		final long[] uncompressed = offsets[1];
+		final int numBlocks = compressed.length - 1;
+		
+		if (numBlocks == 0) {
+			final String[] hosts = blocks.length > 0 ? blocks[0].getHosts() : new String[0];
+			inputSplits.add(new FileInputSplit(splitNum++, file.getPath(), 0, 0, hosts));
+			return splitNum;
+		}
+		
+		final long halfSplit = splitSize >>> 1;
+		int blockIndex = 0;
+		int first = 0;
+		
+		while (first < numBlocks) {
+			// take whole compression blocks until the split is large enough, or take all remaining ones
+			int last = first + 1;
+			if (compressed[numBlocks] - compressed[first] > maxBytesForLastSplit) {
+				while (last < numBlocks && compressed[last] - compressed[first] < splitSize) {
+					last++;
+				}
+			} else {
+				last = numBlocks;
+			}
+			
+			blockIndex = getBlockIndexForPosition(blocks, compressed[first], halfSplit, blockIndex);
+			inputSplits.add(new FileInputSplit(splitNum++, file.getPath(), uncompressed[first],
+				uncompressed[last] - uncompressed[first], blocks[blockIndex].getHosts()));
+			first = last;
+		}
+		return splitNum;
+	}
+	
+	private boolean isBlockCompressed(FileStatus file) {
+		return file.getPath().getName().endsWith(BLOCK_DEFLATE_SUFFIX);
+	}
+
 	private boolean testForUnsplittable(FileStatus pathFile) {
 		if(pathFile.getPath().getName().endsWith(DEFLATE_SUFFIX)) {
 			unsplittable = true;
@@ -610,6 +679,11 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 			if(fileSplit.getPath().getName().endsWith(DEFLATE_SUFFIX)) {
 				this.stream = new InflaterInputStreamFSInputWrapper(stream);
 			}
+			// Block-compressed files are decompressed such that the split boundaries refer to the uncompressed data.
+			else if (fileSplit.getPath().getName().endsWith(BLOCK_DEFLATE_SUFFIX)) {
+				final FileSystem fs = fileSplit.getPath().getFileSystem();
+				this.stream = new BlockInflaterInputStream(this.stream, fs.getFileStatus(fileSplit.getPath()).getLen());
+			}
 			
 		}
 		catch (Throwable t) {
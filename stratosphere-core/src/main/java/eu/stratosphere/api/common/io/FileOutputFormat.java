@@ -105,12 +105,37 @@ public abstract class FileOutputFormat<IT> implements OutputFormat<IT> {
 	 */
 	private long openTimeout = -1;
 	
+	/**
+	 * The uncompressed size of the blocks of block-compressed output, or zero, if the output is not compressed.
+	 */
+	private int compressionBlockSize;
+	
+	/**
+	 * The number of buffers for asynchronous writes, or zero, if the output is written synchronously.
+	 */
+	private int asyncWriteBuffers;
+	
+	/**
+	 * The size of the buffers for asynchronous writes.
+	 */
+	private int asyncWriteBufferSize = AsynchronousOutputStream.DEFAULT_BUFFER_SIZE;
+	
 	// --------------------------------------------------------------------------------------------
 	
 	/**
 	 * The stream to which the data is written;
 	 */
 	protected transient FSDataOutputStream stream;
+	
+	/**
+	 * The asynchronous stream below the stream, if the output is written asynchronously.
+	 */
+	private transient AsynchronousOutputStream asyncStream;
+	
+	/**
+	 * The path of the file that was opened, including the instance index and the compression suffix.
+	 */
+	private transient Path actualFilePath;
 
 	// --------------------------------------------------------------------------------------------
 	
@@ -131,6 +156,16 @@ public abstract class FileOutputFormat<IT> implements OutputFormat<IT> {
 	public Path getOutputFilePath() {
 		return this.outputFilePath;
 	}
+	
+	/**
+	 * Gets the path of the file that this format opened in {@link #open(int, int)}. Depending on the degree of
+	 * parallelism, the output directory mode, and the compression, it differs from the output file path.
+	 * 
+	 * @return The path of the opened file, or null, if the format was not opened.
+	 */
+	public Path getActualFilePath() {
+		return this.actualFilePath;
+	}
 
 	
 	public void setWriteMode(WriteMode mode) {
@@ -171,6 +206,69 @@ public abstract class FileOutputFormat<IT> implements OutputFormat<IT> {
 		return this.openTimeout;
 	}
 	
+	/**
+	 * Sets whether the output is written block-compressed, with blocks of the default size. Block-compressed files
+	 * can be read in parallel by file input formats, because their splits are cut on block boundaries. The names
+	 * of the written files get the suffix {@value FileInputFormat#BLOCK_DEFLATE_SUFFIX}, by which the input formats
+	 * recognize them.
+	 * 
+	 * @param blockCompressed True, if the output is written block-compressed, false otherwise.
+	 * 
+	 * @see BlockDeflaterOutputStream
+	 */
+	public void setBlockCompressed(boolean blockCompressed) {
+		this.compressionBlockSize = blockCompressed ? BlockDeflaterOutputStream.DEFAULT_BLOCK_SIZE : 0;
+	}
+	
+	public boolean isBlockCompressed() {
+		return this.compressionBlockSize > 0;
+	}
+	
+	/**
+	 * Sets the uncompressed size of the blocks of block-compressed output. A size of zero disables the compression.
+	 * 
+	 * @param blockSize The uncompressed size of a block, in bytes.
+	 * 
+	 * @see #setBlockCompressed(boolean)
+	 */
+	public void setCompressionBlockSize(int blockSize) {
+		if (blockSize < 0) {
+			throw new IllegalArgumentException("The block size must not be negative.");
+		}
+		
+		this.compressionBlockSize = blockSize;
+	}
+	
+	public int getCompressionBlockSize() {
+		return this.compressionBlockSize;
+	}
+	
+	/**
+	 * Sets the output to be written asynchronously. The written bytes are collected in the given number of
+	 * buffers, which a separate thread drains to the file, such that the latency of the file system does not
+	 * stall the writing thread. A number of zero buffers disables the asynchronous writes.
+	 * 
+	 * @param numBuffers The number of buffers, zero or at least two.
+	 * @param bufferSize The size of each buffer in bytes.
+	 * 
+	 * @see AsynchronousOutputStream
+	 */
+	public void setAsynchronousWrites(int numBuffers, int bufferSize) {
+		if (numBuffers < 0 || numBuffers == 1) {
+			throw new IllegalArgumentException("The number of buffers must be zero or at least two.");
+		}
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException("The buffer size must be positive.");
+		}
+		
+		this.asyncWriteBuffers = numBuffers;
+		this.asyncWriteBufferSize = bufferSize;
+	}
+	
+	public boolean isWritingAsynchronously() {
+		return this.asyncWriteBuffers > 0;
+	}
+	
 	// ----------------------------------------------------------------
 
 	@Override
@@ -222,10 +320,20 @@ public abstract class FileOutputFormat<IT> implements OutputFormat<IT> {
 		try {
 			// get FSDataOutputStream
 			this.stream = opot.waitForCompletion();
+			this.actualFilePath = opot.getOpenedPath();
 		}
 		catch (Exception e) {
 			throw new RuntimeException("Stream to output file could not be opened: " + e.getMessage(), e);
 		}
+		
+		// the compression happens in the writing thread, only the file system writes are asynchronous
+		if (this.asyncWriteBuffers > 0) {
+			this.asyncStream = new AsynchronousOutputStream(this.stream, this.asyncWriteBuffers, this.asyncWriteBufferSize);
+			this.stream = this.asyncStream;
+		}
+		if (this.compressionBlockSize > 0) {
+			this.stream = new BlockDeflaterOutputStream(this.stream, this.compressionBlockSize);
+		}
 	}
 
 
@@ -236,6 +344,16 @@ public abstract class FileOutputFormat<IT> implements OutputFormat<IT> {
 			this.stream = null;
 			s.close();
 		}
+		
+		final AsynchronousOutputStream async = this.asyncStream;
+		if (async != null) {
+			this.asyncStream = null;
+			if (LOG.isInfoEnabled()) {
+				LOG.info("Asynchronous output to " + this.outputFilePath + " stalled for " + async.getStallTime() +
+					" ms. Buffer occupancy: average " + String.format("%.2f", async.getAverageOccupancy()) +
+					", maximum " + async.getMaxOccupancy() + " of " + async.getNumBuffers() + ".");
+			}
+		}
 	}
 	
 	// ============================================================================================
@@ -254,7 +372,11 @@ public abstract class FileOutputFormat<IT> implements OutputFormat<IT> {
 		
 		private final long timeoutMillies;
 		
+		private final boolean blockCompressed;
+		
 		private volatile FSDataOutputStream fdos;
+		
+		private volatile Path openedPath;
 
 		private volatile Throwable error;
 		
@@ -266,6 +388,7 @@ public abstract class FileOutputFormat<IT> implements OutputFormat<IT> {
 			this.writeMode = fof.getWriteMode();
 			this.outDirMode = fof.getOutputDirectoryMode();
 			this.timeoutMillies = fof.getOpenTimeout();
+			this.blockCompressed = fof.isBlockCompressed();
 			this.taskIndex = taskIndex;
 			this.numTasks = numTasks;
 		}
@@ -281,6 +404,10 @@ public abstract class FileOutputFormat<IT> implements OutputFormat<IT> {
 				if(this.numTasks == 1 && outDirMode == OutputDirectoryMode.PARONLY) {
 					// output is not written in parallel and should go to a single file
 					
+					if (this.blockCompressed && !p.getName().endsWith(FileInputFormat.BLOCK_DEFLATE_SUFFIX)) {
+						p = p.suffix(FileInputFormat.BLOCK_DEFLATE_SUFFIX);
+					}
+					
 					if(!fs.isDistributedFS()) {
 						// prepare local output path
 						// checks for write mode and removes existing files in case of OVERWRITE mode
@@ -303,7 +430,7 @@ public abstract class FileOutputFormat<IT> implements OutputFormat<IT> {
 					}
 					
 					// Suffix the path with the parallel instance index
-					p = p.suffix("/" + this.taskIndex);
+					p = p.suffix("/" + this.taskIndex + (this.blockCompressed ? FileInputFormat.BLOCK_DEFLATE_SUFFIX : ""));
 					
 				} else {
 					// invalid number of subtasks (<= 0)
@@ -311,6 +438,7 @@ public abstract class FileOutputFormat<IT> implements OutputFormat<IT> {
 				}
 					
 				// create output file
+				this.openedPath = p;
 				switch(writeMode) {
 				case NO_OVERWRITE: 
 					this.fdos = fs.create(p, false);
@@ -334,6 +462,10 @@ public abstract class FileOutputFormat<IT> implements OutputFormat<IT> {
 			}
 		}
 		
+		public Path getOpenedPath() {
+			return this.openedPath;
+		}
+		
 		public FSDataOutputStream waitForCompletion() throws Exception {
 			final long start = System.currentTimeMillis();
 			long remaining = this.timeoutMillies;
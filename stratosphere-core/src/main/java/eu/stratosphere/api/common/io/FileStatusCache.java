@@ -0,0 +1,245 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.GlobalConfiguration;
+import eu.stratosphere.core.fs.BlockLocation;
+import eu.stratosphere.core.fs.FileStatus;
+import eu.stratosphere.core.fs.FileSystem;
+
+/**
+ * A bounded, short-lived, JVM-wide cache of directory listings and block locations for the file input formats. It is
+ * disabled unless a time to live is configured through {@link ConfigConstants#FILESYSTEM_LISTING_CACHE_TTL_KEY}.
+ * <p>
+ * A cached listing is keyed by the path of the directory and is only used while the modification time of the
+ * directory is unchanged. Files rewritten in place change their length without changing the modification time of
+ * their directory, so cached listings are only used for the optimizer statistics, where a stale length affects an
+ * estimate only. The creation of input splits lists the directories itself. Cached block locations are keyed by the
+ * path of the file and are only used while the length and the modification time of the file's current status are
+ * unchanged, so splits created from a fresh listing are never matched with the blocks of an older version of a file.
+ * All entries expire after the configured time to live.
+ * Directories and files that were modified very recently are not cached, because some file systems report
+ * modification times only with a precision of seconds. The least recently used entries are evicted once the cache
+ * holds more than {@link #MAX_CACHED_DIRECTORIES} listings or the block locations of more than
+ * {@link #MAX_CACHED_FILES} files.
+ */
+public final class FileStatusCache {
+
+	/**
+	 * The maximum number of cached directory listings.
+	 */
+	public static final int MAX_CACHED_DIRECTORIES = 256;
+
+	/**
+	 * The maximum number of files whose block locations are cached. Larger listings are not cached either.
+	 */
+	public static final int MAX_CACHED_FILES = 65536;
+
+	/**
+	 * Directories and files modified less than this many milliseconds ago are not cached.
+	 */
+	private static final long MIN_AGE_FOR_CACHING = 2000;
+
+	private static final Map<String, CachedListing> LISTINGS = new LruMap<CachedListing>(MAX_CACHED_DIRECTORIES);
+
+	private static final Map<String, CachedBlocks> BLOCKS = new LruMap<CachedBlocks>(MAX_CACHED_FILES);
+
+	private static long timeToLive = -1;
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private FileStatusCache() {
+		throw new RuntimeException();
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Lists the given directory, or returns the cached listing of it.
+	 *
+	 * @param fs The file system of the directory.
+	 * @param dir The current status of the directory.
+	 * @return The statuses of the directory's entries.
+	 * @throws IOException Thrown, if the directory could not be listed.
+	 */
+	public static FileStatus[] listStatus(FileSystem fs, FileStatus dir) throws IOException {
+		final String key = dir.getPath().toString();
+		final long now = System.currentTimeMillis();
+
+		synchronized (LISTINGS) {
+			final CachedListing cached = LISTINGS.get(key);
+			if (cached != null) {
+				if (cached.expiry > now && cached.modificationTime == dir.getModificationTime()) {
+					return cached.entries.clone();
+				}
+				LISTINGS.remove(key);
+			}
+		}
+
+		final FileStatus[] entries = fs.listStatus(dir.getPath());
+		if (entries != null && entries.length <= MAX_CACHED_FILES && isCacheable(dir, now)) {
+			synchronized (LISTINGS) {
+				LISTINGS.put(key, new CachedListing(dir.getModificationTime(), now + getTimeToLive(),
+					entries.clone()));
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Gets the locations of all blocks of each of the given files, sorted by their offsets. The locations that are
+	 * not cached are fetched through the {@link BlockLocationFetcher}.
+	 *
+	 * @param fs The file system of the files.
+	 * @param files The current statuses of the files.
+	 * @return The block locations, in the order of the given files.
+	 * @throws IOException Thrown, if the block locations of a file could not be fetched.
+	 */
+	public static BlockLocation[][] getFileBlockLocations(FileSystem fs, List<FileStatus> files) throws IOException {
+		final long now = System.currentTimeMillis();
+		final BlockLocation[][] locations = new BlockLocation[files.size()][];
+		final List<Integer> missing = new ArrayList<Integer>();
+
+		synchronized (BLOCKS) {
+			for (int i = 0; i < locations.length; i++) {
+				final FileStatus file = files.get(i);
+				final String key = file.getPath().toString();
+				final CachedBlocks cached = BLOCKS.get(key);
+				if (cached != null && cached.expiry > now && cached.length == file.getLen() &&
+						cached.modificationTime == file.getModificationTime())
+				{
+					locations[i] = cached.blocks.clone();
+				} else {
+					if (cached != null) {
+						BLOCKS.remove(key);
+					}
+					missing.add(i);
+				}
+			}
+		}
+
+		if (missing.isEmpty()) {
+			return locations;
+		}
+
+		final List<FileStatus> missingFiles = new ArrayList<FileStatus>(missing.size());
+		for (int i : missing) {
+			missingFiles.add(files.get(i));
+		}
+		final BlockLocation[][] fetched = BlockLocationFetcher.getFileBlockLocations(fs, missingFiles);
+
+		final long expiry = now + getTimeToLive();
+		synchronized (BLOCKS) {
+			for (int k = 0; k < fetched.length; k++) {
+				final FileStatus file = missingFiles.get(k);
+				locations[missing.get(k)] = fetched[k];
+				if (isCacheable(file, now)) {
+					BLOCKS.put(file.getPath().toString(),
+						new CachedBlocks(file.getLen(), file.getModificationTime(), expiry, fetched[k].clone()));
+				}
+			}
+		}
+
+		return locations;
+	}
+
+	/**
+	 * Removes all entries from the cache. The time to live is read from the configuration again on the next request.
+	 */
+	public static void clear() {
+		synchronized (LISTINGS) {
+			LISTINGS.clear();
+		}
+		synchronized (BLOCKS) {
+			BLOCKS.clear();
+		}
+		synchronized (FileStatusCache.class) {
+			timeToLive = -1;
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static boolean isCacheable(FileStatus status, long now) {
+		return getTimeToLive() > 0 && now - status.getModificationTime() > MIN_AGE_FOR_CACHING;
+	}
+
+	private static synchronized long getTimeToLive() {
+		if (timeToLive < 0) {
+			timeToLive = Math.max(0, GlobalConfiguration.getLong(ConfigConstants.FILESYSTEM_LISTING_CACHE_TTL_KEY,
+				ConfigConstants.DEFAULT_FILESYSTEM_LISTING_CACHE_TTL));
+		}
+		return timeToLive;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static final class LruMap<V> extends LinkedHashMap<String, V> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int maxEntries;
+
+		private LruMap(int maxEntries) {
+			super(16, 0.75f, true);
+			this.maxEntries = maxEntries;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+			return size() > this.maxEntries;
+		}
+	}
+
+	private static final class CachedListing {
+
+		private final long modificationTime;
+
+		private final long expiry;
+
+		private final FileStatus[] entries;
+
+		private CachedListing(long modificationTime, long expiry, FileStatus[] entries) {
+			this.modificationTime = modificationTime;
+			this.expiry = expiry;
+			this.entries = entries;
+		}
+	}
+
+	private static final class CachedBlocks {
+
+		private final long length;
+
+		private final long modificationTime;
+
+		private final long expiry;
+
+		private final BlockLocation[] blocks;
+
+		private CachedBlocks(long length, long modificationTime, long expiry, BlockLocation[] blocks) {
+			this.length = length;
+			this.modificationTime = modificationTime;
+			this.expiry = expiry;
+			this.blocks = blocks;
+		}
+	}
+}
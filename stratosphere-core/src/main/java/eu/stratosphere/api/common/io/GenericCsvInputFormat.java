@@ -22,6 +22,7 @@ import com.google.common.primitives.Ints;
 import eu.stratosphere.core.fs.FileInputSplit;
 import eu.stratosphere.core.fs.Path;
 import eu.stratosphere.types.parser.FieldParser;
+import eu.stratosphere.util.ByteScanner;
 import eu.stratosphere.util.InstantiationUtil;
 
 
@@ -304,7 +305,9 @@ public abstract class GenericCsvInputFormat<OT> extends DelimitedInputFormat<OT>
 				// skip field
 				startPos = skipFields(bytes, startPos, limit, fieldDelim);
 				if (startPos < 0) {
-					if (!lenient) {
+					if (lenient) {
+						return false;
+					} else {
 						String lineAsString = new String(bytes, offset, numBytes);
 						throw new ParseException("Line could not be parsed: '" + lineAsString+"'\n"
 								+ "Expect field types: "+fieldTypesToString()+" \n"
@@ -340,14 +343,10 @@ public abstract class GenericCsvInputFormat<OT> extends DelimitedInputFormat<OT>
 		
 		// first none whitespace character
 		if (i < limit && bytes[i] == '"') {
-			// quoted string
-			i++; // the quote
+			// quoted string, search the closing quote
+			i = ByteScanner.indexOf(bytes, i + 1, limit, (byte) '"');
 			
-			while (i < limit && bytes[i] != '"') {
-				i++;
-			}
-			
-			if (i < limit) {
+			if (i >= 0) {
 				// end of the quoted field
 				i++; // the quote
 				
@@ -368,11 +367,9 @@ public abstract class GenericCsvInputFormat<OT> extends DelimitedInputFormat<OT>
 			}
 		}
 		else {
-			// unquoted field
-			while (i < limit && bytes[i] != delByte) {
-				i++;
-			}
-			return (i == limit ? limit : i+1);
+			// unquoted field, search the delimiter a word at a time
+			i = ByteScanner.indexOf(bytes, i, limit, delByte);
+			return (i < 0 ? limit : i+1);
 		}
 	}
 }
@@ -0,0 +1,53 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io;
+
+/**
+ * Interface for input formats that can restrict what they read. The optimizer pushes field selections
+ * and simple field predicates of the operators directly following a data source into its input format,
+ * if the format implements this interface, and removes those operators from the plan. Formats use this to
+ * skip parsing unneeded fields, or to rewrite the query they issue to an external system.
+ * <p>
+ * Field positions always refer to the fields that the format currently produces, i.e., after all previously
+ * accepted projections. A format that accepts a request must afterwards produce exactly what the replaced
+ * operator would have produced.
+ * 
+ * @see InputFormat
+ */
+public interface PushDownInputFormat {
+	
+	/**
+	 * Restricts the format to produce only the given fields, in the given order.
+	 * 
+	 * @param fields The positions of the fields to produce.
+	 * @return True, if the format accepted the projection, false if it is left unchanged.
+	 */
+	boolean pushDownProjection(int[] fields);
+	
+	/**
+	 * Restricts the format to produce only records that satisfy the given predicate.
+	 * 
+	 * @param predicate The predicate that the produced records must satisfy.
+	 * @return True, if the format accepted the predicate, false if it is left unchanged.
+	 */
+	boolean pushDownFilter(FieldPredicate predicate);
+	
+	/**
+	 * Checks whether a projection or a predicate was pushed into the format. The records of such a format are not
+	 * the records of the underlying data set, which matters, for example, for statistics gathered on them.
+	 * 
+	 * @return True, if the format accepted a projection or a predicate, false otherwise.
+	 */
+	boolean hasPushedDownOperations();
+}
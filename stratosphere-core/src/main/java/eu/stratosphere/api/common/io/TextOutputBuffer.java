@@ -0,0 +1,298 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.LongValue;
+import eu.stratosphere.types.StringValue;
+
+/**
+ * A buffer that encodes text into bytes and writes them to an output stream in large chunks. It is used by the
+ * text based output formats to write their records without creating intermediate strings and byte arrays.
+ * <p>
+ * If the charset is UTF-8, strings ({@link String} and {@link StringValue}) are encoded directly into the buffer,
+ * and integral numbers ({@link Integer}, {@link Long}, {@link Short}, {@link Byte}, {@link IntValue}, and
+ * {@link LongValue}) are written as ASCII digits. All other objects, and all objects for other charsets, are
+ * written through their string representation.
+ * <p>
+ * The buffer does not flush or close the underlying stream.
+ */
+public final class TextOutputBuffer {
+
+	/**
+	 * The default size of the buffer, 64 KiBytes.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The maximal number of bytes that a long value or a single character needs.
+	 */
+	private static final int MAX_ENCODED_LENGTH = 20;
+
+	private static final byte[] LONG_MIN_VALUE = "-9223372036854775808".getBytes();
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	// --------------------------------------------------------------------------------------------
+
+	private final OutputStream out;
+
+	private final Charset charset;
+
+	private final boolean utf8;
+
+	private final byte[] buffer;
+
+	private int position;
+
+	/**
+	 * Creates a new buffer of the default size.
+	 * 
+	 * @param out The stream to write the encoded bytes to.
+	 * @param charset The charset to encode the text with.
+	 */
+	public TextOutputBuffer(OutputStream out, Charset charset) {
+		this(out, charset, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a new buffer.
+	 * 
+	 * @param out The stream to write the encoded bytes to.
+	 * @param charset The charset to encode the text with.
+	 * @param bufferSize The size of the buffer in bytes.
+	 */
+	public TextOutputBuffer(OutputStream out, Charset charset, int bufferSize) {
+		if (out == null || charset == null) {
+			throw new NullPointerException();
+		}
+		if (bufferSize < MAX_ENCODED_LENGTH) {
+			throw new IllegalArgumentException("The buffer size must be at least " + MAX_ENCODED_LENGTH + " bytes.");
+		}
+
+		this.out = out;
+		this.charset = charset;
+		this.utf8 = UTF_8.equals(charset);
+		this.buffer = new byte[bufferSize];
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Writes the string representation of the given object.
+	 * 
+	 * @param o The object to write.
+	 * @throws IOException Thrown, if the buffer could not be flushed to the stream.
+	 */
+	public void writeObject(Object o) throws IOException {
+		if (this.utf8) {
+			if (o instanceof String) {
+				write((String) o);
+				return;
+			}
+			else if (o instanceof StringValue) {
+				write((StringValue) o);
+				return;
+			}
+			else if (o instanceof Integer || o instanceof Short || o instanceof Byte) {
+				writeLong(((Number) o).longValue());
+				return;
+			}
+			else if (o instanceof Long) {
+				writeLong(((Long) o).longValue());
+				return;
+			}
+			else if (o instanceof IntValue) {
+				writeLong(((IntValue) o).getValue());
+				return;
+			}
+			else if (o instanceof LongValue) {
+				writeLong(((LongValue) o).getValue());
+				return;
+			}
+		}
+		write(o.toString());
+	}
+
+	/**
+	 * Writes the given characters.
+	 * 
+	 * @param chars The characters to write.
+	 * @throws IOException Thrown, if the buffer could not be flushed to the stream.
+	 */
+	public void write(CharSequence chars) throws IOException {
+		if (!this.utf8) {
+			write(chars.toString().getBytes(this.charset));
+		}
+		else if (chars instanceof StringValue) {
+			final StringValue value = (StringValue) chars;
+			final char[] array = value.getCharArray();
+			final int len = value.length();
+			for (int i = 0; i < len; i++) {
+				i = encodeUtf8(array[i], i + 1 < len ? array[i + 1] : 0, i);
+			}
+		}
+		else {
+			final int len = chars.length();
+			for (int i = 0; i < len; i++) {
+				i = encodeUtf8(chars.charAt(i), i + 1 < len ? chars.charAt(i + 1) : 0, i);
+			}
+		}
+	}
+
+	/**
+	 * Writes the decimal ASCII digits of the given number. For charsets other than UTF-8, the number is written
+	 * through its string representation.
+	 * 
+	 * @param value The number to write.
+	 * @throws IOException Thrown, if the buffer could not be flushed to the stream.
+	 */
+	public void writeLong(long value) throws IOException {
+		if (!this.utf8) {
+			write(Long.toString(value));
+			return;
+		}
+		if (value == Long.MIN_VALUE) {
+			write(LONG_MIN_VALUE);
+			return;
+		}
+
+		ensureCapacity(MAX_ENCODED_LENGTH);
+		final byte[] buffer = this.buffer;
+
+		if (value < 0) {
+			buffer[this.position++] = '-';
+			value = -value;
+		}
+
+		// count the digits, then fill them in from the back
+		int numDigits = 1;
+		for (long v = value; v >= 10; v /= 10) {
+			numDigits++;
+		}
+		int pos = this.position + numDigits;
+		this.position = pos;
+		do {
+			buffer[--pos] = (byte) ('0' + (value % 10));
+			value /= 10;
+		} while (value != 0);
+	}
+
+	/**
+	 * Writes a single byte.
+	 * 
+	 * @param b The byte to write.
+	 * @throws IOException Thrown, if the buffer could not be flushed to the stream.
+	 */
+	public void write(int b) throws IOException {
+		if (this.position == this.buffer.length) {
+			flush();
+		}
+		this.buffer[this.position++] = (byte) b;
+	}
+
+	/**
+	 * Writes the given bytes.
+	 * 
+	 * @param bytes The bytes to write.
+	 * @throws IOException Thrown, if the buffer could not be flushed to the stream.
+	 */
+	public void write(byte[] bytes) throws IOException {
+		write(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Writes the given range of bytes.
+	 * 
+	 * @param bytes The array holding the bytes to write.
+	 * @param off The offset of the first byte to write.
+	 * @param len The number of bytes to write.
+	 * @throws IOException Thrown, if the buffer could not be flushed to the stream.
+	 */
+	public void write(byte[] bytes, int off, int len) throws IOException {
+		if (len > this.buffer.length - this.position) {
+			flush();
+			if (len >= this.buffer.length) {
+				// too large to be buffered, write it through
+				this.out.write(bytes, off, len);
+				return;
+			}
+		}
+		System.arraycopy(bytes, off, this.buffer, this.position, len);
+		this.position += len;
+	}
+
+	/**
+	 * Writes the buffered bytes to the stream.
+	 * 
+	 * @throws IOException Thrown, if the bytes could not be written to the stream.
+	 */
+	public void flush() throws IOException {
+		if (this.position > 0) {
+			this.out.write(this.buffer, 0, this.position);
+			this.position = 0;
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Encodes the character at the given index in UTF-8. A surrogate pair is encoded together with the
+	 * following character, a single surrogate is replaced by a question mark, as in {@link String#getBytes(Charset)}.
+	 * 
+	 * @return The index of the last encoded character.
+	 */
+	private int encodeUtf8(char c, char next, int index) throws IOException {
+		ensureCapacity(4);
+		final byte[] buffer = this.buffer;
+		int pos = this.position;
+
+		if (c < 0x80) {
+			buffer[pos++] = (byte) c;
+		}
+		else if (c < 0x800) {
+			buffer[pos++] = (byte) (0xc0 | (c >> 6));
+			buffer[pos++] = (byte) (0x80 | (c & 0x3f));
+		}
+		else if (Character.isHighSurrogate(c) && Character.isLowSurrogate(next)) {
+			final int cp = Character.toCodePoint(c, next);
+			buffer[pos++] = (byte) (0xf0 | (cp >> 18));
+			buffer[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+			buffer[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+			buffer[pos++] = (byte) (0x80 | (cp & 0x3f));
+			index++;
+		}
+		else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+			buffer[pos++] = '?';
+		}
+		else {
+			buffer[pos++] = (byte) (0xe0 | (c >> 12));
+			buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+			buffer[pos++] = (byte) (0x80 | (c & 0x3f));
+		}
+
+		this.position = pos;
+		return index;
+	}
+
+	private void ensureCapacity(int numBytes) throws IOException {
+		if (this.buffer.length - this.position < numBytes) {
+			flush();
+		}
+	}
+}
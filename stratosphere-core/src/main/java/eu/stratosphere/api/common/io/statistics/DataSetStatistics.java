@@ -0,0 +1,165 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io.statistics;
+
+import java.util.Arrays;
+
+/**
+ * Statistics about a data set that were observed when the data set was last written or read, as kept in
+ * the {@link StatisticsCatalog}. Unlike the statistics that an input format derives from sampling, the
+ * number of records is exact, and the statistics contain estimates for the number of distinct values and
+ * histograms of the field values.
+ */
+public class DataSetStatistics implements BaseStatistics {
+	
+	/**
+	 * Constant indicating that the number of distinct values is unknown.
+	 */
+	public static final long NUM_DISTINCT_UNKNOWN = -1;
+	
+	private final long timestamp;
+	
+	private final long numRecords;
+	
+	private final long numBytes;
+	
+	private final long numDistinctRecords;
+	
+	private final long[] numDistinctFieldValues;
+	
+	private final long[][] fieldHistograms;
+	
+	private final long[] numRecordsPerPartition;
+	
+	
+	/**
+	 * Creates a new statistics object.
+	 * 
+	 * @param timestamp The time when the statistics were observed.
+	 * @param numRecords The number of records in the data set.
+	 * @param numBytes The size of the data set in bytes, or {@link BaseStatistics#SIZE_UNKNOWN}.
+	 * @param numDistinctRecords The estimated number of distinct records, or {@link #NUM_DISTINCT_UNKNOWN}.
+	 * @param numDistinctFieldValues The estimated number of distinct values per field.
+	 * @param fieldHistograms The number of records per bucket of the hash codes of each field's values.
+	 * @param numRecordsPerPartition The number of records in each partition of the data set.
+	 */
+	public DataSetStatistics(long timestamp, long numRecords, long numBytes, long numDistinctRecords,
+			long[] numDistinctFieldValues, long[][] fieldHistograms, long[] numRecordsPerPartition)
+	{
+		this.timestamp = timestamp;
+		this.numRecords = numRecords;
+		this.numBytes = numBytes;
+		this.numDistinctRecords = numDistinctRecords;
+		this.numDistinctFieldValues = numDistinctFieldValues;
+		this.fieldHistograms = fieldHistograms;
+		this.numRecordsPerPartition = numRecordsPerPartition;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Gets the time (in milliseconds since the epoch) when the statistics were observed.
+	 * 
+	 * @return The time when the statistics were observed.
+	 */
+	public long getTimestamp() {
+		return this.timestamp;
+	}
+	
+	@Override
+	public long getTotalInputSize() {
+		return this.numBytes;
+	}
+	
+	@Override
+	public long getNumberOfRecords() {
+		return this.numRecords;
+	}
+	
+	@Override
+	public float getAverageRecordWidth() {
+		return (this.numBytes == SIZE_UNKNOWN || this.numRecords <= 0) ? AVG_RECORD_BYTES_UNKNOWN :
+			((float) this.numBytes) / this.numRecords;
+	}
+	
+	/**
+	 * Gets the estimated number of distinct records in the data set.
+	 * 
+	 * @return The number of distinct records, or {@link #NUM_DISTINCT_UNKNOWN}, if unknown.
+	 */
+	public long getNumDistinctRecords() {
+		return this.numDistinctRecords;
+	}
+	
+	/**
+	 * Gets the estimated number of distinct values of the given field.
+	 * 
+	 * @param field The position of the field.
+	 * @return The number of distinct values of the field, or {@link #NUM_DISTINCT_UNKNOWN}, if unknown.
+	 */
+	public long getNumDistinctValues(int field) {
+		return field >= 0 && field < this.numDistinctFieldValues.length ?
+			Math.min(this.numDistinctFieldValues[field], this.numRecords) : NUM_DISTINCT_UNKNOWN;
+	}
+	
+	/**
+	 * Gets the histogram of the values of the given field, which counts the records per bucket of the hash codes
+	 * of the field's values. Values with the same hash code fall into the same bucket.
+	 * 
+	 * @param field The position of the field.
+	 * @return The histogram of the field values, or null, if unknown.
+	 */
+	public long[] getFieldHistogram(int field) {
+		return field >= 0 && field < this.fieldHistograms.length ? this.fieldHistograms[field] : null;
+	}
+	
+	/**
+	 * Gets the fraction of the records that fall into the largest bucket of the histogram of the given field.
+	 * For evenly distributed values, this is the reciprocal of the number of buckets. A larger fraction indicates
+	 * frequent values, which make hash partitionings on the field skewed.
+	 * 
+	 * @param field The position of the field.
+	 * @return The fraction of the records in the largest bucket, or -1, if unknown.
+	 */
+	public float getLargestBucketFraction(int field) {
+		final long[] histogram = getFieldHistogram(field);
+		if (histogram == null || this.numRecords <= 0) {
+			return -1.0f;
+		}
+		long max = 0;
+		for (long count : histogram) {
+			max = Math.max(max, count);
+		}
+		return ((float) max) / this.numRecords;
+	}
+	
+	/**
+	 * Gets the number of records in each partition (parallel instance) of the data set, which describes how
+	 * evenly the data set is distributed.
+	 * 
+	 * @return The number of records in each partition.
+	 */
+	public long[] getNumRecordsPerPartition() {
+		return this.numRecordsPerPartition;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	public String toString() {
+		return "DataSetStatistics (records=" + this.numRecords + ", bytes=" + this.numBytes + ", distinct=" +
+			this.numDistinctRecords + ", distinct per field=" + Arrays.toString(this.numDistinctFieldValues) +
+			", records per partition=" + Arrays.toString(this.numRecordsPerPartition) + ")";
+	}
+}
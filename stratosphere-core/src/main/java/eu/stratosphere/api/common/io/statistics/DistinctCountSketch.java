@@ -0,0 +1,155 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import eu.stratosphere.core.io.IOReadableWritable;
+
+/**
+ * A sketch that estimates the number of distinct values in a stream of hash codes. The sketch keeps the
+ * <i>k</i> smallest distinct (mixed) hash values it has seen. If it has seen fewer than <i>k</i> distinct values,
+ * their number is exact (up to hash collisions), otherwise it is estimated from the magnitude of the
+ * <i>k</i>-th smallest value. The relative error of the estimate is about <i>1 / sqrt(k)</i>.
+ * <p>
+ * Sketches over different parts of a data set can be merged to a sketch over the whole data set.
+ */
+public class DistinctCountSketch implements IOReadableWritable {
+	
+	/**
+	 * The default number of hash values kept by the sketch, for an error of about three percent.
+	 */
+	public static final int DEFAULT_SIZE = 1024;
+	
+	private long[] values;
+	
+	private int count;
+	
+	
+	public DistinctCountSketch() {
+		this(DEFAULT_SIZE);
+	}
+	
+	public DistinctCountSketch(int size) {
+		if (size < 2) {
+			throw new IllegalArgumentException("The sketch must keep at least two values.");
+		}
+		this.values = new long[size];
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Adds a value with the given hash code to the sketch.
+	 * 
+	 * @param hashCode The hash code of the value.
+	 */
+	public void add(int hashCode) {
+		addMixed(spread(hashCode));
+	}
+	
+	/**
+	 * Spreads a 32 bit hash code over the positive longs (murmur3 finalizer).
+	 * 
+	 * @param hashCode The hash code to spread.
+	 * @return The spread hash code, which is never negative.
+	 */
+	static long spread(int hashCode) {
+		long h = hashCode;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h >>> 1;
+	}
+	
+	private void addMixed(long hash) {
+		final long[] values = this.values;
+		final int count = this.count;
+		
+		// the common case: the sketch is full and the value is not among the smallest
+		if (count == values.length && hash >= values[count - 1]) {
+			return;
+		}
+		
+		int pos = Arrays.binarySearch(values, 0, count, hash);
+		if (pos >= 0) {
+			return;
+		}
+		pos = -pos - 1;
+		
+		if (count < values.length) {
+			System.arraycopy(values, pos, values, pos + 1, count - pos);
+			this.count++;
+		} else {
+			System.arraycopy(values, pos, values, pos + 1, count - pos - 1);
+		}
+		values[pos] = hash;
+	}
+	
+	/**
+	 * Adds all values of the given sketch to this sketch. Afterwards, this sketch estimates the number of distinct
+	 * values in the union of both streams.
+	 * 
+	 * @param other The sketch to merge into this sketch.
+	 */
+	public void merge(DistinctCountSketch other) {
+		for (int i = 0; i < other.count; i++) {
+			addMixed(other.values[i]);
+		}
+	}
+	
+	/**
+	 * Gets the estimated number of distinct values that were added to this sketch.
+	 * 
+	 * @return The estimated number of distinct values.
+	 */
+	public long getEstimate() {
+		final int size = this.values.length;
+		if (this.count < size) {
+			return this.count;
+		}
+		final double fraction = ((double) this.values[size - 1]) / Long.MAX_VALUE;
+		return (long) ((size - 1) / fraction);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(this.values.length);
+		out.writeInt(this.count);
+		for (int i = 0; i < this.count; i++) {
+			out.writeLong(this.values[i]);
+		}
+	}
+	
+	@Override
+	public void read(DataInput in) throws IOException {
+		final int size = in.readInt();
+		final int count = in.readInt();
+		if (size < 2 || count < 0 || count > size) {
+			throw new IOException("Corrupt distinct count sketch.");
+		}
+		this.values = new long[size];
+		this.count = count;
+		for (int i = 0; i < count; i++) {
+			this.values[i] = in.readLong();
+		}
+	}
+}
@@ -0,0 +1,311 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io.statistics;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.GlobalConfiguration;
+import eu.stratosphere.core.fs.FSDataInputStream;
+import eu.stratosphere.core.fs.FileStatus;
+import eu.stratosphere.core.fs.FileSystem;
+import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.util.StringUtils;
+
+/**
+ * A persistent catalog of statistics about data sets, kept as files in a directory. The parallel instances
+ * of data sources and data sinks record the statistics of the data they read or write, and the optimizer uses
+ * them for later programs that read the same data sets.
+ * <p>
+ * Every data set has its own directory in the catalog, and every parallel instance writes its statistics
+ * into a separate file, such that no coordination between the instances is needed. When reading the
+ * statistics of a data set, the catalog merges the statistics of the latest run for which all parallel
+ * instances recorded their statistics.
+ * <p>
+ * The catalog is configured through the {@link ConfigConstants#STATISTICS_CATALOG_DIR_KEY} key.
+ */
+public class StatisticsCatalog {
+	
+	private static final Log LOG = LogFactory.getLog(StatisticsCatalog.class);
+	
+	private static final int MAGIC_NUMBER = 0x57a75c48;
+	
+	private final Path directory;
+	
+	
+	/**
+	 * Creates a catalog that keeps its files in the given directory.
+	 * 
+	 * @param directory The directory of the catalog.
+	 */
+	public StatisticsCatalog(Path directory) {
+		if (directory == null) {
+			throw new NullPointerException();
+		}
+		this.directory = directory;
+	}
+	
+	/**
+	 * Gets the catalog configured in the global configuration.
+	 * 
+	 * @return The configured catalog, or null, if no catalog is configured.
+	 */
+	public static StatisticsCatalog getConfiguredCatalog() {
+		final String dir = GlobalConfiguration.getString(ConfigConstants.STATISTICS_CATALOG_DIR_KEY, null);
+		return dir == null || dir.trim().isEmpty() ? null : new StatisticsCatalog(new Path(dir.trim()));
+	}
+	
+	/**
+	 * Gets the identifier of the data set stored under the given path, which is the fully qualified path.
+	 * 
+	 * @param path The path of the data set.
+	 * @return The identifier of the data set.
+	 * @throws IOException Thrown, if the file system of the path cannot be accessed.
+	 */
+	public static String getDataSetId(Path path) throws IOException {
+		return path.makeQualified(path.getFileSystem()).toString();
+	}
+	
+	public Path getDirectory() {
+		return this.directory;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Records the statistics of one parallel instance of a run that read or wrote the given data set.
+	 * 
+	 * @param dataSetId The identifier of the data set.
+	 * @param runId The identifier of the run, which is the same for all parallel instances.
+	 * @param partition The number of the parallel instance.
+	 * @param numPartitions The total number of parallel instances.
+	 * @param statistics The statistics collected by the parallel instance.
+	 * @throws IOException Thrown, if the statistics could not be written.
+	 */
+	public void write(String dataSetId, String runId, int partition, int numPartitions, StatisticsCollector statistics)
+			throws IOException
+	{
+		final Path dir = getDataSetDirectory(dataSetId);
+		final FileSystem fs = dir.getFileSystem();
+		if (!fs.exists(dir)) {
+			fs.mkdirs(dir);
+		}
+		
+		final DataOutputStream out = new DataOutputStream(fs.create(new Path(dir, partition + "-of-" + numPartitions), true));
+		try {
+			out.writeInt(MAGIC_NUMBER);
+			out.writeUTF(dataSetId);
+			out.writeUTF(runId);
+			out.writeLong(System.currentTimeMillis());
+			out.writeInt(partition);
+			out.writeInt(numPartitions);
+			statistics.write(out);
+		}
+		finally {
+			out.close();
+		}
+	}
+	
+	/**
+	 * Reads the statistics of the given data set.
+	 * 
+	 * @param dataSetId The identifier of the data set.
+	 * @return The statistics of the data set, or null, if the catalog contains no complete statistics for it.
+	 * @throws IOException Thrown, if the catalog could not be accessed.
+	 */
+	public DataSetStatistics read(String dataSetId) throws IOException {
+		final Path dir = getDataSetDirectory(dataSetId);
+		final FileSystem fs = dir.getFileSystem();
+		if (!fs.exists(dir)) {
+			return null;
+		}
+		
+		// read all partial statistics, grouped by run
+		final Map<String, List<Partial>> runs = new HashMap<String, List<Partial>>();
+		for (FileStatus file : fs.listStatus(dir)) {
+			if (file.isDir()) {
+				continue;
+			}
+			final Partial partial;
+			try {
+				partial = readPartial(fs, file.getPath());
+			}
+			catch (IOException ioex) {
+				// possibly being written right now
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Skipping unreadable statistics file " + file.getPath() + ": " + ioex.getMessage());
+				}
+				continue;
+			}
+			if (partial == null || !dataSetId.equals(partial.dataSetId)) {
+				continue;
+			}
+			
+			List<Partial> run = runs.get(partial.runId);
+			if (run == null) {
+				run = new ArrayList<Partial>();
+				runs.put(partial.runId, run);
+			}
+			run.add(partial);
+		}
+		
+		// find the latest complete run
+		List<Partial> latest = null;
+		long latestTimestamp = Long.MIN_VALUE;
+		for (List<Partial> run : runs.values()) {
+			final int numPartitions = run.get(0).numPartitions;
+			final boolean[] present = new boolean[numPartitions];
+			long timestamp = Long.MIN_VALUE;
+			int found = 0;
+			for (Partial p : run) {
+				if (p.numPartitions == numPartitions && p.partition >= 0 && p.partition < numPartitions &&
+						!present[p.partition])
+				{
+					present[p.partition] = true;
+					found++;
+				}
+				timestamp = Math.max(timestamp, p.timestamp);
+			}
+			if (found == numPartitions && timestamp > latestTimestamp) {
+				latest = run;
+				latestTimestamp = timestamp;
+			}
+		}
+		return latest == null ? null : merge(latest, latestTimestamp);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static DataSetStatistics merge(List<Partial> partials, long timestamp) {
+		final long[] recordsPerPartition = new long[partials.get(0).numPartitions];
+		long numRecords = 0;
+		long numBytes = 0;
+		DistinctCountSketch records = new DistinctCountSketch();
+		DistinctCountSketch[] fields = null;
+		long[][] histograms = null;
+		
+		for (Partial p : partials) {
+			final StatisticsCollector stats = p.statistics;
+			recordsPerPartition[p.partition] = stats.getNumRecords();
+			numRecords += stats.getNumRecords();
+			numBytes = (numBytes == BaseStatistics.SIZE_UNKNOWN || stats.getNumBytes() == BaseStatistics.SIZE_UNKNOWN) ?
+				BaseStatistics.SIZE_UNKNOWN : numBytes + stats.getNumBytes();
+			
+			// partitions without records have no sketches, but do not spoil the sketches of the others
+			if (stats.getNumRecords() == 0) {
+				continue;
+			}
+			if (records != null) {
+				if (stats.getRecordSketch() != null) {
+					records.merge(stats.getRecordSketch());
+				} else {
+					records = null;
+				}
+			}
+			
+			final DistinctCountSketch[] partialFields = stats.getFieldSketches();
+			final long[][] partialHistograms = stats.getFieldHistograms();
+			if (fields == null) {
+				fields = new DistinctCountSketch[partialFields.length];
+				histograms = new long[partialFields.length][StatisticsCollector.HISTOGRAM_BUCKETS];
+				for (int i = 0; i < fields.length; i++) {
+					fields[i] = new DistinctCountSketch();
+				}
+			}
+			if (partialFields.length < fields.length) {
+				final DistinctCountSketch[] shorter = new DistinctCountSketch[partialFields.length];
+				final long[][] shorterHistograms = new long[partialFields.length][];
+				System.arraycopy(fields, 0, shorter, 0, shorter.length);
+				System.arraycopy(histograms, 0, shorterHistograms, 0, shorterHistograms.length);
+				fields = shorter;
+				histograms = shorterHistograms;
+			}
+			for (int i = 0; i < fields.length; i++) {
+				fields[i].merge(partialFields[i]);
+				for (int k = 0; k < StatisticsCollector.HISTOGRAM_BUCKETS; k++) {
+					histograms[i][k] += partialHistograms[i][k];
+				}
+			}
+		}
+		
+		final long[] distinctFieldValues = new long[fields == null ? 0 : fields.length];
+		for (int i = 0; i < distinctFieldValues.length; i++) {
+			distinctFieldValues[i] = fields[i].getEstimate();
+		}
+		final long distinctRecords = records == null ? DataSetStatistics.NUM_DISTINCT_UNKNOWN :
+			Math.min(records.getEstimate(), numRecords);
+		
+		return new DataSetStatistics(timestamp, numRecords, numBytes, distinctRecords, distinctFieldValues,
+			histograms == null ? new long[0][] : histograms, recordsPerPartition);
+	}
+	
+	private static Partial readPartial(FileSystem fs, Path file) throws IOException {
+		final FSDataInputStream stream = fs.open(file);
+		try {
+			final DataInputStream in = new DataInputStream(stream);
+			if (in.readInt() != MAGIC_NUMBER) {
+				return null;
+			}
+			final Partial partial = new Partial();
+			partial.dataSetId = in.readUTF();
+			partial.runId = in.readUTF();
+			partial.timestamp = in.readLong();
+			partial.partition = in.readInt();
+			partial.numPartitions = in.readInt();
+			partial.statistics = new StatisticsCollector();
+			partial.statistics.read(in);
+			return partial;
+		}
+		finally {
+			stream.close();
+		}
+	}
+	
+	private Path getDataSetDirectory(String dataSetId) {
+		try {
+			final MessageDigest md5 = MessageDigest.getInstance("MD5");
+			return new Path(this.directory, StringUtils.byteToHexString(md5.digest(dataSetId.getBytes("UTF-8"))));
+		}
+		catch (NoSuchAlgorithmException nsaex) {
+			throw new RuntimeException("MD5 digest is not available.", nsaex);
+		}
+		catch (UnsupportedEncodingException ueex) {
+			throw new RuntimeException("UTF-8 encoding is not available.", ueex);
+		}
+	}
+	
+	/**
+	 * The statistics of one parallel instance.
+	 */
+	private static final class Partial {
+		private String dataSetId;
+		private String runId;
+		private long timestamp;
+		private int partition;
+		private int numPartitions;
+		private StatisticsCollector statistics;
+	}
+}
@@ -0,0 +1,242 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io.statistics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import eu.stratosphere.core.io.IOReadableWritable;
+import eu.stratosphere.types.Record;
+
+/**
+ * Collects statistics about the records that one parallel instance of a data source or data sink reads or writes:
+ * the number of records and bytes, the number of distinct records and, for {@link Record}s, the number of distinct
+ * values and a histogram of the values of each field. The statistics of all parallel instances are merged by the
+ * {@link StatisticsCatalog}.
+ * <p>
+ * The histogram of a field counts the records per bucket of the hash codes of the field's values. It tells how
+ * evenly a hash partitioning on the field distributes the records, and how frequent the most frequent values are.
+ * <p>
+ * Distinct records are only counted for types whose hash code depends on their value, i.e. for types that
+ * override {@link Object#hashCode()}. Fields are only tracked for {@link Record}s, whose fields can be hashed in
+ * their binary form. Other types, such as the tuples of the Java API, are not known to this module and are
+ * treated as opaque objects. If the records are of different types, only their number and size is collected.
+ */
+public class StatisticsCollector implements IOReadableWritable {
+	
+	/**
+	 * The number of leading fields of a record for which the distinct values are counted.
+	 */
+	public static final int MAX_TRACKED_FIELDS = 32;
+	
+	/**
+	 * The number of buckets of the histogram of each field.
+	 */
+	public static final int HISTOGRAM_BUCKETS = 64;
+	
+	private static final DistinctCountSketch[] NO_SKETCHES = new DistinctCountSketch[0];
+	
+	private static final long[][] NO_HISTOGRAMS = new long[0][];
+	
+	private long numRecords;
+	
+	private long numBytes = BaseStatistics.SIZE_UNKNOWN;
+	
+	private DistinctCountSketch recordSketch;
+	
+	private DistinctCountSketch[] fieldSketches = NO_SKETCHES;
+	
+	private long[][] fieldHistograms = NO_HISTOGRAMS;
+	
+	private Class<?> recordType;
+	
+	private boolean mixedTypes;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Adds a record to the statistics.
+	 * 
+	 * @param record The record to add.
+	 */
+	public void collect(Object record) {
+		this.numRecords++;
+		
+		if (record.getClass() != this.recordType) {
+			if (this.mixedTypes) {
+				return;
+			}
+			initForType(record.getClass());
+		}
+		if (this.recordSketch == null) {
+			return;
+		}
+		
+		if (record instanceof Record) {
+			final Record rec = (Record) record;
+			final int numFields = Math.min(rec.getNumFields(), MAX_TRACKED_FIELDS);
+			if (numFields > this.fieldSketches.length) {
+				growFields(numFields);
+			}
+			
+			int recordHash = 1;
+			for (int i = 0; i < numFields; i++) {
+				final int fieldHash = rec.hashFieldBinary(i);
+				this.fieldSketches[i].add(fieldHash);
+				this.fieldHistograms[i][(int) (DistinctCountSketch.spread(fieldHash) % HISTOGRAM_BUCKETS)]++;
+				recordHash = 31 * recordHash + fieldHash;
+			}
+			this.recordSketch.add(recordHash);
+		}
+		else {
+			this.recordSketch.add(record.hashCode());
+		}
+	}
+	
+	private void growFields(int numFields) {
+		final DistinctCountSketch[] sketches = new DistinctCountSketch[numFields];
+		final long[][] histograms = new long[numFields][];
+		System.arraycopy(this.fieldSketches, 0, sketches, 0, this.fieldSketches.length);
+		System.arraycopy(this.fieldHistograms, 0, histograms, 0, this.fieldHistograms.length);
+		for (int i = this.fieldSketches.length; i < numFields; i++) {
+			sketches[i] = new DistinctCountSketch();
+			histograms[i] = new long[HISTOGRAM_BUCKETS];
+		}
+		this.fieldSketches = sketches;
+		this.fieldHistograms = histograms;
+	}
+	
+	private void initForType(Class<?> type) {
+		if (this.recordType != null) {
+			// a different type than before. this should not happen, but we cannot trust the sketches any more.
+			// the type is not changed, such that records of the first type do not pick up the dropped sketches.
+			this.mixedTypes = true;
+			this.recordSketch = null;
+			this.fieldSketches = NO_SKETCHES;
+			this.fieldHistograms = NO_HISTOGRAMS;
+			return;
+		}
+		this.recordType = type;
+		
+		boolean valueHash = Record.class.isAssignableFrom(type);
+		if (!valueHash) {
+			try {
+				valueHash = type.getMethod("hashCode").getDeclaringClass() != Object.class;
+			} catch (NoSuchMethodException nsmex) {
+				// cannot happen, every class has a hash code method
+			}
+		}
+		this.recordSketch = valueHash ? new DistinctCountSketch() : null;
+	}
+	
+	/**
+	 * Adds the given number of bytes to the size of the data.
+	 * 
+	 * @param bytes The number of bytes to add.
+	 */
+	public void addBytes(long bytes) {
+		this.numBytes = this.numBytes == BaseStatistics.SIZE_UNKNOWN ? bytes : this.numBytes + bytes;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	public long getNumRecords() {
+		return this.numRecords;
+	}
+	
+	/**
+	 * Gets the number of bytes, or {@link BaseStatistics#SIZE_UNKNOWN}, if it is not known.
+	 * 
+	 * @return The number of bytes.
+	 */
+	public long getNumBytes() {
+		return this.numBytes;
+	}
+	
+	/**
+	 * Gets the sketch for the distinct records, or null, if the records are not counted.
+	 * 
+	 * @return The sketch for the distinct records.
+	 */
+	public DistinctCountSketch getRecordSketch() {
+		return this.recordSketch;
+	}
+	
+	/**
+	 * Gets the sketches for the distinct values of the individual fields, which is empty, if the records have
+	 * no fields that are counted.
+	 * 
+	 * @return The sketches for the distinct field values.
+	 */
+	public DistinctCountSketch[] getFieldSketches() {
+		return this.fieldSketches;
+	}
+	
+	/**
+	 * Gets the histograms of the values of the individual fields, each with {@link #HISTOGRAM_BUCKETS} buckets.
+	 * There is one histogram for each field sketch.
+	 * 
+	 * @return The histograms of the field values.
+	 */
+	public long[][] getFieldHistograms() {
+		return this.fieldHistograms;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	public void write(DataOutput out) throws IOException {
+		out.writeLong(this.numRecords);
+		out.writeLong(this.numBytes);
+		out.writeBoolean(this.recordSketch != null);
+		if (this.recordSketch != null) {
+			this.recordSketch.write(out);
+		}
+		out.writeInt(this.fieldSketches.length);
+		for (int i = 0; i < this.fieldSketches.length; i++) {
+			this.fieldSketches[i].write(out);
+			for (long count : this.fieldHistograms[i]) {
+				out.writeLong(count);
+			}
+		}
+	}
+	
+	@Override
+	public void read(DataInput in) throws IOException {
+		this.numRecords = in.readLong();
+		this.numBytes = in.readLong();
+		if (in.readBoolean()) {
+			this.recordSketch = new DistinctCountSketch();
+			this.recordSketch.read(in);
+		} else {
+			this.recordSketch = null;
+		}
+		final int numFields = in.readInt();
+		if (numFields < 0 || numFields > MAX_TRACKED_FIELDS) {
+			throw new IOException("Corrupt statistics: Invalid number of fields.");
+		}
+		this.fieldSketches = numFields == 0 ? NO_SKETCHES : new DistinctCountSketch[numFields];
+		this.fieldHistograms = numFields == 0 ? NO_HISTOGRAMS : new long[numFields][HISTOGRAM_BUCKETS];
+		for (int i = 0; i < numFields; i++) {
+			this.fieldSketches[i] = new DistinctCountSketch();
+			this.fieldSketches[i].read(in);
+			for (int k = 0; k < HISTOGRAM_BUCKETS; k++) {
+				this.fieldHistograms[i][k] = in.readLong();
+			}
+		}
+		this.recordType = null;
+		this.mixedTypes = false;
+	}
+}
@@ -58,6 +58,12 @@ public class BulkIterationBase<T> extends SingleInputOperator<T, T, AbstractFunc
 	
 	private int numberOfIterations = -1;
 	
+	private String checkpointPath;
+	
+	private int checkpointInterval;
+	
+	private boolean resumeFromCheckpoint;
+	
 	protected Operator<?> terminationCriterion;
 	
 	// --------------------------------------------------------------------------------------------
@@ -139,6 +145,58 @@ public class BulkIterationBase<T> extends SingleInputOperator<T, T, AbstractFunc
 		return this.numberOfIterations;
 	}
 	
+	/**
+	 * Makes the iteration write a snapshot of its partial solution to the given path every <code>interval</code>
+	 * supersteps. The snapshots are only resumed from if {@link #setResumeFromCheckpoint(boolean)} is set, otherwise
+	 * the iteration discards the snapshots in the path when it starts. The path must be specific to the job, and it
+	 * is cleared when the iteration terminates.
+	 * 
+	 * @param path The directory for the snapshots, in any of the supported file systems.
+	 * @param interval The number of supersteps between two snapshots.
+	 */
+	public void setCheckpointing(String path, int interval) {
+		if (path == null) {
+			throw new NullPointerException("The checkpoint path must not be null.");
+		}
+		if (interval < 1) {
+			throw new IllegalArgumentException("The checkpoint interval must be at least one.");
+		}
+		this.checkpointPath = path;
+		this.checkpointInterval = interval;
+	}
+	
+	/**
+	 * @return The directory for the superstep snapshots, or <code>null</code>, if no snapshots are taken.
+	 */
+	public String getCheckpointPath() {
+		return this.checkpointPath;
+	}
+	
+	/**
+	 * @return The number of supersteps between two snapshots, or zero, if no snapshots are taken.
+	 */
+	public int getCheckpointInterval() {
+		return this.checkpointInterval;
+	}
+	
+	/**
+	 * Sets whether the iteration resumes from the latest snapshot that an earlier run of the same program left in
+	 * the checkpoint path, for example after a failure. The snapshots are not checked against the inputs of the
+	 * iteration, so resuming gives wrong results if the inputs changed since the snapshots were taken.
+	 * 
+	 * @param resume Flag whether to resume from the latest complete snapshot.
+	 */
+	public void setResumeFromCheckpoint(boolean resume) {
+		this.resumeFromCheckpoint = resume;
+	}
+	
+	/**
+	 * @return True, if the iteration resumes from the latest complete snapshot, false otherwise.
+	 */
+	public boolean isResumingFromCheckpoint() {
+		return this.resumeFromCheckpoint;
+	}
+	
 	@Override
 	public AggregatorRegistry getAggregators() {
 		return this.aggregators;
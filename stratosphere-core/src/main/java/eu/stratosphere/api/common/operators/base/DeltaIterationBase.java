@@ -64,6 +64,18 @@ public class DeltaIterationBase<ST, WT> extends DualInputOperator<ST, WT, ST, Ab
 	 * The maximum number of iterations. Possibly used only as a safeguard.
 	 */
 	private int maxNumberOfIterations = -1;
+	
+	private String checkpointPath;
+	
+	private int checkpointInterval;
+	
+	private boolean resumeFromCheckpoint;
+	
+	private boolean asynchronous;
+	
+	private int[] worksetDeduplicationKeys;
+	
+	private int worksetMinimumField = -1;
 
 	private final AggregatorRegistry aggregators = new AggregatorRegistry();
 
@@ -102,6 +114,104 @@ public class DeltaIterationBase<ST, WT> extends DualInputOperator<ST, WT, ST, Ab
 		return this.maxNumberOfIterations;
 	}
 	
+	/**
+	 * Makes the iteration write a snapshot of its solution set and workset to the given path every
+	 * <code>interval</code> supersteps. The snapshots are only resumed from if {@link #setResumeFromCheckpoint(boolean)}
+	 * is set, otherwise the iteration discards the snapshots in the path when it starts. The path must be specific to
+	 * the job, and it is cleared when the iteration terminates. Asynchronous iterations cannot take snapshots.
+	 * 
+	 * @param path The directory for the snapshots, in any of the supported file systems.
+	 * @param interval The number of supersteps between two snapshots.
+	 */
+	public void setCheckpointing(String path, int interval) {
+		if (path == null) {
+			throw new NullPointerException("The checkpoint path must not be null.");
+		}
+		if (interval < 1) {
+			throw new IllegalArgumentException("The checkpoint interval must be at least one.");
+		}
+		if (this.asynchronous) {
+			throw new IllegalStateException("Asynchronous delta iterations cannot take superstep snapshots.");
+		}
+		this.checkpointPath = path;
+		this.checkpointInterval = interval;
+	}
+	
+	public String getCheckpointPath() {
+		return this.checkpointPath;
+	}
+	
+	public int getCheckpointInterval() {
+		return this.checkpointInterval;
+	}
+	
+	/**
+	 * Sets whether the iteration resumes from the latest snapshot that an earlier run of the same program left in
+	 * the checkpoint path. The snapshots are not checked against the inputs of the iteration, so resuming gives
+	 * wrong results if the inputs changed since the snapshots were taken.
+	 * 
+	 * @param resume Flag whether to resume from the latest complete snapshot.
+	 */
+	public void setResumeFromCheckpoint(boolean resume) {
+		this.resumeFromCheckpoint = resume;
+	}
+	
+	public boolean isResumingFromCheckpoint() {
+		return this.resumeFromCheckpoint;
+	}
+	
+	/**
+	 * Sets whether the parallel instances of the iteration start the next superstep without waiting for the
+	 * global termination check of the previous one. The check is then evaluated one superstep behind; the
+	 * values of the global aggregates that the step function sees are from two supersteps before, rather
+	 * than from the previous superstep. The supersteps of the step function itself are still delimited by
+	 * barriers on its data channels. Asynchronous iterations cannot take snapshots.
+	 * 
+	 * @param asynchronous True, if the iteration should not wait for the global termination check.
+	 */
+	public void setAsynchronous(boolean asynchronous) {
+		if (asynchronous && this.checkpointPath != null) {
+			throw new IllegalStateException("Asynchronous delta iterations cannot take superstep snapshots.");
+		}
+		this.asynchronous = asynchronous;
+	}
+	
+	public boolean isAsynchronous() {
+		return this.asynchronous;
+	}
+	
+	/**
+	 * Makes each parallel instance of the iteration keep only one element per key of the workset that it produces
+	 * in a superstep. If a minimum field is given, the element with the smallest value in that field is kept,
+	 * otherwise an arbitrary one. Elements with the same key that are produced by different parallel instances
+	 * are not combined, and elements may remain duplicate if the workset of a superstep exceeds the memory
+	 * for the deduplication.
+	 * 
+	 * @param keyFields The positions of the key fields in the workset elements.
+	 * @param minimumField The position of the field whose smallest value is kept, or <code>-1</code>.
+	 */
+	public void setWorksetDeduplication(int[] keyFields, int minimumField) {
+		if (keyFields == null) {
+			throw new NullPointerException("The workset key fields must not be null.");
+		}
+		if (keyFields.length == 0) {
+			throw new IllegalArgumentException("The workset key fields must not be empty.");
+		}
+		if (minimumField < -1) {
+			throw new IllegalArgumentException("The minimum field must not be negative.");
+		}
+		this.worksetDeduplicationKeys = keyFields;
+		this.worksetMinimumField = minimumField;
+	}
+	
+	public int[] getWorksetDeduplicationKeys() {
+		return this.worksetDeduplicationKeys;
+	}
+	
+	public int getWorksetMinimumField() {
+		return this.worksetMinimumField;
+	}
+	
 	@Override
 	public AggregatorRegistry getAggregators() {
 		return this.aggregators;
@@ -54,6 +54,23 @@ public final class ConfigConstants {
 	 */
 	public static final String JOB_MANAGER_IPC_HANDLERS_KEY = "jobmanager.rpc.numhandler";
 
+	/**
+	 * The config parameter defining the policy the queue scheduler uses to admit submitted jobs
+	 * (<code>none</code>, <code>fifo</code> or <code>fair</code>).
+	 */
+	public static final String JOB_MANAGER_QUEUE_POLICY_KEY = "jobmanager.scheduler.queue-policy";
+
+	/**
+	 * The config parameter defining the maximum number of instances a single job may occupy.
+	 */
+	public static final String JOB_MANAGER_MAX_INSTANCES_PER_JOB_KEY = "jobmanager.scheduler.max-instances-per-job";
+
+	/**
+	 * The config parameter defining the maximum managed memory a single job may use over all its tasks (in
+	 * megabytes).
+	 */
+	public static final String JOB_MANAGER_MAX_MEMORY_PER_JOB_KEY = "jobmanager.scheduler.max-memory-per-job";
+
 	/**
 	 * The config parameter defining the task manager's IPC port from the configuration.
 	 */
@@ -85,6 +102,19 @@ public final class ConfigConstants {
 	 * The key for the config parameter defining whether the memory manager allocates memory lazy.
 	 */
 	public static final String TASK_MANAGER_MEMORY_LAZY_ALLOCATION_KEY = "taskmanager.memory.lazyalloc";
+
+	/**
+	 * The key for the config parameter defining whether the memory manager lends unused memory to operators
+	 * that can grow beyond their assigned memory and give it back on request.
+	 */
+	public static final String TASK_MANAGER_MEMORY_ELASTIC_KEY = "taskmanager.memory.elastic";
+
+	/**
+	 * The config parameter defining the time (in milliseconds) that a memory allocation waits for lent memory
+	 * to be returned. Allocations only wait if the memory manager lends memory, see
+	 * {@link #TASK_MANAGER_MEMORY_ELASTIC_KEY}.
+	 */
+	public static final String TASK_MANAGER_MEMORY_REVOCATION_TIMEOUT_KEY = "taskmanager.memory.revocation-timeout";
 	
 	
 	/**
@@ -149,6 +179,17 @@ public final class ConfigConstants {
 	 */
 	public static final String USE_MULTICAST_FOR_BROADCAST = "taskmanager.runtime.multicast-for-broadcast";
 	
+	/**
+	 * The config parameter defining the number of buffers with which data sinks write their files asynchronously.
+	 * A value of 0 indicates synchronous writes.
+	 */
+	public static final String SINK_ASYNC_WRITE_BUFFERS_KEY = "taskmanager.runtime.sink.async-write-buffers";
+	
+	/**
+	 * The config parameter defining the size of the buffers for asynchronous writes of data sinks.
+	 */
+	public static final String SINK_ASYNC_WRITE_BUFFER_SIZE_KEY = "taskmanager.runtime.sink.async-write-buffer-size";
+	
 	/**
 	 * The parameter defining the polling interval (in seconds) for the JobClient.
 	 */
@@ -183,6 +224,22 @@ public final class ConfigConstants {
 	 */
 	public static final String FILESYSTEM_OUTPUT_ALWAYS_CREATE_DIRECTORY_KEY = "fs.output.always-create-directory";
 
+	/**
+	 * Key to specify whether files of the local file system are read through memory mappings.
+	 */
+	public static final String FILESYSTEM_LOCAL_MEMORY_MAPPED_READS_KEY = "fs.local.memory-mapped-reads";
+
+	/**
+	 * Key to specify the number of threads that fetch the block locations of the files of an input concurrently.
+	 */
+	public static final String FILESYSTEM_LISTING_THREADS_KEY = "fs.listing.threads";
+
+	/**
+	 * Key to specify how long directory listings and block locations of file inputs are cached (in msecs).
+	 * The cached listings are only used for the optimizer statistics. A value of zero disables the cache.
+	 */
+	public static final String FILESYSTEM_LISTING_CACHE_TTL_KEY = "fs.listing.cache.ttl";
+
 	// ---------------------------- Compiler -------------------------------
 
 	/**
@@ -202,6 +259,26 @@ public final class ConfigConstants {
 	 */
 	public static final String DELIMITED_FORMAT_MAX_SAMPLE_LENGTH_KEY = "compiler.delimited-informat.max-sample-len";
 	
+	/**
+	 * The number of threads that the compiler uses to enumerate the alternatives of independent parts
+	 * of a plan. A value of one enumerates all plans sequentially, a value of -1 uses one thread per
+	 * available processor.
+	 */
+	public static final String COMPILER_ENUMERATION_THREADS_KEY = "compiler.enumeration.threads";
+	
+	/**
+	 * The number of optimized plans that the compiler keeps to reuse them for later submissions of the same
+	 * program with different parameters. A value of zero disables the plan cache.
+	 */
+	public static final String COMPILER_PLAN_CACHE_SIZE_KEY = "compiler.plan-cache.size";
+	
+	/**
+	 * The directory of the persistent statistics catalog, into which data sources and sinks record the
+	 * statistics of the data they read and write, and from which the compiler takes the statistics of its
+	 * inputs. The catalog is disabled, if no directory is given.
+	 */
+	public static final String STATISTICS_CATALOG_DIR_KEY = "statistics.catalog.dir";
+	
 	
 	// ------------------------- JobManager Web Frontend ----------------------
 	
@@ -296,6 +373,21 @@ public final class ConfigConstants {
 	 * The default number of handler threads for the jobmanager RPC service.
 	 */
 	public static final int DEFAULT_JOB_MANAGER_IPC_HANDLERS = 8;
+
+	/**
+	 * The default policy of the queue scheduler (start every job immediately).
+	 */
+	public static final String DEFAULT_JOB_MANAGER_QUEUE_POLICY = "none";
+
+	/**
+	 * The default maximum number of instances per job (no limit).
+	 */
+	public static final int DEFAULT_JOB_MANAGER_MAX_INSTANCES_PER_JOB = -1;
+
+	/**
+	 * The default maximum managed memory per job (no limit).
+	 */
+	public static final int DEFAULT_JOB_MANAGER_MAX_MEMORY_PER_JOB = -1;
 	
 	/**
 	 * The default network port the task manager expects incoming IPC connections.
@@ -322,6 +414,16 @@ public final class ConfigConstants {
 	 */
 	public static final boolean DEFAULT_TASK_MANAGER_MEMORY_LAZY_ALLOCATION = false;
 
+	/**
+	 * The default setting for lending unused memory to operators.
+	 */
+	public static final boolean DEFAULT_TASK_MANAGER_MEMORY_ELASTIC = false;
+
+	/**
+	 * The default time (in milliseconds) that a memory allocation waits for lent memory to be returned.
+	 */
+	public static final long DEFAULT_TASK_MANAGER_MEMORY_REVOCATION_TIMEOUT = 1000;
+
 	/**
 	 * Default number of buffers used in the network stack.
 	 */
@@ -381,6 +483,16 @@ public final class ConfigConstants {
 	 */
 	public static final int DEFAULT_FS_STREAM_OPENING_TIMEOUT = 0;
 	
+	/**
+	 * The default number of buffers for asynchronous writes of data sinks: 0 (write synchronously).
+	 */
+	public static final int DEFAULT_SINK_ASYNC_WRITE_BUFFERS = 0;
+	
+	/**
+	 * The default size of the buffers for asynchronous writes of data sinks: 1 MiByte.
+	 */
+	public static final int DEFAULT_SINK_ASYNC_WRITE_BUFFER_SIZE = 1024 * 1024;
+	
 	
 	// ------------------------ File System Bahavior ------------------------
 
@@ -393,6 +505,21 @@ public final class ConfigConstants {
 	 * The default behavior for output directory creating (create only directory when parallelism > 1).
 	 */
 	public static final boolean DEFAULT_FILESYSTEM_ALWAYS_CREATE_DIRECTORY = false;
+
+	/**
+	 * The default behavior for reading local files (= read through streams, not memory mappings).
+	 */
+	public static final boolean DEFAULT_FILESYSTEM_LOCAL_MEMORY_MAPPED_READS = false;
+
+	/**
+	 * The default number of threads that fetch block locations concurrently.
+	 */
+	public static final int DEFAULT_FILESYSTEM_LISTING_THREADS = 16;
+
+	/**
+	 * The default time to live of cached directory listings and block locations (0, the cache is disabled).
+	 */
+	public static final long DEFAULT_FILESYSTEM_LISTING_CACHE_TTL = 0;
 	
 	
 	// ---------------------------- Compiler -------------------------------
@@ -412,6 +539,17 @@ public final class ConfigConstants {
 	 */
 	public static final int DEFAULT_DELIMITED_FORMAT_MAX_SAMPLE_LEN = 2 * 1024 * 1024;
 	
+	/**
+	 * The default number of plan enumeration threads of the compiler, which is one, so plans are enumerated
+	 * sequentially unless parallel enumeration is configured.
+	 */
+	public static final int DEFAULT_COMPILER_ENUMERATION_THREADS = 1;
+	
+	/**
+	 * The default size of the compiler's plan cache, which is disabled by default.
+	 */
+	public static final int DEFAULT_COMPILER_PLAN_CACHE_SIZE = 0;
+	
 	
 	// ------------------------- JobManager Web Frontend ----------------------
 	
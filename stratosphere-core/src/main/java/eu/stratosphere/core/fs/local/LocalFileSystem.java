@@ -29,6 +29,8 @@ import java.net.UnknownHostException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.core.fs.BlockLocation;
 import eu.stratosphere.core.fs.FSDataInputStream;
 import eu.stratosphere.core.fs.FSDataOutputStream;
@@ -59,6 +61,17 @@ public class LocalFileSystem extends FileSystem {
 	 */
 	private final String hostName;
 
+	/**
+	 * Files of at least this size are read through memory mappings, if memory-mapped reads are enabled. Smaller
+	 * files are read faster than they are mapped.
+	 */
+	private static final long MIN_MEMORY_MAPPED_FILE_SIZE = 1024 * 1024;
+
+	/**
+	 * Flag indicating whether files are read through memory mappings.
+	 */
+	private final boolean memoryMappedReads;
+
 	private static final Log LOG = LogFactory.getLog(LocalFileSystem.class);
 
 	/**
@@ -76,6 +89,9 @@ public class LocalFileSystem extends FileSystem {
 		}
 
 		this.hostName = tmp;
+
+		this.memoryMappedReads = GlobalConfiguration.getBoolean(ConfigConstants.FILESYSTEM_LOCAL_MEMORY_MAPPED_READS_KEY,
+			ConfigConstants.DEFAULT_FILESYSTEM_LOCAL_MEMORY_MAPPED_READS);
 	}
 
 
@@ -129,6 +145,9 @@ public class LocalFileSystem extends FileSystem {
 	@Override
 	public FSDataInputStream open(final Path f) throws IOException {
 		final File file = pathToFile(f);
+		if (this.memoryMappedReads && file.length() >= MIN_MEMORY_MAPPED_FILE_SIZE) {
+			return new LocalMappedDataInputStream(file);
+		}
 		return new LocalDataInputStream(file);
 	}
 
@@ -0,0 +1,288 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.core.fs.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.core.fs.FSDataInputStream;
+
+/**
+ * A data input stream to a file on the local file system that reads the file through a memory mapping instead of
+ * read calls. The bytes are copied directly from the page cache into the caller's buffer, which saves the system
+ * call per read and the intermediate native buffer that a {@link java.io.FileInputStream} copies through.
+ * <p>
+ * Files larger than the region size are mapped one region at a time. A region is remapped when a read or a seek
+ * leaves the currently mapped region. A region is unmapped right away when it is replaced or the stream is closed,
+ * so each open stream holds at most one mapping. Only if the JVM offers no way to unmap a buffer explicitly, the
+ * mapping is released once the buffer is garbage collected.
+ */
+public class LocalMappedDataInputStream extends FSDataInputStream {
+
+	private static final Log LOG = LogFactory.getLog(LocalMappedDataInputStream.class);
+
+	/**
+	 * The default size of the mapped regions, 256 MiBytes.
+	 */
+	public static final int DEFAULT_REGION_SIZE = 256 * 1024 * 1024;
+
+	private final RandomAccessFile file;
+
+	private final FileChannel channel;
+
+	private final long fileLength;
+
+	private final int regionSize;
+
+	/**
+	 * The currently mapped region, or null, if no region is mapped.
+	 */
+	private MappedByteBuffer region;
+
+	/**
+	 * The offset of the currently mapped region in the file.
+	 */
+	private long regionOffset;
+
+	/**
+	 * The position in the file, where the next read starts.
+	 */
+	private long position;
+
+	/**
+	 * Flag indicating whether the stream has been closed.
+	 */
+	private boolean closed;
+
+	/**
+	 * Constructs a new <code>LocalMappedDataInputStream</code> to the given file, mapping regions of the default size.
+	 * 
+	 * @param file
+	 *        the file to read
+	 * @throws IOException
+	 *         thrown if the file cannot be opened
+	 */
+	public LocalMappedDataInputStream(final File file) throws IOException {
+		this(file, DEFAULT_REGION_SIZE);
+	}
+
+	/**
+	 * Constructs a new <code>LocalMappedDataInputStream</code> to the given file.
+	 * 
+	 * @param file
+	 *        the file to read
+	 * @param regionSize
+	 *        the maximal number of bytes that are mapped at a time
+	 * @throws IOException
+	 *         thrown if the file cannot be opened
+	 */
+	public LocalMappedDataInputStream(final File file, final int regionSize) throws IOException {
+
+		if (regionSize <= 0) {
+			throw new IllegalArgumentException("The region size must be positive.");
+		}
+
+		this.file = new RandomAccessFile(file, "r");
+		this.channel = this.file.getChannel();
+		this.fileLength = this.channel.size();
+		this.regionSize = regionSize;
+	}
+
+
+	@Override
+	public void seek(final long desired) throws IOException {
+
+		if (desired < 0) {
+			throw new IOException("Cannot seek to a negative position.");
+		}
+
+		this.position = desired;
+	}
+
+
+	@Override
+	public int read() throws IOException {
+
+		if (!mapRegion()) {
+			return -1;
+		}
+
+		final int b = this.region.get((int) (this.position - this.regionOffset)) & 0xff;
+		this.position++;
+		return b;
+	}
+
+
+	@Override
+	public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+
+		if (length == 0) {
+			return 0;
+		}
+		if (!mapRegion()) {
+			return -1;
+		}
+
+		final int regionPos = (int) (this.position - this.regionOffset);
+		final int toRead = Math.min(length, this.region.limit() - regionPos);
+
+		this.region.position(regionPos);
+		this.region.get(buffer, offset, toRead);
+		this.position += toRead;
+		return toRead;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+
+		releaseRegion();
+		this.file.close();
+	}
+
+
+	@Override
+	public int available() throws IOException {
+
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(0, this.fileLength - this.position));
+	}
+
+
+	@Override
+	public long skip(final long n) throws IOException {
+
+		final long skipped = Math.max(0, Math.min(n, this.fileLength - this.position));
+		this.position += skipped;
+		return skipped;
+	}
+
+	/**
+	 * Makes sure that the region containing the current position is mapped.
+	 * 
+	 * @return false, if the current position is at or behind the end of the file, true otherwise
+	 */
+	private boolean mapRegion() throws IOException {
+
+		if (this.closed) {
+			throw new IOException("The stream is closed.");
+		}
+		if (this.position >= this.fileLength) {
+			return false;
+		}
+
+		if (this.region == null || this.position < this.regionOffset
+			|| this.position >= this.regionOffset + this.region.limit()) {
+
+			releaseRegion();
+			this.regionOffset = this.position - (this.position % this.regionSize);
+			final long size = Math.min(this.regionSize, this.fileLength - this.regionOffset);
+			this.region = this.channel.map(FileChannel.MapMode.READ_ONLY, this.regionOffset, size);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Unmaps the currently mapped region, if there is one. The region must not be accessed afterwards.
+	 */
+	private void releaseRegion() {
+
+		final MappedByteBuffer r = this.region;
+		if (r != null) {
+			this.region = null;
+			unmap(r);
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * The <code>sun.misc.Unsafe</code> instance offering <code>invokeCleaner(ByteBuffer)</code> (Java 9 and later),
+	 * or null, if it is not available.
+	 */
+	private static final Object UNSAFE;
+
+	/**
+	 * The method that unmaps a buffer, either <code>Unsafe.invokeCleaner(ByteBuffer)</code> or the
+	 * <code>cleaner()</code> method of the direct buffer (up to Java 8), or null, if there is neither.
+	 */
+	private static final Method UNMAP_METHOD;
+
+	static {
+		Object unsafe = null;
+		Method unmapMethod = null;
+		try {
+			final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			unsafe = theUnsafe.get(null);
+			unmapMethod = invokeCleaner;
+		} catch (Throwable t) {
+			try {
+				unmapMethod = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+			} catch (Throwable tt) {
+				LOG.info("Memory mappings cannot be released explicitly and are released by the garbage collector.");
+			}
+		}
+		UNSAFE = unsafe;
+		UNMAP_METHOD = unmapMethod;
+	}
+
+	/**
+	 * Releases the mapping of the given buffer right away. The buffer must not be accessed afterwards.
+	 * 
+	 * @param buffer
+	 *        the buffer to unmap
+	 * @return true, if the mapping was released, false, if it is left to the garbage collector
+	 */
+	static boolean unmap(final MappedByteBuffer buffer) {
+
+		if (UNMAP_METHOD == null) {
+			return false;
+		}
+
+		try {
+			if (UNSAFE != null) {
+				UNMAP_METHOD.invoke(UNSAFE, buffer);
+			} else {
+				final Object cleaner = UNMAP_METHOD.invoke(buffer);
+				if (cleaner == null) {
+					return false;
+				}
+				cleaner.getClass().getMethod("clean").invoke(cleaner);
+			}
+			return true;
+		} catch (Throwable t) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Could not unmap a memory mapped region, leaving it to the garbage collector.", t);
+			}
+			return false;
+		}
+	}
+}
@@ -45,4 +45,9 @@ public class NothingTypeInfo extends TypeInformation<Nothing> {
 	public TypeSerializer<Nothing> createSerializer() {
 		throw new RuntimeException("The Nothing type cannot have a serializer.");
 	}
+	
+	@Override
+	public String toString() {
+		return "Nothing";
+	}
 }
@@ -904,6 +904,36 @@ public final class Record implements Value, CopyableValue<Record> {
 		return true;
 	}
 	
+	/**
+	 * Computes a hash code over the binary representation of the field at the given position. Fields with
+	 * equal values have equal binary representations and hence equal hash codes, such that the hash code can
+	 * be used to estimate the number of distinct values of a field without knowing its type. The hash code is
+	 * not necessarily equal to the hash code of the deserialized field value.
+	 * 
+	 * @param fieldNum The position of the field.
+	 * @return The hash code of the field's binary representation, or zero, if the field is null.
+	 */
+	public int hashFieldBinary(int fieldNum) {
+		if (fieldNum < 0 || fieldNum >= this.numFields) {
+			throw new IndexOutOfBoundsException();
+		}
+		updateBinaryRepresenation();
+		
+		final int offset = this.offsets[fieldNum];
+		if (offset == NULL_INDICATOR_OFFSET) {
+			return 0;
+		}
+		
+		final byte[] data = this.binaryData;
+		final int end = offset + this.lengths[fieldNum];
+		// FNV-1a, which, unlike the polynomial hash of the Java collections, spreads small values well
+		int hash = 0x811c9dc5;
+		for (int i = offset; i < end; i++) {
+			hash = (hash ^ (data[i] & 0xff)) * 0x01000193;
+		}
+		return hash;
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	
 	/**
@@ -15,6 +15,8 @@ package eu.stratosphere.types.parser;
 
 import java.nio.charset.Charset;
 
+import eu.stratosphere.util.ByteScanner;
+
 /**
  * Converts a variable length field of a byte array into a {@link String}. The byte contents between
  * delimiters is interpreted as an ASCII string. The string may be quoted in double quotes. For quoted
@@ -52,11 +54,9 @@ public class AsciiStringParser extends FieldParser<String> {
 			
 			// we count only from after the quote
 			int quoteStart = i;
-			while (i < limit && bytes[i] != QUOTE_DOUBLE) {
-				i++;
-			}
+			i = ByteScanner.indexOf(bytes, i, limit, QUOTE_DOUBLE);
 			
-			if (i < limit) {
+			if (i >= 0) {
 				// end of the string
 				this.result = new String(bytes, quoteStart, i-quoteStart, CHARSET);
 				
@@ -81,9 +81,10 @@ public class AsciiStringParser extends FieldParser<String> {
 			}
 		}
 		else {
-			// unquoted string
-			while (i < limit && bytes[i] != delByte) {
-				i++;
+			// unquoted string, search the delimiter a word at a time
+			i = ByteScanner.indexOf(bytes, i, limit, delByte);
+			if (i < 0) {
+				i = limit;
 			}
 			
 			// set from the beginning. unquoted strings include the leading whitespaces
@@ -32,9 +32,8 @@ public class DecimalTextDoubleParser extends FieldParser<DoubleValue> {
 			i++;
 		}
 		
-		String str = new String(bytes, startPos, i-startPos);
 		try {
-			double value = Double.parseDouble(str);
+			double value = DoubleParser.parseDouble(bytes, startPos, i);
 			reusable.setValue(value);
 			this.result = reusable;
 			return (i == limit) ? limit : i+1;
@@ -32,9 +32,8 @@ public class DecimalTextFloatParser extends FieldParser<FloatValue> {
 			i++;
 		}
 		
-		String str = new String(bytes, startPos, i-startPos);
 		try {
-			float value = Float.parseFloat(str);
+			float value = FloatParser.parseFloat(bytes, startPos, i);
 			reusable.setValue(value);
 			this.result = reusable;
 			return (i == limit) ? limit : i+1;
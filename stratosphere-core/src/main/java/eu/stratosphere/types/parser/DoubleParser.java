@@ -20,6 +20,14 @@ public class DoubleParser extends FieldParser<Double> {
 	
 	private static final Double DOUBLE_INSTANCE = Double.valueOf(0.0);
 	
+	/** The largest mantissa that is exactly representable as a double. */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+	
+	/** The powers of ten that are exactly representable as a double. */
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+	
 	private double result;
 	
 	@Override
@@ -31,9 +39,8 @@ public class DoubleParser extends FieldParser<Double> {
 			i++;
 		}
 		
-		String str = new String(bytes, startPos, i-startPos);
 		try {
-			this.result = Double.parseDouble(str);
+			this.result = parseDouble(bytes, startPos, i);
 			return (i == limit) ? limit : i+1;
 		}
 		catch (NumberFormatException e) {
@@ -52,6 +59,57 @@ public class DoubleParser extends FieldParser<Double> {
 		return Double.valueOf(this.result);
 	}
 	
+	/**
+	 * Parses the bytes from the start position up to the end position into a double, without creating intermediate
+	 * objects for plain decimal numbers (an optional sign, digits, and an optional decimal point) whose digits
+	 * form an exactly representable mantissa. Such numbers are converted with a single, correctly rounded division.
+	 * All other numbers are parsed through {@link Double#parseDouble(String)}.
+	 * 
+	 * @throws NumberFormatException Thrown when the bytes do not represent a correct number.
+	 */
+	static double parseDouble(byte[] bytes, int startPos, int endPos) {
+		int i = startPos;
+		
+		boolean negative = false;
+		if (i < endPos && (bytes[i] == '-' || bytes[i] == '+')) {
+			negative = bytes[i] == '-';
+			i++;
+		}
+		
+		long mantissa = 0;
+		int numDigits = 0;
+		int scale = 0;
+		boolean fraction = false;
+		
+		for (; i < endPos; i++) {
+			final byte b = bytes[i];
+			if (b >= '0' && b <= '9') {
+				mantissa = mantissa * 10 + (b - '0');
+				numDigits++;
+				if (fraction) {
+					scale++;
+				}
+				if (mantissa > MAX_EXACT_MANTISSA) {
+					break;
+				}
+			}
+			else if (b == '.' && !fraction) {
+				fraction = true;
+			}
+			else {
+				break;
+			}
+		}
+		
+		if (i < endPos || numDigits == 0 || scale >= POWERS_OF_TEN.length) {
+			// exponents, special values, surrounding whitespace, too many digits, or malformed numbers
+			return Double.parseDouble(new String(bytes, startPos, endPos - startPos));
+		}
+		
+		final double value = scale == 0 ? (double) mantissa : (double) mantissa / POWERS_OF_TEN[scale];
+		return negative ? -value : value;
+	}
+	
 	/**
 	 * Static utility to parse a field of type double from a byte sequence that represents text characters
 	 * (such as when read from a file stream).
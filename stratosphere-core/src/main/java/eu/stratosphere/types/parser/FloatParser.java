@@ -18,6 +18,13 @@ package eu.stratosphere.types.parser;
  */
 public class FloatParser extends FieldParser<Float> {
 	
+	/** The largest mantissa that is exactly representable as a float. */
+	private static final long MAX_EXACT_MANTISSA = 1L << 24;
+	
+	/** The powers of ten that are exactly representable as a float. */
+	private static final float[] POWERS_OF_TEN = {
+		1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+	
 	private float result;
 	
 	@Override
@@ -30,9 +37,8 @@ public class FloatParser extends FieldParser<Float> {
 			i++;
 		}
 		
-		String str = new String(bytes, startPos, i-startPos);
 		try {
-			this.result = Float.parseFloat(str);
+			this.result = parseFloat(bytes, startPos, i);
 			return (i == limit) ? limit : i+1;
 		}
 		catch (NumberFormatException e) {
@@ -51,6 +57,57 @@ public class FloatParser extends FieldParser<Float> {
 		return Float.valueOf(this.result);
 	}
 	
+	/**
+	 * Parses the bytes from the start position up to the end position into a float, without creating intermediate
+	 * objects for plain decimal numbers (an optional sign, digits, and an optional decimal point) whose digits
+	 * form an exactly representable mantissa. Such numbers are converted with a single, correctly rounded division.
+	 * All other numbers are parsed through {@link Float#parseFloat(String)}.
+	 * 
+	 * @throws NumberFormatException Thrown when the bytes do not represent a correct number.
+	 */
+	static float parseFloat(byte[] bytes, int startPos, int endPos) {
+		int i = startPos;
+		
+		boolean negative = false;
+		if (i < endPos && (bytes[i] == '-' || bytes[i] == '+')) {
+			negative = bytes[i] == '-';
+			i++;
+		}
+		
+		long mantissa = 0;
+		int numDigits = 0;
+		int scale = 0;
+		boolean fraction = false;
+		
+		for (; i < endPos; i++) {
+			final byte b = bytes[i];
+			if (b >= '0' && b <= '9') {
+				mantissa = mantissa * 10 + (b - '0');
+				numDigits++;
+				if (fraction) {
+					scale++;
+				}
+				if (mantissa > MAX_EXACT_MANTISSA) {
+					break;
+				}
+			}
+			else if (b == '.' && !fraction) {
+				fraction = true;
+			}
+			else {
+				break;
+			}
+		}
+		
+		if (i < endPos || numDigits == 0 || scale >= POWERS_OF_TEN.length) {
+			// exponents, special values, surrounding whitespace, too many digits, or malformed numbers
+			return Float.parseFloat(new String(bytes, startPos, endPos - startPos));
+		}
+		
+		final float value = scale == 0 ? (float) mantissa : (float) mantissa / POWERS_OF_TEN[scale];
+		return negative ? -value : value;
+	}
+	
 	/**
 	 * Static utility to parse a field of type float from a byte sequence that represents text characters
 	 * (such as when read from a file stream).
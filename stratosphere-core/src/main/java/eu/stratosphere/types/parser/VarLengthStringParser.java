@@ -14,6 +14,7 @@
 package eu.stratosphere.types.parser;
 
 import eu.stratosphere.types.StringValue;
+import eu.stratosphere.util.ByteScanner;
 
 /**
  * Converts a variable length field of a byte array into a {@link StringValue}. The byte contents between
@@ -53,11 +54,9 @@ public class VarLengthStringParser extends FieldParser<StringValue> {
 			
 			// we count only from after the quote
 			int quoteStart = i;
-			while (i < length && bytes[i] != QUOTE_DOUBLE) {
-				i++;
-			}
+			i = ByteScanner.indexOf(bytes, i, length, QUOTE_DOUBLE);
 			
-			if (i < length) {
+			if (i >= 0) {
 				// end of the string
 				reusable.setValueAscii(bytes, quoteStart, i-quoteStart);
 				
@@ -82,9 +81,10 @@ public class VarLengthStringParser extends FieldParser<StringValue> {
 			}
 		}
 		else {
-			// unquoted string
-			while (i < length && bytes[i] != delByte) {
-				i++;
+			// unquoted string, search the delimiter a word at a time
+			i = ByteScanner.indexOf(bytes, i, length, delByte);
+			if (i < 0) {
+				i = length;
 			}
 			
 			// set from the beginning. unquoted strings include the leading whitespaces
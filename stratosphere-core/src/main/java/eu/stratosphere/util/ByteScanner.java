@@ -0,0 +1,86 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.util;
+
+import java.nio.ByteOrder;
+
+import eu.stratosphere.core.memory.MemoryUtils;
+
+/**
+ * Utility to search byte arrays for a single byte value, for example a field delimiter or a line break.
+ * Instead of comparing byte by byte, the scanner loads eight bytes at a time into a long and checks all of them
+ * at once with a few arithmetic operations (SIMD within a register). Words may reach past the end of the searched
+ * range into the rest of the array, only the last bytes of the array are compared individually.
+ */
+public final class ByteScanner {
+
+	@SuppressWarnings("restriction")
+	private static final sun.misc.Unsafe UNSAFE = MemoryUtils.UNSAFE;
+
+	@SuppressWarnings("restriction")
+	private static final long BASE_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+
+	private static final boolean LITTLE_ENDIAN = (MemoryUtils.NATIVE_BYTE_ORDER == ByteOrder.LITTLE_ENDIAN);
+
+	private static final long ONES = 0x0101010101010101L;
+
+	private static final long LOW_SEVEN_BITS = 0x7f7f7f7f7f7f7f7fL;
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private ByteScanner() {}
+
+	/**
+	 * Finds the first occurrence of the given byte in the given range of the array.
+	 *
+	 * @param bytes The array to search.
+	 * @param from The position to start the search at (inclusive).
+	 * @param to The position to end the search at (exclusive).
+	 * @param value The byte to search for.
+	 * @return The position of the first occurrence of the byte in the range, or -1, if the range does not
+	 *         contain the byte.
+	 */
+	@SuppressWarnings("restriction")
+	public static int indexOf(byte[] bytes, int from, int to, byte value) {
+		if (from < 0 || to > bytes.length) {
+			throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") exceeds array of length " +
+				bytes.length + ".");
+		}
+
+		final long pattern = ONES * (value & 0xff);
+
+		// words may extend beyond the end of the range, as long as they are within the array
+		final int lastWordStart = Math.min(to, bytes.length - 7);
+		int i = from;
+
+		for (; i < lastWordStart; i += 8) {
+			final long word = UNSAFE.getLong(bytes, BASE_OFFSET + i) ^ pattern;
+
+			// the high bit of each byte in 'found' is set exactly where the byte in 'word' is zero
+			final long found = ~(((word & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | word | LOW_SEVEN_BITS);
+			if (found != 0) {
+				final int pos = i + ((LITTLE_ENDIAN ? Long.numberOfTrailingZeros(found) : Long.numberOfLeadingZeros(found)) >>> 3);
+				return pos < to ? pos : -1;
+			}
+		}
+
+		for (; i < to; i++) {
+			if (bytes[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,165 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import eu.stratosphere.core.fs.FSDataOutputStream;
+
+public class AsynchronousOutputStreamTest {
+	
+	@Test
+	public void testAllDataIsWritten() throws IOException {
+		final byte[] data = new byte[100000];
+		new Random(17).nextBytes(data);
+		
+		final TestOutputStream target = new TestOutputStream(0, -1);
+		final AsynchronousOutputStream out = new AsynchronousOutputStream(target, 3, 1000);
+		
+		int pos = 0;
+		final Random rnd = new Random(23);
+		while (pos < data.length) {
+			if (rnd.nextBoolean()) {
+				out.write(data[pos++]);
+			} else {
+				final int len = Math.min(rnd.nextInt(2500), data.length - pos);
+				out.write(data, pos, len);
+				pos += len;
+			}
+		}
+		out.close();
+		
+		assertTrue(target.closed);
+		assertArrayEquals(data, target.toByteArray());
+		
+		// closing again has no effect
+		out.close();
+	}
+	
+	@Test
+	public void testFlushWritesBufferedData() throws IOException {
+		final TestOutputStream target = new TestOutputStream(0, -1);
+		final AsynchronousOutputStream out = new AsynchronousOutputStream(target, 2, 1000);
+		
+		out.write(new byte[] { 1, 2, 3 });
+		out.flush();
+		assertEquals(3, target.size());
+		
+		out.write(4);
+		out.close();
+		assertArrayEquals(new byte[] { 1, 2, 3, 4 }, target.toByteArray());
+	}
+	
+	@Test
+	public void testWriterErrorIsPropagated() throws IOException {
+		final TestOutputStream target = new TestOutputStream(0, 5000);
+		final AsynchronousOutputStream out = new AsynchronousOutputStream(target, 2, 1000);
+		
+		try {
+			for (int i = 0; i < 100; i++) {
+				out.write(new byte[1000]);
+			}
+			out.close();
+			fail("The error of the writer was not propagated.");
+		}
+		catch (IOException e) {
+			assertTrue(e.getCause() instanceof IOException);
+		}
+		
+		// closing reports the error as well, but closes the stream in any case
+		try {
+			out.close();
+			fail("The error of the writer was not propagated.");
+		}
+		catch (IOException e) {
+			assertTrue(target.closed);
+		}
+		out.close();
+	}
+	
+	@Test
+	public void testStallTimeOfSlowWriter() throws IOException {
+		final TestOutputStream target = new TestOutputStream(20, -1);
+		final AsynchronousOutputStream out = new AsynchronousOutputStream(target, 2, 100);
+		
+		for (int i = 0; i < 10; i++) {
+			out.write(new byte[100]);
+		}
+		out.close();
+		
+		assertEquals(1000, target.size());
+		assertTrue(out.getStallTime() > 0);
+		assertTrue(out.getMaxOccupancy() >= 1);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static final class TestOutputStream extends FSDataOutputStream {
+		
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		
+		private final long delay;
+		
+		private final int failAfter;
+		
+		private volatile boolean closed;
+		
+		private TestOutputStream(long delay, int failAfter) {
+			this.delay = delay;
+			this.failAfter = failAfter;
+		}
+		
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+		
+		@Override
+		public synchronized void write(byte[] b, int off, int len) throws IOException {
+			if (this.failAfter >= 0 && this.bytes.size() + len > this.failAfter) {
+				throw new IOException("Test failure.");
+			}
+			if (this.delay > 0) {
+				try {
+					Thread.sleep(this.delay);
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+			this.bytes.write(b, off, len);
+		}
+		
+		@Override
+		public void close() {
+			this.closed = true;
+		}
+		
+		private synchronized int size() {
+			return this.bytes.size();
+		}
+		
+		private synchronized byte[] toByteArray() {
+			return this.bytes.toByteArray();
+		}
+	}
+}
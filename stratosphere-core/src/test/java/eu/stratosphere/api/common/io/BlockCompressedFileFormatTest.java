@@ -0,0 +1,184 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.core.fs.FSDataInputStream;
+import eu.stratosphere.core.fs.FileInputSplit;
+import eu.stratosphere.core.fs.FileSystem;
+import eu.stratosphere.core.fs.FileSystem.WriteMode;
+import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.types.StringValue;
+import eu.stratosphere.util.LogUtils;
+
+/**
+ * Tests the writing and the split-wise reading of block-compressed files.
+ */
+public class BlockCompressedFileFormatTest {
+	
+	private static final int NUM_LINES = 20000;
+	
+	private File tempFile;
+	
+	@BeforeClass
+	public static void initialize() {
+		LogUtils.initializeDefaultTestConsoleLogger();
+	}
+	
+	@After
+	public void cleanup() {
+		if (this.tempFile != null) {
+			this.tempFile.delete();
+		}
+	}
+	
+	@Test
+	public void testReadSplitsOfBlockCompressedFile() throws IOException {
+		final Path path = writeLines(1024);
+		
+		final LineInputFormat format = new LineInputFormat();
+		format.setFilePath(path);
+		format.configure(new Configuration());
+		
+		final FileInputSplit[] splits = format.createInputSplits(4);
+		assertTrue("The file was not split", splits.length > 1);
+		
+		long position = 0;
+		final List<String> lines = new ArrayList<String>();
+		for (FileInputSplit split : splits) {
+			assertEquals("The splits are not contiguous", position, split.getStart());
+			position += split.getLength();
+			
+			format.open(split);
+			StringValue line = new StringValue();
+			while (!format.reachedEnd()) {
+				if ((line = format.nextRecord(line)) != null) {
+					lines.add(line.getValue());
+				}
+			}
+			format.close();
+		}
+		
+		assertEquals(NUM_LINES, lines.size());
+		Collections.sort(lines);
+		for (int i = 0; i < NUM_LINES; i++) {
+			assertEquals(line(i), lines.get(i));
+		}
+	}
+	
+	@Test
+	public void testSeek() throws IOException {
+		final Path path = writeLines(100);
+		final FileSystem fs = path.getFileSystem();
+		final long fileLength = fs.getFileStatus(path).getLen();
+		
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < NUM_LINES; i++) {
+			expected.append(line(i)).append('\n');
+		}
+		
+		final BlockInflaterInputStream in = new BlockInflaterInputStream(fs.open(path), fileLength);
+		try {
+			assertEquals(expected.length(), in.getUncompressedLength());
+			
+			for (int pos : new int[] { 0, 99, 100, 101, 12345, expected.length() - 1, 17, 256789 }) {
+				in.seek(pos);
+				assertEquals(expected.charAt(pos), (char) in.read());
+			}
+			
+			in.seek(expected.length());
+			assertEquals(-1, in.read());
+		} finally {
+			in.close();
+		}
+	}
+	
+	@Test
+	public void testEmptyFile() throws IOException {
+		final Path path = writeLines(100, 0);
+		
+		final LineInputFormat format = new LineInputFormat();
+		format.setFilePath(path);
+		format.configure(new Configuration());
+		
+		final FileInputSplit[] splits = format.createInputSplits(2);
+		assertEquals(1, splits.length);
+		
+		format.open(splits[0]);
+		assertTrue(format.reachedEnd() || format.nextRecord(new StringValue()) == null);
+		format.close();
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private Path writeLines(int blockSize) throws IOException {
+		return writeLines(blockSize, NUM_LINES);
+	}
+	
+	private Path writeLines(int blockSize, int numLines) throws IOException {
+		this.tempFile = File.createTempFile("block_compressed", FileInputFormat.BLOCK_DEFLATE_SUFFIX);
+		
+		final LineOutputFormat format = new LineOutputFormat();
+		format.setOutputFilePath(new Path(this.tempFile.toURI().toString()));
+		format.setWriteMode(WriteMode.OVERWRITE);
+		format.setCompressionBlockSize(blockSize);
+		format.configure(new Configuration());
+		
+		format.open(0, 1);
+		for (int i = 0; i < numLines; i++) {
+			format.writeRecord(line(i));
+		}
+		format.close();
+		
+		return new Path(this.tempFile.toURI().toString());
+	}
+	
+	private static String line(int i) {
+		return String.format("line %08d", i);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static final class LineOutputFormat extends FileOutputFormat<String> {
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		public void writeRecord(String record) throws IOException {
+			this.stream.write((record + '\n').getBytes());
+		}
+	}
+	
+	private static final class LineInputFormat extends DelimitedInputFormat<StringValue> {
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		public StringValue readRecord(StringValue reuse, byte[] bytes, int offset, int numBytes) {
+			reuse.setValue(new String(bytes, offset, numBytes));
+			return reuse;
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.core.fs.BlockLocation;
+import eu.stratosphere.core.fs.FileStatus;
+import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.core.fs.local.LocalFileSystem;
+
+/**
+ * Tests that the {@link BlockLocationFetcher} returns the block locations of all files in the order of the files.
+ */
+public class BlockLocationFetcherTest {
+	
+	private static final int NUM_FILES = 40;
+	
+	private File tempDir;
+	
+	private CountingFileSystem fs;
+	
+	@Before
+	public void setup() throws IOException {
+		this.tempDir = new File(System.getProperty("java.io.tmpdir"), "block-location-fetcher-" + System.nanoTime());
+		assertTrue(this.tempDir.mkdirs());
+		for (int i = 0; i < NUM_FILES; i++) {
+			final FileOutputStream out = new FileOutputStream(new File(this.tempDir, "part-" + i));
+			try {
+				out.write(new byte[i + 1]);
+			} finally {
+				out.close();
+			}
+		}
+		this.fs = new CountingFileSystem();
+	}
+	
+	@After
+	public void cleanup() {
+		if (this.tempDir != null) {
+			for (File f : this.tempDir.listFiles()) {
+				f.delete();
+			}
+			this.tempDir.delete();
+		}
+	}
+	
+	@Test
+	public void testBlockLocationsOfManyFiles() throws IOException {
+		final List<FileStatus> files = listFiles();
+		
+		final BlockLocation[][] blocks = BlockLocationFetcher.getFileBlockLocations(this.fs, files);
+		assertEquals(NUM_FILES, blocks.length);
+		for (int i = 0; i < NUM_FILES; i++) {
+			assertEquals(1, blocks[i].length);
+			assertEquals(files.get(i).getLen(), blocks[i][0].getLength());
+		}
+		assertEquals(NUM_FILES, this.fs.blockRequests.get());
+		
+		// every request fetches the locations again
+		BlockLocationFetcher.getFileBlockLocations(this.fs, files);
+		assertEquals(2 * NUM_FILES, this.fs.blockRequests.get());
+	}
+	
+	@Test
+	public void testBlockLocationsOfFewFiles() throws IOException {
+		final List<FileStatus> files = listFiles().subList(0, 3);
+		
+		final BlockLocation[][] blocks = BlockLocationFetcher.getFileBlockLocations(this.fs, files);
+		assertEquals(3, blocks.length);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(files.get(i).getLen(), blocks[i][0].getLength());
+		}
+		assertEquals(3, this.fs.blockRequests.get());
+	}
+	
+	private List<FileStatus> listFiles() throws IOException {
+		final List<FileStatus> files = new ArrayList<FileStatus>();
+		for (FileStatus f : this.fs.listStatus(new Path(this.tempDir.toURI().toString()))) {
+			files.add(f);
+		}
+		return files;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static final class CountingFileSystem extends LocalFileSystem {
+		
+		private final AtomicInteger blockRequests = new AtomicInteger();
+		
+		@Override
+		public BlockLocation[] getFileBlockLocations(FileStatus file, long start, long len) throws IOException {
+			this.blockRequests.incrementAndGet();
+			return super.getFileBlockLocations(file, start, len);
+		}
+	}
+}
@@ -0,0 +1,278 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.core.fs.FileInputSplit;
+import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.types.DoubleValue;
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.LongValue;
+import eu.stratosphere.types.StringValue;
+import eu.stratosphere.types.Value;
+import eu.stratosphere.types.parser.FieldParser;
+import eu.stratosphere.util.ByteScanner;
+import eu.stratosphere.util.InstantiationUtil;
+
+/**
+ * Measures the time to read a large synthetic CSV file with the word-at-a-time field skipping and the allocation
+ * free decimal parsing, compared to skipping fields byte by byte and parsing decimals through strings. Also compares
+ * the word-at-a-time search for line breaks with a byte by byte search. Not part of the regular test suite.
+ */
+public class CsvParsingPerformanceComparison {
+	
+	private static final int NUM_LINES = 2000000;
+	
+	private static final int NUM_REPETITIONS = 5;
+	
+	private static final char FIELD_DELIMITER = '|';
+	
+	@SuppressWarnings("unchecked")
+	private static final Class<? extends Value>[] ALL_FIELDS = new Class[] {
+		IntValue.class, StringValue.class, LongValue.class, DoubleValue.class, StringValue.class, IntValue.class };
+	
+	@SuppressWarnings("unchecked")
+	private static final Class<? extends Value>[] SPARSE_FIELDS = new Class[] {
+		IntValue.class, null, null, DoubleValue.class, null, IntValue.class };
+	
+	@Test
+	public void testParsingTimes() throws IOException {
+		final File file = File.createTempFile("csv_parsing_performance", "tmp");
+		file.deleteOnExit();
+		
+		try {
+			writeSyntheticFile(file);
+			
+			compareFormats(file, ALL_FIELDS, "all fields");
+			compareFormats(file, SPARSE_FIELDS, "sparse fields");
+			
+			final byte[] bytes = new byte[(int) file.length()];
+			final DataInputStream in = new DataInputStream(new FileInputStream(file));
+			try {
+				in.readFully(bytes);
+			}
+			finally {
+				in.close();
+			}
+			
+			long wordAtATime = 0;
+			long byteByByte = 0;
+			for (int i = 0; i <= NUM_REPETITIONS; i++) {
+				long start = System.nanoTime();
+				final int wordLines = countLinesWordAtATime(bytes);
+				final long wordTime = System.nanoTime() - start;
+				
+				start = System.nanoTime();
+				final int byteLines = countLinesByteByByte(bytes);
+				final long byteTime = System.nanoTime() - start;
+				
+				if (wordLines != byteLines) {
+					throw new IllegalStateException("Line counts differ: " + wordLines + " vs. " + byteLines);
+				}
+				
+				// the first round warms up the JIT
+				if (i > 0) {
+					wordAtATime += wordTime;
+					byteByByte += byteTime;
+				}
+			}
+			
+			System.out.println("Line break search: word at a time " + wordAtATime / NUM_REPETITIONS / 1000000 +
+				" ms, byte by byte " + byteByByte / NUM_REPETITIONS / 1000000 + " ms");
+		}
+		finally {
+			file.delete();
+		}
+	}
+	
+	private static void compareFormats(File file, Class<? extends Value>[] types, String name) throws IOException {
+		// warm up the JIT
+		readFile(file, new TestCsvInputFormat(), types);
+		readFile(file, new ByteByByteCsvInputFormat(types), types);
+		
+		long wordAtATime = 0;
+		long byteByByte = 0;
+		for (int i = 0; i < NUM_REPETITIONS; i++) {
+			wordAtATime += readFile(file, new TestCsvInputFormat(), types);
+			byteByByte += readFile(file, new ByteByByteCsvInputFormat(types), types);
+		}
+		
+		System.out.println(NUM_LINES + " lines (" + file.length() / (1024 * 1024) + " MB), " + name + ": word at a time " +
+			wordAtATime / NUM_REPETITIONS + " ms, byte by byte " + byteByByte / NUM_REPETITIONS + " ms");
+	}
+	
+	private static long readFile(File file, GenericCsvInputFormat<Value[]> format, Class<? extends Value>[] types)
+			throws IOException
+	{
+		format.setFilePath(new Path(file.toURI().toString()));
+		format.setFieldDelimiter(FIELD_DELIMITER);
+		format.setFieldTypesGeneric(types);
+		format.configure(new Configuration());
+		
+		final Value[] values = new Value[format.getNumberOfNonNullFields()];
+		for (int i = 0, k = 0; i < types.length; i++) {
+			if (types[i] != null) {
+				values[k++] = InstantiationUtil.instantiate(types[i], Value.class);
+			}
+		}
+		
+		final long start = System.currentTimeMillis();
+		
+		format.open(new FileInputSplit(0, new Path(file.toURI().toString()), 0, file.length(), null));
+		int count = 0;
+		while (!format.reachedEnd()) {
+			if (format.nextRecord(values) != null) {
+				count++;
+			}
+		}
+		format.close();
+		
+		if (count != NUM_LINES) {
+			throw new IllegalStateException("Read " + count + " records, expected " + NUM_LINES + ".");
+		}
+		return System.currentTimeMillis() - start;
+	}
+	
+	private static void writeSyntheticFile(File file) throws IOException {
+		final Random rnd = new Random(1);
+		final OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+		try {
+			final StringBuilder line = new StringBuilder();
+			for (int i = 0; i < NUM_LINES; i++) {
+				line.setLength(0);
+				line.append(rnd.nextInt()).append(FIELD_DELIMITER);
+				line.append("customer#").append(rnd.nextInt(100000)).append(FIELD_DELIMITER);
+				line.append(rnd.nextLong()).append(FIELD_DELIMITER);
+				line.append(rnd.nextInt(10000000) / 100.0).append(FIELD_DELIMITER);
+				line.append("\"comment ").append(FIELD_DELIMITER).append(" with a quoted delimiter\"").append(FIELD_DELIMITER);
+				line.append(rnd.nextInt(1000)).append('\n');
+				out.write(line.toString().getBytes());
+			}
+		}
+		finally {
+			out.close();
+		}
+	}
+	
+	private static int countLinesWordAtATime(byte[] bytes) {
+		int count = 0;
+		int pos = 0;
+		while ((pos = ByteScanner.indexOf(bytes, pos, bytes.length, (byte) '\n')) >= 0) {
+			count++;
+			pos++;
+		}
+		return count;
+	}
+	
+	private static int countLinesByteByByte(byte[] bytes) {
+		int count = 0;
+		for (int i = 0; i < bytes.length; i++) {
+			if (bytes[i] == '\n') {
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static final class TestCsvInputFormat extends GenericCsvInputFormat<Value[]> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		public Value[] readRecord(Value[] target, byte[] bytes, int offset, int numBytes) {
+			return parseRecord(target, bytes, offset, numBytes) ? target : null;
+		}
+	}
+	
+	/**
+	 * Skips fields byte by byte and parses decimal numbers through strings.
+	 */
+	private static final class ByteByByteCsvInputFormat extends GenericCsvInputFormat<Value[]> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final Class<? extends Value>[] types;
+		
+		private FieldParser<Object>[] parsers;
+		
+		private ByteByByteCsvInputFormat(Class<? extends Value>[] types) {
+			this.types = types;
+		}
+		
+		@Override
+		public void open(FileInputSplit split) throws IOException {
+			super.open(split);
+			
+			@SuppressWarnings("unchecked")
+			final FieldParser<Object>[] parsers = new FieldParser[this.types.length];
+			for (int i = 0; i < parsers.length; i++) {
+				if (this.types[i] != null) {
+					final Class<? extends FieldParser<?>> parserType = FieldParser.getParserForType(this.types[i]);
+					@SuppressWarnings("unchecked")
+					final FieldParser<Object> p = (FieldParser<Object>) InstantiationUtil.instantiate(parserType, FieldParser.class);
+					parsers[i] = p;
+				}
+			}
+			this.parsers = parsers;
+		}
+		
+		@Override
+		public Value[] readRecord(Value[] target, byte[] bytes, int offset, int numBytes) {
+			final int limit = offset + numBytes;
+			int pos = offset;
+			for (int i = 0, output = 0; i < this.parsers.length; i++) {
+				if (pos >= limit) {
+					return null;
+				}
+				if (this.types[i] == DoubleValue.class) {
+					final int start = pos;
+					while (pos < limit && bytes[pos] != FIELD_DELIMITER) {
+						pos++;
+					}
+					((DoubleValue) target[output++]).setValue(Double.parseDouble(new String(bytes, start, pos - start)));
+					pos++;
+				}
+				else if (this.parsers[i] != null) {
+					pos = this.parsers[i].parseField(bytes, pos, limit, FIELD_DELIMITER, target[output++]);
+					if (pos < 0) {
+						return null;
+					}
+				}
+				else {
+					boolean quoted = false;
+					while (pos < limit && (quoted || bytes[pos] != FIELD_DELIMITER)) {
+						if (bytes[pos++] == '"') {
+							quoted = !quoted;
+						}
+					}
+					pos++;
+				}
+			}
+			return target;
+		}
+	}
+}
@@ -0,0 +1,271 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.configuration.GlobalConfiguration;
+import eu.stratosphere.core.fs.BlockLocation;
+import eu.stratosphere.core.fs.FileInputSplit;
+import eu.stratosphere.core.fs.FileStatus;
+import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.core.fs.local.LocalFileSystem;
+import eu.stratosphere.types.IntValue;
+
+/**
+ * Tests that the {@link FileStatusCache} answers repeated requests without calling the file system and notices
+ * modifications.
+ */
+public class FileStatusCacheTest {
+
+	private static final int NUM_FILES = 40;
+
+	private static final long AN_HOUR_AGO = System.currentTimeMillis() - 60 * 60 * 1000;
+
+	private File tempDir;
+
+	private CountingFileSystem fs;
+
+	@Before
+	public void setup() throws IOException {
+		// the cache is disabled by default
+		final Configuration config = new Configuration();
+		config.setLong(ConfigConstants.FILESYSTEM_LISTING_CACHE_TTL_KEY, 60000);
+		GlobalConfiguration.includeConfiguration(config);
+		FileStatusCache.clear();
+
+		this.tempDir = new File(System.getProperty("java.io.tmpdir"), "file-status-cache-" + System.nanoTime());
+		assertTrue(this.tempDir.mkdirs());
+		for (int i = 0; i < NUM_FILES; i++) {
+			writeFile(new File(this.tempDir, "part-" + i), i + 1, AN_HOUR_AGO);
+		}
+		assertTrue(this.tempDir.setLastModified(AN_HOUR_AGO));
+		this.fs = new CountingFileSystem();
+	}
+
+	@After
+	public void cleanup() {
+		final Configuration config = new Configuration();
+		config.setLong(ConfigConstants.FILESYSTEM_LISTING_CACHE_TTL_KEY,
+			ConfigConstants.DEFAULT_FILESYSTEM_LISTING_CACHE_TTL);
+		GlobalConfiguration.includeConfiguration(config);
+		FileStatusCache.clear();
+		if (this.tempDir != null) {
+			deleteRecursively(this.tempDir);
+		}
+	}
+
+	@Test
+	public void testSecondListingHitsCache() throws IOException {
+		final FileStatus dir = this.fs.getFileStatus(path(this.tempDir));
+
+		final FileStatus[] first = FileStatusCache.listStatus(this.fs, dir);
+		final FileStatus[] second = FileStatusCache.listStatus(this.fs, dir);
+
+		assertEquals(NUM_FILES, first.length);
+		assertEquals(NUM_FILES, second.length);
+		assertEquals(1, this.fs.listRequests.get());
+	}
+
+	@Test
+	public void testModifiedDirectoryIsListedAgain() throws IOException {
+		FileStatusCache.listStatus(this.fs, this.fs.getFileStatus(path(this.tempDir)));
+
+		writeFile(new File(this.tempDir, "part-" + NUM_FILES), 1, AN_HOUR_AGO);
+		assertTrue(this.tempDir.setLastModified(AN_HOUR_AGO + 1000));
+
+		final FileStatus[] listing = FileStatusCache.listStatus(this.fs, this.fs.getFileStatus(path(this.tempDir)));
+		assertEquals(NUM_FILES + 1, listing.length);
+		assertEquals(2, this.fs.listRequests.get());
+	}
+
+	@Test
+	public void testRecentlyModifiedDirectoryIsNotCached() throws IOException {
+		assertTrue(this.tempDir.setLastModified(System.currentTimeMillis()));
+		final FileStatus dir = this.fs.getFileStatus(path(this.tempDir));
+
+		FileStatusCache.listStatus(this.fs, dir);
+		FileStatusCache.listStatus(this.fs, dir);
+		assertEquals(2, this.fs.listRequests.get());
+	}
+
+	@Test
+	public void testSecondBlockLocationRequestHitsCache() throws IOException {
+		final List<FileStatus> files = Arrays.asList(this.fs.listStatus(path(this.tempDir)));
+
+		final BlockLocation[][] first = FileStatusCache.getFileBlockLocations(this.fs, files);
+		final BlockLocation[][] second = FileStatusCache.getFileBlockLocations(this.fs, files);
+
+		assertEquals(NUM_FILES, this.fs.blockRequests.get());
+		for (int i = 0; i < NUM_FILES; i++) {
+			assertEquals(files.get(i).getLen(), first[i][0].getLength());
+			assertEquals(files.get(i).getLen(), second[i][0].getLength());
+		}
+	}
+
+	@Test
+	public void testModifiedFileIsFetchedAgain() throws IOException {
+		FileStatusCache.getFileBlockLocations(this.fs, Arrays.asList(this.fs.listStatus(path(this.tempDir))));
+
+		writeFile(new File(this.tempDir, "part-0"), 100, AN_HOUR_AGO + 1000);
+
+		final List<FileStatus> files = Arrays.asList(this.fs.listStatus(path(this.tempDir)));
+		final BlockLocation[][] blocks = FileStatusCache.getFileBlockLocations(this.fs, files);
+
+		assertEquals(NUM_FILES + 1, this.fs.blockRequests.get());
+		for (int i = 0; i < NUM_FILES; i++) {
+			assertEquals(files.get(i).getLen(), blocks[i][0].getLength());
+		}
+	}
+
+	@Test
+	public void testListingsAreBounded() throws IOException {
+		final List<FileStatus> dirs = new ArrayList<FileStatus>();
+		for (int i = 0; i <= FileStatusCache.MAX_CACHED_DIRECTORIES; i++) {
+			final File dir = new File(this.tempDir, "dir-" + i);
+			assertTrue(dir.mkdir());
+			assertTrue(dir.setLastModified(AN_HOUR_AGO));
+			dirs.add(this.fs.getFileStatus(path(dir)));
+		}
+
+		for (FileStatus dir : dirs) {
+			FileStatusCache.listStatus(this.fs, dir);
+		}
+		assertEquals(dirs.size(), this.fs.listRequests.get());
+
+		// the least recently listed directory has been evicted, the most recently listed one is still cached
+		FileStatusCache.listStatus(this.fs, dirs.get(dirs.size() - 1));
+		assertEquals(dirs.size(), this.fs.listRequests.get());
+		FileStatusCache.listStatus(this.fs, dirs.get(0));
+		assertEquals(dirs.size() + 1, this.fs.listRequests.get());
+	}
+
+	@Test
+	public void testSplitsDoNotUseCachedListing() throws IOException {
+		// cache a stale listing of the directory, which has the same modification time as the current one
+		final FileStatus dir = this.fs.getFileStatus(path(this.tempDir));
+		final FileStatus first = this.fs.getFileStatus(path(new File(this.tempDir, "part-0")));
+		FileStatusCache.listStatus(new LocalFileSystem() {
+			@Override
+			public FileStatus[] listStatus(Path f) {
+				return new FileStatus[] { first };
+			}
+		}, dir);
+		assertEquals(1, FileStatusCache.listStatus(this.fs, dir).length);
+		assertEquals(0, this.fs.listRequests.get());
+
+		final DummyFileInputFormat format = new DummyFileInputFormat();
+		format.setFilePath(path(this.tempDir));
+		format.configure(new Configuration());
+
+		long expectedLength = 0;
+		for (int i = 0; i < NUM_FILES; i++) {
+			expectedLength += i + 1;
+		}
+		long splitLength = 0;
+		for (FileInputSplit split : format.createInputSplits(1)) {
+			splitLength += split.getLength();
+		}
+		assertEquals(expectedLength, splitLength);
+	}
+
+	@Test
+	public void testCacheIsDisabledByDefault() throws IOException {
+		final Configuration config = new Configuration();
+		config.setLong(ConfigConstants.FILESYSTEM_LISTING_CACHE_TTL_KEY,
+			ConfigConstants.DEFAULT_FILESYSTEM_LISTING_CACHE_TTL);
+		GlobalConfiguration.includeConfiguration(config);
+		FileStatusCache.clear();
+
+		final FileStatus dir = this.fs.getFileStatus(path(this.tempDir));
+		FileStatusCache.listStatus(this.fs, dir);
+		FileStatusCache.listStatus(this.fs, dir);
+		assertEquals(2, this.fs.listRequests.get());
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static Path path(File file) {
+		return new Path(file.toURI().toString());
+	}
+
+	private static void writeFile(File file, int length, long modificationTime) throws IOException {
+		final FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(new byte[length]);
+		} finally {
+			out.close();
+		}
+		assertTrue(file.setLastModified(modificationTime));
+	}
+
+	private static void deleteRecursively(File file) {
+		final File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				deleteRecursively(child);
+			}
+		}
+		file.delete();
+	}
+
+	private static final class DummyFileInputFormat extends FileInputFormat<IntValue> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public boolean reachedEnd() {
+			return true;
+		}
+
+		@Override
+		public IntValue nextRecord(IntValue record) {
+			return null;
+		}
+	}
+
+	private static final class CountingFileSystem extends LocalFileSystem {
+
+		private final AtomicInteger listRequests = new AtomicInteger();
+
+		private final AtomicInteger blockRequests = new AtomicInteger();
+
+		@Override
+		public FileStatus[] listStatus(Path f) throws IOException {
+			this.listRequests.incrementAndGet();
+			return super.listStatus(f);
+		}
+
+		@Override
+		public BlockLocation[] getFileBlockLocations(FileStatus file, long start, long len) throws IOException {
+			this.blockRequests.incrementAndGet();
+			return super.getFileBlockLocations(file, start, len);
+		}
+	}
+}
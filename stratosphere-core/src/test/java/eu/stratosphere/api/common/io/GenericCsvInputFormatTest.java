@@ -452,6 +452,44 @@ public class GenericCsvInputFormatTest {
 		}
 	}
 	
+	@Test
+	public void readQuotedFieldsWithDelimiters() {
+		try {
+			final String fileContent = "\"a|b\"|1|  \"x|y\"  |2\n" +
+									"abc|3|\"unterminated|4\n" +      // a skipped field is never closed
+									"abc|5|\"closed\"garbage|6\n" +  // a skipped field has trailing characters
+									"\"c\"  |7|z|8\n";
+			final FileInputSplit split = createTempFile(fileContent);	
+		
+			final Configuration parameters = new Configuration();
+
+			format.setFieldDelimiter('|');
+			format.setFieldTypesGeneric(StringValue.class, IntValue.class, null, IntValue.class);
+			format.setLenient(true);
+			
+			format.configure(parameters);
+			format.open(split);
+			
+			Value[] values = new Value[] { new StringValue(), new IntValue(), new IntValue()};
+			
+			assertNotNull(format.nextRecord(values));
+			assertEquals("a|b", ((StringValue) values[0]).getValue());
+			assertEquals(1, ((IntValue) values[1]).getValue());
+			assertEquals(2, ((IntValue) values[2]).getValue());
+			
+			assertNull(format.nextRecord(values));
+			assertNull(format.nextRecord(values));
+			
+			assertNotNull(format.nextRecord(values));
+			assertEquals("c", ((StringValue) values[0]).getValue());
+			assertEquals(7, ((IntValue) values[1]).getValue());
+			assertEquals(8, ((IntValue) values[2]).getValue());
+		}
+		catch (Exception ex) {
+			fail("Test failed due to a " + ex.getClass().getSimpleName() + ": " + ex.getMessage());
+		}
+	}
+	
 	@Test
 	public void readWithHeaderLine() {
 		try {
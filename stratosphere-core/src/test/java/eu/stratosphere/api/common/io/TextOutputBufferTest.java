@@ -0,0 +1,126 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+import org.junit.Test;
+
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.LongValue;
+import eu.stratosphere.types.StringValue;
+
+public class TextOutputBufferTest {
+	
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	
+	@Test
+	public void testNumbers() throws IOException {
+		final long[] values = { 0, 1, -1, 9, 10, 99, 100, -100, Integer.MAX_VALUE, Integer.MIN_VALUE,
+			Long.MAX_VALUE, Long.MIN_VALUE, 1234567890123L };
+		
+		final StringBuilder expected = new StringBuilder();
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final TextOutputBuffer buffer = new TextOutputBuffer(out, UTF_8, 32);
+		
+		for (long value : values) {
+			buffer.writeLong(value);
+			buffer.write(' ');
+			expected.append(value).append(' ');
+		}
+		buffer.writeObject(Integer.valueOf(-42));
+		buffer.writeObject(Short.valueOf((short) 7));
+		buffer.writeObject(Byte.valueOf((byte) -8));
+		buffer.writeObject(new IntValue(Integer.MIN_VALUE));
+		buffer.writeObject(new LongValue(Long.MAX_VALUE));
+		buffer.writeObject(Double.valueOf(1.5));
+		expected.append(-42).append(7).append(-8).append(Integer.MIN_VALUE).append(Long.MAX_VALUE).append(1.5);
+		buffer.flush();
+		
+		assertEquals(expected.toString(), new String(out.toByteArray(), UTF_8));
+	}
+	
+	@Test
+	public void testStringsAreEncodedLikeTheJdk() throws IOException {
+		final Random rnd = new Random(4711);
+		
+		for (int round = 0; round < 200; round++) {
+			final char[] chars = new char[rnd.nextInt(300)];
+			for (int i = 0; i < chars.length; i++) {
+				switch (rnd.nextInt(4)) {
+				case 0:
+					chars[i] = (char) rnd.nextInt(0x80);
+					break;
+				case 1:
+					chars[i] = (char) rnd.nextInt(0x800);
+					break;
+				case 2:
+					// includes single surrogates
+					chars[i] = (char) rnd.nextInt(0x10000);
+					break;
+				default:
+					if (i + 1 < chars.length) {
+						final char[] pair = Character.toChars(0x10000 + rnd.nextInt(0x100000));
+						chars[i++] = pair[0];
+						chars[i] = pair[1];
+					}
+				}
+			}
+			final String s = new String(chars);
+			
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final TextOutputBuffer buffer = new TextOutputBuffer(out, UTF_8, 64);
+			buffer.writeObject(s);
+			buffer.writeObject(new StringValue(s));
+			buffer.flush();
+			
+			assertArrayEquals(s.concat(s).getBytes(UTF_8), out.toByteArray());
+		}
+	}
+	
+	@Test
+	public void testOtherCharset() throws IOException {
+		final Charset charset = Charset.forName("UTF-16BE");
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final TextOutputBuffer buffer = new TextOutputBuffer(out, charset);
+		
+		buffer.writeObject("abc\u00e4");
+		buffer.writeObject(Integer.valueOf(12));
+		buffer.writeLong(-3);
+		buffer.flush();
+		
+		assertArrayEquals("abc\u00e412-3".getBytes(charset), out.toByteArray());
+	}
+	
+	@Test
+	public void testLargeWrites() throws IOException {
+		final byte[] large = new byte[1000];
+		new Random(13).nextBytes(large);
+		
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final TextOutputBuffer buffer = new TextOutputBuffer(out, UTF_8, 100);
+		buffer.write(large, 0, 50);
+		buffer.write(large, 50, 900);
+		buffer.write(large, 950, 50);
+		buffer.flush();
+		
+		assertArrayEquals(large, out.toByteArray());
+	}
+}
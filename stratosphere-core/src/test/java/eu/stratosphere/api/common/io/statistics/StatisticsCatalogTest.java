@@ -0,0 +1,218 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io.statistics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.Record;
+import eu.stratosphere.types.StringValue;
+
+public class StatisticsCatalogTest {
+	
+	private static final String DATA_SET = "file:/data/set";
+	
+	private File directory;
+	
+	private StatisticsCatalog catalog;
+	
+	@Before
+	public void createCatalog() {
+		this.directory = new File(System.getProperty("java.io.tmpdir"), "statistics-catalog-" + UUID.randomUUID());
+		this.catalog = new StatisticsCatalog(new Path(this.directory.toURI().toString()));
+	}
+	
+	@After
+	public void deleteCatalog() {
+		deleteRecursively(this.directory);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Test
+	public void testSketchIsExactForFewValues() {
+		DistinctCountSketch sketch = new DistinctCountSketch();
+		for (int i = 0; i < 10000; i++) {
+			sketch.add(i % 500);
+		}
+		Assert.assertEquals(500, sketch.getEstimate());
+	}
+	
+	@Test
+	public void testSketchEstimate() {
+		final int numDistinct = 200000;
+		
+		DistinctCountSketch first = new DistinctCountSketch();
+		DistinctCountSketch second = new DistinctCountSketch();
+		for (int i = 0; i < numDistinct; i++) {
+			first.add(i);
+			// the second half overlaps with the first
+			second.add(i + numDistinct / 2);
+		}
+		
+		assertWithin(numDistinct, first.getEstimate(), 0.1);
+		
+		first.merge(second);
+		assertWithin(numDistinct + numDistinct / 2, first.getEstimate(), 0.1);
+	}
+	
+	@Test
+	public void testWriteAndReadStatistics() throws IOException {
+		Assert.assertNull(this.catalog.read(DATA_SET));
+		
+		// two partitions with 1000 records each, 100 distinct values in the first field, all distinct in the second
+		for (int partition = 0; partition < 2; partition++) {
+			StatisticsCollector collector = new StatisticsCollector();
+			Record record = new Record();
+			for (int i = 0; i < 1000; i++) {
+				record.setField(0, new IntValue(i % 100));
+				record.setField(1, new StringValue("value " + (partition * 1000 + i)));
+				collector.collect(record);
+			}
+			collector.addBytes(8000);
+			this.catalog.write(DATA_SET, "run", partition, 2, collector);
+		}
+		
+		DataSetStatistics stats = this.catalog.read(DATA_SET);
+		Assert.assertNotNull(stats);
+		Assert.assertEquals(2000, stats.getNumberOfRecords());
+		Assert.assertEquals(16000, stats.getTotalInputSize());
+		Assert.assertEquals(8.0f, stats.getAverageRecordWidth(), 0.0f);
+		Assert.assertEquals(100, stats.getNumDistinctValues(0));
+		assertWithin(2000, stats.getNumDistinctValues(1), 0.1);
+		assertWithin(2000, stats.getNumDistinctRecords(), 0.1);
+		Assert.assertEquals(-1, stats.getNumDistinctValues(2));
+		Assert.assertArrayEquals(new long[] { 1000, 1000 }, stats.getNumRecordsPerPartition());
+		
+		long histogramTotal = 0;
+		for (long count : stats.getFieldHistogram(0)) {
+			histogramTotal += count;
+		}
+		Assert.assertEquals(StatisticsCollector.HISTOGRAM_BUCKETS, stats.getFieldHistogram(0).length);
+		Assert.assertEquals(2000, histogramTotal);
+		Assert.assertNull(stats.getFieldHistogram(2));
+	}
+	
+	@Test
+	public void testHistogramShowsFrequentValues() throws IOException {
+		// half of the records have the same key, the others have distinct keys
+		StatisticsCollector collector = new StatisticsCollector();
+		Record record = new Record();
+		for (int i = 0; i < 10000; i++) {
+			record.setField(0, new IntValue(i % 2 == 0 ? -1 : i));
+			collector.collect(record);
+		}
+		this.catalog.write(DATA_SET, "run", 0, 1, collector);
+		
+		DataSetStatistics stats = this.catalog.read(DATA_SET);
+		Assert.assertTrue(stats.getLargestBucketFraction(0) >= 0.5f);
+		Assert.assertTrue(stats.getLargestBucketFraction(0) < 0.6f);
+		Assert.assertEquals(-1.0f, stats.getLargestBucketFraction(1), 0.0f);
+	}
+	
+	@Test
+	public void testMixedTypesOnlyCountRecords() throws IOException {
+		StatisticsCollector collector = new StatisticsCollector();
+		Record record = new Record(new IntValue(1));
+		collector.collect(record);
+		collector.collect(Integer.valueOf(2));
+		collector.collect(record);
+		collector.collect(Integer.valueOf(3));
+		
+		Assert.assertEquals(4, collector.getNumRecords());
+		Assert.assertNull(collector.getRecordSketch());
+		Assert.assertEquals(0, collector.getFieldSketches().length);
+		
+		this.catalog.write(DATA_SET, "run", 0, 1, collector);
+		DataSetStatistics stats = this.catalog.read(DATA_SET);
+		Assert.assertEquals(4, stats.getNumberOfRecords());
+		Assert.assertEquals(DataSetStatistics.NUM_DISTINCT_UNKNOWN, stats.getNumDistinctRecords());
+		Assert.assertEquals(-1, stats.getNumDistinctValues(0));
+	}
+	
+	@Test
+	public void testIncompleteRunIsIgnored() throws IOException {
+		writeRun("first", 0, 1, 10);
+		
+		// the later run has only one of its two partitions
+		writeRun("second", 0, 2, 20);
+		Assert.assertEquals(10, this.catalog.read(DATA_SET).getNumberOfRecords());
+		
+		writeRun("second", 1, 2, 20);
+		Assert.assertEquals(40, this.catalog.read(DATA_SET).getNumberOfRecords());
+		
+		// a data set with no statistics
+		Assert.assertNull(this.catalog.read("file:/other/data/set"));
+	}
+	
+	@Test
+	public void testGenericTypes() throws IOException {
+		StatisticsCollector collector = new StatisticsCollector();
+		for (int i = 0; i < 100; i++) {
+			collector.collect(Integer.valueOf(i % 10));
+		}
+		this.catalog.write(DATA_SET, "run", 0, 1, collector);
+		
+		DataSetStatistics stats = this.catalog.read(DATA_SET);
+		Assert.assertEquals(10, stats.getNumDistinctRecords());
+		Assert.assertEquals(BaseStatistics.SIZE_UNKNOWN, stats.getTotalInputSize());
+		
+		// types without value based hash codes are not counted
+		collector = new StatisticsCollector();
+		for (int i = 0; i < 100; i++) {
+			collector.collect(new Object());
+		}
+		this.catalog.write(DATA_SET, "another run", 0, 1, collector);
+		Assert.assertEquals(DataSetStatistics.NUM_DISTINCT_UNKNOWN, this.catalog.read(DATA_SET).getNumDistinctRecords());
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private void writeRun(String runId, int partition, int numPartitions, int numRecords) throws IOException {
+		// make sure that the runs have different timestamps
+		try {
+			Thread.sleep(5);
+		} catch (InterruptedException iex) {}
+		
+		StatisticsCollector collector = new StatisticsCollector();
+		Record record = new Record(new IntValue(0));
+		for (int i = 0; i < numRecords; i++) {
+			collector.collect(record);
+		}
+		this.catalog.write(DATA_SET, runId, partition, numPartitions, collector);
+	}
+	
+	private static void assertWithin(long expected, long actual, double tolerance) {
+		Assert.assertTrue("Estimate " + actual + " deviates too much from " + expected,
+			Math.abs(actual - expected) <= expected * tolerance);
+	}
+	
+	private static void deleteRecursively(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				deleteRecursively(child);
+			}
+		}
+		file.delete();
+	}
+}
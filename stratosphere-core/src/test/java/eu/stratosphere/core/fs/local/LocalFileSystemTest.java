@@ -22,7 +22,10 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -172,4 +175,89 @@ public class LocalFileSystemTest {
 			tempdir.delete();
 		}
 	}
+
+	/**
+	 * This test checks that the {@link LocalMappedDataInputStream} reads the same bytes as a regular stream,
+	 * including reads and seeks across the boundaries of the mapped regions.
+	 */
+	@Test
+	public void testMemoryMappedReads() throws IOException {
+
+		final File testfile = File.createTempFile("mapped", ".bin");
+		try {
+			final byte[] data = new byte[10000];
+			new Random(42).nextBytes(data);
+
+			final FileOutputStream fos = new FileOutputStream(testfile);
+			fos.write(data);
+			fos.close();
+
+			final LocalMappedDataInputStream in = new LocalMappedDataInputStream(testfile, 1024);
+			try {
+				// read everything in chunks that do not align with the regions
+				final byte[] read = new byte[data.length];
+				int pos = 0;
+				while (pos < read.length) {
+					final int n = in.read(read, pos, Math.min(700, read.length - pos));
+					assertTrue(n > 0);
+					pos += n;
+				}
+				assertTrue(Arrays.equals(data, read));
+				assertEquals(-1, in.read());
+				assertEquals(-1, in.read(read, 0, 10));
+
+				// seek backwards and forwards across regions
+				for (int target : new int[] { 5000, 1023, 1024, 0, 9999, 3333 }) {
+					in.seek(target);
+					assertEquals(data[target] & 0xff, in.read());
+				}
+
+				in.seek(data.length);
+				assertEquals(-1, in.read());
+			} finally {
+				in.close();
+			}
+		} finally {
+			testfile.delete();
+		}
+	}
+
+	/**
+	 * This test checks that the mappings of the {@link LocalMappedDataInputStream} are released explicitly and
+	 * that the stream cannot be read after it was closed.
+	 */
+	@Test
+	public void testMemoryMappedRegionsAreReleased() throws IOException {
+
+		final File testfile = File.createTempFile("mapped", ".bin");
+		try {
+			final FileOutputStream fos = new FileOutputStream(testfile);
+			fos.write(new byte[4096]);
+			fos.close();
+
+			final RandomAccessFile raf = new RandomAccessFile(testfile, "r");
+			try {
+				assertTrue(LocalMappedDataInputStream.unmap(
+					raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, 4096)));
+			} finally {
+				raf.close();
+			}
+
+			final LocalMappedDataInputStream in = new LocalMappedDataInputStream(testfile, 1024);
+			assertEquals(0, in.read());
+			in.seek(3000);
+			assertEquals(0, in.read());
+			in.close();
+			in.close();
+
+			try {
+				in.read();
+				fail("Reading from a closed stream should fail.");
+			} catch (IOException e) {
+				// expected
+			}
+		} finally {
+			testfile.delete();
+		}
+	}
 }
@@ -13,6 +13,11 @@
 
 package eu.stratosphere.types.parser;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
 
 public class DoubleParserTest extends ParserTestBase<Double> {
 
@@ -45,6 +50,28 @@ public class DoubleParserTest extends ParserTestBase<Double> {
 		};
 	}
 
+	@Test
+	public void testDecimalsMatchJdkParsing() {
+		final Random rnd = new Random(7);
+		final DoubleParser parser = new DoubleParser();
+		
+		for (int i = 0; i < 100000; i++) {
+			final StringBuilder bld = new StringBuilder();
+			if (rnd.nextBoolean()) {
+				bld.append('-');
+			}
+			bld.append(rnd.nextInt(1000000)).append('.');
+			for (int k = rnd.nextInt(8); k > 0; k--) {
+				bld.append(rnd.nextInt(10));
+			}
+			
+			final String str = bld.toString();
+			final byte[] bytes = str.getBytes();
+			assertEquals(bytes.length, parser.parseField(bytes, 0, bytes.length, '|', null));
+			assertEquals(str, Double.valueOf(Double.parseDouble(str)), parser.getLastResult());
+		}
+	}
+	
 	@Override
 	public FieldParser<Double> getParser() {
 		return new DoubleParser();
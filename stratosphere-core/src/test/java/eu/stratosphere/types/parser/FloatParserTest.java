@@ -13,6 +13,11 @@
 
 package eu.stratosphere.types.parser;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
 
 public class FloatParserTest extends ParserTestBase<Float> {
 
@@ -45,6 +50,28 @@ public class FloatParserTest extends ParserTestBase<Float> {
 		};
 	}
 
+	@Test
+	public void testDecimalsMatchJdkParsing() {
+		final Random rnd = new Random(7);
+		final FloatParser parser = new FloatParser();
+		
+		for (int i = 0; i < 100000; i++) {
+			final StringBuilder bld = new StringBuilder();
+			if (rnd.nextBoolean()) {
+				bld.append('-');
+			}
+			bld.append(rnd.nextInt(10000)).append('.');
+			for (int k = rnd.nextInt(8); k > 0; k--) {
+				bld.append(rnd.nextInt(10));
+			}
+			
+			final String str = bld.toString();
+			final byte[] bytes = str.getBytes();
+			assertEquals(bytes.length, parser.parseField(bytes, 0, bytes.length, '|', null));
+			assertEquals(str, Float.valueOf(Float.parseFloat(str)), parser.getLastResult());
+		}
+	}
+	
 	@Override
 	public FieldParser<Float> getParser() {
 		return new FloatParser();
@@ -0,0 +1,84 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ByteScannerTest {
+
+	@Test
+	public void testFindsEveryPosition() {
+		for (int len = 0; len < 40; len++) {
+			for (int pos = 0; pos < len; pos++) {
+				final byte[] bytes = new byte[len];
+				bytes[pos] = '|';
+				assertEquals(pos, ByteScanner.indexOf(bytes, 0, len, (byte) '|'));
+				assertEquals(-1, ByteScanner.indexOf(bytes, pos + 1, len, (byte) '|'));
+				assertEquals(-1, ByteScanner.indexOf(bytes, 0, pos, (byte) '|'));
+			}
+		}
+	}
+	
+	@Test
+	public void testFindsFirstOccurrence() {
+		final byte[] bytes = "abc,def,ghijklmnopq,r".getBytes();
+		assertEquals(3, ByteScanner.indexOf(bytes, 0, bytes.length, (byte) ','));
+		assertEquals(7, ByteScanner.indexOf(bytes, 4, bytes.length, (byte) ','));
+		assertEquals(19, ByteScanner.indexOf(bytes, 8, bytes.length, (byte) ','));
+		assertEquals(-1, ByteScanner.indexOf(bytes, 20, bytes.length, (byte) ','));
+	}
+	
+	@Test
+	public void testHighBitBytes() {
+		// bytes with the high bit set must neither be missed nor cause false positives in neighboring bytes
+		final byte[] bytes = new byte[] { (byte) 0x80, (byte) 0xff, 0x7f, (byte) 0xfe, 0x01, (byte) 0x81, 0x00, (byte) 0xff,
+				(byte) 0x80, (byte) 0x7f };
+		assertEquals(1, ByteScanner.indexOf(bytes, 0, bytes.length, (byte) 0xff));
+		assertEquals(7, ByteScanner.indexOf(bytes, 2, bytes.length, (byte) 0xff));
+		assertEquals(6, ByteScanner.indexOf(bytes, 0, bytes.length, (byte) 0x00));
+		assertEquals(8, ByteScanner.indexOf(bytes, 1, bytes.length, (byte) 0x80));
+		assertEquals(-1, ByteScanner.indexOf(bytes, 0, bytes.length, (byte) 0x02));
+	}
+	
+	@Test
+	public void testRandomContents() {
+		final Random rnd = new Random(42);
+		final byte[] bytes = new byte[1000];
+		
+		for (int round = 0; round < 100; round++) {
+			rnd.nextBytes(bytes);
+			final byte value = (byte) rnd.nextInt();
+			final int from = rnd.nextInt(bytes.length);
+			final int to = from + rnd.nextInt(bytes.length - from + 1);
+			
+			int expected = -1;
+			for (int i = from; i < to; i++) {
+				if (bytes[i] == value) {
+					expected = i;
+					break;
+				}
+			}
+			assertEquals(expected, ByteScanner.indexOf(bytes, from, to, value));
+		}
+	}
+	
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testRangeExceedsArray() {
+		ByteScanner.indexOf(new byte[8], 0, 9, (byte) 0);
+	}
+}
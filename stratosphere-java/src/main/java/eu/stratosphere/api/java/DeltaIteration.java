@@ -52,6 +52,18 @@ public class DeltaIteration<ST, WT> {
 	
 	private int parallelism = -1;
 	
+	private String checkpointPath;
+	
+	private int checkpointInterval;
+	
+	private boolean resumeFromCheckpoint;
+	
+	private boolean asynchronous;
+	
+	private int[] worksetDeduplicationKeys;
+	
+	private int worksetMinimumField = -1;
+	
 
 	DeltaIteration(ExecutionEnvironment context, TypeInformation<ST> type, DataSet<ST> solutionSet, DataSet<WT> workset, Keys<ST> keys, int maxIterations) {
 		initialSolutionSet = solutionSet;
@@ -179,6 +191,158 @@ public class DeltaIteration<ST, WT> {
 		return parallelism;
 	}
 	
+	/**
+	 * Makes the iteration write a snapshot of its solution set and workset every <code>interval</code> supersteps.
+	 * A later run of the program resumes from the latest complete snapshot only if it is configured with
+	 * {@link #resumeFromCheckpoint(boolean)}, otherwise it discards the snapshots in the path when it starts.
+	 * The path must be specific to the job. It is cleared when the iteration terminates.
+	 * <p>
+	 * Snapshots cannot be taken by {@link #asynchronous(boolean) asynchronous} iterations.
+	 * 
+	 * @param path The directory for the snapshots, in any of the supported file systems.
+	 * @param interval The number of supersteps between two snapshots.
+	 * @return The iteration object, for function call chaining.
+	 */
+	public DeltaIteration<ST, WT> checkpoint(String path, int interval) {
+		Validate.notNull(path, "The checkpoint path must not be null.");
+		Validate.isTrue(interval > 0, "The checkpoint interval must be at least one.");
+		if (this.asynchronous) {
+			throw new InvalidProgramException("Asynchronous delta iterations cannot take superstep snapshots.");
+		}
+		this.checkpointPath = path;
+		this.checkpointInterval = interval;
+		return this;
+	}
+	
+	/**
+	 * Gets the directory for the superstep snapshots.
+	 * 
+	 * @return The directory for the snapshots, or <code>null</code>, if no snapshots are taken.
+	 */
+	public String getCheckpointPath() {
+		return checkpointPath;
+	}
+	
+	/**
+	 * Gets the number of supersteps between two snapshots.
+	 * 
+	 * @return The number of supersteps between two snapshots, or zero, if no snapshots are taken.
+	 */
+	public int getCheckpointInterval() {
+		return checkpointInterval;
+	}
+	
+	/**
+	 * Sets whether the iteration resumes from the latest complete snapshot that an earlier run of the program,
+	 * for example one that failed, left in the {@link #checkpoint(String, int) checkpoint path}. The iteration then
+	 * skips the supersteps before the snapshot, and it continues with the superstep numbers and the aggregates of
+	 * the snapshot. The snapshot is not checked against the inputs of the iteration, so a run must only resume if
+	 * its inputs are the same as those of the run that took the snapshot.
+	 * 
+	 * @param resume True, if the iteration should resume from the latest complete snapshot.
+	 * @return The iteration object, for function call chaining.
+	 */
+	public DeltaIteration<ST, WT> resumeFromCheckpoint(boolean resume) {
+		this.resumeFromCheckpoint = resume;
+		return this;
+	}
+	
+	/**
+	 * Checks whether the iteration resumes from the latest complete snapshot.
+	 * 
+	 * @return True, if the iteration resumes from the latest complete snapshot, false otherwise.
+	 */
+	public boolean isResumingFromCheckpoint() {
+		return resumeFromCheckpoint;
+	}
+	
+	/**
+	 * Sets whether the parallel instances of the iteration may start the next superstep before the check whether
+	 * the workset became empty has completed for the previous superstep. This removes the wait for the global
+	 * termination check from every superstep, which helps iterations with many short supersteps, such as
+	 * connected components. The check is then evaluated one superstep behind, so the iteration performs one
+	 * additional (empty) superstep, and the aggregates of the {@link #registerAggregator(String, Class) aggregators}
+	 * become visible <b>two supersteps</b> after they were computed, rather than in the next superstep.
+	 * <p>
+	 * The asynchronous mode is not barrier-free: the records inside the step function still move in supersteps,
+	 * and every task of the step function still waits for the end of the superstep on all its inputs before it
+	 * starts the next one. A slow parallel instance therefore still holds back the others. Only the round trip to
+	 * the global termination check is removed.
+	 * <p>
+	 * Asynchronous iterations cannot take {@link #checkpoint(String, int) snapshots}, because the parallel
+	 * instances are not known to have completed a superstep consistently when a snapshot would be written.
+	 * 
+	 * @param asynchronous True, if the iteration should not wait for the global termination check.
+	 * @return The iteration object, for function call chaining.
+	 */
+	public DeltaIteration<ST, WT> asynchronous(boolean asynchronous) {
+		if (asynchronous && this.checkpointPath != null) {
+			throw new InvalidProgramException("Asynchronous delta iterations cannot take superstep snapshots.");
+		}
+		this.asynchronous = asynchronous;
+		return this;
+	}
+	
+	/**
+	 * Checks whether the iteration starts its supersteps without waiting for the global termination check.
+	 * 
+	 * @return True, if the iteration does not wait for the global termination check, false otherwise.
+	 */
+	public boolean isAsynchronous() {
+		return asynchronous;
+	}
+	
+	/**
+	 * Makes the iteration remove duplicate elements from the next workset as they are produced, keeping one element
+	 * per key. This avoids processing the same element many times in the next superstep, for example a vertex that is
+	 * reached by many of its neighbors. Only duplicates produced by the same parallel instance are removed, and the
+	 * removal is best effort if the workset of a superstep does not fit into the memory of the iteration.
+	 * 
+	 * @param keyFields The positions of the fields that identify duplicate elements.
+	 * @return The iteration object, for function call chaining.
+	 */
+	public DeltaIteration<ST, WT> deduplicateWorkset(int... keyFields) {
+		this.worksetDeduplicationKeys = new Keys.FieldPositionKeys<WT>(keyFields, initialWorkset.getType(), false)
+				.computeLogicalKeyPositions();
+		this.worksetMinimumField = -1;
+		return this;
+	}
+	
+	/**
+	 * Makes the iteration keep, out of the elements with the same key in the next workset, only the one with the
+	 * smallest value in the given field, for example the shortest tentative distance of a vertex in a shortest
+	 * paths computation. The same restrictions as for {@link #deduplicateWorkset(int...)} apply.
+	 * 
+	 * @param minimumField The position of the field whose smallest value is kept.
+	 * @param keyFields The positions of the fields that identify elements with the same key.
+	 * @return The iteration object, for function call chaining.
+	 */
+	public DeltaIteration<ST, WT> keepWorksetMinimum(int minimumField, int... keyFields) {
+		// validates the positions against the workset type
+		new Keys.FieldPositionKeys<WT>(new int[] { minimumField }, initialWorkset.getType(), false);
+		deduplicateWorkset(keyFields);
+		this.worksetMinimumField = minimumField;
+		return this;
+	}
+	
+	/**
+	 * Gets the positions of the fields by which duplicates are removed from the workset.
+	 * 
+	 * @return The key positions, or <code>null</code>, if the workset is not deduplicated.
+	 */
+	public int[] getWorksetDeduplicationKeys() {
+		return worksetDeduplicationKeys;
+	}
+	
+	/**
+	 * Gets the position of the field whose smallest value is kept when duplicates are removed from the workset.
+	 * 
+	 * @return The field position, or <code>-1</code>, if an arbitrary duplicate is kept.
+	 */
+	public int getWorksetMinimumField() {
+		return worksetMinimumField;
+	}
+	
 	/**
 	 * Registers an {@link Aggregator} for the iteration. Aggregators can be used to maintain simple statistics during the
 	 * iteration, such as number of elements processed. The aggregators compute global aggregates: After each iteration step,
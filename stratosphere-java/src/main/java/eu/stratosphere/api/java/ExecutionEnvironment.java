@@ -31,6 +31,7 @@ import eu.stratosphere.api.common.JobExecutionResult;
 import eu.stratosphere.api.common.Plan;
 import eu.stratosphere.api.common.io.InputFormat;
 import eu.stratosphere.api.java.io.CollectionInputFormat;
+import eu.stratosphere.api.java.io.ColumnarReader;
 import eu.stratosphere.api.java.io.CsvReader;
 import eu.stratosphere.api.java.io.IteratorInputFormat;
 import eu.stratosphere.api.java.io.ParallelIteratorInputFormat;
@@ -250,6 +251,20 @@ public abstract class ExecutionEnvironment {
 		return new CsvReader(filePath, this);
 	}
 	
+	// --------------------------------- Columnar Input Format ------------------------------------
+	
+	/**
+	 * Creates a reader for columnar files, as written by the
+	 * {@link eu.stratosphere.api.java.io.columnar.ColumnarOutputFormat}. The reader has options to project
+	 * columns and to filter rows, and will eventually produce the DataSet of the matching rows.
+	 * 
+	 * @param filePath The path of the columnar file or of the directory of columnar files.
+	 * @return A ColumnarReader that can be used to configure the columnar input.
+	 */
+	public ColumnarReader readColumnarFile(String filePath) {
+		return new ColumnarReader(filePath, this);
+	}
+	
 	// ----------------------------------- Generic Input Format ---------------------------------------
 	
 	/**
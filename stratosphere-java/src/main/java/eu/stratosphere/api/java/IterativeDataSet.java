@@ -14,6 +14,8 @@
  **********************************************************************************************************************/
 package eu.stratosphere.api.java;
 
+import org.apache.commons.lang3.Validate;
+
 import eu.stratosphere.api.common.aggregators.Aggregator;
 import eu.stratosphere.api.common.aggregators.AggregatorRegistry;
 import eu.stratosphere.api.common.aggregators.ConvergenceCriterion;
@@ -35,6 +37,12 @@ public class IterativeDataSet<T> extends SingleInputOperator<T, T, IterativeData
 	private final AggregatorRegistry aggregators = new AggregatorRegistry();
 	
 	private int maxIterations;
+	
+	private String checkpointPath;
+	
+	private int checkpointInterval;
+	
+	private boolean resumeFromCheckpoint;
 
 	IterativeDataSet(ExecutionEnvironment context, TypeInformation<T> type, DataSet<T> input, int maxIterations) {
 		super(input, type);
@@ -82,6 +90,68 @@ public class IterativeDataSet<T> extends SingleInputOperator<T, T, IterativeData
 		return maxIterations;
 	}
 	
+	/**
+	 * Makes the iteration write a snapshot of its partial solution every <code>interval</code> supersteps.
+	 * A later run of the program resumes from the latest complete snapshot only if it is configured with
+	 * {@link #resumeFromCheckpoint(boolean)}, otherwise it discards the snapshots in the path when it starts.
+	 * The path must be specific to the job. It is cleared when the iteration terminates.
+	 * 
+	 * @param path The directory for the snapshots, in any of the supported file systems.
+	 * @param interval The number of supersteps between two snapshots.
+	 * 
+	 * @return The IterativeDataSet itself, to allow chaining function calls.
+	 */
+	public IterativeDataSet<T> checkpoint(String path, int interval) {
+		Validate.notNull(path, "The checkpoint path must not be null.");
+		Validate.isTrue(interval > 0, "The checkpoint interval must be at least one.");
+		this.checkpointPath = path;
+		this.checkpointInterval = interval;
+		return this;
+	}
+	
+	/**
+	 * Gets the directory for the superstep snapshots.
+	 * 
+	 * @return The directory for the snapshots, or <code>null</code>, if no snapshots are taken.
+	 */
+	public String getCheckpointPath() {
+		return checkpointPath;
+	}
+	
+	/**
+	 * Gets the number of supersteps between two snapshots.
+	 * 
+	 * @return The number of supersteps between two snapshots, or zero, if no snapshots are taken.
+	 */
+	public int getCheckpointInterval() {
+		return checkpointInterval;
+	}
+	
+	/**
+	 * Sets whether the iteration resumes from the latest complete snapshot that an earlier run of the program,
+	 * for example one that failed, left in the {@link #checkpoint(String, int) checkpoint path}. The iteration then
+	 * skips the supersteps before the snapshot, and it continues with the superstep numbers and the aggregates of
+	 * the snapshot. The snapshot is not checked against the inputs of the iteration, so a run must only resume if
+	 * its inputs are the same as those of the run that took the snapshot.
+	 * 
+	 * @param resume True, if the iteration should resume from the latest complete snapshot.
+	 * 
+	 * @return The IterativeDataSet itself, to allow chaining function calls.
+	 */
+	public IterativeDataSet<T> resumeFromCheckpoint(boolean resume) {
+		this.resumeFromCheckpoint = resume;
+		return this;
+	}
+	
+	/**
+	 * Checks whether the iteration resumes from the latest complete snapshot.
+	 * 
+	 * @return True, if the iteration resumes from the latest complete snapshot, false otherwise.
+	 */
+	public boolean isResumingFromCheckpoint() {
+		return resumeFromCheckpoint;
+	}
+	
 	/**
 	 * Registers an {@link Aggregator} for the iteration. Aggregators can be used to maintain simple statistics during the
 	 * iteration, such as number of elements processed. The aggregators compute global aggregates: After each iteration step,
@@ -0,0 +1,62 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.java.functions;
+
+import eu.stratosphere.api.common.io.FieldPredicate;
+import eu.stratosphere.api.common.io.FieldPredicate.Comparison;
+import eu.stratosphere.api.common.io.PushDownInputFormat;
+import eu.stratosphere.api.java.tuple.Tuple;
+
+/**
+ * A filter function that compares a field of tuples with a constant, such as {@code field 2 >= 100}. In contrast
+ * to a regular {@link FilterFunction}, the condition of this filter is declarative. If the filter directly
+ * follows a data source whose input format implements {@link PushDownInputFormat}, the optimizer pushes the
+ * condition into the input format and removes the filter from the program.
+ * <p>
+ * The basic syntax for using a FieldComparisonFilter is as follows:
+ * <pre><blockquote>
+ * DataSet<Tuple3<Integer, String, Double>> input = ...;
+ * 
+ * DataSet<Tuple3<Integer, String, Double>> result = 
+ *     input.filter(new FieldComparisonFilter<Tuple3<Integer, String, Double>>(2, Comparison.GREATER, 0.5));
+ * </blockquote></pre>
+ * 
+ * @param <T> The type of the filtered tuples.
+ */
+public class FieldComparisonFilter<T extends Tuple> extends FilterFunction<T> {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final FieldPredicate predicate;
+	
+	/**
+	 * Creates a new filter that compares the given field of the tuples with the given value.
+	 * 
+	 * @param field The position of the field in the tuples.
+	 * @param comparison The comparison.
+	 * @param value The value to compare the field's values with.
+	 */
+	public FieldComparisonFilter(int field, Comparison comparison, Object value) {
+		this.predicate = new FieldPredicate(field, comparison, value);
+	}
+	
+	public FieldPredicate getPredicate() {
+		return this.predicate;
+	}
+	
+	@Override
+	public boolean filter(T value) {
+		return this.predicate.accepts(value.getField(this.predicate.getField()));
+	}
+}
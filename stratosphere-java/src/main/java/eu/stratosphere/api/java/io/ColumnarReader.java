@@ -0,0 +1,159 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.api.java.io;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.Validate;
+
+import eu.stratosphere.api.common.io.FieldPredicate.Comparison;
+import eu.stratosphere.api.java.ExecutionEnvironment;
+import eu.stratosphere.api.java.io.columnar.ColumnarInputFormat;
+import eu.stratosphere.api.java.io.columnar.ColumnarPredicate;
+import eu.stratosphere.api.java.operators.DataSource;
+import eu.stratosphere.api.java.tuple.Tuple;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.api.java.typeutils.TypeExtractor;
+import eu.stratosphere.core.fs.Path;
+
+/**
+ * A builder class to instantiate a data source that reads columnar files, as written by the
+ * {@link eu.stratosphere.api.java.io.columnar.ColumnarOutputFormat}. The reader configures which columns are
+ * read into the fields of the resulting tuples, and which predicates the rows must satisfy. Only the projected
+ * columns and the columns referred to by predicates are read from the files, and row groups that cannot
+ * contain matching rows are skipped.
+ */
+public class ColumnarReader {
+
+	private final Path path;
+	
+	private final ExecutionEnvironment executionContext;
+	
+	
+	protected int[] projectedColumns;
+	
+	protected final List<ColumnarPredicate> predicates = new ArrayList<ColumnarPredicate>();
+	
+	// --------------------------------------------------------------------------------------------
+	
+	public ColumnarReader(Path filePath, ExecutionEnvironment executionContext) {
+		Validate.notNull(filePath, "The file path may not be null.");
+		Validate.notNull(executionContext, "The execution context may not be null.");
+		
+		this.path = filePath;
+		this.executionContext = executionContext;
+	}
+	
+	public ColumnarReader(String filePath, ExecutionEnvironment executionContext) {
+		this(new Path(Validate.notNull(filePath, "The file path may not be null.")), executionContext);
+	}
+	
+	public Path getFilePath() {
+		return this.path;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Configures which columns of the file are read. The i-th given column becomes the i-th field of the
+	 * resulting tuples. By default, all columns are read.
+	 * 
+	 * @param columns The positions of the columns to read.
+	 * @return The columnar reader instance itself, to allow for fluent function chaining.
+	 */
+	public ColumnarReader project(int... columns) {
+		if (columns == null || columns.length == 0) {
+			throw new IllegalArgumentException("The set of projected columns must not be null or empty.");
+		}
+		for (int column : columns) {
+			if (column < 0) {
+				throw new IllegalArgumentException("Column positions must not be negative.");
+			}
+		}
+		this.projectedColumns = columns;
+		return this;
+	}
+	
+	/**
+	 * Adds a predicate that the rows must satisfy, comparing a column of the file with a constant. The column
+	 * does not need to be projected. Multiple predicates must all be satisfied.
+	 * 
+	 * @param column The position of the column in the file.
+	 * @param comparison The comparison of the column's value with the constant.
+	 * @param value The constant, of the column's type or a number that the column's type represents exactly.
+	 * @return The columnar reader instance itself, to allow for fluent function chaining.
+	 */
+	public ColumnarReader where(int column, Comparison comparison, Object value) {
+		this.predicates.add(new ColumnarPredicate(column, comparison, value));
+		return this;
+	}
+	
+	/**
+	 * Configures the reader to read the projected columns into the given type. The type must be a subclass of
+	 * {@link Tuple}, whose generic field types match the types of the projected columns.
+	 * 
+	 * @param targetType The class of the target type, needs to be a subclass of Tuple.
+	 * @return The DataSet representing the data of the columnar file.
+	 */
+	public <T extends Tuple> DataSource<T> tupleType(Class<T> targetType) {
+		Validate.notNull(targetType, "The target type class must not be null.");
+		if (!Tuple.class.isAssignableFrom(targetType)) {
+			throw new IllegalArgumentException("The target type must be a subclass of " + Tuple.class.getName());
+		}
+		
+		@SuppressWarnings("unchecked")
+		TupleTypeInfo<T> typeInfo = (TupleTypeInfo<T>) TypeExtractor.createTypeInfo(targetType);
+		
+		Class<?>[] classes = new Class<?>[typeInfo.getArity()];
+		for (int i = 0; i < typeInfo.getArity(); i++) {
+			classes[i] = typeInfo.getTypeAt(i).getTypeClass();
+		}
+		ColumnarInputFormat<T> inputFormat = createInputFormat(classes);
+		return new DataSource<T>(executionContext, inputFormat, typeInfo);
+	}
+	
+	/**
+	 * Configures the reader to read the projected columns into tuples with fields of the given types.
+	 * 
+	 * @param types The types of the projected columns.
+	 * @return The DataSet representing the data of the columnar file.
+	 */
+	public <T extends Tuple> DataSource<T> types(Class<?>... types) {
+		TupleTypeInfo<T> typeInfo = TupleTypeInfo.getBasicTupleTypeInfo(types);
+		return new DataSource<T>(executionContext, this.<T>createInputFormat(types), typeInfo);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private <T extends Tuple> ColumnarInputFormat<T> createInputFormat(Class<?>[] types) {
+		int[] columns = this.projectedColumns;
+		if (columns == null) {
+			columns = new int[types.length];
+			for (int i = 0; i < columns.length; i++) {
+				columns[i] = i;
+			}
+		}
+		else if (columns.length != types.length) {
+			throw new IllegalArgumentException("The number of types (" + types.length +
+				") does not match the number of projected columns (" + columns.length + ").");
+		}
+		
+		ColumnarInputFormat<T> format = new ColumnarInputFormat<T>(this.path);
+		format.setFields(columns, types);
+		for (ColumnarPredicate predicate : this.predicates) {
+			format.addPredicate(predicate);
+		}
+		return format;
+	}
+}
@@ -16,12 +16,16 @@ package eu.stratosphere.api.java.io;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
 import com.google.common.base.Preconditions;
 
+import eu.stratosphere.api.common.io.FieldPredicate;
 import eu.stratosphere.api.common.io.GenericCsvInputFormat;
+import eu.stratosphere.api.common.io.PushDownInputFormat;
 import eu.stratosphere.api.java.tuple.Tuple;
 import eu.stratosphere.core.fs.FileInputSplit;
 import eu.stratosphere.core.fs.Path;
@@ -29,7 +33,15 @@ import eu.stratosphere.types.parser.FieldParser;
 import eu.stratosphere.util.StringUtils;
 
 
-public class CsvInputFormat<OUT extends Tuple> extends GenericCsvInputFormat<OUT> {
+/**
+ * An input format that reads CSV files into tuples. Only the included fields of a line are parsed, all other
+ * fields are skipped.
+ * <p>
+ * Projections and field comparisons of the operators following the data source are pushed into the format by
+ * the optimizer. The format then parses only the fields that are projected or compared, and drops the lines
+ * that do not satisfy the comparisons before they are turned into tuples.
+ */
+public class CsvInputFormat<OUT extends Tuple> extends GenericCsvInputFormat<OUT> implements PushDownInputFormat {
 
 	private static final long serialVersionUID = 1L;
 	
@@ -40,6 +52,19 @@ public class CsvInputFormat<OUT extends Tuple> extends GenericCsvInputFormat<OUT
 
 	private transient Object[] parsedValues;
 	
+	private transient FieldPredicate[] parsedPredicates;
+	
+	/**
+	 * The positions of the parsed values that are set as the fields of the tuples, or null, if all parsed
+	 * values are set in their order.
+	 */
+	private int[] outputFields;
+	
+	/**
+	 * The predicates that the lines must satisfy, referring to the positions of the parsed values.
+	 */
+	private final List<FieldPredicate> predicates = new ArrayList<FieldPredicate>();
+	
 	// To speed up readRecord processing. Used to find windows line endings.
 	// It is set when open so that readRecord does not have to evaluate it
 	private boolean lineDelimiterIsLinebreak = false;
@@ -68,6 +93,7 @@ public class CsvInputFormat<OUT extends Tuple> extends GenericCsvInputFormat<OUT
 		}
 		
 		setFieldTypesGeneric(fieldTypes);
+		resetPushDown();
 	}
 
 	public void setFields(int[] sourceFieldIndices, Class<?>[] fieldTypes) {
@@ -77,6 +103,7 @@ public class CsvInputFormat<OUT extends Tuple> extends GenericCsvInputFormat<OUT
 		checkForMonotonousOrder(sourceFieldIndices, fieldTypes);
 		
 		setFieldsGeneric(sourceFieldIndices, fieldTypes);
+		resetPushDown();
 	}
 	
 	public void setFields(boolean[] sourceFieldMask, Class<?>[] fieldTypes) {
@@ -84,12 +111,102 @@ public class CsvInputFormat<OUT extends Tuple> extends GenericCsvInputFormat<OUT
 		Preconditions.checkNotNull(fieldTypes);
 		
 		setFieldsGeneric(sourceFieldMask, fieldTypes);
+		resetPushDown();
 	}
 	
 	public Class<?>[] getFieldTypes() {
 		return super.getGenericFieldTypes();
 	}
 	
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	public boolean pushDownProjection(int[] fields) {
+		final Class<?>[] types = getGenericFieldTypes();
+		final int numParsed = getNumberOfNonNullFields();
+		final int numOutput = this.outputFields == null ? numParsed : this.outputFields.length;
+		
+		// determine the parsed values that are still needed by the projection and the predicates
+		final boolean[] needed = new boolean[numParsed];
+		final int[] projected = new int[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			if (fields[i] < 0 || fields[i] >= numOutput) {
+				return false;
+			}
+			projected[i] = this.outputFields == null ? fields[i] : this.outputFields[fields[i]];
+			needed[projected[i]] = true;
+		}
+		for (FieldPredicate predicate : this.predicates) {
+			needed[predicate.getField()] = true;
+		}
+		
+		// skip all fields of the lines whose values are not needed any more
+		final boolean[] included = new boolean[types.length];
+		final List<Class<?>> includedTypes = new ArrayList<Class<?>>();
+		final int[] newPositions = new int[numParsed];
+		for (int field = 0, parsed = 0; field < types.length; field++) {
+			if (types[field] != null) {
+				if (needed[parsed]) {
+					included[field] = true;
+					newPositions[parsed] = includedTypes.size();
+					includedTypes.add(types[field]);
+				}
+				parsed++;
+			}
+		}
+		setFieldsGeneric(included, includedTypes.toArray(new Class<?>[includedTypes.size()]));
+		
+		for (int i = 0; i < projected.length; i++) {
+			projected[i] = newPositions[projected[i]];
+		}
+		this.outputFields = projected;
+		for (int i = 0; i < this.predicates.size(); i++) {
+			final FieldPredicate predicate = this.predicates.get(i);
+			this.predicates.set(i, predicate.forField(newPositions[predicate.getField()]));
+		}
+		return true;
+	}
+	
+	@Override
+	public boolean pushDownFilter(FieldPredicate predicate) {
+		final int numOutput = this.outputFields == null ? getNumberOfNonNullFields() : this.outputFields.length;
+		if (predicate.getField() >= numOutput) {
+			return false;
+		}
+		final int parsed = this.outputFields == null ? predicate.getField() : this.outputFields[predicate.getField()];
+		
+		// the parsed values must be comparable to the predicate's value
+		final Class<?> type = getParsedType(parsed);
+		final Class<?> valueType = predicate.getValue().getClass();
+		if (type != valueType && !(Number.class.isAssignableFrom(type) && Number.class.isAssignableFrom(valueType))) {
+			return false;
+		}
+		
+		this.predicates.add(predicate.forField(parsed));
+		return true;
+	}
+	
+	@Override
+	public boolean hasPushedDownOperations() {
+		return this.outputFields != null || !this.predicates.isEmpty();
+	}
+	
+	private Class<?> getParsedType(int parsed) {
+		for (Class<?> type : getGenericFieldTypes()) {
+			if (type != null && parsed-- == 0) {
+				return type;
+			}
+		}
+		throw new IndexOutOfBoundsException();
+	}
+	
+	private void resetPushDown() {
+		this.outputFields = null;
+		this.predicates.clear();
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
 	@Override
 	public void open(FileInputSplit split) throws IOException {
 		super.open(split);
@@ -107,6 +224,7 @@ public class CsvInputFormat<OUT extends Tuple> extends GenericCsvInputFormat<OUT
 		for (int i = 0; i < fieldParsers.length; i++) {
 			this.parsedValues[i] = fieldParsers[i].createValue();
 		}
+		this.parsedPredicates = this.predicates.toArray(new FieldPredicate[this.predicates.size()]);
 		
 		// left to right evaluation makes access [0] okay
 		// this marker is used to fasten up readRecord, so that it doesn't have to check each call if the line ending is set to default
@@ -115,6 +233,20 @@ public class CsvInputFormat<OUT extends Tuple> extends GenericCsvInputFormat<OUT
 		}
 	}
 
+	/**
+	 * Reads the next line that satisfies the pushed-down predicates. Lines that fail the predicates are skipped,
+	 * such that <code>null</code> is only returned at the end of the split and the reuse object of the caller
+	 * is never replaced by <code>null</code> in the middle of the split.
+	 */
+	@Override
+	public OUT nextRecord(OUT record) throws IOException {
+		OUT returnRecord;
+		do {
+			returnRecord = super.nextRecord(record);
+		} while (returnRecord == null && !reachedEnd());
+		return returnRecord;
+	}
+
 	@Override
 	public OUT readRecord(OUT reuse, byte[] bytes, int offset, int numBytes) {
 		/*
@@ -127,9 +259,22 @@ public class CsvInputFormat<OUT extends Tuple> extends GenericCsvInputFormat<OUT
 		}
 		
 		if (parseRecord(parsedValues, bytes, offset, numBytes)) {
+			// drop the lines that do not satisfy the pushed-down predicates
+			for (FieldPredicate predicate : this.parsedPredicates) {
+				if (!predicate.accepts(parsedValues[predicate.getField()])) {
+					return null;
+				}
+			}
+			
 			// valid parse, map values into pact record
-			for (int i = 0; i < parsedValues.length; i++) {
-				reuse.setField(parsedValues[i], i);
+			if (this.outputFields == null) {
+				for (int i = 0; i < parsedValues.length; i++) {
+					reuse.setField(parsedValues[i], i);
+				}
+			} else {
+				for (int i = 0; i < this.outputFields.length; i++) {
+					reuse.setField(parsedValues[this.outputFields[i]], i);
+				}
 			}
 			return reuse;
 		} else {
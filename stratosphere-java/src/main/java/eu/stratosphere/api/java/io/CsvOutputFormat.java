@@ -13,16 +13,15 @@
 
 package eu.stratosphere.api.java.io;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.nio.charset.Charset;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import eu.stratosphere.api.common.InvalidProgramException;
 import eu.stratosphere.api.common.io.FileOutputFormat;
+import eu.stratosphere.api.common.io.TextOutputBuffer;
 import eu.stratosphere.api.java.tuple.Tuple;
 import eu.stratosphere.api.java.typeutils.InputTypeConfigurable;
 import eu.stratosphere.types.TypeInformation;
@@ -48,7 +47,11 @@ public class CsvOutputFormat<T extends Tuple> extends FileOutputFormat<T> implem
 
 	// --------------------------------------------------------------------------------------------
 
-	private transient Writer wrt;
+	private transient TextOutputBuffer buffer;
+
+	private transient byte[] fieldDelimiterBytes;
+
+	private transient byte[] recordDelimiterBytes;
 
 	private String fieldDelimiter;
 
@@ -150,14 +153,25 @@ public class CsvOutputFormat<T extends Tuple> extends FileOutputFormat<T> implem
 	@Override
 	public void open(int taskNumber, int numTasks) throws IOException {
 		super.open(taskNumber, numTasks);
-		this.wrt = this.charsetName == null ? new OutputStreamWriter(new BufferedOutputStream(this.stream, 4096)) :
-				new OutputStreamWriter(new BufferedOutputStream(this.stream, 4096), this.charsetName);
+
+		final Charset charset;
+		try {
+			charset = this.charsetName == null ? Charset.defaultCharset() : Charset.forName(this.charsetName);
+		}
+		catch (IllegalArgumentException e) {
+			throw new IOException("The charset " + this.charsetName + " is not supported.", e);
+		}
+
+		this.buffer = new TextOutputBuffer(this.stream, charset);
+		this.fieldDelimiterBytes = this.fieldDelimiter.getBytes(charset);
+		this.recordDelimiterBytes = this.recordDelimiter.getBytes(charset);
 	}
 
 	@Override
 	public void close() throws IOException {
-		if (wrt != null) {
-			this.wrt.close();
+		if (this.buffer != null) {
+			this.buffer.flush();
+			this.buffer = null;
 		}
 		super.close();
 	}
@@ -170,24 +184,20 @@ public class CsvOutputFormat<T extends Tuple> extends FileOutputFormat<T> implem
 			Object v = element.getField(i);
 			if (v != null) {
 				if (i != 0) {
-					this.wrt.write(this.fieldDelimiter);
+					this.buffer.write(this.fieldDelimiterBytes);
 				}
 
-				if (quoteStrings) {
-					if (v instanceof String || v instanceof StringValue) {
-						this.wrt.write('"');
-						this.wrt.write(v.toString());
-						this.wrt.write('"');
-					} else {
-						this.wrt.write(v.toString());
-					}
+				if (quoteStrings && (v instanceof String || v instanceof StringValue)) {
+					this.buffer.write('"');
+					this.buffer.writeObject(v);
+					this.buffer.write('"');
 				} else {
-					this.wrt.write(v.toString());
+					this.buffer.writeObject(v);
 				}
 			} else {
 				if (this.allowNullValues) {
 					if (i != 0) {
-						this.wrt.write(this.fieldDelimiter);
+						this.buffer.write(this.fieldDelimiterBytes);
 					}
 				} else {
 					throw new RuntimeException("Cannot write tuple with <null> value at position: " + i);
@@ -196,7 +206,7 @@ public class CsvOutputFormat<T extends Tuple> extends FileOutputFormat<T> implem
 		}
 
 		// add the record delimiter
-		this.wrt.write(this.recordDelimiter);
+		this.buffer.write(this.recordDelimiterBytes);
 	}
 
 	// --------------------------------------------------------------------------------------------
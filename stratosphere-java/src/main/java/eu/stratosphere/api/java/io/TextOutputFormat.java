@@ -20,6 +20,7 @@ import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.UnsupportedCharsetException;
 
 import eu.stratosphere.api.common.io.FileOutputFormat;
+import eu.stratosphere.api.common.io.TextOutputBuffer;
 import eu.stratosphere.core.fs.Path;
 
 
@@ -32,6 +33,8 @@ public class TextOutputFormat<T> extends FileOutputFormat<T> {
 	private String charsetName;
 	
 	private transient Charset charset;
+	
+	private transient TextOutputBuffer buffer;
 
 	// --------------------------------------------------------------------------------------------
 
@@ -76,13 +79,23 @@ public class TextOutputFormat<T> extends FileOutputFormat<T> {
 		catch (UnsupportedCharsetException e) {
 			throw new IOException("The charset " + charsetName + " is not supported.", e);
 		}
+		
+		this.buffer = new TextOutputBuffer(this.stream, this.charset);
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if (this.buffer != null) {
+			this.buffer.flush();
+			this.buffer = null;
+		}
+		super.close();
 	}
 	
 	@Override
 	public void writeRecord(T record) throws IOException {
-		byte[] bytes = record.toString().getBytes(charset);
-		this.stream.write(bytes);
-		this.stream.write(NEWLINE);
+		this.buffer.writeObject(record);
+		this.buffer.write(NEWLINE);
 	}
 	
 	// --------------------------------------------------------------------------------------------
@@ -0,0 +1,274 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.api.java.io.columnar;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The encodings of the column chunks in a columnar file. The writer picks the encoding for each chunk
+ * individually, based on the values in the chunk:
+ * <ul>
+ *   <li>{@link #RUN_LENGTH} for chunks with long runs of equal values, such as sorted or low cardinality columns,</li>
+ *   <li>{@link #DELTA} for integral columns where the differences between subsequent values are small,</li>
+ *   <li>{@link #DICTIONARY} for other columns with few distinct values, such as strings from a small domain,</li>
+ *   <li>{@link #PLAIN} otherwise.</li>
+ * </ul>
+ */
+public enum ColumnEncoding {
+
+	/**
+	 * The values one after another in their plain serialized form.
+	 */
+	PLAIN,
+	
+	/**
+	 * Runs of equal values, each as the length of the run followed by the plain value.
+	 */
+	RUN_LENGTH,
+	
+	/**
+	 * The distinct values in their plain form, followed by the index of each value in the dictionary.
+	 */
+	DICTIONARY,
+	
+	/**
+	 * The first value followed by the differences between subsequent values, as zig-zag encoded variable
+	 * length longs. Only for integral types.
+	 */
+	DELTA;
+	
+	
+	/**
+	 * Chooses the encoding that is expected to produce the smallest chunk for the given values.
+	 * 
+	 * @param type The type of the values.
+	 * @param values The values.
+	 * @param num The number of values.
+	 * @return The encoding to use.
+	 */
+	public static ColumnEncoding choose(ColumnType type, Object[] values, int num) {
+		if (num == 0) {
+			return PLAIN;
+		}
+		
+		int runs = 1;
+		for (int i = 1; i < num; i++) {
+			if (!values[i].equals(values[i - 1])) {
+				runs++;
+			}
+		}
+		if (runs <= num / 4) {
+			return RUN_LENGTH;
+		}
+		
+		if (type.isIntegral()) {
+			long deltaBytes = 0;
+			long previous = 0;
+			for (int i = 0; i < num; i++) {
+				final long value = type.toLong(values[i]);
+				deltaBytes += getVarLongLength(zigZag(value - previous));
+				previous = value;
+			}
+			return deltaBytes < ((long) num) * type.getPlainLength() ? DELTA : PLAIN;
+		}
+		
+		if (type != ColumnType.BOOLEAN) {
+			// count the distinct values until it is clear that the dictionary does not pay off
+			final int maxDistinct = num / 2;
+			final HashMap<Object, Object> distinct = new HashMap<Object, Object>();
+			for (int i = 0; i < num && distinct.size() <= maxDistinct; i++) {
+				distinct.put(values[i], values[i]);
+			}
+			if (distinct.size() <= maxDistinct) {
+				return DICTIONARY;
+			}
+		}
+		return PLAIN;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Writes the given values in this encoding.
+	 * 
+	 * @param type The type of the values.
+	 * @param values The values to write.
+	 * @param num The number of values to write.
+	 * @param out The output to write the values to.
+	 * @throws IOException Thrown, if the output could not be written.
+	 */
+	public void encode(ColumnType type, Object[] values, int num, DataOutput out) throws IOException {
+		switch (this) {
+		case PLAIN:
+			for (int i = 0; i < num; i++) {
+				type.writeValue(values[i], out);
+			}
+			break;
+		case RUN_LENGTH:
+			for (int start = 0; start < num;) {
+				final Object value = values[start];
+				int end = start + 1;
+				while (end < num && values[end].equals(value)) {
+					end++;
+				}
+				writeVarLong(end - start, out);
+				type.writeValue(value, out);
+				start = end;
+			}
+			break;
+		case DICTIONARY: {
+			final HashMap<Object, Integer> codes = new HashMap<Object, Integer>();
+			final int[] valueCodes = new int[num];
+			for (int i = 0; i < num; i++) {
+				Integer code = codes.get(values[i]);
+				if (code == null) {
+					code = codes.size();
+					codes.put(values[i], code);
+				}
+				valueCodes[i] = code;
+			}
+			
+			final Object[] dictionary = new Object[codes.size()];
+			for (Map.Entry<Object, Integer> entry : codes.entrySet()) {
+				dictionary[entry.getValue()] = entry.getKey();
+			}
+			writeVarLong(dictionary.length, out);
+			for (Object value : dictionary) {
+				type.writeValue(value, out);
+			}
+			for (int i = 0; i < num; i++) {
+				writeVarLong(valueCodes[i], out);
+			}
+			break;
+		}
+		case DELTA: {
+			long previous = 0;
+			for (int i = 0; i < num; i++) {
+				final long value = type.toLong(values[i]);
+				writeVarLong(zigZag(value - previous), out);
+				previous = value;
+			}
+			break;
+		}
+		default:
+			throw new IllegalStateException();
+		}
+	}
+	
+	/**
+	 * Reads values in this encoding.
+	 * 
+	 * @param type The type of the values.
+	 * @param in The input to read the values from.
+	 * @param target The array to read the values into.
+	 * @param num The number of values to read.
+	 * @throws IOException Thrown, if the input could not be read or is corrupt.
+	 */
+	public void decode(ColumnType type, DataInput in, Object[] target, int num) throws IOException {
+		switch (this) {
+		case PLAIN:
+			for (int i = 0; i < num; i++) {
+				target[i] = type.readValue(in);
+			}
+			break;
+		case RUN_LENGTH:
+			for (int pos = 0; pos < num;) {
+				final long runLength = readVarLong(in);
+				if (runLength <= 0 || runLength > num - pos) {
+					throw new IOException("Corrupt run length encoded column chunk.");
+				}
+				final Object value = type.readValue(in);
+				for (final int end = pos + (int) runLength; pos < end; pos++) {
+					target[pos] = value;
+				}
+			}
+			break;
+		case DICTIONARY: {
+			final long dictionarySize = readVarLong(in);
+			if (dictionarySize < 0 || dictionarySize > num) {
+				throw new IOException("Corrupt dictionary encoded column chunk.");
+			}
+			final Object[] dictionary = new Object[(int) dictionarySize];
+			for (int i = 0; i < dictionary.length; i++) {
+				dictionary[i] = type.readValue(in);
+			}
+			for (int i = 0; i < num; i++) {
+				final long code = readVarLong(in);
+				if (code < 0 || code >= dictionary.length) {
+					throw new IOException("Corrupt dictionary encoded column chunk.");
+				}
+				target[i] = dictionary[(int) code];
+			}
+			break;
+		}
+		case DELTA: {
+			long value = 0;
+			for (int i = 0; i < num; i++) {
+				value += unZigZag(readVarLong(in));
+				target[i] = type.fromLong(value);
+			}
+			break;
+		}
+		default:
+			throw new IllegalStateException();
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	//                                  Variable length longs
+	// --------------------------------------------------------------------------------------------
+	
+	static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+	
+	static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+	
+	static int getVarLongLength(long value) {
+		int length = 1;
+		while ((value & ~0x7FL) != 0) {
+			value >>>= 7;
+			length++;
+		}
+		return length;
+	}
+	
+	/**
+	 * Writes the given long, interpreted as unsigned, with seven bits per byte.
+	 */
+	static void writeVarLong(long value, DataOutput out) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.write(((int) value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+	
+	static long readVarLong(DataInput in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			final int b = in.readUnsignedByte();
+			value |= ((long) (b & 0x7F)) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Corrupt variable length long.");
+	}
+}
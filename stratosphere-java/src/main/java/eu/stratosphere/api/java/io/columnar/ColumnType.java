@@ -0,0 +1,241 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.api.java.io.columnar;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import eu.stratosphere.types.StringValue;
+
+/**
+ * The types of the columns that can be stored in a columnar file. Each type describes how its values are
+ * serialized in plain form, and, for integral types, how its values map to longs for the delta encoding.
+ */
+public enum ColumnType {
+
+	BOOLEAN(Boolean.class),
+	BYTE(Byte.class),
+	SHORT(Short.class),
+	CHAR(Character.class),
+	INT(Integer.class),
+	LONG(Long.class),
+	FLOAT(Float.class),
+	DOUBLE(Double.class),
+	STRING(String.class);
+	
+	
+	private final Class<?> typeClass;
+	
+	private ColumnType(Class<?> typeClass) {
+		this.typeClass = typeClass;
+	}
+	
+	/**
+	 * Gets the class of the values of this column type.
+	 * 
+	 * @return The class of the values.
+	 */
+	public Class<?> getTypeClass() {
+		return this.typeClass;
+	}
+	
+	/**
+	 * Checks whether the values of this type are integers, which can be delta encoded.
+	 * 
+	 * @return True, if the type is integral, false otherwise.
+	 */
+	public boolean isIntegral() {
+		switch (this) {
+		case BYTE:
+		case SHORT:
+		case CHAR:
+		case INT:
+		case LONG:
+			return true;
+		default:
+			return false;
+		}
+	}
+	
+	/**
+	 * Gets the column type for the given class.
+	 * 
+	 * @param clazz The class of the values.
+	 * @return The column type, or null, if values of the class cannot be stored in a columnar file.
+	 */
+	public static ColumnType forClass(Class<?> clazz) {
+		for (ColumnType type : values()) {
+			if (type.typeClass == clazz) {
+				return type;
+			}
+		}
+		return null;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	public void writeValue(Object value, DataOutput out) throws IOException {
+		switch (this) {
+		case BOOLEAN:
+			out.writeBoolean((Boolean) value);
+			break;
+		case BYTE:
+			out.writeByte((Byte) value);
+			break;
+		case SHORT:
+			out.writeShort((Short) value);
+			break;
+		case CHAR:
+			out.writeChar((Character) value);
+			break;
+		case INT:
+			out.writeInt((Integer) value);
+			break;
+		case LONG:
+			out.writeLong((Long) value);
+			break;
+		case FLOAT:
+			out.writeFloat((Float) value);
+			break;
+		case DOUBLE:
+			out.writeDouble((Double) value);
+			break;
+		case STRING:
+			StringValue.writeString((String) value, out);
+			break;
+		default:
+			throw new IllegalStateException();
+		}
+	}
+	
+	public Object readValue(DataInput in) throws IOException {
+		switch (this) {
+		case BOOLEAN:
+			return in.readBoolean();
+		case BYTE:
+			return in.readByte();
+		case SHORT:
+			return in.readShort();
+		case CHAR:
+			return in.readChar();
+		case INT:
+			return in.readInt();
+		case LONG:
+			return in.readLong();
+		case FLOAT:
+			return in.readFloat();
+		case DOUBLE:
+			return in.readDouble();
+		case STRING:
+			return StringValue.readString(in);
+		default:
+			throw new IllegalStateException();
+		}
+	}
+	
+	/**
+	 * Gets the number of bytes of a value in plain form, or -1 for variable length types.
+	 * 
+	 * @return The length of a plain value, or -1.
+	 */
+	public int getPlainLength() {
+		switch (this) {
+		case BOOLEAN:
+		case BYTE:
+			return 1;
+		case SHORT:
+		case CHAR:
+			return 2;
+		case INT:
+		case FLOAT:
+			return 4;
+		case LONG:
+		case DOUBLE:
+			return 8;
+		default:
+			return -1;
+		}
+	}
+	
+	long toLong(Object value) {
+		switch (this) {
+		case BYTE:
+			return (Byte) value;
+		case SHORT:
+			return (Short) value;
+		case CHAR:
+			return (Character) value;
+		case INT:
+			return (Integer) value;
+		case LONG:
+			return (Long) value;
+		default:
+			throw new IllegalStateException("Type " + this + " is not integral.");
+		}
+	}
+	
+	Object fromLong(long value) {
+		switch (this) {
+		case BYTE:
+			return (byte) value;
+		case SHORT:
+			return (short) value;
+		case CHAR:
+			return (char) value;
+		case INT:
+			return (int) value;
+		case LONG:
+			return value;
+		default:
+			throw new IllegalStateException("Type " + this + " is not integral.");
+		}
+	}
+	
+	/**
+	 * Converts the given value to a value of this type, such that it can be compared to the values of a
+	 * column of this type. Numbers are converted to numeric types that can represent them exactly, such that
+	 * a predicate like {@code field > 100} can be applied to long columns as well.
+	 * 
+	 * @param value The value to convert.
+	 * @return The converted value.
+	 * @throws IllegalArgumentException Thrown, if the value cannot be converted to this type.
+	 */
+	public Object convert(Object value) {
+		if (value == null) {
+			throw new IllegalArgumentException("Null values cannot be compared to columns.");
+		}
+		if (this.typeClass == value.getClass()) {
+			return value;
+		}
+		
+		final boolean integral = value instanceof Byte || value instanceof Short || value instanceof Integer ||
+				value instanceof Long;
+		if (integral && isIntegral() && this != CHAR) {
+			final long num = ((Number) value).longValue();
+			final Object converted = fromLong(num);
+			if (toLong(converted) == num) {
+				return converted;
+			}
+		}
+		else if (this == FLOAT && integral) {
+			return ((Number) value).floatValue();
+		}
+		else if (this == DOUBLE && (integral || value instanceof Float)) {
+			return ((Number) value).doubleValue();
+		}
+		
+		throw new IllegalArgumentException("The value '" + value + "' of type " + value.getClass().getName() +
+			" cannot be compared to a column of type " + this.typeClass.getName());
+	}
+}
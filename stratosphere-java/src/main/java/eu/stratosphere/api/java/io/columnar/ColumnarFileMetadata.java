@@ -0,0 +1,192 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.api.java.io.columnar;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.stratosphere.core.fs.FSDataInputStream;
+
+/**
+ * The metadata of a columnar file, which is stored in the footer of the file. A columnar file has the
+ * following layout:
+ * 
+ * <pre>
+ * +-------+-------------+-----+-------------+--------+-----------------+-------+
+ * | MAGIC | row group 0 | ... | row group n | footer | footer position | MAGIC |
+ * +-------+-------------+-----+-------------+--------+-----------------+-------+
+ * </pre>
+ * 
+ * Each row group holds one chunk per column, which contains the column's values of the rows in the group.
+ * The footer describes the types of the columns and, for every row group, its position and number of rows,
+ * as well as the length, the encoding and the minimum and maximum value of each of its chunks.
+ */
+final class ColumnarFileMetadata {
+	
+	static final int MAGIC = 0x53434631;
+	
+	/** The length of the trailer, i.e. the footer position and the magic number. */
+	static final int TRAILER_LENGTH = 12;
+	
+	private final ColumnType[] types;
+	
+	private final List<RowGroup> rowGroups = new ArrayList<RowGroup>();
+	
+	
+	ColumnarFileMetadata(ColumnType[] types) {
+		this.types = types;
+	}
+	
+	ColumnType[] getTypes() {
+		return this.types;
+	}
+	
+	List<RowGroup> getRowGroups() {
+		return this.rowGroups;
+	}
+	
+	void addRowGroup(RowGroup group) {
+		this.rowGroups.add(group);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	void write(DataOutput out) throws IOException {
+		out.writeInt(this.types.length);
+		for (ColumnType type : this.types) {
+			out.writeByte(type.ordinal());
+		}
+		
+		out.writeInt(this.rowGroups.size());
+		for (RowGroup group : this.rowGroups) {
+			out.writeLong(group.offset);
+			out.writeInt(group.numRows);
+			for (int i = 0; i < this.types.length; i++) {
+				final ColumnChunk chunk = group.chunks[i];
+				out.writeInt(chunk.length);
+				out.writeByte(chunk.encoding.ordinal());
+				if (group.numRows > 0) {
+					this.types[i].writeValue(chunk.min, out);
+					this.types[i].writeValue(chunk.max, out);
+				}
+			}
+		}
+	}
+	
+	static ColumnarFileMetadata read(DataInput in) throws IOException {
+		final ColumnType[] allTypes = ColumnType.values();
+		final ColumnEncoding[] allEncodings = ColumnEncoding.values();
+		
+		final int numColumns = in.readInt();
+		if (numColumns < 0) {
+			throw new IOException("Corrupt footer of columnar file.");
+		}
+		final ColumnType[] types = new ColumnType[numColumns];
+		for (int i = 0; i < numColumns; i++) {
+			final int type = in.readUnsignedByte();
+			if (type >= allTypes.length) {
+				throw new IOException("Unknown column type " + type + " in columnar file.");
+			}
+			types[i] = allTypes[type];
+		}
+		
+		final ColumnarFileMetadata metadata = new ColumnarFileMetadata(types);
+		final int numGroups = in.readInt();
+		for (int g = 0; g < numGroups; g++) {
+			final long offset = in.readLong();
+			final int numRows = in.readInt();
+			final ColumnChunk[] chunks = new ColumnChunk[numColumns];
+			for (int i = 0; i < numColumns; i++) {
+				final int length = in.readInt();
+				final int encoding = in.readUnsignedByte();
+				if (length < 0 || encoding >= allEncodings.length) {
+					throw new IOException("Corrupt footer of columnar file.");
+				}
+				final Object min = numRows > 0 ? types[i].readValue(in) : null;
+				final Object max = numRows > 0 ? types[i].readValue(in) : null;
+				chunks[i] = new ColumnChunk(length, allEncodings[encoding], min, max);
+			}
+			metadata.addRowGroup(new RowGroup(offset, numRows, chunks));
+		}
+		return metadata;
+	}
+	
+	/**
+	 * Reads the metadata from the footer of the columnar file behind the given stream.
+	 * 
+	 * @param stream The stream of the file.
+	 * @param fileLength The length of the file.
+	 * @return The metadata of the file.
+	 * @throws IOException Thrown, if the footer could not be read, or if the file is no columnar file.
+	 */
+	static ColumnarFileMetadata read(FSDataInputStream stream, long fileLength) throws IOException {
+		if (fileLength < 4 + TRAILER_LENGTH) {
+			throw new IOException("The file is too short to be a columnar file.");
+		}
+		
+		final DataInputStream in = new DataInputStream(stream);
+		stream.seek(fileLength - TRAILER_LENGTH);
+		final long footerPosition = in.readLong();
+		if (in.readInt() != MAGIC || footerPosition < 4 || footerPosition > fileLength - TRAILER_LENGTH) {
+			throw new IOException("The file is no columnar file.");
+		}
+		
+		stream.seek(footerPosition);
+		return read(in);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * The description of a row group.
+	 */
+	static final class RowGroup {
+		
+		final long offset;
+		
+		final int numRows;
+		
+		final ColumnChunk[] chunks;
+		
+		RowGroup(long offset, int numRows, ColumnChunk[] chunks) {
+			this.offset = offset;
+			this.numRows = numRows;
+			this.chunks = chunks;
+		}
+	}
+	
+	/**
+	 * The description of the chunk of one column in a row group.
+	 */
+	static final class ColumnChunk {
+		
+		final int length;
+		
+		final ColumnEncoding encoding;
+		
+		final Object min;
+		
+		final Object max;
+		
+		ColumnChunk(int length, ColumnEncoding encoding, Object min, Object max) {
+			this.length = length;
+			this.encoding = encoding;
+			this.min = min;
+			this.max = max;
+		}
+	}
+}
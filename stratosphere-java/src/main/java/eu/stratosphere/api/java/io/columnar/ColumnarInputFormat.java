@@ -0,0 +1,387 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.api.java.io.columnar;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.common.io.FieldPredicate;
+import eu.stratosphere.api.common.io.FileInputFormat;
+import eu.stratosphere.api.common.io.PushDownInputFormat;
+import eu.stratosphere.api.java.tuple.Tuple;
+import eu.stratosphere.core.fs.FileInputSplit;
+import eu.stratosphere.core.fs.Path;
+
+/**
+ * An input format that reads {@link Tuple}s from the columnar files written by the {@link ColumnarOutputFormat}.
+ * The format reads only the columns that are projected into the tuples or filtered by predicates, and skips
+ * all other columns. Row groups whose minimum and maximum values show that none of their rows satisfies the
+ * predicates are skipped altogether.
+ * <p>
+ * The files are split like regular files. A split reads all row groups that start within its range.
+ * <p>
+ * Projections and predicates of the operators following the data source are pushed into the format by the
+ * optimizer, such that they are evaluated on the columns directly.
+ */
+public class ColumnarInputFormat<T extends Tuple> extends FileInputFormat<T> implements PushDownInputFormat {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private static final Log LOG = LogFactory.getLog(ColumnarInputFormat.class);
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private int[] projectedColumns;
+	
+	private Class<?>[] fieldTypes;
+	
+	private final List<ColumnarPredicate> predicates = new ArrayList<ColumnarPredicate>();
+	
+	private boolean pushedDown;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private transient ColumnarFileMetadata metadata;
+	
+	private transient List<ColumnarFileMetadata.RowGroup> rowGroups;
+	
+	private transient int nextRowGroup;
+	
+	private transient int[] columns;
+	
+	private transient ColumnarPredicate[] typedPredicates;
+	
+	private transient boolean[] columnsToRead;
+	
+	private transient Object[][] values;
+	
+	private transient byte[] chunkBuffer;
+	
+	private transient int numRows;
+	
+	private transient int currentRow;
+	
+	private transient int nextRow;
+	
+	private transient boolean rowPending;
+	
+	private transient boolean end;
+	
+	private transient int numSkippedRowGroups;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	public ColumnarInputFormat(Path filePath) {
+		super(filePath);
+	}
+	
+	/**
+	 * Sets the columns that are read into the fields of the tuples, and the types of the tuple fields. The value
+	 * of the i-th column in the given array is set as the i-th field of the tuple. If no columns are set, all
+	 * columns of the file are read, in their order.
+	 * 
+	 * @param columns The positions of the columns to read, or null for all columns.
+	 * @param fieldTypes The types of the fields, or null, if they should not be checked against the file.
+	 */
+	public void setFields(int[] columns, Class<?>[] fieldTypes) {
+		if (columns != null) {
+			for (int column : columns) {
+				if (column < 0) {
+					throw new IllegalArgumentException("Column positions must not be negative.");
+				}
+			}
+			if (fieldTypes != null && fieldTypes.length != columns.length) {
+				throw new IllegalArgumentException("The number of types must match the number of columns.");
+			}
+		}
+		this.projectedColumns = columns;
+		this.fieldTypes = fieldTypes;
+	}
+	
+	public int[] getProjectedColumns() {
+		return this.projectedColumns;
+	}
+	
+	/**
+	 * Adds a predicate that the rows must satisfy. The predicate may refer to any column of the file, also to
+	 * columns that are not read into the tuples.
+	 * 
+	 * @param predicate The predicate to add.
+	 */
+	public void addPredicate(ColumnarPredicate predicate) {
+		if (predicate == null) {
+			throw new NullPointerException();
+		}
+		this.predicates.add(predicate);
+	}
+	
+	public List<ColumnarPredicate> getPredicates() {
+		return this.predicates;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	public boolean pushDownProjection(int[] fields) {
+		final int[] columns = new int[fields.length];
+		final Class<?>[] types = this.fieldTypes == null ? null : new Class<?>[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			if (this.projectedColumns != null && fields[i] >= this.projectedColumns.length) {
+				return false;
+			}
+			columns[i] = this.projectedColumns == null ? fields[i] : this.projectedColumns[fields[i]];
+			if (types != null) {
+				types[i] = this.fieldTypes[fields[i]];
+			}
+		}
+		setFields(columns, types);
+		this.pushedDown = true;
+		return true;
+	}
+	
+	@Override
+	public boolean pushDownFilter(FieldPredicate predicate) {
+		final int field = predicate.getField();
+		if (this.projectedColumns != null && field >= this.projectedColumns.length) {
+			return false;
+		}
+		final int column = this.projectedColumns == null ? field : this.projectedColumns[field];
+		addPredicate(new ColumnarPredicate(column, predicate.getComparison(), predicate.getValue()));
+		this.pushedDown = true;
+		return true;
+	}
+	
+	@Override
+	public boolean hasPushedDownOperations() {
+		return this.pushedDown;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Gets the number of row groups of the current split that were skipped, because none of their rows could
+	 * satisfy the predicates.
+	 * 
+	 * @return The number of skipped row groups.
+	 */
+	public int getNumSkippedRowGroups() {
+		return this.numSkippedRowGroups;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	public void open(FileInputSplit split) throws IOException {
+		super.open(split);
+		
+		final long fileLength = split.getPath().getFileSystem().getFileStatus(split.getPath()).getLen();
+		this.metadata = ColumnarFileMetadata.read(this.stream, fileLength);
+		final ColumnType[] types = this.metadata.getTypes();
+		
+		// validate the projection against the file
+		if (this.projectedColumns == null) {
+			this.columns = new int[types.length];
+			for (int i = 0; i < types.length; i++) {
+				this.columns[i] = i;
+			}
+		} else {
+			this.columns = this.projectedColumns;
+		}
+		this.columnsToRead = new boolean[types.length];
+		for (int i = 0; i < this.columns.length; i++) {
+			final int column = this.columns[i];
+			if (column >= types.length) {
+				throw new IOException("Column " + column + " is not contained in file " + split.getPath() +
+					", which has " + types.length + " columns.");
+			}
+			if (this.fieldTypes != null && this.fieldTypes[i] != types[column].getTypeClass()) {
+				throw new IOException("Column " + column + " of file " + split.getPath() + " is of type " +
+					types[column].getTypeClass().getName() + ", but field " + i + " is of type " +
+					this.fieldTypes[i].getName() + ".");
+			}
+			this.columnsToRead[column] = true;
+		}
+		
+		this.typedPredicates = new ColumnarPredicate[this.predicates.size()];
+		for (int i = 0; i < this.typedPredicates.length; i++) {
+			final ColumnarPredicate predicate = this.predicates.get(i);
+			if (predicate.getColumn() >= types.length) {
+				throw new IOException("The predicate '" + predicate + "' refers to a column that is not contained in file " +
+					split.getPath() + ", which has " + types.length + " columns.");
+			}
+			try {
+				this.typedPredicates[i] = predicate.forType(types[predicate.getColumn()]);
+			} catch (IllegalArgumentException iaex) {
+				throw new IOException("The predicate '" + predicate + "' cannot be evaluated: " + iaex.getMessage());
+			}
+			this.columnsToRead[predicate.getColumn()] = true;
+		}
+		
+		// the split reads the row groups that start within its range
+		final long splitEnd = this.splitLength == READ_WHOLE_SPLIT_FLAG ? Long.MAX_VALUE : this.splitStart + this.splitLength;
+		this.rowGroups = new ArrayList<ColumnarFileMetadata.RowGroup>();
+		for (ColumnarFileMetadata.RowGroup group : this.metadata.getRowGroups()) {
+			if (group.offset >= this.splitStart && group.offset < splitEnd) {
+				this.rowGroups.add(group);
+			}
+		}
+		
+		this.values = new Object[types.length][];
+		this.nextRowGroup = 0;
+		this.numRows = 0;
+		this.nextRow = 0;
+		this.rowPending = false;
+		this.end = false;
+		this.numSkippedRowGroups = 0;
+	}
+	
+	@Override
+	public boolean reachedEnd() throws IOException {
+		if (!this.rowPending && !this.end) {
+			this.rowPending = findNextRow();
+			this.end = !this.rowPending;
+		}
+		return this.end;
+	}
+	
+	@Override
+	public T nextRecord(T reuse) throws IOException {
+		if (reachedEnd()) {
+			return null;
+		}
+		
+		final int row = this.currentRow;
+		final int[] columns = this.columns;
+		for (int i = 0; i < columns.length; i++) {
+			reuse.setField(this.values[columns[i]][row], i);
+		}
+		this.rowPending = false;
+		return reuse;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		if (this.numSkippedRowGroups > 0 && LOG.isDebugEnabled()) {
+			LOG.debug("Skipped " + this.numSkippedRowGroups + " of " + this.rowGroups.size() +
+				" row groups of file " + this.filePath + " due to the predicates.");
+		}
+		
+		this.metadata = null;
+		this.rowGroups = null;
+		this.values = null;
+		this.chunkBuffer = null;
+		super.close();
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private boolean findNextRow() throws IOException {
+		while (true) {
+			for (int row = this.nextRow; row < this.numRows; row++) {
+				if (matches(row)) {
+					this.currentRow = row;
+					this.nextRow = row + 1;
+					return true;
+				}
+			}
+			if (!readNextRowGroup()) {
+				return false;
+			}
+		}
+	}
+	
+	private boolean matches(int row) {
+		for (ColumnarPredicate predicate : this.typedPredicates) {
+			if (!predicate.accepts(this.values[predicate.getColumn()][row])) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private boolean readNextRowGroup() throws IOException {
+		final ColumnType[] types = this.metadata.getTypes();
+		
+		while (this.nextRowGroup < this.rowGroups.size()) {
+			final ColumnarFileMetadata.RowGroup group = this.rowGroups.get(this.nextRowGroup++);
+			if (group.numRows == 0 || !mayMatch(group)) {
+				this.numSkippedRowGroups++;
+				continue;
+			}
+			
+			long chunkOffset = group.offset;
+			for (int c = 0; c < types.length; c++) {
+				final ColumnarFileMetadata.ColumnChunk chunk = group.chunks[c];
+				if (this.columnsToRead[c]) {
+					readChunk(types[c], chunk, chunkOffset, group.numRows, c);
+				}
+				chunkOffset += chunk.length;
+			}
+			
+			this.numRows = group.numRows;
+			this.nextRow = 0;
+			return true;
+		}
+		return false;
+	}
+	
+	private boolean mayMatch(ColumnarFileMetadata.RowGroup group) {
+		for (ColumnarPredicate predicate : this.typedPredicates) {
+			final ColumnarFileMetadata.ColumnChunk chunk = group.chunks[predicate.getColumn()];
+			if (!predicate.mayMatch(chunk.min, chunk.max)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private void readChunk(ColumnType type, ColumnarFileMetadata.ColumnChunk chunk, long offset, int numValues, int column)
+			throws IOException
+	{
+		if (this.chunkBuffer == null || this.chunkBuffer.length < chunk.length) {
+			this.chunkBuffer = new byte[Math.max(chunk.length, 64 * 1024)];
+		}
+		
+		this.stream.seek(offset);
+		for (int read = 0; read < chunk.length;) {
+			final int num = this.stream.read(this.chunkBuffer, read, chunk.length - read);
+			if (num < 0) {
+				throw new IOException("Unexpected end of columnar file " + this.filePath + '.');
+			}
+			read += num;
+		}
+		
+		Object[] target = this.values[column];
+		if (target == null || target.length < numValues) {
+			target = new Object[numValues];
+			this.values[column] = target;
+		}
+		chunk.encoding.decode(type, new DataInputStream(new ByteArrayInputStream(this.chunkBuffer, 0, chunk.length)),
+			target, numValues);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	public String toString() {
+		return "ColumnarInputFormat (" + this.filePath + ") " + (this.projectedColumns == null ? "all columns" :
+			Arrays.toString(this.projectedColumns)) + (this.predicates.isEmpty() ? "" : " where " + this.predicates);
+	}
+}
@@ -0,0 +1,257 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.api.java.io.columnar;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import eu.stratosphere.api.common.InvalidProgramException;
+import eu.stratosphere.api.common.io.FileOutputFormat;
+import eu.stratosphere.api.java.tuple.Tuple;
+import eu.stratosphere.api.java.typeutils.InputTypeConfigurable;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.types.TypeInformation;
+
+/**
+ * An output format that writes {@link Tuple}s into columnar files. The rows are buffered into row groups, and
+ * each row group is stored column by column, such that readers can read the columns they need and skip the
+ * others. Each column chunk is compressed with a lightweight encoding that is picked by its values (see
+ * {@link ColumnEncoding}), and its minimum and maximum values are recorded, such that readers can skip row
+ * groups that do not contain values they filter for. The files are read with the {@link ColumnarInputFormat}.
+ * <p>
+ * The fields of the tuples must be of basic types (boxed primitives or strings), and must not be null.
+ *
+ * @see ColumnarFileMetadata
+ */
+public class ColumnarOutputFormat<T extends Tuple> extends FileOutputFormat<T> implements InputTypeConfigurable {
+	
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * The default number of rows per row group.
+	 */
+	public static final int DEFAULT_ROW_GROUP_SIZE = 64 * 1024;
+	
+	private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private ColumnType[] types;
+	
+	private int rowGroupSize = DEFAULT_ROW_GROUP_SIZE;
+	
+	private transient DataOutputStream out;
+	
+	private transient long position;
+	
+	private transient Object[][] columns;
+	
+	private transient int numBufferedRows;
+	
+	private transient ByteArrayOutputStream chunkBuffer;
+	
+	private transient DataOutputStream chunkOut;
+	
+	private transient ColumnarFileMetadata metadata;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	public ColumnarOutputFormat(Path outputPath) {
+		super(outputPath);
+	}
+	
+	/**
+	 * Sets the number of rows that are stored in one row group. Larger row groups compress better, smaller row
+	 * groups allow to skip data at a finer granularity. All rows of a row group are buffered while writing.
+	 * 
+	 * @param rowGroupSize The number of rows per row group.
+	 */
+	public void setRowGroupSize(int rowGroupSize) {
+		if (rowGroupSize < 1) {
+			throw new IllegalArgumentException("The row group size must be positive.");
+		}
+		this.rowGroupSize = rowGroupSize;
+	}
+	
+	public int getRowGroupSize() {
+		return this.rowGroupSize;
+	}
+	
+	@Override
+	public void setInputType(TypeInformation<?> type) {
+		if (!type.isTupleType()) {
+			throw new InvalidProgramException("The " + ColumnarOutputFormat.class.getSimpleName() +
+				" can only be used to write tuple data sets.");
+		}
+		
+		final ColumnType[] types = new ColumnType[type.getArity()];
+		for (int i = 0; i < types.length; i++) {
+			final Class<?> fieldClass = ((TupleTypeInfo<?>) type).getTypeAt(i).getTypeClass();
+			types[i] = ColumnType.forClass(fieldClass);
+			if (types[i] == null) {
+				throw new InvalidProgramException("Field " + i + " of type " + fieldClass.getName() +
+					" cannot be written by the " + ColumnarOutputFormat.class.getSimpleName() + ".");
+			}
+		}
+		this.types = types;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	public void open(int taskNumber, int numTasks) throws IOException {
+		super.open(taskNumber, numTasks);
+		
+		this.out = new DataOutputStream(new BufferedOutputStream(this.stream, WRITE_BUFFER_SIZE));
+		this.out.writeInt(ColumnarFileMetadata.MAGIC);
+		this.position = 4;
+		
+		this.chunkBuffer = new ByteArrayOutputStream(WRITE_BUFFER_SIZE);
+		this.chunkOut = new DataOutputStream(this.chunkBuffer);
+		this.numBufferedRows = 0;
+		
+		if (this.types != null) {
+			initColumns();
+		}
+	}
+	
+	@Override
+	public void writeRecord(T record) throws IOException {
+		if (this.columns == null) {
+			// the type was not configured, so we derive it from the first record
+			this.types = new ColumnType[record.getArity()];
+			for (int i = 0; i < this.types.length; i++) {
+				final Object field = record.getField(i);
+				this.types[i] = field == null ? null : ColumnType.forClass(field.getClass());
+				if (this.types[i] == null) {
+					throw new IOException("Field " + i + " of the tuple cannot be written by the " +
+						ColumnarOutputFormat.class.getSimpleName() + ".");
+				}
+			}
+			initColumns();
+		}
+		
+		final Object[][] columns = this.columns;
+		if (record.getArity() != columns.length) {
+			throw new IOException("The tuple has " + record.getArity() + " fields, but the file has " +
+				columns.length + " columns.");
+		}
+		
+		final int row = this.numBufferedRows;
+		for (int i = 0; i < columns.length; i++) {
+			final Object value = record.getField(i);
+			if (value == null) {
+				throw new IOException("Cannot write tuple with <null> value at position: " + i);
+			}
+			columns[i][row] = value;
+		}
+		
+		if (++this.numBufferedRows == this.rowGroupSize) {
+			writeRowGroup();
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		try {
+			final DataOutputStream out = this.out;
+			if (out != null) {
+				this.out = null;
+				
+				if (this.numBufferedRows > 0) {
+					writeRowGroup();
+				}
+				if (this.metadata == null) {
+					// no records and no type, the file has no columns
+					this.metadata = new ColumnarFileMetadata(new ColumnType[0]);
+				}
+				
+				final long footerPosition = this.position;
+				this.metadata.write(out);
+				out.writeLong(footerPosition);
+				out.writeInt(ColumnarFileMetadata.MAGIC);
+				out.flush();
+			}
+		}
+		finally {
+			this.columns = null;
+			this.metadata = null;
+			this.chunkBuffer = null;
+			this.chunkOut = null;
+			super.close();
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private void initColumns() {
+		this.columns = new Object[this.types.length][this.rowGroupSize];
+		this.metadata = new ColumnarFileMetadata(this.types);
+	}
+	
+	private void writeRowGroup() throws IOException {
+		final ColumnType[] types = this.types;
+		final int numRows = this.numBufferedRows;
+		final ColumnarFileMetadata.ColumnChunk[] chunks = new ColumnarFileMetadata.ColumnChunk[types.length];
+		final long offset = this.position;
+		
+		for (int i = 0; i < types.length; i++) {
+			final Object[] values = this.columns[i];
+			
+			final ColumnEncoding encoding = ColumnEncoding.choose(types[i], values, numRows);
+			this.chunkBuffer.reset();
+			encoding.encode(types[i], values, numRows, this.chunkOut);
+			this.chunkOut.flush();
+			
+			// the statistics that allow readers to skip the row group
+			Object min = values[0];
+			Object max = values[0];
+			for (int r = 1; r < numRows; r++) {
+				final Object value = values[r];
+				if (compare(value, min) < 0) {
+					min = value;
+				}
+				else if (compare(value, max) > 0) {
+					max = value;
+				}
+			}
+			
+			final int length = this.chunkBuffer.size();
+			this.chunkBuffer.writeTo(this.out);
+			this.position += length;
+			chunks[i] = new ColumnarFileMetadata.ColumnChunk(length, encoding, min, max);
+			
+			// release the references to the values
+			Arrays.fill(values, 0, numRows, null);
+		}
+		
+		this.metadata.addRowGroup(new ColumnarFileMetadata.RowGroup(offset, numRows, chunks));
+		this.numBufferedRows = 0;
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static int compare(Object value1, Object value2) {
+		return ((Comparable<Object>) value1).compareTo(value2);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	public String toString() {
+		return "ColumnarOutputFormat (path: " + this.getOutputFilePath() + ")";
+	}
+}
@@ -0,0 +1,93 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.api.java.io.columnar;
+
+import eu.stratosphere.api.common.io.FieldPredicate;
+
+/**
+ * A simple comparison of a column with a constant, such as {@code column 3 >= 100}, which is evaluated by the
+ * {@link ColumnarInputFormat} while reading. Besides filtering the rows, the input format uses the predicates
+ * to skip all row groups whose minimum and maximum values show that none of their rows can match.
+ * <p>
+ * Values are compared by their natural order. The constant must be of the type of the column, or a number that
+ * the column's type can represent exactly.
+ */
+public class ColumnarPredicate extends FieldPredicate {
+	
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Creates a new predicate that compares the given column with the given value.
+	 * 
+	 * @param column The position of the column in the file.
+	 * @param comparison The comparison.
+	 * @param value The value to compare the column's values with.
+	 */
+	public ColumnarPredicate(int column, Comparison comparison, Object value) {
+		super(column, comparison, value);
+	}
+	
+	public int getColumn() {
+		return getField();
+	}
+	
+	@Override
+	public ColumnarPredicate forField(int column) {
+		return column == getField() ? this : new ColumnarPredicate(column, getComparison(), getValue());
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Creates a predicate whose value is converted to the given column type.
+	 * 
+	 * @param type The type of the column.
+	 * @return The predicate for the column type.
+	 * @throws IllegalArgumentException Thrown, if the value cannot be compared to values of the type.
+	 */
+	ColumnarPredicate forType(ColumnType type) {
+		final Object converted = type.convert(getValue());
+		return converted == getValue() ? this : new ColumnarPredicate(getField(), getComparison(), converted);
+	}
+	
+	/**
+	 * Checks whether any value in the given range may satisfy this predicate.
+	 * 
+	 * @param min The smallest value of the column in the range.
+	 * @param max The largest value of the column in the range.
+	 * @return False, if no value in the range satisfies this predicate, true otherwise.
+	 */
+	public boolean mayMatch(Object min, Object max) {
+		switch (getComparison()) {
+		case EQUAL:
+			return compare(min) <= 0 && compare(max) >= 0;
+		case NOT_EQUAL:
+			return compare(min) != 0 || compare(max) != 0;
+		case LESS:
+			return compare(min) < 0;
+		case LESS_OR_EQUAL:
+			return compare(min) <= 0;
+		case GREATER:
+			return compare(max) > 0;
+		case GREATER_OR_EQUAL:
+			return compare(max) >= 0;
+		default:
+			throw new IllegalStateException();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "column " + getField() + ' ' + getComparison() + ' ' + getValue();
+	}
+}
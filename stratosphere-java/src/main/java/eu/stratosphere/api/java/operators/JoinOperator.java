@@ -57,7 +57,10 @@ public abstract class JoinOperator<I1, I2, OUT> extends TwoInputUdfOperator<I1,
 	public static enum JoinHint {
 		/**
 		 * leave the choice how to do the join to the optimizer. If in doubt, the
-		 * optimizer will choose a repartitioning join.
+		 * optimizer will choose a repartitioning join. The optimizer never chooses the
+		 * adaptive hash join, which picks its build side at runtime; that strategy is only
+		 * available to Record API joins through the <code>LOCAL_STRATEGY_HASH_ADAPTIVE</code>
+		 * compiler hint.
 		 */
 		OPTIMIZER_CHOOSES,
 		
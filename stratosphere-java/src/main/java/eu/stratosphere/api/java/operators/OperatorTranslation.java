@@ -181,6 +181,10 @@ public class OperatorTranslation {
 		Operator<T> translatedBody = translate(iterationEnd.getNextPartialSolution());
 		iterationOperator.setNextPartialSolution(translatedBody);
 		iterationOperator.setMaximumNumberOfIterations(iterationHead.getMaxIterations());
+		if (iterationHead.getCheckpointInterval() > 0) {
+			iterationOperator.setCheckpointing(iterationHead.getCheckpointPath(), iterationHead.getCheckpointInterval());
+			iterationOperator.setResumeFromCheckpoint(iterationHead.isResumingFromCheckpoint());
+		}
 		iterationOperator.setInput(translate(iterationHead.getInput()));
 		
 		iterationOperator.getAggregators().addAll(iterationHead.getAggregators());
@@ -203,6 +207,15 @@ public class OperatorTranslation {
 				iterationEnd.getKeyPositions(), name);
 		
 		iterationOperator.setMaximumNumberOfIterations(iterationEnd.getMaxIterations());
+		if (iterationHead.getCheckpointInterval() > 0) {
+			iterationOperator.setCheckpointing(iterationHead.getCheckpointPath(), iterationHead.getCheckpointInterval());
+			iterationOperator.setResumeFromCheckpoint(iterationHead.isResumingFromCheckpoint());
+		}
+		iterationOperator.setAsynchronous(iterationHead.isAsynchronous());
+		if (iterationHead.getWorksetDeduplicationKeys() != null) {
+			iterationOperator.setWorksetDeduplication(iterationHead.getWorksetDeduplicationKeys(),
+					iterationHead.getWorksetMinimumField());
+		}
 		
 		if (iterationHead.getParallelism() > 0) {
 			iterationOperator.setDegreeOfParallelism(iterationHead.getParallelism());
@@ -40,6 +40,10 @@ public class PlanProjectOperator<T, R extends Tuple> extends MapOperatorBase<T,
 			this.fields = fields;
 			this.outTuple = outTupleInstance;
 		}
+		
+		public int[] getFields() {
+			return this.fields;
+		}
 
 		// TODO We should use code generation for this.
 		@Override
@@ -42,6 +42,10 @@ public abstract class WrappingFunction<T extends AbstractFunction> extends Abstr
 	protected WrappingFunction(T wrappedFunction) {
 		this.wrappedFunction = wrappedFunction;
 	}
+	
+	public T getWrappedFunction() {
+		return this.wrappedFunction;
+	}
 
 	
 	@Override
@@ -0,0 +1,121 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.java.record.functions;
+
+import eu.stratosphere.api.common.io.FieldPredicate;
+import eu.stratosphere.api.common.io.FieldPredicate.Comparison;
+import eu.stratosphere.api.common.io.PushDownInputFormat;
+import eu.stratosphere.types.BooleanValue;
+import eu.stratosphere.types.ByteValue;
+import eu.stratosphere.types.CharValue;
+import eu.stratosphere.types.DoubleValue;
+import eu.stratosphere.types.FloatValue;
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.LongValue;
+import eu.stratosphere.types.Record;
+import eu.stratosphere.types.ShortValue;
+import eu.stratosphere.types.StringValue;
+import eu.stratosphere.types.Value;
+import eu.stratosphere.util.Collector;
+
+/**
+ * A map function that forwards only the records whose field compares in the given way with a constant, such as
+ * {@code field 2 >= 100}. In contrast to a regular {@link MapFunction}, the condition of this filter is declarative.
+ * If the filter directly follows a data source whose input format implements {@link PushDownInputFormat}, the
+ * optimizer pushes the condition into the input format and removes the filter from the program.
+ * <p>
+ * The values of the field are converted to Java objects by {@link #toComparable(Value)} before they are compared.
+ * Records whose field is null are dropped.
+ * <p>
+ * The basic syntax for using a FieldComparisonFilter is as follows:
+ * <pre><blockquote>
+ * MapOperator filter = MapOperator.builder(new FieldComparisonFilter(2, DoubleValue.class, Comparison.GREATER, 0.5))
+ *     .input(source)
+ *     .build();
+ * </blockquote></pre>
+ */
+public class FieldComparisonFilter extends MapFunction {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final FieldPredicate predicate;
+	
+	private final Class<? extends Value> type;
+	
+	/**
+	 * Creates a new filter that compares the given field of the records with the given value.
+	 * 
+	 * @param field The position of the field in the records.
+	 * @param type The type of the field.
+	 * @param comparison The comparison.
+	 * @param value The value to compare the field's values with.
+	 */
+	public FieldComparisonFilter(int field, Class<? extends Value> type, Comparison comparison, Object value) {
+		if (type == null) {
+			throw new NullPointerException();
+		}
+		this.predicate = new FieldPredicate(field, comparison, value);
+		this.type = type;
+	}
+	
+	public FieldPredicate getPredicate() {
+		return this.predicate;
+	}
+	
+	public Class<? extends Value> getType() {
+		return this.type;
+	}
+	
+	@Override
+	public void map(Record record, Collector<Record> out) {
+		final Value value = record.getField(this.predicate.getField(), this.type);
+		if (value != null && this.predicate.accepts(toComparable(value))) {
+			out.collect(record);
+		}
+	}
+	
+	/**
+	 * Converts a value of the field to the Java object that is compared with the predicate's value. The values of
+	 * the basic types are converted to the corresponding Java types, for example {@link StringValue} to
+	 * {@link String} and {@link IntValue} to {@link Integer}. Subclasses override this method for other types.
+	 * 
+	 * @param value The value of the field.
+	 * @return The Java object to compare.
+	 * @throws IllegalArgumentException Thrown, if the value cannot be converted.
+	 */
+	protected Object toComparable(Value value) {
+		if (value instanceof StringValue) {
+			return ((StringValue) value).getValue();
+		} else if (value instanceof IntValue) {
+			return ((IntValue) value).getValue();
+		} else if (value instanceof LongValue) {
+			return ((LongValue) value).getValue();
+		} else if (value instanceof DoubleValue) {
+			return ((DoubleValue) value).getValue();
+		} else if (value instanceof FloatValue) {
+			return ((FloatValue) value).getValue();
+		} else if (value instanceof ShortValue) {
+			return ((ShortValue) value).getValue();
+		} else if (value instanceof ByteValue) {
+			return ((ByteValue) value).getValue();
+		} else if (value instanceof CharValue) {
+			return ((CharValue) value).getValue();
+		} else if (value instanceof BooleanValue) {
+			return ((BooleanValue) value).getValue();
+		} else {
+			throw new IllegalArgumentException("Values of type " + value.getClass().getName() +
+				" cannot be compared. Override toComparable() to convert them.");
+		}
+	}
+}
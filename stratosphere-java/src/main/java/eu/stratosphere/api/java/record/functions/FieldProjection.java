@@ -0,0 +1,79 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.java.record.functions;
+
+import java.util.Arrays;
+
+import eu.stratosphere.api.common.io.PushDownInputFormat;
+import eu.stratosphere.types.Record;
+import eu.stratosphere.util.Collector;
+
+/**
+ * A map function that keeps only the given fields of the records, in the given order. In contrast to a regular
+ * {@link MapFunction}, the projection is declarative. If the projection directly follows a data source whose input
+ * format implements {@link PushDownInputFormat}, the optimizer pushes it into the input format and removes the
+ * map from the program.
+ * <p>
+ * The basic syntax for using a FieldProjection is as follows:
+ * <pre><blockquote>
+ * MapOperator projection = MapOperator.builder(new FieldProjection(2, 0))
+ *     .input(source)
+ *     .build();
+ * </blockquote></pre>
+ */
+public class FieldProjection extends MapFunction {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final int[] fields;
+	
+	private final int[] targetPositions;
+	
+	private transient Record result;
+	
+	/**
+	 * Creates a new projection to the given fields.
+	 * 
+	 * @param fields The positions of the fields to keep, in the order in which they appear in the result.
+	 */
+	public FieldProjection(int... fields) {
+		if (fields == null || fields.length == 0) {
+			throw new IllegalArgumentException("At least one field must be kept.");
+		}
+		for (int field : fields) {
+			if (field < 0) {
+				throw new IllegalArgumentException("The field positions must not be negative.");
+			}
+		}
+		this.fields = Arrays.copyOf(fields, fields.length);
+		this.targetPositions = new int[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			this.targetPositions[i] = i;
+		}
+	}
+	
+	public int[] getFields() {
+		return Arrays.copyOf(this.fields, this.fields.length);
+	}
+	
+	@Override
+	public void map(Record record, Collector<Record> out) {
+		if (this.result == null) {
+			this.result = new Record(this.fields.length);
+		}
+		this.result.setNumFields(this.fields.length);
+		this.result.copyFrom(record, this.fields, this.targetPositions);
+		out.collect(this.result);
+	}
+}
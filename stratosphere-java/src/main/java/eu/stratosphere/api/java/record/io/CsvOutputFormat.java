@@ -13,14 +13,13 @@
 
 package eu.stratosphere.api.java.record.io;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.nio.charset.Charset;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import eu.stratosphere.api.common.io.TextOutputBuffer;
 import eu.stratosphere.api.java.record.operators.FileDataSink;
 import eu.stratosphere.configuration.Configuration;
 import eu.stratosphere.types.Record;
@@ -75,7 +74,11 @@ public class CsvOutputFormat extends FileOutputFormat {
 
 	private int[] recordPositions;
 
-	private Writer wrt;
+	private TextOutputBuffer buffer;
+
+	private byte[] fieldDelimiterBytes;
+
+	private byte[] recordDelimiterBytes;
 
 	private String fieldDelimiter;
 
@@ -248,14 +251,25 @@ public class CsvOutputFormat extends FileOutputFormat {
 	public void open(int taskNumber, int numTasks) throws IOException
 	{
 		super.open(taskNumber, numTasks);
-		this.wrt = this.charsetName == null ? new OutputStreamWriter(new BufferedOutputStream(this.stream, 4096)) :
-				new OutputStreamWriter(new BufferedOutputStream(this.stream, 4096), this.charsetName);
+
+		final Charset charset;
+		try {
+			charset = this.charsetName == null ? Charset.defaultCharset() : Charset.forName(this.charsetName);
+		}
+		catch (IllegalArgumentException e) {
+			throw new IOException("The charset " + this.charsetName + " is not supported.", e);
+		}
+
+		this.buffer = new TextOutputBuffer(this.stream, charset);
+		this.fieldDelimiterBytes = this.fieldDelimiter.getBytes(charset);
+		this.recordDelimiterBytes = this.recordDelimiter.getBytes(charset);
 	}
 
 	@Override
 	public void close() throws IOException {
-		if (wrt != null) {
-			this.wrt.close();
+		if (this.buffer != null) {
+			this.buffer.flush();
+			this.buffer = null;
 		}
 		super.close();
 	}
@@ -273,13 +287,13 @@ public class CsvOutputFormat extends FileOutputFormat {
 				Value v = record.getField(this.recordPositions[i], this.classes[i]);
 				if (v != null) {
 					if (i != 0) {
-						this.wrt.write(this.fieldDelimiter);
+						this.buffer.write(this.fieldDelimiterBytes);
 					}
-					this.wrt.write(v.toString());
+					this.buffer.writeObject(v);
 				} else {
 					if (this.lenient) {
 						if (i != 0) {
-							this.wrt.write(this.fieldDelimiter);
+							this.buffer.write(this.fieldDelimiterBytes);
 						}
 					} else {
 						throw new RuntimeException("Cannot serialize record with <null> value at position: " + readPos);
@@ -289,7 +303,7 @@ public class CsvOutputFormat extends FileOutputFormat {
 			} else {
 				if (this.lenient) {
 					if (i != 0) {
-						this.wrt.write(this.fieldDelimiter);
+						this.buffer.write(this.fieldDelimiterBytes);
 					}
 				} else {
 					throw new RuntimeException("Cannot serialize record with out field at position: " + readPos);
@@ -299,7 +313,7 @@ public class CsvOutputFormat extends FileOutputFormat {
 		}
 
 		// add the record delimiter
-		this.wrt.write(this.recordDelimiter);
+		this.buffer.write(this.recordDelimiterBytes);
 	}
 
 	// ============================================================================================
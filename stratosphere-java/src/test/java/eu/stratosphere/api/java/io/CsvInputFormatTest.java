@@ -13,9 +13,11 @@
 
 package eu.stratosphere.api.java.io;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -24,11 +26,16 @@ import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.log4j.Level;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import eu.stratosphere.api.common.io.FieldPredicate;
+import eu.stratosphere.api.common.io.FieldPredicate.Comparison;
 import eu.stratosphere.api.java.tuple.Tuple1;
 import eu.stratosphere.api.java.tuple.Tuple2;
 import eu.stratosphere.api.java.tuple.Tuple3;
@@ -350,6 +357,73 @@ public class CsvInputFormatTest {
 		}
 	}
 	
+	@Test
+	public void testPushDownProjectionAndFilter() {
+		try {
+			final String fileContent = "1|a|0.5\n2|b|1.5\n3|c|2.5\n";
+			final FileInputSplit split = createTempFile(fileContent);
+			
+			final CsvInputFormat<Tuple2<Double, Integer>> format = new CsvInputFormat<Tuple2<Double, Integer>>(PATH, "\n", '|', Integer.class, String.class, Double.class);
+			
+			assertTrue(format.pushDownFilter(new FieldPredicate(2, Comparison.GREATER, 1.0)));
+			assertTrue(format.pushDownProjection(new int[] { 2, 0 }));
+			assertTrue(format.pushDownFilter(new FieldPredicate(1, Comparison.LESS, 3)));
+			
+			// the string field is skipped, and strings cannot be compared to numbers
+			assertArrayEquals(new Class<?>[] { Integer.class, null, Double.class }, format.getFieldTypes());
+			assertFalse(format.pushDownFilter(new FieldPredicate(0, Comparison.EQUAL, "x")));
+			assertFalse(format.pushDownProjection(new int[] { 2 }));
+			
+			format.configure(new Configuration());
+			format.open(split);
+			
+			int numRecords = 0;
+			// lines that do not satisfy the predicates are skipped
+			final Tuple2<Double, Integer> reuse = new Tuple2<Double, Integer>();
+			while (!format.reachedEnd()) {
+				final Tuple2<Double, Integer> result = format.nextRecord(reuse);
+				if (result != null) {
+					assertEquals(Double.valueOf(1.5), result.f0);
+					assertEquals(Integer.valueOf(2), result.f1);
+					numRecords++;
+				}
+			}
+			assertEquals(1, numRecords);
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Test failed due to a " + ex.getClass().getName() + ": " + ex.getMessage());
+		}
+	}
+	
+	@Test
+	public void testPushDownFilterWithReusedRecord() {
+		try {
+			final String fileContent = "1|0.5\n2|1.5\n3|0.1\n4|0.2\n5|2.5\n6|0.3\n";
+			final FileInputSplit split = createTempFile(fileContent);
+			
+			final CsvInputFormat<Tuple2<Integer, Double>> format = new CsvInputFormat<Tuple2<Integer, Double>>(PATH, "\n", '|', Integer.class, Double.class);
+			assertTrue(format.pushDownFilter(new FieldPredicate(1, Comparison.GREATER, 1.0)));
+			
+			format.configure(new Configuration());
+			format.open(split);
+			
+			// read the way the data source task does, assigning the result to the reuse object
+			final List<Integer> keys = new ArrayList<Integer>();
+			Tuple2<Integer, Double> record = new Tuple2<Integer, Double>();
+			while (!format.reachedEnd()) {
+				if ((record = format.nextRecord(record)) != null) {
+					keys.add(record.f0);
+				}
+			}
+			assertEquals(Arrays.asList(2, 5), keys);
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Test failed due to a " + ex.getClass().getName() + ": " + ex.getMessage());
+		}
+	}
+	
 	private FileInputSplit createTempFile(String content) throws IOException {
 		File tempFile = File.createTempFile("test_contents", "tmp");
 		tempFile.deleteOnExit();
@@ -0,0 +1,264 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.api.java.io.columnar;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.io.FieldPredicate;
+import eu.stratosphere.api.common.io.FieldPredicate.Comparison;
+import eu.stratosphere.api.common.io.FileOutputFormat.OutputDirectoryMode;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.api.java.tuple.Tuple4;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.core.fs.FileInputSplit;
+import eu.stratosphere.core.fs.FileSystem.WriteMode;
+import eu.stratosphere.core.fs.Path;
+
+public class ColumnarFormatTest {
+	
+	private static final int NUM_ROWS = 10000;
+	
+	private static final int ROW_GROUP_SIZE = 1000;
+	
+	private File tempFile;
+	
+	@Before
+	public void writeFile() throws IOException {
+		this.tempFile = File.createTempFile("columnar_format_test", "tmp");
+		this.tempFile.deleteOnExit();
+		
+		final ColumnarOutputFormat<Tuple4<Long, String, Double, Integer>> format =
+				new ColumnarOutputFormat<Tuple4<Long, String, Double, Integer>>(new Path(this.tempFile.toURI().toString()));
+		format.setWriteMode(WriteMode.OVERWRITE);
+		format.setOutputDirectoryMode(OutputDirectoryMode.PARONLY);
+		format.setRowGroupSize(ROW_GROUP_SIZE);
+		format.setInputType(TupleTypeInfo.getBasicTupleTypeInfo(Long.class, String.class, Double.class, Integer.class));
+		format.configure(new Configuration());
+		
+		format.open(0, 1);
+		final Tuple4<Long, String, Double, Integer> row = new Tuple4<Long, String, Double, Integer>();
+		for (int i = 0; i < NUM_ROWS; i++) {
+			setRow(row, i);
+			format.writeRecord(row);
+		}
+		format.close();
+	}
+	
+	@After
+	public void deleteFile() {
+		this.tempFile.delete();
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Test
+	public void testReadAllColumns() {
+		try {
+			final ColumnarInputFormat<Tuple4<Long, String, Double, Integer>> format =
+					new ColumnarInputFormat<Tuple4<Long, String, Double, Integer>>(new Path(this.tempFile.toURI().toString()));
+			format.configure(new Configuration());
+			format.open(createSplit());
+			
+			final Tuple4<Long, String, Double, Integer> expected = new Tuple4<Long, String, Double, Integer>();
+			Tuple4<Long, String, Double, Integer> record = new Tuple4<Long, String, Double, Integer>();
+			for (int i = 0; i < NUM_ROWS; i++) {
+				record = format.nextRecord(record);
+				setRow(expected, i);
+				for (int f = 0; f < expected.getArity(); f++) {
+					assertEquals(expected.getField(f), record.getField(f));
+				}
+			}
+			assertTrue(format.reachedEnd());
+			assertNull(format.nextRecord(record));
+			format.close();
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testProjectionAndPredicates() {
+		try {
+			final ColumnarInputFormat<Tuple2<Double, Long>> format =
+					new ColumnarInputFormat<Tuple2<Double, Long>>(new Path(this.tempFile.toURI().toString()));
+			format.setFields(new int[] {2, 0}, new Class<?>[] {Double.class, Long.class});
+			// an integer constant for a long column, and a predicate on a column that is not projected
+			format.addPredicate(new ColumnarPredicate(0, Comparison.GREATER_OR_EQUAL, 9500));
+			format.addPredicate(new ColumnarPredicate(1, Comparison.EQUAL, "name3"));
+			format.configure(new Configuration());
+			format.open(createSplit());
+			
+			int count = 0;
+			Tuple2<Double, Long> record = new Tuple2<Double, Long>();
+			while ((record = format.nextRecord(record)) != null) {
+				final long i = record.f1;
+				assertTrue(i >= 9500 && i % 10 == 3);
+				assertEquals(i * 0.5, record.f0, 0.0);
+				count++;
+			}
+			assertEquals(50, count);
+			
+			// all but the last row group are skipped by their statistics
+			assertEquals(NUM_ROWS / ROW_GROUP_SIZE - 1, format.getNumSkippedRowGroups());
+			format.close();
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testPushDown() {
+		try {
+			final ColumnarInputFormat<Tuple2<Double, Long>> format =
+					new ColumnarInputFormat<Tuple2<Double, Long>>(new Path(this.tempFile.toURI().toString()));
+			
+			// the positions refer to the fields that the format produces at the time of the push-down
+			assertTrue(format.pushDownFilter(new FieldPredicate(1, Comparison.EQUAL, "name3")));
+			assertTrue(format.pushDownProjection(new int[] {2, 0}));
+			assertTrue(format.pushDownFilter(new FieldPredicate(1, Comparison.GREATER_OR_EQUAL, 9500)));
+			assertFalse(format.pushDownFilter(new FieldPredicate(2, Comparison.EQUAL, 0)));
+			assertArrayEquals(new int[] {2, 0}, format.getProjectedColumns());
+			
+			format.configure(new Configuration());
+			format.open(createSplit());
+			
+			int count = 0;
+			Tuple2<Double, Long> record = new Tuple2<Double, Long>();
+			while ((record = format.nextRecord(record)) != null) {
+				final long i = record.f1;
+				assertTrue(i >= 9500 && i % 10 == 3);
+				assertEquals(i * 0.5, record.f0, 0.0);
+				count++;
+			}
+			assertEquals(50, count);
+			assertEquals(NUM_ROWS / ROW_GROUP_SIZE - 1, format.getNumSkippedRowGroups());
+			format.close();
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testSplits() {
+		try {
+			final ColumnarInputFormat<Tuple2<Long, Integer>> format =
+					new ColumnarInputFormat<Tuple2<Long, Integer>>(new Path(this.tempFile.toURI().toString()));
+			format.setFields(new int[] {0, 3}, new Class<?>[] {Long.class, Integer.class});
+			format.configure(new Configuration());
+			
+			final FileInputSplit[] splits = format.createInputSplits(4);
+			assertTrue(splits.length > 1);
+			
+			final BitSet seen = new BitSet(NUM_ROWS);
+			final Tuple2<Long, Integer> reuse = new Tuple2<Long, Integer>();
+			for (FileInputSplit split : splits) {
+				format.open(split);
+				Tuple2<Long, Integer> record;
+				while ((record = format.nextRecord(reuse)) != null) {
+					final int i = record.f0.intValue();
+					assertEquals(i / 100, record.f1.intValue());
+					assertTrue("Row " + i + " was read twice.", !seen.get(i));
+					seen.set(i);
+				}
+				format.close();
+			}
+			assertEquals(NUM_ROWS, seen.cardinality());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testTypeMismatch() {
+		final ColumnarInputFormat<Tuple2<Long, Integer>> format =
+				new ColumnarInputFormat<Tuple2<Long, Integer>>(new Path(this.tempFile.toURI().toString()));
+		format.setFields(new int[] {0, 1}, new Class<?>[] {Long.class, Integer.class});
+		format.configure(new Configuration());
+		try {
+			format.open(createSplit());
+			fail("The type mismatch of column 1 was not detected.");
+		}
+		catch (IOException ioex) {
+			// expected
+		}
+	}
+	
+	@Test
+	public void testEncodings() {
+		try {
+			final Object[] longs = {Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L, Long.MAX_VALUE, Long.MAX_VALUE, 17L};
+			final Object[] strings = {"a", "", "a", "äöü", "", "a", "b"};
+			
+			for (ColumnEncoding encoding : ColumnEncoding.values()) {
+				assertRoundTrip(ColumnType.LONG, encoding, longs);
+				if (encoding != ColumnEncoding.DELTA) {
+					assertRoundTrip(ColumnType.STRING, encoding, strings);
+				}
+			}
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static void setRow(Tuple4<Long, String, Double, Integer> row, int i) {
+		row.f0 = (long) i;
+		row.f1 = "name" + (i % 10);
+		row.f2 = i * 0.5;
+		row.f3 = i / 100;
+	}
+	
+	private FileInputSplit createSplit() {
+		return new FileInputSplit(0, new Path(this.tempFile.toURI().toString()), 0, this.tempFile.length(), new String[] {"localhost"});
+	}
+	
+	private static void assertRoundTrip(ColumnType type, ColumnEncoding encoding, Object[] values) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		encoding.encode(type, values, values.length, new DataOutputStream(bytes));
+		
+		final Object[] read = new Object[values.length];
+		encoding.decode(type, new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), read, values.length);
+		for (int i = 0; i < values.length; i++) {
+			assertEquals(encoding + " at position " + i, values[i], read[i]);
+		}
+	}
+}
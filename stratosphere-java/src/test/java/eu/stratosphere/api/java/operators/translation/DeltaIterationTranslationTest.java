@@ -164,6 +164,44 @@ public class DeltaIterationTranslationTest implements java.io.Serializable {
 		}
 	}
 	
+	@Test
+	public void testRejectAsynchronousIterationWithCheckpoints() {
+		try {
+			ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+			
+			@SuppressWarnings("unchecked")
+			DataSet<Tuple3<Double, Long, String>> initialSolutionSet = env.fromElements(new Tuple3<Double, Long, String>(3.44, 5L, "abc"));
+
+			@SuppressWarnings("unchecked")
+			DataSet<Tuple2<Double, String>> initialWorkSet = env.fromElements(new Tuple2<Double, String>(1.23, "abc"));
+			
+			DeltaIteration<Tuple3<Double, Long, String>, Tuple2<Double, String>> iteration = initialSolutionSet.iterateDelta(initialWorkSet, 10, 1);
+			iteration.asynchronous(true);
+			try {
+				iteration.checkpoint("file:///tmp/snapshots", 2);
+				fail("Accepted invalid program.");
+			}
+			catch (InvalidProgramException e) {
+				// all good!
+			}
+			
+			iteration = initialSolutionSet.iterateDelta(initialWorkSet, 10, 1);
+			iteration.checkpoint("file:///tmp/snapshots", 2);
+			try {
+				iteration.asynchronous(true);
+				fail("Accepted invalid program.");
+			}
+			catch (InvalidProgramException e) {
+				// all good!
+			}
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	
 	public static class SolutionWorksetJoin extends JoinFunction<Tuple2<Double, String>, Tuple3<Double, Long, String>, Tuple3<Double, Long, String>> {
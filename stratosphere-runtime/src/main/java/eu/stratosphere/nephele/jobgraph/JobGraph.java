@@ -46,6 +46,11 @@ import eu.stratosphere.util.ClassUtils;
  */
 public class JobGraph implements IOReadableWritable {
 
+	/**
+	 * The key of the job configuration entry holding the managed memory used by all tasks of the job in bytes.
+	 */
+	public static final String MANAGED_MEMORY_KEY = "job.managed-memory";
+
 	/**
 	 * List of input vertices included in this job graph.
 	 */
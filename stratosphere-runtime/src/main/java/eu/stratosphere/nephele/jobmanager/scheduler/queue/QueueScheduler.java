@@ -14,10 +14,18 @@
 package eu.stratosphere.nephele.jobmanager.scheduler.queue;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.nephele.execution.ExecutionState;
 import eu.stratosphere.nephele.executiongraph.ExecutionGraph;
 import eu.stratosphere.nephele.executiongraph.ExecutionGraphIterator;
@@ -26,11 +34,15 @@ import eu.stratosphere.nephele.executiongraph.ExecutionStageListener;
 import eu.stratosphere.nephele.executiongraph.ExecutionVertex;
 import eu.stratosphere.nephele.executiongraph.InternalJobStatus;
 import eu.stratosphere.nephele.executiongraph.JobStatusListener;
+import eu.stratosphere.nephele.instance.AbstractInstance;
+import eu.stratosphere.nephele.instance.AllocatedResource;
+import eu.stratosphere.nephele.instance.DummyInstance;
 import eu.stratosphere.nephele.instance.InstanceException;
 import eu.stratosphere.nephele.instance.InstanceManager;
 import eu.stratosphere.nephele.instance.InstanceRequestMap;
 import eu.stratosphere.nephele.instance.InstanceType;
 import eu.stratosphere.nephele.instance.InstanceTypeDescription;
+import eu.stratosphere.nephele.jobgraph.JobGraph;
 import eu.stratosphere.nephele.jobgraph.JobID;
 import eu.stratosphere.nephele.jobmanager.DeploymentManager;
 import eu.stratosphere.nephele.jobmanager.scheduler.AbstractScheduler;
@@ -38,16 +50,87 @@ import eu.stratosphere.nephele.jobmanager.scheduler.SchedulingException;
 import eu.stratosphere.util.StringUtils;
 
 /**
- * The queue scheduler mains of queue of all submitted jobs and executes one job at a time.
+ * The queue scheduler mains of queue of all submitted jobs. Depending on the configured {@link QueuePolicy}, jobs are
+ * either started immediately or only admitted once the instances required by their current stage are not reserved by
+ * other running jobs. A running job reserves only the instances of its current stage, so instances that it does not
+ * need anymore are available to waiting jobs as soon as it enters its next stage. In addition, the number of
+ * instances a single job may occupy can be limited, in which case the tasks of larger stages share the instances,
+ * and jobs whose tasks use more managed memory than permitted per job are rejected.
  * 
  */
 public class QueueScheduler extends AbstractScheduler implements JobStatusListener, ExecutionStageListener {
 
+	/**
+	 * The policies the queue scheduler uses to admit submitted jobs.
+	 */
+	public static enum QueuePolicy {
+
+		/**
+		 * Every job is started immediately after its submission, regardless of the resources occupied by other jobs.
+		 */
+		NONE,
+
+		/**
+		 * Jobs are admitted in the order of their submission. A job is only started once all jobs submitted before
+		 * have been started and its required instances are available.
+		 */
+		FIFO,
+
+		/**
+		 * Every waiting job whose required instances are available is started, jobs requiring fewer instances first.
+		 * Small jobs may thereby overtake large jobs that are still waiting for instances, but only
+		 * {@link QueueScheduler#MAX_OVERTAKES} times. Afterwards, the large job is started next, before any job that
+		 * was submitted after it.
+		 */
+		FAIR
+	}
+
+	/**
+	 * The number of times a waiting job may be overtaken by jobs submitted after it under the {@link QueuePolicy#FAIR}
+	 * policy, before it is admitted ahead of all later jobs.
+	 */
+	static final int MAX_OVERTAKES = 3;
+
 	/**
 	 * The job queue where all submitted jobs go to.
 	 */
 	private Deque<ExecutionGraph> jobQueue = new ArrayDeque<ExecutionGraph>();
 
+	/**
+	 * The jobs which have been submitted but are not yet admitted, in the order of their submission.
+	 */
+	private final List<ExecutionGraph> waitingJobs = new ArrayList<ExecutionGraph>();
+
+	/**
+	 * The number of times each waiting job has been overtaken by jobs submitted after it.
+	 */
+	private final Map<JobID, Integer> overtakes = new HashMap<JobID, Integer>();
+
+	/**
+	 * The instances reserved by each admitted job for its current stage.
+	 */
+	private final Map<JobID, Map<InstanceType, Integer>> reservedInstances = new HashMap<JobID, Map<InstanceType, Integer>>();
+
+	/**
+	 * The instances required by the first stage of each waiting job.
+	 */
+	private final Map<JobID, Map<InstanceType, Integer>> requiredInstances = new HashMap<JobID, Map<InstanceType, Integer>>();
+
+	/**
+	 * The policy used to admit submitted jobs.
+	 */
+	private final QueuePolicy queuePolicy;
+
+	/**
+	 * The maximum number of instances a single job may occupy at a time or <code>-1</code> for no limit.
+	 */
+	private final int maxInstancesPerJob;
+
+	/**
+	 * The maximum managed memory a single job may use over all its tasks in megabytes or <code>-1</code> for no limit.
+	 */
+	private final int maxMemoryPerJob;
+
 	/**
 	 * Constructs a new queue scheduler.
 	 * 
@@ -57,7 +140,90 @@ public class QueueScheduler extends AbstractScheduler implements JobStatusListen
 	 *        the instance manager to be used with this scheduler
 	 */
 	public QueueScheduler(final DeploymentManager deploymentManager, final InstanceManager instanceManager) {
+		this(deploymentManager, instanceManager, parseQueuePolicy(GlobalConfiguration.getString(
+			ConfigConstants.JOB_MANAGER_QUEUE_POLICY_KEY, ConfigConstants.DEFAULT_JOB_MANAGER_QUEUE_POLICY)),
+			GlobalConfiguration.getInteger(ConfigConstants.JOB_MANAGER_MAX_INSTANCES_PER_JOB_KEY,
+			ConfigConstants.DEFAULT_JOB_MANAGER_MAX_INSTANCES_PER_JOB),
+			GlobalConfiguration.getInteger(ConfigConstants.JOB_MANAGER_MAX_MEMORY_PER_JOB_KEY,
+			ConfigConstants.DEFAULT_JOB_MANAGER_MAX_MEMORY_PER_JOB));
+	}
+
+	/**
+	 * Constructs a new queue scheduler with the given admission settings and no limit on the managed memory per job.
+	 * 
+	 * @param deploymentManager
+	 *        the deployment manager assigned to this scheduler
+	 * @param instanceManager
+	 *        the instance manager to be used with this scheduler
+	 * @param queuePolicy
+	 *        the policy used to admit submitted jobs
+	 * @param maxInstancesPerJob
+	 *        the maximum number of instances a single job may occupy at a time or <code>-1</code> for no limit
+	 */
+	public QueueScheduler(final DeploymentManager deploymentManager, final InstanceManager instanceManager,
+			final QueuePolicy queuePolicy, final int maxInstancesPerJob) {
+		this(deploymentManager, instanceManager, queuePolicy, maxInstancesPerJob, -1);
+	}
+
+	/**
+	 * Constructs a new queue scheduler with the given admission settings.
+	 * 
+	 * @param deploymentManager
+	 *        the deployment manager assigned to this scheduler
+	 * @param instanceManager
+	 *        the instance manager to be used with this scheduler
+	 * @param queuePolicy
+	 *        the policy used to admit submitted jobs
+	 * @param maxInstancesPerJob
+	 *        the maximum number of instances a single job may occupy at a time or <code>-1</code> for no limit
+	 * @param maxMemoryPerJob
+	 *        the maximum managed memory a single job may use over all its tasks in megabytes or <code>-1</code> for
+	 *        no limit
+	 */
+	public QueueScheduler(final DeploymentManager deploymentManager, final InstanceManager instanceManager,
+			final QueuePolicy queuePolicy, final int maxInstancesPerJob, final int maxMemoryPerJob) {
 		super(deploymentManager, instanceManager);
+
+		if (queuePolicy == null) {
+			throw new IllegalArgumentException("Argument queuePolicy must not be null");
+		}
+
+		this.queuePolicy = queuePolicy;
+
+		if (maxInstancesPerJob == 0 || maxInstancesPerJob < -1) {
+			LOG.error("Invalid maximum number of instances per job: " + maxInstancesPerJob + ", using no limit");
+			this.maxInstancesPerJob = -1;
+		} else {
+			this.maxInstancesPerJob = maxInstancesPerJob;
+		}
+
+		if (maxMemoryPerJob == 0 || maxMemoryPerJob < -1) {
+			LOG.error("Invalid maximum managed memory per job: " + maxMemoryPerJob + ", using no limit");
+			this.maxMemoryPerJob = -1;
+		} else {
+			this.maxMemoryPerJob = maxMemoryPerJob;
+		}
+	}
+
+	/**
+	 * Parses the configured queue policy. An unknown policy is reported and replaced by the default policy
+	 * {@link ConfigConstants#DEFAULT_JOB_MANAGER_QUEUE_POLICY}.
+	 * 
+	 * @param policy
+	 *        the name of the policy, case insensitive
+	 * @return the queue policy
+	 */
+	static QueuePolicy parseQueuePolicy(final String policy) {
+
+		try {
+			return QueuePolicy.valueOf(policy.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			final QueuePolicy defaultPolicy = QueuePolicy.valueOf(
+				ConfigConstants.DEFAULT_JOB_MANAGER_QUEUE_POLICY.toUpperCase());
+			LOG.error("Unknown queue policy '" + policy + "' configured for "
+				+ ConfigConstants.JOB_MANAGER_QUEUE_POLICY_KEY + ", using " + defaultPolicy);
+			return defaultPolicy;
+		}
 	}
 
 	/**
@@ -88,12 +254,30 @@ public class QueueScheduler extends AbstractScheduler implements JobStatusListen
 			LOG.error("Cannot find job " + executionGraphToRemove.getJobName() + " ("
 				+ executionGraphToRemove.getJobID() + ") to remove");
 		}
+
+		final List<ExecutionGraph> jobsToStart;
+		synchronized (this.jobQueue) {
+			this.waitingJobs.remove(executionGraphToRemove);
+			this.overtakes.remove(executionGraphToRemove.getJobID());
+			this.requiredInstances.remove(executionGraphToRemove.getJobID());
+			this.reservedInstances.remove(executionGraphToRemove.getJobID());
+			jobsToStart = admitWaitingJobs();
+		}
+
+		for (final ExecutionGraph executionGraph : jobsToStart) {
+			startAdmittedJob(executionGraph);
+		}
 	}
 
 
 	@Override
 	public void schedulJob(final ExecutionGraph executionGraph) throws SchedulingException {
 
+		// Spread the tasks of stages exceeding the instance limit over the permitted number of instances
+		if (this.maxInstancesPerJob > 0) {
+			limitInstancesPerStage(executionGraph);
+		}
+
 		// Get Map of all available Instance types
 		final Map<InstanceType, InstanceTypeDescription> availableInstances = getInstanceManager()
 				.getMapOfAvailableInstanceTypes();
@@ -126,6 +310,15 @@ public class QueueScheduler extends AbstractScheduler implements JobStatusListen
 			}
 		}
 
+		// Reject jobs whose tasks use more managed memory than permitted per job
+		if (this.maxMemoryPerJob > 0) {
+			final long managedMemory = executionGraph.getJobConfiguration().getLong(JobGraph.MANAGED_MEMORY_KEY, -1);
+			if (managedMemory > ((long) this.maxMemoryPerJob) << 20) {
+				throw new SchedulingException("Unable to schedule job: its tasks use " + (managedMemory >>> 20)
+					+ " MB of managed memory, but only " + this.maxMemoryPerJob + " MB are permitted per job");
+			}
+		}
+
 		// Subscribe to job status notifications
 		executionGraph.registerJobStatusListener(this);
 
@@ -141,8 +334,32 @@ public class QueueScheduler extends AbstractScheduler implements JobStatusListen
 		executionGraph.registerExecutionStageListener(this);
 
 		// Add job to the job queue (important to add job to queue before requesting instances)
+		List<ExecutionGraph> admittedJobs = Collections.emptyList();
 		synchronized (this.jobQueue) {
 			this.jobQueue.add(executionGraph);
+
+			if (this.queuePolicy != QueuePolicy.NONE) {
+
+				this.waitingJobs.add(executionGraph);
+				this.requiredInstances.put(executionGraph.getJobID(),
+					getRequiredInstances(executionGraph.getCurrentExecutionStage()));
+
+				// Instances may have become available since the last admission, so other waiting jobs may be
+				// admitted along with this one
+				admittedJobs = admitWaitingJobs();
+			}
+		}
+
+		for (final ExecutionGraph admittedJob : admittedJobs) {
+			if (admittedJob != executionGraph) {
+				startAdmittedJob(admittedJob);
+			}
+		}
+
+		if (this.queuePolicy != QueuePolicy.NONE && !admittedJobs.contains(executionGraph)) {
+			LOG.info("Job " + executionGraph.getJobName() + " (" + executionGraph.getJobID()
+				+ ") is waiting for instances to become available");
+			return;
 		}
 
 		// Request resources for the first stage of the job
@@ -153,11 +370,350 @@ public class QueueScheduler extends AbstractScheduler implements JobStatusListen
 		} catch (InstanceException e) {
 			final String exceptionMessage = StringUtils.stringifyException(e);
 			LOG.error(exceptionMessage);
-			this.jobQueue.remove(executionGraph);
+			synchronized (this.jobQueue) {
+				this.jobQueue.remove(executionGraph);
+				this.reservedInstances.remove(executionGraph.getJobID());
+			}
 			throw new SchedulingException(exceptionMessage);
 		}
 	}
 
+	/**
+	 * Moves the waiting jobs which can be started according to the queue policy from the waiting list to the set of
+	 * admitted jobs and reserves the instances of their first stage. This method must be called while holding the lock
+	 * on the job queue.
+	 * 
+	 * @return the list of admitted jobs, possibly empty
+	 */
+	private List<ExecutionGraph> admitWaitingJobs() {
+
+		if (this.waitingJobs.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		final Map<InstanceType, InstanceTypeDescription> availableInstances = getInstanceManager()
+			.getMapOfAvailableInstanceTypes();
+
+		final List<ExecutionGraph> candidates = new ArrayList<ExecutionGraph>(this.waitingJobs);
+		if (this.queuePolicy == QueuePolicy.FAIR) {
+			// Jobs that have been overtaken too often go first, in the order of their submission, then the smallest
+			// jobs. The sort is stable, so jobs with equal requirements keep their submission order
+			Collections.sort(candidates, new Comparator<ExecutionGraph>() {
+
+				@Override
+				public int compare(final ExecutionGraph o1, final ExecutionGraph o2) {
+					final boolean s1 = isStarving(o1);
+					final boolean s2 = isStarving(o2);
+					if (s1 || s2) {
+						return s1 == s2 ? 0 : (s1 ? -1 : 1);
+					}
+					final int r1 = sum(requiredInstances.get(o1.getJobID()));
+					final int r2 = sum(requiredInstances.get(o2.getJobID()));
+					return r1 < r2 ? -1 : (r1 == r2 ? 0 : 1);
+				}
+			});
+		}
+
+		final List<ExecutionGraph> admittedJobs = new ArrayList<ExecutionGraph>();
+		for (final ExecutionGraph candidate : candidates) {
+
+			final Map<InstanceType, Integer> required = this.requiredInstances.get(candidate.getJobID());
+			if (!fitsIntoAvailableInstances(required, availableInstances)) {
+				// A starving job holds back all jobs behind it until its instances become available
+				if (this.queuePolicy == QueuePolicy.FIFO || isStarving(candidate)) {
+					break;
+				}
+				continue;
+			}
+
+			this.reservedInstances.put(candidate.getJobID(), required);
+			admittedJobs.add(candidate);
+		}
+
+		if (admittedJobs.isEmpty()) {
+			return admittedJobs;
+		}
+
+		// Count how often the jobs which are still waiting have been overtaken by jobs submitted after them
+		int admittedBehind = 0;
+		for (int i = this.waitingJobs.size() - 1; i >= 0; --i) {
+
+			final ExecutionGraph waiting = this.waitingJobs.get(i);
+			if (admittedJobs.contains(waiting)) {
+				++admittedBehind;
+				this.waitingJobs.remove(i);
+				this.overtakes.remove(waiting.getJobID());
+				this.requiredInstances.remove(waiting.getJobID());
+			} else if (admittedBehind > 0) {
+				final Integer previous = this.overtakes.get(waiting.getJobID());
+				this.overtakes.put(waiting.getJobID(),
+					Integer.valueOf((previous == null ? 0 : previous.intValue()) + admittedBehind));
+			}
+		}
+
+		return admittedJobs;
+	}
+
+	/**
+	 * Checks if the given waiting job has been overtaken by later jobs so often that it must be admitted next. This
+	 * method must be called while holding the lock on the job queue.
+	 * 
+	 * @param executionGraph
+	 *        the waiting job
+	 * @return <code>true</code> if the job must be admitted before all jobs submitted after it
+	 */
+	private boolean isStarving(final ExecutionGraph executionGraph) {
+
+		final Integer overtaken = this.overtakes.get(executionGraph.getJobID());
+		return overtaken != null && overtaken.intValue() >= MAX_OVERTAKES;
+	}
+
+	/**
+	 * Checks if the given instance requirements can be satisfied by the instances that are not reserved by any of the
+	 * admitted jobs. This method must be called while holding the lock on the job queue.
+	 * 
+	 * @param required
+	 *        the required number of instances per instance type
+	 * @param availableInstances
+	 *        the description of the available instance types
+	 * @return <code>true</code> if the required instances are available, <code>false</code> otherwise
+	 */
+	private boolean fitsIntoAvailableInstances(final Map<InstanceType, Integer> required,
+			final Map<InstanceType, InstanceTypeDescription> availableInstances) {
+
+		for (final Map.Entry<InstanceType, Integer> entry : required.entrySet()) {
+
+			final InstanceTypeDescription descr = availableInstances.get(entry.getKey());
+			if (descr == null) {
+				return false;
+			}
+
+			final int maximum = descr.getMaximumNumberOfAvailableInstances();
+			if (maximum == -1) {
+				continue;
+			}
+
+			int reserved = 0;
+			for (final Map<InstanceType, Integer> reservation : this.reservedInstances.values()) {
+				final Integer val = reservation.get(entry.getKey());
+				if (val != null) {
+					reserved += val.intValue();
+				}
+			}
+
+			if (reserved + entry.getValue().intValue() > maximum) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Requests the instances for the current stage of a job which has been admitted after waiting in the queue. If
+	 * the request fails, the job is failed.
+	 * 
+	 * @param executionGraph
+	 *        the admitted job
+	 */
+	private void startAdmittedJob(final ExecutionGraph executionGraph) {
+
+		LOG.info("Starting job " + executionGraph.getJobName() + " (" + executionGraph.getJobID() + ")");
+
+		try {
+			requestInstances(executionGraph.getCurrentExecutionStage());
+		} catch (InstanceException e) {
+			final String exceptionMessage = StringUtils.stringifyException(e);
+			LOG.error(exceptionMessage);
+			executionGraph.updateJobStatus(InternalJobStatus.FAILING, exceptionMessage);
+		}
+	}
+
+	/**
+	 * Returns the minimum number of instances which must still be requested for the given stage. These are the same
+	 * requirements the job was validated against on submission, so a job which passed the validation can always be
+	 * admitted once the other jobs have released their instances.
+	 * 
+	 * @param executionStage
+	 *        the stage to collect the required instances for
+	 * @return the required number of instances per instance type
+	 */
+	private static Map<InstanceType, Integer> getRequiredInstances(final ExecutionStage executionStage) {
+
+		final InstanceRequestMap instanceRequestMap = new InstanceRequestMap();
+		synchronized (executionStage) {
+			executionStage.collectRequiredInstanceTypes(instanceRequestMap, ExecutionState.CREATED);
+		}
+
+		final Map<InstanceType, Integer> required = new HashMap<InstanceType, Integer>();
+		final Iterator<Map.Entry<InstanceType, Integer>> it = instanceRequestMap.getMinimumIterator();
+		while (it.hasNext()) {
+			final Map.Entry<InstanceType, Integer> entry = it.next();
+			required.put(entry.getKey(), entry.getValue());
+		}
+
+		return required;
+	}
+
+	/**
+	 * Reassigns the tasks of every stage of the given job which requires more than the maximum number of instances per
+	 * job, such that the stage occupies at most that many instances in total. Every instance type of the stage needs
+	 * one instance, the remaining permitted instances are divided among the instance types in proportion to their
+	 * demand. The tasks of the other instances are spread over the permitted instances of the same type in a
+	 * round-robin fashion.
+	 * 
+	 * @param executionGraph
+	 *        the job to limit
+	 * @throws SchedulingException
+	 *         thrown if a stage of the job requires more instance types than the number of instances a job may occupy
+	 */
+	private void limitInstancesPerStage(final ExecutionGraph executionGraph) throws SchedulingException {
+
+		final Iterator<ExecutionStage> stageIt = executionGraph.iterator();
+		while (stageIt.hasNext()) {
+
+			final ExecutionStage stage = stageIt.next();
+
+			// The vertices of the stage, grouped by instance type and by the instance they are to be deployed on
+			final Map<InstanceType, Map<AbstractInstance, List<ExecutionVertex>>> instances =
+				new LinkedHashMap<InstanceType, Map<AbstractInstance, List<ExecutionVertex>>>();
+			int numberOfInstances = 0;
+
+			final ExecutionGraphIterator vertexIt = new ExecutionGraphIterator(executionGraph,
+				stage.getStageNumber(), true, true);
+			while (vertexIt.hasNext()) {
+
+				final ExecutionVertex vertex = vertexIt.next();
+				final AbstractInstance instance = vertex.getAllocatedResource().getInstance();
+				if (vertex.getExecutionState() != ExecutionState.CREATED || !(instance instanceof DummyInstance)) {
+					continue;
+				}
+
+				Map<AbstractInstance, List<ExecutionVertex>> ofType = instances.get(instance.getType());
+				if (ofType == null) {
+					ofType = new LinkedHashMap<AbstractInstance, List<ExecutionVertex>>();
+					instances.put(instance.getType(), ofType);
+				}
+				List<ExecutionVertex> vertices = ofType.get(instance);
+				if (vertices == null) {
+					vertices = new ArrayList<ExecutionVertex>();
+					ofType.put(instance, vertices);
+					++numberOfInstances;
+				}
+				vertices.add(vertex);
+			}
+
+			if (numberOfInstances <= this.maxInstancesPerJob) {
+				continue;
+			}
+
+			if (instances.size() > this.maxInstancesPerJob) {
+				throw new SchedulingException("Unable to schedule job: stage " + stage.getStageNumber()
+					+ " requires instances of " + instances.size() + " types, but a job may only occupy "
+					+ this.maxInstancesPerJob + " instances");
+			}
+
+			LOG.info("Stage " + stage.getStageNumber() + " of job " + executionGraph.getJobName() + " ("
+				+ executionGraph.getJobID() + ") requires " + numberOfInstances + " instances, limiting it to "
+				+ this.maxInstancesPerJob);
+
+			final Map<InstanceType, Integer> permittedInstances = dividePermittedInstances(instances);
+
+			for (final Map.Entry<InstanceType, Map<AbstractInstance, List<ExecutionVertex>>> typeEntry : instances
+				.entrySet()) {
+
+				final Map<AbstractInstance, List<ExecutionVertex>> ofType = typeEntry.getValue();
+				final int permitted = permittedInstances.get(typeEntry.getKey()).intValue();
+				final List<AllocatedResource> kept = new ArrayList<AllocatedResource>(permitted);
+
+				int index = 0;
+				for (final List<ExecutionVertex> vertices : ofType.values()) {
+					if (index < permitted) {
+						kept.add(vertices.get(0).getAllocatedResource());
+					} else {
+						final AllocatedResource target = kept.get(index % permitted);
+						for (final ExecutionVertex vertex : vertices) {
+							vertex.setAllocatedResource(target);
+						}
+					}
+					++index;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Divides the maximum number of instances per job among the instance types of a stage. Every instance type gets
+	 * one instance, every further instance goes to the type with the most tasks per permitted instance. No type gets
+	 * more instances than it requires. The caller must ensure that there are at most as many instance types as
+	 * permitted instances.
+	 * 
+	 * @param instances
+	 *        the instances the stage requires, grouped by instance type
+	 * @return the permitted number of instances per instance type
+	 */
+	private Map<InstanceType, Integer> dividePermittedInstances(
+			final Map<InstanceType, Map<AbstractInstance, List<ExecutionVertex>>> instances) {
+
+		final Map<InstanceType, Integer> permitted = new HashMap<InstanceType, Integer>();
+		for (final InstanceType instanceType : instances.keySet()) {
+			permitted.put(instanceType, Integer.valueOf(1));
+		}
+
+		for (int remaining = this.maxInstancesPerJob - instances.size(); remaining > 0; --remaining) {
+
+			InstanceType mostLoaded = null;
+			double highestLoad = 0.0;
+			for (final Map.Entry<InstanceType, Map<AbstractInstance, List<ExecutionVertex>>> entry : instances
+				.entrySet()) {
+
+				final int required = entry.getValue().size();
+				final int current = permitted.get(entry.getKey()).intValue();
+				final double load = (double) required / current;
+				if (current < required && load > highestLoad) {
+					mostLoaded = entry.getKey();
+					highestLoad = load;
+				}
+			}
+
+			if (mostLoaded == null) {
+				break;
+			}
+			permitted.put(mostLoaded, Integer.valueOf(permitted.get(mostLoaded).intValue() + 1));
+		}
+
+		return permitted;
+	}
+
+	/**
+	 * Returns the total number of instances in the given map.
+	 * 
+	 * @param instances
+	 *        the number of instances per instance type
+	 * @return the total number of instances
+	 */
+	private static int sum(final Map<InstanceType, Integer> instances) {
+
+		int sum = 0;
+		for (final Integer val : instances.values()) {
+			sum += val.intValue();
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Returns the number of jobs which are waiting to be admitted.
+	 * 
+	 * @return the number of waiting jobs
+	 */
+	int getNumberOfWaitingJobs() {
+
+		synchronized (this.jobQueue) {
+			return this.waitingJobs.size();
+		}
+	}
+
 
 	@Override
 	public ExecutionGraph getExecutionGraphByID(final JobID jobID) {
@@ -183,6 +739,10 @@ public class QueueScheduler extends AbstractScheduler implements JobStatusListen
 
 		synchronized (this.jobQueue) {
 			this.jobQueue.clear();
+			this.waitingJobs.clear();
+			this.overtakes.clear();
+			this.requiredInstances.clear();
+			this.reservedInstances.clear();
 		}
 
 	}
@@ -202,6 +762,22 @@ public class QueueScheduler extends AbstractScheduler implements JobStatusListen
 	@Override
 	public void nextExecutionStageEntered(final JobID jobID, final ExecutionStage executionStage) {
 
+		// The job now only occupies the instances of its new stage, which may leave room for waiting jobs
+		if (this.queuePolicy != QueuePolicy.NONE) {
+
+			final List<ExecutionGraph> jobsToStart;
+			synchronized (this.jobQueue) {
+				if (this.reservedInstances.containsKey(jobID)) {
+					this.reservedInstances.put(jobID, getRequiredInstances(executionStage));
+				}
+				jobsToStart = admitWaitingJobs();
+			}
+
+			for (final ExecutionGraph executionGraph : jobsToStart) {
+				startAdmittedJob(executionGraph);
+			}
+		}
+
 		// Request new instances if necessary
 		try {
 			requestInstances(executionStage);
@@ -34,6 +34,27 @@ public interface MemoryManager {
 	
 	void allocatePages(AbstractInvokable owner, List<MemorySegment> target, int numPages) throws MemoryAllocationException;
 	
+	/**
+	 * Lends up to the given number of currently unused pages to the given consumer. Unlike the pages allocated
+	 * through {@link #allocatePages(AbstractInvokable, int)}, these pages are not guaranteed: The memory manager may
+	 * ask the consumer to give them back, when they are needed to satisfy another allocation. The pages are released
+	 * like any other pages of the owner.
+	 * 
+	 * @param owner The owner to associate with the memory segment, for the fallback release.
+	 * @param consumer The consumer that is asked to return the pages, should they be needed elsewhere.
+	 * @param maxPages The maximum number of pages to lend.
+	 * @return The lent pages, possibly none, if the memory manager has no spare pages or does not lend pages.
+	 */
+	List<MemorySegment> allocateRevocablePages(AbstractInvokable owner, RevocableMemoryConsumer consumer, int maxPages);
+	
+	/**
+	 * Tells the memory manager that the given consumer is not going to release any more of the pages that were
+	 * revoked from it. Allocations that wait for these pages fail instead of waiting for the revocation timeout.
+	 * 
+	 * @param consumer The consumer that does not release the revoked pages.
+	 */
+	void declineRevocation(RevocableMemoryConsumer consumer);
+	
 	/**
 	 * Tries to release the memory for the specified segment. If the <code>segment</code> has already been released or
 	 * is <code>null</code>, the request is simply ignored. If the segment is not from the expected
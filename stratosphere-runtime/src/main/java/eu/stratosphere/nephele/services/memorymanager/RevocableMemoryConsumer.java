@@ -0,0 +1,41 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.services.memorymanager;
+
+/**
+ * A consumer of memory that can use pages beyond its guaranteed share while the memory manager has pages to spare.
+ * Such pages are lent to the consumer via {@link MemoryManager#allocateRevocablePages(
+ * eu.stratosphere.nephele.template.AbstractInvokable, RevocableMemoryConsumer, int)} and may be revoked when another
+ * task needs them for its guaranteed share. The consumer then has to release pages (for example after spilling) at
+ * its next opportunity.
+ */
+public interface RevocableMemoryConsumer {
+	
+	/**
+	 * Requests the consumer to release the given number of pages. The method is called by the thread that
+	 * needs the pages, without any lock of the memory manager held. Implementations must hence not block, but
+	 * only record the request and release the pages later, through
+	 * {@link MemoryManager#release(eu.stratosphere.core.memory.MemorySegment)} or
+	 * {@link MemoryManager#release(java.util.Collection)}.
+	 * <p>
+	 * The consumer answers how many of the pages it is going to release. The memory manager waits only for
+	 * these pages, such that a consumer that cannot give back pages in its current state should return zero.
+	 * A consumer that later finds that it cannot keep its promise calls
+	 * {@link MemoryManager#declineRevocation(RevocableMemoryConsumer)}.
+	 * 
+	 * @param numPages The number of pages that the consumer should release.
+	 * @return The number of pages that the consumer is going to release.
+	 */
+	int revokePages(int numPages);
+}
@@ -13,13 +13,17 @@
 
 package eu.stratosphere.nephele.services.memorymanager.spi;
 
+import java.util.AbstractMap;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
@@ -28,6 +32,7 @@ import org.apache.commons.logging.LogFactory;
 import eu.stratosphere.core.memory.MemorySegment;
 import eu.stratosphere.nephele.services.memorymanager.MemoryAllocationException;
 import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.nephele.services.memorymanager.RevocableMemoryConsumer;
 import eu.stratosphere.nephele.template.AbstractInvokable;
 
 
@@ -43,6 +48,12 @@ public class DefaultMemoryManager implements MemoryManager {
 	 */
 	public static final int MIN_PAGE_SIZE = 4 * 1024;
 	
+	/**
+	 * The default time that an allocation waits for revoked pages to be returned. Currently set to one second.
+	 * Borrowers return revoked pages with the next page they take, so the wait is usually much shorter.
+	 */
+	public static final long DEFAULT_REVOCATION_TIMEOUT = 1000;
+	
 	/**
 	 * The Log.
 	 */
@@ -56,6 +67,22 @@ public class DefaultMemoryManager implements MemoryManager {
 	
 	private final HashMap<AbstractInvokable, Set<DefaultMemorySegment>> allocatedSegments;
 	
+	private final HashMap<RevocableMemoryConsumer, Integer> lentPages; // the number of pages lent to each consumer
+	
+	private final HashMap<RevocableMemoryConsumer, Integer> promisedPages; // the revoked pages each consumer returns
+	
+	private final ArrayDeque<int[]> waitingAllocations; // the page counts of the waiting allocations, in arrival order
+	
+	private final boolean lendPages;		// flag whether unused pages are lent to revocable consumers
+	
+	private final long revocationTimeout;	// the time to wait for revoked pages, in milliseconds
+	
+	private int numLentPages;				// the total number of pages currently lent to consumers
+	
+	private int numAwaitedPages;			// the number of free pages that allocations are waiting for
+	
+	private int numPromisedPages;			// the total number of revoked pages that consumers are going to return
+	
 	private final long roundingMask;		// mask used to round down sizes to multiples of the page size
 	
 	private final int pageSize;				// the page size, in bytes
@@ -86,6 +113,20 @@ public class DefaultMemoryManager implements MemoryManager {
 	 * @param pageSize The size of the pages handed out by the memory manager.
 	 */
 	public DefaultMemoryManager(long memorySize, int pageSize) {
+		this(memorySize, pageSize, false, DEFAULT_REVOCATION_TIMEOUT);
+	}
+	
+	/**
+	 * Creates a memory manager with the given capacity and given page size. If pages are lent, the memory manager
+	 * hands currently unused pages to {@link RevocableMemoryConsumer}s and revokes them when they are needed to
+	 * satisfy a regular allocation.
+	 * 
+	 * @param memorySize The total size of the memory to be managed by this memory manager.
+	 * @param pageSize The size of the pages handed out by the memory manager.
+	 * @param lendPages Flag whether to lend unused pages to revocable consumers.
+	 * @param revocationTimeout The time (in milliseconds) that an allocation waits for revoked pages to be returned.
+	 */
+	public DefaultMemoryManager(long memorySize, int pageSize, boolean lendPages, long revocationTimeout) {
 		// sanity checks
 		if (memorySize <= 0) {
 			throw new IllegalArgumentException("Size of total memory must be positive.");
@@ -97,6 +138,9 @@ public class DefaultMemoryManager implements MemoryManager {
 			// not a power of two
 			throw new IllegalArgumentException("The given page size is not a power of two.");
 		}
+		if (revocationTimeout < 0) {
+			throw new IllegalArgumentException("The revocation timeout must not be negative.");
+		}
 		
 		// assign page size and bit utilities
 		this.pageSize = pageSize;
@@ -115,6 +159,11 @@ public class DefaultMemoryManager implements MemoryManager {
 		// initialize the free segments and allocated segments tracking structures
 		this.freeSegments = new ArrayDeque<byte[]>(this.totalNumPages);
 		this.allocatedSegments = new HashMap<AbstractInvokable, Set<DefaultMemorySegment>>();
+		this.lentPages = new HashMap<RevocableMemoryConsumer, Integer>();
+		this.waitingAllocations = new ArrayDeque<int[]>();
+		this.promisedPages = new HashMap<RevocableMemoryConsumer, Integer>();
+		this.lendPages = lendPages;
+		this.revocationTimeout = revocationTimeout;
 
 		
 		// add the full chunks
@@ -137,6 +186,10 @@ public class DefaultMemoryManager implements MemoryManager {
 				// mark as shutdown and release memory
 				this.isShutDown = true;
 				this.freeSegments.clear();
+				this.lentPages.clear();
+				this.promisedPages.clear();
+				this.numPromisedPages = 0;
+				this.lock.notifyAll();
 				
 				// go over all allocated segments and release them
 				for (Set<DefaultMemorySegment> segments : this.allocatedSegments.values()) {
@@ -180,6 +233,9 @@ public class DefaultMemoryManager implements MemoryManager {
 			((ArrayList<MemorySegment>) target).ensureCapacity(numPages);
 		}
 		
+		final List<Map.Entry<RevocableMemoryConsumer, Integer>> revocations;
+		final int[] request = new int[] { numPages };
+		
 		// -------------------- BEGIN CRITICAL SECTION -------------------
 		synchronized (this.lock)
 		{
@@ -187,27 +243,279 @@ public class DefaultMemoryManager implements MemoryManager {
 				throw new IllegalStateException("Memory manager has been shut down.");
 			}
 			
-			if (numPages > this.freeSegments.size()) {
+			// free pages that earlier allocations are waiting for are not handed out again
+			final int numUnclaimedPages = this.freeSegments.size() - this.numAwaitedPages;
+			if (numPages <= numUnclaimedPages) {
+				addSegments(owner, null, target, numPages);
+				return;
+			}
+			if (numPages > numUnclaimedPages + this.numLentPages) {
 				throw new MemoryAllocationException("Could not allocate " + numPages + " pages. Only " + 
-					this.freeSegments.size() + " pages are remaining.");
+					Math.max(0, numUnclaimedPages) + " pages are remaining.");
 			}
 			
-			Set<DefaultMemorySegment> segmentsForOwner = this.allocatedSegments.get(owner);
-			if (segmentsForOwner == null) {
-				segmentsForOwner = new HashSet<DefaultMemorySegment>(4 * numPages / 3 + 1);
-				this.allocatedSegments.put(owner, segmentsForOwner);
+			// the lent pages are needed back, except for those that consumers already promised to return. the
+			// pages are registered as promised until the consumers answered, such that pages which are returned
+			// right away settle the promise
+			revocations = selectRevocations(numPages - numUnclaimedPages - this.numPromisedPages);
+			for (Map.Entry<RevocableMemoryConsumer, Integer> revocation : revocations) {
+				addPromise(revocation.getKey(), revocation.getValue().intValue());
+			}
+			this.waitingAllocations.add(request);
+			this.numAwaitedPages += numPages;
+		}
+		// -------------------- END CRITICAL SECTION -------------------
+		
+		try {
+			// the consumers are asked outside of the lock, they may release pages concurrently
+			final int[] answers = new int[revocations.size()];
+			for (int i = 0; i < answers.length; i++) {
+				final RevocableMemoryConsumer consumer = revocations.get(i).getKey();
+				try {
+					answers[i] = consumer.revokePages(revocations.get(i).getValue().intValue());
+				}
+				catch (Throwable t) {
+					LOG.error("Error revoking memory pages from consumer " + consumer, t);
+				}
 			}
 			
-			for (int i = numPages; i > 0; i--) {
-				byte[] buffer = this.freeSegments.poll();
-				final DefaultMemorySegment segment = new DefaultMemorySegment(owner, buffer);
-				target.add(segment);
-				segmentsForOwner.add(segment);
+			// -------------------- BEGIN CRITICAL SECTION -------------------
+			synchronized (this.lock)
+			{
+				for (int i = 0; i < answers.length; i++) {
+					final int requested = revocations.get(i).getValue().intValue();
+					addPromise(revocations.get(i).getKey(), -(requested - Math.max(0, Math.min(answers[i], requested))));
+				}
+				
+				awaitRevokedPages(request);
+				addSegments(owner, null, target, numPages);
+				removeWaitingAllocation(request);
 			}
+			// -------------------- END CRITICAL SECTION -------------------
+		}
+		finally {
+			synchronized (this.lock) {
+				removeWaitingAllocation(request);
+			}
+		}
+	}
+	
+	@Override
+	public List<MemorySegment> allocateRevocablePages(AbstractInvokable owner, RevocableMemoryConsumer consumer,
+			int maxPages)
+	{
+		// sanity check
+		if (owner == null || consumer == null) {
+			throw new IllegalAccessError("The memory owner and consumer must not be null.");
+		}
+		
+		// -------------------- BEGIN CRITICAL SECTION -------------------
+		synchronized (this.lock)
+		{
+			if (this.isShutDown) {
+				throw new IllegalStateException("Memory manager has been shut down.");
+			}
+			
+			// pages that regular allocations are waiting for are not lent again
+			final int numPages = Math.min(maxPages, this.freeSegments.size() - this.numAwaitedPages);
+			if (!this.lendPages || numPages <= 0) {
+				return Collections.emptyList();
+			}
+			
+			final ArrayList<MemorySegment> segs = new ArrayList<MemorySegment>(numPages);
+			addSegments(owner, consumer, segs, numPages);
+			
+			final Integer lent = this.lentPages.get(consumer);
+			this.lentPages.put(consumer, lent == null ? numPages : lent.intValue() + numPages);
+			this.numLentPages += numPages;
+			return segs;
 		}
 		// -------------------- END CRITICAL SECTION -------------------
 	}
 	
+	@Override
+	public void declineRevocation(RevocableMemoryConsumer consumer) {
+		// -------------------- BEGIN CRITICAL SECTION -------------------
+		synchronized (this.lock)
+		{
+			final Integer promised = this.promisedPages.remove(consumer);
+			if (promised != null) {
+				this.numPromisedPages -= promised.intValue();
+				this.lock.notifyAll();
+			}
+		}
+		// -------------------- END CRITICAL SECTION -------------------
+	}
+	
+	/**
+	 * Selects the consumers to revoke the given number of pages from, starting with the consumers that borrowed
+	 * the most. Must be called while holding the lock.
+	 * 
+	 * @param numPages The number of pages to revoke.
+	 * @return The consumers and the number of pages to revoke from each of them.
+	 */
+	private List<Map.Entry<RevocableMemoryConsumer, Integer>> selectRevocations(int numPages) {
+		final List<Map.Entry<RevocableMemoryConsumer, Integer>> loans =
+				new ArrayList<Map.Entry<RevocableMemoryConsumer, Integer>>(this.lentPages.entrySet());
+		Collections.sort(loans, new Comparator<Map.Entry<RevocableMemoryConsumer, Integer>>() {
+			@Override
+			public int compare(Map.Entry<RevocableMemoryConsumer, Integer> o1, Map.Entry<RevocableMemoryConsumer, Integer> o2) {
+				return o2.getValue().compareTo(o1.getValue());
+			}
+		});
+		
+		final List<Map.Entry<RevocableMemoryConsumer, Integer>> revocations =
+				new ArrayList<Map.Entry<RevocableMemoryConsumer, Integer>>();
+		for (int i = 0; i < loans.size() && numPages > 0; i++) {
+			final RevocableMemoryConsumer consumer = loans.get(i).getKey();
+			final Integer promised = this.promisedPages.get(consumer);
+			
+			// pages that the consumer already promised to return are not revoked again
+			final int num = Math.min(numPages, loans.get(i).getValue().intValue() -
+				(promised == null ? 0 : promised.intValue()));
+			if (num > 0) {
+				revocations.add(new AbstractMap.SimpleImmutableEntry<RevocableMemoryConsumer, Integer>(consumer, num));
+				numPages -= num;
+			}
+		}
+		return revocations;
+	}
+	
+	/**
+	 * Changes the number of revoked pages that the given consumer is going to return. Must be called while
+	 * holding the lock.
+	 */
+	private void addPromise(RevocableMemoryConsumer consumer, int delta) {
+		final Integer promised = this.promisedPages.remove(consumer);
+		final int newPromise = Math.max(0, (promised == null ? 0 : promised.intValue()) + delta);
+		this.numPromisedPages += newPromise - (promised == null ? 0 : promised.intValue());
+		if (newPromise > 0) {
+			this.promisedPages.put(consumer, newPromise);
+		}
+	}
+	
+	/**
+	 * Waits until the pages of the given waiting allocation are free. Free pages go to the waiting allocations in
+	 * the order in which they arrived, so an allocation proceeds only once the pages of all earlier waiting
+	 * allocations are free as well. The method fails right away, if the pages that the consumers promised to return
+	 * do not suffice. Must be called while holding the lock.
+	 * 
+	 * @param request The waiting allocation, holding the number of pages that must be free.
+	 * @throws MemoryAllocationException Thrown, if the pages are not returned within the revocation timeout.
+	 */
+	private void awaitRevokedPages(int[] request) throws MemoryAllocationException {
+		final int numPages = request[0];
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Waiting for " + (numPages - this.freeSegments.size()) + " revoked pages to be returned.");
+		}
+		
+		final long deadline = System.currentTimeMillis() + this.revocationTimeout;
+		long remaining = this.revocationTimeout;
+		
+		int numClaimedPages;
+		while ((numClaimedPages = getNumPagesClaimedUpTo(request)) > this.freeSegments.size() && remaining > 0 &&
+				!this.isShutDown)
+		{
+			if (numClaimedPages > this.freeSegments.size() + this.numPromisedPages) {
+				throw new MemoryAllocationException("Could not allocate " + numPages + " pages. Only " + 
+					this.freeSegments.size() + " pages are remaining, the other pages are lent to consumers that " +
+					"cannot return them at the moment.");
+			}
+			
+			try {
+				this.lock.wait(remaining);
+			}
+			catch (InterruptedException iex) {
+				Thread.currentThread().interrupt();
+				throw new MemoryAllocationException("Interrupted while waiting for revoked pages.");
+			}
+			remaining = deadline - System.currentTimeMillis();
+		}
+		
+		if (this.isShutDown) {
+			throw new IllegalStateException("Memory manager has been shut down.");
+		}
+		if (getNumPagesClaimedUpTo(request) > this.freeSegments.size()) {
+			throw new MemoryAllocationException("Could not allocate " + numPages + " pages. Only " + 
+				this.freeSegments.size() + " pages are remaining, revoked pages were not returned within " +
+				this.revocationTimeout + " msecs.");
+		}
+	}
+	
+	/**
+	 * Gets the number of pages that the given waiting allocation and all waiting allocations that arrived before
+	 * it need. Must be called while holding the lock.
+	 */
+	private int getNumPagesClaimedUpTo(int[] request) {
+		int numPages = 0;
+		for (int[] waiting : this.waitingAllocations) {
+			numPages += waiting[0];
+			if (waiting == request) {
+				break;
+			}
+		}
+		return numPages;
+	}
+	
+	/**
+	 * Removes the given allocation from the waiting allocations, if it is still waiting, and wakes up the later
+	 * allocations. Must be called while holding the lock.
+	 */
+	private void removeWaitingAllocation(int[] request) {
+		if (this.waitingAllocations.remove(request)) {
+			this.numAwaitedPages -= request[0];
+			this.lock.notifyAll();
+		}
+	}
+	
+	/**
+	 * Takes the given number of pages from the free pages and registers them for the owner. Must be called
+	 * while holding the lock.
+	 */
+	private void addSegments(AbstractInvokable owner, RevocableMemoryConsumer borrower, List<MemorySegment> target,
+			int numPages)
+	{
+		Set<DefaultMemorySegment> segmentsForOwner = this.allocatedSegments.get(owner);
+		if (segmentsForOwner == null) {
+			segmentsForOwner = new HashSet<DefaultMemorySegment>(4 * numPages / 3 + 1);
+			this.allocatedSegments.put(owner, segmentsForOwner);
+		}
+		
+		for (int i = numPages; i > 0; i--) {
+			byte[] buffer = this.freeSegments.poll();
+			final DefaultMemorySegment segment = new DefaultMemorySegment(owner, borrower, buffer);
+			target.add(segment);
+			segmentsForOwner.add(segment);
+		}
+	}
+	
+	/**
+	 * Destroys the given segment and adds its memory to the free pages. If the segment was lent to a consumer,
+	 * the loan is settled. Must be called while holding the lock.
+	 */
+	private void returnSegment(DefaultMemorySegment segment) {
+		final RevocableMemoryConsumer borrower = segment.borrower;
+		if (borrower != null) {
+			final Integer lent = this.lentPages.remove(borrower);
+			if (lent != null) {
+				if (lent.intValue() > 1) {
+					this.lentPages.put(borrower, lent.intValue() - 1);
+				}
+				this.numLentPages--;
+			}
+			if (this.promisedPages.containsKey(borrower)) {
+				addPromise(borrower, -1);
+			}
+		}
+		
+		final byte[] buffer = segment.destroy();
+		this.freeSegments.add(buffer);
+		
+		if (this.numAwaitedPages > 0) {
+			this.lock.notifyAll();
+		}
+	}
+	
 	// ------------------------------------------------------------------------
 
 	@Override
@@ -243,8 +551,7 @@ public class DefaultMemoryManager implements MemoryManager {
 			}
 			finally {
 				// release the memory in any case
-				byte[] buffer = defSeg.destroy();
-				this.freeSegments.add(buffer);
+				returnSegment(defSeg);
 			}
 		}
 		// -------------------- END CRITICAL SECTION -------------------
@@ -302,8 +609,7 @@ public class DefaultMemoryManager implements MemoryManager {
 				}
 				finally {
 					// release the memory in any case
-					byte[] buffer = defSeg.destroy();
-					this.freeSegments.add(buffer);
+					returnSegment(defSeg);
 				}
 			}
 			
@@ -331,8 +637,7 @@ public class DefaultMemoryManager implements MemoryManager {
 
 			// free each segment
 			for (DefaultMemorySegment seg : segments) {
-				final byte[] buffer = seg.destroy();
-				this.freeSegments.add(buffer);
+				returnSegment(seg);
 			}
 
 			segments.clear();
@@ -378,15 +683,19 @@ public class DefaultMemoryManager implements MemoryManager {
 		
 		private AbstractInvokable owner;
 		
-		DefaultMemorySegment(AbstractInvokable owner, byte[] memory) {
+		private RevocableMemoryConsumer borrower; // the consumer the segment is lent to, null, if not lent
+		
+		DefaultMemorySegment(AbstractInvokable owner, RevocableMemoryConsumer borrower, byte[] memory) {
 			super(memory);
 			this.owner = owner;
+			this.borrower = borrower;
 		}
 		
 		byte[] destroy() {
 			final byte[] buffer = this.memory;
 			this.memory = null;
 			this.wrapper = null;
+			this.borrower = null;
 			return buffer;
 		}
 	}
@@ -335,7 +335,13 @@ public class TaskManager implements TaskOperationProtocol {
 				final boolean lazyAllocation = GlobalConfiguration.getBoolean(ConfigConstants.TASK_MANAGER_MEMORY_LAZY_ALLOCATION_KEY,
 					ConfigConstants.DEFAULT_TASK_MANAGER_MEMORY_LAZY_ALLOCATION);
 				
-				this.memoryManager = new DefaultMemoryManager(resources.getSizeOfFreeMemory(), pageSize);
+				final boolean elasticMemory = GlobalConfiguration.getBoolean(ConfigConstants.TASK_MANAGER_MEMORY_ELASTIC_KEY,
+					ConfigConstants.DEFAULT_TASK_MANAGER_MEMORY_ELASTIC);
+				final long revocationTimeout = GlobalConfiguration.getLong(ConfigConstants.TASK_MANAGER_MEMORY_REVOCATION_TIMEOUT_KEY,
+					ConfigConstants.DEFAULT_TASK_MANAGER_MEMORY_REVOCATION_TIMEOUT);
+				
+				this.memoryManager = new DefaultMemoryManager(resources.getSizeOfFreeMemory(), pageSize,
+					elasticMemory, revocationTimeout);
 			} catch (Throwable t) {
 				LOG.fatal("Unable to initialize memory manager with " + (resources.getSizeOfFreeMemory() >>> 20)
 					+ " megabytes of memory.", t);
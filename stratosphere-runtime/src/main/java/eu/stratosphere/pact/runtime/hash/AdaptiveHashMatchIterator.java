@@ -0,0 +1,250 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.hash;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.common.functions.GenericJoiner;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypePairComparator;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.core.memory.DataInputView;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.nephele.services.memorymanager.ListMemorySegmentSource;
+import eu.stratosphere.nephele.services.memorymanager.MemoryAllocationException;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.nephele.template.AbstractInvokable;
+import eu.stratosphere.pact.runtime.io.SpillingBuffer;
+import eu.stratosphere.pact.runtime.task.util.JoinTaskIterator;
+import eu.stratosphere.util.Collector;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * An implementation of the {@link eu.stratosphere.pact.runtime.task.util.JoinTaskIterator} that decides at runtime
+ * which input becomes the build side of the hybrid hash join. The first input is materialized first, using at most
+ * half of the memory. If it fits into that memory, it is used as the build side. Otherwise, the materialized first
+ * input is spilled and later used as the probe side, while the hash table is built from the second input. In both
+ * cases, the hash table gets all memory that is not needed to hold or read the materialized first input.
+ */
+public class AdaptiveHashMatchIterator<V1, V2, O> implements JoinTaskIterator<V1, V2, O> {
+	
+	private static final Log LOG = LogFactory.getLog(AdaptiveHashMatchIterator.class);
+	
+	/**
+	 * The minimal number of pages used to materialize the first input.
+	 */
+	private static final int MIN_NUM_BUFFER_PAGES = 2;
+	
+	/**
+	 * The minimal number of pages for the hash table, see {@link MutableHashTable}.
+	 */
+	private static final int MIN_NUM_TABLE_PAGES = 33;
+	
+	/**
+	 * The number of pages used to read the first input back, if it was spilled.
+	 */
+	private static final int NUM_READ_PAGES = 2;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private final MutableObjectIterator<V1> firstInput;
+	
+	private final MutableObjectIterator<V2> secondInput;
+	
+	private final TypeSerializer<V1> serializer1;
+	
+	private final TypeComparator<V1> comparator1;
+	
+	private final TypeSerializer<V2> serializer2;
+	
+	private final TypeComparator<V2> comparator2;
+	
+	private final TypePairComparator<V1, V2> pairComparator12;
+	
+	private final TypePairComparator<V2, V1> pairComparator21;
+	
+	private final MemoryManager memManager;
+	
+	private final IOManager ioManager;
+	
+	private final AbstractInvokable ownerTask;
+	
+	private final List<MemorySegment> bufferMemory;
+	
+	private final int numPages;
+	
+	private final int numBufferPages;
+	
+	private SpillingBuffer buffer;
+	
+	private JoinTaskIterator<V1, V2, O> hashJoin;
+	
+	private volatile boolean running = true;
+	
+	// --------------------------------------------------------------------------------------------
+	
+	public AdaptiveHashMatchIterator(MutableObjectIterator<V1> firstInput, MutableObjectIterator<V2> secondInput,
+			TypeSerializer<V1> serializer1, TypeComparator<V1> comparator1,
+			TypeSerializer<V2> serializer2, TypeComparator<V2> comparator2,
+			TypePairComparator<V1, V2> pairComparator12, TypePairComparator<V2, V1> pairComparator21,
+			MemoryManager memManager, IOManager ioManager, AbstractInvokable ownerTask, long totalMemory)
+	throws MemoryAllocationException
+	{
+		this.firstInput = firstInput;
+		this.secondInput = secondInput;
+		this.serializer1 = serializer1;
+		this.comparator1 = comparator1;
+		this.serializer2 = serializer2;
+		this.comparator2 = comparator2;
+		this.pairComparator12 = pairComparator12;
+		this.pairComparator21 = pairComparator21;
+		this.memManager = memManager;
+		this.ioManager = ioManager;
+		this.ownerTask = ownerTask;
+		
+		// the first input may occupy at most half of the memory, such that the hash table built from it
+		// still fits into the rest of the memory
+		this.numPages = memManager.computeNumberOfPages(totalMemory);
+		if (this.numPages < MIN_NUM_BUFFER_PAGES + MIN_NUM_TABLE_PAGES) {
+			throw new IllegalArgumentException("Too little memory provided. The adaptive hash join needs at least " +
+				(MIN_NUM_BUFFER_PAGES + MIN_NUM_TABLE_PAGES) + " memory pages.");
+		}
+		this.numBufferPages = this.numPages - Math.max(MIN_NUM_TABLE_PAGES, this.numPages / 2);
+		
+		this.bufferMemory = memManager.allocatePages(ownerTask, this.numBufferPages);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	public void open() throws IOException, MemoryAllocationException, InterruptedException {
+		// materialize the first input and measure its size
+		this.buffer = new SpillingBuffer(this.ioManager, new ListMemorySegmentSource(this.bufferMemory),
+			this.memManager.getPageSize());
+		
+		V1 record = this.serializer1.createInstance();
+		long numRecords = 0;
+		while (this.running && (record = this.firstInput.next(record)) != null) {
+			this.serializer1.serialize(record, this.buffer);
+			numRecords++;
+		}
+		
+		final boolean buildFirst = !this.buffer.isSpilled();
+		final int numHeldPages = buildFirst ? this.numBufferPages - this.bufferMemory.size() : NUM_READ_PAGES;
+		
+		// hand the memory that is not needed for the first input over to the hash table
+		final List<MemorySegment> released = new ArrayList<MemorySegment>();
+		final MutableObjectIterator<V1> bufferedInput = new BufferedInputIterator<V1>(
+			this.buffer.flip(NUM_READ_PAGES, released), this.serializer1, numRecords);
+		this.memManager.release(released);
+		this.memManager.release(this.bufferMemory);
+		
+		final long tableMemory = ((long) (this.numPages - numHeldPages)) * this.memManager.getPageSize();
+		
+		if (LOG.isInfoEnabled()) {
+			LOG.info("The first input of the adaptive hash join has " + numRecords + " records and " +
+				(buildFirst ? "fits" : "does not fit") + " into memory. Building the hash table from the " +
+				(buildFirst ? "first" : "second") + " input.");
+		}
+		
+		if (buildFirst) {
+			this.hashJoin = new BuildFirstHashMatchIterator<V1, V2, O>(bufferedInput, this.secondInput,
+				this.serializer1, this.comparator1, this.serializer2, this.comparator2, this.pairComparator21,
+				this.memManager, this.ioManager, this.ownerTask, tableMemory);
+			this.hashJoin.open();
+			
+			// the hash table has consumed the buffered input
+			releaseBuffer();
+			this.memManager.release(this.bufferMemory);
+		} else {
+			this.hashJoin = new BuildSecondHashMatchIterator<V1, V2, O>(bufferedInput, this.secondInput,
+				this.serializer1, this.comparator1, this.serializer2, this.comparator2, this.pairComparator12,
+				this.memManager, this.ioManager, this.ownerTask, tableMemory);
+			this.hashJoin.open();
+		}
+	}
+	
+	@Override
+	public void close() {
+		if (this.hashJoin != null) {
+			this.hashJoin.close();
+			this.hashJoin = null;
+		}
+		
+		try {
+			releaseBuffer();
+		}
+		catch (IOException ioex) {
+			LOG.warn("Could not close the buffer of the adaptive hash join.", ioex);
+		}
+		this.memManager.release(this.bufferMemory);
+	}
+	
+	@Override
+	public boolean callWithNextKey(GenericJoiner<V1, V2, O> matchFunction, Collector<O> collector) throws Exception {
+		return this.hashJoin.callWithNextKey(matchFunction, collector);
+	}
+	
+	@Override
+	public void abort() {
+		this.running = false;
+		final JoinTaskIterator<V1, V2, O> join = this.hashJoin;
+		if (join != null) {
+			join.abort();
+		}
+	}
+	
+	private void releaseBuffer() throws IOException {
+		if (this.buffer != null) {
+			this.bufferMemory.addAll(this.buffer.close());
+			this.buffer = null;
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Iterator over a fixed number of records that are deserialized from a view.
+	 */
+	private static final class BufferedInputIterator<T> implements MutableObjectIterator<T> {
+		
+		private final DataInputView view;
+		
+		private final TypeSerializer<T> serializer;
+		
+		private long numRemaining;
+		
+		private BufferedInputIterator(DataInputView view, TypeSerializer<T> serializer, long numRecords) {
+			this.view = view;
+			this.serializer = serializer;
+			this.numRemaining = numRecords;
+		}
+
+		@Override
+		public T next(T reuse) throws IOException {
+			if (this.numRemaining > 0) {
+				this.numRemaining--;
+				return this.serializer.deserialize(reuse, this.view);
+			} else {
+				return null;
+			}
+		}
+	}
+}
@@ -74,6 +74,7 @@ public final class BuildSecondHashMatchIterator<V1, V2, O> implements JoinTaskIt
 		
 		this.hashJoin = getHashJoin(serializer2, comparator2, serializer1, comparator1, pairComparator,
 			memManager, ioManager, ownerTask, totalMemory);
+		this.hashJoin.setElasticMemory(memManager, ownerTask);
 	}
 	
 	// --------------------------------------------------------------------------------------------
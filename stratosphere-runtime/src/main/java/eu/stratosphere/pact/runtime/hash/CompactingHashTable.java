@@ -413,7 +413,8 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 	
 	/**
 	 * Replaces record in hash table if record already present or append record if not.
-	 * May trigger expensive compaction.
+	 * Records that have the same serialized length as the record they replace are written in place.
+	 * Otherwise, the replaced record becomes garbage, which may trigger expensive compaction.
 	 * 
 	 * @param record record to insert or replace
 	 * @param tempHolder instance of T that will be overwritten
@@ -439,8 +440,6 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		int countInSegment = bucket.getInt(bucketInSegmentOffset + HEADER_COUNT_OFFSET);
 		int numInSegment = 0;
 		int posInSegment = bucketInSegmentOffset + BUCKET_HEADER_LENGTH;
-		
-		long currentForwardPointer = BUCKET_FORWARD_POINTER_NOT_SET;
 
 		// loop over all segments that are involved in the bucket (original bucket plus overflow buckets)
 		while (true) {
@@ -461,11 +460,13 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 					try {
 						partition.readRecordAt(pointer, tempHolder);
 						if (this.buildSideComparator.equalToReference(tempHolder)) {
-							long newPointer = partition.appendRecord(record);
-							bucket.putLong(pointerOffset, newPointer);
-							partition.setCompaction(false);
-							if((newPointer >> this.pageSizeInBits) > this.compactionMemory.getBlockCount()) {
-								this.compactionMemory.allocateSegments((int)(newPointer >> this.pageSizeInBits));
+							final int length = (int) (partition.getReadPosition() - pointer);
+							long newPointer = partition.replaceRecord(pointer, length, record);
+							if (newPointer != pointer) {
+								bucket.putLong(pointerOffset, newPointer);
+								if((newPointer >> this.pageSizeInBits) > this.compactionMemory.getBlockCount()) {
+									this.compactionMemory.allocateSegments((int)(newPointer >> this.pageSizeInBits));
+								}
 							}
 							return;
 						}
@@ -474,8 +475,9 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 						long newPointer;
 						try {
 							compactPartition(partition.getPartitionNumber());
-							// retry append
+							// retry append, the compacted copy of the old record is garbage afterwards
 							newPointer = this.partitions.get(partitionNumber).appendRecord(record);
+							this.partitions.get(partitionNumber).setCompaction(false);
 						} catch (EOFException ex) {
 							throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
 									" minPartition: " + getMinPartition() +
@@ -496,8 +498,9 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 						long newPointer;
 						try {
 							compactPartition(partition.getPartitionNumber());
-							// retry append
+							// retry append, the compacted copy of the old record is garbage afterwards
 							newPointer = this.partitions.get(partitionNumber).appendRecord(record);
+							this.partitions.get(partitionNumber).setCompaction(false);
 						} catch (EOFException ex) {
 							throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
 									" minPartition: " + getMinPartition() +
@@ -527,7 +530,7 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			if (newForwardPointer == BUCKET_FORWARD_POINTER_NOT_SET) {
 				// nothing found. append and insert
 				long pointer = partition.appendRecord(record);
-				insertBucketEntryFromSearch(partition, originalBucket, bucket, originalBucketOffset, bucketInSegmentOffset, countInSegment, currentForwardPointer, searchHashCode, pointer);
+				insertBucketEntryFromSearch(partition, originalBucket, bucket, originalBucketOffset, bucketInSegmentOffset, countInSegment, searchHashCode, pointer);
 				if((pointer >> this.pageSizeInBits) > this.compactionMemory.getBlockCount()) {
 					this.compactionMemory.allocateSegments((int)(pointer >> this.pageSizeInBits));
 				}
@@ -540,7 +543,6 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			countInSegment = bucket.getInt(bucketInSegmentOffset + HEADER_COUNT_OFFSET);
 			posInSegment = bucketInSegmentOffset + BUCKET_HEADER_LENGTH;
 			numInSegment = 0;
-			currentForwardPointer = newForwardPointer;
 		}
 	}
 
@@ -637,7 +639,7 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		}
 	}
 	
-	private final void insertBucketEntryFromSearch(InMemoryPartition<T> partition, MemorySegment originalBucket, MemorySegment currentBucket, int originalBucketOffset, int currentBucketOffset, int countInCurrentBucket, long currentForwardPointer, int hashCode, long pointer) {
+	private final void insertBucketEntryFromSearch(InMemoryPartition<T> partition, MemorySegment originalBucket, MemorySegment currentBucket, int originalBucketOffset, int currentBucketOffset, int countInCurrentBucket, int hashCode, long pointer) {
 		if (countInCurrentBucket < NUM_ENTRIES_PER_BUCKET) {
 			// we are good in our current bucket, put the values
 			currentBucket.putInt(currentBucketOffset + BUCKET_HEADER_LENGTH + (countInCurrentBucket * HASH_CODE_LEN), hashCode);	// hash code
@@ -677,10 +679,10 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			// of a new segment
 			partition.nextOverflowBucket = (partition.nextOverflowBucket == this.bucketsPerSegmentMask ? 0 : partition.nextOverflowBucket + 1);
 			
-			// insert the new overflow bucket in the chain of buckets
-			// 1) set the old forward pointer
+			// insert the new overflow bucket at the head of the chain of buckets
+			// 1) set the old forward pointer of the bucket in the main table
 			// 2) let the bucket in the main table point to this one
-			overflowSeg.putLong(overflowBucketOffset + HEADER_FORWARD_OFFSET, currentForwardPointer);
+			overflowSeg.putLong(overflowBucketOffset + HEADER_FORWARD_OFFSET, originalBucket.getLong(originalBucketOffset + HEADER_FORWARD_OFFSET));
 			final long pointerToNewBucket = (((long) overflowBucketNum) << 32) | ((long) overflowBucketOffset);
 			originalBucket.putLong(originalBucketOffset + HEADER_FORWARD_OFFSET, pointerToNewBucket);
 			
@@ -857,9 +859,10 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		if(this.partitions.get(partitionNumber).isCompacted()) {
 			return;
 		}
-		// release all segments owned by compaction partition
+		// release all segments owned by compaction partition and start over with an empty one
 		this.compactionMemory.clearAllMemory(availableMemory);
-		this.compactionMemory.allocateSegments(1);
+		this.compactionMemory = new InMemoryPartition<T>(this.buildSideSerializer, -1,
+				new ListMemorySegmentSource(this.availableMemory), this.segmentSize, this.pageSizeInBits);
 		T tempHolder = this.buildSideSerializer.createInstance();
 		InMemoryPartition<T> partition = this.partitions.remove(partitionNumber);
 		final int numPartitions = this.partitions.size() + 1; // dropped one earlier
@@ -883,33 +886,20 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 					pointer = this.compactionMemory.appendRecord(tempHolder);
 					segment.putLong(pointerOffset, pointer);
 				}
+				// scan overflow buckets
 				long overflowPointer = segment.getLong(bucketOffset + HEADER_FORWARD_OFFSET);
-				if(overflowPointer != BUCKET_FORWARD_POINTER_NOT_SET) {
-					// scan overflow buckets
-					int current = NUM_ENTRIES_PER_BUCKET;
-					bucketOffset = (int) (overflowPointer & 0xffffffff);
-					pointerOffset = ((int) (overflowPointer & 0xffffffff)) + BUCKET_POINTER_START_OFFSET;
-					int overflowSegNum = (int) (overflowPointer >>> 32);
-					count += partition.overflowSegments[overflowSegNum].getInt(bucketOffset + HEADER_COUNT_OFFSET);
-					while(current < count) {
-						pointer = partition.overflowSegments[overflowSegNum].getLong(pointerOffset);
+				while(overflowPointer != BUCKET_FORWARD_POINTER_NOT_SET) {
+					final MemorySegment overflowSegment = partition.overflowSegments[(int) (overflowPointer >>> 32)];
+					final int overflowBucketOffset = (int) (overflowPointer & 0xffffffff);
+					final int overflowCount = overflowSegment.getInt(overflowBucketOffset + HEADER_COUNT_OFFSET);
+					for (int j = 0; j < overflowCount; j++) {
+						pointerOffset = overflowBucketOffset + BUCKET_POINTER_START_OFFSET + (j * POINTER_LEN);
+						pointer = overflowSegment.getLong(pointerOffset);
 						partition.readRecordAt(pointer, tempHolder);
 						pointer = this.compactionMemory.appendRecord(tempHolder);
-						partition.overflowSegments[overflowSegNum].putLong(pointerOffset, pointer);
-						current++;
-						if(current % NUM_ENTRIES_PER_BUCKET == 0) {
-							count += partition.overflowSegments[overflowSegNum].getInt(bucketOffset + HEADER_COUNT_OFFSET);
-							overflowPointer = partition.overflowSegments[overflowSegNum].getLong(bucketOffset + HEADER_FORWARD_OFFSET);
-							if(overflowPointer == BUCKET_FORWARD_POINTER_NOT_SET) {
-								break;
-							}
-							overflowSegNum = (int) (overflowPointer >>> 32);
-							bucketOffset = (int) (overflowPointer & 0xffffffff);
-							pointerOffset = ((int) (overflowPointer & 0xffffffff)) + BUCKET_POINTER_START_OFFSET;
-						} else {
-							pointerOffset += POINTER_LEN;
-						}
+						overflowSegment.putLong(pointerOffset, pointer);
 					}
+					overflowPointer = overflowSegment.getLong(overflowBucketOffset + HEADER_FORWARD_OFFSET);
 				}
 			}
 		}
@@ -921,6 +911,10 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		this.partitions.get(partitionNumber).numOverflowSegments = this.compactionMemory.numOverflowSegments;
 		this.partitions.get(partitionNumber).nextOverflowBucket = this.compactionMemory.nextOverflowBucket;
 		this.partitions.get(partitionNumber).setCompaction(true);
+		// the overflow buckets belong to the compacted partition now and must not be released with the garbage
+		this.compactionMemory.overflowSegments = new MemorySegment[2];
+		this.compactionMemory.numOverflowSegments = 0;
+		this.compactionMemory.nextOverflowBucket = 0;
 		this.compactionMemory.resetRecordCounter();
 		this.compactionMemory.setPartitionNumber(-1);
 		// try to allocate maximum segment count
@@ -1077,6 +1071,10 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		
 		private int pointerOffsetInBucket;
 		
+		private long pointer;
+		
+		private int recordLength;
+		
 		
 		private HashTableProber(TypeComparator<PT> probeTypeComparator, TypePairComparator<PT, T> pairComparator)
 		{
@@ -1126,6 +1124,8 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 								this.partition = partition;
 								this.bucket = bucket;
 								this.pointerOffsetInBucket = pointerOffset;
+								this.pointer = pointer;
+								this.recordLength = (int) (partition.getReadPosition() - pointer);
 								return true;
 							}
 						}
@@ -1154,9 +1154,46 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		}
 		
 		public void updateMatch(T record) throws IOException {
-			long newPointer = this.partition.appendRecord(record);
-			this.bucket.putLong(this.pointerOffsetInBucket, newPointer);
-			this.partition.setCompaction(false); //FIXME Do we really create garbage here?
+			long newPointer;
+			try {
+				newPointer = this.partition.replaceRecord(this.pointer, this.recordLength, record);
+			} catch (EOFException e) {
+				newPointer = compactAndAppend(record);
+			} catch (IndexOutOfBoundsException e) {
+				newPointer = compactAndAppend(record);
+			}
+			
+			if (newPointer != this.pointer) {
+				this.bucket.putLong(this.pointerOffsetInBucket, newPointer);
+				this.pointer = newPointer;
+				// the record was appended last, so further updates of the same length go in place
+				this.recordLength = (int) (this.partition.getAppendPosition() - newPointer);
+			}
+		}
+		
+		private long compactAndAppend(T record) throws IOException {
+			// system is out of memory so we attempt to reclaim memory with a copy compact run
+			final int partitionNumber = this.partition.getPartitionNumber();
+			try {
+				compactPartition(partitionNumber);
+				this.partition = partitions.get(partitionNumber);
+				final long newPointer = this.partition.appendRecord(record);
+				// the compacted copy of the old record is garbage now
+				this.partition.setCompaction(false);
+				return newPointer;
+			} catch (EOFException ex) {
+				throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + partitions.size() + 
+						" minPartition: " + getMinPartition() +
+						" maxPartition: " + getMaxPartition() +
+						" bucketSize: " + buckets.length +
+						" Message: " + ex.getMessage());
+			} catch (IndexOutOfBoundsException ex) {
+				throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + partitions.size() + 
+						" minPartition: " + getMinPartition() +
+						" maxPartition: " + getMaxPartition() +
+						" bucketSize: " + buckets.length +
+						" Message: " + ex.getMessage());
+			}
 		}
 	}
 }
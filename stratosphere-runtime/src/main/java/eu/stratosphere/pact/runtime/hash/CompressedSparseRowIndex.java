@@ -0,0 +1,359 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.hash;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypePairComparator;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.pact.runtime.sort.NormalizedKeySorter;
+import eu.stratosphere.pact.runtime.sort.QuickSort;
+import eu.stratosphere.pact.runtime.util.MathUtils;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * An in-memory index in compressed sparse row layout, built once over a static input and then probed many times.
+ * It is used to look up the adjacency lists (the groups of records sharing a key) of a static data set, such as
+ * the edges of a graph, for the keys of a (typically much smaller) probe side, without scanning the whole data set.
+ * <p>
+ * The records are serialized into memory segments and sorted by key, such that all records of a key occupy a
+ * contiguous range of positions. A directory maps the hash code of each distinct key to the start and end of
+ * its range. The directory is an open addressing hash table with linear probing, stored in memory segments as well:
+ *
+ * <pre>
+ * +----------------------------- Slot x ------------------------------
+ * | hash code (4 bytes) | range start (4 bytes) | range end (4 bytes) | reserved (4 bytes) |
+ * +-------------------------------------------------------------------
+ * </pre>
+ *
+ * A slot with a range end of zero is empty. The index does not spill; if the input does not fit into the given
+ * memory, an exception is thrown while building it.
+ *
+ * @param <BT> The type of the records in the index (the build side).
+ * @param <PT> The type of the records that the index is probed with (the probe side).
+ */
+public class CompressedSparseRowIndex<BT, PT> {
+
+	private static final int SLOT_SIZE_BITS = 4;
+
+	private static final int SLOT_SIZE = 1 << SLOT_SIZE_BITS;
+
+	private static final int HASH_CODE_OFFSET = 0;
+
+	private static final int RANGE_START_OFFSET = 4;
+
+	private static final int RANGE_END_OFFSET = 8;
+
+	// ------------------------------------------------------------------------
+
+	private final TypeSerializer<BT> buildSideSerializer;
+
+	private final TypeComparator<BT> buildSideComparator;
+
+	private final TypeComparator<PT> probeSideComparator;
+
+	private final TypePairComparator<PT, BT> pairComparator;
+
+	private final List<MemorySegment> availableMemory;
+
+	private final int segmentSize;
+
+	private final RowIterator rowIterator;
+
+	private final BT candidate;
+
+	private NormalizedKeySorter<BT> records;
+
+	private MemorySegment[] directory;
+
+	private int slotsPerSegmentBits;
+
+	private int slotsPerSegmentMask;
+
+	private int slotMask;
+
+	private int numKeys;
+
+	private boolean open;
+
+	// ------------------------------------------------------------------------
+
+	public CompressedSparseRowIndex(TypeSerializer<BT> buildSideSerializer, TypeComparator<BT> buildSideComparator,
+			TypeComparator<PT> probeSideComparator, TypePairComparator<PT, BT> pairComparator, List<MemorySegment> memory)
+	{
+		if (buildSideSerializer == null || buildSideComparator == null || probeSideComparator == null ||
+				pairComparator == null || memory == null)
+		{
+			throw new NullPointerException();
+		}
+
+		this.buildSideSerializer = buildSideSerializer;
+		this.buildSideComparator = buildSideComparator;
+		this.probeSideComparator = probeSideComparator;
+		this.pairComparator = pairComparator;
+		this.availableMemory = memory;
+		this.segmentSize = memory.isEmpty() ? 0 : memory.get(0).size();
+
+		this.rowIterator = new RowIterator(buildSideSerializer.createInstance());
+		this.candidate = buildSideSerializer.createInstance();
+	}
+
+	// ------------------------------------------------------------------------
+	//                              Life-Cycle
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Builds the index from the given input. The input is consumed completely.
+	 *
+	 * @param input The input to index.
+	 * @throws IOException Thrown, if the input does not fit into the memory of the index, or if the input
+	 *                     could not be read.
+	 */
+	public void open(MutableObjectIterator<BT> input) throws IOException {
+		if (this.open) {
+			throw new IllegalStateException("The index is already open.");
+		}
+		this.open = true;
+
+		// the sorter takes its memory from this list, so whatever remains in it afterwards is free for the directory
+		final ArrayList<MemorySegment> freeMemory = new ArrayList<MemorySegment>(this.availableMemory);
+		this.records = new NormalizedKeySorter<BT>(this.buildSideSerializer, this.buildSideComparator, freeMemory);
+
+		BT record = this.buildSideSerializer.createInstance();
+		while ((record = input.next(record)) != null) {
+			if (!this.records.write(record)) {
+				throw new IOException("The input of the index does not fit into the " + this.availableMemory.size() +
+					" memory pages of the index.");
+			}
+		}
+
+		// sort the records by key. afterwards, all records of a key form a contiguous row
+		if (!this.records.isEmpty()) {
+			new QuickSort().sort(this.records);
+		}
+
+		// first pass to count the distinct keys, which determines the size of the directory
+		this.numKeys = 0;
+		scanRows(null);
+
+		final int numSlots = Math.max(MathUtils.roundDownToPowerOf2(Math.max(this.numKeys, 1)) << 2, 1);
+		final int slotsPerSegment = this.segmentSize / SLOT_SIZE;
+		final int numSegments = Math.max(numSlots / slotsPerSegment, 1);
+		if (numSegments > freeMemory.size()) {
+			throw new IOException("The directory of the index requires " + numSegments + " memory pages, but only " +
+				freeMemory.size() + " pages are left after storing the " + this.records.size() + " records.");
+		}
+
+		this.directory = new MemorySegment[numSegments];
+		for (int i = 0; i < numSegments; i++) {
+			final MemorySegment seg = freeMemory.remove(freeMemory.size() - 1);
+			for (int pos = 0; pos < this.segmentSize; pos += 8) {
+				seg.putLong(pos, 0L);
+			}
+			this.directory[i] = seg;
+		}
+		this.slotsPerSegmentBits = MathUtils.log2strict(slotsPerSegment);
+		this.slotsPerSegmentMask = slotsPerSegment - 1;
+		this.slotMask = Math.min(numSlots, numSegments * slotsPerSegment) - 1;
+
+		// second pass to register the rows in the directory
+		scanRows(this.directory);
+	}
+
+	/**
+	 * Closes the index and returns all memory that was given to it.
+	 *
+	 * @return The memory segments of the index.
+	 */
+	public List<MemorySegment> close() {
+		if (this.open) {
+			this.open = false;
+			this.records = null;
+			this.directory = null;
+		}
+		return this.availableMemory;
+	}
+
+	// ------------------------------------------------------------------------
+	//                                Access
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Gets the records of the index that share the key of the given probe side record. The returned iterator
+	 * is reused by subsequent calls to this method, which invalidate it.
+	 *
+	 * @param probeSideRecord The record to look up the matching records for.
+	 * @return An iterator over the matching records, which may be empty.
+	 * @throws IOException Thrown, if a candidate record could not be deserialized.
+	 */
+	public Iterator<BT> getMatchesFor(PT probeSideRecord) throws IOException {
+		final int hashCode = MutableHashTable.hash(this.probeSideComparator.hash(probeSideRecord), 0);
+		this.pairComparator.setReference(probeSideRecord);
+
+		int slot = hashCode & this.slotMask;
+		while (true) {
+			final MemorySegment seg = this.directory[slot >>> this.slotsPerSegmentBits];
+			final int offset = (slot & this.slotsPerSegmentMask) << SLOT_SIZE_BITS;
+
+			final int end = seg.getInt(offset + RANGE_END_OFFSET);
+			if (end == 0) {
+				// empty slot, the key is not contained
+				this.rowIterator.set(0, 0);
+				return this.rowIterator;
+			}
+
+			if (seg.getInt(offset + HASH_CODE_OFFSET) == hashCode) {
+				final int start = seg.getInt(offset + RANGE_START_OFFSET);
+				if (this.pairComparator.equalToReference(this.records.getRecord(this.candidate, start))) {
+					this.rowIterator.set(start, end);
+					return this.rowIterator;
+				}
+			}
+			slot = (slot + 1) & this.slotMask;
+		}
+	}
+
+	/**
+	 * Gets the number of records in the index.
+	 *
+	 * @return The number of records in the index.
+	 */
+	public int getNumRecords() {
+		return this.records == null ? 0 : this.records.size();
+	}
+
+	/**
+	 * Gets the number of distinct keys (rows) in the index.
+	 *
+	 * @return The number of distinct keys in the index.
+	 */
+	public int getNumKeys() {
+		return this.numKeys;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Scans the sorted records and identifies the rows. If no directory is given, the rows are only counted,
+	 * otherwise they are inserted into the directory.
+	 */
+	private void scanRows(MemorySegment[] directory) throws IOException {
+		final int numRecords = this.records.size();
+		final TypeComparator<BT> comparator = this.buildSideComparator;
+
+		// the comparator may keep the reference object, so we alternate between two instances
+		BT rowStart = this.buildSideSerializer.createInstance();
+		BT current = this.buildSideSerializer.createInstance();
+		int rowStartPos = 0;
+
+		for (int pos = 0; pos < numRecords; pos++) {
+			current = this.records.getRecord(current, pos);
+			if (pos == 0) {
+				comparator.setReference(current);
+			}
+			else if (!comparator.equalToReference(current)) {
+				addRow(directory, rowStart, rowStartPos, pos);
+				comparator.setReference(current);
+				rowStartPos = pos;
+			}
+			else {
+				continue;
+			}
+
+			final BT tmp = rowStart;
+			rowStart = current;
+			current = tmp;
+		}
+
+		if (numRecords > 0) {
+			addRow(directory, rowStart, rowStartPos, numRecords);
+		}
+	}
+
+	private void addRow(MemorySegment[] directory, BT firstRecord, int start, int end) {
+		if (directory == null) {
+			this.numKeys++;
+			return;
+		}
+
+		final int hashCode = MutableHashTable.hash(this.buildSideComparator.hash(firstRecord), 0);
+
+		int slot = hashCode & this.slotMask;
+		while (true) {
+			final MemorySegment seg = directory[slot >>> this.slotsPerSegmentBits];
+			final int offset = (slot & this.slotsPerSegmentMask) << SLOT_SIZE_BITS;
+
+			if (seg.getInt(offset + RANGE_END_OFFSET) == 0) {
+				seg.putInt(offset + HASH_CODE_OFFSET, hashCode);
+				seg.putInt(offset + RANGE_START_OFFSET, start);
+				seg.putInt(offset + RANGE_END_OFFSET, end);
+				return;
+			}
+			slot = (slot + 1) & this.slotMask;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Iterator over the records of one row.
+	 */
+	private final class RowIterator implements Iterator<BT> {
+
+		private final BT reuse;
+
+		private int next;
+
+		private int end;
+
+		private RowIterator(BT reuse) {
+			this.reuse = reuse;
+		}
+
+		private void set(int start, int end) {
+			this.next = start;
+			this.end = end;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.next < this.end;
+		}
+
+		@Override
+		public BT next() {
+			if (this.next < this.end) {
+				try {
+					return records.getRecord(this.reuse, this.next++);
+				}
+				catch (IOException ioex) {
+					throw new RuntimeException("Error reading record from the index: " + ioex.getMessage(), ioex);
+				}
+			} else {
+				throw new NoSuchElementException();
+			}
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
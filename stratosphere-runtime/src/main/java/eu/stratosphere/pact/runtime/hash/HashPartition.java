@@ -17,6 +17,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import eu.stratosphere.api.common.typeutils.TypeComparator;
@@ -305,6 +306,63 @@ public class HashPartition<BT, PT> extends AbstractPagedInputView implements See
 		return this.buildSideWriteBuffer.spill(this.buildSideChannel);
 	}
 	
+	/**
+	 * Replaces the given memory segments in the build side buffers and overflow buckets of this in-memory partition
+	 * by copies. The buckets address their overflow segments and the build side records by position, so the copies
+	 * take the place of the replaced segments without further changes.
+	 * 
+	 * @param segments The memory segments to replace.
+	 * @param freeMemory The free memory to take the copies from.
+	 * @return The replaced segments.
+	 */
+	final List<MemorySegment> replaceSegments(Set<MemorySegment> segments, List<MemorySegment> freeMemory) {
+		final List<MemorySegment> replaced = new ArrayList<MemorySegment>();
+		
+		final ArrayList<MemorySegment> targetList = this.buildSideWriteBuffer.targetList;
+		for (int i = 0; i < targetList.size(); i++) {
+			final MemorySegment seg = targetList.get(i);
+			if (segments.contains(seg)) {
+				final MemorySegment copy = freeMemory.remove(freeMemory.size() - 1);
+				seg.copyTo(0, copy, 0, seg.size());
+				targetList.set(i, copy);
+				replaced.add(seg);
+			}
+		}
+		for (int i = 0; i < this.numOverflowSegments; i++) {
+			final MemorySegment seg = this.overflowSegments[i];
+			if (segments.contains(seg)) {
+				final MemorySegment copy = freeMemory.remove(freeMemory.size() - 1);
+				seg.copyTo(0, copy, 0, seg.size());
+				this.overflowSegments[i] = copy;
+				replaced.add(seg);
+			}
+		}
+		if (segments.contains(this.buildSideWriteBuffer.getCurrentSegment())) {
+			replaced.add(this.buildSideWriteBuffer.replaceCurrentSegment(freeMemory.remove(freeMemory.size() - 1)));
+		}
+		return replaced;
+	}
+	
+	/**
+	 * Gets the build side buffer that this partition currently writes to.
+	 * 
+	 * @return The current build side buffer.
+	 */
+	final MemorySegment getCurrentBuildSideBuffer() {
+		return this.buildSideWriteBuffer.getCurrentSegment();
+	}
+	
+	/**
+	 * Copies the contents of the current build side buffer to the given segment, which then becomes the current
+	 * build side buffer.
+	 * 
+	 * @param replacement The segment to continue writing the build side to.
+	 * @return The replaced build side buffer.
+	 */
+	final MemorySegment replaceCurrentBuildSideBuffer(MemorySegment replacement) {
+		return this.buildSideWriteBuffer.replaceCurrentSegment(replacement);
+	}
+	
 	/**
 	 * @param spilledPartitions
 	 * @param ioAccess
@@ -554,6 +612,14 @@ public class HashPartition<BT, PT> extends AbstractPagedInputView implements See
 			return this.currentBlockNumber + 1;
 		}
 		
+		MemorySegment replaceCurrentSegment(MemorySegment replacement) {
+			final MemorySegment current = getCurrentSegment();
+			final int position = getCurrentPositionInSegment();
+			current.copyTo(0, replacement, 0, position);
+			seekOutput(replacement, position);
+			return current;
+		}
+		
 		int spill(BlockChannelWriter writer) throws IOException
 		{
 			this.writer = writer;
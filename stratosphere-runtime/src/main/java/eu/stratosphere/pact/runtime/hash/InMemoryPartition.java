@@ -15,6 +15,7 @@ package eu.stratosphere.pact.runtime.hash;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,6 +26,7 @@ import eu.stratosphere.core.memory.SeekableDataInputView;
 import eu.stratosphere.nephele.services.memorymanager.AbstractPagedInputView;
 import eu.stratosphere.nephele.services.memorymanager.AbstractPagedOutputView;
 import eu.stratosphere.nephele.services.memorymanager.ListMemorySegmentSource;
+import eu.stratosphere.runtime.io.serialization.DataOutputSerializer;
 
 /**
  * In-memory partition with overflow buckets for {@link CompactingHashTable}
@@ -55,6 +57,8 @@ public class InMemoryPartition<T> {
 	
 	private final ReadView readView;
 	
+	private DataOutputSerializer scratchBuffer;	// serialized record of the last replacement, created lazily
+	
 	private long recordCounter;				// number of records in this partition including garbage
 	
 	// ----------------------------------------- General ------------------------------------------------
@@ -191,6 +195,80 @@ public class InMemoryPartition<T> {
 		this.serializer.deserialize(record, this.readView);
 	}
 	
+	/**
+	 * Gets the position right behind the record that was read last by {@link #readRecordAt(long, Object)}.
+	 * The difference to the pointer of that record is its serialized length.
+	 * 
+	 * @return pointer to the end of the last read record
+	 */
+	public long getReadPosition() {
+		return this.readView.getReadPosition();
+	}
+	
+	/**
+	 * Gets the position right behind the record that was appended last. The difference to the pointer of that
+	 * record is its serialized length.
+	 * 
+	 * @return pointer to the end of the last appended record
+	 */
+	public long getAppendPosition() {
+		return this.writeView.getCurrentPointer();
+	}
+	
+	/**
+	 * Replaces the record at the given position. If the new record has the same serialized length as the old
+	 * one, it is written in place and no garbage is created. Otherwise the new record is appended and the old
+	 * one becomes garbage.
+	 * <p>
+	 * For serializers with a fixed length, the record is always written in place. For all others, the record
+	 * is serialized once into a scratch buffer to find out its length, and the serialized bytes are then copied
+	 * to their final position. Writing in place never needs additional memory.
+	 * 
+	 * @param pointer pointer to start of the old record
+	 * @param length serialized length of the old record
+	 * @param record record to replace the old one with
+	 * @return pointer to the new record, which is the given pointer if the record was written in place
+	 * @throws IOException Thrown when the partition ran out of memory while appending the record.
+	 */
+	public long replaceRecord(long pointer, int length, T record) throws IOException {
+		if (this.serializer.getLength() > 0) {
+			overwriteRecordAt(pointer, record);
+			return pointer;
+		}
+		
+		if (this.scratchBuffer == null) {
+			this.scratchBuffer = new DataOutputSerializer(Math.max(length, 64));
+		}
+		this.scratchBuffer.clear();
+		this.serializer.serialize(record, this.scratchBuffer);
+		final ByteBuffer serialized = this.scratchBuffer.wrapAsByteBuffer();
+		
+		if (serialized.limit() == length) {
+			// same length, so we write it in place
+			final MemorySegment currentSegment = this.writeView.getCurrentSegment();
+			final int currentPosition = this.writeView.getCurrentPositionInSegment();
+			final int currentPageNumber = this.writeView.currentPageNumber;
+			
+			this.writeView.resetTo(pointer);
+			this.writeView.write(serialized.array(), 0, length);
+			this.writeView.restore(currentSegment, currentPageNumber, currentPosition);
+			return pointer;
+		}
+		
+		final long newPointer = this.writeView.getCurrentPointer();
+		try {
+			this.writeView.write(serialized.array(), 0, serialized.limit());
+		}
+		catch (EOFException e) {
+			// we ran out of pages, so we forget about the partially written record
+			this.writeView.resetTo(newPointer);
+			throw e;
+		}
+		this.recordCounter++;
+		this.compacted = false;
+		return newPointer;
+	}
+	
 	/**
 	 * UNSAFE!! overwrites record
 	 * causes inconsistency or data loss for overwriting everything but records of the exact same size
@@ -199,12 +277,14 @@ public class InMemoryPartition<T> {
 	 * @param record record to overwrite old one with
 	 * @throws IOException
 	 */
-	@Deprecated
 	public void overwriteRecordAt(long pointer, T record) throws IOException {
-		long tmpPointer = this.writeView.getCurrentPointer();
+		final MemorySegment currentSegment = this.writeView.getCurrentSegment();
+		final int currentPosition = this.writeView.getCurrentPositionInSegment();
+		final int currentPageNumber = this.writeView.currentPageNumber;
+		
 		this.writeView.resetTo(pointer);
 		this.serializer.serialize(record, this.writeView);
-		this.writeView.resetTo(tmpPointer);
+		this.writeView.restore(currentSegment, currentPageNumber, currentPosition);
 	}
 	
 	/**
@@ -284,11 +364,18 @@ public class InMemoryPartition<T> {
 
 		@Override
 		protected MemorySegment nextSegment(MemorySegment current, int bytesUsed) throws IOException {
-			MemorySegment next = this.memSource.nextSegment();
-			if(next == null) {
-				throw new EOFException();
+			// after a reset, or for preallocated pages, the next page may already be there
+			final int nextPosInArray = this.currentPageNumber + 1 - this.segmentNumberOffset;
+			final MemorySegment next;
+			if (nextPosInArray < this.pages.size()) {
+				next = this.pages.get(nextPosInArray);
+			} else {
+				next = this.memSource.nextSegment();
+				if(next == null) {
+					throw new EOFException();
+				}
+				this.pages.add(next);
 			}
-			this.pages.add(next);
 			
 			this.currentPageNumber++;
 			return next;
@@ -310,6 +397,11 @@ public class InMemoryPartition<T> {
 			return posInArray;
 		}
 		
+		private void restore(MemorySegment segment, int pageNumber, int positionInSegment) {
+			this.currentPageNumber = pageNumber;
+			seekOutput(segment, positionInSegment);
+		}
+		
 		public void setSegmentNumberOffset(int offset) {
 			this.segmentNumberOffset = offset;
 		}
@@ -364,6 +456,11 @@ public class InMemoryPartition<T> {
 			seekInput(this.segments.get(bufferNum), offset, this.segmentSizeMask + 1);
 		}
 		
+		private long getReadPosition() {
+			return (((long) (this.currentSegmentIndex + this.segmentNumberOffset)) << this.segmentSizeBits) +
+					getCurrentPositionInSegment();
+		}
+		
 		public void setSegmentNumberOffset(int offset) {
 			this.segmentNumberOffset = offset;
 		}
@@ -16,9 +16,12 @@ package eu.stratosphere.pact.runtime.hash;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -35,6 +38,9 @@ import eu.stratosphere.nephele.services.iomanager.Channel;
 import eu.stratosphere.nephele.services.iomanager.ChannelReaderInputView;
 import eu.stratosphere.nephele.services.iomanager.HeaderlessChannelReaderInputView;
 import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.nephele.services.memorymanager.RevocableMemoryConsumer;
+import eu.stratosphere.nephele.template.AbstractInvokable;
 import eu.stratosphere.pact.runtime.io.ChannelReaderInputViewIterator;
 import eu.stratosphere.pact.runtime.iterative.io.HashPartitionIterator;
 import eu.stratosphere.pact.runtime.util.MathUtils;
@@ -84,7 +90,7 @@ import eu.stratosphere.util.MutableObjectIterator;
  * @param <BT> The type of records from the build side that are stored in the hash table.
  * @param <PT> The type of records from the probe side that are stored in the hash table.
  */
-public class MutableHashTable<BT, PT> implements MemorySegmentSource {
+public class MutableHashTable<BT, PT> implements MemorySegmentSource, RevocableMemoryConsumer {
 	
 	private static final Log LOG = LogFactory.getLog(MutableHashTable.class);
 	
@@ -102,6 +108,11 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 	 */
 	private static final int MIN_NUM_MEMORY_SEGMENTS = 33;
 	
+	/**
+	 * The number of pages that are borrowed at once from the memory manager, if elastic memory is used.
+	 */
+	private static final int NUM_PAGES_TO_BORROW = 8;
+	
 	/**
 	 * The maximum number of partitions, which defines the spilling granularity. Each recursion, the
 	 * data is divided maximally into that many partitions, which are processed in one chuck.
@@ -342,6 +353,43 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 	protected boolean furtherPartitioning = false;
 	
 	private boolean running = true;
+	
+	/**
+	 * The memory manager to borrow additional pages from, or null, if the table works only with its own memory.
+	 */
+	private MemoryManager elasticMemoryManager;
+	
+	/**
+	 * The owner of the borrowed pages.
+	 */
+	private AbstractInvokable elasticMemoryOwner;
+	
+	/**
+	 * The pages borrowed from the memory manager, beyond the initially given memory. Only the pages in this set
+	 * are returned when the memory manager revokes pages.
+	 */
+	private final Set<MemorySegment> borrowedSegments = new HashSet<MemorySegment>();
+	
+	/**
+	 * The number of borrowed pages, readable by the thread that revokes pages.
+	 */
+	private volatile int numBorrowedPages;
+	
+	/**
+	 * The number of borrowed pages that the memory manager requested back and that the table promised to return.
+	 * Changes are guarded by the revocation lock.
+	 */
+	private final AtomicInteger numPagesToReturn = new AtomicInteger();
+	
+	/**
+	 * The lock that guards the number of borrowed pages and the number of pages to return.
+	 */
+	private final Object revocationLock = new Object();
+	
+	/**
+	 * Flag whether the table currently builds a table and may hence borrow pages.
+	 */
+	private boolean borrowing;
 
 	// ------------------------------------------------------------------------
 	//                         Construction and Teardown
@@ -656,12 +704,41 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 				throw new RuntimeException("Hashtable closing was interrupted");
 			}
 		}
+		
+		// the borrowed pages go back to the memory manager, only the own memory is freed to the caller
+		this.borrowing = false;
+		releaseBorrowedPages(Integer.MAX_VALUE);
 	}
 	
 	public void abort() {
 		this.running = false;
 	}
 	
+	/**
+	 * Lets the hash table borrow unused pages from the given memory manager before it spills partitions. Pages are
+	 * only borrowed while a table is built. Revoked pages are returned at the next page the table takes, spilling
+	 * partitions if necessary. When the build phase ends, all borrowed pages are returned, such that the table is
+	 * probed with its own memory only. Borrowed pages are never part of the memory returned by
+	 * {@link #getFreedMemory()}.
+	 * 
+	 * @param memoryManager The memory manager to borrow pages from.
+	 * @param owner The owner of the borrowed pages.
+	 */
+	public void setElasticMemory(MemoryManager memoryManager, AbstractInvokable owner) {
+		this.elasticMemoryManager = memoryManager;
+		this.elasticMemoryOwner = owner;
+	}
+	
+	@Override
+	public int revokePages(int numPages) {
+		synchronized (this.revocationLock) {
+			// every borrowed page is returned at the latest when the build phase ends, so all of them can be promised
+			final int promised = Math.max(0, Math.min(numPages, this.numBorrowedPages - this.numPagesToReturn.get()));
+			this.numPagesToReturn.addAndGet(promised);
+			return promised;
+		}
+	}
+	
 	public List<MemorySegment> getFreedMemory() {
 		if (!this.closed.get()) {
 			throw new IllegalStateException("Cannot return memory while join is open.");
@@ -697,6 +774,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		BT record = this.buildSideSerializer.createInstance();
 
 		// go over the complete input and insert every element into the hash table
+		beginBuildPhase();
 		while (this.running && ((record = input.next(record)) != null)) {
 			final int hashCode = hash(buildTypeComparator.hash(record), 0);
 			insertIntoTable(record, hashCode);
@@ -707,6 +785,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		}
 
 		// finalize the partitions
+		endBuildPhase();
 		for (int i = 0; i < this.partitionsBeingBuilt.size(); i++) {
 			HashPartition<BT, PT> p = this.partitionsBeingBuilt.get(i);
 			p.finalizeBuildPhase(this.ioManager, this.currentEnumerator, this.writeBehindBuffers);
@@ -733,7 +812,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		// 2) We can not guarantee that enough memory segments are available and read the partition
 		//    in, distributing its data among newly created partitions.
 		final int totalBuffersAvailable = this.availableMemory.size() + this.writeBehindBuffersAvailable;
-		if (totalBuffersAvailable != this.totalNumBuffers - this.numWriteBehindBuffers) {
+		if (totalBuffersAvailable != this.totalNumBuffers + this.borrowedSegments.size() - this.numWriteBehindBuffers) {
 			throw new RuntimeException("Hash Join bug in memory management: Memory buffers leaked.");
 		}
 		
@@ -813,6 +892,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 					this.availableMemory, this.buildSideSerializer);
 			final TypeComparator<BT> btComparator = this.buildSideComparator;
 			BT rec = this.buildSideSerializer.createInstance();
+			beginBuildPhase();
 			while ((rec = inIter.next(rec)) != null)
 			{	
 				final int hashCode = hash(btComparator.hash(rec), nextRecursionLevel);
@@ -820,6 +900,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 			}
 
 			// finalize the partitions
+			endBuildPhase();
 			for (int i = 0; i < this.partitionsBeingBuilt.size(); i++) {
 				HashPartition<BT, PT> part = this.partitionsBeingBuilt.get(i);
 				part.finalizeBuildPhase(this.ioManager, this.currentEnumerator, this.writeBehindBuffers);
@@ -922,6 +1003,9 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 			if (p.nextOverflowBucket == 0) {
 				// no space left in last bucket, or no bucket yet, so create an overflow segment
 				overflowSeg = getNextBuffer();
+				if (overflowSeg == null) {
+					overflowSeg = borrowPage();
+				}
 				if (overflowSeg == null) {
 					// no memory available to create overflow bucket. we need to spill a partition
 					final int spilledPart = spillPartition();
@@ -1093,7 +1177,18 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 				largestPartNum = i;
 			}
 		}
-		final HashPartition<BT, PT> p = partitions.get(largestPartNum);
+		
+		spillPartition(largestPartNum);
+		return largestPartNum;
+	}
+	
+	/**
+	 * Spills the given partition.
+	 * 
+	 * @param partNum The number of the partition to spill.
+	 */
+	private void spillPartition(int partNum) throws IOException {
+		final HashPartition<BT, PT> p = this.partitionsBeingBuilt.get(partNum);
 		
 		// spill the partition
 		int numBuffersFreed = p.spillPartition(this.availableMemory, this.ioManager, 
@@ -1105,7 +1200,6 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 			this.availableMemory.add(currBuff);
 			this.writeBehindBuffersAvailable--;
 		}
-		return largestPartNum;
 	}
 	
 	/**
@@ -1143,6 +1237,11 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 	 *                     signatures.
 	 */
 	final MemorySegment getNextBuffer() {
+		// return revoked pages before taking a new one
+		if (this.numPagesToReturn.get() > 0) {
+			releaseBorrowedPages(this.numPagesToReturn.get());
+		}
+		
 		// check if the list directly offers memory
 		int s = this.availableMemory.size();
 		if (s > 0) {
@@ -1175,25 +1274,201 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 	}
 	
 
+	/**
+	 * Borrows pages from the memory manager, if elastic memory is enabled, a table is being built, and no pages
+	 * have been revoked.
+	 * 
+	 * @return A borrowed page, or null, if no page could be borrowed.
+	 */
+	private MemorySegment borrowPage() {
+		if (this.elasticMemoryManager == null || !this.borrowing || this.numPagesToReturn.get() > 0) {
+			return null;
+		}
+		
+		final List<MemorySegment> pages = this.elasticMemoryManager.allocateRevocablePages(this.elasticMemoryOwner,
+			this, NUM_PAGES_TO_BORROW);
+		if (pages.isEmpty()) {
+			return null;
+		}
+		
+		this.borrowedSegments.addAll(pages);
+		synchronized (this.revocationLock) {
+			this.numBorrowedPages = this.borrowedSegments.size();
+		}
+		final MemorySegment seg = pages.remove(pages.size() - 1);
+		this.availableMemory.addAll(pages);
+		return seg;
+	}
+	
+	/**
+	 * Returns up to the given number of borrowed pages to the memory manager. Only borrowed pages that are
+	 * currently free are returned. Returned pages count against the pages that the memory manager revoked.
+	 * 
+	 * @param maxPages The maximum number of pages to return.
+	 * @return The number of returned pages.
+	 */
+	private int releaseBorrowedPages(int maxPages) {
+		if (this.borrowedSegments.isEmpty() || maxPages <= 0) {
+			return 0;
+		}
+		
+		final List<MemorySegment> pages = new ArrayList<MemorySegment>();
+		for (int i = this.availableMemory.size() - 1; i >= 0 && pages.size() < maxPages; i--) {
+			if (this.borrowedSegments.remove(this.availableMemory.get(i))) {
+				pages.add(this.availableMemory.remove(i));
+			}
+		}
+		if (pages.isEmpty()) {
+			return 0;
+		}
+		
+		// the pages count as borrowed until they are back, such that concurrent revocations can still be promised
+		this.elasticMemoryManager.release(pages);
+		synchronized (this.revocationLock) {
+			this.numBorrowedPages = this.borrowedSegments.size();
+			this.numPagesToReturn.set(Math.max(0, this.numPagesToReturn.get() - pages.size()));
+		}
+		return pages.size();
+	}
+	
+	/**
+	 * Starts borrowing pages, because a table is being built, which takes new pages as it grows.
+	 */
+	private void beginBuildPhase() {
+		this.borrowing = this.elasticMemoryManager != null;
+	}
+	
+	/**
+	 * Stops borrowing pages and returns all borrowed pages, because the table is complete and is only probed
+	 * afterwards. While probing, the in-memory partitions cannot be spilled, so they could not give back pages
+	 * that are revoked. The borrowed pages that are still in use are copied into own pages. If there are not
+	 * enough free own pages, the largest partitions are spilled first, which frees the pages for the copies with
+	 * the fewest spilled partitions.
+	 */
+	private void endBuildPhase() throws IOException {
+		if (this.elasticMemoryManager == null) {
+			return;
+		}
+		this.borrowing = false;
+		
+		reclaimWriteBehindBuffers();
+		releaseBorrowedPages(Integer.MAX_VALUE);
+		
+		// all free pages are own pages now, and every remaining borrowed page is in use
+		while (this.borrowedSegments.size() > this.availableMemory.size()) {
+			if (!hasSpillablePartition()) {
+				throw new RuntimeException("Bug in Hybrid Hash Join: No own memory left to replace borrowed memory.");
+			}
+			spillPartition();
+			reclaimWriteBehindBuffers();
+			releaseBorrowedPages(Integer.MAX_VALUE);
+		}
+		
+		for (int i = 0; i < this.partitionsBeingBuilt.size() && !this.borrowedSegments.isEmpty(); i++) {
+			final HashPartition<BT, PT> p = this.partitionsBeingBuilt.get(i);
+			if (p.isInMemory()) {
+				this.availableMemory.addAll(p.replaceSegments(this.borrowedSegments, this.availableMemory));
+			} else if (this.borrowedSegments.contains(p.getCurrentBuildSideBuffer())) {
+				this.availableMemory.add(p.replaceCurrentBuildSideBuffer(takeOwnPage()));
+			}
+			releaseBorrowedPages(Integer.MAX_VALUE);
+		}
+		
+		if (!this.borrowedSegments.isEmpty()) {
+			throw new RuntimeException("Bug in Hybrid Hash Join: Borrowed memory could not be returned.");
+		}
+	}
+	
+	/**
+	 * Takes a free page that is not borrowed from the available memory.
+	 * 
+	 * @return The page, or null, if all free pages are borrowed.
+	 */
+	private MemorySegment takeOwnPage() {
+		for (int i = this.availableMemory.size() - 1; i >= 0; i--) {
+			if (!this.borrowedSegments.contains(this.availableMemory.get(i))) {
+				return this.availableMemory.remove(i);
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Waits for all pending writes and takes all write-behind buffers back. The table's own pages are preferred
+	 * to serve as the write-behind buffers again, such that the borrowed ones are free.
+	 */
+	private void reclaimWriteBehindBuffers() {
+		ensureNumBuffersReturned(this.availableMemory.size() + this.writeBehindBuffersAvailable);
+		try {
+			for (int i = 0; i < this.numWriteBehindBuffers; i++) {
+				this.availableMemory.add(this.writeBehindBuffers.take());
+			}
+		}
+		catch (InterruptedException iex) {
+			throw new RuntimeException("Hash Join was interrupted.");
+		}
+		
+		int numWriteBehind = 0;
+		for (int i = this.availableMemory.size() - 1; i >= 0 && numWriteBehind < this.numWriteBehindBuffers; i--) {
+			if (!this.borrowedSegments.contains(this.availableMemory.get(i))) {
+				this.writeBehindBuffers.add(this.availableMemory.remove(i));
+				numWriteBehind++;
+			}
+		}
+		for (; numWriteBehind < this.numWriteBehindBuffers; numWriteBehind++) {
+			this.writeBehindBuffers.add(this.availableMemory.remove(this.availableMemory.size() - 1));
+		}
+	}
+	
+	/**
+	 * Checks whether a partition that is still in memory can be spilled.
+	 */
+	private boolean hasSpillablePartition() {
+		for (int i = 0; i < this.partitionsBeingBuilt.size(); i++) {
+			final HashPartition<BT, PT> p = this.partitionsBeingBuilt.get(i);
+			if (p.isInMemory() && p.getBuildSideBlockCount() > 1) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public MemorySegment nextSegment() {
-		final MemorySegment seg = getNextBuffer();
-		if (seg == null) {
-			try {
-				spillPartition();
-			} catch (IOException ioex) {
-				throw new RuntimeException("Error spilling Hash Join Partition" + (ioex.getMessage() == null ?
-					"." : ": " + ioex.getMessage()), ioex);
+		// revoked pages that are not free are freed by spilling a partition
+		if (this.numPagesToReturn.get() > 0) {
+			releaseBorrowedPages(this.numPagesToReturn.get());
+			if (this.numPagesToReturn.get() > 0 && hasSpillablePartition()) {
+				spillPartitionForSegment();
 			}
+		}
+		
+		MemorySegment seg = getNextBuffer();
+		if (seg == null) {
+			seg = borrowPage();
+		}
+		if (seg == null) {
+			spillPartitionForSegment();
+			seg = getNextBuffer();
 			
-			MemorySegment fromSpill = getNextBuffer();
-			if (fromSpill == null) {
+			// the spilled partition may have held only revoked pages, which have been returned
+			while (seg == null && hasSpillablePartition()) {
+				spillPartitionForSegment();
+				seg = getNextBuffer();
+			}
+			if (seg == null) {
 				throw new RuntimeException("BUG in Hybrid Hash Join: Spilling did not free a buffer.");
-			} else {
-				return fromSpill;
 			}
-		} else {
-			return seg;
+		}
+		return seg;
+	}
+	
+	private void spillPartitionForSegment() {
+		try {
+			spillPartition();
+		} catch (IOException ioex) {
+			throw new RuntimeException("Error spilling Hash Join Partition" + (ioex.getMessage() == null ?
+				"." : ": " + ioex.getMessage()), ioex);
 		}
 	}
 
@@ -23,6 +23,8 @@ import eu.stratosphere.api.common.typeutils.TypeSerializer;
 import eu.stratosphere.core.memory.MemorySegment;
 import eu.stratosphere.nephele.services.iomanager.Channel;
 import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.nephele.template.AbstractInvokable;
 import eu.stratosphere.util.MutableObjectIterator;
 
 public class ReOpenableMutableHashTable<BT, PT> extends MutableHashTable<BT, PT> {
@@ -59,6 +61,13 @@ public class ReOpenableMutableHashTable<BT, PT> extends MutableHashTable<BT, PT>
 		spilledInMemoryPartitions = ioManager.createChannelEnumerator();
 	}
 	
+	/**
+	 * Re-openable tables keep their build side across probe phases, so borrowed pages could not be given back
+	 * when they are revoked. They hence work only with their own memory.
+	 */
+	@Override
+	public void setElasticMemory(MemoryManager memoryManager, AbstractInvokable owner) {}
+	
 	@Override
 	public void open(MutableObjectIterator<BT> buildSide,
 			MutableObjectIterator<PT> probeSide) throws IOException {
@@ -92,7 +92,33 @@ public class SpillingBuffer extends AbstractPagedOutputView {
 		}
 	}
 	
+	/**
+	 * Checks whether the buffer ran out of memory and had to spill its contents to disk.
+	 * 
+	 * @return True, if the buffer spilled, false, if all data is held in memory.
+	 */
+	public boolean isSpilled() {
+		return this.writer != null;
+	}
+	
 	public DataInputView flip() throws IOException {
+		return flip(Integer.MAX_VALUE, null);
+	}
+	
+	/**
+	 * Flips the buffer like {@link #flip()}. If the buffer spilled, the data is read back with at most the given number
+	 * of memory segments and the remaining segments are handed over to the given list. Segments are only handed over
+	 * on the first flip. They are no longer owned by this buffer and are not returned by {@link #close()}.
+	 * 
+	 * @param maxNumReadSegments The maximal number of segments to read spilled data with.
+	 * @param releasedSegments The list to add the segments to that are not needed to read spilled data.
+	 * @return A view over the buffered data.
+	 */
+	public DataInputView flip(int maxNumReadSegments, List<MemorySegment> releasedSegments) throws IOException {
+		if (maxNumReadSegments < 1) {
+			throw new IllegalArgumentException("At least one segment is needed to read spilled data.");
+		}
+		
 		// check whether this is the first flip and we need to add the current segment to the full ones
 		if (getCurrentSegment() != null) {
 			// first flip
@@ -113,6 +139,13 @@ public class SpillingBuffer extends AbstractPagedOutputView {
 					this.fullSegments.add(this.writer.getNextReturnedSegment());
 				}
 				this.numMemorySegmentsInWriter = 0;
+				
+				// hand over the segments that are not needed for reading
+				if (releasedSegments != null) {
+					while (this.fullSegments.size() > maxNumReadSegments) {
+						releasedSegments.add(this.fullSegments.remove(this.fullSegments.size() - 1));
+					}
+				}
 			}
 			
 			// make sure we cannot write more
@@ -0,0 +1,137 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.iterative.concurrent;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import eu.stratosphere.api.common.aggregators.Aggregator;
+import eu.stratosphere.api.common.aggregators.AggregatorWithName;
+import eu.stratosphere.pact.runtime.iterative.event.WorkerDoneEvent;
+import eu.stratosphere.types.Value;
+import eu.stratosphere.util.InstantiationUtil;
+
+/**
+ * Pre-aggregates the {@link WorkerDoneEvent}s of all iteration heads of one iteration that run in the same
+ * TaskManager. Instead of every head sending its aggregates to the synchronization task, the heads hand them to
+ * the combiner, and only the last head of a superstep sends a single event carrying the combined aggregates and
+ * the number of heads it stands for. The synchronization task hence receives one event per TaskManager rather
+ * than one event per head.
+ * <p>
+ * Heads join the combiner before their first superstep. Because not all heads of a TaskManager may have joined
+ * by the end of the first superstep, the heads must send their events for the first superstep directly. From the
+ * second superstep on, all heads have joined, since no superstep starts before every head finished the first one.
+ */
+public class WorkerDoneEventCombiner {
+
+	/** the combiners of all iterations currently running in this JVM */
+	private static final Map<String, WorkerDoneEventCombiner> COMBINERS = new HashMap<String, WorkerDoneEventCombiner>();
+
+	private final Map<String, Aggregator<?>> aggregators;
+
+	private int numWorkers;
+
+	private int numWorkersDone;
+
+
+	private WorkerDoneEventCombiner(Collection<AggregatorWithName<?>> aggs) {
+		this.aggregators = new HashMap<String, Aggregator<?>>();
+		for (AggregatorWithName<?> agg : aggs) {
+			this.aggregators.put(agg.getName(), InstantiationUtil.instantiate(agg.getAggregator(), Aggregator.class));
+		}
+	}
+
+	/**
+	 * Registers a head at the combiner for the given key, creating the combiner if necessary.
+	 *
+	 * @param key The key identifying the iteration (but not the head) within the JVM.
+	 * @param aggs The aggregators of the iteration.
+	 * @return The combiner shared by all heads that joined with the same key.
+	 */
+	public static WorkerDoneEventCombiner join(String key, Collection<AggregatorWithName<?>> aggs) {
+		synchronized (COMBINERS) {
+			WorkerDoneEventCombiner combiner = COMBINERS.get(key);
+			if (combiner == null) {
+				combiner = new WorkerDoneEventCombiner(aggs);
+				COMBINERS.put(key, combiner);
+			}
+			synchronized (combiner) {
+				combiner.numWorkers++;
+			}
+			return combiner;
+		}
+	}
+
+	/**
+	 * Unregisters a head from the combiner for the given key. The combiner is dropped once the last head left.
+	 *
+	 * @param key The key the head joined with.
+	 */
+	public static void leave(String key) {
+		synchronized (COMBINERS) {
+			WorkerDoneEventCombiner combiner = COMBINERS.get(key);
+			if (combiner != null) {
+				synchronized (combiner) {
+					if (--combiner.numWorkers == 0) {
+						COMBINERS.remove(key);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the aggregates of a head that finished the current superstep.
+	 *
+	 * @param workerIndex The index of the head.
+	 * @param workerAggregators The aggregators of the head.
+	 * @return The event with the combined aggregates of all heads, if this head was the last one to finish the
+	 *         superstep, or <code>null</code>, if other heads are still working.
+	 */
+	public synchronized WorkerDoneEvent combine(int workerIndex, Map<String, Aggregator<?>> workerAggregators) {
+		if (this.numWorkersDone == 0) {
+			// the event of the previous superstep refers to the aggregates, so they are only reset now that
+			// the previous superstep is globally finished
+			for (Aggregator<?> agg : this.aggregators.values()) {
+				agg.reset();
+			}
+		}
+
+		for (Map.Entry<String, Aggregator<?>> entry : workerAggregators.entrySet()) {
+			@SuppressWarnings("unchecked")
+			Aggregator<Value> aggregator = (Aggregator<Value>) this.aggregators.get(entry.getKey());
+			if (aggregator == null) {
+				throw new IllegalArgumentException("Unknown aggregator '" + entry.getKey() + "'.");
+			}
+			aggregator.aggregate(entry.getValue().getAggregate());
+		}
+
+		if (++this.numWorkersDone == this.numWorkers) {
+			this.numWorkersDone = 0;
+			return new WorkerDoneEvent(workerIndex, this.aggregators, this.numWorkers);
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Gets the number of heads that currently share this combiner.
+	 *
+	 * @return The number of heads that joined and did not leave yet.
+	 */
+	public synchronized int getNumberOfWorkers() {
+		return this.numWorkers;
+	}
+}
@@ -25,6 +25,8 @@ public class WorkerDoneEvent extends IterationEventWithAggregators {
 	
 	private int workerIndex;
 	
+	private int numberOfWorkers = 1;
+	
 	public WorkerDoneEvent() {
 		super();
 	}
@@ -39,19 +41,41 @@ public class WorkerDoneEvent extends IterationEventWithAggregators {
 		this.workerIndex = workerIndex;
 	}
 	
+	/**
+	 * Creates an event that reports the combined aggregates of several workers.
+	 * 
+	 * @param workerIndex The index of the worker sending the event.
+	 * @param aggregators The combined aggregators.
+	 * @param numberOfWorkers The number of workers whose aggregates are combined in this event.
+	 */
+	public WorkerDoneEvent(int workerIndex, Map<String, Aggregator<?>> aggregators, int numberOfWorkers) {
+		super(aggregators);
+		if (numberOfWorkers < 1) {
+			throw new IllegalArgumentException("The number of workers must be positive.");
+		}
+		this.workerIndex = workerIndex;
+		this.numberOfWorkers = numberOfWorkers;
+	}
+	
 	public int getWorkerIndex() {
 		return workerIndex;
 	}
 	
+	public int getNumberOfWorkers() {
+		return numberOfWorkers;
+	}
+	
 	@Override
 	public void write(DataOutput out) throws IOException {
 		out.writeInt(this.workerIndex);
+		out.writeInt(this.numberOfWorkers);
 		super.write(out);
 	}
 	
 	@Override
 	public void read(DataInput in) throws IOException {
 		this.workerIndex = in.readInt();
+		this.numberOfWorkers = in.readInt();
 		super.read(in);
 	}
 }
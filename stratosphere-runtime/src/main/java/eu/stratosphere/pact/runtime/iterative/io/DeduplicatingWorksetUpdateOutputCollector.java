@@ -0,0 +1,111 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.iterative.io;
+
+import java.io.IOException;
+import java.util.List;
+
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.core.memory.DataOutputView;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.pact.runtime.sort.NormalizedKeySorter;
+import eu.stratosphere.pact.runtime.sort.QuickSort;
+import eu.stratosphere.pact.runtime.util.KeyGroupedIterator;
+import eu.stratosphere.util.Collector;
+
+/**
+ * A {@link WorksetUpdateOutputCollector} that writes only one element per key to the workset.
+ * <p/>
+ * The records are collected in a sort buffer. When the buffer is full, and when the collector is closed at the end
+ * of the superstep, the buffer is sorted and the first record of each key is written to the workset. The buffer is
+ * sorted with the order comparator, which may extend the key by further fields to decide which record of a key is
+ * kept. Duplicates are hence only removed within the contents of one buffer.
+ */
+public class DeduplicatingWorksetUpdateOutputCollector<T> extends WorksetUpdateOutputCollector<T> {
+
+	private final NormalizedKeySorter<T> sorter;
+
+	private final TypeSerializer<T> serializer;
+
+	private final TypeComparator<T> keyComparator;
+
+	private final QuickSort sortAlgo = new QuickSort();
+
+	public DeduplicatingWorksetUpdateOutputCollector(DataOutputView outputView, TypeSerializer<T> serializer,
+			Collector<T> delegate, TypeComparator<T> keyComparator, TypeComparator<T> orderComparator,
+			List<MemorySegment> memory)
+	{
+		super(outputView, serializer, delegate);
+
+		this.serializer = serializer;
+		this.keyComparator = keyComparator;
+		this.sorter = new NormalizedKeySorter<T>(serializer, orderComparator, memory);
+	}
+
+	@Override
+	public void collect(T record) {
+		try {
+			if (this.sorter.write(record)) {
+				return;
+			}
+
+			// the buffer is full
+			sortAndWrite();
+
+			if (!this.sorter.write(record)) {
+				throw new IOException("Cannot write record to fresh sort buffer. Record too large.");
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to deduplicate the workset: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			sortAndWrite();
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to deduplicate the workset: " + e.getMessage(), e);
+		}
+		super.close();
+	}
+
+	/**
+	 * Releases the sort buffer. The collector must not be used afterwards.
+	 *
+	 * @return The memory of the sort buffer.
+	 */
+	public List<MemorySegment> dispose() {
+		return this.sorter.dispose();
+	}
+
+	private void sortAndWrite() throws IOException {
+		final NormalizedKeySorter<T> sorter = this.sorter;
+		if (sorter.isEmpty()) {
+			return;
+		}
+
+		this.sortAlgo.sort(sorter);
+
+		final KeyGroupedIterator<T> keyIter = new KeyGroupedIterator<T>(sorter.getIterator(), this.serializer,
+			this.keyComparator);
+		while (keyIter.nextKey()) {
+			// the first record of each key is the one to keep according to the order comparator
+			super.collect(keyIter.getValues().next());
+		}
+
+		sorter.reset();
+	}
+}
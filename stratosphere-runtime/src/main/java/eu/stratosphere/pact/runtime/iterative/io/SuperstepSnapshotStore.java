@@ -0,0 +1,471 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.iterative.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.core.fs.FileStatus;
+import eu.stratosphere.core.fs.FileSystem;
+import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.core.io.IOReadableWritable;
+import eu.stratosphere.pact.runtime.plugable.DeserializationDelegate;
+import eu.stratosphere.pact.runtime.plugable.SerializationDelegate;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * Stores the snapshots that iteration heads take of their state (partial solution, or solution set and workset)
+ * at the end of a superstep. The snapshots of all heads of an iteration are kept in one directory per superstep:
+ *
+ * <pre>
+ * path/_plan
+ * path/superstep-10/partial-solution-0
+ * path/superstep-10/partial-solution-1
+ * path/superstep-10/_done-0
+ * path/superstep-10/_done-1
+ * path/superstep-10/_aggregates
+ * </pre>
+ *
+ * A head writes its done marker after it has completely written its snapshot. The synchronization task writes the
+ * global aggregates of the superstep. A snapshot of a superstep is complete once the markers of all heads and the
+ * aggregates exist. Only the synchronization task removes superstep directories, because only it knows when a
+ * newer snapshot is complete.
+ * <p>
+ * The snapshots are tagged with an identifier of the plan of the iteration, which is kept in the plan marker.
+ * Snapshots of another plan, for example ones that a different program or an older version of the program
+ * left in the same directory, are never resumed from. Snapshots are only resumed from if the iteration is
+ * explicitly configured to resume, otherwise the synchronization task discards all of them before the first
+ * superstep.
+ */
+public class SuperstepSnapshotStore {
+
+	public static final String PARTIAL_SOLUTION = "partial-solution";
+
+	public static final String WORKSET = "workset";
+
+	public static final String SOLUTION_SET = "solution-set";
+
+	private static final String SUPERSTEP_DIR_PREFIX = "superstep-";
+
+	private static final String DONE_MARKER_PREFIX = "_done-";
+
+	private static final String PLAN_MARKER = "_plan";
+
+	private static final String AGGREGATES = "_aggregates";
+
+	private static final String IN_PROGRESS_SUFFIX = ".inprogress";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	// --------------------------------------------------------------------------------------------
+
+	private final Path basePath;
+
+	private final FileSystem fs;
+
+	private final String planId;
+
+	private final int subtaskIndex;
+
+	private final int numSubtasks;
+
+	/**
+	 * Creates a store through which an iteration head reads and writes its own snapshots.
+	 *
+	 * @param path The directory of the snapshots of the iteration.
+	 * @param planId The identifier of the plan of the iteration.
+	 * @param subtaskIndex The index of the head.
+	 * @param numSubtasks The number of parallel heads of the iteration.
+	 * @throws IOException Thrown, if the file system of the path cannot be accessed.
+	 */
+	public SuperstepSnapshotStore(String path, String planId, int subtaskIndex, int numSubtasks) throws IOException {
+		if (planId == null) {
+			throw new NullPointerException();
+		}
+		if (numSubtasks < 1 || subtaskIndex >= numSubtasks) {
+			throw new IllegalArgumentException();
+		}
+		this.basePath = new Path(path);
+		this.fs = this.basePath.getFileSystem();
+		this.planId = planId;
+		this.subtaskIndex = subtaskIndex;
+		this.numSubtasks = numSubtasks;
+	}
+
+	/**
+	 * Creates a store that can only find and discard snapshots, as needed by the synchronization task.
+	 *
+	 * @param path The directory of the snapshots of the iteration.
+	 * @param planId The identifier of the plan of the iteration.
+	 * @param numSubtasks The number of parallel heads of the iteration.
+	 * @throws IOException Thrown, if the file system of the path cannot be accessed.
+	 */
+	public SuperstepSnapshotStore(String path, String planId, int numSubtasks) throws IOException {
+		this(path, planId, -1, numSubtasks);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Finds the latest superstep for which all heads completed their snapshot and whose aggregates were written.
+	 *
+	 * @return The latest superstep with a complete snapshot, or zero, if there is none or the snapshots
+	 *         belong to another plan.
+	 * @throws IOException Thrown, if the snapshot directory cannot be listed.
+	 */
+	public int findLatestCompleteSnapshot() throws IOException {
+		int latest = 0;
+		if (!isOwnedByPlan()) {
+			return latest;
+		}
+		for (FileStatus superstepDir : this.fs.listStatus(this.basePath)) {
+			final int superstep = parseSuperstep(superstepDir);
+			if (superstep <= latest) {
+				continue;
+			}
+
+			int numDone = 0;
+			boolean hasAggregates = false;
+			FileStatus[] files;
+			try {
+				files = this.fs.listStatus(superstepDir.getPath());
+			} catch (FileNotFoundException fnfex) {
+				// an incomplete snapshot that the synchronization task just discarded
+				continue;
+			}
+			if (files != null) {
+				for (FileStatus file : files) {
+					final String name = getName(file.getPath());
+					if (name.startsWith(DONE_MARKER_PREFIX)) {
+						numDone++;
+					} else if (name.equals(AGGREGATES)) {
+						hasAggregates = true;
+					}
+				}
+			}
+			if (numDone == this.numSubtasks && hasAggregates) {
+				latest = superstep;
+			}
+		}
+		return latest;
+	}
+
+	/**
+	 * Deletes the snapshots if they belong to another plan and tags the directory with this store's plan, such that
+	 * the heads take their snapshots into it.
+	 *
+	 * @throws IOException Thrown, if the snapshots cannot be deleted or the plan marker cannot be written.
+	 */
+	public void discardSnapshotsOfOtherPlans() throws IOException {
+		if (isOwnedByPlan()) {
+			return;
+		}
+		discardAllAndClaim();
+	}
+
+	/**
+	 * Deletes all snapshots, including those of this store's plan, and tags the directory with this store's plan,
+	 * such that the heads take their snapshots into it. This is used when an iteration starts from its initial
+	 * input instead of resuming.
+	 *
+	 * @throws IOException Thrown, if the snapshots cannot be deleted or the plan marker cannot be written.
+	 */
+	public void discardAllAndClaim() throws IOException {
+		discardAll();
+		this.fs.mkdirs(this.basePath);
+		final DataOutputStream out = new DataOutputStream(this.fs.create(new Path(this.basePath, PLAN_MARKER), true));
+		try {
+			out.writeUTF(this.planId);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Deletes the snapshots of all supersteps before the given one.
+	 */
+	public void discardSnapshotsBefore(int superstep) throws IOException {
+		// the plan marker and other files do not parse as a superstep and are kept
+		discardSnapshots(0, superstep);
+	}
+
+	/**
+	 * Deletes the snapshots of all supersteps after the given one. The snapshots after the latest complete one
+	 * are left over from a failed execution and must not be mixed with the snapshots of the current execution.
+	 */
+	public void discardSnapshotsAfter(int superstep) throws IOException {
+		discardSnapshots(superstep, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Deletes the directory of the snapshots.
+	 */
+	public void discardAll() throws IOException {
+		if (this.fs.exists(this.basePath)) {
+			this.fs.delete(this.basePath, true);
+		}
+	}
+
+	private void discardSnapshots(int fromExclusive, int toExclusive) throws IOException {
+		if (!this.fs.exists(this.basePath)) {
+			return;
+		}
+		for (FileStatus superstepDir : this.fs.listStatus(this.basePath)) {
+			final int superstep = parseSuperstep(superstepDir);
+			if (superstep > fromExclusive && superstep < toExclusive) {
+				this.fs.delete(superstepDir.getPath(), true);
+			}
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Creates a writer for this head's snapshot of the given kind of data.
+	 *
+	 * @param superstep The superstep after which the snapshot is taken.
+	 * @param kind The kind of data, for example {@link #PARTIAL_SOLUTION}.
+	 * @param serializer The serializer for the records.
+	 * @return The writer for the snapshot.
+	 * @throws IOException Thrown, if the snapshot file cannot be created.
+	 */
+	public <T> SnapshotWriter<T> createWriter(int superstep, String kind, TypeSerializer<T> serializer) throws IOException {
+		checkHead();
+		final Path file = new Path(superstepPath(superstep), kind + '-' + this.subtaskIndex);
+		return new SnapshotWriter<T>(new DataOutputStream(new BufferedOutputStream(this.fs.create(file, true),
+			BUFFER_SIZE)), serializer);
+	}
+
+	/**
+	 * Opens this head's snapshot of the given kind of data.
+	 *
+	 * @param superstep The superstep after which the snapshot was taken.
+	 * @param kind The kind of data, for example {@link #PARTIAL_SOLUTION}.
+	 * @param serializer The serializer for the records.
+	 * @return An iterator over the records of the snapshot, which closes the file when it is exhausted.
+	 * @throws IOException Thrown, if the snapshot file cannot be opened.
+	 */
+	public <T> MutableObjectIterator<T> openReader(int superstep, String kind, TypeSerializer<T> serializer) throws IOException {
+		checkHead();
+		final Path file = new Path(superstepPath(superstep), kind + '-' + this.subtaskIndex);
+		return new SnapshotReader<T>(new DataInputStream(new BufferedInputStream(this.fs.open(file), BUFFER_SIZE)),
+			serializer);
+	}
+
+	/**
+	 * Marks this head's snapshot for the given superstep as complete. Must be called after all writers of the
+	 * snapshot have been closed.
+	 *
+	 * @param superstep The superstep after which the snapshot was taken.
+	 * @throws IOException Thrown, if the marker cannot be written.
+	 */
+	public void markComplete(int superstep) throws IOException {
+		checkHead();
+		this.fs.create(new Path(superstepPath(superstep), DONE_MARKER_PREFIX + this.subtaskIndex), true).close();
+	}
+
+	/**
+	 * Writes the global aggregates of the given superstep, as the synchronization task does at the end of every
+	 * superstep that the heads take a snapshot of. The aggregates become visible only once they are completely
+	 * written.
+	 *
+	 * @param superstep The superstep that the aggregates were computed in.
+	 * @param aggregates The aggregates to write.
+	 * @throws IOException Thrown, if the aggregates cannot be written.
+	 */
+	public void writeAggregates(int superstep, IOReadableWritable aggregates) throws IOException {
+		final Path file = new Path(superstepPath(superstep), AGGREGATES);
+		final Path inProgressFile = new Path(superstepPath(superstep), AGGREGATES + IN_PROGRESS_SUFFIX);
+		final DataOutputStream out = new DataOutputStream(this.fs.create(inProgressFile, true));
+		try {
+			aggregates.write(out);
+		} finally {
+			out.close();
+		}
+		if (!this.fs.rename(inProgressFile, file)) {
+			throw new IOException("Could not move the aggregates of superstep " + superstep + " to " + file + '.');
+		}
+	}
+
+	/**
+	 * Reads the global aggregates of the given superstep.
+	 *
+	 * @param superstep The superstep that the aggregates were computed in.
+	 * @param target The object to read the aggregates into.
+	 * @throws IOException Thrown, if the aggregates cannot be read.
+	 */
+	public void readAggregates(int superstep, IOReadableWritable target) throws IOException {
+		final DataInputStream in = new DataInputStream(this.fs.open(new Path(superstepPath(superstep), AGGREGATES)));
+		try {
+			target.read(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private boolean isOwnedByPlan() throws IOException {
+		final Path marker = new Path(this.basePath, PLAN_MARKER);
+		if (!this.fs.exists(marker)) {
+			return false;
+		}
+		final DataInputStream in;
+		try {
+			in = new DataInputStream(this.fs.open(marker));
+		} catch (FileNotFoundException fnfex) {
+			// the synchronization task just discarded the snapshots of another plan
+			return false;
+		}
+		try {
+			return this.planId.equals(in.readUTF());
+		} catch (EOFException eofex) {
+			// the synchronization task is still writing the marker
+			return false;
+		} finally {
+			in.close();
+		}
+	}
+
+	private Path superstepPath(int superstep) {
+		return new Path(this.basePath, SUPERSTEP_DIR_PREFIX + superstep);
+	}
+
+	private void checkHead() {
+		if (this.subtaskIndex < 0) {
+			throw new IllegalStateException("This snapshot store cannot access the snapshots of a head.");
+		}
+	}
+
+	private static int parseSuperstep(FileStatus status) {
+		final String name = getName(status.getPath());
+		if (status.isDir() && name.startsWith(SUPERSTEP_DIR_PREFIX)) {
+			try {
+				return Integer.parseInt(name.substring(SUPERSTEP_DIR_PREFIX.length()));
+			} catch (NumberFormatException nfex) {
+				// not one of our directories
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the last component of the path. Some file systems list directories with a trailing slash, for which
+	 * {@link Path#getName()} is empty.
+	 */
+	private static String getName(Path path) {
+		String p = path.toUri().getPath();
+		if (p.endsWith("/")) {
+			p = p.substring(0, p.length() - 1);
+		}
+		return p.substring(p.lastIndexOf('/') + 1);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Writes the records of one snapshot file. Every record is preceded by a flag, and the file is terminated
+	 * by an unset flag, such that incomplete files are detected when reading them.
+	 */
+	public static final class SnapshotWriter<T> {
+
+		private final DataOutputStream out;
+
+		private final SerializationDelegate<T> delegate;
+
+		private SnapshotWriter(DataOutputStream out, TypeSerializer<T> serializer) {
+			this.out = out;
+			this.delegate = new SerializationDelegate<T>(serializer);
+		}
+
+		public void write(T record) throws IOException {
+			this.out.writeBoolean(true);
+			this.delegate.setInstance(record);
+			this.delegate.write(this.out);
+		}
+
+		public void close() throws IOException {
+			this.out.writeBoolean(false);
+			this.out.close();
+		}
+
+		/**
+		 * Wraps the given iterator such that all records it returns are written to the snapshot. This writes the
+		 * snapshot while the superstep consumes its input, rather than in a separate pass. Once the given iterator
+		 * is exhausted, the returned iterator does not call it any more.
+		 *
+		 * @param input The iterator to write through.
+		 * @return An iterator that returns the records of the given one.
+		 */
+		public MutableObjectIterator<T> writeThrough(final MutableObjectIterator<T> input) {
+			return new MutableObjectIterator<T>() {
+
+				private boolean exhausted;
+
+				@Override
+				public T next(T reuse) throws IOException {
+					if (this.exhausted) {
+						return null;
+					}
+					final T record = input.next(reuse);
+					if (record != null) {
+						write(record);
+					} else {
+						this.exhausted = true;
+					}
+					return record;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Reads the records of one snapshot file.
+	 */
+	private static final class SnapshotReader<T> implements MutableObjectIterator<T> {
+
+		private final DataInputStream in;
+
+		private final DeserializationDelegate<T> delegate;
+
+		private boolean exhausted;
+
+		private SnapshotReader(DataInputStream in, TypeSerializer<T> serializer) {
+			this.in = in;
+			this.delegate = new DeserializationDelegate<T>(serializer);
+		}
+
+		@Override
+		public T next(T reuse) throws IOException {
+			if (this.exhausted) {
+				return null;
+			}
+			if (this.in.readBoolean()) {
+				this.delegate.setInstance(reuse);
+				this.delegate.read(this.in);
+				return this.delegate.getInstance();
+			} else {
+				this.exhausted = true;
+				this.in.close();
+				return null;
+			}
+		}
+	}
+}
@@ -17,10 +17,14 @@ import eu.stratosphere.api.common.aggregators.Aggregator;
 import eu.stratosphere.api.common.aggregators.LongSumAggregator;
 import eu.stratosphere.api.common.functions.Function;
 import eu.stratosphere.api.common.functions.IterationRuntimeContext;
+import eu.stratosphere.api.common.typeutils.TypeComparatorFactory;
 import eu.stratosphere.api.common.typeutils.TypeSerializer;
 import eu.stratosphere.api.common.typeutils.TypeSerializerFactory;
 import eu.stratosphere.core.memory.DataOutputView;
+import eu.stratosphere.core.memory.MemorySegment;
 import eu.stratosphere.nephele.execution.Environment;
+import eu.stratosphere.nephele.services.memorymanager.MemoryAllocationException;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.pact.runtime.hash.CompactingHashTable;
 import eu.stratosphere.pact.runtime.iterative.concurrent.BlockingBackChannel;
 import eu.stratosphere.pact.runtime.iterative.concurrent.BlockingBackChannelBroker;
@@ -28,6 +32,7 @@ import eu.stratosphere.pact.runtime.iterative.concurrent.Broker;
 import eu.stratosphere.pact.runtime.iterative.concurrent.IterationAggregatorBroker;
 import eu.stratosphere.pact.runtime.iterative.concurrent.SolutionSetBroker;
 import eu.stratosphere.pact.runtime.iterative.convergence.WorksetEmptyConvergenceCriterion;
+import eu.stratosphere.pact.runtime.iterative.io.DeduplicatingWorksetUpdateOutputCollector;
 import eu.stratosphere.pact.runtime.iterative.io.SolutionSetUpdateOutputCollector;
 import eu.stratosphere.pact.runtime.iterative.io.WorksetUpdateOutputCollector;
 import eu.stratosphere.pact.runtime.task.PactDriver;
@@ -45,6 +50,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * The base class for all tasks able to participate in an iteration.
@@ -64,6 +70,8 @@ public abstract class AbstractIterativePactTask<S extends Function, OT> extends
 
 	protected boolean isSolutionSetUpdate;
 	
+	private DeduplicatingWorksetUpdateOutputCollector<OT> deduplicatingWorksetCollector;
+	
 
 	private RuntimeAggregatorRegistry iterationAggregators;
 
@@ -71,6 +79,8 @@ public abstract class AbstractIterativePactTask<S extends Function, OT> extends
 
 	private int superstepNum = 1;
 	
+	private boolean resumingIteration;
+	
 	private volatile boolean terminationRequested;
 
 	// --------------------------------------------------------------------------------------------
@@ -92,6 +102,9 @@ public abstract class AbstractIterativePactTask<S extends Function, OT> extends
 			}
 		}
 		
+		// a resumed iteration counts its supersteps on from the snapshot that the head restored
+		resumingIteration = this.config.getIsResumingIteration();
+
 		TaskConfig config = getLastTasksConfig();
 		isWorksetIteration = config.getIsWorksetIteration();
 		isWorksetUpdate = config.getIsWorksetUpdate();
@@ -138,6 +151,10 @@ public abstract class AbstractIterativePactTask<S extends Function, OT> extends
 			super.closeLocalStrategiesAndCaches();
 		}
 		finally {
+			if (this.deduplicatingWorksetCollector != null) {
+				getMemoryManager().release(this.deduplicatingWorksetCollector.dispose());
+				this.deduplicatingWorksetCollector = null;
+			}
 			if (this.driver instanceof ResettablePactDriver) {
 				final ResettablePactDriver<?, ?> resDriver = (ResettablePactDriver<?, ?>) this.driver;
 				try {
@@ -302,18 +319,39 @@ public abstract class AbstractIterativePactTask<S extends Function, OT> extends
 	 * workset.
 	 * <p/>
 	 * If a non-null delegate is given, the new {@link Collector} will write to the solution set and also call
-	 * collect(T) of the delegate.
+	 * collect(T) of the delegate. If the workset is to be deduplicated, a
+	 * {@link DeduplicatingWorksetUpdateOutputCollector} is created, whose memory is released when the task shuts down.
 	 *
 	 * @param delegate null -OR- the delegate on which to call collect() by the newly created collector
 	 * @return a new {@link WorksetUpdateOutputCollector}
+	 * @throws MemoryAllocationException Thrown, if the memory to deduplicate the workset could not be allocated.
 	 */
-	protected Collector<OT> createWorksetUpdateOutputCollector(Collector<OT> delegate) {
+	protected Collector<OT> createWorksetUpdateOutputCollector(Collector<OT> delegate) throws MemoryAllocationException {
 		DataOutputView outputView = worksetBackChannel.getWriteEnd();
 		TypeSerializer<OT> serializer = getOutputSerializer();
-		return new WorksetUpdateOutputCollector<OT>(outputView, serializer, delegate);
+
+		TaskConfig config = getLastTasksConfig();
+		TypeComparatorFactory<OT> keyComparatorFactory = config.getWorksetDeduplicationComparator(userCodeClassLoader);
+		if (keyComparatorFactory == null) {
+			return new WorksetUpdateOutputCollector<OT>(outputView, serializer, delegate);
+		}
+
+		// the order comparator decides which of the elements with the same key is kept
+		TypeComparatorFactory<OT> orderComparatorFactory = config.getWorksetDeduplicationOrderComparator(userCodeClassLoader);
+		if (orderComparatorFactory == null) {
+			orderComparatorFactory = keyComparatorFactory;
+		}
+
+		MemoryManager memoryManager = getMemoryManager();
+		int numPages = memoryManager.computeNumberOfPages(config.getWorksetDeduplicationMemory());
+		List<MemorySegment> memory = memoryManager.allocatePages(this, numPages);
+
+		this.deduplicatingWorksetCollector = new DeduplicatingWorksetUpdateOutputCollector<OT>(outputView, serializer,
+			delegate, keyComparatorFactory.createComparator(), orderComparatorFactory.createComparator(), memory);
+		return this.deduplicatingWorksetCollector;
 	}
 
-	protected Collector<OT> createWorksetUpdateOutputCollector() {
+	protected Collector<OT> createWorksetUpdateOutputCollector() throws MemoryAllocationException {
 		return createWorksetUpdateOutputCollector(null);
 	}
 
@@ -371,7 +409,8 @@ public abstract class AbstractIterativePactTask<S extends Function, OT> extends
 
 		@Override
 		public int getSuperstepNumber() {
-			return AbstractIterativePactTask.this.superstepNum;
+			final int restoredSuperstep = resumingIteration ? getIterationAggregators().getRestoredSuperstep() : 0;
+			return restoredSuperstep + AbstractIterativePactTask.this.superstepNum;
 		}
 
 		@Override
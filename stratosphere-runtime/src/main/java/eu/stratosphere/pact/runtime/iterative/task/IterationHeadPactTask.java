@@ -38,10 +38,13 @@ import eu.stratosphere.pact.runtime.iterative.concurrent.SolutionSetBroker;
 import eu.stratosphere.pact.runtime.iterative.concurrent.SolutionSetUpdateBarrier;
 import eu.stratosphere.pact.runtime.iterative.concurrent.SolutionSetUpdateBarrierBroker;
 import eu.stratosphere.pact.runtime.iterative.concurrent.SuperstepBarrier;
+import eu.stratosphere.pact.runtime.iterative.concurrent.WorkerDoneEventCombiner;
 import eu.stratosphere.pact.runtime.iterative.event.AllWorkersDoneEvent;
 import eu.stratosphere.pact.runtime.iterative.event.TerminationEvent;
 import eu.stratosphere.pact.runtime.iterative.event.WorkerDoneEvent;
 import eu.stratosphere.pact.runtime.iterative.io.SerializedUpdateBuffer;
+import eu.stratosphere.pact.runtime.iterative.io.SuperstepSnapshotStore;
+import eu.stratosphere.pact.runtime.iterative.io.SuperstepSnapshotStore.SnapshotWriter;
 import eu.stratosphere.pact.runtime.task.RegularPactTask;
 import eu.stratosphere.pact.runtime.task.util.TaskConfig;
 import eu.stratosphere.types.Value;
@@ -60,6 +63,16 @@ import eu.stratosphere.util.MutableObjectIterator;
  * iteration is done, the head
  * will send a {@link TerminationEvent} to all it's connected tasks, signaling them to shutdown.
  * <p>
+ * If configured, the head writes a snapshot of the feed-back data set (and the solution set) to a
+ * {@link SuperstepSnapshotStore} every few supersteps. The feed-back data set is written while the next superstep
+ * consumes it. If the iteration is configured to resume, the head starts from the latest snapshot that all heads
+ * completed, restores the global aggregates of that superstep, and counts the supersteps on from it.
+ * <p>
+ * In an asynchronous workset iteration, the head does not wait for the {@link AllWorkersDoneEvent} after a superstep,
+ * but starts the next superstep right away and waits for the event only after that superstep. If the sync signals
+ * termination then, the workset of the previous superstep was empty, so the superstep in between did not change
+ * the solution set. The head waits as usual after the last superstep permitted by the maximum number of iterations.
+ * <p>
  * Assumption on the ordering of the outputs: - The first n output gates write to channels that go to the tasks of the
  * step function. - The next m output gates to to the tasks that consume the final solution. - The last output gate
  * connects to the synchronization task.
@@ -74,6 +87,10 @@ public class IterationHeadPactTask<X, Y, S extends Function, OT> extends Abstrac
 
 	private static final Log log = LogFactory.getLog(IterationHeadPactTask.class);
 
+	private static final String[] NO_AGGREGATOR_NAMES = new String[0];
+
+	private static final Value[] NO_AGGREGATES = new Value[0];
+
 	private Collector<X> finalOutputCollector;
 
 	private List<BufferWriter> finalOutputWriters;
@@ -206,12 +223,26 @@ public class IterationHeadPactTask<X, Y, S extends Function, OT> extends Abstrac
 
 		final String brokerKey = brokerKey();
 		final int workerIndex = getEnvironment().getIndexInSubtaskGroup();
+		final String combinerKey = getEnvironment().getJobID().toString() + '#' + config.getIterationId();
+		WorkerDoneEventCombiner workerDoneEventCombiner = null;
+
+		final int checkpointInterval = config.getIterationCheckpointInterval();
+		final SuperstepSnapshotStore snapshots = checkpointInterval > 0 ?
+			new SuperstepSnapshotStore(config.getIterationCheckpointPath(), config.getIterationCheckpointPlanId(),
+				workerIndex, getEnvironment().getCurrentNumberOfSubtasks()) : null;
+		// the superstep whose snapshot we resume from, or zero, if we start from the initial input
+		final int restoredSuperstep = snapshots != null && config.getIsResumingIteration() ?
+			snapshots.findLatestCompleteSnapshot() : 0;
 
 		//MutableHashTable<X, ?> solutionSet = null; // if workset iteration
 		CompactingHashTable<X> solutionSet = null; // if workset iteration
 		
 		boolean waitForSolutionSetUpdate = config.getWaitForSolutionSetUpdate();
 		boolean isWorksetIteration = config.getIsWorksetIteration();
+		
+		// in asynchronous mode, the heads go ahead with the next superstep while the sync task checks for termination
+		final boolean asynchronous = isWorksetIteration && config.getIsAsynchronousIteration();
+		final int maxNumberOfIterations = asynchronous ? config.getNumberOfIterations() : 0;
 
 		try {
 			/* used for receiving the current iteration result from iteration tail */
@@ -235,6 +266,12 @@ public class IterationHeadPactTask<X, Y, S extends Function, OT> extends Abstrac
 				// read the initial solution set
 				@SuppressWarnings("unchecked")
 				MutableObjectIterator<X> solutionSetInput = (MutableObjectIterator<X>) createInputIterator(inputReaders[initialSolutionSetInput], solutionTypeSerializer);
+				if (restoredSuperstep > 0) {
+					// the initial solution set is replaced by the snapshot, but it must still be consumed
+					drain(solutionSetInput, solutionTypeSerializer.getSerializer());
+					solutionSetInput = snapshots.openReader(restoredSuperstep, SuperstepSnapshotStore.SOLUTION_SET,
+						solutionTypeSerializer.getSerializer());
+				}
 				readInitialSolutionSet(solutionSet, solutionSetInput);
 
 				SolutionSetBroker.instance().handIn(brokerKey, solutionSet);
@@ -261,28 +298,63 @@ public class IterationHeadPactTask<X, Y, S extends Function, OT> extends Abstrac
 
 			// instantiate all aggregators and register them at the iteration global registry
 			aggregatorRegistry = new RuntimeAggregatorRegistry(config.getIterationAggregators());
+			if (restoredSuperstep > 0) {
+				// the step function sees the aggregates of the restored superstep as the previous ones
+				final AllWorkersDoneEvent restoredAggregates = new AllWorkersDoneEvent();
+				snapshots.readAggregates(restoredSuperstep, restoredAggregates);
+				aggregatorRegistry.updateGlobalAggregatesAndReset(restoredAggregates.getAggregatorNames(),
+					restoredAggregates.getAggregates(userCodeClassLoader));
+				aggregatorRegistry.setRestoredSuperstep(restoredSuperstep);
+			}
 			IterationAggregatorBroker.instance().handIn(brokerKey, aggregatorRegistry);
 
+			// the heads in this JVM combine their aggregates before reporting to the sync task
+			workerDoneEventCombiner = WorkerDoneEventCombiner.join(combinerKey, config.getIterationAggregators());
+
 			DataInputView superstepResult = null;
 
+			if (restoredSuperstep > 0) {
+				if (log.isInfoEnabled()) {
+					log.info(formatLogString("resuming from the snapshot of iteration [" + restoredSuperstep + "]"));
+				}
+				restoreFeedbackInput(snapshots, restoredSuperstep, isWorksetIteration);
+			}
+
+			SnapshotWriter<Y> feedbackSnapshot = null;
+			int snapshotSuperstep = 0;
+
 			while (this.running && !terminationRequested()) {
 
 				if (log.isInfoEnabled()) {
 					log.info(formatLogString("starting iteration [" + currentIteration() + "]"));
 				}
 
-				barrier.setup();
-
 				if (waitForSolutionSetUpdate) {
 					solutionSetUpdateBarrier.setup();
 				}
 
 				if (!inFirstIteration()) {
 					feedBackSuperstepResult(superstepResult);
+
+					// take the snapshot of the previous superstep while this superstep consumes its result
+					final int previousSuperstep = restoredSuperstep + currentIteration() - 1;
+					if (snapshots != null && previousSuperstep % checkpointInterval == 0) {
+						snapshotSuperstep = previousSuperstep;
+						feedbackSnapshot = startSnapshot(snapshots, snapshotSuperstep, solutionSet, isWorksetIteration);
+					}
 				}
 
 				super.run();
 
+				if (feedbackSnapshot != null) {
+					// write whatever the superstep did not consume of its input
+					drain(this.<Y>getInput(this.feedbackDataInput), this.feedbackTypeSerializer.getSerializer());
+					feedbackSnapshot.close();
+					feedbackSnapshot = null;
+					// the sync task relies on all snapshots being complete before the heads finish the superstep
+					snapshots.markComplete(snapshotSuperstep);
+				}
+
 				// signal to connected tasks that we are done with the superstep
 				sendEndOfSuperstepToAllIterationOutputs();
 
@@ -296,7 +368,48 @@ public class IterationHeadPactTask<X, Y, S extends Function, OT> extends Abstrac
 					log.info(formatLogString("finishing iteration [" + currentIteration() + "]"));
 				}
 
-				sendEventToSync(new WorkerDoneEvent(workerIndex, aggregatorRegistry.getAllAggregators()));
+				String[] globalAggregateNames = NO_AGGREGATOR_NAMES;
+				Value[] globalAggregates = NO_AGGREGATES;
+
+				if (asynchronous && !inFirstIteration()) {
+					// the termination check of the previous superstep ran concurrently to this superstep
+					barrier.waitForOtherWorkers();
+					if (barrier.terminationSignaled()) {
+						// the previous superstep produced an empty workset, so this superstep did not change anything
+						if (log.isInfoEnabled()) {
+							log.info(formatLogString("head received termination request for iteration ["
+								+ (currentIteration() - 1)
+								+ "] in iteration ["
+								+ currentIteration()
+								+ "]"));
+						}
+						requestTermination();
+						continue;
+					}
+					globalAggregateNames = barrier.getAggregatorNames();
+					globalAggregates = barrier.getAggregates();
+				}
+
+				// the sync task answers only after it received our event
+				barrier.setup();
+
+				if (inFirstIteration()) {
+					// not all heads in this JVM may have joined the combiner yet
+					sendEventToSync(new WorkerDoneEvent(workerIndex, aggregatorRegistry.getAllAggregators()));
+				} else {
+					WorkerDoneEvent combined = workerDoneEventCombiner.combine(workerIndex,
+						aggregatorRegistry.getAllAggregators());
+					if (combined != null) {
+						sendEventToSync(combined);
+					}
+				}
+
+				if (asynchronous && restoredSuperstep + currentIteration() < maxNumberOfIterations) {
+					// start the next superstep right away and pick up the result of the termination check later
+					incrementIterationCounter();
+					aggregatorRegistry.updateGlobalAggregatesAndReset(globalAggregateNames, globalAggregates);
+					continue;
+				}
 
 				if (log.isInfoEnabled()) {
 					log.info(formatLogString("waiting for other workers in iteration [" + currentIteration() + "]"));
@@ -314,8 +427,8 @@ public class IterationHeadPactTask<X, Y, S extends Function, OT> extends Abstrac
 				} else {
 					incrementIterationCounter();
 
-					String[] globalAggregateNames = barrier.getAggregatorNames();
-					Value[] globalAggregates = barrier.getAggregates();
+					globalAggregateNames = barrier.getAggregatorNames();
+					globalAggregates = barrier.getAggregates();
 					aggregatorRegistry.updateGlobalAggregatesAndReset(globalAggregateNames, globalAggregates);
 				}
 			}
@@ -337,7 +450,11 @@ public class IterationHeadPactTask<X, Y, S extends Function, OT> extends Abstrac
 			// - backchannel
 			// - aggregator registry
 			// - solution set index
+			// - worker done event combiner
 			IterationAggregatorBroker.instance().remove(brokerKey);
+			if (workerDoneEventCombiner != null) {
+				WorkerDoneEventCombiner.leave(combinerKey);
+			}
 			BlockingBackChannelBroker.instance().remove(brokerKey);
 			if (isWorksetIteration) {
 				SolutionSetBroker.instance().remove(brokerKey);
@@ -352,6 +469,51 @@ public class IterationHeadPactTask<X, Y, S extends Function, OT> extends Abstrac
 		}
 	}
 
+	private void restoreFeedbackInput(SuperstepSnapshotStore snapshots, int superstep, boolean isWorksetIteration)
+			throws Exception
+	{
+		final TypeSerializer<Y> serializer = this.feedbackTypeSerializer.getSerializer();
+
+		// the initial partial solution or workset is replaced by the snapshot, but it must still be consumed
+		drain(this.<Y>getInput(this.feedbackDataInput), serializer);
+		this.inputs[this.feedbackDataInput] = snapshots.openReader(superstep, isWorksetIteration ?
+			SuperstepSnapshotStore.WORKSET : SuperstepSnapshotStore.PARTIAL_SOLUTION, serializer);
+	}
+
+	private SnapshotWriter<Y> startSnapshot(SuperstepSnapshotStore snapshots, int superstep,
+			CompactingHashTable<X> solutionSet, boolean isWorksetIteration) throws IOException
+	{
+		if (log.isInfoEnabled()) {
+			log.info(formatLogString("taking snapshot of iteration [" + superstep + "]"));
+		}
+
+		// the solution set is only stable between supersteps, so it is written before the superstep starts
+		if (solutionSet != null) {
+			final TypeSerializer<X> serializer = this.solutionTypeSerializer.getSerializer();
+			final SnapshotWriter<X> writer = snapshots.createWriter(superstep, SuperstepSnapshotStore.SOLUTION_SET,
+				serializer);
+			final MutableObjectIterator<X> entries = solutionSet.getEntryIterator();
+			X record = serializer.createInstance();
+			while ((record = entries.next(record)) != null) {
+				writer.write(record);
+			}
+			writer.close();
+		}
+
+		final SnapshotWriter<Y> writer = snapshots.createWriter(superstep, isWorksetIteration ?
+			SuperstepSnapshotStore.WORKSET : SuperstepSnapshotStore.PARTIAL_SOLUTION,
+			this.feedbackTypeSerializer.getSerializer());
+		this.inputs[this.feedbackDataInput] = writer.writeThrough(this.<Y>getInput(this.feedbackDataInput));
+		return writer;
+	}
+
+	private static <T> void drain(MutableObjectIterator<T> input, TypeSerializer<T> serializer) throws IOException {
+		T record = serializer.createInstance();
+		while ((record = input.next(record)) != null) {
+			// only consume the records
+		}
+	}
+
 	private void streamOutFinalOutputBulk(MutableObjectIterator<X> results) throws IOException {
 		final Collector<X> out = this.finalOutputCollector;
 		X record = this.solutionTypeSerializer.getSerializer().createInstance();
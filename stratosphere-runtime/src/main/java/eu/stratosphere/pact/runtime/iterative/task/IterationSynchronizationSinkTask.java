@@ -34,6 +34,7 @@ import eu.stratosphere.nephele.types.IntegerRecord;
 import eu.stratosphere.pact.runtime.iterative.event.AllWorkersDoneEvent;
 import eu.stratosphere.pact.runtime.iterative.event.TerminationEvent;
 import eu.stratosphere.pact.runtime.iterative.event.WorkerDoneEvent;
+import eu.stratosphere.pact.runtime.iterative.io.SuperstepSnapshotStore;
 import eu.stratosphere.pact.runtime.task.RegularPactTask;
 import eu.stratosphere.pact.runtime.task.util.TaskConfig;
 import eu.stratosphere.types.Value;
@@ -64,6 +65,10 @@ public class IterationSynchronizationSinkTask extends AbstractOutputTask impleme
 	private int currentIteration = 1;
 	
 	private int maxNumberOfIterations;
+	
+	private SuperstepSnapshotStore snapshots;
+	
+	private int checkpointInterval;
 
 	private final AtomicBoolean terminated = new AtomicBoolean(false);
 
@@ -101,6 +106,24 @@ public class IterationSynchronizationSinkTask extends AbstractOutputTask impleme
 		int numEventsTillEndOfSuperstep = taskConfig.getNumberOfEventsUntilInterruptInIterativeGate(0);
 		eventHandler = new SyncEventHandler(numEventsTillEndOfSuperstep, aggregators, userCodeClassLoader);
 		headEventReader.subscribeToEvent(eventHandler, WorkerDoneEvent.class);
+		
+		// if the heads take snapshots and the iteration resumes, they resume from the latest complete one and so do we
+		checkpointInterval = taskConfig.getIterationCheckpointInterval();
+		if (checkpointInterval > 0) {
+			snapshots = new SuperstepSnapshotStore(taskConfig.getIterationCheckpointPath(),
+				taskConfig.getIterationCheckpointPlanId(), numEventsTillEndOfSuperstep);
+			if (taskConfig.getIsResumingIteration()) {
+				// snapshots of another plan are never resumed from
+				snapshots.discardSnapshotsOfOtherPlans();
+				int restoredSuperstep = snapshots.findLatestCompleteSnapshot();
+				// snapshots after the latest complete one are left over from the failed execution
+				snapshots.discardSnapshotsAfter(restoredSuperstep);
+				currentIteration = restoredSuperstep + 1;
+			} else {
+				// the snapshots of an earlier run may stem from other inputs, so they are never resumed from
+				snapshots.discardAllAndClaim();
+			}
+		}
 
 		IntegerRecord dummy = new IntegerRecord();
 		
@@ -126,6 +149,10 @@ public class IterationSynchronizationSinkTask extends AbstractOutputTask impleme
 
 				requestTermination();
 				sendToAllWorkers(new TerminationEvent());
+				
+				if (snapshots != null) {
+					snapshots.discardAll();
+				}
 //				notifyMonitor(IterationMonitoring.Event.SYNC_FINISHED, currentIteration);
 			} else {
 				if (log.isInfoEnabled()) {
@@ -134,6 +161,11 @@ public class IterationSynchronizationSinkTask extends AbstractOutputTask impleme
 				}
 
 				AllWorkersDoneEvent allWorkersDoneEvent = new AllWorkersDoneEvent(aggregators);
+				
+				// the heads take a snapshot of this superstep, which is only complete with its aggregates
+				if (snapshots != null && currentIteration % checkpointInterval == 0) {
+					snapshots.writeAggregates(currentIteration, allWorkersDoneEvent);
+				}
 				sendToAllWorkers(allWorkersDoneEvent);
 				
 				// reset all aggregators
@@ -141,6 +173,11 @@ public class IterationSynchronizationSinkTask extends AbstractOutputTask impleme
 					agg.reset();
 				}
 				
+				// the heads complete the snapshot of the previous superstep before they finish the current one
+				if (snapshots != null && currentIteration > 1 && (currentIteration - 1) % checkpointInterval == 0) {
+					snapshots.discardSnapshotsBefore(currentIteration - 1);
+				}
+				
 //				notifyMonitor(IterationMonitoring.Event.SYNC_FINISHED, currentIteration);
 				currentIteration++;
 			}
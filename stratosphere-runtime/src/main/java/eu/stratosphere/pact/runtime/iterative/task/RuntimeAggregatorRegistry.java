@@ -31,6 +31,8 @@ public class RuntimeAggregatorRegistry {
 	
 	private final Map<String, Value> previousGlobalAggregate;
 	
+	private int restoredSuperstep;
+	
 	public RuntimeAggregatorRegistry(Collection<AggregatorWithName<?>> aggs) {
 		this.aggregators = new HashMap<String, Aggregator<?>>();
 		this.previousGlobalAggregate = new HashMap<String, Value>();
@@ -54,6 +56,20 @@ public class RuntimeAggregatorRegistry {
 		return this.aggregators;
 	}
 	
+	/**
+	 * Gets the superstep of the snapshot that the iteration resumed from. The supersteps of this execution are
+	 * counted on from it.
+	 * 
+	 * @return The superstep of the restored snapshot, or zero, if the iteration started from its initial input.
+	 */
+	public int getRestoredSuperstep() {
+		return this.restoredSuperstep;
+	}
+	
+	public void setRestoredSuperstep(int restoredSuperstep) {
+		this.restoredSuperstep = restoredSuperstep;
+	}
+	
 	public void updateGlobalAggregatesAndReset(String[] names, Value[] aggregates) {
 		if (names == null || aggregates == null || names.length != aggregates.length) {
 			throw new IllegalArgumentException();
@@ -66,7 +66,7 @@ public class SyncEventHandler implements EventListener {
 			throw new RuntimeException("Encountered WorderDoneEvent when still in End-of-Superstep status.");
 		}
 		
-		workerDoneEventCounter++;
+		workerDoneEventCounter += workerDoneEvent.getNumberOfWorkers();
 		
 //		if (log.isInfoEnabled()) {
 //			log.info("Sync event handler received WorkerDoneEvent event (" + workerDoneEventCounter + ")");
@@ -85,7 +85,12 @@ public class SyncEventHandler implements EventListener {
 			aggregator.aggregate(aggregates[i]);
 		}
 
-		if (workerDoneEventCounter % numberOfEventsUntilEndOfSuperstep == 0) {
+		// events may stand for several workers whose aggregates were combined before sending
+		if (workerDoneEventCounter > numberOfEventsUntilEndOfSuperstep) {
+			throw new RuntimeException("Received more WorkerDoneEvents than workers in the superstep.");
+		}
+		if (workerDoneEventCounter == numberOfEventsUntilEndOfSuperstep) {
+			workerDoneEventCounter = 0;
 			endOfSuperstep = true;
 			Thread.currentThread().interrupt();
 		}
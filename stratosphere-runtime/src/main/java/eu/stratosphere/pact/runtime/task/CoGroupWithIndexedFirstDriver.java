@@ -0,0 +1,169 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.common.functions.GenericCoGrouper;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypePairComparatorFactory;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.pact.runtime.hash.CompressedSparseRowIndex;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig;
+import eu.stratosphere.pact.runtime.util.KeyGroupedIterator;
+import eu.stratosphere.util.Collector;
+
+/**
+ * CoGroup driver that builds an in-memory {@link CompressedSparseRowIndex} over its first input and looks up the
+ * matching group of the first input for every key group of the second input. Inside an iteration, the index is
+ * built only once in the first superstep, and the first input (which must be on the static path) is not read again.
+ * The cost of each superstep is hence proportional to the size of the second input, not to that of the first input.
+ * <p>
+ * Unlike the {@link CoGroupDriver}, this driver calls the CoGroup function only for keys that occur in the second
+ * input. It must only be used with functions that produce no result for groups without elements from the second
+ * input.
+ */
+public class CoGroupWithIndexedFirstDriver<IT1, IT2, OT> implements ResettablePactDriver<GenericCoGrouper<IT1, IT2, OT>, OT> {
+
+	private static final Log LOG = LogFactory.getLog(CoGroupWithIndexedFirstDriver.class);
+
+
+	private PactTaskContext<GenericCoGrouper<IT1, IT2, OT>, OT> taskContext;
+
+	private volatile CompressedSparseRowIndex<IT1, IT2> index;
+
+	private boolean tearDownAfterRun;
+
+	private volatile boolean running;
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void setup(PactTaskContext<GenericCoGrouper<IT1, IT2, OT>, OT> context) {
+		this.taskContext = context;
+		this.running = true;
+	}
+
+	@Override
+	public int getNumberOfInputs() {
+		return 2;
+	}
+
+	@Override
+	public Class<GenericCoGrouper<IT1, IT2, OT>> getStubType() {
+		@SuppressWarnings("unchecked")
+		final Class<GenericCoGrouper<IT1, IT2, OT>> clazz = (Class<GenericCoGrouper<IT1, IT2, OT>>) (Class<?>) GenericCoGrouper.class;
+		return clazz;
+	}
+
+	@Override
+	public boolean requiresComparatorOnInput() {
+		return true;
+	}
+
+	@Override
+	public boolean isInputResettable(int inputNum) {
+		if (inputNum < 0 || inputNum > 1) {
+			throw new IndexOutOfBoundsException();
+		}
+		return inputNum == 0;
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void initialize() throws Exception {
+		final TaskConfig config = this.taskContext.getTaskConfig();
+
+		final TypeSerializer<IT1> serializer1 = this.taskContext.<IT1>getInputSerializer(0).getSerializer();
+		final TypeComparator<IT1> comparator1 = this.taskContext.getInputComparator(0);
+		final TypeComparator<IT2> comparator2 = this.taskContext.getInputComparator(1);
+
+		final TypePairComparatorFactory<IT1, IT2> pairComparatorFactory = config.getPairComparatorFactory(
+				this.taskContext.getUserCodeClassLoader());
+		if (pairComparatorFactory == null) {
+			throw new Exception("Missing pair comparator factory for CoGroup driver");
+		}
+
+		final MemoryManager memoryManager = this.taskContext.getMemoryManager();
+		final int numPages = memoryManager.computeNumberOfPages(config.getMemoryDriver());
+		final List<MemorySegment> memory = memoryManager.allocatePages(this.taskContext.getOwningNepheleTask(), numPages);
+
+		final CompressedSparseRowIndex<IT1, IT2> index = new CompressedSparseRowIndex<IT1, IT2>(serializer1,
+				comparator1.duplicate(), comparator2.duplicate(),
+				pairComparatorFactory.createComparator21(comparator1, comparator2), memory);
+		this.index = index;
+
+		index.open(this.taskContext.<IT1>getInput(0));
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(this.taskContext.formatLogString("Built index over " + index.getNumRecords() + " records with " +
+				index.getNumKeys() + " distinct keys."));
+		}
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		// outside of iterations, nobody initializes the driver and tears it down
+		if (this.index == null) {
+			initialize();
+			this.tearDownAfterRun = true;
+		}
+	}
+
+	@Override
+	public void run() throws Exception {
+		final GenericCoGrouper<IT1, IT2, OT> coGroupStub = this.taskContext.getStub();
+		final Collector<OT> collector = this.taskContext.getOutputCollector();
+		final CompressedSparseRowIndex<IT1, IT2> index = this.index;
+
+		final KeyGroupedIterator<IT2> probeSideInput = new KeyGroupedIterator<IT2>(this.taskContext.<IT2>getInput(1),
+				this.taskContext.<IT2>getInputSerializer(1).getSerializer(), this.taskContext.<IT2>getInputComparator(1));
+
+		while (this.running && probeSideInput.nextKey()) {
+			final Iterator<IT1> matches = index.getMatchesFor(probeSideInput.getCurrent());
+			coGroupStub.coGroup(matches, probeSideInput.getValues(), collector);
+		}
+	}
+
+	@Override
+	public void cleanup() throws Exception {
+		if (this.tearDownAfterRun) {
+			teardown();
+		}
+	}
+
+	@Override
+	public void reset() {}
+
+	@Override
+	public void teardown() {
+		final CompressedSparseRowIndex<IT1, IT2> index = this.index;
+		if (index != null) {
+			this.index = null;
+			this.taskContext.getMemoryManager().release(index.close());
+		}
+	}
+
+	@Override
+	public void cancel() {
+		this.running = false;
+	}
+}
@@ -22,10 +22,14 @@ import org.apache.commons.logging.LogFactory;
 import eu.stratosphere.api.common.io.FileOutputFormat;
 import eu.stratosphere.api.common.io.FileOutputFormat.OutputDirectoryMode;
 import eu.stratosphere.api.common.io.OutputFormat;
+import eu.stratosphere.api.common.io.statistics.StatisticsCatalog;
+import eu.stratosphere.api.common.io.statistics.StatisticsCollector;
 import eu.stratosphere.api.common.typeutils.TypeComparatorFactory;
 import eu.stratosphere.api.common.typeutils.TypeSerializer;
 import eu.stratosphere.api.common.typeutils.TypeSerializerFactory;
+import eu.stratosphere.configuration.ConfigConstants;
 import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.core.fs.FileSystem;
 import eu.stratosphere.core.fs.FileSystem.WriteMode;
 import eu.stratosphere.core.fs.Path;
@@ -161,6 +165,11 @@ public class DataSinkTask<IT> extends AbstractOutputTask {
 			
 			IT record = serializer.createInstance();
 			
+			// file outputs record their statistics in the catalog, if one is configured
+			final StatisticsCatalog catalog = format instanceof FileOutputFormat ?
+				StatisticsCatalog.getConfiguredCatalog() : null;
+			final StatisticsCollector statistics = catalog == null ? null : new StatisticsCollector();
+			
 			// check if task has been canceled
 			if (this.taskCanceled) {
 				return;
@@ -169,19 +178,41 @@ public class DataSinkTask<IT> extends AbstractOutputTask {
 			if (LOG.isDebugEnabled()) {
 				LOG.debug(getLogString("Starting to produce output"));
 			}
+			
+			// decouple the task from the latency of the file system, if configured
+			if (format instanceof FileOutputFormat && !((FileOutputFormat<?>) format).isWritingAsynchronously()) {
+				final int numBuffers = GlobalConfiguration.getInteger(ConfigConstants.SINK_ASYNC_WRITE_BUFFERS_KEY,
+					ConfigConstants.DEFAULT_SINK_ASYNC_WRITE_BUFFERS);
+				if (numBuffers > 0) {
+					((FileOutputFormat<?>) format).setAsynchronousWrites(Math.max(numBuffers, 2),
+						GlobalConfiguration.getInteger(ConfigConstants.SINK_ASYNC_WRITE_BUFFER_SIZE_KEY,
+							ConfigConstants.DEFAULT_SINK_ASYNC_WRITE_BUFFER_SIZE));
+				}
+			}
 
 			// open
 			format.open(this.getEnvironment().getIndexInSubtaskGroup(), this.getEnvironment().getCurrentNumberOfSubtasks());
 
 			// work!
-			while (!this.taskCanceled && ((record = input.next(record)) != null)) {
-				format.writeRecord(record);
+			if (statistics == null) {
+				while (!this.taskCanceled && ((record = input.next(record)) != null)) {
+					format.writeRecord(record);
+				}
+			} else {
+				while (!this.taskCanceled && ((record = input.next(record)) != null)) {
+					statistics.collect(record);
+					format.writeRecord(record);
+				}
 			}
 			
 			// close. We close here such that a regular close throwing an exception marks a task as failed.
 			if (!this.taskCanceled) {
 				this.format.close();
 				this.format = null;
+				
+				if (statistics != null) {
+					reportStatistics(catalog, (FileOutputFormat<?>) format, statistics);
+				}
 			}
 		}
 		catch (Exception ex) {
@@ -249,6 +280,28 @@ public class DataSinkTask<IT> extends AbstractOutputTask {
 		}
 	}
 	
+	/**
+	 * Records the statistics of the written file in the statistics catalog. Failures are only logged, because
+	 * the statistics are not essential for the result of the program.
+	 */
+	private void reportStatistics(StatisticsCatalog catalog, FileOutputFormat<?> format, StatisticsCollector statistics) {
+		final int subtask = getEnvironment().getIndexInSubtaskGroup();
+		final int numSubtasks = getEnvironment().getCurrentNumberOfSubtasks();
+		try {
+			// the file that the output format actually wrote to
+			final Path path = format.getActualFilePath();
+			statistics.addBytes(path.getFileSystem().getFileStatus(path).getLen());
+			
+			catalog.write(StatisticsCatalog.getDataSetId(format.getOutputFilePath()),
+				getEnvironment().getJobID().toString(), subtask, numSubtasks, statistics);
+		}
+		catch (Exception e) {
+			if (LOG.isWarnEnabled()) {
+				LOG.warn(getLogString("Could not record the statistics of the output in the catalog: " + e.getMessage()), e);
+			}
+		}
+	}
+	
 	/**
 	 * Sets the class-loader to be used to load the user code.
 	 * 
@@ -25,10 +25,16 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import eu.stratosphere.api.common.accumulators.Accumulator;
+import eu.stratosphere.api.common.io.FileInputFormat;
 import eu.stratosphere.api.common.io.InputFormat;
+import eu.stratosphere.api.common.io.PushDownInputFormat;
+import eu.stratosphere.api.common.io.statistics.StatisticsCatalog;
+import eu.stratosphere.api.common.io.statistics.StatisticsCollector;
 import eu.stratosphere.api.common.typeutils.TypeSerializer;
 import eu.stratosphere.api.common.typeutils.TypeSerializerFactory;
 import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.core.fs.FileInputSplit;
+import eu.stratosphere.core.fs.Path;
 import eu.stratosphere.core.io.InputSplit;
 import eu.stratosphere.nephele.execution.CancelTaskException;
 import eu.stratosphere.nephele.execution.librarycache.LibraryCacheManager;
@@ -128,6 +134,17 @@ public class DataSourceTask<OT> extends AbstractInputTask<InputSplit> {
 			// start all chained tasks
 			RegularPactTask.openChainedTasks(this.chainedTasks, this);
 			
+			// file inputs record the statistics of the data they read in the catalog, if one is configured. formats
+			// with pushed-down projections or filters do not produce the records of the file, so they record nothing
+			final boolean pushedDown = this.format instanceof PushDownInputFormat &&
+				((PushDownInputFormat) this.format).hasPushedDownOperations();
+			final StatisticsCatalog catalog = this.format instanceof FileInputFormat && !pushedDown ?
+				StatisticsCatalog.getConfiguredCatalog() : null;
+			final StatisticsCollector statistics = catalog == null ? null : new StatisticsCollector();
+			if (statistics != null) {
+				this.output = new StatisticsCollectingCollector<OT>(this.output, statistics);
+			}
+			
 			// get input splits to read
 			final Iterator<InputSplit> splitIterator = getInputSplits();
 			
@@ -147,6 +164,10 @@ public class DataSourceTask<OT> extends AbstractInputTask<InputSplit> {
 			
 				// open input format
 				format.open(split);
+				
+				if (statistics != null && split instanceof FileInputSplit) {
+					statistics.addBytes(((FileInputSplit) split).getLength());
+				}
 	
 				if (LOG.isDebugEnabled()) {
 					LOG.debug(getLogString("Starting to read input from split " + split.toString()));
@@ -246,6 +267,10 @@ public class DataSourceTask<OT> extends AbstractInputTask<InputSplit> {
 			// close all chained tasks letting them report failure
 			RegularPactTask.closeChainedTasks(this.chainedTasks, this);
 			
+			if (statistics != null && !this.taskCanceled) {
+				reportStatistics(catalog, ((FileInputFormat<?>) (InputFormat<?, ?>) this.format).getFilePath(), statistics);
+			}
+			
 			// Merge and report accumulators
 			RegularPactTask.reportAndClearAccumulators(getEnvironment(),
 					new HashMap<String, Accumulator<?,?>>(), chainedTasks);
@@ -290,6 +315,22 @@ public class DataSourceTask<OT> extends AbstractInputTask<InputSplit> {
 		}
 	}
 	
+	/**
+	 * Records the statistics of the read input in the statistics catalog. Failures are only logged, because
+	 * the statistics are not essential for the result of the program.
+	 */
+	private void reportStatistics(StatisticsCatalog catalog, Path path, StatisticsCollector statistics) {
+		try {
+			catalog.write(StatisticsCatalog.getDataSetId(path), getEnvironment().getJobID().toString(),
+				getEnvironment().getIndexInSubtaskGroup(), getEnvironment().getCurrentNumberOfSubtasks(), statistics);
+		}
+		catch (Exception e) {
+			if (LOG.isWarnEnabled()) {
+				LOG.warn(getLogString("Could not record the statistics of the input in the catalog: " + e.getMessage()), e);
+			}
+		}
+	}
+	
 	/**
 	 * Sets the class-loader to be used to load the user code.
 	 * 
@@ -403,4 +444,32 @@ public class DataSourceTask<OT> extends AbstractInputTask<InputSplit> {
 	private String getLogString(String message, String taskName) {
 		return RegularPactTask.constructLogString(message, taskName, this);
 	}
+	
+	// ------------------------------------------------------------------------
+	
+	/**
+	 * A collector that adds all records to the statistics before forwarding them.
+	 */
+	private static final class StatisticsCollectingCollector<T> implements Collector<T> {
+		
+		private final Collector<T> delegate;
+		
+		private final StatisticsCollector statistics;
+		
+		private StatisticsCollectingCollector(Collector<T> delegate, StatisticsCollector statistics) {
+			this.delegate = delegate;
+			this.statistics = statistics;
+		}
+
+		@Override
+		public void collect(T record) {
+			this.statistics.collect(record);
+			this.delegate.collect(record);
+		}
+
+		@Override
+		public void close() {
+			this.delegate.close();
+		}
+	}
 }
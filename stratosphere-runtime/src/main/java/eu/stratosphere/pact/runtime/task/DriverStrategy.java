@@ -62,11 +62,15 @@ public enum DriverStrategy {
 
 	// co-grouping inputs
 	CO_GROUP(CoGroupDriver.class, null, PIPELINED, PIPELINED, true),
+	// co-grouping inputs by looking up the groups of the second input in an index over the first input
+	CO_GROUP_INDEXED_FIRST(CoGroupWithIndexedFirstDriver.class, null, FULL_DAM, PIPELINED, true),
 	
 	// the first input is build side, the second side is probe side of a hybrid hash table
 	HYBRIDHASH_BUILD_FIRST(MatchDriver.class, null, FULL_DAM, MATERIALIZING, true),
 	// the second input is build side, the first side is probe side of a hybrid hash table
 	HYBRIDHASH_BUILD_SECOND(MatchDriver.class, null, MATERIALIZING, FULL_DAM, true),
+	// the first input is materialized, the build side of the hybrid hash table is chosen at runtime from its size
+	HYBRIDHASH_ADAPTIVE(MatchDriver.class, null, FULL_DAM, FULL_DAM, true),
 	
 	// the second input is inner loop, the first input is outer loop and block-wise processed
 	NESTEDLOOP_BLOCKED_OUTER_FIRST(CrossDriver.class, null, MATERIALIZING, MATERIALIZING, false),
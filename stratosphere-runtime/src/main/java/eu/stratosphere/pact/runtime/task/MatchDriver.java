@@ -22,6 +22,7 @@ import eu.stratosphere.api.common.typeutils.TypePairComparatorFactory;
 import eu.stratosphere.api.common.typeutils.TypeSerializer;
 import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.pact.runtime.hash.AdaptiveHashMatchIterator;
 import eu.stratosphere.pact.runtime.hash.BuildFirstHashMatchIterator;
 import eu.stratosphere.pact.runtime.hash.BuildSecondHashMatchIterator;
 import eu.stratosphere.pact.runtime.sort.MergeMatchIterator;
@@ -121,6 +122,12 @@ public class MatchDriver<IT1, IT2, OT> implements PactDriver<GenericJoiner<IT1,
 						serializer2, comparator2, pairComparatorFactory.createComparator12(comparator1, comparator2),
 						memoryManager, ioManager, this.taskContext.getOwningNepheleTask(), availableMemory);
 				break;
+			case HYBRIDHASH_ADAPTIVE:
+				this.matchIterator = new AdaptiveHashMatchIterator<IT1, IT2, OT>(in1, in2, serializer1, comparator1,
+						serializer2, comparator2, pairComparatorFactory.createComparator12(comparator1, comparator2),
+						pairComparatorFactory.createComparator21(comparator1, comparator2),
+						memoryManager, ioManager, this.taskContext.getOwningNepheleTask(), availableMemory);
+				break;
 			default:
 				throw new Exception("Unsupported driver strategy for Match driver: " + ls.name());
 		}
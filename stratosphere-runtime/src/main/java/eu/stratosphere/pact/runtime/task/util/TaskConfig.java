@@ -204,6 +204,26 @@ public class TaskConfig {
 	private static final String ITERATION_SOLUTION_SET_UPDATE_WAIT = "iterative.ss-wait";
 
 	private static final String ITERATION_WORKSET_UPDATE = "iterative.ws-update";
+	
+	private static final String ITERATION_CHECKPOINT_PATH = "iterative.checkpoint.path";
+	
+	private static final String ITERATION_CHECKPOINT_INTERVAL = "iterative.checkpoint.interval";
+	
+	private static final String ITERATION_CHECKPOINT_PLAN_ID = "iterative.checkpoint.plan-id";
+	
+	private static final String ITERATION_CHECKPOINT_RESUME = "iterative.checkpoint.resume";
+	
+	private static final String ITERATION_ASYNCHRONOUS = "iterative.async";
+	
+	private static final String ITERATION_WORKSET_DEDUPLICATION_COMPARATOR = "iterative.ws-dedup.comparator";
+	
+	private static final String ITERATION_WORKSET_DEDUPLICATION_COMPARATOR_PARAMETERS = "iterative.ws-dedup.comparator.params";
+	
+	private static final String ITERATION_WORKSET_DEDUPLICATION_ORDER_COMPARATOR = "iterative.ws-dedup.order-comparator";
+	
+	private static final String ITERATION_WORKSET_DEDUPLICATION_ORDER_COMPARATOR_PARAMETERS = "iterative.ws-dedup.order-comparator.params";
+	
+	private static final String ITERATION_WORKSET_DEDUPLICATION_MEMORY = "iterative.ws-dedup.memory";
 
 	// ---------------------------------- Miscellaneous -------------------------------------------
 	
@@ -959,6 +979,77 @@ public class TaskConfig {
 	public boolean getIsWorksetUpdate() {
 		return this.config.getBoolean(ITERATION_WORKSET_UPDATE, false);
 	}
+	
+	public void setIterationCheckpointing(String path, String planId, int interval) {
+		if (path == null || planId == null) {
+			throw new NullPointerException();
+		}
+		if (interval <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.config.setString(ITERATION_CHECKPOINT_PATH, path);
+		this.config.setString(ITERATION_CHECKPOINT_PLAN_ID, planId);
+		this.config.setInteger(ITERATION_CHECKPOINT_INTERVAL, interval);
+	}
+	
+	public String getIterationCheckpointPath() {
+		return this.config.getString(ITERATION_CHECKPOINT_PATH, null);
+	}
+	
+	public String getIterationCheckpointPlanId() {
+		return this.config.getString(ITERATION_CHECKPOINT_PLAN_ID, null);
+	}
+	
+	public int getIterationCheckpointInterval() {
+		return this.config.getInteger(ITERATION_CHECKPOINT_INTERVAL, 0);
+	}
+	
+	public void setIsResumingIteration() {
+		this.config.setBoolean(ITERATION_CHECKPOINT_RESUME, true);
+	}
+	
+	public boolean getIsResumingIteration() {
+		return this.config.getBoolean(ITERATION_CHECKPOINT_RESUME, false);
+	}
+	
+	public void setIsAsynchronousIteration() {
+		this.config.setBoolean(ITERATION_ASYNCHRONOUS, true);
+	}
+	
+	public boolean getIsAsynchronousIteration() {
+		return this.config.getBoolean(ITERATION_ASYNCHRONOUS, false);
+	}
+	
+	public void setWorksetDeduplicationComparator(TypeComparatorFactory<?> factory) {
+		setTypeComparatorFactory(factory, ITERATION_WORKSET_DEDUPLICATION_COMPARATOR,
+			ITERATION_WORKSET_DEDUPLICATION_COMPARATOR_PARAMETERS);
+	}
+	
+	public <T> TypeComparatorFactory<T> getWorksetDeduplicationComparator(ClassLoader cl) {
+		return getTypeComparatorFactory(ITERATION_WORKSET_DEDUPLICATION_COMPARATOR,
+			ITERATION_WORKSET_DEDUPLICATION_COMPARATOR_PARAMETERS, cl);
+	}
+	
+	public void setWorksetDeduplicationOrderComparator(TypeComparatorFactory<?> factory) {
+		setTypeComparatorFactory(factory, ITERATION_WORKSET_DEDUPLICATION_ORDER_COMPARATOR,
+			ITERATION_WORKSET_DEDUPLICATION_ORDER_COMPARATOR_PARAMETERS);
+	}
+	
+	public <T> TypeComparatorFactory<T> getWorksetDeduplicationOrderComparator(ClassLoader cl) {
+		return getTypeComparatorFactory(ITERATION_WORKSET_DEDUPLICATION_ORDER_COMPARATOR,
+			ITERATION_WORKSET_DEDUPLICATION_ORDER_COMPARATOR_PARAMETERS, cl);
+	}
+	
+	public void setWorksetDeduplicationMemory(long memory) {
+		if (memory <= 0) {
+			throw new IllegalArgumentException();
+		}
+		this.config.setLong(ITERATION_WORKSET_DEDUPLICATION_MEMORY, memory);
+	}
+	
+	public long getWorksetDeduplicationMemory() {
+		return this.config.getLong(ITERATION_WORKSET_DEDUPLICATION_MEMORY, 0);
+	}
 
 	// --------------------------------------------------------------------------------------------
 	//                                    Miscellaneous
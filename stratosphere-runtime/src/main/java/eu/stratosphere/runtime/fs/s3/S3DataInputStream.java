@@ -13,11 +13,18 @@
 
 package eu.stratosphere.runtime.fs.s3;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
-import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
 
 import eu.stratosphere.core.fs.FSDataInputStream;
@@ -25,15 +32,57 @@ import eu.stratosphere.util.StringUtils;
 
 /**
  * This class implements an {@link FSDataInputStream} that downloads its data from Amazon S3 in the background.
- * Essentially, this class is just a wrapper to the Amazon AWS SDK.
- * 
+ * The object is fetched in ranges with separate GET requests. While the reading thread consumes one range, the
+ * following ranges are fetched concurrently by the given executor, up to a bounded number of ranges ahead. Ranges
+ * that were discarded while they were fetched count against that bound until their requests return.
+ * Seeking to a position outside of the current range discards the ranges read ahead and continues at the new
+ * position.
  */
 public class S3DataInputStream extends FSDataInputStream {
 
 	/**
-	 * The input stream which reads the actual S3 object content.
+	 * The default size of the ranges that are fetched with a single request, 4 MiBytes.
 	 */
-	private final InputStream inputStream;
+	public static final int DEFAULT_RANGE_SIZE = 4 * 1024 * 1024;
+
+	private final AmazonS3Client s3Client;
+
+	private final String bucket;
+
+	private final String object;
+
+	private final long length;
+
+	private final S3StreamTransfers transfers;
+
+	private final int rangeSize;
+
+	private final int readAhead;
+
+	/**
+	 * The ranges which are fetched in the background, in the order of their positions.
+	 */
+	private final Queue<Future<byte[]>> rangesInFlight = new ArrayDeque<Future<byte[]>>();
+
+	/**
+	 * The range which is currently read.
+	 */
+	private byte[] range = new byte[0];
+
+	/**
+	 * The position of the current range in the object.
+	 */
+	private long rangeStart;
+
+	/**
+	 * The read position within the current range.
+	 */
+	private int rangePos;
+
+	/**
+	 * The position in the object at which the next range to be requested starts.
+	 */
+	private long nextRequestStart;
 
 	/**
 	 * Constructs a new input stream which reads its data from the specified S3 object.
@@ -44,81 +93,188 @@ public class S3DataInputStream extends FSDataInputStream {
 	 *        the name of the S3 bucket the object is stored in
 	 * @param object
 	 *        the name of the S3 object whose content shall be read
-	 * @throws IOException
-	 *         thrown if an error occurs while accessing the specified S3 object
+	 * @param length
+	 *        the length of the S3 object in bytes
+	 * @param executor
+	 *        the executor to fetch the ranges with, which may be shared with other streams
+	 * @param rangeSize
+	 *        the number of bytes fetched with a single request
+	 * @param readAhead
+	 *        the maximal number of ranges that are fetched concurrently
 	 */
-	S3DataInputStream(final AmazonS3Client s3Client, final String bucket, final String object) throws IOException {
+	S3DataInputStream(final AmazonS3Client s3Client, final String bucket, final String object, final long length,
+			final ExecutorService executor, final int rangeSize, final int readAhead) {
 
-		S3Object s3o = null;
-		try {
-			s3o = s3Client.getObject(bucket, object);
-		} catch (AmazonServiceException e) {
-			throw new IOException(StringUtils.stringifyException(e));
+		if (rangeSize < 1 || readAhead < 1) {
+			throw new IllegalArgumentException("The range size and the read-ahead must be positive");
 		}
 
-		this.inputStream = s3o.getObjectContent();
+		this.s3Client = s3Client;
+		this.bucket = bucket;
+		this.object = object;
+		this.length = length;
+		this.transfers = new S3StreamTransfers(executor, readAhead);
+		this.rangeSize = rangeSize;
+		this.readAhead = readAhead;
 	}
 
 
 	@Override
 	public int available() throws IOException {
 
-		return this.inputStream.available();
+		return this.range.length - this.rangePos;
 	}
 
 
 	@Override
 	public void close() throws IOException {
 
-		this.inputStream.close();
+		discardRangesInFlight();
+		this.range = new byte[0];
+		this.rangePos = 0;
 	}
 
 
 	@Override
-	public void mark(final int readlimit) {
+	public int read() throws IOException {
+
+		if (this.rangePos == this.range.length && !nextRange()) {
+			return -1;
+		}
 
-		this.inputStream.mark(readlimit);
+		return this.range[this.rangePos++] & 0xff;
 	}
 
 
 	@Override
-	public boolean markSupported() {
+	public int read(final byte[] b) throws IOException {
 
-		return this.inputStream.markSupported();
+		return read(b, 0, b.length);
 	}
 
 
 	@Override
-	public int read() throws IOException {
+	public int read(final byte[] b, final int off, final int len) throws IOException {
+
+		if (len == 0) {
+			return 0;
+		}
+		if (this.rangePos == this.range.length && !nextRange()) {
+			return -1;
+		}
 
-		return this.inputStream.read();
+		final int bytesToCopy = Math.min(len, this.range.length - this.rangePos);
+		System.arraycopy(this.range, this.rangePos, b, off, bytesToCopy);
+		this.rangePos += bytesToCopy;
+
+		return bytesToCopy;
 	}
 
 
 	@Override
-	public int read(final byte[] b) throws IOException {
+	public long skip(final long n) throws IOException {
 
-		return this.inputStream.read(b);
+		final long position = this.rangeStart + this.rangePos;
+		final long skipped = Math.max(0, Math.min(n, this.length - position));
+		seek(position + skipped);
+		return skipped;
 	}
 
 
 	@Override
-	public int read(final byte[] b, final int off, final int len) throws IOException {
+	public void seek(final long desired) throws IOException {
+
+		if (desired < 0) {
+			throw new IOException("Cannot seek to a negative position");
+		}
 
-		return this.inputStream.read(b, off, len);
+		if (desired >= this.rangeStart && desired <= this.rangeStart + this.range.length) {
+			// within the current range
+			this.rangePos = (int) (desired - this.rangeStart);
+			return;
+		}
+
+		discardRangesInFlight();
+		this.range = new byte[0];
+		this.rangeStart = desired;
+		this.rangePos = 0;
+		this.nextRequestStart = desired;
 	}
 
+	// --------------------------------------------------------------------------------------------
 
-	@Override
-	public void reset() throws IOException {
+	/**
+	 * Switches to the next range, after making sure that the following ranges are requested.
+	 * 
+	 * @return <code>false</code> if the end of the object has been reached, <code>true</code> otherwise
+	 */
+	private boolean nextRange() throws IOException {
+
+		while (this.rangesInFlight.size() < this.readAhead && this.nextRequestStart < this.length) {
+			final long start = this.nextRequestStart;
+			final long end = Math.min(start + this.rangeSize, this.length);
+			this.rangesInFlight.add(this.transfers.submit(new Callable<byte[]>() {
+
+				@Override
+				public byte[] call() throws IOException {
+					return fetchRange(start, end);
+				}
+			}));
+			this.nextRequestStart = end;
+		}
 
-		this.inputStream.reset();
+		final Future<byte[]> next = this.rangesInFlight.poll();
+		if (next == null) {
+			return false;
+		}
+
+		final byte[] data;
+		try {
+			data = next.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for data from S3");
+		} catch (ExecutionException e) {
+			throw new IOException("Reading from S3 failed: " + StringUtils.stringifyException(e.getCause()));
+		}
+
+		this.rangeStart += this.range.length;
+		this.range = data;
+		this.rangePos = 0;
+		return true;
 	}
 
+	/**
+	 * Fetches the bytes of the object from the start (inclusive) to the end (exclusive) position.
+	 */
+	private byte[] fetchRange(final long start, final long end) throws IOException {
 
-	@Override
-	public void seek(final long desired) throws IOException {
+		final GetObjectRequest request = new GetObjectRequest(this.bucket, this.object);
+		request.setRange(start, end - 1);
 
-		this.inputStream.skip(desired);
+		final S3Object s3o = this.s3Client.getObject(request);
+		final InputStream in = s3o.getObjectContent();
+		try {
+			final byte[] data = new byte[(int) (end - start)];
+			int read = 0;
+			while (read < data.length) {
+				final int n = in.read(data, read, data.length - read);
+				if (n < 0) {
+					throw new EOFException("The S3 object " + this.object + " ended before position " + end);
+				}
+				read += n;
+			}
+			return data;
+		} finally {
+			in.close();
+		}
+	}
+
+	private void discardRangesInFlight() {
+
+		for (Future<byte[]> f : this.rangesInFlight) {
+			f.cancel(true);
+		}
+		this.rangesInFlight.clear();
 	}
 }
@@ -15,9 +15,17 @@ package eu.stratosphere.runtime.fs.s3;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.s3.AmazonS3Client;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
@@ -34,6 +42,13 @@ import com.amazonaws.services.s3.model.UploadPartResult;
 import eu.stratosphere.core.fs.FSDataOutputStream;
 import eu.stratosphere.util.StringUtils;
 
+/**
+ * This class implements an {@link FSDataOutputStream} that uploads its data to Amazon S3. Data that fits into a
+ * single buffer is uploaded with a single request when the stream is closed. Larger data is uploaded as a multipart
+ * upload, where each full buffer becomes a part. The parts are uploaded concurrently by the given executor, while
+ * the writing thread continues with the next buffer. The number of parts in flight, and with that the number of
+ * buffers, is bounded.
+ */
 public final class S3DataOutputStream extends FSDataOutputStream {
 
 	private static final int MAX_PART_NUMBER = 10000;
@@ -44,14 +59,35 @@ public final class S3DataOutputStream extends FSDataOutputStream {
 
 	private final boolean useRRS;
 
-	private final byte[] buf;
-
 	private final String bucket;
 
 	private final String object;
 
+	private final S3StreamTransfers transfers;
+
+	private final int bufferSize;
+
+	private final int maxPartsInFlight;
+
 	private final List<PartETag> partETags = new ArrayList<PartETag>();
 
+	/**
+	 * The uploads of the parts which have not been collected yet, in the order of their part numbers.
+	 */
+	private final Queue<Future<PartETag>> partsInFlight = new ArrayDeque<Future<PartETag>>();
+
+	/**
+	 * The buffers which are not used by the writing thread or an upload.
+	 */
+	private final Queue<byte[]> freeBuffers = new ConcurrentLinkedQueue<byte[]>();
+
+	/**
+	 * The number of buffers allocated so far.
+	 */
+	private int numBuffers;
+
+	private byte[] buf;
+
 	/**
 	 * The ID of a multipart upload in case multipart upload is used, otherwise <code>null</code>.
 	 */
@@ -64,7 +100,9 @@ public final class S3DataOutputStream extends FSDataOutputStream {
 
 	private int bytesWritten = 0;
 
-	private final class InternalUploadInputStream extends InputStream {
+	private boolean closed;
+
+	private static final class InternalUploadInputStream extends InputStream {
 
 		private final byte[] srcBuf;
 
@@ -73,7 +111,7 @@ public final class S3DataOutputStream extends FSDataOutputStream {
 		private int bytesRead = 0;
 
 		private InternalUploadInputStream(final byte[] srcBuf, final int length) {
-			this.srcBuf = buf;
+			this.srcBuf = srcBuf;
 			this.length = length;
 		}
 
@@ -87,7 +125,7 @@ public final class S3DataOutputStream extends FSDataOutputStream {
 				return -1;
 			}
 
-			return (int) this.srcBuf[this.bytesRead++];
+			return this.srcBuf[this.bytesRead++] & 0xff;
 		}
 
 		/**
@@ -140,14 +178,41 @@ public final class S3DataOutputStream extends FSDataOutputStream {
 		}
 	}
 
-	S3DataOutputStream(final AmazonS3Client s3Client, final String bucket, final String object, final byte[] buf,
-			final boolean useRRS) {
+	/**
+	 * Constructs a new output stream which uploads its data to the specified S3 object.
+	 * 
+	 * @param s3Client
+	 *        the S3 client to connect to Amazon S3
+	 * @param bucket
+	 *        the name of the S3 bucket to store the object in
+	 * @param object
+	 *        the name of the S3 object to write
+	 * @param bufferSize
+	 *        the size of the buffers, which is the size of the parts of a multipart upload
+	 * @param useRRS
+	 *        <code>true</code> to store the object with reduced redundancy
+	 * @param executor
+	 *        the executor to upload the parts with, which may be shared with other streams
+	 * @param maxPartsInFlight
+	 *        the maximal number of parts that are uploaded concurrently
+	 */
+	S3DataOutputStream(final AmazonS3Client s3Client, final String bucket, final String object, final int bufferSize,
+			final boolean useRRS, final ExecutorService executor, final int maxPartsInFlight) {
+
+		if (maxPartsInFlight < 1) {
+			throw new IllegalArgumentException("At least one part must be uploaded at a time");
+		}
 
 		this.s3Client = s3Client;
 		this.bucket = bucket;
 		this.object = object;
-		this.buf = buf;
+		this.bufferSize = bufferSize;
 		this.useRRS = useRRS;
+		this.transfers = new S3StreamTransfers(executor, maxPartsInFlight);
+		this.maxPartsInFlight = maxPartsInFlight;
+
+		this.buf = new byte[bufferSize];
+		this.numBuffers = 1;
 	}
 
 
@@ -166,16 +231,17 @@ public final class S3DataOutputStream extends FSDataOutputStream {
 	@Override
 	public void write(final byte[] b, final int off, final int len) throws IOException {
 
+		final int end = off + len;
 		int nextPos = off;
 
-		while (nextPos < len) {
+		while (nextPos < end) {
 
 			// Upload buffer to S3
 			if (this.bytesWritten == this.buf.length) {
 				uploadPartAndFlushBuffer();
 			}
 
-			final int bytesToCopy = Math.min(this.buf.length - this.bytesWritten, len - nextPos);
+			final int bytesToCopy = Math.min(this.buf.length - this.bytesWritten, end - nextPos);
 			System.arraycopy(b, nextPos, this.buf, this.bytesWritten, bytesToCopy);
 			this.bytesWritten += bytesToCopy;
 			nextPos += bytesToCopy;
@@ -193,6 +259,11 @@ public final class S3DataOutputStream extends FSDataOutputStream {
 	@Override
 	public void close() throws IOException {
 
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+
 		if (this.uploadId == null) {
 			// This is not a multipart upload
 
@@ -222,12 +293,17 @@ public final class S3DataOutputStream extends FSDataOutputStream {
 
 		} else {
 
-			if (this.bytesWritten > 0) {
-				uploadPartAndFlushBuffer();
-			}
-
 			boolean operationSuccessful = false;
 			try {
+				if (this.bytesWritten > 0) {
+					uploadPartAndFlushBuffer();
+				}
+
+				// wait for all parts to be uploaded
+				while (!this.partsInFlight.isEmpty()) {
+					collectOldestPart();
+				}
+
 				final CompleteMultipartUploadRequest request = new CompleteMultipartUploadRequest(this.bucket,
 					this.object,
 					this.uploadId, this.partETags);
@@ -252,6 +328,10 @@ public final class S3DataOutputStream extends FSDataOutputStream {
 		// Flush does nothing in this implementation since we ways have to transfer at least 5 MB in a multipart upload
 	}
 
+	/**
+	 * Starts the upload of the current buffer as the next part and continues with a free buffer. If the maximal
+	 * number of parts is in flight, the method waits for the oldest part to be uploaded.
+	 */
 	private void uploadPartAndFlushBuffer() throws IOException {
 
 		boolean operationSuccessful = false;
@@ -266,23 +346,36 @@ public final class S3DataOutputStream extends FSDataOutputStream {
 				throw new IOException("Cannot upload any more data: maximum part number reached");
 			}
 
-			final InputStream inputStream = new InternalUploadInputStream(this.buf, this.bytesWritten);
-			final UploadPartRequest request = new UploadPartRequest();
-			request.setBucketName(this.bucket);
-			request.setKey(this.object);
-			request.setInputStream(inputStream);
-			request.setUploadId(this.uploadId);
-			request.setPartSize(this.bytesWritten);
-			request.setPartNumber(this.partNumber++);
-
-			final UploadPartResult result = this.s3Client.uploadPart(request);
-			this.partETags.add(result.getPartETag());
+			final byte[] partBuffer = this.buf;
+			final int partLength = this.bytesWritten;
+			final int partNumber = this.partNumber++;
+
+			this.partsInFlight.add(this.transfers.submit(new Callable<PartETag>() {
+
+				@Override
+				public PartETag call() {
+
+					try {
+						final UploadPartRequest request = new UploadPartRequest();
+						request.setBucketName(bucket);
+						request.setKey(object);
+						request.setInputStream(new InternalUploadInputStream(partBuffer, partLength));
+						request.setUploadId(uploadId);
+						request.setPartSize(partLength);
+						request.setPartNumber(partNumber);
+
+						final UploadPartResult result = s3Client.uploadPart(request);
+						return result.getPartETag();
+					} finally {
+						freeBuffers.add(partBuffer);
+					}
+				}
+			}));
 
+			this.buf = nextBuffer();
 			this.bytesWritten = 0;
 			operationSuccessful = true;
 
-		} catch (AmazonServiceException e) {
-			throw new IOException(StringUtils.stringifyException(e));
 		} finally {
 			if (!operationSuccessful) {
 				abortUpload();
@@ -290,6 +383,47 @@ public final class S3DataOutputStream extends FSDataOutputStream {
 		}
 	}
 
+	/**
+	 * Returns a free buffer. A new buffer is allocated as long as fewer parts than the maximum are in flight,
+	 * otherwise the method waits for the oldest part to be uploaded and reuses its buffer.
+	 */
+	private byte[] nextBuffer() throws IOException {
+
+		// collect the finished parts early, to report failed uploads as soon as possible
+		while (!this.partsInFlight.isEmpty() && this.partsInFlight.peek().isDone()) {
+			collectOldestPart();
+		}
+
+		byte[] buffer = this.freeBuffers.poll();
+		if (buffer == null && this.numBuffers <= this.maxPartsInFlight) {
+			this.numBuffers++;
+			return new byte[this.bufferSize];
+		}
+
+		while (buffer == null) {
+			collectOldestPart();
+			buffer = this.freeBuffers.poll();
+		}
+		return buffer;
+	}
+
+	/**
+	 * Waits for the oldest part in flight to be uploaded and records its ETag.
+	 */
+	private void collectOldestPart() throws IOException {
+
+		final Future<PartETag> part = this.partsInFlight.poll();
+		try {
+			this.partETags.add(part.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for the upload of a part");
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			throw new IOException("Uploading a part failed: " + StringUtils.stringifyException(cause));
+		}
+	}
+
 	private String initiateMultipartUpload() throws IOException {
 
 		boolean operationSuccessful = false;
@@ -322,11 +456,22 @@ public final class S3DataOutputStream extends FSDataOutputStream {
 			return;
 		}
 
+		// parts that are still uploading would otherwise be stored after the abort
+		for (Future<PartETag> part : this.partsInFlight) {
+			part.cancel(false);
+			try {
+				part.get();
+			} catch (Exception e) {
+				// Ignore exception, the upload is aborted anyway
+			}
+		}
+		this.partsInFlight.clear();
+
 		try {
 			final AbortMultipartUploadRequest request = new AbortMultipartUploadRequest(this.bucket, this.object,
 				this.uploadId);
 			this.s3Client.abortMultipartUpload(request);
-		} catch (AmazonServiceException e) {
+		} catch (AmazonClientException e) {
 			// Ignore exception
 		}
 	}
@@ -25,6 +25,9 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -86,6 +89,12 @@ public final class S3FileSystem extends FileSystem {
 	 */
 	public static final String S3_SECRET_KEY_KEY = "fs.s3.secretKey";
 
+	/**
+	 * The configuration key to set the number of parts that a stream uploads, or the number of ranges that it
+	 * reads, concurrently.
+	 */
+	public static final String S3_TRANSFERS_PER_STREAM_KEY = "fs.s3.transfersPerStream";
+
 	/**
 	 * The default host to connect to.
 	 */
@@ -96,6 +105,11 @@ public final class S3FileSystem extends FileSystem {
 	 */
 	private static final boolean DEFAULT_S3_RRS = true;
 
+	/**
+	 * The default number of concurrent transfers per stream.
+	 */
+	private static final int DEFAULT_S3_TRANSFERS_PER_STREAM = 4;
+
 	/**
 	 * The default port to connect to.
 	 */
@@ -141,11 +155,34 @@ public final class S3FileSystem extends FileSystem {
 
 	private final boolean useRRS;
 
+	/**
+	 * The number of parts uploaded and ranges read ahead concurrently per stream.
+	 */
+	private final int transfersPerStream;
+
+	/**
+	 * The executor for the part uploads and ranged reads of all streams. It grows with the number of streams, which
+	 * each bound the number of their concurrent transfers, and shrinks when the threads are idle.
+	 */
+	private final ExecutorService transferExecutor;
+
 	public S3FileSystem() {
 
 		this.useRRS = GlobalConfiguration.getBoolean(S3_RRS_KEY, DEFAULT_S3_RRS);
 		LOG.info("Creating new S3 file system binding with Reduced Redundancy Storage "
 			+ (this.useRRS ? "enabled" : "disabled"));
+
+		this.transfersPerStream = Math.max(1, GlobalConfiguration.getInteger(S3_TRANSFERS_PER_STREAM_KEY,
+			DEFAULT_S3_TRANSFERS_PER_STREAM));
+		this.transferExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(final Runnable r) {
+				final Thread t = new Thread(r, "S3 Transfer Thread");
+				t.setDaemon(true);
+				return t;
+			}
+		});
 	}
 
 
@@ -361,7 +398,8 @@ public final class S3FileSystem extends FileSystem {
 			throw new IOException(f.toUri() + " cannot be opened");
 		}
 
-		return new S3DataInputStream(this.s3Client, bop.getBucket(), bop.getObject());
+		return new S3DataInputStream(this.s3Client, bop.getBucket(), bop.getObject(), fileStatus.getLen(),
+			this.transferExecutor, S3DataInputStream.DEFAULT_RANGE_SIZE, this.transfersPerStream);
 	}
 
 
@@ -675,9 +713,8 @@ public final class S3FileSystem extends FileSystem {
 				+ " bytes");
 		}
 
-		final byte[] buf = new byte[bufferSize]; // TODO: Use memory manager to allocate larger pages
-
-		return new S3DataOutputStream(this.s3Client, bop.getBucket(), bop.getObject(), buf, this.useRRS);
+		return new S3DataOutputStream(this.s3Client, bop.getBucket(), bop.getObject(), bufferSize, this.useRRS,
+			this.transferExecutor, this.transfersPerStream);
 	}
 
 
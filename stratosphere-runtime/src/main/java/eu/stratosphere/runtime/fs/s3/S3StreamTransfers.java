@@ -0,0 +1,113 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.runtime.fs.s3;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Submits the transfers of a single stream to the executor that all streams of the file system share, such that
+ * at most a given number of the stream's transfers run at the same time. A transfer holds its slot until it has
+ * actually finished, so transfers that were cancelled while running still count until they return.
+ * <p>
+ * This class is not thread-safe, it is used by the thread that reads or writes the stream.
+ */
+final class S3StreamTransfers {
+
+	private final ExecutorService executor;
+
+	private final Semaphore slots;
+
+	/**
+	 * Creates the transfers of a stream.
+	 *
+	 * @param executor
+	 *        the executor that runs the transfers
+	 * @param maxConcurrentTransfers
+	 *        the maximal number of transfers of the stream that run at the same time
+	 */
+	S3StreamTransfers(final ExecutorService executor, final int maxConcurrentTransfers) {
+
+		if (maxConcurrentTransfers < 1) {
+			throw new IllegalArgumentException("At least one transfer must run at a time");
+		}
+
+		this.executor = executor;
+		this.slots = new Semaphore(maxConcurrentTransfers);
+	}
+
+	/**
+	 * Submits the given transfer, after waiting for a free slot if all slots of the stream are taken.
+	 *
+	 * @param transfer
+	 *        the transfer to run
+	 * @return the future of the transfer's result
+	 * @throws IOException
+	 *         thrown if the thread was interrupted while waiting or the executor does not accept the transfer
+	 */
+	<T> Future<T> submit(final Callable<T> transfer) throws IOException {
+
+		try {
+			this.slots.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a transfer to S3 to finish");
+		}
+
+		// the slot is released by whichever comes first, the start of the transfer or its cancellation
+		final AtomicBoolean claimed = new AtomicBoolean();
+		final Semaphore slots = this.slots;
+
+		final FutureTask<T> task = new FutureTask<T>(new Callable<T>() {
+
+			@Override
+			public T call() throws Exception {
+
+				if (!claimed.compareAndSet(false, true)) {
+					throw new CancellationException();
+				}
+				try {
+					return transfer.call();
+				} finally {
+					slots.release();
+				}
+			}
+		}) {
+
+			@Override
+			protected void done() {
+
+				if (isCancelled() && claimed.compareAndSet(false, true)) {
+					slots.release();
+				}
+			}
+		};
+
+		try {
+			this.executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			this.slots.release();
+			throw new IOException("The transfer to S3 was rejected: " + e.getMessage());
+		}
+
+		return task;
+	}
+}
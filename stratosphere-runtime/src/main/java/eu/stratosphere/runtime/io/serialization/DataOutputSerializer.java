@@ -14,18 +14,19 @@
  **********************************************************************************************************************/
 package eu.stratosphere.runtime.io.serialization;
 
+import eu.stratosphere.core.memory.DataInputView;
+import eu.stratosphere.core.memory.DataOutputView;
 import eu.stratosphere.core.memory.MemoryUtils;
 
-import java.io.DataOutput;
 import java.io.IOException;
 import java.io.UTFDataFormatException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 /**
- * A simple and efficient serializer for the {@link java.io.DataOutput} interface.
+ * A simple and efficient serializer for the {@link eu.stratosphere.core.memory.DataOutputView} interface.
  */
-public class DataOutputSerializer implements DataOutput {
+public class DataOutputSerializer implements DataOutputView {
 	
 	private byte[] buffer;
 	
@@ -237,6 +238,29 @@ public class DataOutputSerializer implements DataOutput {
 	}
 	
 	
+	@Override
+	public void skipBytesToWrite(int numBytes) throws IOException {
+		if (numBytes < 0) {
+			throw new IllegalArgumentException();
+		}
+		if (this.position > this.buffer.length - numBytes) {
+			resize(numBytes);
+		}
+		this.position += numBytes;
+	}
+
+	@Override
+	public void write(DataInputView source, int numBytes) throws IOException {
+		if (numBytes < 0) {
+			throw new IllegalArgumentException();
+		}
+		if (this.position > this.buffer.length - numBytes) {
+			resize(numBytes);
+		}
+		source.readFully(this.buffer, this.position, numBytes);
+		this.position += numBytes;
+	}
+	
 	private final void resize(int minCapacityAdd) throws IOException {
 		try {
 			final int newLen = Math.max(this.buffer.length * 2, this.buffer.length + minCapacityAdd);
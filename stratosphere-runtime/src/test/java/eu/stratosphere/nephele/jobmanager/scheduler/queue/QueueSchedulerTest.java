@@ -105,15 +105,53 @@ public class QueueSchedulerTest {
 	 */
 	private ExecutionGraph createExecutionGraph(final ChannelType channelType, final InstanceManager instanceManager) {
 
+		return createExecutionGraph(channelType, instanceManager, 1);
+	}
+
+	/**
+	 * Constructs a sample execution graph consisting of two vertices with the given number of subtasks, connected by a
+	 * channel of the given type.
+	 * 
+	 * @param channelType
+	 *        the channel type to connect the vertices with
+	 * @param instanceManager
+	 *        the instance manager that shall be used during the creation of the execution graph
+	 * @param numberOfSubtasks
+	 *        the number of subtasks of each vertex
+	 * @return a sample execution graph
+	 */
+	private ExecutionGraph createExecutionGraph(final ChannelType channelType, final InstanceManager instanceManager,
+			final int numberOfSubtasks) {
+
+		return createExecutionGraph(channelType, instanceManager, numberOfSubtasks, numberOfSubtasks);
+	}
+
+	/**
+	 * Constructs a sample execution graph consisting of an input and an output vertex with the given numbers of
+	 * subtasks, connected by a channel of the given type.
+	 * 
+	 * @param channelType
+	 *        the channel type to connect the vertices with
+	 * @param instanceManager
+	 *        the instance manager that shall be used during the creation of the execution graph
+	 * @param numberOfInputSubtasks
+	 *        the number of subtasks of the input vertex
+	 * @param numberOfOutputSubtasks
+	 *        the number of subtasks of the output vertex
+	 * @return a sample execution graph
+	 */
+	private ExecutionGraph createExecutionGraph(final ChannelType channelType, final InstanceManager instanceManager,
+			final int numberOfInputSubtasks, final int numberOfOutputSubtasks) {
+
 		final JobGraph jobGraph = new JobGraph("Job Graph");
 
 		final JobInputVertex inputVertex = new JobInputVertex("Input 1", jobGraph);
 		inputVertex.setInputClass(InputTask.class);
-		inputVertex.setNumberOfSubtasks(1);
+		inputVertex.setNumberOfSubtasks(numberOfInputSubtasks);
 
 		final JobOutputVertex outputVertex = new JobOutputVertex("Output 1", jobGraph);
 		outputVertex.setOutputClass(OutputTask.class);
-		outputVertex.setNumberOfSubtasks(1);
+		outputVertex.setNumberOfSubtasks(numberOfOutputSubtasks);
 
 		try {
 			inputVertex.connectTo(outputVertex, channelType);
@@ -183,4 +221,225 @@ public class QueueSchedulerTest {
 			}
 		}
 	}
+
+	/**
+	 * Checks that the FIFO policy holds back a job until the instances occupied by a previously submitted job have
+	 * been released.
+	 */
+	@Test
+	public void testFifoPolicyQueuesJobUntilInstancesAreAvailable() {
+
+		final TestInstanceManager tim = new TestInstanceManager();
+		final TestDeploymentManager tdm = new TestDeploymentManager();
+		final QueueScheduler scheduler = new QueueScheduler(tdm, tim, QueueScheduler.QueuePolicy.FIFO, -1);
+
+		final ExecutionGraph firstGraph = createExecutionGraph(ChannelType.IN_MEMORY, tim);
+		final ExecutionGraph secondGraph = createExecutionGraph(ChannelType.IN_MEMORY, tim);
+
+		try {
+			try {
+				scheduler.schedulJob(firstGraph);
+				scheduler.schedulJob(secondGraph);
+			} catch (SchedulingException e) {
+				fail(StringUtils.stringifyException(e));
+			}
+
+			tdm.waitForDeployment();
+			assertEquals(firstGraph.getJobID(), tdm.getIDOfLastDeployedJob());
+
+			// The test instance manager only offers a single instance, so the second job must wait
+			assertEquals(1, scheduler.getNumberOfWaitingJobs());
+
+			final List<ExecutionVertex> listOfDeployedVertices = tdm.getListOfLastDeployedVertices();
+			tdm.clear();
+
+			for (final ExecutionVertex vertex : listOfDeployedVertices) {
+				vertex.updateExecutionState(ExecutionState.STARTING);
+				vertex.updateExecutionState(ExecutionState.RUNNING);
+				vertex.updateExecutionState(ExecutionState.FINISHING);
+				vertex.updateExecutionState(ExecutionState.FINISHED);
+			}
+
+			// Once the first job has finished, the second one is started
+			tdm.waitForDeployment();
+			assertEquals(secondGraph.getJobID(), tdm.getIDOfLastDeployedJob());
+			assertEquals(0, scheduler.getNumberOfWaitingJobs());
+		} finally {
+			try {
+				LibraryCacheManager.unregister(firstGraph.getJobID());
+				LibraryCacheManager.unregister(secondGraph.getJobID());
+			} catch (IOException ioe) {
+				// Ignore exception here
+			}
+		}
+	}
+
+	/**
+	 * Checks that jobs which are admitted together with a newly submitted job, because instances have become available
+	 * since the last admission, are started as well.
+	 */
+	@Test(timeout = 30000)
+	public void testSubmissionStartsOtherAdmittedJobs() {
+
+		final TestInstanceManager tim = new TestInstanceManager();
+		final TestDeploymentManager tdm = new TestDeploymentManager();
+		final QueueScheduler scheduler = new QueueScheduler(tdm, tim, QueueScheduler.QueuePolicy.FIFO, -1);
+
+		final ExecutionGraph firstGraph = createExecutionGraph(ChannelType.IN_MEMORY, tim);
+		final ExecutionGraph secondGraph = createExecutionGraph(ChannelType.IN_MEMORY, tim);
+		final ExecutionGraph thirdGraph = createExecutionGraph(ChannelType.IN_MEMORY, tim);
+
+		try {
+			try {
+				scheduler.schedulJob(firstGraph);
+				scheduler.schedulJob(secondGraph);
+			} catch (SchedulingException e) {
+				fail(StringUtils.stringifyException(e));
+			}
+
+			tdm.waitForDeployment(firstGraph.getJobID());
+			assertEquals(1, scheduler.getNumberOfWaitingJobs());
+
+			// Two more task managers register, so the waiting job fits in along with the next submitted one
+			tim.setNumberOfAvailableInstances(3);
+
+			try {
+				scheduler.schedulJob(thirdGraph);
+			} catch (SchedulingException e) {
+				fail(StringUtils.stringifyException(e));
+			}
+
+			assertEquals(0, scheduler.getNumberOfWaitingJobs());
+			tdm.waitForDeployment(secondGraph.getJobID());
+			tdm.waitForDeployment(thirdGraph.getJobID());
+		} finally {
+			try {
+				LibraryCacheManager.unregister(firstGraph.getJobID());
+				LibraryCacheManager.unregister(secondGraph.getJobID());
+				LibraryCacheManager.unregister(thirdGraph.getJobID());
+			} catch (IOException ioe) {
+				// Ignore exception here
+			}
+		}
+	}
+
+	/**
+	 * Checks that a job which requires more instances than a single job may occupy is limited to that number of
+	 * instances instead of being rejected.
+	 */
+	@Test
+	public void testJobExceedingInstanceLimitIsLimited() {
+
+		final TestInstanceManager tim = new TestInstanceManager();
+		final TestDeploymentManager tdm = new TestDeploymentManager();
+		final QueueScheduler scheduler = new QueueScheduler(tdm, tim, QueueScheduler.QueuePolicy.FAIR, 1);
+
+		// Two subtasks per vertex require two instances, but the test instance manager offers only one
+		final ExecutionGraph executionGraph = createExecutionGraph(ChannelType.IN_MEMORY, tim, 2);
+
+		try {
+			try {
+				scheduler.schedulJob(executionGraph);
+			} catch (SchedulingException e) {
+				fail(StringUtils.stringifyException(e));
+			}
+
+			tdm.waitForDeployment();
+			assertEquals(executionGraph.getJobID(), tdm.getIDOfLastDeployedJob());
+			assertEquals(4, tdm.getListOfLastDeployedVertices().size());
+			assertEquals(0, scheduler.getNumberOfWaitingJobs());
+		} finally {
+			try {
+				LibraryCacheManager.unregister(executionGraph.getJobID());
+			} catch (IOException ioe) {
+				// Ignore exception here
+			}
+		}
+	}
+
+	/**
+	 * Checks that the FIFO policy admits a job whose maximum instance requirements exceed the available instances, as
+	 * long as its minimum requirements, which the job was validated against, are met.
+	 */
+	@Test
+	public void testFifoPolicyAdmitsJobByMinimumRequirements() {
+
+		final TestInstanceManager tim = new TestInstanceManager();
+		final TestDeploymentManager tdm = new TestDeploymentManager();
+		final QueueScheduler scheduler = new QueueScheduler(tdm, tim, QueueScheduler.QueuePolicy.FIFO, -1);
+
+		// The stage requires at least one and at most three instances, the test instance manager offers one
+		final ExecutionGraph executionGraph = createExecutionGraph(ChannelType.NETWORK, tim, 1, 2);
+
+		try {
+			try {
+				scheduler.schedulJob(executionGraph);
+			} catch (SchedulingException e) {
+				fail(StringUtils.stringifyException(e));
+			}
+
+			assertEquals(0, scheduler.getNumberOfWaitingJobs());
+			tdm.waitForDeployment();
+			assertEquals(executionGraph.getJobID(), tdm.getIDOfLastDeployedJob());
+		} finally {
+			try {
+				LibraryCacheManager.unregister(executionGraph.getJobID());
+			} catch (IOException ioe) {
+				// Ignore exception here
+			}
+		}
+	}
+
+	/**
+	 * Checks that a job whose tasks use more managed memory than permitted per job is rejected, while a job within the
+	 * quota is started.
+	 */
+	@Test
+	public void testJobExceedingMemoryQuotaIsRejected() {
+
+		final TestInstanceManager tim = new TestInstanceManager();
+		final TestDeploymentManager tdm = new TestDeploymentManager();
+		final QueueScheduler scheduler = new QueueScheduler(tdm, tim, QueueScheduler.QueuePolicy.FIFO, -1, 64);
+
+		final ExecutionGraph largeGraph = createExecutionGraph(ChannelType.IN_MEMORY, tim);
+		largeGraph.getJobConfiguration().setLong(JobGraph.MANAGED_MEMORY_KEY, 65L << 20);
+		final ExecutionGraph smallGraph = createExecutionGraph(ChannelType.IN_MEMORY, tim);
+		smallGraph.getJobConfiguration().setLong(JobGraph.MANAGED_MEMORY_KEY, 64L << 20);
+
+		try {
+			try {
+				scheduler.schedulJob(largeGraph);
+				fail("Job exceeding the managed memory quota was scheduled");
+			} catch (SchedulingException e) {
+				// Expected
+			}
+			assertEquals(0, scheduler.getNumberOfWaitingJobs());
+
+			try {
+				scheduler.schedulJob(smallGraph);
+			} catch (SchedulingException e) {
+				fail(StringUtils.stringifyException(e));
+			}
+
+			tdm.waitForDeployment();
+			assertEquals(smallGraph.getJobID(), tdm.getIDOfLastDeployedJob());
+		} finally {
+			try {
+				LibraryCacheManager.unregister(largeGraph.getJobID());
+				LibraryCacheManager.unregister(smallGraph.getJobID());
+			} catch (IOException ioe) {
+				// Ignore exception here
+			}
+		}
+	}
+
+	/**
+	 * Checks that an unknown queue policy falls back to the default policy, which starts every job immediately.
+	 */
+	@Test
+	public void testUnknownQueuePolicyFallsBackToDefault() {
+
+		assertEquals(QueueScheduler.QueuePolicy.FAIR, QueueScheduler.parseQueuePolicy(" fair"));
+		assertEquals(QueueScheduler.QueuePolicy.NONE, QueueScheduler.parseQueuePolicy("shortest-first"));
+	}
 }
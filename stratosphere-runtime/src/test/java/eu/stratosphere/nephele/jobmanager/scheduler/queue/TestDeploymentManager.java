@@ -13,7 +13,9 @@
 
 package eu.stratosphere.nephele.jobmanager.scheduler.queue;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import eu.stratosphere.nephele.executiongraph.ExecutionVertex;
 import eu.stratosphere.nephele.instance.AbstractInstance;
@@ -39,6 +41,11 @@ public class TestDeploymentManager implements DeploymentManager {
 	 */
 	private volatile List<ExecutionVertex> verticesToBeDeployed = null;
 
+	/**
+	 * The IDs of all jobs which have been deployed so far.
+	 */
+	private final Set<JobID> deployedJobs = new HashSet<JobID>();
+
 	/**
 	 * Auxiliary object to synchronize on.
 	 */
@@ -53,7 +60,8 @@ public class TestDeploymentManager implements DeploymentManager {
 		this.verticesToBeDeployed = verticesToBeDeployed;
 
 		synchronized (this.synchronizationObject) {
-			this.synchronizationObject.notify();
+			this.deployedJobs.add(jobID);
+			this.synchronizationObject.notifyAll();
 		}
 	}
 
@@ -84,6 +92,25 @@ public class TestDeploymentManager implements DeploymentManager {
 		this.verticesToBeDeployed = null;
 	}
 
+	/**
+	 * Wait for the scheduler to deploy the given job.
+	 * 
+	 * @param jobID
+	 *        the ID of the job to wait for
+	 */
+	void waitForDeployment(final JobID jobID) {
+
+		synchronized (this.synchronizationObject) {
+			while (!this.deployedJobs.contains(jobID)) {
+				try {
+					this.synchronizationObject.wait(50);
+				} catch (InterruptedException e) {
+					// Ignore exception
+				}
+			}
+		}
+	}
+
 	/**
 	 * Wait for the scheduler to complete the deployment.
 	 */
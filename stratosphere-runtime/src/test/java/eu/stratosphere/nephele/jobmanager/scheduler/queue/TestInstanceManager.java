@@ -164,6 +164,20 @@ public final class TestInstanceManager implements InstanceManager {
 		++this.numberOfReleaseCalls;
 	}
 
+	/**
+	 * Changes the number of instances this instance manager reports as available, as if task managers had registered
+	 * or disappeared.
+	 * 
+	 * @param numberOfInstances
+	 *        the number of available instances
+	 */
+	void setNumberOfAvailableInstances(final int numberOfInstances) {
+
+		final HardwareDescription hd = HardwareDescriptionFactory.construct(1, 1L, 1L);
+		this.instanceMap.put(INSTANCE_TYPE,
+			InstanceTypeDescriptionFactory.construct(INSTANCE_TYPE, hd, numberOfInstances));
+	}
+
 	/**
 	 * Returns the number of times the method releaseAllocatedResource has been called.
 	 * 
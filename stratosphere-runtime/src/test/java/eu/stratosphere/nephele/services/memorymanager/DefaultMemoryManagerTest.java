@@ -158,6 +158,261 @@ public class DefaultMemoryManagerTest
 		}
 	}
 	
+	@Test
+	public void noPagesLentByDefault()
+	{
+		final AbstractInvokable mockInvoke = new DummyInvokable();
+		final List<MemorySegment> lent = this.memoryManager.allocateRevocablePages(mockInvoke, new IgnoringConsumer(), 1);
+		Assert.assertTrue("Pages were lent although lending is disabled.", lent.isEmpty());
+	}
+	
+	@Test
+	public void lentPagesAreRevoked()
+	{
+		final DefaultMemoryManager elasticManager = new DefaultMemoryManager(MEMORY_SIZE, PAGE_SIZE, true, 10000);
+		try {
+			final AbstractInvokable owner = new DummyInvokable();
+			final AbstractInvokable borrower = new DummyInvokable();
+			
+			final List<MemorySegment> guaranteed = elasticManager.allocatePages(owner, NUM_PAGES / 2);
+			
+			final List<MemorySegment> lent = new ArrayList<MemorySegment>();
+			final RevocableMemoryConsumer consumer = new RevocableMemoryConsumer() {
+				@Override
+				public int revokePages(final int numPages) {
+					// return the pages asynchronously, as a consumer would at its next opportunity
+					new Thread() {
+						@Override
+						public void run() {
+							synchronized (lent) {
+								final List<MemorySegment> toReturn = new ArrayList<MemorySegment>(lent.subList(0, numPages));
+								lent.subList(0, numPages).clear();
+								elasticManager.release(toReturn);
+							}
+						}
+					}.start();
+					return numPages;
+				}
+			};
+			
+			synchronized (lent) {
+				lent.addAll(elasticManager.allocateRevocablePages(borrower, consumer, NUM_PAGES));
+			}
+			Assert.assertEquals(NUM_PAGES - NUM_PAGES / 2, lent.size());
+			
+			// the regular allocation needs the lent pages back
+			final List<MemorySegment> other = elasticManager.allocatePages(owner, NUM_PAGES / 4);
+			Assert.assertEquals(NUM_PAGES / 4, other.size());
+			Assert.assertTrue("The guaranteed segments were not valid any more.", allMemorySegmentsValid(guaranteed));
+			
+			synchronized (lent) {
+				Assert.assertEquals(NUM_PAGES - NUM_PAGES / 2 - NUM_PAGES / 4, lent.size());
+			}
+			
+			elasticManager.releaseAll(owner);
+			elasticManager.releaseAll(borrower);
+			Assert.assertTrue("Memory manager is not empty.", elasticManager.verifyEmpty());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+		finally {
+			elasticManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void revocationTimesOut()
+	{
+		final DefaultMemoryManager elasticManager = new DefaultMemoryManager(MEMORY_SIZE, PAGE_SIZE, true, 100);
+		try {
+			final AbstractInvokable owner = new DummyInvokable();
+			final AbstractInvokable borrower = new DummyInvokable();
+			
+			// the consumer promises the pages, but never returns them
+			final List<MemorySegment> lent = elasticManager.allocateRevocablePages(borrower, new RevocableMemoryConsumer() {
+				@Override
+				public int revokePages(int numPages) {
+					return numPages;
+				}
+			}, NUM_PAGES);
+			Assert.assertEquals(NUM_PAGES, lent.size());
+			
+			try {
+				elasticManager.allocatePages(owner, 1);
+				Assert.fail("Expected MemoryAllocationException.");
+			} catch (MemoryAllocationException maex) {
+				// expected
+			}
+			
+			elasticManager.release(lent);
+			Assert.assertEquals(1, elasticManager.allocatePages(owner, 1).size());
+			
+			elasticManager.releaseAll(owner);
+			Assert.assertTrue("Memory manager is not empty.", elasticManager.verifyEmpty());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+		finally {
+			elasticManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void revocationFailsFastIfPagesAreNotReturned()
+	{
+		final DefaultMemoryManager elasticManager = new DefaultMemoryManager(MEMORY_SIZE, PAGE_SIZE, true, 100000);
+		try {
+			final AbstractInvokable owner = new DummyInvokable();
+			final AbstractInvokable borrower = new DummyInvokable();
+			
+			final List<MemorySegment> lent = elasticManager.allocateRevocablePages(borrower, new IgnoringConsumer(), NUM_PAGES);
+			Assert.assertEquals(NUM_PAGES, lent.size());
+			
+			final long start = System.currentTimeMillis();
+			try {
+				elasticManager.allocatePages(owner, 1);
+				Assert.fail("Expected MemoryAllocationException.");
+			} catch (MemoryAllocationException maex) {
+				// expected
+			}
+			Assert.assertTrue("The allocation waited for pages that are not returned.",
+				System.currentTimeMillis() - start < 10000);
+			
+			elasticManager.release(lent);
+			Assert.assertTrue("Memory manager is not empty.", elasticManager.verifyEmpty());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+		finally {
+			elasticManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void declinedRevocationFailsAllocation()
+	{
+		final DefaultMemoryManager elasticManager = new DefaultMemoryManager(MEMORY_SIZE, PAGE_SIZE, true, 100000);
+		try {
+			final AbstractInvokable owner = new DummyInvokable();
+			final AbstractInvokable borrower = new DummyInvokable();
+			
+			// the consumer promises the pages, but later finds that it cannot return them
+			final RevocableMemoryConsumer consumer = new RevocableMemoryConsumer() {
+				@Override
+				public int revokePages(int numPages) {
+					return numPages;
+				}
+			};
+			final List<MemorySegment> lent = elasticManager.allocateRevocablePages(borrower, consumer, NUM_PAGES);
+			
+			final Thread decliner = new Thread() {
+				@Override
+				public void run() {
+					try {
+						Thread.sleep(200);
+					}
+					catch (InterruptedException iex) {
+						return;
+					}
+					elasticManager.declineRevocation(consumer);
+				}
+			};
+			decliner.start();
+			
+			final long start = System.currentTimeMillis();
+			try {
+				elasticManager.allocatePages(owner, 1);
+				Assert.fail("Expected MemoryAllocationException.");
+			} catch (MemoryAllocationException maex) {
+				// expected
+			}
+			Assert.assertTrue("The allocation waited for pages that are not returned.",
+				System.currentTimeMillis() - start < 10000);
+			decliner.join();
+			
+			elasticManager.release(lent);
+			Assert.assertTrue("Memory manager is not empty.", elasticManager.verifyEmpty());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+		finally {
+			elasticManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void returnedPagesGoToWaitingAllocation()
+	{
+		final DefaultMemoryManager elasticManager = new DefaultMemoryManager(MEMORY_SIZE, PAGE_SIZE, true, 100000);
+		try {
+			final AbstractInvokable borrower = new DummyInvokable();
+			final AbstractInvokable waitingOwner = new DummyInvokable();
+			final AbstractInvokable lateOwner = new DummyInvokable();
+			
+			// the consumer promises the pages, the test returns them
+			final List<MemorySegment> lent = elasticManager.allocateRevocablePages(borrower, new RevocableMemoryConsumer() {
+				@Override
+				public int revokePages(int numPages) {
+					return numPages;
+				}
+			}, NUM_PAGES);
+			Assert.assertEquals(NUM_PAGES, lent.size());
+			
+			final List<MemorySegment> waitingSegments = new ArrayList<MemorySegment>();
+			final List<MemorySegment> lateSegments = new ArrayList<MemorySegment>();
+			final Throwable[] errors = new Throwable[2];
+			final Thread waiting = new AllocatingThread(elasticManager, waitingOwner, waitingSegments, NUM_PAGES / 2, errors, 0);
+			final Thread late = new AllocatingThread(elasticManager, lateOwner, lateSegments, 1, errors, 1);
+			
+			waiting.start();
+			awaitWaitingOrDone(waiting);
+			
+			// half of the pages that the first allocation waits for are returned
+			elasticManager.release(new ArrayList<MemorySegment>(lent.subList(0, NUM_PAGES / 4)));
+			
+			// the returned pages are not handed to a later allocation
+			late.start();
+			awaitWaitingOrDone(late);
+			
+			// the consumer returns exactly the revoked pages, first those of the waiting allocation
+			elasticManager.release(new ArrayList<MemorySegment>(lent.subList(NUM_PAGES / 4, NUM_PAGES / 2)));
+			waiting.join();
+			Assert.assertNull("The waiting allocation failed.", errors[0]);
+			Assert.assertEquals(NUM_PAGES / 2, waitingSegments.size());
+			
+			elasticManager.release(new ArrayList<MemorySegment>(lent.subList(NUM_PAGES / 2, NUM_PAGES / 2 + 1)));
+			late.join();
+			Assert.assertNull("The later allocation failed.", errors[1]);
+			Assert.assertEquals(1, lateSegments.size());
+			
+			elasticManager.release(new ArrayList<MemorySegment>(lent.subList(NUM_PAGES / 2 + 1, NUM_PAGES)));
+			elasticManager.releaseAll(waitingOwner);
+			elasticManager.releaseAll(lateOwner);
+			Assert.assertTrue("Memory manager is not empty.", elasticManager.verifyEmpty());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+		finally {
+			elasticManager.shutdown();
+		}
+	}
+	
+	private static void awaitWaitingOrDone(Thread thread) {
+		while (thread.isAlive() && thread.getState() != Thread.State.TIMED_WAITING) {
+			Thread.yield();
+		}
+	}
+	
 	private boolean allMemorySegmentsValid(List<MemorySegment> memSegs)
 	{
 		for (MemorySegment seg : memSegs) {
@@ -178,6 +433,55 @@ public class DefaultMemoryManagerTest
 		return true;
 	}
 	
+	/**
+	 * Thread that allocates pages and records the error, if the allocation fails.
+	 */
+	private static final class AllocatingThread extends Thread {
+		
+		private final MemoryManager memoryManager;
+		
+		private final AbstractInvokable owner;
+		
+		private final List<MemorySegment> target;
+		
+		private final int numPages;
+		
+		private final Throwable[] errors;
+		
+		private final int errorIndex;
+		
+		private AllocatingThread(MemoryManager memoryManager, AbstractInvokable owner, List<MemorySegment> target,
+				int numPages, Throwable[] errors, int errorIndex)
+		{
+			this.memoryManager = memoryManager;
+			this.owner = owner;
+			this.target = target;
+			this.numPages = numPages;
+			this.errors = errors;
+			this.errorIndex = errorIndex;
+		}
+		
+		@Override
+		public void run() {
+			try {
+				this.memoryManager.allocatePages(this.owner, this.target, this.numPages);
+			}
+			catch (Throwable t) {
+				this.errors[this.errorIndex] = t;
+			}
+		}
+	}
+	
+	/**
+	 * Revocable consumer that never returns any pages.
+	 */
+	private static final class IgnoringConsumer implements RevocableMemoryConsumer {
+		@Override
+		public int revokePages(int numPages) {
+			return 0;
+		}
+	}
+	
 	/**
 	 * Utility class to serve as owner for the memory.
 	 */
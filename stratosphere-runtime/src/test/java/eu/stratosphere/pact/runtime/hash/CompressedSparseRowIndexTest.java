@@ -0,0 +1,177 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.hash;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.pact.runtime.test.util.types.IntPair;
+import eu.stratosphere.pact.runtime.test.util.types.IntPairComparator;
+import eu.stratosphere.pact.runtime.test.util.types.IntPairPairComparator;
+import eu.stratosphere.pact.runtime.test.util.types.IntPairSerializer;
+import eu.stratosphere.util.MutableObjectIterator;
+
+
+public class CompressedSparseRowIndexTest {
+	
+	private static final long RANDOM_SEED = 561349061987311L;
+	
+	private static final int PAGE_SIZE = 16 * 1024;
+	
+	private static final int NUM_KEYS = 10000;
+	
+	private static final int MAX_VALUES_PER_KEY = 16;
+	
+	
+	@Test
+	public void testLookupAllKeys() {
+		try {
+			final Random rnd = new Random(RANDOM_SEED);
+			
+			// every even key gets a random number of values, odd keys have no values
+			final int[] numValues = new int[NUM_KEYS];
+			final List<IntPair> pairs = new ArrayList<IntPair>();
+			for (int key = 0; key < NUM_KEYS; key += 2) {
+				numValues[key] = rnd.nextInt(MAX_VALUES_PER_KEY) + 1;
+				for (int v = 0; v < numValues[key]; v++) {
+					pairs.add(new IntPair(key, key * MAX_VALUES_PER_KEY + v));
+				}
+			}
+			
+			List<MemorySegment> memory = getMemory(128, PAGE_SIZE);
+			CompressedSparseRowIndex<IntPair, IntPair> index = createIndex(memory);
+			index.open(new ShuffledPairIterator(pairs, rnd));
+			
+			assertEquals(pairs.size(), index.getNumRecords());
+			assertEquals(NUM_KEYS / 2, index.getNumKeys());
+			
+			final IntPair probe = new IntPair();
+			for (int key = 0; key < NUM_KEYS; key++) {
+				probe.setKey(key);
+				
+				final boolean[] seen = new boolean[MAX_VALUES_PER_KEY];
+				int count = 0;
+				
+				Iterator<IntPair> matches = index.getMatchesFor(probe);
+				while (matches.hasNext()) {
+					IntPair match = matches.next();
+					assertEquals(key, match.getKey());
+					
+					int v = match.getValue() - key * MAX_VALUES_PER_KEY;
+					assertFalse("Value returned twice.", seen[v]);
+					seen[v] = true;
+					count++;
+				}
+				assertEquals("Wrong number of values for key " + key, numValues[key], count);
+			}
+			
+			assertEquals(128, index.close().size());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testEmptyInput() {
+		try {
+			CompressedSparseRowIndex<IntPair, IntPair> index = createIndex(getMemory(8, PAGE_SIZE));
+			index.open(new ShuffledPairIterator(new ArrayList<IntPair>(), new Random(RANDOM_SEED)));
+			
+			assertEquals(0, index.getNumRecords());
+			assertFalse(index.getMatchesFor(new IntPair(42, 0)).hasNext());
+			index.close();
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testInputExceedsMemory() {
+		List<IntPair> pairs = new ArrayList<IntPair>();
+		for (int i = 0; i < 100000; i++) {
+			pairs.add(new IntPair(i, i));
+		}
+		
+		CompressedSparseRowIndex<IntPair, IntPair> index = createIndex(getMemory(8, PAGE_SIZE));
+		try {
+			index.open(new ShuffledPairIterator(pairs, new Random(RANDOM_SEED)));
+			fail("The index should not fit into memory.");
+		}
+		catch (IOException e) {
+			assertTrue(e.getMessage().contains("does not fit"));
+		}
+		finally {
+			index.close();
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static CompressedSparseRowIndex<IntPair, IntPair> createIndex(List<MemorySegment> memory) {
+		return new CompressedSparseRowIndex<IntPair, IntPair>(new IntPairSerializer(), new IntPairComparator(),
+			new IntPairComparator(), new IntPairPairComparator(), memory);
+	}
+	
+	private static List<MemorySegment> getMemory(int numPages, int pageSize) {
+		List<MemorySegment> memory = new ArrayList<MemorySegment>();
+		for (int i = 0; i < numPages; i++) {
+			memory.add(new MemorySegment(new byte[pageSize]));
+		}
+		return memory;
+	}
+	
+	private static final class ShuffledPairIterator implements MutableObjectIterator<IntPair> {
+		
+		private final IntPair[] pairs;
+		
+		private int pos;
+		
+		private ShuffledPairIterator(List<IntPair> pairs, Random rnd) {
+			this.pairs = pairs.toArray(new IntPair[pairs.size()]);
+			for (int i = this.pairs.length - 1; i > 0; i--) {
+				int j = rnd.nextInt(i + 1);
+				IntPair tmp = this.pairs[i];
+				this.pairs[i] = this.pairs[j];
+				this.pairs[j] = tmp;
+			}
+		}
+		
+		@Override
+		public IntPair next(IntPair reuse) {
+			if (this.pos < this.pairs.length) {
+				IntPair next = this.pairs[this.pos++];
+				reuse.setKey(next.getKey());
+				reuse.setValue(next.getValue());
+				return reuse;
+			} else {
+				return null;
+			}
+		}
+	}
+}
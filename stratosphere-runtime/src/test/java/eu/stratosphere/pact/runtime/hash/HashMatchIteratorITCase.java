@@ -394,6 +394,67 @@ public class HashMatchIteratorITCase {
 		}
 	}
 	
+	@Test
+	public void testAdaptiveWithSmallFirstInput() {
+		// the first input fits into memory and becomes the build side
+		testAdaptive(INPUT_2_SIZE, INPUT_1_SIZE);
+	}
+	
+	@Test
+	public void testAdaptiveWithLargeFirstInput() {
+		// the first input is spilled and becomes the probe side
+		testAdaptive(INPUT_1_SIZE, INPUT_2_SIZE);
+	}
+	
+	private void testAdaptive(int size1, int size2) {
+		try {
+			Generator generator1 = new Generator(SEED1, 500, 4096, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH);
+			Generator generator2 = new Generator(SEED2, 500, 2048, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH);
+			
+			final TestData.GeneratorIterator input1 = new TestData.GeneratorIterator(generator1, size1);
+			final TestData.GeneratorIterator input2 = new TestData.GeneratorIterator(generator2, size2);
+			
+			// collect expected data
+			final Map<TestData.Key, Collection<RecordMatch>> expectedMatchesMap = matchRecordValues(
+				collectRecordData(input1),
+				collectRecordData(input2));
+			
+			final JoinFunction matcher = new RecordMatchRemovingJoin(expectedMatchesMap);
+			final Collector<Record> collector = new DiscardingOutputCollector<Record>();
+	
+			// reset the generators
+			generator1.reset();
+			generator2.reset();
+			input1.reset();
+			input2.reset();
+	
+			// compare with iterator values
+			AdaptiveHashMatchIterator<Record, Record, Record> iterator = 
+					new AdaptiveHashMatchIterator<Record, Record, Record>(
+						input1, input2, this.recordSerializer, this.record1Comparator, 
+						this.recordSerializer, this.record2Comparator,
+						this.recordPairComparator, this.recordPairComparator,
+						this.memoryManager, ioManager, this.parentTask, MEMORY_SIZE);
+			
+			iterator.open();
+			
+			while (iterator.callWithNextKey(matcher, collector));
+			
+			iterator.close();
+	
+			// assert that each expected match was seen
+			for (Entry<TestData.Key, Collection<RecordMatch>> entry : expectedMatchesMap.entrySet()) {
+				if (!entry.getValue().isEmpty()) {
+					Assert.fail("Collection for key " + entry.getKey() + " is not empty");
+				}
+			}
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("An exception occurred during the test: " + e.getMessage());
+		}
+	}
+	
 	@Test
 	public void testBuildFirstWithMixedDataTypes() {
 		try {
@@ -34,6 +34,7 @@ import eu.stratosphere.core.memory.MemorySegment;
 import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.nephele.services.memorymanager.MemoryAllocationException;
 import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.nephele.services.memorymanager.RevocableMemoryConsumer;
 import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
 import eu.stratosphere.nephele.template.AbstractInvokable;
 import eu.stratosphere.pact.runtime.hash.MutableHashTable.HashBucketIterator;
@@ -183,6 +184,232 @@ public class HashTableITCase {
 
 	}
 	
+	@Test
+	public void testBorrowedMemoryIsReturnedBeforeProbing() throws Exception
+	{
+		final int NUM_KEYS = 100000;
+		final int BUILD_VALS_PER_KEY = 3;
+		final int PROBE_VALS_PER_KEY = 10;
+		final int NUM_OWN_PAGES = 128;
+		
+		MutableObjectIterator<Record> buildInput = new UniformRecordGenerator(NUM_KEYS, BUILD_VALS_PER_KEY, false);
+		MutableObjectIterator<Record> probeInput = new UniformRecordGenerator(NUM_KEYS, PROBE_VALS_PER_KEY, true);
+
+		// a memory manager that lends its unused pages and counts them
+		final int[] numLent = new int[1];
+		final DefaultMemoryManager elasticMemManager = new DefaultMemoryManager(32 * 1024 * 1024,
+			DefaultMemoryManager.DEFAULT_PAGE_SIZE, true, DefaultMemoryManager.DEFAULT_REVOCATION_TIMEOUT)
+		{
+			@Override
+			public List<MemorySegment> allocateRevocablePages(AbstractInvokable owner, RevocableMemoryConsumer consumer, int maxPages) {
+				final List<MemorySegment> pages = super.allocateRevocablePages(owner, consumer, maxPages);
+				numLent[0] += pages.size();
+				return pages;
+			}
+		};
+		final int numPages = elasticMemManager.computeNumberOfPages(32 * 1024 * 1024);
+		
+		// allocate too little memory for the HashTable, the remainder is borrowed
+		final List<MemorySegment> memSegments = elasticMemManager.allocatePages(MEM_OWNER, NUM_OWN_PAGES);
+		
+		// ----------------------------------------------------------------------------------------
+		
+		final MutableHashTable<Record, Record> join = new MutableHashTable<Record, Record>(
+			this.recordBuildSideAccesssor, this.recordProbeSideAccesssor, 
+			this.recordBuildSideComparator, this.recordProbeSideComparator, this.pactRecordComparator,
+			memSegments, ioManager);
+		join.setElasticMemory(elasticMemManager, MEM_OWNER);
+		join.open(buildInput, probeInput);
+		Assert.assertTrue("The hash table did not borrow memory.", numLent[0] > 0);
+		
+		// another task claims all remaining memory while the table is probed. the borrowed pages are back already
+		final AbstractInvokable otherOwner = new DummyInvokable();
+		final List<MemorySegment> otherSegments = elasticMemManager.allocatePages(otherOwner, numPages - NUM_OWN_PAGES);
+		Assert.assertEquals(numPages - NUM_OWN_PAGES, otherSegments.size());
+		
+		final Record recordReuse = new Record();
+		int numRecordsInJoinResult = 0;
+		
+		while (join.nextRecord()) {
+			HashBucketIterator<Record, Record> buildSide = join.getBuildSideIterator();
+			while (buildSide.next(recordReuse) != null) {
+				numRecordsInJoinResult++;
+			}
+		}
+		Assert.assertEquals("Wrong number of records in join result.", NUM_KEYS * BUILD_VALS_PER_KEY * PROBE_VALS_PER_KEY, numRecordsInJoinResult);
+		
+		join.close();
+		
+		// ----------------------------------------------------------------------------------------
+		
+		final List<MemorySegment> freed = join.getFreedMemory();
+		Assert.assertEquals("The hash table returned borrowed memory as its own.", NUM_OWN_PAGES, freed.size());
+		
+		elasticMemManager.release(otherSegments);
+		elasticMemManager.release(freed);
+		if (!elasticMemManager.verifyEmpty()) {
+			fail("Not all memory was properly released to the memory manager --> Memory Leak.");
+		}
+		elasticMemManager.shutdown();
+	}
+	
+	@Test
+	public void testRevokedPagesAreReturnedWhileBuilding() throws Exception
+	{
+		final int NUM_KEYS = 100000;
+		final int BUILD_VALS_PER_KEY = 3;
+		final int PROBE_VALS_PER_KEY = 10;
+		final int NUM_OWN_PAGES = 128;
+		
+		// a memory manager that counts the pages it lends
+		final int[] numLent = new int[1];
+		final DefaultMemoryManager elasticMemManager = new DefaultMemoryManager(32 * 1024 * 1024,
+			DefaultMemoryManager.DEFAULT_PAGE_SIZE, true, DefaultMemoryManager.DEFAULT_REVOCATION_TIMEOUT)
+		{
+			@Override
+			public List<MemorySegment> allocateRevocablePages(AbstractInvokable owner, RevocableMemoryConsumer consumer, int maxPages) {
+				final List<MemorySegment> pages = super.allocateRevocablePages(owner, consumer, maxPages);
+				numLent[0] += pages.size();
+				return pages;
+			}
+		};
+		final int numPages = elasticMemManager.computeNumberOfPages(32 * 1024 * 1024);
+		final List<MemorySegment> memSegments = elasticMemManager.allocatePages(MEM_OWNER, NUM_OWN_PAGES);
+		
+		// another task claims all free memory and half of the lent pages while the table is built
+		final AbstractInvokable otherOwner = new DummyInvokable();
+		final List<MemorySegment> otherSegments = new ArrayList<MemorySegment>();
+		final int[] numOtherPages = new int[1];
+		final Throwable[] otherError = new Throwable[1];
+		final Thread otherTask = new Thread() {
+			@Override
+			public void run() {
+				try {
+					elasticMemManager.allocatePages(otherOwner, otherSegments, numOtherPages[0]);
+				}
+				catch (Throwable t) {
+					otherError[0] = t;
+				}
+			}
+		};
+		
+		final MutableObjectIterator<Record> generator = new UniformRecordGenerator(NUM_KEYS, BUILD_VALS_PER_KEY, false);
+		final MutableObjectIterator<Record> buildInput = new MutableObjectIterator<Record>() {
+			private int count;
+			
+			@Override
+			public Record next(Record reuse) throws IOException {
+				if (++this.count == 2 * NUM_KEYS) {
+					Assert.assertTrue("The hash table did not borrow memory.", numLent[0] > 1);
+					numOtherPages[0] = numPages - NUM_OWN_PAGES - numLent[0] / 2;
+					otherTask.start();
+					// wait until the other task waits for the revoked pages
+					while (otherTask.isAlive() && otherTask.getState() != Thread.State.TIMED_WAITING) {
+						Thread.yield();
+					}
+				}
+				return generator.next(reuse);
+			}
+		};
+		MutableObjectIterator<Record> probeInput = new UniformRecordGenerator(NUM_KEYS, PROBE_VALS_PER_KEY, true);
+		
+		final MutableHashTable<Record, Record> join = new MutableHashTable<Record, Record>(
+			this.recordBuildSideAccesssor, this.recordProbeSideAccesssor, 
+			this.recordBuildSideComparator, this.recordProbeSideComparator, this.pactRecordComparator,
+			memSegments, ioManager);
+		join.setElasticMemory(elasticMemManager, MEM_OWNER);
+		join.open(buildInput, probeInput);
+		
+		otherTask.join();
+		Assert.assertNull("The other task did not get its memory.", otherError[0]);
+		Assert.assertEquals(numOtherPages[0], otherSegments.size());
+		
+		final Record recordReuse = new Record();
+		int numRecordsInJoinResult = 0;
+		
+		while (join.nextRecord()) {
+			HashBucketIterator<Record, Record> buildSide = join.getBuildSideIterator();
+			while (buildSide.next(recordReuse) != null) {
+				numRecordsInJoinResult++;
+			}
+		}
+		Assert.assertEquals("Wrong number of records in join result.", NUM_KEYS * BUILD_VALS_PER_KEY * PROBE_VALS_PER_KEY, numRecordsInJoinResult);
+		
+		join.close();
+		
+		elasticMemManager.release(otherSegments);
+		elasticMemManager.release(join.getFreedMemory());
+		if (!elasticMemManager.verifyEmpty()) {
+			fail("Not all memory was properly released to the memory manager --> Memory Leak.");
+		}
+		elasticMemManager.shutdown();
+	}
+	
+	@Test
+	public void testElasticMemorySpillsNoMorePartitionsThanFixedMemory() throws Exception
+	{
+		for (int numOwnPages : new int[] { 64, 128, 256 }) {
+			final int fixedSpills = countSpilledPartitions(numOwnPages, false);
+			final int elasticSpills = countSpilledPartitions(numOwnPages, true);
+			
+			Assert.assertTrue("The hash table did not spill with fixed memory.", fixedSpills > 0);
+			Assert.assertTrue("The hash table spilled " + elasticSpills + " partitions with elastic memory, but only " +
+				fixedSpills + " with " + numOwnPages + " pages of fixed memory.", elasticSpills <= fixedSpills);
+		}
+	}
+	
+	/**
+	 * Joins a build side that does not fit into the given number of pages and counts the spilled partitions.
+	 */
+	private int countSpilledPartitions(int numOwnPages, boolean elastic) throws Exception
+	{
+		final int NUM_KEYS = 100000;
+		final int BUILD_VALS_PER_KEY = 3;
+		final int PROBE_VALS_PER_KEY = 10;
+		
+		final DefaultMemoryManager memManager = new DefaultMemoryManager(32 * 1024 * 1024,
+			DefaultMemoryManager.DEFAULT_PAGE_SIZE, elastic, DefaultMemoryManager.DEFAULT_REVOCATION_TIMEOUT);
+		final List<MemorySegment> memSegments = memManager.allocatePages(MEM_OWNER, numOwnPages);
+		
+		final int[] numSpilled = new int[1];
+		final MutableHashTable<Record, Record> join = new MutableHashTable<Record, Record>(
+			this.recordBuildSideAccesssor, this.recordProbeSideAccesssor, 
+			this.recordBuildSideComparator, this.recordProbeSideComparator, this.pactRecordComparator,
+			memSegments, ioManager)
+		{
+			@Override
+			protected int spillPartition() throws IOException {
+				numSpilled[0]++;
+				return super.spillPartition();
+			}
+		};
+		if (elastic) {
+			join.setElasticMemory(memManager, MEM_OWNER);
+		}
+		join.open(new UniformRecordGenerator(NUM_KEYS, BUILD_VALS_PER_KEY, false),
+			new UniformRecordGenerator(NUM_KEYS, PROBE_VALS_PER_KEY, true));
+		
+		final Record recordReuse = new Record();
+		int numRecordsInJoinResult = 0;
+		
+		while (join.nextRecord()) {
+			HashBucketIterator<Record, Record> buildSide = join.getBuildSideIterator();
+			while (buildSide.next(recordReuse) != null) {
+				numRecordsInJoinResult++;
+			}
+		}
+		Assert.assertEquals("Wrong number of records in join result.", NUM_KEYS * BUILD_VALS_PER_KEY * PROBE_VALS_PER_KEY, numRecordsInJoinResult);
+		
+		join.close();
+		
+		memManager.release(join.getFreedMemory());
+		if (!memManager.verifyEmpty()) {
+			fail("Not all memory was properly released to the memory manager --> Memory Leak.");
+		}
+		memManager.shutdown();
+		return numSpilled[0];
+	}
+	
 	@Test
 	public void testSpillingHashJoinOneRecursionPerformance() throws IOException
 	{
@@ -21,6 +21,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.EOFException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -31,6 +32,7 @@ import eu.stratosphere.api.common.typeutils.TypeComparator;
 import eu.stratosphere.api.common.typeutils.TypePairComparator;
 import eu.stratosphere.api.common.typeutils.TypeSerializer;
 import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.ListMemorySegmentSource;
 import eu.stratosphere.pact.runtime.test.util.UniformStringPairGenerator;
 import eu.stratosphere.pact.runtime.test.util.types.IntList;
 import eu.stratosphere.pact.runtime.test.util.types.IntListComparator;
@@ -418,6 +420,183 @@ public class MemoryHashTableTest {
 		}
 	}
 	
+	@Test
+	public void testRepeatedFixedLengthUpdates() {
+		try {
+			final int NUM_MEM_PAGES = 32 * NUM_PAIRS / PAGE_SIZE;
+			final int NUM_ROUNDS = 20;
+			
+			final IntPair[] pairs = getRandomizedIntPairs(NUM_PAIRS, rnd);
+			
+			AbstractMutableHashTable<IntPair> table = new CompactingHashTable<IntPair>(serializer, comparator, getMemory(NUM_MEM_PAGES, PAGE_SIZE));
+			table.open();
+			
+			for (int i = 0; i < NUM_PAIRS; i++) {
+				table.insert(pairs[i]);
+			}
+			
+			// appending all updates would need many times the memory of the table
+			AbstractHashTableProber<IntPair, IntPair> prober = table.getProber(comparator, pairComparator);
+			IntPair target = new IntPair();
+			IntPair tempHolder = new IntPair();
+			
+			for (int round = 1; round <= NUM_ROUNDS; round++) {
+				for (int i = 0; i < NUM_PAIRS; i++) {
+					final IntPair update = new IntPair(pairs[i].getKey(), pairs[i].getKey() + round);
+					if (i % 2 == 0) {
+						table.insertOrReplaceRecord(update, tempHolder);
+					} else {
+						assertTrue(prober.getMatchFor(pairs[i], target));
+						prober.updateMatch(update);
+					}
+				}
+			}
+			
+			for (int i = 0; i < NUM_PAIRS; i++) {
+				assertTrue(prober.getMatchFor(pairs[i], target));
+				assertEquals(pairs[i].getKey() + NUM_ROUNDS, target.getValue());
+			}
+			
+			table.close();
+			assertEquals("Memory lost", NUM_MEM_PAGES, table.getFreeMemory().size());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail("Error: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testReplaceRecordInFullPartition() {
+		try {
+			final InMemoryPartition<IntList> partition = new InMemoryPartition<IntList>(serializerV, 0,
+				new ListMemorySegmentSource(getMemory(1, PAGE_SIZE)), PAGE_SIZE, Integer.numberOfTrailingZeros(PAGE_SIZE));
+			
+			// fill the only page of the partition, the records do not end exactly at the end of the page
+			final long firstPointer = partition.appendRecord(new IntList(0, new int[] { 1, 2, 3 }));
+			final int length = (int) partition.getAppendPosition();
+			int numRecords = 1;
+			try {
+				while (true) {
+					partition.appendRecord(new IntList(numRecords, new int[] { 1, 2, 3 }));
+					numRecords++;
+				}
+			}
+			catch (EOFException e) {
+				// the partition is full
+			}
+			
+			// an update of the same length is written in place without needing more memory
+			assertEquals(firstPointer, partition.replaceRecord(firstPointer, length, new IntList(0, new int[] { 4, 5, 6 })));
+			assertEquals(numRecords, partition.getRecordCount());
+			assertTrue(partition.isCompacted());
+			
+			final IntList target = new IntList();
+			partition.readRecordAt(firstPointer, target);
+			assertArrayEquals(new int[] { 4, 5, 6 }, target.getValue());
+			
+			// an update of a different length needs to be appended
+			try {
+				partition.replaceRecord(firstPointer, length, new IntList(0, new int[] { 5 }));
+				fail("The update should not fit into the full partition.");
+			}
+			catch (EOFException e) {
+				// expected
+			}
+			partition.readRecordAt(firstPointer, target);
+			assertArrayEquals(new int[] { 4, 5, 6 }, target.getValue());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail("Error: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testUpdatesAfterLengthChangeAreWrittenInPlace() {
+		try {
+			final InMemoryPartition<IntList> partition = new InMemoryPartition<IntList>(serializerV, 0,
+				new ListMemorySegmentSource(getMemory(2, PAGE_SIZE)), PAGE_SIZE, Integer.numberOfTrailingZeros(PAGE_SIZE));
+			
+			final long pointer = partition.appendRecord(new IntList(0, new int[] { 1 }));
+			final int length = (int) partition.getAppendPosition();
+			
+			// the longer record is appended and its length is known from the append position
+			final long newPointer = partition.replaceRecord(pointer, length, new IntList(0, new int[] { 1, 2, 3 }));
+			assertTrue(newPointer != pointer);
+			assertFalse(partition.isCompacted());
+			final int newLength = (int) (partition.getAppendPosition() - newPointer);
+			
+			assertEquals(newPointer, partition.replaceRecord(newPointer, newLength, new IntList(0, new int[] { 4, 5, 6 })));
+			assertEquals(2, partition.getRecordCount());
+			
+			final IntList target = new IntList();
+			partition.readRecordAt(newPointer, target);
+			assertArrayEquals(new int[] { 4, 5, 6 }, target.getValue());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail("Error: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testRepeatedVariableLengthUpdates() {
+		try {
+			final int NUM_LISTS = 20000;
+			final int NUM_MEM_PAGES = SIZE * NUM_LISTS / PAGE_SIZE;
+			final int NUM_ROUNDS = 10;
+			
+			final IntList[] lists = getRandomizedIntLists(NUM_LISTS, rnd);
+			
+			AbstractMutableHashTable<IntList> table = new CompactingHashTable<IntList>(serializerV, comparatorV, getMemory(NUM_MEM_PAGES, PAGE_SIZE));
+			table.open();
+			
+			for (int i = 0; i < NUM_LISTS; i++) {
+				table.insert(lists[i]);
+			}
+			
+			AbstractHashTableProber<IntList, IntList> prober = table.getProber(comparatorV, pairComparatorV);
+			IntList target = new IntList();
+			IntList tempHolder = new IntList();
+			
+			// mix updates of the same length (written in place) with ones of different length (appended),
+			// such that partitions are compacted repeatedly
+			for (int round = 0; round < NUM_ROUNDS; round++) {
+				final IntList[] overwriteLists = getRandomizedIntLists(NUM_LISTS, rnd);
+				for (int i = 0; i < NUM_LISTS; i++) {
+					if (i % 3 == 0) {
+						final int[] value = new int[lists[i].getValue().length];
+						for (int j = 0; j < value.length; j++) {
+							value[j] = round - j;
+						}
+						overwriteLists[i].setValue(value);
+					}
+					
+					if (i % 2 == 0) {
+						table.insertOrReplaceRecord(overwriteLists[i], tempHolder);
+					} else {
+						assertTrue(prober.getMatchFor(lists[i], target));
+						prober.updateMatch(overwriteLists[i]);
+					}
+					lists[i] = overwriteLists[i];
+				}
+				
+				for (int i = 0; i < NUM_LISTS; i++) {
+					assertTrue(prober.getMatchFor(lists[i], target));
+					assertArrayEquals(lists[i].getValue(), target.getValue());
+				}
+			}
+			
+			table.close();
+			assertEquals("Memory lost", NUM_MEM_PAGES, table.getFreeMemory().size());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail("Error: " + e.getMessage());
+		}
+	}
+	
 	
 	private static IntPair[] getRandomizedIntPairs(int num, Random rnd) {
 		IntPair[] pairs = new IntPair[num];
@@ -270,6 +270,50 @@ public class SpillingBufferTest {
 		this.memoryManager.release(memory);
 	}
 
+	@Test
+	public void testReadExternalWithFewerSegments() throws Exception
+	{
+		final TestData.Generator generator = new TestData.Generator(SEED, KEY_MAX, VALUE_LENGTH, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH);
+		
+		// create the writer output view
+		final ArrayList<MemorySegment> memory = new ArrayList<MemorySegment>(NUM_MEMORY_SEGMENTS);
+		this.memoryManager.allocatePages(this.parentTask, memory, NUM_MEMORY_SEGMENTS);
+		final SpillingBuffer outView = new SpillingBuffer(this.ioManager, 
+							new ListMemorySegmentSource(memory), this.memoryManager.getPageSize());
+		
+		// write a number of pairs
+		final Record rec = new Record();
+		for (int i = 0; i < NUM_PAIRS_EXTERNAL; i++) {
+			generator.next(rec);
+			rec.write(outView);
+		}
+		
+		// create the reader input view with two segments and give the others back
+		final ArrayList<MemorySegment> released = new ArrayList<MemorySegment>();
+		final DataInputView inView = outView.flip(2, released);
+		Assert.assertEquals(NUM_MEMORY_SEGMENTS - 2, released.size());
+		this.memoryManager.release(released);
+		generator.reset();
+		
+		// read and re-generate all records and compare them
+		final Record readRec = new Record();
+		for (int i = 0; i < NUM_PAIRS_EXTERNAL; i++) {
+			generator.next(rec);
+			readRec.read(inView);
+			
+			Key k1 = rec.getField(0, Key.class);
+			Value v1 = rec.getField(1, Value.class);
+			
+			Key k2 = readRec.getField(0, Key.class);
+			Value v2 = readRec.getField(1, Value.class);
+			
+			Assert.assertTrue("The re-generated and the read record do not match.", k1.equals(k2) && v1.equals(v2));
+		}
+		
+		this.memoryManager.release(outView.close());
+		this.memoryManager.release(memory);
+	}
+
 	@Test
 	public void testWriteReadTooMuchExternal() throws Exception
 	{
@@ -0,0 +1,101 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.iterative.concurrent;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.aggregators.Aggregator;
+import eu.stratosphere.api.common.aggregators.AggregatorWithName;
+import eu.stratosphere.api.common.aggregators.LongSumAggregator;
+import eu.stratosphere.pact.runtime.iterative.event.WorkerDoneEvent;
+import eu.stratosphere.types.LongValue;
+import eu.stratosphere.types.Value;
+
+public class WorkerDoneEventCombinerTest {
+
+	private static final String AGG_NAME = "sum";
+
+	@Test
+	public void testCombinesAggregatesOfAllWorkers() {
+		final String key = "testCombinesAggregatesOfAllWorkers";
+		final int numWorkers = 3;
+
+		WorkerDoneEventCombiner combiner = null;
+		for (int i = 0; i < numWorkers; i++) {
+			WorkerDoneEventCombiner c = WorkerDoneEventCombiner.join(key, aggregators());
+			Assert.assertTrue(combiner == null || combiner == c);
+			combiner = c;
+		}
+		Assert.assertEquals(numWorkers, combiner.getNumberOfWorkers());
+
+		for (int superstep = 1; superstep <= 2; superstep++) {
+			Assert.assertNull(combiner.combine(0, workerAggregators(superstep * 1)));
+			Assert.assertNull(combiner.combine(1, workerAggregators(superstep * 2)));
+			WorkerDoneEvent event = combiner.combine(2, workerAggregators(superstep * 3));
+
+			Assert.assertNotNull(event);
+			Assert.assertEquals(numWorkers, event.getNumberOfWorkers());
+			Assert.assertEquals(2, event.getWorkerIndex());
+			Assert.assertArrayEquals(new String[] { AGG_NAME }, event.getAggregatorNames());
+
+			Value[] aggregates = event.getAggregates(getClass().getClassLoader());
+			Assert.assertEquals(superstep * 6, ((LongValue) aggregates[0]).getValue());
+		}
+
+		for (int i = 0; i < numWorkers; i++) {
+			WorkerDoneEventCombiner.leave(key);
+		}
+		Assert.assertEquals(0, combiner.getNumberOfWorkers());
+
+		// after all workers left, a new combiner is created
+		Assert.assertNotSame(combiner, WorkerDoneEventCombiner.join(key, aggregators()));
+		WorkerDoneEventCombiner.leave(key);
+	}
+
+	@Test
+	public void testSingleWorker() {
+		final String key = "testSingleWorker";
+		WorkerDoneEventCombiner combiner = WorkerDoneEventCombiner.join(key, aggregators());
+
+		WorkerDoneEvent event = combiner.combine(7, workerAggregators(42));
+		Assert.assertNotNull(event);
+		Assert.assertEquals(1, event.getNumberOfWorkers());
+		Assert.assertEquals(42, ((LongValue) event.getAggregates(getClass().getClassLoader())[0]).getValue());
+
+		WorkerDoneEventCombiner.leave(key);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Collection<AggregatorWithName<?>> aggregators() {
+		AggregatorWithName<?> agg = new AggregatorWithName<LongValue>(AGG_NAME, (Class) LongSumAggregator.class);
+		return Collections.<AggregatorWithName<?>>singletonList(agg);
+	}
+
+	private static Map<String, Aggregator<?>> workerAggregators(long value) {
+		LongSumAggregator agg = new LongSumAggregator();
+		agg.aggregate(value);
+
+		Map<String, Aggregator<?>> aggs = new HashMap<String, Aggregator<?>>();
+		aggs.put(AGG_NAME, agg);
+		return aggs;
+	}
+}
@@ -90,6 +90,21 @@ public class EventWithAggregatorsTest {
 		Assert.assertTrue(allVals.isEmpty());
 	}
 	
+	@Test
+	public void testSerializationOfCombinedWorkerDoneEvent() {
+		LongValue longValue = new LongValue(42);
+		
+		Map<String, Aggregator<?>> aggMap = new HashMap<String,  Aggregator<?>>();
+		aggMap.put("longValue", new TestAggregator<LongValue>(longValue));
+		
+		WorkerDoneEvent e = new WorkerDoneEvent(3, aggMap, 5);
+		WorkerDoneEvent deserialized = (WorkerDoneEvent) pipeThroughSerialization(e);
+		
+		Assert.assertEquals(3, deserialized.getWorkerIndex());
+		Assert.assertEquals(5, deserialized.getNumberOfWorkers());
+		Assert.assertEquals(longValue, deserialized.getAggregates(cl)[0]);
+	}
+	
 	private IterationEventWithAggregators pipeThroughSerialization(IterationEventWithAggregators event) {
 		try {
 			ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -0,0 +1,171 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.iterative.io;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.java.typeutils.runtime.record.RecordComparator;
+import eu.stratosphere.api.java.typeutils.runtime.record.RecordSerializer;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.Record;
+import eu.stratosphere.util.Collector;
+
+public class DeduplicatingWorksetUpdateOutputCollectorTest {
+
+	private static final int PAGE_SIZE = 32 * 1024;
+
+	private static final int NUM_BUFFER_PAGES = 64;
+
+	private IOManager ioManager;
+
+	@Before
+	public void startIOManager() {
+		this.ioManager = new IOManager();
+	}
+
+	@After
+	public void shutdownIOManager() {
+		this.ioManager.shutdown();
+	}
+
+	@Test
+	public void testKeepsOneRecordPerKey() {
+		RecordCollector written = new RecordCollector();
+		DeduplicatingWorksetUpdateOutputCollector<Record> collector = createCollector(written, false, 8);
+
+		collectRecords(collector, 100, 50);
+		collector.close();
+
+		Assert.assertEquals(100, written.records.size());
+		Assert.assertEquals(100, collector.getElementsCollectedAndReset());
+	}
+
+	@Test
+	public void testKeepsMinimum() {
+		RecordCollector written = new RecordCollector();
+		DeduplicatingWorksetUpdateOutputCollector<Record> collector = createCollector(written, true, 8);
+
+		collectRecords(collector, 100, 50);
+		collector.close();
+
+		Assert.assertEquals(100, written.records.size());
+		for (Map.Entry<Integer, Integer> entry : written.records.entrySet()) {
+			// the values of key k are k, k + 1, ..., k + 49
+			Assert.assertEquals(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Test
+	public void testWritesWhenBufferIsFull() {
+		RecordCollector written = new RecordCollector();
+		// the three pages that the sorter needs at least hold far fewer than the 10000 records
+		DeduplicatingWorksetUpdateOutputCollector<Record> collector = createCollector(written, true, 3);
+
+		collectRecords(collector, 100, 100);
+		Assert.assertTrue(written.count > 0);
+
+		collector.close();
+
+		// duplicates are removed only within one buffer, but the minimum is always among them
+		Assert.assertEquals(100, written.records.size());
+		Assert.assertTrue(written.count < 10000);
+		for (Map.Entry<Integer, Integer> entry : written.records.entrySet()) {
+			Assert.assertEquals(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Test
+	public void testCanBeReusedAfterClose() {
+		RecordCollector written = new RecordCollector();
+		DeduplicatingWorksetUpdateOutputCollector<Record> collector = createCollector(written, false, 8);
+
+		collectRecords(collector, 10, 10);
+		collector.close();
+		Assert.assertEquals(10, collector.getElementsCollectedAndReset());
+
+		collectRecords(collector, 20, 10);
+		collector.close();
+		Assert.assertEquals(20, collector.getElementsCollectedAndReset());
+		Assert.assertEquals(30, written.count);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static void collectRecords(Collector<Record> collector, int numKeys, int numValuesPerKey) {
+		Record record = new Record(2);
+		// collect the values in descending order to make sure the minimum is not kept by accident
+		for (int value = numValuesPerKey - 1; value >= 0; value--) {
+			for (int key = 0; key < numKeys; key++) {
+				record.setField(0, new IntValue(key));
+				record.setField(1, new IntValue(key + value));
+				collector.collect(record);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private DeduplicatingWorksetUpdateOutputCollector<Record> createCollector(Collector<Record> delegate,
+			boolean keepMinimum, int numPages)
+	{
+		SerializedUpdateBuffer buffer = new SerializedUpdateBuffer(allocate(NUM_BUFFER_PAGES), PAGE_SIZE, this.ioManager);
+
+		TypeComparator<Record> keyComparator = new RecordComparator(new int[] {0}, new Class[] {IntValue.class});
+		TypeComparator<Record> orderComparator = keepMinimum ?
+			new RecordComparator(new int[] {0, 1}, new Class[] {IntValue.class, IntValue.class}) :
+			new RecordComparator(new int[] {0}, new Class[] {IntValue.class});
+
+		return new DeduplicatingWorksetUpdateOutputCollector<Record>(buffer, RecordSerializer.get(), delegate,
+			keyComparator, orderComparator, allocate(numPages));
+	}
+
+	private static List<MemorySegment> allocate(int numPages) {
+		List<MemorySegment> memory = new ArrayList<MemorySegment>();
+		for (int i = 0; i < numPages; i++) {
+			memory.add(new MemorySegment(new byte[PAGE_SIZE]));
+		}
+		return memory;
+	}
+
+	private static final class RecordCollector implements Collector<Record> {
+
+		private final Map<Integer, Integer> records = new HashMap<Integer, Integer>();
+
+		private int count;
+
+		@Override
+		public void collect(Record record) {
+			int key = record.getField(0, IntValue.class).getValue();
+			int value = record.getField(1, IntValue.class).getValue();
+			Integer previous = this.records.get(key);
+			if (previous == null || value < previous) {
+				this.records.put(key, value);
+			}
+			this.count++;
+		}
+
+		@Override
+		public void close() {}
+	}
+}
@@ -0,0 +1,214 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.iterative.io;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.typeutils.base.LongSerializer;
+import eu.stratosphere.pact.runtime.iterative.io.SuperstepSnapshotStore.SnapshotWriter;
+import eu.stratosphere.types.LongValue;
+import eu.stratosphere.util.MutableObjectIterator;
+
+public class SuperstepSnapshotStoreTest {
+
+	private static final int NUM_SUBTASKS = 2;
+
+	private static final String PLAN_ID = "plan";
+
+	private File dir;
+
+	private String path;
+
+	@Before
+	public void createDirectory() throws IOException {
+		this.dir = File.createTempFile("snapshots", "");
+		this.dir.delete();
+		this.path = this.dir.toURI().toString();
+	}
+
+	@After
+	public void deleteDirectory() {
+		deleteRecursively(this.dir);
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		SuperstepSnapshotStore store = new SuperstepSnapshotStore(this.path, PLAN_ID, 0, NUM_SUBTASKS);
+
+		SnapshotWriter<Long> writer = store.createWriter(3, SuperstepSnapshotStore.PARTIAL_SOLUTION, LongSerializer.INSTANCE);
+		for (long i = 0; i < 1000; i++) {
+			writer.write(i);
+		}
+		writer.close();
+
+		MutableObjectIterator<Long> reader = store.openReader(3, SuperstepSnapshotStore.PARTIAL_SOLUTION,
+			LongSerializer.INSTANCE);
+		Long record = null;
+		for (long i = 0; i < 1000; i++) {
+			record = reader.next(record);
+			Assert.assertEquals(i, record.longValue());
+		}
+		Assert.assertNull(reader.next(record));
+		Assert.assertNull(reader.next(record));
+	}
+
+	@Test
+	public void testWriteThrough() throws IOException {
+		SuperstepSnapshotStore store = new SuperstepSnapshotStore(this.path, PLAN_ID, 1, NUM_SUBTASKS);
+
+		SnapshotWriter<Long> writer = store.createWriter(1, SuperstepSnapshotStore.WORKSET, LongSerializer.INSTANCE);
+		MutableObjectIterator<Long> input = writer.writeThrough(new MutableObjectIterator<Long>() {
+			private long next;
+
+			@Override
+			public Long next(Long reuse) {
+				return this.next < 10 ? Long.valueOf(this.next++) : null;
+			}
+		});
+
+		long sum = 0;
+		Long record;
+		while ((record = input.next(null)) != null) {
+			sum += record;
+		}
+		writer.close();
+		Assert.assertEquals(45, sum);
+
+		MutableObjectIterator<Long> reader = store.openReader(1, SuperstepSnapshotStore.WORKSET, LongSerializer.INSTANCE);
+		sum = 0;
+		while ((record = reader.next(null)) != null) {
+			sum += record;
+		}
+		Assert.assertEquals(45, sum);
+	}
+
+	@Test
+	public void testFindLatestCompleteSnapshot() throws IOException {
+		SuperstepSnapshotStore coordinator = new SuperstepSnapshotStore(this.path, PLAN_ID, NUM_SUBTASKS);
+		SuperstepSnapshotStore head0 = new SuperstepSnapshotStore(this.path, PLAN_ID, 0, NUM_SUBTASKS);
+		SuperstepSnapshotStore head1 = new SuperstepSnapshotStore(this.path, PLAN_ID, 1, NUM_SUBTASKS);
+
+		Assert.assertEquals(0, coordinator.findLatestCompleteSnapshot());
+		coordinator.discardSnapshotsOfOtherPlans();
+
+		writeSnapshot(head0, 2);
+		Assert.assertEquals(0, coordinator.findLatestCompleteSnapshot());
+		writeSnapshot(head1, 2);
+		Assert.assertEquals(0, coordinator.findLatestCompleteSnapshot());
+		coordinator.writeAggregates(2, new LongValue(2));
+		Assert.assertEquals(2, coordinator.findLatestCompleteSnapshot());
+
+		// incomplete newer snapshot
+		writeSnapshot(head1, 4);
+		Assert.assertEquals(2, head0.findLatestCompleteSnapshot());
+
+		coordinator.discardSnapshotsAfter(2);
+		Assert.assertFalse(new File(this.dir, "superstep-4").exists());
+		Assert.assertTrue(new File(this.dir, "superstep-2").exists());
+
+		writeSnapshot(head0, 4);
+		writeSnapshot(head1, 4);
+		coordinator.writeAggregates(4, new LongValue(4));
+		Assert.assertEquals(4, coordinator.findLatestCompleteSnapshot());
+
+		coordinator.discardSnapshotsBefore(4);
+		Assert.assertFalse(new File(this.dir, "superstep-2").exists());
+		Assert.assertEquals(4, coordinator.findLatestCompleteSnapshot());
+
+		coordinator.discardAll();
+		Assert.assertFalse(this.dir.exists());
+		Assert.assertEquals(0, coordinator.findLatestCompleteSnapshot());
+	}
+
+	@Test
+	public void testSnapshotsOfOtherPlansAreIgnored() throws IOException {
+		SuperstepSnapshotStore otherCoordinator = new SuperstepSnapshotStore(this.path, "other-plan", NUM_SUBTASKS);
+		otherCoordinator.discardSnapshotsOfOtherPlans();
+		for (int i = 0; i < NUM_SUBTASKS; i++) {
+			writeSnapshot(new SuperstepSnapshotStore(this.path, "other-plan", i, NUM_SUBTASKS), 2);
+		}
+		otherCoordinator.writeAggregates(2, new LongValue(2));
+		Assert.assertEquals(2, otherCoordinator.findLatestCompleteSnapshot());
+
+		SuperstepSnapshotStore coordinator = new SuperstepSnapshotStore(this.path, PLAN_ID, NUM_SUBTASKS);
+		SuperstepSnapshotStore head0 = new SuperstepSnapshotStore(this.path, PLAN_ID, 0, NUM_SUBTASKS);
+		Assert.assertEquals(0, coordinator.findLatestCompleteSnapshot());
+		Assert.assertEquals(0, head0.findLatestCompleteSnapshot());
+
+		// the snapshots of the other plan are removed, and the directory is taken over
+		coordinator.discardSnapshotsOfOtherPlans();
+		Assert.assertFalse(new File(this.dir, "superstep-2").exists());
+		Assert.assertEquals(0, otherCoordinator.findLatestCompleteSnapshot());
+
+		writeSnapshot(head0, 2);
+		writeSnapshot(new SuperstepSnapshotStore(this.path, PLAN_ID, 1, NUM_SUBTASKS), 2);
+		coordinator.writeAggregates(2, new LongValue(2));
+		Assert.assertEquals(2, coordinator.findLatestCompleteSnapshot());
+
+		// claiming the directory again keeps the own snapshots
+		coordinator.discardSnapshotsOfOtherPlans();
+		Assert.assertEquals(2, head0.findLatestCompleteSnapshot());
+
+		// an iteration that does not resume discards the own snapshots as well
+		coordinator.discardAllAndClaim();
+		Assert.assertFalse(new File(this.dir, "superstep-2").exists());
+		Assert.assertEquals(0, head0.findLatestCompleteSnapshot());
+		writeSnapshot(head0, 2);
+		writeSnapshot(new SuperstepSnapshotStore(this.path, PLAN_ID, 1, NUM_SUBTASKS), 2);
+		coordinator.writeAggregates(2, new LongValue(2));
+		Assert.assertEquals(2, head0.findLatestCompleteSnapshot());
+	}
+
+	@Test
+	public void testWriteAndReadAggregates() throws IOException {
+		SuperstepSnapshotStore coordinator = new SuperstepSnapshotStore(this.path, PLAN_ID, NUM_SUBTASKS);
+		SuperstepSnapshotStore head0 = new SuperstepSnapshotStore(this.path, PLAN_ID, 0, NUM_SUBTASKS);
+
+		coordinator.writeAggregates(3, new LongValue(42));
+		Assert.assertFalse(new File(new File(this.dir, "superstep-3"), "_aggregates.inprogress").exists());
+
+		LongValue aggregate = new LongValue();
+		head0.readAggregates(3, aggregate);
+		Assert.assertEquals(42, aggregate.getValue());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testCoordinatorCannotWrite() throws IOException {
+		new SuperstepSnapshotStore(this.path, PLAN_ID, NUM_SUBTASKS).markComplete(1);
+	}
+
+	private static void writeSnapshot(SuperstepSnapshotStore store, int superstep) throws IOException {
+		SnapshotWriter<Long> writer = store.createWriter(superstep, SuperstepSnapshotStore.PARTIAL_SOLUTION,
+			LongSerializer.INSTANCE);
+		writer.write(Long.valueOf(superstep));
+		writer.close();
+		store.markComplete(superstep);
+	}
+
+	private static void deleteRecursively(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				deleteRecursively(child);
+			}
+		}
+		file.delete();
+	}
+}
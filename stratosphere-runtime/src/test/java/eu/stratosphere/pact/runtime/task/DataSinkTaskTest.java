@@ -29,8 +29,13 @@ import org.apache.commons.logging.LogFactory;
 import org.junit.After;
 import org.junit.Test;
 
+import eu.stratosphere.api.common.io.statistics.DataSetStatistics;
+import eu.stratosphere.api.common.io.statistics.StatisticsCatalog;
 import eu.stratosphere.api.java.record.io.DelimitedOutputFormat;
+import eu.stratosphere.api.java.record.io.FileOutputFormat;
+import eu.stratosphere.configuration.ConfigConstants;
 import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.core.fs.Path;
 import eu.stratosphere.api.java.typeutils.runtime.record.RecordComparatorFactory;
 import eu.stratosphere.pact.runtime.task.util.LocalStrategy;
@@ -274,6 +279,71 @@ public class DataSinkTaskTest extends TaskTestBase {
 		}
 	}
 	
+	@Test
+	public void testDataSinkTaskRecordsStatistics() {
+		testRecordsStatistics(new MockOutputFormat(), new File(tempTestPath));
+	}
+	
+	@Test
+	public void testDataSinkTaskRecordsStatisticsOfCompressedOutput() {
+		final MockOutputFormat format = new MockOutputFormat();
+		format.setBlockCompressed(true);
+		
+		// the size is taken from the file that was written, which has the compression suffix
+		final File writtenFile = new File(tempTestPath + ".bdeflate");
+		try {
+			testRecordsStatistics(format, writtenFile);
+		} finally {
+			writtenFile.delete();
+		}
+	}
+	
+	private void testRecordsStatistics(FileOutputFormat format, File writtenFile) {
+
+		int keyCnt = 100;
+		int valCnt = 20;
+		
+		final File catalogDir = new File(Path.constructTestPath("dst_catalog"));
+		final Configuration globalConfig = new Configuration();
+		globalConfig.setString(ConfigConstants.STATISTICS_CATALOG_DIR_KEY, catalogDir.toURI().toString());
+		GlobalConfiguration.includeConfiguration(globalConfig);
+
+		try {
+			super.initEnvironment(MEMORY_MANAGER_SIZE, NETWORK_BUFFER_SIZE);
+			super.addInput(new UniformRecordGenerator(keyCnt, valCnt, false), 0);
+			
+			DataSinkTask<Record> testTask = new DataSinkTask<Record>();
+			super.registerFileOutputTask(testTask, format, new File(tempTestPath).toURI().toString());
+			
+			testTask.invoke();
+			
+			Assert.assertTrue("Output file does not exist", writtenFile.exists());
+			DataSetStatistics stats = StatisticsCatalog.getConfiguredCatalog().read(
+				StatisticsCatalog.getDataSetId(new Path(new File(tempTestPath).toURI().toString())));
+			
+			Assert.assertNotNull("No statistics were recorded.", stats);
+			Assert.assertEquals(keyCnt * valCnt, stats.getNumberOfRecords());
+			Assert.assertEquals(writtenFile.length(), stats.getTotalInputSize());
+			Assert.assertEquals(keyCnt, stats.getNumDistinctValues(0));
+			Assert.assertEquals(valCnt, stats.getNumDistinctValues(1));
+			Assert.assertEquals(keyCnt * valCnt, stats.getNumDistinctRecords());
+		} catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		} finally {
+			globalConfig.setString(ConfigConstants.STATISTICS_CATALOG_DIR_KEY, "");
+			GlobalConfiguration.includeConfiguration(globalConfig);
+			
+			for (File dataSetDir : catalogDir.listFiles()) {
+				for (File file : dataSetDir.listFiles()) {
+					file.delete();
+				}
+				dataSetDir.delete();
+			}
+			catalogDir.delete();
+		}
+	}
+	
 	@Test
 	public void testFailingDataSinkTask() {
 
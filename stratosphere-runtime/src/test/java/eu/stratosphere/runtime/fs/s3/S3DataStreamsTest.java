@@ -0,0 +1,374 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.runtime.fs.s3;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+
+/**
+ * This test checks the concurrent part uploads of the {@link S3DataOutputStream} and the ranged reads of the
+ * {@link S3DataInputStream} against an in-memory stand-in for Amazon S3, so it runs without an S3 account.
+ */
+public class S3DataStreamsTest {
+
+	private static final String BUCKET = "bucket";
+
+	private static final String OBJECT = "object";
+
+	private static final int NUM_THREADS = 3;
+
+	private ExecutorService executor;
+
+	private InMemoryS3Client s3Client;
+
+	@Before
+	public void setup() {
+		// like the executor of the file system, the pool does not bound the transfers, the streams do
+		this.executor = Executors.newCachedThreadPool();
+		this.s3Client = new InMemoryS3Client();
+	}
+
+	@After
+	public void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void testConcurrentMultipartUpload() throws IOException {
+
+		this.s3Client.delay = 20;
+		final byte[] data = randomBytes(20500);
+
+		final S3DataOutputStream out = new S3DataOutputStream(this.s3Client, BUCKET, OBJECT, 1000, false,
+			this.executor, NUM_THREADS);
+		for (int pos = 0; pos < data.length; pos += 333) {
+			out.write(data, pos, Math.min(333, data.length - pos));
+		}
+		out.close();
+
+		assertArrayEquals(data, this.s3Client.objects.get(OBJECT));
+		assertEquals(21, this.s3Client.numParts.get());
+		assertTrue("The parts were not uploaded concurrently", this.s3Client.maxConcurrentRequests.get() > 1);
+		assertTrue(this.s3Client.maxConcurrentRequests.get() <= NUM_THREADS);
+	}
+
+	@Test
+	public void testSmallObjectIsUploadedAtOnce() throws IOException {
+
+		final byte[] data = randomBytes(999);
+
+		final S3DataOutputStream out = new S3DataOutputStream(this.s3Client, BUCKET, OBJECT, 1000, false,
+			this.executor, NUM_THREADS);
+		out.write(data);
+		out.close();
+
+		assertArrayEquals(data, this.s3Client.objects.get(OBJECT));
+		assertEquals(0, this.s3Client.numParts.get());
+	}
+
+	@Test
+	public void testFailedPartAbortsUpload() throws IOException {
+
+		this.s3Client.failingPart = 4;
+
+		final S3DataOutputStream out = new S3DataOutputStream(this.s3Client, BUCKET, OBJECT, 1000, false,
+			this.executor, NUM_THREADS);
+		try {
+			out.write(randomBytes(20000));
+			out.close();
+			fail("The failed upload was not reported");
+		} catch (IOException e) {
+			// expected
+		}
+
+		assertTrue(this.s3Client.aborted);
+		assertFalse(this.s3Client.objects.containsKey(OBJECT));
+	}
+
+	@Test
+	public void testRangedReads() throws IOException {
+
+		final byte[] data = randomBytes(10000);
+		this.s3Client.objects.put(OBJECT, data);
+
+		final S3DataInputStream in = new S3DataInputStream(this.s3Client, BUCKET, OBJECT, data.length,
+			this.executor, 700, NUM_THREADS);
+		try {
+			final ByteArrayOutputStream read = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[512];
+			int n;
+			while ((n = in.read(buffer)) >= 0) {
+				read.write(buffer, 0, n);
+			}
+			assertArrayEquals(data, read.toByteArray());
+			assertEquals(15, this.s3Client.numRangedGets.get());
+
+			// seek backwards and forwards, within and across the ranges
+			for (int target : new int[] { 5000, 5001, 4999, 0, 9999, 1400, 700 }) {
+				in.seek(target);
+				assertEquals(data[target] & 0xff, in.read());
+			}
+
+			in.seek(data.length);
+			assertEquals(-1, in.read());
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testDiscardedRangesCountAgainstTheLimit() throws IOException {
+
+		final byte[] data = randomBytes(100000);
+		this.s3Client.objects.put(OBJECT, data);
+		this.s3Client.delay = 20;
+
+		final S3DataInputStream in = new S3DataInputStream(this.s3Client, BUCKET, OBJECT, data.length,
+			this.executor, 1000, 2);
+		try {
+			// every seek discards the ranges read ahead, whose requests do not react to the cancellation
+			for (int target = 0; target < data.length; target += 10000) {
+				in.seek(target);
+				assertEquals(data[target] & 0xff, in.read());
+			}
+		} finally {
+			in.close();
+		}
+
+		assertTrue(this.s3Client.maxConcurrentRequests.get() <= 2);
+	}
+
+	@Test
+	public void testStreamsShareTheExecutor() throws Exception {
+
+		this.s3Client.delay = 20;
+		final byte[] data = randomBytes(10500);
+
+		// each stream uploads its parts concurrently, regardless of the other streams
+		final Future<?>[] writers = new Future<?>[3];
+		final ExecutorService writerThreads = Executors.newFixedThreadPool(writers.length);
+		try {
+			for (int i = 0; i < writers.length; i++) {
+				final String object = OBJECT + i;
+				writers[i] = writerThreads.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() throws IOException {
+						final S3DataOutputStream out = new S3DataOutputStream(s3Client, BUCKET, object, 1000, false,
+							executor, NUM_THREADS);
+						out.write(data);
+						out.close();
+						return null;
+					}
+				});
+			}
+			for (Future<?> writer : writers) {
+				writer.get();
+			}
+		} finally {
+			writerThreads.shutdownNow();
+		}
+
+		for (int i = 0; i < writers.length; i++) {
+			assertArrayEquals(data, this.s3Client.objects.get(OBJECT + i));
+		}
+		assertTrue("The streams did not upload concurrently",
+			this.s3Client.maxConcurrentRequests.get() > NUM_THREADS);
+		assertTrue(this.s3Client.maxConcurrentRequests.get() <= writers.length * NUM_THREADS);
+	}
+
+	private static byte[] randomBytes(int num) {
+		final byte[] data = new byte[num];
+		new Random(num).nextBytes(data);
+		return data;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * A stand-in for Amazon S3 that keeps the objects of a single bucket in memory.
+	 */
+	private static final class InMemoryS3Client extends AmazonS3Client {
+
+		private final Map<String, byte[]> objects = new ConcurrentHashMap<String, byte[]>();
+
+		/**
+		 * The uploaded parts, by object and part number.
+		 */
+		private final Map<String, byte[]> parts = new HashMap<String, byte[]>();
+
+		private final AtomicInteger numParts = new AtomicInteger();
+
+		private final AtomicInteger numRangedGets = new AtomicInteger();
+
+		private final AtomicInteger concurrentRequests = new AtomicInteger();
+
+		private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+
+		private volatile long delay;
+
+		private volatile int failingPart = -1;
+
+		private volatile boolean aborted;
+
+		@Override
+		public PutObjectResult putObject(PutObjectRequest request) {
+			this.objects.put(request.getKey(), readFully(request.getInputStream()));
+			return new PutObjectResult();
+		}
+
+		@Override
+		public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+			final InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+			result.setUploadId("upload");
+			return result;
+		}
+
+		@Override
+		public UploadPartResult uploadPart(UploadPartRequest request) {
+			final int concurrent = this.concurrentRequests.incrementAndGet();
+			try {
+				recordConcurrentRequests(concurrent);
+				if (request.getPartNumber() == this.failingPart) {
+					throw new AmazonClientException("Test failure");
+				}
+				if (this.delay > 0) {
+					Thread.sleep(this.delay);
+				}
+
+				final byte[] part = readFully(request.getInputStream());
+				synchronized (this.parts) {
+					this.parts.put(request.getKey() + '#' + request.getPartNumber(), part);
+				}
+				this.numParts.incrementAndGet();
+
+				final UploadPartResult result = new UploadPartResult();
+				result.setPartNumber(request.getPartNumber());
+				result.setETag("etag-" + request.getPartNumber());
+				return result;
+			} catch (InterruptedException e) {
+				throw new AmazonClientException("Interrupted");
+			} finally {
+				this.concurrentRequests.decrementAndGet();
+			}
+		}
+
+		@Override
+		public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+			final ByteArrayOutputStream object = new ByteArrayOutputStream();
+			int expectedPartNumber = 1;
+			for (PartETag tag : request.getPartETags()) {
+				assertEquals(expectedPartNumber++, tag.getPartNumber());
+				assertEquals("etag-" + tag.getPartNumber(), tag.getETag());
+				synchronized (this.parts) {
+					final byte[] part = this.parts.get(request.getKey() + '#' + tag.getPartNumber());
+					object.write(part, 0, part.length);
+				}
+			}
+			this.objects.put(request.getKey(), object.toByteArray());
+			return new CompleteMultipartUploadResult();
+		}
+
+		@Override
+		public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+			this.aborted = true;
+		}
+
+		@Override
+		public S3Object getObject(GetObjectRequest request) {
+			final int concurrent = this.concurrentRequests.incrementAndGet();
+			try {
+				recordConcurrentRequests(concurrent);
+				// like a blocking HTTP request, the delay does not react to interrupts
+				final long end = System.currentTimeMillis() + this.delay;
+				while (System.currentTimeMillis() < end) {
+					try {
+						Thread.sleep(Math.max(1, end - System.currentTimeMillis()));
+					} catch (InterruptedException e) {
+						// keep on waiting
+					}
+				}
+			} finally {
+				this.concurrentRequests.decrementAndGet();
+			}
+
+			final byte[] object = this.objects.get(request.getKey());
+			final long[] range = request.getRange();
+			final int start = range == null ? 0 : (int) range[0];
+			final int end = range == null ? object.length : (int) Math.min(range[1] + 1, object.length);
+			if (range != null) {
+				this.numRangedGets.incrementAndGet();
+			}
+
+			final S3Object result = new S3Object();
+			result.setObjectContent(new ByteArrayInputStream(object, start, end - start));
+			return result;
+		}
+
+		private void recordConcurrentRequests(int concurrent) {
+			synchronized (this.maxConcurrentRequests) {
+				this.maxConcurrentRequests.set(Math.max(concurrent, this.maxConcurrentRequests.get()));
+			}
+		}
+
+		private static byte[] readFully(InputStream in) {
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			int b;
+			try {
+				while ((b = in.read()) >= 0) {
+					bytes.write(b);
+				}
+			} catch (IOException e) {
+				throw new AmazonClientException("Could not read the request data", e);
+			}
+			return bytes.toByteArray();
+		}
+	}
+}
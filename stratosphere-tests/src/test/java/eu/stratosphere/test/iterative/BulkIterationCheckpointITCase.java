@@ -0,0 +1,150 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.test.iterative;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+
+import eu.stratosphere.api.common.aggregators.LongSumAggregator;
+import eu.stratosphere.api.common.typeutils.base.LongSerializer;
+import eu.stratosphere.api.java.DataSet;
+import eu.stratosphere.api.java.ExecutionEnvironment;
+import eu.stratosphere.api.java.IterativeDataSet;
+import eu.stratosphere.api.java.functions.MapFunction;
+import eu.stratosphere.api.java.io.LocalCollectionOutputFormat;
+import eu.stratosphere.compiler.DataStatistics;
+import eu.stratosphere.compiler.PactCompiler;
+import eu.stratosphere.compiler.plantranslate.NepheleJobGraphGenerator;
+import eu.stratosphere.nephele.client.JobClient;
+import eu.stratosphere.nephele.client.JobExecutionException;
+import eu.stratosphere.nephele.jobgraph.JobGraph;
+import eu.stratosphere.pact.runtime.iterative.io.SuperstepSnapshotStore;
+import eu.stratosphere.pact.runtime.iterative.io.SuperstepSnapshotStore.SnapshotWriter;
+import eu.stratosphere.test.util.JavaProgramTestBase;
+import eu.stratosphere.types.LongValue;
+
+/**
+ * Tests that a bulk iteration resumes from the latest complete superstep snapshot of a failed execution only if it
+ * is configured to resume, ignores the snapshots of other programs, continues with the superstep numbers and
+ * aggregates of the snapshot, and removes its snapshots when it terminates.
+ */
+@SuppressWarnings("serial")
+public class BulkIterationCheckpointITCase extends JavaProgramTestBase {
+
+	private static final String AGGREGATOR_NAME = "sum";
+
+	@Override
+	protected void testProgram() throws Exception {
+		final String path = getTempDirPath("bulk-snapshots");
+
+		// a complete snapshot that another program left after superstep 5
+		SuperstepSnapshotStore otherPlan = new SuperstepSnapshotStore(path, "other-plan", 0, 1);
+		SuperstepSnapshotStore otherCoordinator = new SuperstepSnapshotStore(path, "other-plan", 1);
+		otherCoordinator.discardSnapshotsOfOtherPlans();
+		SnapshotWriter<Long> writer = otherPlan.createWriter(5, SuperstepSnapshotStore.PARTIAL_SOLUTION,
+			LongSerializer.INSTANCE);
+		writer.write(100L);
+		writer.close();
+		otherPlan.markComplete(5);
+		otherCoordinator.writeAggregates(5, new LongValue(100));
+
+		// the first execution resumes, but ignores the other program's snapshot and fails in superstep 8
+		FailingIncrement.fail = true;
+		FailingIncrement.NUM_CALLS.set(0);
+		try {
+			runIteration(path, true);
+			Assert.fail("The first execution did not fail.");
+		} catch (JobExecutionException jeex) {
+			// expected
+		}
+		Assert.assertEquals(8, FailingIncrement.NUM_CALLS.get());
+
+		// the second execution does not resume, so it starts over and fails in superstep 8 again
+		FailingIncrement.NUM_CALLS.set(0);
+		try {
+			runIteration(path, false);
+			Assert.fail("The second execution did not fail.");
+		} catch (JobExecutionException jeex) {
+			// expected
+		}
+		Assert.assertEquals(8, FailingIncrement.NUM_CALLS.get());
+
+		// the third execution computes the remaining four supersteps on the snapshot after superstep 6
+		FailingIncrement.fail = false;
+		FailingIncrement.NUM_CALLS.set(0);
+		FailingIncrement.NUM_INCONSISTENCIES.set(0);
+		List<Long> result = runIteration(path, true);
+
+		Assert.assertEquals(4, FailingIncrement.NUM_CALLS.get());
+		Assert.assertEquals(0, FailingIncrement.NUM_INCONSISTENCIES.get());
+		Assert.assertEquals(Collections.singletonList(10L), result);
+		Assert.assertFalse(asFile(path).exists());
+	}
+
+	private List<Long> runIteration(String path, boolean resume) throws Exception {
+		ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+		env.setDegreeOfParallelism(1);
+
+		IterativeDataSet<Long> iteration = env.fromElements(0L).iterate(10)
+			.checkpoint(path, 2).resumeFromCheckpoint(resume);
+		iteration.registerAggregator(AGGREGATOR_NAME, LongSumAggregator.class);
+		DataSet<Long> next = iteration.map(new FailingIncrement());
+
+		List<Long> result = new ArrayList<Long>();
+		iteration.closeWith(next).output(new LocalCollectionOutputFormat<Long>(result));
+
+		JobGraph jobGraph = new NepheleJobGraphGenerator().compileJobGraph(
+			new PactCompiler(new DataStatistics()).compile(env.createProgramPlan()));
+		JobClient client = this.executor.getJobClient(jobGraph);
+		client.setConsoleStreamForReporting(getNullPrintStream());
+		client.submitJobAndWait();
+		return result;
+	}
+
+	public static final class FailingIncrement extends MapFunction<Long, Long> {
+
+		private static final AtomicInteger NUM_CALLS = new AtomicInteger();
+
+		private static final AtomicInteger NUM_INCONSISTENCIES = new AtomicInteger();
+
+		private static volatile boolean fail;
+
+		@Override
+		public Long map(Long value) {
+			NUM_CALLS.incrementAndGet();
+			if (fail && value == 7) {
+				throw new RuntimeException("Failing in superstep 8.");
+			}
+
+			// the partial solution of superstep n is n - 1, and each superstep aggregates its partial solution
+			final int superstep = getIterationRuntimeContext().getSuperstepNumber();
+			if (superstep != value + 1) {
+				NUM_INCONSISTENCIES.incrementAndGet();
+			}
+			if (superstep > 1) {
+				LongValue previous = getIterationRuntimeContext().getPreviousIterationAggregate(AGGREGATOR_NAME);
+				if (previous == null || previous.getValue() != value - 1) {
+					NUM_INCONSISTENCIES.incrementAndGet();
+				}
+			}
+			getIterationRuntimeContext().<LongSumAggregator>getIterationAggregator(AGGREGATOR_NAME).aggregate(value);
+
+			return value + 1;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.test.iterative;
+
+import java.io.BufferedReader;
+
+import eu.stratosphere.api.java.DataSet;
+import eu.stratosphere.api.java.DeltaIteration;
+import eu.stratosphere.api.java.ExecutionEnvironment;
+import eu.stratosphere.api.java.functions.MapFunction;
+import eu.stratosphere.api.java.tuple.Tuple1;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.example.java.graph.ConnectedComponents.ComponentIdFilter;
+import eu.stratosphere.example.java.graph.ConnectedComponents.NeighborWithComponentIDJoin;
+import eu.stratosphere.example.java.graph.ConnectedComponents.UndirectEdge;
+import eu.stratosphere.test.testdata.ConnectedComponentsData;
+import eu.stratosphere.test.util.JavaProgramTestBase;
+
+/**
+ * Connected components where the workset holds the candidate component IDs sent to the neighbors, and only the
+ * smallest candidate per vertex is kept as the workset is produced.
+ */
+@SuppressWarnings("serial")
+public class ConnectedComponentsWithWorksetDeduplicationITCase extends JavaProgramTestBase {
+	
+	private static final long SEED = 0xBADC0FFEEBEEFL;
+	
+	private static final int NUM_VERTICES = 1000;
+	
+	private static final int NUM_EDGES = 10000;
+	
+	private static final int MAX_ITERATIONS = 100;
+
+	
+	private String verticesPath;
+	private String edgesPath;
+	private String resultPath;
+	
+	
+	@Override
+	protected void preSubmit() throws Exception {
+		verticesPath = createTempFile("vertices.txt", ConnectedComponentsData.getEnumeratingVertices(NUM_VERTICES));
+		edgesPath = createTempFile("edges.txt", ConnectedComponentsData.getRandomOddEvenEdges(NUM_EDGES, NUM_VERTICES, SEED));
+		resultPath = getTempFilePath("results");
+	}
+	
+	@Override
+	protected void testProgram() throws Exception {
+		ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+		env.setDegreeOfParallelism(4);
+		
+		DataSet<Tuple2<Long, Long>> verticesWithInitialId = env.readCsvFile(verticesPath).types(Long.class)
+				.map(new InitialComponent());
+		DataSet<Tuple2<Long, Long>> edges = env.readCsvFile(edgesPath).fieldDelimiter(' ').types(Long.class, Long.class)
+				.flatMap(new UndirectEdge());
+		
+		DataSet<Tuple2<Long, Long>> initialCandidates = verticesWithInitialId.join(edges).where(0).equalTo(0)
+				.with(new NeighborWithComponentIDJoin());
+		
+		DeltaIteration<Tuple2<Long, Long>, Tuple2<Long, Long>> iteration =
+				verticesWithInitialId.iterateDelta(initialCandidates, MAX_ITERATIONS, 0).keepWorksetMinimum(1, 0);
+		
+		DataSet<Tuple2<Long, Long>> changes = iteration.getWorkset()
+				.join(iteration.getSolutionSet()).where(0).equalTo(0)
+				.with(new ComponentIdFilter());
+		
+		DataSet<Tuple2<Long, Long>> candidates = changes.join(edges).where(0).equalTo(0)
+				.with(new NeighborWithComponentIDJoin());
+		
+		iteration.closeWith(changes, candidates).writeAsCsv(resultPath, "\n", " ");
+		
+		env.execute("Connected Components with Workset Deduplication");
+	}
+
+	@Override
+	protected void postSubmit() throws Exception {
+		for (BufferedReader reader : getResultReader(resultPath)) {
+			ConnectedComponentsData.checkOddEvenResult(reader);
+		}
+	}
+	
+	public static final class InitialComponent extends MapFunction<Tuple1<Long>, Tuple2<Long, Long>> {
+		@Override
+		public Tuple2<Long, Long> map(Tuple1<Long> vertex) {
+			return new Tuple2<Long, Long>(vertex.f0, vertex.f0);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.test.iterative;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+
+import eu.stratosphere.api.java.DataSet;
+import eu.stratosphere.api.java.DeltaIteration;
+import eu.stratosphere.api.java.ExecutionEnvironment;
+import eu.stratosphere.api.java.functions.JoinFunction;
+import eu.stratosphere.api.java.io.LocalCollectionOutputFormat;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.test.util.JavaProgramTestBase;
+import eu.stratosphere.util.Collector;
+
+/**
+ * Tests that a delta iteration that takes superstep snapshots computes the correct result and removes its
+ * snapshots when it terminates.
+ */
+@SuppressWarnings("serial")
+public class DeltaIterationCheckpointITCase extends JavaProgramTestBase {
+
+	@Override
+	protected void testProgram() throws Exception {
+		final String path = getTempDirPath("delta-snapshots");
+
+		ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+		env.setDegreeOfParallelism(4);
+
+		List<Tuple2<Long, Long>> initial = new ArrayList<Tuple2<Long, Long>>();
+		for (long i = 1; i <= 20; i++) {
+			initial.add(new Tuple2<Long, Long>(i, 0L));
+		}
+		DataSet<Tuple2<Long, Long>> solutionSet = env.fromCollection(initial);
+		DataSet<Tuple2<Long, Long>> workset = env.fromCollection(initial);
+
+		// every element counts up to its key, one step per superstep
+		DeltaIteration<Tuple2<Long, Long>, Tuple2<Long, Long>> iteration = solutionSet.iterateDelta(workset, 100, 0)
+			.checkpoint(path, 3);
+
+		DataSet<Tuple2<Long, Long>> delta = iteration.getWorkset()
+			.join(iteration.getSolutionSet()).where(0).equalTo(0)
+			.with(new IncrementSolution());
+
+		List<Tuple2<Long, Long>> result = new ArrayList<Tuple2<Long, Long>>();
+		iteration.closeWith(delta, delta).output(new LocalCollectionOutputFormat<Tuple2<Long, Long>>(result));
+		env.execute();
+
+		Assert.assertEquals(20, result.size());
+		for (Tuple2<Long, Long> t : result) {
+			Assert.assertEquals(t.f0, t.f1);
+		}
+		Assert.assertFalse(asFile(path).exists());
+	}
+
+	public static final class IncrementSolution extends JoinFunction<Tuple2<Long, Long>, Tuple2<Long, Long>, Tuple2<Long, Long>> {
+
+		@Override
+		public void join(Tuple2<Long, Long> workset, Tuple2<Long, Long> solution, Collector<Tuple2<Long, Long>> out) {
+			if (solution.f1 < solution.f0) {
+				out.collect(new Tuple2<Long, Long>(solution.f0, solution.f1 + 1));
+			}
+		}
+
+		@Override
+		public Tuple2<Long, Long> join(Tuple2<Long, Long> first, Tuple2<Long, Long> second) { return null; }
+	}
+}